@@ -0,0 +1,152 @@
+/***********************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Actuate Corporation - initial API and implementation
+ ***********************************************************************/
+
+package org.eclipse.birt.chart.device.image;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.lang.ref.SoftReference;
+import java.util.Iterator;
+import java.util.LinkedList;
+
+/**
+ * Pool of image buffers used by the image writers. Charts rendered by the
+ * same thread usually share a few sizes, so the last released buffers are
+ * kept per thread and handed out again instead of allocating a new raster
+ * for every chart. Buffers are cleared to the state of a newly created image
+ * before they are reused. Pooled buffers are softly referenced and may be
+ * reclaimed under memory pressure.
+ */
+public final class ImageBufferPool
+{
+
+	/**
+	 * Maximum number of buffers kept per thread.
+	 */
+	private static final int MAX_BUFFERS = 4;
+
+	/**
+	 * Maximum total number of pixels kept per thread.
+	 */
+	private static final long MAX_PIXELS = 1024L * 1024;
+
+	private static final ThreadLocal<LinkedList<SoftReference<BufferedImage>>> buffers = new ThreadLocal<LinkedList<SoftReference<BufferedImage>>>( ) {
+
+		protected LinkedList<SoftReference<BufferedImage>> initialValue( )
+		{
+			return new LinkedList<SoftReference<BufferedImage>>( );
+		}
+	};
+
+	private ImageBufferPool( )
+	{
+	}
+
+	/**
+	 * Returns a cleared image of given size and type, either reused from the
+	 * pool of current thread or newly created.
+	 *
+	 * @param width
+	 * @param height
+	 * @param imageType
+	 * @return image buffer
+	 */
+	public static BufferedImage acquire( int width, int height, int imageType )
+	{
+		LinkedList<SoftReference<BufferedImage>> list = buffers.get( );
+		for ( Iterator<SoftReference<BufferedImage>> it = list.iterator( ); it.hasNext( ); )
+		{
+			BufferedImage img = it.next( ).get( );
+			if ( img == null )
+			{
+				it.remove( );
+			}
+			else if ( img.getWidth( ) == width
+					&& img.getHeight( ) == height
+					&& img.getType( ) == imageType )
+			{
+				it.remove( );
+				clear( img );
+				return img;
+			}
+		}
+		return new BufferedImage( width, height, imageType );
+	}
+
+	/**
+	 * Returns the image to the pool of current thread. The caller must not use
+	 * the image afterwards.
+	 *
+	 * @param img
+	 */
+	public static void release( BufferedImage img )
+	{
+		long pixels = (long) img.getWidth( ) * img.getHeight( );
+		if ( pixels > MAX_PIXELS )
+		{
+			img.flush( );
+			return;
+		}
+		LinkedList<SoftReference<BufferedImage>> list = buffers.get( );
+		// Most recently released first
+		list.addFirst( new SoftReference<BufferedImage>( img ) );
+		long total = 0;
+		int count = 0;
+		for ( Iterator<SoftReference<BufferedImage>> it = list.iterator( ); it.hasNext( ); )
+		{
+			BufferedImage pooled = it.next( ).get( );
+			if ( pooled == null )
+			{
+				it.remove( );
+				continue;
+			}
+			total += (long) pooled.getWidth( ) * pooled.getHeight( );
+			if ( ++count > MAX_BUFFERS || total > MAX_PIXELS )
+			{
+				it.remove( );
+				pooled.flush( );
+			}
+		}
+	}
+
+	/**
+	 * Releases all the buffers pooled by current thread.
+	 */
+	public static void clearPool( )
+	{
+		LinkedList<SoftReference<BufferedImage>> list = buffers.get( );
+		for ( SoftReference<BufferedImage> ref : list )
+		{
+			BufferedImage img = ref.get( );
+			if ( img != null )
+			{
+				img.flush( );
+			}
+		}
+		list.clear( );
+	}
+
+	private static void clear( BufferedImage img )
+	{
+		// Zero all samples, a new image is fully transparent or black
+		Graphics2D g2d = img.createGraphics( );
+		try
+		{
+			g2d.setComposite( AlphaComposite.Clear );
+			g2d.fillRect( 0, 0, img.getWidth( ), img.getHeight( ) );
+		}
+		finally
+		{
+			g2d.dispose( );
+		}
+	}
+}
@@ -0,0 +1,84 @@
+/***********************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Actuate Corporation - initial API and implementation
+ ***********************************************************************/
+
+package org.eclipse.birt.chart.device.image;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Accumulates the encoding metrics of all image writers in the JVM.
+ */
+public final class ImageEncodingStatistics
+{
+
+	private static final AtomicLong imageCount = new AtomicLong( );
+
+	private static final AtomicLong encodeNanos = new AtomicLong( );
+
+	private static final AtomicLong encodedBytes = new AtomicLong( );
+
+	private ImageEncodingStatistics( )
+	{
+	}
+
+	static void record( long nanos, long bytes )
+	{
+		imageCount.incrementAndGet( );
+		encodeNanos.addAndGet( nanos );
+		if ( bytes > 0 )
+		{
+			encodedBytes.addAndGet( bytes );
+		}
+	}
+
+	/**
+	 * @return the number of encoded images
+	 */
+	public static long getImageCount( )
+	{
+		return imageCount.get( );
+	}
+
+	/**
+	 * @return the total encoding time in milliseconds
+	 */
+	public static long getTotalEncodeTime( )
+	{
+		return encodeNanos.get( ) / 1000000L;
+	}
+
+	/**
+	 * @return the average encoding time of an image in milliseconds
+	 */
+	public static double getAverageEncodeTime( )
+	{
+		long count = imageCount.get( );
+		return count == 0 ? 0 : encodeNanos.get( ) / 1000000d / count;
+	}
+
+	/**
+	 * @return the total size of encoded images in bytes
+	 */
+	public static long getTotalEncodedBytes( )
+	{
+		return encodedBytes.get( );
+	}
+
+	/**
+	 * Resets all the metrics.
+	 */
+	public static void reset( )
+	{
+		imageCount.set( 0 );
+		encodeNanos.set( 0 );
+		encodedBytes.set( 0 );
+	}
+}
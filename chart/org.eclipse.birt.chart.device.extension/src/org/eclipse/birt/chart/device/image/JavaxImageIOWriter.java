@@ -17,6 +17,7 @@ import java.awt.Font;
 import java.awt.FontMetrics;
 import java.awt.Image;
 import java.awt.image.BufferedImage;
+import java.awt.image.RenderedImage;
 import java.io.File;
 import java.util.Iterator;
 
@@ -63,6 +64,28 @@ public abstract class JavaxImageIOWriter extends SwingRendererImpl implements
 	
 	private String outputFormat;
 
+	/**
+	 * A property name that identifies the compression quality passed to the
+	 * ImageIO writer, as a java.lang.Float between 0 and 1. For lossless
+	 * formats like PNG higher values trade output size for encoding speed. The
+	 * PNG writer of JDK 8 and earlier does not support compression, a warning
+	 * is logged and the default compression is used when the writer does not
+	 * support it.
+	 */
+	public static final String COMPRESSION_QUALITY = "image.compression.quality"; //$NON-NLS-1$
+
+	/**
+	 * A property name that determines if internally created image buffers are
+	 * pooled and reused by later charts of the same thread, as a
+	 * java.lang.Boolean. The pool of a thread holds at most 4 buffers of one
+	 * megapixel in total, as long as the thread lives. Default is false.
+	 */
+	public static final String BUFFER_POOLING = "image.buffer.pooling"; //$NON-NLS-1$
+
+	protected Float compressionQuality = null;
+
+	private boolean bufferPooling = false;
+
 	/**
 	 * Returns the output format string for this writer.
 	 * 
@@ -114,7 +137,41 @@ public abstract class JavaxImageIOWriter extends SwingRendererImpl implements
 	 */
 	protected void updateWriterParameters( ImageWriteParam iwp )
 	{
-		// OPTIONALLY IMPLEMENTED BY SUBCLASS
+		if ( compressionQuality != null && iwp.canWriteCompressed( ) )
+		{
+			iwp.setCompressionMode( ImageWriteParam.MODE_EXPLICIT );
+			if ( iwp.getCompressionType( ) == null )
+			{
+				String[] types = iwp.getCompressionTypes( );
+				if ( types == null || types.length == 0 )
+				{
+					return;
+				}
+				iwp.setCompressionType( types[0] );
+			}
+			iwp.setCompressionQuality( compressionQuality.floatValue( ) );
+		}
+		else if ( compressionQuality != null )
+		{
+			logger.log( ILogger.WARNING, getFormat( )
+					+ " image writer does not support compression, quality " //$NON-NLS-1$
+					+ compressionQuality
+					+ " is ignored" ); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * Returns the image which is actually encoded for the rendered chart
+	 * image. Subclasses may convert it to a representation which is smaller
+	 * or faster to encode.
+	 * 
+	 * @param img
+	 *            rendered image
+	 * @return image to encode
+	 */
+	protected RenderedImage prepareImage( BufferedImage img )
+	{
+		return img;
 	}
 
 	/*
@@ -209,8 +266,12 @@ public abstract class JavaxImageIOWriter extends SwingRendererImpl implements
 			}
 
 			// CREATE THE IMAGE INSTANCE
-			_img = new BufferedImage( (int) Math.round( _bo.getWidth( ) ),
-					(int) Math.round( _bo.getHeight( ) ),
+			int width = (int) Math.round( _bo.getWidth( ) );
+			int height = (int) Math.round( _bo.getHeight( ) );
+			_img = bufferPooling ? ImageBufferPool.acquire( width,
+					height,
+					getImageType( ) ) : new BufferedImage( width,
+					height,
 					getImageType( ) );
 		}
 		super.setProperty( IDeviceRenderer.GRAPHICS_CONTEXT, _img.getGraphics( ) );
@@ -282,14 +343,26 @@ public abstract class JavaxImageIOWriter extends SwingRendererImpl implements
 					: _oOutputIdentifier;
 			try
 			{
+				long start = System.nanoTime( );
 				final ImageOutputStream ios = SecurityUtil.newImageOutputStream( o );
 				ImageWriteParam iwp = iw.getDefaultWriteParam( );
 				updateWriterParameters( iwp );
 				iw.setOutput( ios );
 				iw.write( (IIOMetadata) null,
-						new IIOImage( (BufferedImage) _img, null, null ),
+						new IIOImage( prepareImage( (BufferedImage) _img ),
+								null,
+								null ),
 						iwp );
+				long size = ios.getStreamPosition( );
 				ios.close( );
+				long time = System.nanoTime( ) - start;
+				ImageEncodingStatistics.record( time, size );
+				logger.log( ILogger.TRACE, getFormat( )
+						+ " image encoded in " //$NON-NLS-1$
+						+ ( time / 1000000L )
+						+ " ms, " //$NON-NLS-1$
+						+ size
+						+ " bytes" ); //$NON-NLS-1$
 			}
 			catch ( Exception ex )
 			{
@@ -306,7 +379,14 @@ public abstract class JavaxImageIOWriter extends SwingRendererImpl implements
 		// FLUSH AND RESTORE STATE OF INTERNALLY CREATED IMAGE
 		if ( !_bImageExternallySpecified )
 		{
-			_img.flush( );
+			if ( bufferPooling )
+			{
+				ImageBufferPool.release( (BufferedImage) _img );
+			}
+			else
+			{
+				_img.flush( );
+			}
 			_img = null;
 		}
 
@@ -348,6 +428,14 @@ public abstract class JavaxImageIOWriter extends SwingRendererImpl implements
 		{
 			outputFormat = (String)oValue;
 		}
+		else if ( sProperty.equals( COMPRESSION_QUALITY ) )
+		{
+			compressionQuality = (Float) oValue;
+		}
+		else if ( sProperty.equals( BUFFER_POOLING ) )
+		{
+			bufferPooling = ( (Boolean) oValue ).booleanValue( );
+		}
 	}
 
 	/*
@@ -53,7 +53,9 @@ public final class JpegRendererImpl extends JavaxImageIOWriter
 	
 	protected void updateWriterParameters( ImageWriteParam iwp )
 	{
-		float quality = isQualitySet ? jpegQuality : 0.95f;
+		float quality = isQualitySet ? jpegQuality
+				: ( compressionQuality != null ? compressionQuality.floatValue( )
+						: 0.95f );
 		iwp.setCompressionMode( ImageWriteParam.MODE_EXPLICIT );
 		iwp.setCompressionQuality( quality );
 	}
@@ -11,6 +11,9 @@
 package org.eclipse.birt.chart.device.image;
 
 import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
+import java.awt.image.RenderedImage;
+import java.util.Arrays;
 
 /**
  *
@@ -18,6 +21,18 @@ import java.awt.image.BufferedImage;
 public class PngRendererImpl extends JavaxImageIOWriter
 {
 
+	/**
+	 * A property name that determines if the chart image should be written
+	 * as an indexed color PNG when it uses no more than 256 distinct colors,
+	 * as a java.lang.Boolean. The conversion is lossless, images with more
+	 * colors are written in true color. Default is false.
+	 */
+	public static final String INDEXED_COLOR = "png.indexed.color"; //$NON-NLS-1$
+
+	private static final int MAX_PALETTE_SIZE = 256;
+
+	private boolean indexedColor = false;
+
     /* (non-Javadoc)
      * @see org.eclipse.birt.chart.device.image.JavaxImageIOWriter#getFormat()
      */
@@ -47,5 +62,118 @@ public class PngRendererImpl extends JavaxImageIOWriter
 		return true;
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.eclipse.birt.chart.device.image.JavaxImageIOWriter#setProperty(java.lang.String,
+	 *      java.lang.Object)
+	 */
+	public void setProperty( String sProperty, Object oValue )
+	{
+		super.setProperty( sProperty, oValue );
+		if ( sProperty.equals( INDEXED_COLOR ) )
+		{
+			indexedColor = ( (Boolean) oValue ).booleanValue( );
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.eclipse.birt.chart.device.image.JavaxImageIOWriter#prepareImage(java.awt.image.BufferedImage)
+	 */
+	protected RenderedImage prepareImage( BufferedImage img )
+	{
+		if ( indexedColor )
+		{
+			BufferedImage indexed = toIndexedImage( img );
+			if ( indexed != null )
+			{
+				return indexed;
+			}
+		}
+		return img;
+	}
+
+	/**
+	 * Converts the image to an indexed color image with an exact palette.
+	 * 
+	 * @param img
+	 * @return the indexed image, or null if the image has no pixels or uses
+	 *         more colors than a palette can hold.
+	 */
+	public static BufferedImage toIndexedImage( BufferedImage img )
+	{
+		int w = img.getWidth( );
+		int h = img.getHeight( );
+		if ( w <= 0 || h <= 0 )
+		{
+			// A color model needs at least one palette entry
+			return null;
+		}
+		int[] row = new int[w];
+		byte[] indices = new byte[w * h];
+
+		// Open addressing hash of ARGB values to palette indices
+		int[] slotColors = new int[MAX_PALETTE_SIZE * 2];
+		int[] slotIndices = new int[MAX_PALETTE_SIZE * 2];
+		Arrays.fill( slotIndices, -1 );
+		int mask = slotColors.length - 1;
+		int[] palette = new int[MAX_PALETTE_SIZE];
+		int size = 0;
+
+		int lastColor = 0;
+		int lastIndex = -1;
+		int pos = 0;
+		for ( int y = 0; y < h; y++ )
+		{
+			img.getRGB( 0, y, w, 1, row, 0, w );
+			for ( int x = 0; x < w; x++ )
+			{
+				int argb = row[x];
+				if ( lastIndex < 0 || argb != lastColor )
+				{
+					int slot = ( argb * 0x9E3779B9 ) >>> 23 & mask;
+					while ( slotIndices[slot] >= 0
+							&& slotColors[slot] != argb )
+					{
+						slot = ( slot + 1 ) & mask;
+					}
+					if ( slotIndices[slot] < 0 )
+					{
+						if ( size == MAX_PALETTE_SIZE )
+						{
+							return null;
+						}
+						slotColors[slot] = argb;
+						slotIndices[slot] = size;
+						palette[size++] = argb;
+					}
+					lastColor = argb;
+					lastIndex = slotIndices[slot];
+				}
+				indices[pos++] = (byte) lastIndex;
+			}
+		}
+
+		byte[] r = new byte[size];
+		byte[] g = new byte[size];
+		byte[] b = new byte[size];
+		byte[] a = new byte[size];
+		for ( int i = 0; i < size; i++ )
+		{
+			a[i] = (byte) ( palette[i] >>> 24 );
+			r[i] = (byte) ( palette[i] >> 16 );
+			g[i] = (byte) ( palette[i] >> 8 );
+			b[i] = (byte) palette[i];
+		}
+		IndexColorModel icm = new IndexColorModel( 8, size, r, g, b, a );
+		BufferedImage indexed = new BufferedImage( w,
+				h,
+				BufferedImage.TYPE_BYTE_INDEXED,
+				icm );
+		indexed.getRaster( ).setDataElements( 0, 0, w, h, indices );
+		return indexed;
+	}
 
 }
@@ -18,7 +18,6 @@ import java.awt.RenderingHints;
 import java.awt.font.FontRenderContext;
 import java.awt.font.LineBreakMeasurer;
 import java.awt.font.TextLayout;
-import java.awt.geom.Rectangle2D;
 import java.text.AttributedString;
 import java.util.ArrayList;
 import java.util.Iterator;
@@ -27,6 +26,7 @@ import java.util.List;
 import org.eclipse.birt.chart.computation.IConstants;
 import org.eclipse.birt.chart.device.IDisplayServer;
 import org.eclipse.birt.chart.device.TextAdapter;
+import org.eclipse.birt.chart.device.util.TextMetricsCache;
 import org.eclipse.birt.chart.model.attribute.FontDefinition;
 import org.eclipse.birt.chart.model.attribute.Insets;
 import org.eclipse.birt.chart.model.component.Label;
@@ -57,7 +57,11 @@ public final class SwingTextMetrics extends TextAdapter
 
 	private Insets ins = null;
 
-	private double cachedwidth;
+	private Font font = null;
+
+	private FontRenderContext frc = null;
+
+	private TextMetricsCache.Metrics metrics = null;
 
 	/**
 	 * The constructor initializes a tiny image that provides a graphics context
@@ -122,8 +126,8 @@ public final class SwingTextMetrics extends TextAdapter
 		final Font f = (Font) xs.createFont( la.getCaption( ).getFont( ) );
 		fm = g2d.getFontMetrics( f );
 		final FontRenderContext frc = g2d.getFontRenderContext( );
-
-		cachedwidth = Double.NaN;
+		font = f;
+		this.frc = frc;
 
 		String s = la.getCaption( ).getValue( );
 		if ( s == null )
@@ -140,28 +144,69 @@ public final class SwingTextMetrics extends TextAdapter
 		{
 			s = IConstants.ONE_SPACE;
 		}
-		String[] sa = splitOnBreaks( s, forceWrappingSize, f );
-		if ( sa == null )
+
+		final double rotation = la.getCaption( ).getFont( ).getRotation( );
+		final TextMetricsCache cache = TextMetricsCache.getInstance( );
+		metrics = cache.get( s, f, frc, rotation, forceWrappingSize );
+		if ( metrics == null )
 		{
-			iLineCount = 1;
-			oText = s;
-			tla = new TextLayout[1];
-			fsa = new String[1];
-			tla[0] = new TextLayout( s, f.getAttributes( ), frc );
-			fsa[0] = s;
+			String[] sa = splitOnBreaks( s, forceWrappingSize, f );
+			if ( sa == null )
+			{
+				sa = new String[]{
+					s
+				};
+			}
+			tla = new TextLayout[sa.length];
+			double[] widths = new double[sa.length];
+			if ( sa.length > 1 )
+			{
+				for ( int i = 0; i < sa.length; i++ )
+				{
+					/**
+					 * There is error between textLayout.getBounds() and
+					 * fm.getStringBounds(), so we have to use
+					 * textLayout.getBounds() for consistency. In addition, it
+					 * has no problem with full pitch characters now.
+					 */
+					tla[i] = new TextLayout( sa[i], f.getAttributes( ), frc );
+					/**
+					 * Fixed for java.awt.font.TextLine.getBounds() bug, when
+					 * string is blank, e.g. " ", it will return an negative
+					 * result.
+					 */
+					widths[i] = Math.max( 0, tla[i].getBounds( ).getWidth( ) );
+				}
+			}
+			else
+			{
+				/**
+				 * Not use the textLayout.getBounds(), this is not correct when
+				 * the string contains full pitch characters.
+				 */
+				widths[0] = Math.max( 0, fm.getStringBounds( sa[0], g2d )
+						.getWidth( ) );
+			}
+			metrics = new TextMetricsCache.Metrics( sa,
+					widths,
+					fm.getHeight( ),
+					fm.getDescent( ) );
+			cache.put( s, f, frc, rotation, forceWrappingSize, metrics );
 		}
 		else
 		{
-			iLineCount = sa.length;
-			oText = sa;
-			tla = new TextLayout[iLineCount];
-			fsa = new String[iLineCount];
-			for ( int i = 0; i < iLineCount; i++ )
-			{
-				tla[i] = new TextLayout( sa[i], f.getAttributes( ), frc );
-				fsa[i] = sa[i];
-			}
+			// Layouts are only created when the label is drawn
+			tla = new TextLayout[metrics.getLineCount( )];
+		}
+
+		iLineCount = metrics.getLineCount( );
+		fsa = new String[iLineCount];
+		for ( int i = 0; i < iLineCount; i++ )
+		{
+			fsa[i] = metrics.getLine( i );
 		}
+		oText = iLineCount > 1 ? fsa : fsa[0];
+		faWidth = null;
 		ins = la.getInsets( ).scaledInstance( pointsToPixels( ) );
 
 		if ( forceWrappingSize > 0 )
@@ -189,7 +234,7 @@ public final class SwingTextMetrics extends TextAdapter
 	 */
 	public final double getHeight( )
 	{
-		return fm.getHeight( );
+		return metrics.getHeight( );
 	}
 
 	/**
@@ -199,7 +244,7 @@ public final class SwingTextMetrics extends TextAdapter
 	 */
 	public final double getDescent( )
 	{
-		return fm.getDescent( );
+		return metrics.getDescent( );
 	}
 
 	/**
@@ -210,68 +255,19 @@ public final class SwingTextMetrics extends TextAdapter
 	 */
 	private final double stringWidth( )
 	{
-		if ( !Double.isNaN( cachedwidth ) )
+		if ( iLineCount == 0 )
 		{
-			return cachedwidth;
+			return 0;
 		}
-
-		faWidth = new double[iLineCount];
-		cachedwidth = 0;
-
-		Rectangle2D r2d;
-
-		if ( iLineCount > 1 )
+		if ( faWidth == null )
 		{
-			double dWidth, dMaxWidth = 0;
+			faWidth = new double[iLineCount];
 			for ( int i = 0; i < iLineCount; i++ )
 			{
-				/**
-				 * //r2d = tla[i].getBounds( );
-				 * 
-				 * Not use the textLayout.getBounds(), this is not correct when
-				 * the string contains full pitch characters.
-				 */
-				/**
-				 * // r2d = fm.getStringBounds( fsa[0], g2d );
-				 * 
-				 * There is error between the both methods, so we have to use
-				 * textLayout.getBounds() for consistency. In addition, it has
-				 * no problem with full pitch characters now.
-				 */
-				r2d = tla[i].getBounds( );
-				dWidth = r2d.getWidth( );
-				faWidth[i] = Math.max( 0, dWidth );
-				if ( dWidth > dMaxWidth )
-				{
-					dMaxWidth = dWidth;
-				}
+				faWidth[i] = metrics.getWidth( i );
 			}
-
-			/**
-			 * Fixed for java.awt.font.TextLine.getBounds() bug, when string is
-			 * blank, e.g. " ", it will return an negative result.
-			 */
-			cachedwidth = Math.max( 0, dMaxWidth );
 		}
-		else if ( iLineCount == 1 )
-		{
-			/**
-			 * // double w = tla[0].getBounds( ).getWidth( );
-			 * 
-			 * Not use the textLayout.getBounds(), this is not correct when the
-			 * string contains full pitch characters.
-			 */
-			double w = fm.getStringBounds( fsa[0], g2d ).getWidth( );
-
-			/**
-			 * Fixed for java.awt.font.TextLine.getBounds() bug, when string is
-			 * blank, e.g. " ", it will return an negative result.
-			 */
-			cachedwidth = Math.max( 0, w );
-			faWidth[0] = cachedwidth;
-		}
-
-		return cachedwidth;
+		return metrics.getMaxWidth( );
 	}
 
 	final double pointsToPixels( )
@@ -329,7 +325,12 @@ public final class SwingTextMetrics extends TextAdapter
 
 	public final TextLayout getLayout( int iIndex )
 	{
-		return ( iLineCount > 1 ) ? tla[iIndex] : tla[0];
+		int index = ( iLineCount > 1 ) ? iIndex : 0;
+		if ( tla[index] == null )
+		{
+			tla[index] = new TextLayout( fsa[index], font.getAttributes( ), frc );
+		}
+		return tla[index];
 	}
 
 	/**
@@ -17,7 +17,6 @@ import java.awt.Graphics2D;
 import java.awt.RenderingHints;
 import java.awt.font.FontRenderContext;
 import java.awt.font.LineBreakMeasurer;
-import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
 import java.text.AttributedString;
 import java.util.ArrayList;
@@ -62,6 +61,12 @@ public final class ChartTextMetrics extends TextAdapter
 	
 	private ITextLayoutFactory textLayoutFactory;
 
+	private Font font = null;
+
+	private FontRenderContext frc = null;
+
+	private TextMetricsCache.Metrics metrics = null;
+
 	/**
 	 * The constructor initializes a tiny image that provides a graphics context
 	 * capable of performing computations in the absence of a visual component
@@ -146,6 +151,8 @@ public final class ChartTextMetrics extends TextAdapter
 		final Font f = (Font) xs.createFont( la.getCaption( ).getFont( ) );
 		fm = g2d.getFontMetrics( f );
 		final FontRenderContext frc = g2d.getFontRenderContext( );
+		font = f;
+		this.frc = frc;
 
 		String s = la.getCaption( ).getValue( );
 		if ( s == null )
@@ -162,28 +169,65 @@ public final class ChartTextMetrics extends TextAdapter
 		{
 			s = IConstants.ONE_SPACE;
 		}
-		String[] sa = splitOnBreaks( s, forceWrappingSize );
-		if ( sa == null )
+
+		final double rotation = la.getCaption( ).getFont( ).getRotation( );
+		final TextMetricsCache cache = TextMetricsCache.getInstance( );
+		metrics = cache.get( s, f, frc, rotation, forceWrappingSize );
+		if ( metrics == null )
 		{
-			iLineCount = 1;
-			oText = s;
-			tla = new ChartTextLayout[1];
-			fsa = new String[1];
-			tla[0] = textLayoutFactory.createTextLayout( s, f.getAttributes( ), frc );
-			fsa[0] = s;
+			String[] sa = splitOnBreaks( s, forceWrappingSize );
+			if ( sa == null )
+			{
+				sa = new String[]{
+					s
+				};
+			}
+			tla = new ChartTextLayout[sa.length];
+			double[] widths = new double[sa.length];
+			if ( sa.length > 1 )
+			{
+				for ( int i = 0; i < sa.length; i++ )
+				{
+					tla[i] = textLayoutFactory.createTextLayout( sa[i],
+							f.getAttributes( ),
+							frc );
+					/**
+					 * Fixed for java.awt.font.TextLine.getBounds() bug, when
+					 * string is blank, e.g. " ", it will return an negative
+					 * result.
+					 */
+					widths[i] = Math.max( 0, tla[i].getBounds( ).getWidth( ) );
+				}
+			}
+			else
+			{
+				/**
+				 * Not use the textLayout.getBounds(), this is not correct when
+				 * the string contains full pitch characters.
+				 */
+				widths[0] = Math.max( 0, fm.getStringBounds( sa[0], g2d )
+						.getWidth( ) );
+			}
+			metrics = new TextMetricsCache.Metrics( sa,
+					widths,
+					fm.getHeight( ),
+					fm.getDescent( ) );
+			cache.put( s, f, frc, rotation, forceWrappingSize, metrics );
 		}
 		else
 		{
-			iLineCount = sa.length;
-			oText = sa;
-			tla = new ChartTextLayout[iLineCount];
-			fsa = new String[iLineCount];
-			for ( int i = 0; i < iLineCount; i++ )
-			{
-				tla[i] = textLayoutFactory.createTextLayout( sa[i], f.getAttributes( ), frc );
-				fsa[i] = sa[i];
-			}
+			// Layouts are only created when the label is drawn
+			tla = new ChartTextLayout[metrics.getLineCount( )];
 		}
+
+		iLineCount = metrics.getLineCount( );
+		fsa = new String[iLineCount];
+		for ( int i = 0; i < iLineCount; i++ )
+		{
+			fsa[i] = metrics.getLine( i );
+		}
+		oText = iLineCount > 1 ? fsa : fsa[0];
+		faWidth = null;
 		ins = la.getInsets( ).scaledInstance( pointsToPixels( ) );
 
 		if ( forceWrappingSize > 0 )
@@ -211,7 +255,7 @@ public final class ChartTextMetrics extends TextAdapter
 	 */
 	public final double getHeight( )
 	{
-		return fm.getHeight( );
+		return metrics.getHeight( );
 	}
 
 	/**
@@ -221,7 +265,7 @@ public final class ChartTextMetrics extends TextAdapter
 	 */
 	public final double getDescent( )
 	{
-		return fm.getDescent( );
+		return metrics.getDescent( );
 	}
 
 	/**
@@ -232,50 +276,19 @@ public final class ChartTextMetrics extends TextAdapter
 	 */
 	private final double stringWidth( )
 	{
-		faWidth = new double[iLineCount];
-		Rectangle2D r2d;
-		
-		if ( iLineCount > 1 )
+		if ( iLineCount == 0 )
 		{
-			double dWidth, dMaxWidth = 0;
+			return 0;
+		}
+		if ( faWidth == null )
+		{
+			faWidth = new double[iLineCount];
 			for ( int i = 0; i < iLineCount; i++ )
 			{
-				r2d = tla[i].getBounds( );
-				dWidth = r2d.getWidth( );
-				faWidth[i] = Math.max( 0, dWidth );
-				
-				if ( dWidth > dMaxWidth )
-				{
-					dMaxWidth = dWidth;
-				}
+				faWidth[i] = metrics.getWidth( i );
 			}
-
-			/**
-			 * Fixed for java.awt.font.TextLine.getBounds() bug, when string is
-			 * blank, e.g. " ", it will return an negative result.
-			 */
-			return Math.max( 0, dMaxWidth );
-		}
-		else if ( iLineCount == 1 )
-		{
-			/**
-			 * // double w = tla[0].getBounds( ).getWidth( );
-			 * 
-			 * Not use the textLayout.getBounds(), this is not correct when the
-			 * string contains full pitch characters.
-			 */
-			double w = fm.getStringBounds( fsa[0], g2d ).getWidth( );
-			
-			/**
-			 * Fixed for java.awt.font.TextLine.getBounds() bug, when string is
-			 * blank, e.g. " ", it will return an negative result.
-			 */
-			w = Math.max( 0, w );
-			faWidth[0] = w;
-			return w;
 		}
-
-		return 0;
+		return metrics.getMaxWidth( );
 	}
 
 	final double pointsToPixels( )
@@ -333,7 +346,14 @@ public final class ChartTextMetrics extends TextAdapter
 
 	public final ChartTextLayout getLayout( int iIndex )
 	{
-		return ( iLineCount > 1 ) ? tla[iIndex] : tla[0];
+		int index = ( iLineCount > 1 ) ? iIndex : 0;
+		if ( tla[index] == null )
+		{
+			tla[index] = textLayoutFactory.createTextLayout( fsa[index],
+					font.getAttributes( ),
+					frc );
+		}
+		return tla[index];
 	}
 
 	/**
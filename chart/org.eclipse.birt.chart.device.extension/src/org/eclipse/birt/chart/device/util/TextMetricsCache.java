@@ -0,0 +1,269 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.chart.device.util;
+
+import java.awt.Font;
+import java.awt.font.FontRenderContext;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded cache of measured label extents shared by the text metrics of all
+ * charts in the JVM. Axis scaling measures the same labels many times while it
+ * searches for a non-overlapping scale, and charts of the same report usually
+ * share their labels, so the line breaking and the width of each line are
+ * computed once per text, font, rendering context, rotation and wrapping
+ * size. The cache is thread-safe and evicts the least recently used entries.
+ */
+public final class TextMetricsCache
+{
+
+	/**
+	 * Default maximum number of cached labels.
+	 */
+	public static final int DEFAULT_CAPACITY = 4096;
+
+	private static final TextMetricsCache instance = new TextMetricsCache( DEFAULT_CAPACITY );
+
+	private final Map<Key, Metrics> cache;
+
+	private long hitCount = 0;
+
+	private long missCount = 0;
+
+	/**
+	 * Measured extents of a label.
+	 */
+	public static final class Metrics
+	{
+
+		private final String[] lines;
+		private final double[] widths;
+		private final double height;
+		private final double descent;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param lines
+		 *            lines of the label after splitting on breaks and wrapping
+		 * @param widths
+		 *            width of each line
+		 * @param height
+		 *            height of a single line
+		 * @param descent
+		 *            descent of a single line
+		 */
+		public Metrics( String[] lines, double[] widths, double height,
+				double descent )
+		{
+			this.lines = lines;
+			this.widths = widths;
+			this.height = height;
+			this.descent = descent;
+		}
+
+		public int getLineCount( )
+		{
+			return lines.length;
+		}
+
+		public String getLine( int index )
+		{
+			return lines[index];
+		}
+
+		public double getWidth( int index )
+		{
+			return widths[index];
+		}
+
+		/**
+		 * @return The width of the widest line
+		 */
+		public double getMaxWidth( )
+		{
+			double max = 0;
+			for ( int i = 0; i < widths.length; i++ )
+			{
+				max = Math.max( max, widths[i] );
+			}
+			return max;
+		}
+
+		public double getHeight( )
+		{
+			return height;
+		}
+
+		public double getDescent( )
+		{
+			return descent;
+		}
+	}
+
+	private static final class Key
+	{
+
+		private final String text;
+		private final Font font;
+		private final FontRenderContext frc;
+		private final double rotation;
+		private final double wrapping;
+		private final int hash;
+
+		Key( String text, Font font, FontRenderContext frc, double rotation,
+				double wrapping )
+		{
+			this.text = text;
+			this.font = font;
+			this.frc = frc;
+			this.rotation = rotation;
+			this.wrapping = wrapping;
+			int h = text.hashCode( );
+			h = h * 31 + font.hashCode( );
+			h = h * 31 + frc.hashCode( );
+			long bits = Double.doubleToLongBits( rotation );
+			h = h * 31 + (int) ( bits ^ ( bits >>> 32 ) );
+			bits = Double.doubleToLongBits( wrapping );
+			h = h * 31 + (int) ( bits ^ ( bits >>> 32 ) );
+			this.hash = h;
+		}
+
+		@Override
+		public int hashCode( )
+		{
+			return hash;
+		}
+
+		@Override
+		public boolean equals( Object obj )
+		{
+			if ( this == obj )
+			{
+				return true;
+			}
+			if ( !( obj instanceof Key ) )
+			{
+				return false;
+			}
+			Key other = (Key) obj;
+			return hash == other.hash
+					&& rotation == other.rotation
+					&& wrapping == other.wrapping
+					&& text.equals( other.text )
+					&& font.equals( other.font )
+					&& frc.equals( other.frc );
+		}
+	}
+
+	/**
+	 * Returns the cache shared by all charts.
+	 *
+	 * @return the shared instance
+	 */
+	public static TextMetricsCache getInstance( )
+	{
+		return instance;
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param capacity
+	 *            maximum number of cached labels
+	 */
+	public TextMetricsCache( final int capacity )
+	{
+		cache = new LinkedHashMap<Key, Metrics>( 256, 0.75f, true ) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry( Map.Entry<Key, Metrics> eldest )
+			{
+				return size( ) > capacity;
+			}
+		};
+	}
+
+	/**
+	 * Returns the cached metrics of a label.
+	 *
+	 * @param text
+	 *            trimmed label text
+	 * @param font
+	 *            font with the dpi resolution applied
+	 * @param frc
+	 *            font render context used to measure the text
+	 * @param rotation
+	 *            rotation of the label
+	 * @param wrapping
+	 *            wrapping size, or 0 if the text is not wrapped
+	 * @return cached metrics or null
+	 */
+	public synchronized Metrics get( String text, Font font,
+			FontRenderContext frc, double rotation, double wrapping )
+	{
+		Metrics metrics = cache.get( new Key( text,
+				font,
+				frc,
+				rotation,
+				wrapping ) );
+		if ( metrics == null )
+		{
+			missCount++;
+		}
+		else
+		{
+			hitCount++;
+		}
+		return metrics;
+	}
+
+	/**
+	 * Caches the metrics of a label.
+	 *
+	 * @see #get(String, Font, FontRenderContext, double, double)
+	 */
+	public synchronized void put( String text, Font font,
+			FontRenderContext frc, double rotation, double wrapping,
+			Metrics metrics )
+	{
+		cache.put( new Key( text, font, frc, rotation, wrapping ), metrics );
+	}
+
+	/**
+	 * Removes all cached metrics.
+	 */
+	public synchronized void clear( )
+	{
+		cache.clear( );
+		hitCount = 0;
+		missCount = 0;
+	}
+
+	public synchronized int size( )
+	{
+		return cache.size( );
+	}
+
+	public synchronized long getHitCount( )
+	{
+		return hitCount;
+	}
+
+	public synchronized long getMissCount( )
+	{
+		return missCount;
+	}
+}
@@ -38,4 +38,11 @@ public interface ISVGConstants {
 	 * A property name that determines if the generated SVG should contain embedded javascript code.
 	 */
 	public static final String ENABLE_SCRIPT = "enable.scriptable"; //$NON-NLS-1$
+
+	/**
+	 * A property name that determines if the generated SVG should be written
+	 * to the output while the chart is rendered, instead of building the whole
+	 * document in memory first. The value should be a java.lang.Boolean.
+	 */
+	public static final String STREAMING_OUTPUT = "streaming.output"; //$NON-NLS-1$
 }
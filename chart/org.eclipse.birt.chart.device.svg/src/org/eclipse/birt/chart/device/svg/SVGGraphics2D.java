@@ -39,6 +39,7 @@ import java.awt.image.ImageObserver;
 import java.awt.image.RenderedImage;
 import java.awt.image.renderable.RenderableImage;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.text.AttributedCharacterIterator;
 import java.util.ArrayList;
 import java.util.HashSet;
@@ -62,6 +63,7 @@ import org.eclipse.birt.chart.log.Logger;
 import org.eclipse.birt.chart.util.SecurityUtil;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
+import org.w3c.dom.Node;
 
 /**
  * This class provides the graphic context to draw primitive svg drawing
@@ -95,6 +97,9 @@ public class SVGGraphics2D extends ChartGraphics2D
 	protected String primitiveId = null;
 	private RenderingHints renderingHints = new RenderingHints( null );
 	protected boolean scriptable = true;
+	protected Element outerGroup;
+	protected SVGStreamWriter streamWriter = null;
+	private IOException streamException = null;
 
 	protected static final String defaultStyles = "fill:none;stroke:none"; //$NON-NLS-1$
 
@@ -124,6 +129,7 @@ public class SVGGraphics2D extends ChartGraphics2D
 		currentParent = currentElement;
 		// add default styles
 		currentElement = dom.createElement( "g" ); //$NON-NLS-1$
+		outerGroup = currentElement;
 		definitions = dom.createElement( "defs" ); //$NON-NLS-1$
 		// give the outer group element an ID
 		currentElement.setAttribute( "id", "outerG" ); //$NON-NLS-1$ //$NON-NLS-2$
@@ -154,9 +160,154 @@ public class SVGGraphics2D extends ChartGraphics2D
 
 	protected void appendChild( Element child )
 	{
+		if ( streamWriter != null && currentParent == outerGroup )
+		{
+			// A new top level element starts, so the previous ones are
+			// complete and can be written out
+			writeCompletedElements( );
+		}
 		currentParent.appendChild( child );
 	}
 
+	/**
+	 * Starts streaming output. The document prolog, the start tags of the
+	 * root and outer group elements, the script library and the default
+	 * styles are written immediately. Top level drawing elements are written
+	 * and detached from the document as soon as they are complete, preceded
+	 * by the definitions, styles and scripts added since the previous ones,
+	 * so that they are always written before the elements which refer to
+	 * them.
+	 * 
+	 * @param writer
+	 *            the stream writer
+	 * @throws IOException
+	 */
+	public void startStreaming( SVGStreamWriter writer ) throws IOException
+	{
+		writer.writeProlog( );
+		writer.writeStartTag( dom.getDocumentElement( ) );
+		writer.writeStartTag( outerGroup );
+		// Definitions, scripts and styles are written in blocks of their own
+		outerGroup.removeChild( definitions );
+		if ( codeScript.getParentNode( ) == outerGroup )
+		{
+			outerGroup.removeChild( codeScript );
+			codeScript.appendChild( dom.createCDATASection( EventHandlers.getJSMenuLib( ) ) );
+			writer.writeNode( codeScript );
+		}
+		outerGroup.removeChild( styles );
+		styles.appendChild( dom.createCDATASection( EventHandlers.STYLES.toString( ) ) );
+		writer.writeNode( styles );
+		streamWriter = writer;
+		streamException = null;
+	}
+
+	/**
+	 * Writes all the remaining content of the document and ends streaming
+	 * output.
+	 * 
+	 * @throws IOException
+	 */
+	public void finishStreaming( ) throws IOException
+	{
+		try
+		{
+			if ( streamException != null )
+			{
+				throw streamException;
+			}
+			writeDefinitions( );
+			streamWriter.writeChildren( outerGroup );
+			streamWriter.writeEndTag( outerGroup );
+			Element root = dom.getDocumentElement( );
+			for ( Node child = root.getFirstChild( ); child != null; child = child.getNextSibling( ) )
+			{
+				if ( child != outerGroup )
+				{
+					streamWriter.writeNode( child );
+				}
+			}
+			streamWriter.writeEndTag( root );
+			streamWriter.flush( );
+		}
+		finally
+		{
+			streamWriter = null;
+			streamException = null;
+		}
+	}
+
+	/**
+	 * @return true if the graphic context is writing its content directly to
+	 *         a stream.
+	 */
+	public boolean isStreaming( )
+	{
+		return streamWriter != null;
+	}
+
+	/**
+	 * Writes and detaches the top level elements of the outer group, after
+	 * the definitions, styles and scripts they may refer to.
+	 */
+	protected void writeCompletedElements( )
+	{
+		if ( streamException != null )
+		{
+			return;
+		}
+		try
+		{
+			writeDefinitions( );
+			Node child = outerGroup.getFirstChild( );
+			while ( child != null )
+			{
+				Node next = child.getNextSibling( );
+				streamWriter.writeNode( child );
+				outerGroup.removeChild( child );
+				child = next;
+			}
+		}
+		catch ( IOException e )
+		{
+			// Reported when streaming is finished
+			streamException = e;
+		}
+	}
+
+	/**
+	 * Writes the definitions, styles and scripts added since they were last
+	 * written, each in a new element.
+	 * 
+	 * @throws IOException
+	 */
+	private void writeDefinitions( ) throws IOException
+	{
+		if ( definitions.hasChildNodes( ) )
+		{
+			streamWriter.writeNode( definitions );
+			while ( definitions.hasChildNodes( ) )
+			{
+				definitions.removeChild( definitions.getFirstChild( ) );
+			}
+		}
+		if ( styleBuffer.length( ) > 0 )
+		{
+			Element style = dom.createElement( "style" ); //$NON-NLS-1$
+			style.setAttribute( "type", "text/css" ); //$NON-NLS-1$ //$NON-NLS-2$
+			style.appendChild( dom.createCDATASection( styleBuffer.toString( ) ) );
+			streamWriter.writeNode( style );
+			styleBuffer = new StringBuffer( );
+		}
+		if ( scriptable && scriptBuffer.length( ) > 0 )
+		{
+			Element script = dom.createElement( "script" ); //$NON-NLS-1$
+			script.appendChild( dom.createCDATASection( scriptBuffer.toString( ) ) );
+			streamWriter.writeNode( script );
+			scriptBuffer = new StringBuffer( );
+		}
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -1176,6 +1327,12 @@ public class SVGGraphics2D extends ChartGraphics2D
 	 */
 	public void flush( )
 	{
+		if ( isStreaming( ) )
+		{
+			// The script library and the default styles are already written,
+			// the buffers are written with the next elements
+			return;
+		}
 		// Use a temporary buffer to ensure the original string immutable
 		StringBuffer buffer = new StringBuffer( EventHandlers.getJSMenuLib( ) );
 		codeScript.appendChild( dom.createCDATASection( buffer.append( scriptBuffer )
@@ -19,6 +19,7 @@ import java.awt.geom.GeneralPath;
 import java.awt.geom.Line2D;
 import java.awt.image.BufferedImage;
 import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.util.List;
@@ -130,6 +131,17 @@ public class SVGRendererImpl extends SwingRendererImpl
 	 * Property that determines if the generated SVG output should contain embedded javascript code.
 	 */
 	public boolean _enableScript = true;
+
+	/**
+	 * Property that determines if the SVG output is written while the chart
+	 * is rendered.
+	 */
+	protected boolean _streamOutput = false;
+
+	/**
+	 * File stream opened for streaming output to a file.
+	 */
+	private OutputStream streamFile = null;
 	
 	@Override
 	protected void init( )
@@ -205,6 +217,10 @@ public class SVGRendererImpl extends SwingRendererImpl
 		{
 			_enableScript = ( (Boolean) oValue ).booleanValue( );
 		}
+		else if ( sProperty.equals( ISVGConstants.STREAMING_OUTPUT ) )
+		{
+			_streamOutput = ( (Boolean) oValue ).booleanValue( );
+		}
 	}
 
 	protected void addScripts( )
@@ -227,6 +243,42 @@ public class SVGRendererImpl extends SwingRendererImpl
 		}
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.eclipse.birt.chart.device.IDeviceRenderer#before()
+	 */
+	@Override
+	public void before( ) throws ChartException
+	{
+		super.before( );
+
+		if ( _streamOutput && svggc != null )
+		{
+			// The document is kept in memory if the output is unknown yet, an
+			// error is reported in after()
+			try
+			{
+				if ( oOutputIdentifier instanceof OutputStream )
+				{
+					svggc.startStreaming( new SVGStreamWriter( (OutputStream) oOutputIdentifier ) );
+				}
+				else if ( oOutputIdentifier instanceof String )
+				{
+					streamFile = SecurityUtil.newFileOutputStream( (String) oOutputIdentifier );
+					svggc.startStreaming( new SVGStreamWriter( streamFile ) );
+				}
+			}
+			catch ( Exception ex )
+			{
+				closeStreamFile( );
+				throw new ChartException( ChartDeviceSVGPlugin.ID,
+						ChartException.RENDERING,
+						ex );
+			}
+		}
+	}
+
 	/**
 	 * 
 	 * @param os
@@ -244,7 +296,24 @@ public class SVGRendererImpl extends SwingRendererImpl
 		// make sure we add the hotspot layer to the bottom layer of the svg
 		dom.getDocumentElement( ).appendChild( ivRenderer.getHotspotLayer( ) );
 
-		if ( oOutputIdentifier instanceof OutputStream ) // OUTPUT STREAM
+		if ( svggc.isStreaming( ) )
+		{
+			try
+			{
+				svggc.finishStreaming( );
+			}
+			catch ( Exception ex )
+			{
+				throw new ChartException( ChartDeviceSVGPlugin.ID,
+						ChartException.RENDERING,
+						ex );
+			}
+			finally
+			{
+				closeStreamFile( );
+			}
+		}
+		else if ( oOutputIdentifier instanceof OutputStream ) // OUTPUT STREAM
 		{
 			try
 			{
@@ -289,6 +358,22 @@ public class SVGRendererImpl extends SwingRendererImpl
 
 	}
 
+	private void closeStreamFile( )
+	{
+		if ( streamFile != null )
+		{
+			try
+			{
+				streamFile.close( );
+			}
+			catch ( IOException e )
+			{
+				logger.log( e );
+			}
+			streamFile = null;
+		}
+	}
+
 	/**
 	 * Writes the XML document to an output stream
 	 * 
@@ -0,0 +1,261 @@
+/***********************************************************************
+ * Copyright (c) 2017 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * IBM Corporation - initial API and implementation
+ ***********************************************************************/
+
+package org.eclipse.birt.chart.device.svg;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+
+import org.eclipse.birt.chart.util.SecurityUtil;
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+/**
+ * Serializes SVG DOM nodes directly to an output stream. It replaces the JAXP
+ * identity transformer for the SVG device and allows the graphic context to
+ * write completed elements incrementally, so that a chart does not need to be
+ * held in memory as a whole before it is written out.
+ */
+public class SVGStreamWriter
+{
+
+	private static final String XML_DECLARATION = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>"; //$NON-NLS-1$
+
+	private final Writer writer;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param os
+	 *            the target stream, it is not closed by this writer.
+	 * @throws IOException
+	 */
+	public SVGStreamWriter( OutputStream os ) throws IOException
+	{
+		this.writer = new BufferedWriter( SecurityUtil.newOutputStreamWriter( os,
+				"UTF-8" ) ); //$NON-NLS-1$
+	}
+
+	/**
+	 * Writes the XML declaration.
+	 *
+	 * @throws IOException
+	 */
+	public void writeProlog( ) throws IOException
+	{
+		writer.write( XML_DECLARATION );
+	}
+
+	/**
+	 * Writes a complete document, including the XML declaration.
+	 *
+	 * @param doc
+	 * @throws IOException
+	 */
+	public void writeDocument( Document doc ) throws IOException
+	{
+		writeProlog( );
+		writeNode( doc.getDocumentElement( ) );
+		flush( );
+	}
+
+	/**
+	 * Writes the start tag of the element with all its current attributes.
+	 * Children are not written.
+	 *
+	 * @param elem
+	 * @throws IOException
+	 */
+	public void writeStartTag( Element elem ) throws IOException
+	{
+		writer.write( '<' );
+		writer.write( elem.getTagName( ) );
+		writeAttributes( elem );
+		writer.write( '>' );
+	}
+
+	/**
+	 * Writes the end tag of the element.
+	 *
+	 * @param elem
+	 * @throws IOException
+	 */
+	public void writeEndTag( Element elem ) throws IOException
+	{
+		writer.write( "</" ); //$NON-NLS-1$
+		writer.write( elem.getTagName( ) );
+		writer.write( '>' );
+	}
+
+	/**
+	 * Writes the node and all its descendants.
+	 *
+	 * @param node
+	 * @throws IOException
+	 */
+	public void writeNode( Node node ) throws IOException
+	{
+		switch ( node.getNodeType( ) )
+		{
+			case Node.ELEMENT_NODE :
+				Element elem = (Element) node;
+				if ( !elem.hasChildNodes( ) )
+				{
+					writer.write( '<' );
+					writer.write( elem.getTagName( ) );
+					writeAttributes( elem );
+					writer.write( "/>" ); //$NON-NLS-1$
+				}
+				else
+				{
+					writeStartTag( elem );
+					writeChildren( elem );
+					writeEndTag( elem );
+				}
+				break;
+			case Node.TEXT_NODE :
+				writeEscaped( node.getNodeValue( ), false );
+				break;
+			case Node.CDATA_SECTION_NODE :
+				writeCData( node.getNodeValue( ) );
+				break;
+			case Node.COMMENT_NODE :
+				writer.write( "<!--" ); //$NON-NLS-1$
+				writer.write( node.getNodeValue( ) );
+				writer.write( "-->" ); //$NON-NLS-1$
+				break;
+			case Node.DOCUMENT_FRAGMENT_NODE :
+				writeChildren( node );
+				break;
+			default :
+				break;
+		}
+	}
+
+	/**
+	 * Writes all children of the node.
+	 *
+	 * @param node
+	 * @throws IOException
+	 */
+	public void writeChildren( Node node ) throws IOException
+	{
+		for ( Node child = node.getFirstChild( ); child != null; child = child.getNextSibling( ) )
+		{
+			writeNode( child );
+		}
+	}
+
+	/**
+	 * Flushes the buffered content to the underlying stream.
+	 *
+	 * @throws IOException
+	 */
+	public void flush( ) throws IOException
+	{
+		writer.flush( );
+	}
+
+	private void writeAttributes( Element elem ) throws IOException
+	{
+		NamedNodeMap attrs = elem.getAttributes( );
+		for ( int i = 0; i < attrs.getLength( ); i++ )
+		{
+			Attr attr = (Attr) attrs.item( i );
+			writer.write( ' ' );
+			writer.write( attr.getName( ) );
+			writer.write( "=\"" ); //$NON-NLS-1$
+			writeEscaped( attr.getValue( ), true );
+			writer.write( '"' );
+		}
+	}
+
+	private void writeCData( String text ) throws IOException
+	{
+		// Split the section if the content contains the end marker
+		int start = 0;
+		int end = text.indexOf( "]]>" ); //$NON-NLS-1$
+		while ( end >= 0 )
+		{
+			writer.write( "<![CDATA[" ); //$NON-NLS-1$
+			writer.write( text, start, end + 2 - start );
+			writer.write( "]]>" ); //$NON-NLS-1$
+			start = end + 2;
+			end = text.indexOf( "]]>", start ); //$NON-NLS-1$
+		}
+		writer.write( "<![CDATA[" ); //$NON-NLS-1$
+		writer.write( text, start, text.length( ) - start );
+		writer.write( "]]>" ); //$NON-NLS-1$
+	}
+
+	private void writeEscaped( String text, boolean attribute )
+			throws IOException
+	{
+		if ( text == null )
+		{
+			return;
+		}
+		int len = text.length( );
+		int last = 0;
+		for ( int i = 0; i < len; i++ )
+		{
+			String replacement = null;
+			char c = text.charAt( i );
+			switch ( c )
+			{
+				case '&' :
+					replacement = "&amp;"; //$NON-NLS-1$
+					break;
+				case '<' :
+					replacement = "&lt;"; //$NON-NLS-1$
+					break;
+				case '>' :
+					replacement = "&gt;"; //$NON-NLS-1$
+					break;
+				case '"' :
+					if ( attribute )
+					{
+						replacement = "&quot;"; //$NON-NLS-1$
+					}
+					break;
+				case '\n' :
+					if ( attribute )
+					{
+						replacement = "&#10;"; //$NON-NLS-1$
+					}
+					break;
+				case '\r' :
+					replacement = "&#13;"; //$NON-NLS-1$
+					break;
+				case '\t' :
+					if ( attribute )
+					{
+						replacement = "&#9;"; //$NON-NLS-1$
+					}
+					break;
+				default :
+					break;
+			}
+			if ( replacement != null )
+			{
+				writer.write( text, last, i - last );
+				writer.write( replacement );
+				last = i + 1;
+			}
+		}
+		writer.write( text, last, len - last );
+	}
+}
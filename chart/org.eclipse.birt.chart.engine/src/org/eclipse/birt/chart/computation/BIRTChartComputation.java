@@ -11,9 +11,13 @@
 
 package org.eclipse.birt.chart.computation;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import org.eclipse.birt.chart.device.IDisplayServer;
 import org.eclipse.birt.chart.device.ITextMetrics;
 import org.eclipse.birt.chart.exception.ChartException;
+import org.eclipse.birt.chart.model.attribute.FontDefinition;
 import org.eclipse.birt.chart.model.component.Label;
 import org.eclipse.birt.chart.plugin.ChartEnginePlugin;
 
@@ -24,10 +28,52 @@ import org.eclipse.birt.chart.plugin.ChartEnginePlugin;
 public class BIRTChartComputation implements IChartComputation
 {
 
+	/**
+	 * Font heights measured during this computation. Axis scaling checks the
+	 * labels of every candidate scale with the same fonts, so each font is
+	 * measured once per chart.
+	 */
+	private final Map<String, Double> fontHeights = new HashMap<String, Double>( );
+
 	public double computeFontHeight( IDisplayServer xs, Label la )
 			throws ChartException
 	{
-		return Methods.computeFontHeight( xs, la );
+		String key = createFontKey( xs, la );
+		if ( key == null )
+		{
+			return Methods.computeFontHeight( xs, la );
+		}
+		Double height = fontHeights.get( key );
+		if ( height == null )
+		{
+			height = Double.valueOf( Methods.computeFontHeight( xs, la ) );
+			fontHeights.put( key, height );
+		}
+		return height.doubleValue( );
+	}
+
+	private static String createFontKey( IDisplayServer xs, Label la )
+	{
+		if ( la.getCaption( ) == null || la.getCaption( ).getFont( ) == null )
+		{
+			return null;
+		}
+		FontDefinition fd = la.getCaption( ).getFont( );
+		StringBuilder sb = new StringBuilder( );
+		sb.append( System.identityHashCode( xs ) )
+				.append( '|' )
+				.append( xs.getDpiResolution( ) )
+				.append( '|' )
+				.append( fd.getName( ) )
+				.append( '|' )
+				.append( fd.getSize( ) )
+				.append( '|' )
+				.append( fd.isBold( ) )
+				.append( '|' )
+				.append( fd.isItalic( ) )
+				.append( '|' )
+				.append( fd.getRotation( ) );
+		return sb.toString( );
 	}
 
 	public ITextMetrics getTextMetrics( IDisplayServer xs, Label la,
@@ -94,7 +140,7 @@ public class BIRTChartComputation implements IChartComputation
 
 	public void dispose( )
 	{
-
+		fontHeights.clear( );
 	}
 
 	public void applyWrapping( IDisplayServer xs, Label la, double dWrapping )
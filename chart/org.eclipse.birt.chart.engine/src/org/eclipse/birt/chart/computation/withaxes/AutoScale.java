@@ -851,6 +851,79 @@ public final class AutoScale extends Methods implements Cloneable
 		return true;
 	}
 
+	/**
+	 * Advances the step of a date time scale in years to the last step which
+	 * certainly overlaps, so that zooming out doesn't compute and check every
+	 * intermediate step on a long range of years. The tick spacing must be at
+	 * least half of the smallest label extent along the axis whatever
+	 * staggering is used, so smaller steps are skipped. Rotated labels are not
+	 * predicted since their extent doesn't bound the spacing.
+	 * 
+	 * @param xs
+	 * @param la
+	 * @param iLabelLocation
+	 * @throws ChartException
+	 */
+	public final void skipOverlappingSteps( IDisplayServer xs, Label la,
+			int iLabelLocation ) throws ChartException
+	{
+		if ( ( info.type & DATE_TIME ) != DATE_TIME
+				|| info.bStepFixed
+				|| asInteger( context.getUnit( ) ) != Calendar.YEAR
+				|| la.getCaption( ).getFont( ).getRotation( ) != 0
+				|| atcTickCoordinates == null
+				|| atcTickCoordinates.size( ) < 3 )
+		{
+			return;
+		}
+		final boolean bHorizontal = iLabelLocation == ABOVE
+				|| iLabelLocation == BELOW;
+		if ( !bHorizontal && iLabelLocation != LEFT && iLabelLocation != RIGHT )
+		{
+			return;
+		}
+		final double dSpacing = Math.abs( atcTickCoordinates.getCoordinate( 1 )
+				- atcTickCoordinates.getCoordinate( 0 ) )
+				* info.dZoomFactor;
+		if ( dSpacing <= 0 )
+		{
+			return;
+		}
+
+		final int iStep = asInteger( context.getStep( ) );
+		final CDateTime cdtAxisValue = asDateTime( context.getMin( ) );
+		final IDateFormatWrapper sdf = DateFormatWrapperFactory.getPreferredDateFormat( Calendar.YEAR,
+				info.rtc.getULocale( ) );
+		final String sText = la.getCaption( ).getValue( );
+		double dMinExtent = Double.MAX_VALUE;
+		try
+		{
+			for ( int i = 0; i < atcTickCoordinates.size( ) - 1; i++ )
+			{
+				la.getCaption( )
+						.setValue( ValueFormatter.format( cdtAxisValue.forward( Calendar.YEAR,
+								iStep * i ),
+								info.fs,
+								info.rtc.getULocale( ),
+								sdf ) );
+				BoundingBox bb = info.cComp.computeLabelSize( xs, la, 0, null );
+				dMinExtent = Math.min( dMinExtent, bHorizontal ? bb.getWidth( )
+						: bb.getHeight( ) );
+			}
+		}
+		finally
+		{
+			la.getCaption( ).setValue( sText );
+		}
+
+		// Keep one step of margin for the irregular length of years
+		int iOverlapped = (int) Math.floor( iStep * dMinExtent / ( 2 * dSpacing ) ) - 1;
+		if ( iOverlapped > iStep )
+		{
+			setStep( Integer.valueOf( iOverlapped ) );
+		}
+	}
+
 	/**
 	 * Returns an auto computed decimal format pattern for representing axis
 	 * labels on a numeric axis
@@ -2667,6 +2740,7 @@ public final class AutoScale extends Methods implements Cloneable
 					{
 						break;
 					}
+					sc.skipOverlappingSteps( xs, la, iLabelLocation );
 					bZoomSuccess = sc.zoomOut( );
 				}
 				if ( !bZoomSuccess )
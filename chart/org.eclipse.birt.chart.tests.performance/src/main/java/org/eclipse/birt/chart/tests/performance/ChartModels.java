@@ -0,0 +1,226 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.chart.tests.performance;
+
+import org.eclipse.birt.chart.integrate.SimpleDataRowExpressionEvaluator;
+import org.eclipse.birt.chart.model.Chart;
+import org.eclipse.birt.chart.model.ChartWithAxes;
+import org.eclipse.birt.chart.model.ChartWithoutAxes;
+import org.eclipse.birt.chart.model.attribute.Angle3D;
+import org.eclipse.birt.chart.model.attribute.AxisType;
+import org.eclipse.birt.chart.model.attribute.ChartDimension;
+import org.eclipse.birt.chart.model.attribute.IntersectionType;
+import org.eclipse.birt.chart.model.attribute.Orientation;
+import org.eclipse.birt.chart.model.attribute.Position;
+import org.eclipse.birt.chart.model.attribute.TickStyle;
+import org.eclipse.birt.chart.model.attribute.impl.Angle3DImpl;
+import org.eclipse.birt.chart.model.attribute.impl.Rotation3DImpl;
+import org.eclipse.birt.chart.model.component.Axis;
+import org.eclipse.birt.chart.model.component.Series;
+import org.eclipse.birt.chart.model.component.impl.AxisImpl;
+import org.eclipse.birt.chart.model.component.impl.SeriesImpl;
+import org.eclipse.birt.chart.model.data.SeriesDefinition;
+import org.eclipse.birt.chart.model.data.impl.QueryImpl;
+import org.eclipse.birt.chart.model.data.impl.SeriesDefinitionImpl;
+import org.eclipse.birt.chart.model.impl.ChartWithAxesImpl;
+import org.eclipse.birt.chart.model.impl.ChartWithoutAxesImpl;
+import org.eclipse.birt.chart.model.type.impl.BarSeriesImpl;
+import org.eclipse.birt.chart.model.type.impl.LineSeriesImpl;
+import org.eclipse.birt.chart.model.type.impl.PieSeriesImpl;
+import org.eclipse.birt.chart.model.type.impl.ScatterSeriesImpl;
+
+/**
+ * Creates the design time chart models and the in-memory data used by the
+ * benchmarks. Series are bound by query so that data binding is part of the
+ * measured path.
+ */
+public final class ChartModels
+{
+
+	public static final String BAR = "bar"; //$NON-NLS-1$
+	public static final String LINE = "line"; //$NON-NLS-1$
+	public static final String PIE = "pie"; //$NON-NLS-1$
+	public static final String SCATTER = "scatter"; //$NON-NLS-1$
+	public static final String STACKED = "stacked"; //$NON-NLS-1$
+	public static final String BAR_3D = "3d"; //$NON-NLS-1$
+
+	static final String CATEGORY = "Category"; //$NON-NLS-1$
+	static final String X_VALUE = "X"; //$NON-NLS-1$
+	static final String VALUE_1 = "Value1"; //$NON-NLS-1$
+	static final String VALUE_2 = "Value2"; //$NON-NLS-1$
+
+	private ChartModels( )
+	{
+	}
+
+	/**
+	 * Creates the model of a chart type.
+	 *
+	 * @param type
+	 *            one of the chart type constants
+	 * @return chart model
+	 */
+	public static Chart create( String type )
+	{
+		if ( BAR.equals( type ) )
+		{
+			return createChartWithAxes( BarSeriesImpl.create( ),
+					null,
+					false,
+					false );
+		}
+		if ( LINE.equals( type ) )
+		{
+			return createChartWithAxes( LineSeriesImpl.create( ),
+					null,
+					false,
+					false );
+		}
+		if ( SCATTER.equals( type ) )
+		{
+			return createChartWithAxes( ScatterSeriesImpl.create( ),
+					null,
+					true,
+					false );
+		}
+		if ( STACKED.equals( type ) )
+		{
+			Series bs1 = BarSeriesImpl.create( );
+			Series bs2 = BarSeriesImpl.create( );
+			bs1.setStacked( true );
+			bs2.setStacked( true );
+			return createChartWithAxes( bs1, bs2, false, false );
+		}
+		if ( BAR_3D.equals( type ) )
+		{
+			return createChartWithAxes( BarSeriesImpl.create( ),
+					BarSeriesImpl.create( ),
+					false,
+					true );
+		}
+		if ( PIE.equals( type ) )
+		{
+			return createPieChart( );
+		}
+		throw new IllegalArgumentException( type );
+	}
+
+	/**
+	 * Creates the data rows bound to the charts.
+	 *
+	 * @param rows
+	 *            number of rows
+	 * @return row evaluator on in-memory columns
+	 */
+	public static SimpleDataRowExpressionEvaluator createData( int rows )
+	{
+		Object[] categories = new Object[rows];
+		Object[] xValues = new Object[rows];
+		Object[] values1 = new Object[rows];
+		Object[] values2 = new Object[rows];
+		for ( int i = 0; i < rows; i++ )
+		{
+			categories[i] = "Item " + i; //$NON-NLS-1$
+			xValues[i] = Double.valueOf( i * 1.5 );
+			// Deterministic values with some variation
+			values1[i] = Double.valueOf( 100 + 50 * Math.sin( i / 7d ) );
+			values2[i] = Double.valueOf( 80 + 40 * Math.cos( i / 11d ) );
+		}
+		return new SimpleDataRowExpressionEvaluator( new String[]{
+				CATEGORY, X_VALUE, VALUE_1, VALUE_2
+		}, new Object[][]{
+				categories, xValues, values1, values2
+		} );
+	}
+
+	private static Chart createChartWithAxes( Series series1, Series series2,
+			boolean numericBase, boolean threeD )
+	{
+		ChartWithAxes cwa = ChartWithAxesImpl.create( );
+		cwa.getTitle( ).getLabel( ).getCaption( ).setValue( "Benchmark" ); //$NON-NLS-1$
+		if ( threeD )
+		{
+			cwa.setDimension( ChartDimension.THREE_DIMENSIONAL_LITERAL );
+			cwa.setRotation( Rotation3DImpl.create( new Angle3D[]{
+				Angle3DImpl.create( -10, 25, 0 )
+			} ) );
+		}
+
+		// X-Axis
+		Axis xAxisPrimary = cwa.getPrimaryBaseAxes( )[0];
+		xAxisPrimary.setType( numericBase ? AxisType.LINEAR_LITERAL
+				: AxisType.TEXT_LITERAL );
+		xAxisPrimary.getMajorGrid( ).setTickStyle( TickStyle.BELOW_LITERAL );
+		xAxisPrimary.getOrigin( ).setType( IntersectionType.MIN_LITERAL );
+
+		// Y-Axis
+		Axis yAxisPrimary = cwa.getPrimaryOrthogonalAxis( xAxisPrimary );
+		yAxisPrimary.getMajorGrid( ).setTickStyle( TickStyle.LEFT_LITERAL );
+		yAxisPrimary.setType( AxisType.LINEAR_LITERAL );
+
+		// X-Series
+		Series seCategory = SeriesImpl.create( );
+		seCategory.getDataDefinition( ).add( QueryImpl.create( numericBase
+				? X_VALUE : CATEGORY ) );
+		SeriesDefinition sdX = SeriesDefinitionImpl.create( );
+		xAxisPrimary.getSeriesDefinitions( ).add( sdX );
+		sdX.getSeries( ).add( seCategory );
+
+		// Y-Series
+		SeriesDefinition sdY = SeriesDefinitionImpl.create( );
+		yAxisPrimary.getSeriesDefinitions( ).add( sdY );
+		series1.getDataDefinition( ).add( QueryImpl.create( VALUE_1 ) );
+		sdY.getSeries( ).add( series1 );
+		if ( series2 != null )
+		{
+			series2.getDataDefinition( ).add( QueryImpl.create( VALUE_2 ) );
+			sdY.getSeries( ).add( series2 );
+		}
+
+		if ( threeD )
+		{
+			// Z-Axis
+			Axis zAxis = AxisImpl.create( Axis.ANCILLARY_BASE );
+			zAxis.setType( AxisType.TEXT_LITERAL );
+			zAxis.setLabelPosition( Position.BELOW_LITERAL );
+			zAxis.setTitlePosition( Position.BELOW_LITERAL );
+			zAxis.getMajorGrid( ).setTickStyle( TickStyle.BELOW_LITERAL );
+			zAxis.setOrientation( Orientation.HORIZONTAL_LITERAL );
+			xAxisPrimary.getAncillaryAxes( ).add( zAxis );
+
+			SeriesDefinition sdZ = SeriesDefinitionImpl.create( );
+			zAxis.getSeriesDefinitions( ).add( sdZ );
+		}
+		return cwa;
+	}
+
+	private static Chart createPieChart( )
+	{
+		ChartWithoutAxes cwoa = ChartWithoutAxesImpl.create( );
+		cwoa.getTitle( ).getLabel( ).getCaption( ).setValue( "Benchmark" ); //$NON-NLS-1$
+
+		// Base Series
+		Series seCategory = SeriesImpl.create( );
+		seCategory.getDataDefinition( ).add( QueryImpl.create( CATEGORY ) );
+		SeriesDefinition sd = SeriesDefinitionImpl.create( );
+		cwoa.getSeriesDefinitions( ).add( sd );
+		sd.getSeries( ).add( seCategory );
+
+		// Orthogonal Series
+		Series sePie = PieSeriesImpl.create( );
+		sePie.getDataDefinition( ).add( QueryImpl.create( VALUE_1 ) );
+		SeriesDefinition sdValue = SeriesDefinitionImpl.create( );
+		sd.getSeriesDefinitions( ).add( sdValue );
+		sdValue.getSeries( ).add( sePie );
+		return cwoa;
+	}
+}
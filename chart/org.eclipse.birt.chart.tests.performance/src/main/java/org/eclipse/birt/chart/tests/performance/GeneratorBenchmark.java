@@ -0,0 +1,219 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.chart.tests.performance;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.birt.chart.device.IDeviceRenderer;
+import org.eclipse.birt.chart.exception.ChartException;
+import org.eclipse.birt.chart.factory.GeneratedChartState;
+import org.eclipse.birt.chart.factory.Generator;
+import org.eclipse.birt.chart.factory.RunTimeContext;
+import org.eclipse.birt.chart.integrate.SimpleDataRowExpressionEvaluator;
+import org.eclipse.birt.chart.model.Chart;
+import org.eclipse.birt.chart.model.attribute.Bounds;
+import org.eclipse.birt.chart.model.attribute.impl.BoundsImpl;
+import org.eclipse.birt.chart.util.PluginSettings;
+import org.eclipse.birt.core.framework.PlatformConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.ibm.icu.util.ULocale;
+
+/**
+ * Benchmarks the three phases of chart generation: binding the data rows to
+ * the model, building the chart state and rendering it to a device. Charts
+ * are rendered headless into memory.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class GeneratorBenchmark
+{
+
+	/**
+	 * A design time chart and its data.
+	 */
+	@State(Scope.Thread)
+	public static class ChartData
+	{
+
+		@Param({
+				ChartModels.BAR,
+				ChartModels.LINE,
+				ChartModels.PIE,
+				ChartModels.SCATTER,
+				ChartModels.STACKED,
+				ChartModels.BAR_3D
+		})
+		public String chartType;
+
+		@Param({
+				"10", "1000", "10000"
+		})
+		public int rows;
+
+		Chart model;
+
+		SimpleDataRowExpressionEvaluator data;
+
+		@Setup(Level.Trial)
+		public void setUp( )
+		{
+			initEngine( );
+			model = ChartModels.create( chartType );
+			data = ChartModels.createData( rows );
+		}
+	}
+
+	/**
+	 * A fresh copy of the design time chart, copied before each binding since
+	 * binding changes the model.
+	 */
+	@State(Scope.Thread)
+	public static class UnboundChart
+	{
+
+		Chart model;
+
+		RunTimeContext context;
+
+		@Setup(Level.Invocation)
+		public void setUp( ChartData chartData )
+		{
+			model = chartData.model.copyInstance( );
+			context = createContext( );
+		}
+	}
+
+	/**
+	 * A chart bound to its data, and the device it is built for.
+	 */
+	@State(Scope.Thread)
+	public static class BoundChart
+	{
+
+		@Param({
+				"PNG", "SVG", "PDF"
+		})
+		public String device;
+
+		Chart model;
+
+		IDeviceRenderer renderer;
+
+		Bounds bounds;
+
+		final ByteArrayOutputStream output = new ByteArrayOutputStream( 64 * 1024 );
+
+		@Setup(Level.Trial)
+		public void setUp( ChartData chartData ) throws ChartException
+		{
+			renderer = PluginSettings.instance( )
+					.getDevice( "dv." + device ); //$NON-NLS-1$
+			model = chartData.model.copyInstance( );
+			Generator.instance( ).bindData( chartData.data,
+					model,
+					createContext( ) );
+			bounds = BoundsImpl.create( 0, 0, 600, 400 );
+		}
+
+		GeneratedChartState build( ) throws ChartException
+		{
+			return Generator.instance( ).build( renderer.getDisplayServer( ),
+					model,
+					bounds,
+					null,
+					createContext( ),
+					null );
+		}
+	}
+
+	/**
+	 * A built chart state, rebuilt before each render since rendering
+	 * consumes it.
+	 */
+	@State(Scope.Thread)
+	public static class BuiltChart
+	{
+
+		GeneratedChartState state;
+
+		@Setup(Level.Invocation)
+		public void setUp( BoundChart boundChart ) throws ChartException
+		{
+			state = boundChart.build( );
+		}
+	}
+
+	private static volatile boolean initialized;
+
+	static synchronized void initEngine( )
+	{
+		if ( !initialized )
+		{
+			// Run the engine without OSGi
+			PlatformConfig config = new PlatformConfig( );
+			config.setProperty( "STANDALONE", "true" ); //$NON-NLS-1$ //$NON-NLS-2$
+			PluginSettings.instance( config );
+			initialized = true;
+		}
+	}
+
+	static RunTimeContext createContext( )
+	{
+		RunTimeContext rtc = new RunTimeContext( );
+		rtc.setULocale( ULocale.ENGLISH );
+		return rtc;
+	}
+
+	@Benchmark
+	public Chart bindData( ChartData chartData, UnboundChart unboundChart )
+			throws ChartException
+	{
+		Generator.instance( ).bindData( chartData.data,
+				unboundChart.model,
+				unboundChart.context );
+		return unboundChart.model;
+	}
+
+	@Benchmark
+	public GeneratedChartState build( BoundChart boundChart )
+			throws ChartException
+	{
+		return boundChart.build( );
+	}
+
+	@Benchmark
+	public int render( BoundChart boundChart, BuiltChart builtChart )
+			throws ChartException
+	{
+		boundChart.output.reset( );
+		boundChart.renderer.setProperty( IDeviceRenderer.FILE_IDENTIFIER,
+				boundChart.output );
+		Generator.instance( ).render( boundChart.renderer, builtChart.state );
+		return boundChart.output.size( );
+	}
+}
@@ -11,8 +11,12 @@
 
 package org.eclipse.birt.chart.tests.device;
 
+import org.eclipse.birt.chart.tests.device.image.ImageEncodingTest;
 import org.eclipse.birt.chart.tests.device.render.ImageRenderTest;
 import org.eclipse.birt.chart.tests.device.svg.SVGGradientPaintTest;
+import org.eclipse.birt.chart.tests.device.svg.SVGStreamWriterTest;
+import org.eclipse.birt.chart.tests.device.svg.SVGStreamingOutputTest;
+import org.eclipse.birt.chart.tests.device.util.TextMetricsCacheTest;
 
 import junit.framework.Test;
 import junit.framework.TestSuite;
@@ -24,7 +28,11 @@ public class DeviceTest {
 				"and org.eclipse.birt.chart.device.extension"); //$NON-NLS-1$
 		//$JUnit-BEGIN$
 		suite.addTest(ImageRenderTest.suite());
+		suite.addTestSuite(ImageEncodingTest.class);
 		suite.addTestSuite(SVGGradientPaintTest.class);
+		suite.addTestSuite(SVGStreamWriterTest.class);
+		suite.addTestSuite(SVGStreamingOutputTest.class);
+		suite.addTestSuite(TextMetricsCacheTest.class);
 		
 		//$JUnit-END$
 		return suite;
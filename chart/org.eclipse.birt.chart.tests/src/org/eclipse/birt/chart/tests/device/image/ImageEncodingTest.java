@@ -0,0 +1,339 @@
+/***********************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Actuate Corporation - initial API and implementation
+ ***********************************************************************/
+package org.eclipse.birt.chart.tests.device.image;
+
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+
+import junit.framework.TestCase;
+
+import org.eclipse.birt.chart.device.IDeviceRenderer;
+import org.eclipse.birt.chart.device.image.ImageBufferPool;
+import org.eclipse.birt.chart.device.image.ImageEncodingStatistics;
+import org.eclipse.birt.chart.device.image.JavaxImageIOWriter;
+import org.eclipse.birt.chart.device.image.JpegRendererImpl;
+import org.eclipse.birt.chart.device.image.PngRendererImpl;
+import org.eclipse.birt.chart.model.attribute.impl.BoundsImpl;
+
+/**
+ * Tests the buffer pool, the indexed color conversion, the compression
+ * quality and the statistics of the chart image writers.
+ */
+public class ImageEncodingTest extends TestCase {
+
+	/** the logger of the image writers */
+	private static final String WRITER_LOGGER = "org.eclipse.birt.chart.device.extension/image"; //$NON-NLS-1$
+
+	protected void setUp( ) throws Exception
+	{
+		ImageBufferPool.clearPool( );
+	}
+
+	protected void tearDown( ) throws Exception
+	{
+		ImageBufferPool.clearPool( );
+	}
+
+	public void testBufferReusedCleared( )
+	{
+		BufferedImage img = ImageBufferPool.acquire( 20,
+				10,
+				BufferedImage.TYPE_4BYTE_ABGR );
+		img.setRGB( 5, 5, Color.RED.getRGB( ) );
+		ImageBufferPool.release( img );
+
+		// Another size or type is a new buffer
+		BufferedImage other = ImageBufferPool.acquire( 10,
+				20,
+				BufferedImage.TYPE_4BYTE_ABGR );
+		assertNotSame( img, other );
+		other = ImageBufferPool.acquire( 20, 10, BufferedImage.TYPE_INT_RGB );
+		assertNotSame( img, other );
+
+		BufferedImage reused = ImageBufferPool.acquire( 20,
+				10,
+				BufferedImage.TYPE_4BYTE_ABGR );
+		assertSame( img, reused );
+		assertEquals( 0, reused.getRGB( 5, 5 ) );
+
+		// A buffer is handed out once
+		assertNotSame( reused,
+				ImageBufferPool.acquire( 20, 10, BufferedImage.TYPE_4BYTE_ABGR ) );
+	}
+
+	public void testPoolBounded( )
+	{
+		BufferedImage[] images = new BufferedImage[5];
+		for ( int i = 0; i < images.length; i++ )
+		{
+			images[i] = new BufferedImage( 10, 10, BufferedImage.TYPE_INT_RGB );
+		}
+		for ( int i = 0; i < images.length; i++ )
+		{
+			ImageBufferPool.release( images[i] );
+		}
+
+		// The first released buffer is dropped, the others are kept
+		List<BufferedImage> acquired = new ArrayList<BufferedImage>( );
+		for ( int i = 0; i < images.length; i++ )
+		{
+			acquired.add( ImageBufferPool.acquire( 10,
+					10,
+					BufferedImage.TYPE_INT_RGB ) );
+		}
+		assertFalse( acquired.contains( images[0] ) );
+		for ( int i = 1; i < images.length; i++ )
+		{
+			assertTrue( acquired.contains( images[i] ) );
+		}
+
+		// Larger than the pool
+		BufferedImage large = new BufferedImage( 2048,
+				1024,
+				BufferedImage.TYPE_BYTE_GRAY );
+		ImageBufferPool.release( large );
+		assertNotSame( large,
+				ImageBufferPool.acquire( 2048, 1024, BufferedImage.TYPE_BYTE_GRAY ) );
+	}
+
+	public void testPoolingDisabledByDefault( ) throws Exception
+	{
+		PngRendererImpl renderer = new PngRendererImpl( );
+		BufferedImage img = ImageBufferPool.acquire( 100,
+				100,
+				renderer.getImageType( ) );
+		ImageBufferPool.release( img );
+		render( renderer );
+		// The pooled buffer is not used
+		assertEquals( 0, img.getRGB( 50, 50 ) );
+
+		renderer = new PngRendererImpl( );
+		renderer.setProperty( JavaxImageIOWriter.BUFFER_POOLING, Boolean.TRUE );
+		render( renderer );
+		assertEquals( Color.RED.getRGB( ), img.getRGB( 50, 50 ) );
+		// And released again after the chart is written
+		assertSame( img,
+				ImageBufferPool.acquire( 100, 100, renderer.getImageType( ) ) );
+	}
+
+	public void testIndexedImage( )
+	{
+		BufferedImage img = new BufferedImage( 40,
+				30,
+				BufferedImage.TYPE_4BYTE_ABGR );
+		Graphics2D g2d = img.createGraphics( );
+		g2d.setColor( Color.RED );
+		g2d.fillRect( 0, 0, 20, 30 );
+		g2d.setColor( new Color( 0, 0, 255, 128 ) );
+		g2d.fillRect( 10, 10, 20, 10 );
+		g2d.dispose( );
+
+		BufferedImage indexed = PngRendererImpl.toIndexedImage( img );
+		assertNotNull( indexed );
+		assertTrue( indexed.getColorModel( ) instanceof IndexColorModel );
+		assertEquals( 4,
+				( (IndexColorModel) indexed.getColorModel( ) ).getMapSize( ) );
+		for ( int y = 0; y < img.getHeight( ); y++ )
+		{
+			for ( int x = 0; x < img.getWidth( ); x++ )
+			{
+				assertEquals( img.getRGB( x, y ), indexed.getRGB( x, y ) );
+			}
+		}
+	}
+
+	public void testIndexedImageFallback( )
+	{
+		BufferedImage img = new BufferedImage( 20,
+				20,
+				BufferedImage.TYPE_INT_ARGB );
+		for ( int i = 0; i < 257; i++ )
+		{
+			img.setRGB( i % 20, i / 20, 0xFF000000 | i );
+		}
+		assertNull( PngRendererImpl.toIndexedImage( img ) );
+
+		// No pixel, no palette
+		BufferedImage empty = new BufferedImage( 1,
+				1,
+				BufferedImage.TYPE_INT_ARGB ) {
+
+			public int getWidth( )
+			{
+				return 0;
+			}
+		};
+		assertNull( PngRendererImpl.toIndexedImage( empty ) );
+	}
+
+	public void testIndexedColorWritten( ) throws Exception
+	{
+		PngRendererImpl renderer = new PngRendererImpl( );
+		renderer.setProperty( PngRendererImpl.INDEXED_COLOR, Boolean.TRUE );
+		BufferedImage img = ImageIO.read( new ByteArrayInputStream( render( renderer ) ) );
+		assertTrue( img.getColorModel( ) instanceof IndexColorModel );
+
+		// More colors than a palette
+		renderer = new PngRendererImpl( );
+		renderer.setProperty( PngRendererImpl.INDEXED_COLOR, Boolean.TRUE );
+		img = ImageIO.read( new ByteArrayInputStream( render( renderer,
+				true ) ) );
+		assertFalse( img.getColorModel( ) instanceof IndexColorModel );
+	}
+
+	public void testCompressionQuality( ) throws Exception
+	{
+		JpegRendererImpl renderer = new JpegRendererImpl( );
+		renderer.setProperty( JavaxImageIOWriter.COMPRESSION_QUALITY,
+				Float.valueOf( 0.1f ) );
+		int low = render( renderer, true ).length;
+		renderer = new JpegRendererImpl( );
+		renderer.setProperty( JavaxImageIOWriter.COMPRESSION_QUALITY,
+				Float.valueOf( 1f ) );
+		int high = render( renderer, true ).length;
+		assertTrue( low < high );
+	}
+
+	public void testUnsupportedQualityLogged( )
+	{
+		ImageWriteParam iwp = ImageIO.getImageWritersByFormatName( "png" ) //$NON-NLS-1$
+				.next( )
+				.getDefaultWriteParam( );
+		final List<LogRecord> warnings = new ArrayList<LogRecord>( );
+		Handler handler = new Handler( ) {
+
+			public void publish( LogRecord record )
+			{
+				if ( record.getLevel( ) == Level.WARNING )
+				{
+					warnings.add( record );
+				}
+			}
+
+			public void flush( )
+			{
+			}
+
+			public void close( )
+			{
+			}
+		};
+		Logger logger = Logger.getLogger( WRITER_LOGGER );
+		logger.addHandler( handler );
+		try
+		{
+			WriterParameters renderer = new WriterParameters( );
+			renderer.setProperty( JavaxImageIOWriter.COMPRESSION_QUALITY,
+					Float.valueOf( 0.5f ) );
+			renderer.updateWriterParameters( iwp );
+		}
+		finally
+		{
+			logger.removeHandler( handler );
+		}
+
+		if ( iwp.canWriteCompressed( ) )
+		{
+			assertEquals( ImageWriteParam.MODE_EXPLICIT,
+					iwp.getCompressionMode( ) );
+			assertEquals( 0.5f, iwp.getCompressionQuality( ), 0f );
+			assertTrue( warnings.isEmpty( ) );
+		}
+		else
+		{
+			// The PNG writer of JDK 8
+			assertEquals( 1, warnings.size( ) );
+		}
+	}
+
+	public void testStatistics( ) throws Exception
+	{
+		ImageEncodingStatistics.reset( );
+		assertEquals( 0, ImageEncodingStatistics.getImageCount( ) );
+		assertEquals( 0, ImageEncodingStatistics.getTotalEncodedBytes( ) );
+		assertEquals( 0d, ImageEncodingStatistics.getAverageEncodeTime( ), 0d );
+
+		int size = render( new PngRendererImpl( ) ).length;
+		size += render( new JpegRendererImpl( ) ).length;
+		assertEquals( 2, ImageEncodingStatistics.getImageCount( ) );
+		assertEquals( size, ImageEncodingStatistics.getTotalEncodedBytes( ) );
+		assertTrue( ImageEncodingStatistics.getTotalEncodeTime( ) >= 0 );
+
+		ImageEncodingStatistics.reset( );
+		assertEquals( 0, ImageEncodingStatistics.getImageCount( ) );
+		assertEquals( 0, ImageEncodingStatistics.getTotalEncodeTime( ) );
+	}
+
+	private static byte[] render( JavaxImageIOWriter renderer )
+			throws Exception
+	{
+		return render( renderer, false );
+	}
+
+	private static byte[] render( JavaxImageIOWriter renderer,
+			boolean gradient ) throws Exception
+	{
+		ByteArrayOutputStream bos = new ByteArrayOutputStream( );
+		renderer.setProperty( IDeviceRenderer.FILE_IDENTIFIER, bos );
+		// Initialize dpi to avoid error using the graphics context
+		renderer.getDisplayServer( ).getDpiResolution( );
+		renderer.setProperty( IDeviceRenderer.EXPECTED_BOUNDS,
+				BoundsImpl.create( 0, 0, 100, 100 ) );
+		renderer.before( );
+
+		Graphics2D g2d = (Graphics2D) renderer.getGraphicsContext( );
+		if ( gradient )
+		{
+			g2d.setPaint( new GradientPaint( 0,
+					0,
+					Color.RED,
+					100,
+					100,
+					Color.BLUE ) );
+		}
+		else
+		{
+			g2d.setPaint( Color.RED );
+		}
+		g2d.fill( new Rectangle( 0, 0, 100, 100 ) );
+		g2d.setPaint( Color.GREEN );
+		g2d.fill( new Rectangle( 10, 10, 20, 20 ) );
+
+		renderer.after( );
+		return bos.toByteArray( );
+	}
+
+	/**
+	 * Exposes the writer parameters of the PNG renderer.
+	 */
+	private static class WriterParameters extends PngRendererImpl {
+
+		protected void updateWriterParameters( ImageWriteParam iwp )
+		{
+			super.updateWriterParameters( iwp );
+		}
+	}
+}
@@ -0,0 +1,84 @@
+/***********************************************************************
+ * Copyright (c) 2017 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * IBM Corporation - initial API and implementation
+ ***********************************************************************/
+package org.eclipse.birt.chart.tests.device.svg;
+
+import java.io.ByteArrayOutputStream;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import junit.framework.TestCase;
+
+import org.eclipse.birt.chart.device.svg.SVGStreamWriter;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+public class SVGStreamWriterTest extends TestCase {
+
+	private Document createDocument( ) throws Exception
+	{
+		Document dom = DocumentBuilderFactory.newInstance( )
+				.newDocumentBuilder( )
+				.newDocument( );
+		Element root = dom.createElement( "svg" ); //$NON-NLS-1$
+		root.setAttribute( "width", "10" ); //$NON-NLS-1$ //$NON-NLS-2$
+		dom.appendChild( root );
+		return dom;
+	}
+
+	public void testWriteDocument( ) throws Exception
+	{
+		Document dom = createDocument( );
+		Element text = dom.createElement( "text" ); //$NON-NLS-1$
+		text.setAttribute( "title", "a\"b<c" ); //$NON-NLS-1$ //$NON-NLS-2$
+		text.appendChild( dom.createTextNode( "x & y" ) ); //$NON-NLS-1$
+		dom.getDocumentElement( ).appendChild( text );
+		dom.getDocumentElement( )
+				.appendChild( dom.createElement( "g" ) ); //$NON-NLS-1$
+
+		ByteArrayOutputStream bos = new ByteArrayOutputStream( );
+		new SVGStreamWriter( bos ).writeDocument( dom );
+		String result = bos.toString( "UTF-8" ); //$NON-NLS-1$
+
+		assertTrue( result.startsWith( "<?xml" ) ); //$NON-NLS-1$
+		assertTrue( result.endsWith( "<svg width=\"10\"><text title=\"a&quot;b&lt;c\">x &amp; y</text><g/></svg>" ) ); //$NON-NLS-1$
+	}
+
+	public void testWriteCData( ) throws Exception
+	{
+		Document dom = createDocument( );
+		Element script = dom.createElement( "script" ); //$NON-NLS-1$
+		script.appendChild( dom.createCDATASection( "if (a[b[0]]>1) {}" ) ); //$NON-NLS-1$
+		dom.getDocumentElement( ).appendChild( script );
+
+		ByteArrayOutputStream bos = new ByteArrayOutputStream( );
+		SVGStreamWriter writer = new SVGStreamWriter( bos );
+		writer.writeNode( script );
+		writer.flush( );
+
+		assertEquals( "<script><![CDATA[if (a[b[0]]]]><![CDATA[>1) {}]]></script>", //$NON-NLS-1$
+				bos.toString( "UTF-8" ) ); //$NON-NLS-1$
+	}
+
+	public void testIncrementalWrite( ) throws Exception
+	{
+		Document dom = createDocument( );
+		Element root = dom.getDocumentElement( );
+		ByteArrayOutputStream bos = new ByteArrayOutputStream( );
+		SVGStreamWriter writer = new SVGStreamWriter( bos );
+		writer.writeStartTag( root );
+		writer.writeNode( dom.createElement( "rect" ) ); //$NON-NLS-1$
+		writer.writeEndTag( root );
+		writer.flush( );
+
+		assertEquals( "<svg width=\"10\"><rect/></svg>", //$NON-NLS-1$
+				bos.toString( "UTF-8" ) ); //$NON-NLS-1$
+	}
+}
@@ -0,0 +1,148 @@
+/***********************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Actuate Corporation - initial API and implementation
+ ***********************************************************************/
+package org.eclipse.birt.chart.tests.device.svg;
+
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Rectangle;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import junit.framework.TestCase;
+
+import org.eclipse.birt.chart.device.IDeviceRenderer;
+import org.eclipse.birt.chart.device.svg.ISVGConstants;
+import org.eclipse.birt.chart.device.svg.SVGGraphics2D;
+import org.eclipse.birt.chart.device.svg.SVGRendererImpl;
+import org.eclipse.birt.chart.model.attribute.impl.BoundsImpl;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * Renders the same drawing with and without the streaming output of the SVG
+ * renderer.
+ */
+public class SVGStreamingOutputTest extends TestCase {
+
+	private static final String STYLE = ".highlight{fill:green;}"; //$NON-NLS-1$
+	private static final String SCRIPT = "function highlight(evt){}"; //$NON-NLS-1$
+
+	private String render( boolean streaming ) throws Exception
+	{
+		ByteArrayOutputStream bos = new ByteArrayOutputStream( );
+		SVGRendererImpl renderer = new SVGRendererImpl( );
+		renderer.setProperty( IDeviceRenderer.FILE_IDENTIFIER, bos );
+		renderer.setProperty( ISVGConstants.STREAMING_OUTPUT,
+				Boolean.valueOf( streaming ) );
+		// Initialize dpi to avoid error using svg gc
+		renderer.getDisplayServer( ).getDpiResolution( );
+		renderer.setProperty( IDeviceRenderer.EXPECTED_BOUNDS,
+				BoundsImpl.create( 0, 0, 100, 100 ) );
+		renderer.before( );
+
+		SVGGraphics2D g2d = (SVGGraphics2D) renderer.getGraphicsContext( );
+		g2d.setPaint( new GradientPaint( 0, 0, Color.RED, 10, 10, Color.BLUE ) );
+		g2d.fill( new Rectangle( 0, 0, 10, 10 ) );
+		g2d.addCSSStyle( ".highlight", "fill", "green" ); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		g2d.addScript( SCRIPT );
+		g2d.setStyleClass( "highlight" ); //$NON-NLS-1$
+		g2d.setPaint( Color.RED );
+		g2d.fill( new Rectangle( 20, 20, 10, 10 ) );
+		g2d.setStyleClass( null );
+		g2d.fill( new Rectangle( 40, 40, 10, 10 ) );
+
+		renderer.after( );
+		return bos.toString( "UTF-8" ); //$NON-NLS-1$
+	}
+
+	public void testDefinitionsPrecedeReferences( ) throws Exception
+	{
+		String result = render( true );
+
+		int gradient = result.indexOf( "<linearGradient" ); //$NON-NLS-1$
+		assertTrue( gradient > 0 );
+		assertTrue( gradient < result.indexOf( "url(#" ) ); //$NON-NLS-1$
+
+		int highlighted = result.indexOf( "class=\"highlight\"" ); //$NON-NLS-1$
+		assertTrue( highlighted > 0 );
+		assertTrue( result.indexOf( STYLE ) > 0 );
+		assertTrue( result.indexOf( STYLE ) < highlighted );
+		assertTrue( result.indexOf( SCRIPT ) > 0 );
+		assertTrue( result.indexOf( SCRIPT ) < highlighted );
+	}
+
+	public void testSameElementsAsDocument( ) throws Exception
+	{
+		Document streamed = parse( render( true ) );
+		Document document = parse( render( false ) );
+
+		// Definitions, styles and scripts are split into several elements
+		assertEquals( getDrawingElements( document ),
+				getDrawingElements( streamed ) );
+		assertEquals( "svg", streamed.getDocumentElement( ).getTagName( ) ); //$NON-NLS-1$
+		assertEquals( "outerG", //$NON-NLS-1$
+				getFirstElement( streamed.getDocumentElement( ) ).getAttribute( "id" ) ); //$NON-NLS-1$
+	}
+
+	private static Document parse( String svg ) throws Exception
+	{
+		DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance( );
+		// The SVG DTD is not needed
+		factory.setFeature( "http://apache.org/xml/features/nonvalidating/load-external-dtd", //$NON-NLS-1$
+				false );
+		return factory.newDocumentBuilder( )
+				.parse( new ByteArrayInputStream( svg.getBytes( "UTF-8" ) ) ); //$NON-NLS-1$
+	}
+
+	private static Element getFirstElement( Element parent )
+	{
+		for ( Node child = parent.getFirstChild( ); child != null; child = child.getNextSibling( ) )
+		{
+			if ( child instanceof Element )
+			{
+				return (Element) child;
+			}
+		}
+		return null;
+	}
+
+	private static List<String> getDrawingElements( Document dom )
+	{
+		List<String> elements = new ArrayList<String>( );
+		addDrawingElements( dom.getDocumentElement( ), elements );
+		Collections.sort( elements );
+		return elements;
+	}
+
+	private static void addDrawingElements( Element elem, List<String> elements )
+	{
+		String tagName = elem.getTagName( );
+		if ( !"defs".equals( tagName ) //$NON-NLS-1$
+				&& !"style".equals( tagName ) //$NON-NLS-1$
+				&& !"script".equals( tagName ) ) //$NON-NLS-1$
+		{
+			elements.add( tagName );
+		}
+		for ( Node child = elem.getFirstChild( ); child != null; child = child.getNextSibling( ) )
+		{
+			if ( child instanceof Element )
+			{
+				addDrawingElements( (Element) child, elements );
+			}
+		}
+	}
+}
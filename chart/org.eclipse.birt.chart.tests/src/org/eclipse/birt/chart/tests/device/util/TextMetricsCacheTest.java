@@ -0,0 +1,72 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.chart.tests.device.util;
+
+import java.awt.Font;
+import java.awt.font.FontRenderContext;
+import java.awt.geom.AffineTransform;
+
+import junit.framework.TestCase;
+
+import org.eclipse.birt.chart.device.util.TextMetricsCache;
+
+public class TextMetricsCacheTest extends TestCase
+{
+
+	private final Font font = new Font( "Serif", Font.PLAIN, 12 ); //$NON-NLS-1$
+
+	private final FontRenderContext frc = new FontRenderContext( new AffineTransform( ),
+			false,
+			false );
+
+	private TextMetricsCache.Metrics createMetrics( )
+	{
+		return new TextMetricsCache.Metrics( new String[]{
+				"a", "bb" //$NON-NLS-1$ //$NON-NLS-2$
+		}, new double[]{
+				5, 10
+		}, 12, 3 );
+	}
+
+	public void testGetAndPut( )
+	{
+		TextMetricsCache cache = new TextMetricsCache( 10 );
+		assertNull( cache.get( "a\nbb", font, frc, 0, 0 ) ); //$NON-NLS-1$
+
+		TextMetricsCache.Metrics metrics = createMetrics( );
+		cache.put( "a\nbb", font, frc, 0, 0, metrics ); //$NON-NLS-1$
+		assertSame( metrics, cache.get( "a\nbb", font, frc, 0, 0 ) ); //$NON-NLS-1$
+		assertNull( cache.get( "a\nbb", font, frc, 45, 0 ) ); //$NON-NLS-1$
+		assertNull( cache.get( "a\nbb", font, frc, 0, 20 ) ); //$NON-NLS-1$
+		assertNull( cache.get( "a\nbb", font.deriveFont( 14f ), frc, 0, 0 ) ); //$NON-NLS-1$
+		assertEquals( 1, cache.getHitCount( ) );
+		assertEquals( 4, cache.getMissCount( ) );
+
+		assertEquals( 2, metrics.getLineCount( ) );
+		assertEquals( 10d, metrics.getMaxWidth( ), 0 );
+	}
+
+	public void testEviction( )
+	{
+		TextMetricsCache cache = new TextMetricsCache( 2 );
+		cache.put( "1", font, frc, 0, 0, createMetrics( ) ); //$NON-NLS-1$
+		cache.put( "2", font, frc, 0, 0, createMetrics( ) ); //$NON-NLS-1$
+		// Access the first one so the second is the least recently used
+		assertNotNull( cache.get( "1", font, frc, 0, 0 ) ); //$NON-NLS-1$
+		cache.put( "3", font, frc, 0, 0, createMetrics( ) ); //$NON-NLS-1$
+
+		assertEquals( 2, cache.size( ) );
+		assertNotNull( cache.get( "1", font, frc, 0, 0 ) ); //$NON-NLS-1$
+		assertNull( cache.get( "2", font, frc, 0, 0 ) ); //$NON-NLS-1$
+		assertNotNull( cache.get( "3", font, frc, 0, 0 ) ); //$NON-NLS-1$
+	}
+}
@@ -14,6 +14,7 @@ import junit.framework.TestSuite;
 
 import org.eclipse.birt.chart.tests.engine.aggregate.AverageTest;
 import org.eclipse.birt.chart.tests.engine.aggregate.SumTest;
+import org.eclipse.birt.chart.tests.engine.computation.AutoScaleTest;
 import org.eclipse.birt.chart.tests.engine.computation.BoundingBoxTest;
 import org.eclipse.birt.chart.tests.engine.computation.RectangleTest;
 import org.eclipse.birt.chart.tests.engine.computation.ScaleContextTest;
@@ -56,6 +57,7 @@ public class EngineTest
 		suite.addTestSuite( PolygonTest.class );
 		suite.addTestSuite( RectangleTest.class );
 		suite.addTestSuite( ScaleContextTest.class );
+		suite.addTestSuite( AutoScaleTest.class );
 		suite.addTestSuite( MonthDateFormatTest.class );
 
 		suite.addTestSuite( DataSetProcessorImplTest.class );
@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.chart.tests.engine.computation;
+
+import junit.framework.TestCase;
+
+import org.eclipse.birt.chart.computation.BIRTChartComputation;
+import org.eclipse.birt.chart.computation.IConstants;
+import org.eclipse.birt.chart.computation.Methods;
+import org.eclipse.birt.chart.computation.withaxes.AutoScale;
+import org.eclipse.birt.chart.computation.withaxes.ScaleContext;
+import org.eclipse.birt.chart.device.IDisplayServer;
+import org.eclipse.birt.chart.device.swing.SwingDisplayServer;
+import org.eclipse.birt.chart.factory.RunTimeContext;
+import org.eclipse.birt.chart.factory.RunTimeContext.StateKey;
+import org.eclipse.birt.chart.model.component.Label;
+import org.eclipse.birt.chart.model.component.impl.LabelImpl;
+import org.eclipse.birt.chart.util.CDateTime;
+
+import com.ibm.icu.util.Calendar;
+import com.ibm.icu.util.ULocale;
+
+/**
+ * Tests the steps skipped when a date time scale in years is zoomed out.
+ */
+public class AutoScaleTest extends TestCase
+{
+
+	private static final double AXIS_LENGTH = 400;
+
+	private IDisplayServer xs;
+
+	private RunTimeContext rtc;
+
+	protected void setUp( ) throws Exception
+	{
+		xs = new SwingDisplayServer( );
+		rtc = new RunTimeContext( );
+		rtc.setULocale( ULocale.US );
+		rtc.putState( StateKey.CHART_COMPUTATION_KEY,
+				new BIRTChartComputation( ) );
+	}
+
+	private AutoScale createYearScale( int iType, Label la ) throws Exception
+	{
+		ScaleContext context = new ScaleContext( 0, iType );
+		context.setMin( CDateTime.parse( "01-01-1000 00:00:00" ) ); //$NON-NLS-1$
+		context.setMax( CDateTime.parse( "01-01-3000 00:00:00" ) ); //$NON-NLS-1$
+		context.setUnit( Integer.valueOf( Calendar.YEAR ) );
+		context.setStep( Integer.valueOf( 1 ) );
+		AutoScale sc = new AutoScale( new AutoScale.ScaleInfo( null,
+				iType,
+				rtc,
+				null,
+				null,
+				IConstants.FORWARD,
+				false ), context );
+		sc.computeTicks( xs,
+				la,
+				IConstants.BELOW,
+				IConstants.HORIZONTAL,
+				0,
+				AXIS_LENGTH,
+				false,
+				null );
+		return sc;
+	}
+
+	public void testOverlappingYearsSkipped( ) throws Exception
+	{
+		Label la = LabelImpl.create( );
+		AutoScale sc = createYearScale( IConstants.DATE_TIME, la );
+		double dSpacing = Math.abs( sc.getTickCordinates( ).getCoordinate( 1 )
+				- sc.getTickCordinates( ).getCoordinate( 0 ) );
+		String sCaption = la.getCaption( ).getValue( );
+
+		sc.skipOverlappingSteps( xs, la, IConstants.BELOW );
+		int iStep = ( (Number) sc.getStep( ) ).intValue( );
+		assertTrue( iStep > 1 );
+		// The caption is restored after the labels are measured
+		assertEquals( sCaption, la.getCaption( ).getValue( ) );
+		// The labels still overlap at the new step
+		la.getCaption( ).setValue( "1000" ); //$NON-NLS-1$
+		double dLabelWidth = Methods.computeLabelSize( xs, la, 0, null )
+				.getWidth( );
+		la.getCaption( ).setValue( sCaption );
+		assertTrue( iStep * dSpacing < dLabelWidth / 2 );
+
+		// The other flags of the scale type are ignored
+		sc = createYearScale( IConstants.DATE_TIME | IConstants.PERCENT, la );
+		sc.skipOverlappingSteps( xs, la, IConstants.BELOW );
+		assertEquals( iStep, ( (Number) sc.getStep( ) ).intValue( ) );
+	}
+
+	public void testRotatedLabelsNotSkipped( ) throws Exception
+	{
+		Label la = LabelImpl.create( );
+		la.getCaption( ).getFont( ).setRotation( 45 );
+		AutoScale sc = createYearScale( IConstants.DATE_TIME, la );
+		sc.skipOverlappingSteps( xs, la, IConstants.BELOW );
+		assertEquals( 1, ( (Number) sc.getStep( ) ).intValue( ) );
+	}
+
+	public void testFixedStepNotSkipped( ) throws Exception
+	{
+		Label la = LabelImpl.create( );
+		AutoScale sc = createYearScale( IConstants.DATE_TIME, la );
+		sc.setStepFixed( true );
+		sc.skipOverlappingSteps( xs, la, IConstants.BELOW );
+		assertEquals( 1, ( (Number) sc.getStep( ) ).intValue( ) );
+	}
+}
@@ -0,0 +1,247 @@
+/*
+ *************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation - initial API and implementation
+ *
+ *************************************************************************
+ */
+
+package org.eclipse.birt.data.oda.mongodb.internal.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.eclipse.birt.data.oda.mongodb.impl.MDbResultSetMetaData;
+import org.eclipse.datatools.connectivity.oda.OdaException;
+import org.eclipse.datatools.connectivity.oda.spec.QuerySpecification;
+import org.eclipse.datatools.connectivity.oda.spec.result.ColumnIdentifier;
+import org.eclipse.datatools.connectivity.oda.spec.result.CustomAggregate;
+import org.eclipse.datatools.connectivity.oda.spec.result.FilterExpression;
+import org.eclipse.datatools.connectivity.oda.spec.result.ResultProjection;
+import org.eclipse.datatools.connectivity.oda.spec.result.ResultSetSpecification;
+import org.eclipse.datatools.connectivity.oda.spec.result.filter.CustomExpression;
+import org.eclipse.datatools.connectivity.oda.spec.result.filter.ExpressionArguments;
+import org.eclipse.datatools.connectivity.oda.spec.result.filter.ExpressionVariable;
+import org.eclipse.datatools.connectivity.oda.spec.result.filter.NotExpression;
+import org.eclipse.datatools.connectivity.oda.spec.util.QuerySpecificationHelper;
+
+import com.mongodb.BasicDBList;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test case for ResultSetSpecHandler, which translates a query spec into
+ * MongoDB operations.
+ */
+public class ResultSetSpecHandlerTest
+{
+    private static final String EXTENSION_ID = "org.eclipse.birt.data.oda.mongodb.dynamicResultSet"; //$NON-NLS-1$
+
+    private MDbResultSetMetaData m_rsmd;
+
+    @Before
+    public void resultSetSpecHandlerSetUp()
+    {
+        List<DBObject> docs = new ArrayList<DBObject>();
+        docs.add( new BasicDBObject( "category", "A" ).append( "amount", 10 ) //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+                .append( "tags", Arrays.asList( "x", "y" ) ) ); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        docs.add( new BasicDBObject( "category", "B" ).append( "amount", 20 ) //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+                .append( "tags", Arrays.asList( "z" ) ) ); //$NON-NLS-1$ //$NON-NLS-2$
+        m_rsmd = new MDbResultSetMetaData( docs, 10, null, false );
+    }
+
+    @Test
+    public void testNotBetweenExcludesNull() throws Exception
+    {
+        DBObject matchObj = prepareFilter( newFilter( ResultSetSpecHandler.FILTER_NOT_BETWEEN,
+                "amount", 10, 20 ) ).getMatchObject(); //$NON-NLS-1$
+
+        // a null value is neither less than 10 nor greater than 20
+        BasicDBList conditions = new BasicDBList();
+        conditions.add( newCondition( "amount", "$lt", 10 ) ); //$NON-NLS-1$ //$NON-NLS-2$
+        conditions.add( newCondition( "amount", "$gt", 20 ) ); //$NON-NLS-1$ //$NON-NLS-2$
+        assertEquals( new BasicDBObject( "$or", conditions ), matchObj ); //$NON-NLS-1$
+
+        matchObj = prepareFilter( newFilter( ResultSetSpecHandler.FILTER_BETWEEN,
+                "amount", 10, 20 ) ).getMatchObject(); //$NON-NLS-1$
+        assertEquals( new BasicDBObject( "amount", //$NON-NLS-1$
+                new BasicDBObject( "$gte", 10 ).append( "$lte", 20 ) ), matchObj ); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    @Test
+    public void testNotEqualExcludesNull() throws Exception
+    {
+        DBObject matchObj = prepareFilter( newFilter( ResultSetSpecHandler.FILTER_NOT_EQUAL,
+                "category", "A" ) ).getMatchObject(); //$NON-NLS-1$ //$NON-NLS-2$
+
+        BasicDBList values = new BasicDBList();
+        values.add( "A" ); //$NON-NLS-1$
+        values.add( null );
+        assertEquals( newCondition( "category", "$nin", values ), matchObj ); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    @Test
+    public void testNullFilters() throws Exception
+    {
+        assertEquals( new BasicDBObject( "category", null ), //$NON-NLS-1$
+                prepareFilter( newFilter( ResultSetSpecHandler.FILTER_IS_NULL, "category" ) ) //$NON-NLS-1$
+                    .getMatchObject() );
+        assertEquals( newCondition( "category", "$ne", null ), //$NON-NLS-1$ //$NON-NLS-2$
+                prepareFilter( newFilter( ResultSetSpecHandler.FILTER_IS_NOT_NULL, "category" ) ) //$NON-NLS-1$
+                    .getMatchObject() );
+
+        // a negated filter matches the documents not matched by the filter, with null values
+        BasicDBList conditions = new BasicDBList();
+        conditions.add( new BasicDBObject( "category", "A" ) ); //$NON-NLS-1$ //$NON-NLS-2$
+        assertEquals( new BasicDBObject( "$nor", conditions ), //$NON-NLS-1$
+                prepareFilter( new NotExpression( newFilter( ResultSetSpecHandler.FILTER_EQUAL,
+                        "category", "A" ) ) ).getMatchObject() ); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    @Test
+    public void testEffectiveQueryObject() throws Exception
+    {
+        ResultSetSpecHandler handler = prepareFilter( newFilter( ResultSetSpecHandler.FILTER_GREATER_THAN,
+                "amount", 10 ) ); //$NON-NLS-1$
+        DBObject matchObj = handler.getMatchObject();
+        assertSame( matchObj, handler.getEffectiveQueryObject( new BasicDBObject() ) );
+
+        DBObject queryObj = new BasicDBObject( "category", "A" ); //$NON-NLS-1$ //$NON-NLS-2$
+        BasicDBList conditions = new BasicDBList();
+        conditions.add( queryObj );
+        conditions.add( matchObj );
+        assertEquals( new BasicDBObject( "$and", conditions ), //$NON-NLS-1$
+                handler.getEffectiveQueryObject( queryObj ) );
+    }
+
+    @Test
+    public void testArrayFieldIsNotSupported() throws Exception
+    {
+        try
+        {
+            prepareFilter( newFilter( ResultSetSpecHandler.FILTER_EQUAL, "tags", "x" ) ); //$NON-NLS-1$ //$NON-NLS-2$
+            fail( "Should throw OdaException" ); //$NON-NLS-1$
+        }
+        catch( OdaException e )
+        {
+        }
+    }
+
+    @Test
+    public void testToLikePattern()
+    {
+        Pattern pattern = ResultSetSpecHandler.toLikePattern( "a%b_c.d" ); //$NON-NLS-1$
+        assertTrue( pattern.matcher( "abXc.d" ).matches() ); //$NON-NLS-1$
+        assertTrue( pattern.matcher( "aXY\nZbXc.d" ).matches() ); //$NON-NLS-1$
+        // the other characters are literals
+        assertFalse( pattern.matcher( "abXcXd" ).matches() ); //$NON-NLS-1$
+        assertFalse( pattern.matcher( "abc.d" ).matches() ); //$NON-NLS-1$
+        // the whole value is matched
+        assertFalse( pattern.matcher( "XabXc.d" ).matches() ); //$NON-NLS-1$
+
+        pattern = ResultSetSpecHandler.toLikePattern( "(1+1)*" ); //$NON-NLS-1$
+        assertTrue( pattern.matcher( "(1+1)*" ).matches() ); //$NON-NLS-1$
+        assertFalse( pattern.matcher( "11" ).matches() ); //$NON-NLS-1$
+    }
+
+    @Test
+    public void testGroupAggregation() throws Exception
+    {
+        QuerySpecificationHelper specHelper = new QuerySpecificationHelper( (String)null );
+        ResultProjection projection = specHelper.createResultProjection();
+        CustomAggregate sum = new CustomAggregate( EXTENSION_ID, ResultSetSpecHandler.AGGR_SUM );
+        sum.add( new ColumnIdentifier( "amount" ) ); //$NON-NLS-1$
+        projection.setProjection( new ColumnIdentifier( "amount" ), sum ); //$NON-NLS-1$
+        projection.hideResultColumn( new ColumnIdentifier( "tags" ) ); //$NON-NLS-1$
+        ResultSetSpecification resultSetSpec = specHelper.createResultSetSpecification();
+        resultSetSpec.setResultProjection( projection );
+        QuerySpecification querySpec = specHelper.createQuerySpecification();
+        querySpec.setResultSetSpecification( resultSetSpec );
+
+        ResultSetSpecHandler handler = new ResultSetSpecHandler( querySpec, null );
+        assertTrue( handler.hasGroupAggregation() );
+        handler.prepare( m_rsmd );
+        List<DBObject> pipeline = new ArrayList<DBObject>();
+        handler.appendPipelineOperations( pipeline );
+
+        // the documents are grouped by the other columns, which are then moved out of the id
+        assertEquals( 2, pipeline.size() );
+        assertEquals( new BasicDBObject( ResultSetSpecHandler.GROUP_AGGR_KEY,
+                new BasicDBObject( "amount", new BasicDBObject( "$sum", "$amount" ) ) //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+                    .append( "_id", new BasicDBObject( "category", "$category" ) ) ), //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+                pipeline.get( 0 ) );
+        assertEquals( new BasicDBObject( ResultSetSpecHandler.PROJECT_AGGR_KEY,
+                new BasicDBObject( "_id", 0 ).append( "amount", 1 ) //$NON-NLS-1$ //$NON-NLS-2$
+                    .append( "category", "$_id.category" ) ), //$NON-NLS-1$ //$NON-NLS-2$
+                pipeline.get( 1 ) );
+    }
+
+    @Test
+    public void testSkipBeforePipeline() throws Exception
+    {
+        QueryProperties queryProps = new QueryProperties( "orders" ); //$NON-NLS-1$
+        queryProps.setNumDocsToSkip( 5 );
+        queryProps.setSortExpr( "{ \"category\" : 1 }" ); //$NON-NLS-1$
+        ResultSetSpecHandler handler = prepareFilter( newFilter( ResultSetSpecHandler.FILTER_GREATER_THAN,
+                "amount", 10 ) ); //$NON-NLS-1$
+        DBObject queryObj = new BasicDBObject( "category", "A" ); //$NON-NLS-1$ //$NON-NLS-2$
+        DBObject fieldsObj = new BasicDBObject( "amount", 1 ); //$NON-NLS-1$
+
+        List<DBObject> pipeline = MDbOperation.createFindPipeline( queryObj, fieldsObj, queryProps, handler );
+
+        // the documents are skipped in the order of the sort expression, before they are filtered
+        assertEquals( 5, pipeline.size() );
+        assertEquals( new BasicDBObject( ResultSetSpecHandler.MATCH_AGGR_KEY, queryObj ), pipeline.get( 0 ) );
+        assertEquals( new BasicDBObject( ResultSetSpecHandler.SORT_AGGR_KEY,
+                new BasicDBObject( "category", 1 ) ), pipeline.get( 1 ) ); //$NON-NLS-1$
+        assertEquals( new BasicDBObject( ResultSetSpecHandler.SKIP_AGGR_KEY, 5 ), pipeline.get( 2 ) );
+        assertEquals( new BasicDBObject( ResultSetSpecHandler.PROJECT_AGGR_KEY, fieldsObj ), pipeline.get( 3 ) );
+        assertEquals( new BasicDBObject( ResultSetSpecHandler.MATCH_AGGR_KEY, handler.getMatchObject() ),
+                pipeline.get( 4 ) );
+    }
+
+    private ResultSetSpecHandler prepareFilter( FilterExpression filter ) throws OdaException
+    {
+        QuerySpecificationHelper specHelper = new QuerySpecificationHelper( (String)null );
+        ResultSetSpecification resultSetSpec = specHelper.createResultSetSpecification();
+        resultSetSpec.setFilterSpecification( filter );
+        QuerySpecification querySpec = specHelper.createQuerySpecification();
+        querySpec.setResultSetSpecification( resultSetSpec );
+
+        ResultSetSpecHandler handler = new ResultSetSpecHandler( querySpec, null );
+        assertTrue( handler.hasFilter() );
+        handler.prepare( m_rsmd );
+        return handler;
+    }
+
+    private static FilterExpression newFilter( String filterId, String columnName, Object... values )
+    {
+        ExpressionArguments arguments = null;
+        if( values.length > 0 )
+        {
+            arguments = new ExpressionArguments();
+            for( Object value : values )
+                arguments.addValue( value );
+        }
+        return new CustomExpression( EXTENSION_ID, filterId,
+                new ExpressionVariable( new ColumnIdentifier( columnName ) ), arguments );
+    }
+
+    private static DBObject newCondition( String fieldName, String operator, Object value )
+    {
+        return new BasicDBObject( fieldName, new BasicDBObject( operator, value ) );
+    }
+
+}
@@ -44,6 +44,7 @@ public class MDbQuery implements IQuery
 
     private QueryModel m_model;
     private QuerySpecification m_querySpec;
+    private SortSpec m_sortSpec;
     private int m_maxRows;
 
     
@@ -71,6 +72,7 @@ public class MDbQuery implements IQuery
         if( hasValidModel() )
         {
             m_model.addQuerySpec( getSpecification() );
+            m_model.setSortSpec( m_sortSpec );
         }
 
         // #prepare may be called multiple times;
@@ -340,9 +342,11 @@ public class MDbQuery implements IQuery
 	 */
 	public void setSortSpec( SortSpec sortBy ) throws OdaException
 	{
-		// no push-down support;
-	    // only supports user-defined MongoDB Sort Expression defined in the data set
-        throw new UnsupportedOperationException();
+	    // the sort keys are pushed down after those of the query spec, and
+	    // override the user-defined MongoDB Sort Expression defined in the data set
+	    m_sortSpec = sortBy;
+	    if( m_model != null )
+	        m_model.setSortSpec( sortBy );
 	}
 
 	/*
@@ -350,7 +354,7 @@ public class MDbQuery implements IQuery
 	 */
 	public SortSpec getSortSpec() throws OdaException
 	{
-		return null;
+		return m_sortSpec;
 	}
 
     /* (non-Javadoc)
@@ -59,11 +59,13 @@ public class MDbResultSet implements IResultSet
     private int m_maxRows = 0;  // no limit by default
     private boolean m_wasNull = true;
     private ResultDataHandler m_dataHandler;
+    private String[] m_fieldNames;      // field name of each column, by 0-based position
+    private FieldMetaData[] m_fieldsMD;
 
     private static Logger sm_logger = DriverUtil.getLogger();
     
     public MDbResultSet( Iterator<DBObject> resultsIterator, MDbResultSetMetaData rsmd,
-            QueryProperties queryProps )
+            QueryProperties queryProps ) throws OdaException
     {
         if( resultsIterator == null || rsmd == null )
             throw new IllegalArgumentException( "null DBCursor" ); //$NON-NLS-1$
@@ -77,6 +79,7 @@ public class MDbResultSet implements IResultSet
                         QueryProperties.defaultValues();
         if( projectsFlattenedRows() )
             m_dataHandler = new ResultDataHandler( m_metadata );
+        mapFields();
     }
 	
 	/*
@@ -172,7 +175,7 @@ public class MDbResultSet implements IResultSet
 	 */
 	public String getString( int index ) throws OdaException
 	{
-        return getString( findFieldName(index) );
+        return toStringValue( getFieldValue( index ), findFieldName( index ) );
 	}
 
 	/*
@@ -180,7 +183,11 @@ public class MDbResultSet implements IResultSet
 	 */
 	public String getString( String columnName ) throws OdaException
 	{
-	    Object columnValue = getFieldValue( columnName );
+	    return toStringValue( getFieldValue( columnName ), columnName );
+	}
+
+	private String toStringValue( Object columnValue, String columnName ) throws OdaException
+	{
 	    if( columnValue instanceof String )
 	        return (String)columnValue;
 
@@ -211,7 +218,7 @@ public class MDbResultSet implements IResultSet
 	 */
 	public int getInt( int index ) throws OdaException
 	{
-        return getInt( findFieldName(index) );
+        return toInt( getFieldValue( index ), findFieldName( index ) );
 	}
 
 	/*
@@ -219,7 +226,11 @@ public class MDbResultSet implements IResultSet
 	 */
 	public int getInt( String columnName ) throws OdaException
 	{
-        Object columnValue = getFieldValue( columnName );
+	    return toInt( getFieldValue( columnName ), columnName );
+	}
+
+	private int toInt( Object columnValue, String columnName ) throws OdaException
+	{
         columnValue = tryConvertToDataType( columnValue, Integer.class );
 
         if( columnValue instanceof List )
@@ -245,7 +256,7 @@ public class MDbResultSet implements IResultSet
 	 */
 	public double getDouble( int index ) throws OdaException
 	{
-        return getDouble( findFieldName(index) );
+        return toDouble( getFieldValue( index ), findFieldName( index ) );
 	}
 
 	/*
@@ -253,7 +264,11 @@ public class MDbResultSet implements IResultSet
 	 */
 	public double getDouble( String columnName ) throws OdaException
 	{
-        Object columnValue = getFieldValue( columnName );
+	    return toDouble( getFieldValue( columnName ), columnName );
+	}
+
+	private double toDouble( Object columnValue, String columnName ) throws OdaException
+	{
         columnValue = tryConvertToDataType( columnValue, Double.class );
  
         if( columnValue instanceof List )
@@ -279,7 +294,7 @@ public class MDbResultSet implements IResultSet
 	 */
 	public BigDecimal getBigDecimal( int index ) throws OdaException
 	{
-        return getBigDecimal( findFieldName(index) );
+        return toBigDecimal( getFieldValue( index ), findFieldName( index ) );
 	}
 
 	/*
@@ -287,7 +302,11 @@ public class MDbResultSet implements IResultSet
 	 */
 	public BigDecimal getBigDecimal( String columnName ) throws OdaException
 	{
-	    Object columnValue = getFieldValue( columnName );
+	    return toBigDecimal( getFieldValue( columnName ), columnName );
+	}
+
+	private BigDecimal toBigDecimal( Object columnValue, String columnName ) throws OdaException
+	{
 	    columnValue = tryConvertToDataType( columnValue, BigDecimal.class );
         if( columnValue instanceof BigDecimal )
             return (BigDecimal)columnValue;
@@ -313,7 +332,7 @@ public class MDbResultSet implements IResultSet
 	 */
 	public Date getDate( int index ) throws OdaException
 	{
-        return getDate( findFieldName(index) );
+        return toDate( getFieldValue( index ), findFieldName( index ) );
 	}
 
 	/*
@@ -321,7 +340,11 @@ public class MDbResultSet implements IResultSet
 	 */
 	public Date getDate( String columnName ) throws OdaException
 	{
-        Object columnValue = getFieldValue( columnName );
+	    return toDate( getFieldValue( columnName ), columnName );
+	}
+
+	private Date toDate( Object columnValue, String columnName ) throws OdaException
+	{
         columnValue = tryConvertToDataType( columnValue, Date.class );
         if( columnValue instanceof Date )
             return (Date)columnValue;
@@ -346,7 +369,7 @@ public class MDbResultSet implements IResultSet
 	 */
 	public Time getTime( int index ) throws OdaException
 	{
-        return getTime( findFieldName(index) );
+        return toTime( toDate( getFieldValue( index ), findFieldName( index ) ) );
 	}
 
 	/*
@@ -354,18 +377,22 @@ public class MDbResultSet implements IResultSet
 	 */
 	public Time getTime( String columnName ) throws OdaException
 	{
-	    Date dateValue = getDate( columnName );
+	    return toTime( getDate( columnName ) );
+    }
+
+	private static Time toTime( Date dateValue )
+	{
 	    if( dateValue == null )
 	        return null;
         return new Time( dateValue.getTime() );
-    }
+	}
 
 	/*
 	 * @see org.eclipse.datatools.connectivity.oda.IResultSet#getTimestamp(int)
 	 */
 	public Timestamp getTimestamp( int index ) throws OdaException
 	{
-        return getTimestamp( findFieldName(index) );
+        return toTimestamp( getFieldValue( index ), findFieldName( index ) );
 	}
 
 	/*
@@ -373,7 +400,11 @@ public class MDbResultSet implements IResultSet
 	 */
 	public Timestamp getTimestamp( String columnName ) throws OdaException
 	{
-        Object columnValue = getFieldValue( columnName );
+	    return toTimestamp( getFieldValue( columnName ), columnName );
+	}
+
+	private Timestamp toTimestamp( Object columnValue, String columnName ) throws OdaException
+	{
         columnValue = tryConvertToDataType( columnValue, Timestamp.class );
 
         if( columnValue instanceof List )
@@ -398,7 +429,7 @@ public class MDbResultSet implements IResultSet
      */
     public IBlob getBlob( int index ) throws OdaException
     {
-        return getBlob( findFieldName(index) );
+        return toBlob( getFieldValue( index ), findFieldName( index ) );
     }
 
     /* 
@@ -406,7 +437,11 @@ public class MDbResultSet implements IResultSet
      */
     public IBlob getBlob( String columnName ) throws OdaException
     {
-        Object columnValue = getFieldValue( columnName );
+        return toBlob( getFieldValue( columnName ), columnName );
+    }
+
+    private IBlob toBlob( Object columnValue, String columnName ) throws OdaException
+    {
         columnValue = tryConvertToDataType( columnValue, byte[].class );
 
         if( columnValue instanceof List )
@@ -447,7 +482,7 @@ public class MDbResultSet implements IResultSet
      */
     public boolean getBoolean( int index ) throws OdaException
     {
-        return getBoolean( findFieldName(index) );
+        return toBoolean( getFieldValue( index ), findFieldName( index ) );
     }
 
     /* (non-Javadoc)
@@ -455,7 +490,11 @@ public class MDbResultSet implements IResultSet
      */
     public boolean getBoolean( String columnName ) throws OdaException
     {
-        Object columnValue = getFieldValue( columnName );
+        return toBoolean( getFieldValue( columnName ), columnName );
+    }
+
+    private boolean toBoolean( Object columnValue, String columnName ) throws OdaException
+    {
         columnValue = tryConvertToDataType( columnValue, Boolean.class );
 
         if( columnValue instanceof List )
@@ -481,7 +520,7 @@ public class MDbResultSet implements IResultSet
      */
     public Object getObject( int index ) throws OdaException
     {
-        return getObject( findFieldName(index) );
+        return getFieldValue( index );
     }
 
     /* (non-Javadoc)
@@ -510,23 +549,54 @@ public class MDbResultSet implements IResultSet
 
     private String findFieldName( int columnNumber ) throws OdaException
     {
-        return getMetaData().getColumnName( columnNumber );
+        if( columnNumber <= 0 || columnNumber > m_fieldNames.length )
+            return getMetaData().getColumnName( columnNumber );
+        return m_fieldNames[columnNumber-1];    // 1-based position
+    }
+
+    /*
+     * Maps the columns to their field names and metadata once, 
+     * instead of looking them up by name for each value.
+     */
+    private void mapFields() throws OdaException
+    {
+        int columnCount = m_metadata.getColumnCount();
+        m_fieldNames = new String[columnCount];
+        m_fieldsMD = new FieldMetaData[columnCount];
+        for( int i=0; i < columnCount; i++ )
+        {
+            m_fieldNames[i] = m_metadata.getColumnName( i+1 );
+            m_fieldsMD[i] = m_metadata.getColumnMetaData( m_fieldNames[i] );
+        }
+    }
+
+    private Object getFieldValue( int columnNumber ) throws OdaException
+    {
+        if( columnNumber <= 0 || columnNumber > m_fieldNames.length )
+            return getFieldValue( findFieldName( columnNumber ) );
+
+        int i = columnNumber - 1;
+        Object fieldValue = doGetFieldValue( m_fieldNames[i], m_fieldsMD[i] );
+        m_wasNull = ( fieldValue == null );
+        return fieldValue;
     }
 
     private Object getFieldValue( String columnName ) throws OdaException
     {
-        Object fieldValue = doGetFieldValue( columnName );
+        int columnNumber = m_metadata.getColumnNumber( columnName );
+        if( columnNumber > 0 )
+            return getFieldValue( columnNumber );
+
+        // not a result set column
+        Object fieldValue = doGetFieldValue( columnName, m_metadata.getColumnMetaData( columnName ) );
         m_wasNull = ( fieldValue == null );
         return fieldValue;
     }
     
-    private Object doGetFieldValue( String columnName ) throws OdaException
+    private Object doGetFieldValue( String columnName, FieldMetaData fieldMD ) throws OdaException
     {    
         if( ! projectsFlattenedRows() )
-        {   
-            FieldMetaData fieldMD = m_metadata.getColumnMetaData( columnName );
             return ResultDataHandler.fetchFieldValues( columnName, fieldMD, m_currentRow );
-        }
         
         // flatten array of nested documents' field values, if exists, and projects into multiple result rows
         return m_dataHandler.getFieldValue( columnName, m_currentRow );
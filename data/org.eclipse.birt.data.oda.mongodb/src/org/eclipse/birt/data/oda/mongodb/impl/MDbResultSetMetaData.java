@@ -16,6 +16,7 @@ package org.eclipse.birt.data.oda.mongodb.impl;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -37,6 +38,7 @@ public class MDbResultSetMetaData implements IResultSetMetaData
 {
     private Map<String,FieldMetaData> m_resultFieldsMD;     // key is full name of result field
     private List<String> m_resultFieldFullNames;    // convenient indexed access to field names
+    private Map<String,Integer> m_resultFieldNumbers;   // convenient access to 1-based field positions
     private List<Integer> m_resultFieldDataTypes;   // convenient cached access to field native data type
     private DocumentsMetaData m_docsMetaData;
     private boolean m_isAutoFlattening;
@@ -126,7 +128,16 @@ public class MDbResultSetMetaData implements IResultSetMetaData
 
 	int getColumnNumber( String columnName )
 	{
-	    return getFieldFullNames().indexOf( columnName ) + 1;  // 1-based position
+	    if( m_resultFieldNumbers == null )
+	    {
+	        List<String> fieldNames = getFieldFullNames();
+	        Map<String,Integer> fieldNumbers = new HashMap<String,Integer>( fieldNames.size() * 2 );
+	        for( int i = fieldNames.size() - 1; i >= 0; i-- )   // the first position of a name
+	            fieldNumbers.put( fieldNames.get( i ), Integer.valueOf( i+1 ) );  // 1-based position
+	        m_resultFieldNumbers = fieldNumbers;
+	    }
+	    Integer columnNumber = m_resultFieldNumbers.get( columnName );
+	    return columnNumber != null ? columnNumber.intValue() : 0;
 	}
 
 	private FieldMetaData getColumnMetaData( int index )
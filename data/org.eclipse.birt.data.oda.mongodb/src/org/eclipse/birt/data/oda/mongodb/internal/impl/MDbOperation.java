@@ -14,6 +14,8 @@
 
 package org.eclipse.birt.data.oda.mongodb.internal.impl;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.logging.Level;
 
 import org.eclipse.birt.data.oda.mongodb.impl.MDbResultSet;
@@ -135,13 +137,26 @@ public class MDbOperation
         if( m_queryObj == null || m_queryCollection == null )
             throw new OdaException( Messages.mDbOp_invalidQueryExpr );
 
+        // the pushed down filters, sort keys and aggregations are validated with
+        // the result set metadata, which is obtained without them
+        ResultSetSpecHandler specHandler = getModel().getResultSetSpecHandler();
+        specHandler.prepare( getResultSetMetaData() );
+        // the documents are skipped before they are filtered and sorted
+        if( specHandler.hasGroupAggregation() || 
+                ( specHandler.hasPushDown() && getModel().getQueryProperties().getNumDocsToSkip() > 0 ) )
+            return executePipeline( specHandler );
+
         try
         {
-            DBCursor rowsCursor = m_queryCollection.find( m_queryObj, m_fieldsObj );
+            DBCursor rowsCursor = m_queryCollection.find( 
+                    specHandler.getEffectiveQueryObject( m_queryObj ), m_fieldsObj );
 
             // no search limit applies here; 
             // defer to MDbResultSet to set DBCursor#limit based on its maxRows
-            applyPropertiesToCursor( rowsCursor, getModel().getQueryProperties(), false, true );
+            applyPropertiesToCursor( rowsCursor, getModel().getQueryProperties(), false, 
+                    ! specHandler.hasSort() );
+            if( specHandler.hasSort() )
+                rowsCursor.sort( getEffectiveSortObject( specHandler, getModel().getQueryProperties() ) );
 
             return new MDbResultSet( rowsCursor, getResultSetMetaData(), getModel().getQueryProperties() );
         }
@@ -152,6 +167,90 @@ public class MDbOperation
         }        
     }
 
+    /*
+     * Executes the find query as an aggregation pipeline, followed by
+     * the pushed down operations.
+     */
+    private MDbResultSet executePipeline( ResultSetSpecHandler specHandler )
+        throws OdaException
+    {
+        QueryProperties queryProps = getModel().getQueryProperties();
+        List<DBObject> pipeline = createFindPipeline( m_queryObj, m_fieldsObj, queryProps, specHandler );
+
+        try
+        {
+            Iterable<DBObject> results = runPipeline( m_queryCollection, pipeline );
+            return new MDbResultSet( results.iterator(), getResultSetMetaData(), queryProps );
+        }
+        catch( RuntimeException ex )
+        {
+            OdaException odaEx = new OdaException( Messages.mDbOp_aggrCmdFailed );
+            odaEx.initCause( ex );
+            throw odaEx;
+        }
+    }
+
+    /*
+     * Returns the aggregation pipeline of a find query, followed by the pushed down
+     * operations of the specified handler, which must be prepared.
+     */
+    static List<DBObject> createFindPipeline( DBObject queryObj, DBObject fieldsObj,
+            QueryProperties queryProps, ResultSetSpecHandler specHandler )
+    {
+        List<DBObject> pipeline = new ArrayList<DBObject>(6);
+        if( queryObj != null && ! queryObj.keySet().isEmpty() )
+            pipeline.add( new BasicDBObject( ResultSetSpecHandler.MATCH_AGGR_KEY, queryObj ) );
+        if( queryProps.getNumDocsToSkip() > 0 )
+        {
+            // the documents are skipped in the order of the user-defined sort expression
+            DBObject sortExprObj = getSortExprObject( queryProps );
+            if( sortExprObj != null )
+                pipeline.add( new BasicDBObject( ResultSetSpecHandler.SORT_AGGR_KEY, sortExprObj ) );
+            pipeline.add( new BasicDBObject( ResultSetSpecHandler.SKIP_AGGR_KEY, queryProps.getNumDocsToSkip() ) );
+        }
+        // the grouped documents have only the group keys and aggregated columns
+        if( ! specHandler.hasGroupAggregation() && fieldsObj != null && ! fieldsObj.keySet().isEmpty() )
+            pipeline.add( new BasicDBObject( ResultSetSpecHandler.PROJECT_AGGR_KEY, fieldsObj ) );
+        specHandler.appendPipelineOperations( pipeline );
+        return pipeline;
+    }
+
+    /*
+     * Returns the pushed down sort keys, followed by those of the user-defined
+     * sort expression, which order the rows of the same pushed down sort key values.
+     */
+    private static DBObject getEffectiveSortObject( ResultSetSpecHandler specHandler, 
+            QueryProperties queryProps )
+    {
+        BasicDBObject sortObj = new BasicDBObject( specHandler.getSortObject().toMap() );
+        DBObject sortExprObj = getSortExprObject( queryProps );
+        if( sortExprObj != null )
+        {
+            for( String sortKey : sortExprObj.keySet() )
+            {
+                if( ! sortObj.containsField( sortKey ) )
+                    sortObj.append( sortKey, sortExprObj.get( sortKey ) );
+            }
+        }
+        return sortObj;
+    }
+
+    private static DBObject getSortExprObject( QueryProperties queryProps )
+    {
+        try
+        {
+            return queryProps.getSortExprAsParsedObject();
+        }
+        catch( OdaException ex )
+        {
+            // log warning and ignore
+            DriverUtil.getLogger().log( Level.WARNING, 
+                    Messages.bind( "Unable to parse the user-defined Sort Expression: {0}", queryProps.getSortExpr() ),  //$NON-NLS-1$
+                    ex );
+        }
+        return null;
+    }
+
     /* 
      * Applies data set query properties and hints on DBCursor.
      */
@@ -178,19 +277,7 @@ public class MDbOperation
     {
         if( includeSortExpr )   // normally done only when executing a query to get full result set
         {
-            DBObject sortExprObj = null;
-            try
-            {
-                sortExprObj = queryProps.getSortExprAsParsedObject();
-            }
-            catch( OdaException ex )
-            {
-                // log warning and ignore
-                DriverUtil.getLogger().log( Level.WARNING, 
-                        Messages.bind( "Unable to parse the user-defined Sort Expression: {0}", queryProps.getSortExpr() ),  //$NON-NLS-1$
-                        ex );
-            }
-
+            DBObject sortExprObj = getSortExprObject( queryProps );
             if( sortExprObj != null )
                 rowsCursor.sort( sortExprObj );
         }
@@ -233,6 +320,7 @@ public class MDbOperation
     {
         private Iterable<DBObject> m_cmdResultObjs;
         private boolean m_hasOutputCollection;
+        private boolean m_hasSearchLimitedResults;
 
         private CommandOperation( QueryModel queryModel )
         {
@@ -243,6 +331,7 @@ public class MDbOperation
         {
             m_cmdResultObjs = null;
             m_hasOutputCollection = false;
+            m_hasSearchLimitedResults = false;
             super.resetPreparedState();
         }
 
@@ -256,8 +345,27 @@ public class MDbOperation
 
             // call the specified command
             Iterable<DBObject> cmdResults = null;
+            ResultSetSpecHandler specHandler = getModel().getResultSetSpecHandler();
             if( queryProps.hasAggregateCommand() )
-                cmdResults = callAggregateCmd( dbCollection, queryProps );
+            {
+                // the pipeline is run again with the pushed down operations when executed;
+                // only the documents to get the result set metadata are needed here
+                List<DBObject> metaDataOps = null;
+                int searchLimit = getModel().getEffectiveMDSearchLimit( queryProps );
+                if( specHandler.hasPushDown() && searchLimit > 0 )
+                {
+                    metaDataOps = new ArrayList<DBObject>(1);
+                    metaDataOps.add( new BasicDBObject( ResultSetSpecHandler.LIMIT_AGGR_KEY, searchLimit ) );
+                    m_hasSearchLimitedResults = true;
+                }
+                cmdResults = callAggregateCmd( dbCollection, queryProps, metaDataOps );
+            }
+            else if( specHandler.hasPushDown() && ! queryProps.hasMapReduceCommand() )
+            {
+                // the result of a database command is not pushed down
+                throw new OdaException( Messages.bind( Messages.resultSetSpecHandler_nonSupportedSpec, 
+                        queryProps.getOperationExpression() ));
+            }
             else if( queryProps.hasRunCommand() )
                 cmdResults = callDBCommand( getModel().getConnectedDB(), queryProps );
             else if( queryProps.hasMapReduceCommand() )
@@ -272,6 +380,12 @@ public class MDbOperation
                     return;
                 }
                 
+                if( specHandler.hasPushDown() )
+                {
+                    // the inline results of a MapReduce command are not pushed down
+                    throw new OdaException( Messages.bind( Messages.resultSetSpecHandler_nonSupportedSpec, 
+                            queryProps.getOperationExpression() ));
+                }
                 cmdResults = mapReduceOut.results();
             }
 
@@ -290,10 +404,35 @@ public class MDbOperation
         protected MDbResultSet execute() throws OdaException
         {
             if( m_cmdResultObjs != null )
+            {
+                QueryProperties queryProps = getModel().getQueryProperties();
+                ResultSetSpecHandler specHandler = getModel().getResultSetSpecHandler();
+                if( queryProps.hasAggregateCommand() && 
+                        ( specHandler.hasPushDown() || m_hasSearchLimitedResults ) )
+                    return executeAggregateCmd( specHandler, queryProps );
                 return getCommandResults();
+            }
         
             return super.execute();     // default operation type
         }
+
+        /*
+         * Runs the aggregate command with the pushed down operations
+         * appended to its pipeline.
+         */
+        private MDbResultSet executeAggregateCmd( ResultSetSpecHandler specHandler, 
+                QueryProperties queryProps ) throws OdaException
+        {
+            specHandler.prepare( getResultSetMetaData() );
+            List<DBObject> pushDownOps = new ArrayList<DBObject>(4);
+            specHandler.appendPipelineOperations( pushDownOps );
+
+            Iterable<DBObject> cmdResults = callAggregateCmd( getModel().getCollection(), 
+                    queryProps, pushDownOps );
+            if( cmdResults == null )
+                throw new OdaException( Messages.mDbOp_noCmdResults );
+            return new MDbResultSet( cmdResults.iterator(), getResultSetMetaData(), queryProps );
+        }
         
         private MDbResultSet getCommandResults() throws OdaException
         { 
@@ -326,6 +465,16 @@ public class MDbOperation
 
     static Iterable<DBObject> callAggregateCmd( DBCollection dbCollection,
             QueryProperties queryProps ) throws OdaException
+    {
+        return callAggregateCmd( dbCollection, queryProps, null );
+    }
+
+    /*
+     * Calls the aggregate command, with the specified pipeline operations, if any,
+     * appended to the user-specified operation pipeline.
+     */
+    static Iterable<DBObject> callAggregateCmd( DBCollection dbCollection,
+            QueryProperties queryProps, List<DBObject> appendedOps ) throws OdaException
     {
         if( ! queryProps.hasAggregateCommand() )
             return null;
@@ -339,6 +488,18 @@ public class MDbOperation
             return null;     // no valid DBObject operation
 
         DBObject[] addlOps = QueryProperties.getSecondaryObjectSets( operationExprObj );
+        if( appendedOps != null && ! appendedOps.isEmpty() )
+        {
+            List<DBObject> ops = new ArrayList<DBObject>( appendedOps.size() + 
+                    ( addlOps != null ? addlOps.length : 0 ) );
+            if( addlOps != null )
+            {
+                for( DBObject op : addlOps )
+                    ops.add( op );
+            }
+            ops.addAll( appendedOps );
+            addlOps = ops.toArray( new DBObject[ops.size()] );
+        }
 
         // aggregation $limit and $skip operators applies to the number 
         // of documents in the *input* pipeline, and thus cannot be used to apply
@@ -364,6 +525,21 @@ public class MDbOperation
         }        
     }
 
+    /*
+     * Runs the specified operation pipeline on the specified collection.
+     */
+    private static Iterable<DBObject> runPipeline( DBCollection dbCollection, List<DBObject> pipeline )
+    {
+        if( pipeline.isEmpty() )    // an empty pipeline returns all the documents
+            pipeline.add( new BasicDBObject( ResultSetSpecHandler.MATCH_AGGR_KEY, new BasicDBObject() ) );
+
+        DBObject firstOp = pipeline.get( 0 );
+        DBObject[] addlOps = pipeline.subList( 1, pipeline.size() ).toArray( new DBObject[pipeline.size()-1] );
+        AggregationOutput output = dbCollection.aggregate( firstOp, addlOps );
+        output.getCommandResult().throwOnError();
+        return output.results();
+    }
+
     static MapReduceOutput callMapReduceCmd( DBCollection dbCollection,
             QueryProperties queryProps ) throws OdaException
     {
@@ -23,6 +23,7 @@ import org.eclipse.birt.data.oda.mongodb.impl.MDbResultSetMetaData;
 import org.eclipse.birt.data.oda.mongodb.internal.impl.QueryProperties.CommandOperationType;
 import org.eclipse.birt.data.oda.mongodb.nls.Messages;
 import org.eclipse.datatools.connectivity.oda.OdaException;
+import org.eclipse.datatools.connectivity.oda.SortSpec;
 import org.eclipse.datatools.connectivity.oda.spec.QuerySpecification;
 
 import com.mongodb.BasicDBList;
@@ -64,6 +65,9 @@ public class QueryModel
     private Integer m_metaDataSearchLimit;
 
     private MDbOperation m_operation;
+    private QuerySpecification m_querySpec;
+    private SortSpec m_sortSpec;
+    private ResultSetSpecHandler m_resultSetSpecHandler;
     
     public QueryModel( QueryProperties queryProps, DB connectedDB ) throws OdaException
     {
@@ -81,6 +85,27 @@ public class QueryModel
                
         // add/override with properties in query spec
         m_queryProps.setNonNullValues( querySpec.getProperties() );        
+
+        // the result set specification is pushed down when the query is executed
+        m_querySpec = querySpec;
+        m_resultSetSpecHandler = null;
+    }
+
+    public void setSortSpec( SortSpec sortSpec )
+    {
+        m_sortSpec = sortSpec;
+        m_resultSetSpecHandler = null;
+    }
+
+    /*
+     * Returns the handler of the filters, sort keys and aggregations
+     * to push down to the MongoDB server.
+     */
+    ResultSetSpecHandler getResultSetSpecHandler()
+    {
+        if( m_resultSetSpecHandler == null )
+            m_resultSetSpecHandler = new ResultSetSpecHandler( m_querySpec, m_sortSpec );
+        return m_resultSetSpecHandler;
     }
 
     private void initialize() throws OdaException
@@ -0,0 +1,548 @@
+/*
+ *************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation - initial API and implementation
+ *
+ *************************************************************************
+ */
+
+package org.eclipse.birt.data.oda.mongodb.internal.impl;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.eclipse.birt.data.oda.mongodb.impl.MDbResultSetMetaData;
+import org.eclipse.birt.data.oda.mongodb.internal.impl.MDbMetaData.FieldMetaData;
+import org.eclipse.birt.data.oda.mongodb.nls.Messages;
+import org.eclipse.datatools.connectivity.oda.OdaException;
+import org.eclipse.datatools.connectivity.oda.SortSpec;
+import org.eclipse.datatools.connectivity.oda.spec.QuerySpecification;
+import org.eclipse.datatools.connectivity.oda.spec.ValueExpression;
+import org.eclipse.datatools.connectivity.oda.spec.result.AggregateExpression;
+import org.eclipse.datatools.connectivity.oda.spec.result.ColumnIdentifier;
+import org.eclipse.datatools.connectivity.oda.spec.result.FilterExpression;
+import org.eclipse.datatools.connectivity.oda.spec.result.ResultProjection;
+import org.eclipse.datatools.connectivity.oda.spec.result.ResultSetSpecification;
+import org.eclipse.datatools.connectivity.oda.spec.result.SortSpecification;
+import org.eclipse.datatools.connectivity.oda.spec.result.filter.AndExpression;
+import org.eclipse.datatools.connectivity.oda.spec.result.filter.CustomExpression;
+import org.eclipse.datatools.connectivity.oda.spec.result.filter.ExpressionArguments;
+import org.eclipse.datatools.connectivity.oda.spec.result.filter.NotExpression;
+import org.eclipse.datatools.connectivity.oda.spec.result.filter.OrExpression;
+import org.eclipse.datatools.connectivity.oda.spec.valueexpr.AtomicValueExpression;
+
+import com.mongodb.BasicDBList;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+
+/**
+ * Translates the result set specification of a query spec, and the sort spec
+ * set on a query, into MongoDB operations, so that the filters, sorts and group
+ * aggregations defined by an ODA consumer on a data set are done by the
+ * MongoDB server.
+ * <br>
+ * The filter is translated into a query document for the $match pipeline operator
+ * or the find query, the sort keys into a sort document for the $sort pipeline operator
+ * or the cursor sort, and the aggregated columns into a $group pipeline operation,
+ * which groups the documents by the other projected columns.
+ * Only the fields with scalar values, that are not nested in an array, can be used,
+ * since a MongoDB query matches any element of an array.
+ */
+class ResultSetSpecHandler
+{
+    // the filter expressions supported in a query spec
+    static final String FILTER_EQUAL = "Equal"; //$NON-NLS-1$
+    static final String FILTER_NOT_EQUAL = "NotEqual"; //$NON-NLS-1$
+    static final String FILTER_LESS_THAN = "LessThan"; //$NON-NLS-1$
+    static final String FILTER_LESS_THAN_OR_EQUAL = "LessThanOrEqual"; //$NON-NLS-1$
+    static final String FILTER_GREATER_THAN = "GreaterThan"; //$NON-NLS-1$
+    static final String FILTER_GREATER_THAN_OR_EQUAL = "GreaterThanOrEqual"; //$NON-NLS-1$
+    static final String FILTER_IS_NULL = "IsNull"; //$NON-NLS-1$
+    static final String FILTER_IS_NOT_NULL = "IsNotNull"; //$NON-NLS-1$
+    static final String FILTER_BETWEEN = "Between"; //$NON-NLS-1$
+    static final String FILTER_NOT_BETWEEN = "NotBetween"; //$NON-NLS-1$
+    static final String FILTER_IN = "In"; //$NON-NLS-1$
+    static final String FILTER_NOT_IN = "NotIn"; //$NON-NLS-1$
+    static final String FILTER_LIKE = "Like"; //$NON-NLS-1$
+    static final String FILTER_MATCH = "Match"; //$NON-NLS-1$
+    static final String FILTER_IS_TRUE = "IsTrue"; //$NON-NLS-1$
+    static final String FILTER_IS_FALSE = "IsFalse"; //$NON-NLS-1$
+
+    // the aggregations supported in a query spec
+    static final String AGGR_COUNT = "COUNT"; //$NON-NLS-1$
+    static final String AGGR_SUM = "SUM"; //$NON-NLS-1$
+    static final String AGGR_AVE = "AVE"; //$NON-NLS-1$
+    static final String AGGR_AVG = "AVG"; //$NON-NLS-1$
+    static final String AGGR_MIN = "MIN"; //$NON-NLS-1$
+    static final String AGGR_MAX = "MAX"; //$NON-NLS-1$
+    static final String AGGR_FIRST = "FIRST"; //$NON-NLS-1$
+    static final String AGGR_LAST = "LAST"; //$NON-NLS-1$
+
+    static final String MATCH_AGGR_KEY = "$match"; //$NON-NLS-1$
+    static final String SORT_AGGR_KEY = "$sort"; //$NON-NLS-1$
+    static final String GROUP_AGGR_KEY = "$group"; //$NON-NLS-1$
+    static final String PROJECT_AGGR_KEY = "$project"; //$NON-NLS-1$
+    static final String SKIP_AGGR_KEY = "$skip"; //$NON-NLS-1$
+    static final String LIMIT_AGGR_KEY = "$limit"; //$NON-NLS-1$
+
+    private static final String FIELD_PATH_PREFIX = "$"; //$NON-NLS-1$
+    private static final String FIELD_FULL_NAME_SEPARATOR = "."; //$NON-NLS-1$
+
+    private FilterExpression m_filter;
+    private List<String> m_sortColumns = new ArrayList<String>(2);
+    private List<Boolean> m_sortDescending = new ArrayList<Boolean>(2);
+    private Map<ColumnIdentifier,AggregateExpression> m_aggregatedColumns;
+    private Set<String> m_hiddenColumns = new LinkedHashSet<String>(2);
+
+    // translated operations, with the validated fields
+    private DBObject m_matchObj;
+    private DBObject m_sortObj;
+    private DBObject m_groupObj;
+    private DBObject m_groupProjectObj;
+
+    /**
+     * Creates a handler of the result set specification of the specified query spec,
+     * and of the specified sort spec.
+     * @param querySpec     a query spec, may be null
+     * @param sortSpec      a sort spec, may be null; its sort keys are applied
+     *                      after those of the query spec
+     */
+    ResultSetSpecHandler( QuerySpecification querySpec, SortSpec sortSpec )
+    {
+        ResultSetSpecification resultSetSpec = querySpec != null ?
+                querySpec.getResultSetSpecification() : null;
+        if( resultSetSpec != null )
+        {
+            m_filter = resultSetSpec.getFilterSpecification();
+            addSortKeys( resultSetSpec.getSortSpecification() );
+            addProjection( resultSetSpec.getResultProjection() );
+        }
+        addSortKeys( sortSpec );
+    }
+
+    private void addSortKeys( SortSpecification sortSpec )
+    {
+        if( sortSpec == null )
+            return;
+        for( int i=1; i <= sortSpec.getSortKeyCount(); i++ )     // 1-based sequence order
+        {
+            ValueExpression sortKey = sortSpec.getSortKeyExpression( i );
+            m_sortColumns.add( sortKey != null ? sortKey.getName() : null );
+            m_sortDescending.add( Boolean.valueOf(
+                    sortSpec.getSortOrder( i ) == SortSpecification.SortOrder.DESCENDING ) );
+        }
+    }
+
+    private void addSortKeys( SortSpec sortSpec )
+    {
+        if( sortSpec == null )
+            return;
+        for( int i=1; i <= sortSpec.getSortKeyCount(); i++ )     // 1-based index
+        {
+            m_sortColumns.add( sortSpec.getSortColumn( i ) );
+            m_sortDescending.add( Boolean.valueOf(
+                    sortSpec.getSortOrder( i ) == SortSpec.sortDescending ) );
+        }
+    }
+
+    private void addProjection( ResultProjection projection )
+    {
+        if( projection == null )
+            return;
+        Map<ColumnIdentifier,AggregateExpression> aggrColumns = projection.getAggregatedColumns();
+        if( aggrColumns != null && ! aggrColumns.isEmpty() )
+            m_aggregatedColumns = aggrColumns;
+        if( projection.getHiddenResultColumns() != null )
+        {
+            for( ColumnIdentifier hiddenColumn : projection.getHiddenResultColumns() )
+                m_hiddenColumns.add( hiddenColumn.getName() );
+        }
+    }
+
+    /**
+     * Indicates whether there is any filter, sort or aggregation to push down
+     * to the MongoDB server.
+     */
+    boolean hasPushDown()
+    {
+        return hasFilter() || hasSort() || hasGroupAggregation();
+    }
+
+    boolean hasFilter()
+    {
+        return m_filter != null;
+    }
+
+    boolean hasSort()
+    {
+        return ! m_sortColumns.isEmpty();
+    }
+
+    boolean hasGroupAggregation()
+    {
+        return m_aggregatedColumns != null;
+    }
+
+    /**
+     * Translates the filter, sort keys and aggregations into MongoDB operations,
+     * using the specified metadata to validate the referenced fields.
+     * @param rsmd  the metadata of the result set, without the push down
+     * @throws OdaException if a filter, sort key or aggregation cannot be translated
+     */
+    void prepare( MDbResultSetMetaData rsmd ) throws OdaException
+    {
+        m_matchObj = null;
+        m_sortObj = null;
+        m_groupObj = null;
+        m_groupProjectObj = null;
+
+        if( hasFilter() )
+            m_matchObj = translateFilter( m_filter, rsmd );
+        if( hasGroupAggregation() )
+            translateGroupAggregation( rsmd );
+        if( hasSort() )
+            m_sortObj = translateSortKeys( rsmd );
+    }
+
+    /**
+     * Returns the query document of the filter, or null if there is no filter.
+     */
+    DBObject getMatchObject()
+    {
+        return m_matchObj;
+    }
+
+    /**
+     * Returns the sort document of the sort keys, or null if there is no sort key.
+     */
+    DBObject getSortObject()
+    {
+        return m_sortObj;
+    }
+
+    /**
+     * Returns the query document of the find query combined with the filter.
+     */
+    DBObject getEffectiveQueryObject( DBObject queryObj )
+    {
+        if( m_matchObj == null )
+            return queryObj;
+        if( queryObj == null || queryObj.keySet().isEmpty() )
+            return m_matchObj;
+
+        BasicDBList conditions = new BasicDBList();
+        conditions.add( queryObj );
+        conditions.add( m_matchObj );
+        return new BasicDBObject( "$and", conditions ); //$NON-NLS-1$
+    }
+
+    /**
+     * Appends the pipeline operations of the filter, group aggregation and sort keys,
+     * in that order, to the specified pipeline.
+     */
+    void appendPipelineOperations( List<DBObject> pipeline )
+    {
+        if( m_matchObj != null )
+            pipeline.add( new BasicDBObject( MATCH_AGGR_KEY, m_matchObj ) );
+        if( m_groupObj != null )
+        {
+            pipeline.add( new BasicDBObject( GROUP_AGGR_KEY, m_groupObj ) );
+            pipeline.add( new BasicDBObject( PROJECT_AGGR_KEY, m_groupProjectObj ) );
+        }
+        if( m_sortObj != null )
+            pipeline.add( new BasicDBObject( SORT_AGGR_KEY, m_sortObj ) );
+    }
+
+    /*
+     * Translates a filter expression into a MongoDB query document.
+     */
+    private DBObject translateFilter( FilterExpression filter, MDbResultSetMetaData rsmd )
+        throws OdaException
+    {
+        if( filter instanceof AndExpression || filter instanceof OrExpression )
+        {
+            FilterExpression[] children = filter instanceof AndExpression ?
+                    ((AndExpression)filter).getChildren() :
+                    ((OrExpression)filter).getChildren();
+            BasicDBList conditions = new BasicDBList();
+            for( FilterExpression child : children )
+                conditions.add( translateFilter( child, rsmd ) );
+            if( conditions.size() == 1 )
+                return (DBObject)conditions.get( 0 );
+            return new BasicDBObject( filter instanceof AndExpression ? "$and" : "$or",  //$NON-NLS-1$ //$NON-NLS-2$
+                    conditions );
+        }
+
+        if( filter instanceof NotExpression )
+        {
+            BasicDBList conditions = new BasicDBList();
+            conditions.add( translateFilter( ((NotExpression)filter).getNegatingExpression(), rsmd ) );
+            return new BasicDBObject( "$nor", conditions ); //$NON-NLS-1$
+        }
+
+        if( filter instanceof CustomExpression )
+            return translateCustomFilter( (CustomExpression)filter, rsmd );
+
+        throw newUnsupportedException( filter );
+    }
+
+    private DBObject translateCustomFilter( CustomExpression filter, MDbResultSetMetaData rsmd )
+        throws OdaException
+    {
+        String filterId = filter.getId();
+        ValueExpression variable = filter.getContextVariable() != null ?
+                filter.getContextVariable().getValueExpression() : null;
+        if( filterId == null || !(variable instanceof ColumnIdentifier) )
+            throw newUnsupportedException( filter );
+        String fieldName = validateField( variable.getName(), rsmd );
+        List<Object> args = getArgumentValues( filter.getContextArguments(), filter );
+
+        if( FILTER_IS_NULL.equalsIgnoreCase( filterId ) )
+            return new BasicDBObject( fieldName, null );
+        if( FILTER_IS_NOT_NULL.equalsIgnoreCase( filterId ) )
+            return newCondition( fieldName, "$ne", null ); //$NON-NLS-1$
+        if( FILTER_IS_TRUE.equalsIgnoreCase( filterId ) )
+            return new BasicDBObject( fieldName, Boolean.TRUE );
+        if( FILTER_IS_FALSE.equalsIgnoreCase( filterId ) )
+            return new BasicDBObject( fieldName, Boolean.FALSE );
+
+        if( FILTER_IN.equalsIgnoreCase( filterId ) || FILTER_NOT_IN.equalsIgnoreCase( filterId ) )
+        {
+            BasicDBList values = new BasicDBList();
+            values.addAll( args );
+            return newCondition( fieldName,
+                    FILTER_IN.equalsIgnoreCase( filterId ) ? "$in" : "$nin", values ); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+
+        if( FILTER_BETWEEN.equalsIgnoreCase( filterId ) || FILTER_NOT_BETWEEN.equalsIgnoreCase( filterId ) )
+        {
+            if( args.size() != 2 )
+                throw newUnsupportedException( filter );
+            BasicDBObject range = new BasicDBObject( "$gte", args.get( 0 ) ) //$NON-NLS-1$
+                    .append( "$lte", args.get( 1 ) ); //$NON-NLS-1$
+            if( FILTER_BETWEEN.equalsIgnoreCase( filterId ) )
+                return new BasicDBObject( fieldName, range );
+            // a null value is not between the values, nor outside of them
+            BasicDBList conditions = new BasicDBList();
+            conditions.add( newCondition( fieldName, "$lt", args.get( 0 ) ) ); //$NON-NLS-1$
+            conditions.add( newCondition( fieldName, "$gt", args.get( 1 ) ) ); //$NON-NLS-1$
+            return new BasicDBObject( "$or", conditions ); //$NON-NLS-1$
+        }
+
+        if( args.size() != 1 )
+            throw newUnsupportedException( filter );
+        Object value = args.get( 0 );
+
+        if( FILTER_EQUAL.equalsIgnoreCase( filterId ) )
+            return new BasicDBObject( fieldName, value );
+        if( FILTER_NOT_EQUAL.equalsIgnoreCase( filterId ) )
+        {
+            // a null value is not compared, as in the ODA consumer
+            BasicDBList values = new BasicDBList();
+            values.add( value );
+            values.add( null );
+            return newCondition( fieldName, "$nin", values ); //$NON-NLS-1$
+        }
+        if( FILTER_LESS_THAN.equalsIgnoreCase( filterId ) )
+            return newCondition( fieldName, "$lt", value ); //$NON-NLS-1$
+        if( FILTER_LESS_THAN_OR_EQUAL.equalsIgnoreCase( filterId ) )
+            return newCondition( fieldName, "$lte", value ); //$NON-NLS-1$
+        if( FILTER_GREATER_THAN.equalsIgnoreCase( filterId ) )
+            return newCondition( fieldName, "$gt", value ); //$NON-NLS-1$
+        if( FILTER_GREATER_THAN_OR_EQUAL.equalsIgnoreCase( filterId ) )
+            return newCondition( fieldName, "$gte", value ); //$NON-NLS-1$
+        if( FILTER_LIKE.equalsIgnoreCase( filterId ) && value instanceof String )
+            return new BasicDBObject( fieldName, toLikePattern( (String)value ) );
+        if( FILTER_MATCH.equalsIgnoreCase( filterId ) && value instanceof String )
+            return new BasicDBObject( fieldName, Pattern.compile( (String)value ) );
+
+        throw newUnsupportedException( filter );
+    }
+
+    private static List<Object> getArgumentValues( ExpressionArguments arguments,
+            FilterExpression filter ) throws OdaException
+    {
+        List<Object> values = new ArrayList<Object>(2);
+        if( arguments == null )
+            return values;
+        for( ValueExpression argument : arguments.getValueExpressions() )
+        {
+            // only constant values are pushed down
+            if( !(argument instanceof AtomicValueExpression) )
+                throw newUnsupportedException( filter );
+            values.add( ((AtomicValueExpression)argument).getValue() );
+        }
+        return values;
+    }
+
+    private static DBObject newCondition( String fieldName, String operator, Object value )
+    {
+        return new BasicDBObject( fieldName, new BasicDBObject( operator, value ) );
+    }
+
+    /*
+     * Converts a SQL like pattern, where % matches any characters and _ a single character,
+     * to a regular expression.
+     */
+    static Pattern toLikePattern( String likePattern )
+    {
+        StringBuilder regex = new StringBuilder( likePattern.length() + 8 );
+        regex.append( '^' );
+        int literalStart = 0;
+        for( int i=0; i < likePattern.length(); i++ )
+        {
+            char c = likePattern.charAt( i );
+            if( c != '%' && c != '_' )
+                continue;
+            if( i > literalStart )
+                regex.append( Pattern.quote( likePattern.substring( literalStart, i ) ) );
+            regex.append( c == '%' ? ".*" : "." ); //$NON-NLS-1$ //$NON-NLS-2$
+            literalStart = i + 1;
+        }
+        if( literalStart < likePattern.length() )
+            regex.append( Pattern.quote( likePattern.substring( literalStart ) ) );
+        regex.append( '$' );
+        return Pattern.compile( regex.toString(), Pattern.DOTALL );
+    }
+
+    /*
+     * Translates the aggregated columns into a $group operation, grouped by the
+     * projected columns that are neither aggregated nor hidden, and a $project operation
+     * that moves the group keys out of the document id.
+     */
+    private void translateGroupAggregation( MDbResultSetMetaData rsmd ) throws OdaException
+    {
+        BasicDBObject groupKeys = new BasicDBObject();
+        BasicDBObject groupObj = new BasicDBObject();
+        BasicDBObject projectObj = new BasicDBObject( QueryModel.DOC_ID_FIELD_NAME, 0 );
+
+        Set<String> aggrColumnNames = new LinkedHashSet<String>();
+        for( Map.Entry<ColumnIdentifier,AggregateExpression> aggrColumn : m_aggregatedColumns.entrySet() )
+        {
+            String columnName = validateGroupField( aggrColumn.getKey().getName(), rsmd );
+            groupObj.append( columnName, translateAggregation( columnName, aggrColumn.getValue(), rsmd ) );
+            projectObj.append( columnName, 1 );
+            aggrColumnNames.add( columnName );
+        }
+
+        for( int i=1; i <= rsmd.getColumnCount(); i++ )
+        {
+            String columnName = rsmd.getColumnName( i );
+            if( aggrColumnNames.contains( columnName ) || m_hiddenColumns.contains( columnName ) )
+                continue;
+            validateGroupField( columnName, rsmd );
+            groupKeys.append( columnName, FIELD_PATH_PREFIX + columnName );
+            projectObj.append( columnName,
+                    FIELD_PATH_PREFIX + QueryModel.DOC_ID_FIELD_NAME + FIELD_FULL_NAME_SEPARATOR + columnName );
+        }
+
+        groupObj.put( QueryModel.DOC_ID_FIELD_NAME, groupKeys );
+        m_groupObj = groupObj;
+        m_groupProjectObj = projectObj;
+    }
+
+    private DBObject translateAggregation( String columnName, AggregateExpression aggrExpr,
+            MDbResultSetMetaData rsmd ) throws OdaException
+    {
+        // aggregates the input column, which defaults to the result column
+        String inputName = columnName;
+        for( ValueExpression input : aggrExpr.getInputValues() )
+        {
+            if( !(input instanceof ColumnIdentifier) )
+                throw newUnsupportedException( aggrExpr );
+            inputName = validateField( input.getName(), rsmd );
+            break;
+        }
+        String inputPath = FIELD_PATH_PREFIX + inputName;
+
+        String aggrId = aggrExpr.getId();
+        if( AGGR_COUNT.equalsIgnoreCase( aggrId ) )
+        {
+            // counts the non-null values
+            BasicDBList nullCheck = new BasicDBList();
+            BasicDBList ifNull = new BasicDBList();
+            ifNull.add( inputPath );
+            ifNull.add( null );
+            nullCheck.add( new BasicDBObject( "$ifNull", ifNull ) ); //$NON-NLS-1$
+            nullCheck.add( null );
+            BasicDBList cond = new BasicDBList();
+            cond.add( new BasicDBObject( "$eq", nullCheck ) ); //$NON-NLS-1$
+            cond.add( 0 );
+            cond.add( 1 );
+            return new BasicDBObject( "$sum", new BasicDBObject( "$cond", cond ) ); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        if( AGGR_SUM.equalsIgnoreCase( aggrId ) )
+            return new BasicDBObject( "$sum", inputPath ); //$NON-NLS-1$
+        if( AGGR_AVE.equalsIgnoreCase( aggrId ) || AGGR_AVG.equalsIgnoreCase( aggrId ) )
+            return new BasicDBObject( "$avg", inputPath ); //$NON-NLS-1$
+        if( AGGR_MIN.equalsIgnoreCase( aggrId ) )
+            return new BasicDBObject( "$min", inputPath ); //$NON-NLS-1$
+        if( AGGR_MAX.equalsIgnoreCase( aggrId ) )
+            return new BasicDBObject( "$max", inputPath ); //$NON-NLS-1$
+        if( AGGR_FIRST.equalsIgnoreCase( aggrId ) )
+            return new BasicDBObject( "$first", inputPath ); //$NON-NLS-1$
+        if( AGGR_LAST.equalsIgnoreCase( aggrId ) )
+            return new BasicDBObject( "$last", inputPath ); //$NON-NLS-1$
+
+        throw newUnsupportedException( aggrExpr );
+    }
+
+    private DBObject translateSortKeys( MDbResultSetMetaData rsmd ) throws OdaException
+    {
+        BasicDBObject sortObj = new BasicDBObject();
+        for( int i=0; i < m_sortColumns.size(); i++ )
+        {
+            String columnName = m_sortColumns.get( i );
+            if( hasGroupAggregation() )
+            {
+                // the grouped documents have only the group keys and aggregated columns
+                if( columnName == null || QueryModel.DOC_ID_FIELD_NAME.equals( columnName ) ||
+                        ! m_groupProjectObj.containsField( columnName ) )
+                    throw new OdaException( Messages.bind( Messages.resultSetSpecHandler_nonSupportedField, columnName ));
+            }
+            else
+                validateField( columnName, rsmd );
+            if( ! sortObj.containsField( columnName ) )
+                sortObj.append( columnName, m_sortDescending.get( i ).booleanValue() ? -1 : 1 );
+        }
+        return sortObj;
+    }
+
+    /*
+     * Validates that the specified field has scalar values, and is not nested in an array.
+     */
+    private static String validateField( String fieldName, MDbResultSetMetaData rsmd )
+        throws OdaException
+    {
+        FieldMetaData fieldMD = rsmd.getColumnMetaData( fieldName );
+        if( fieldMD == null || fieldMD.hasArrayDataType() ||
+                fieldMD.hasDocumentDataType() || fieldMD.isDescendantOfArrayField() )
+            throw new OdaException( Messages.bind( Messages.resultSetSpecHandler_nonSupportedField, fieldName ));
+        return fieldName;
+    }
+
+    private static String validateGroupField( String fieldName, MDbResultSetMetaData rsmd )
+        throws OdaException
+    {
+        // the field names of a grouped document cannot contain a dot
+        if( fieldName == null || fieldName.contains( FIELD_FULL_NAME_SEPARATOR ) )
+            throw new OdaException( Messages.bind( Messages.resultSetSpecHandler_nonSupportedField, fieldName ));
+        return validateField( fieldName, rsmd );
+    }
+
+    private static OdaException newUnsupportedException( Object specItem )
+    {
+        return new OdaException( Messages.bind( Messages.resultSetSpecHandler_nonSupportedSpec, specItem ));
+    }
+
+}
@@ -74,6 +74,9 @@ public class Messages extends NLS
 
     public static String resultDataHandler_invalidFieldName;
 
+    public static String resultSetSpecHandler_nonSupportedField;
+    public static String resultSetSpecHandler_nonSupportedSpec;
+
     
     static
     {
@@ -13,6 +13,7 @@ package org.eclipse.birt.data.oda.pojo.impl;
 
 import java.io.File;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -22,11 +23,13 @@ import org.eclipse.birt.data.oda.pojo.api.Constants;
 import org.eclipse.birt.data.oda.pojo.impl.ResultSet;
 import org.eclipse.birt.data.oda.pojo.input.pojos.Course;
 import org.eclipse.birt.data.oda.pojo.input.pojos.CustomTeacherDataSet;
+import org.eclipse.birt.data.oda.pojo.input.pojos.Dean;
 import org.eclipse.birt.data.oda.pojo.input.pojos.Student;
 import org.eclipse.birt.data.oda.pojo.input.pojos.Teacher;
 import org.eclipse.birt.data.oda.pojo.input.pojos.TeacherDataSet;
 import org.eclipse.birt.data.oda.pojo.input.pojos.TeacherStudent;
 import org.eclipse.birt.data.oda.pojo.input.pojos.TeacherStudentCourse;
+import org.eclipse.birt.data.oda.pojo.input.pojos.WithIdAndName;
 import org.eclipse.birt.data.oda.pojo.querymodel.ClassColumnMappings;
 import org.eclipse.birt.data.oda.pojo.querymodel.Column;
 import org.eclipse.birt.data.oda.pojo.querymodel.MethodSource;
@@ -405,6 +408,41 @@ public class ResultSetTest {
 		assertEquals( expectedRowCount, rowCount );
 	}
 
+	@SuppressWarnings({"unchecked", "nls"})
+	@Test
+    public void testPojosOfDifferentClasses( ) throws OdaException
+	{
+		PojoQuery query = new PojoQuery( null, null, "Pojos_Key" );
+		query.addColumnsMapping( new OneColumnMapping( new MethodSource( "getId", null ),
+				new Column( "Id", "Integer", 0 ) ) );
+		query.addColumnsMapping( new OneColumnMapping( new MethodSource( "getName", null ),
+				new Column( "Name", "String", 1 ) ) );
+		List pojos = new ArrayList( );
+		pojos.add( new Teacher( 1, "t1" ) );
+		pojos.add( new Teacher( 2, "t2" ) );
+		pojos.add( new Dean( 3, "d3" ) );
+		pojos.add( new Student( 4, "s4" ) );
+		pojos.add( new Teacher( 5, "t5" ) );
+		Map appContext = new HashMap( );
+		appContext.put( query.getAppContextKey( ), pojos );
+
+		Connection conn = new Connection();	
+		conn.open(null);
+		IQuery q = conn.newQuery(null);
+		q.setAppContext( appContext );
+		q.prepare( PojoQueryWriter.write( query ) );
+		ResultSet rs = (ResultSet)q.executeQuery( );
+
+		for ( Object pojo : pojos )
+		{
+			assertTrue( rs.next( ) );
+			assertEquals( ( (WithIdAndName) pojo ).getId( ), rs.getInt( 1 ) );
+			assertEquals( ( (WithIdAndName) pojo ).getName( ), rs.getString( 2 ) );
+		}
+		assertFalse( rs.next( ) );
+		rs.close( );
+	}
+
 	@SuppressWarnings("unchecked")
 	@Test
     public void testMaxRows( ) throws OdaException
@@ -10,6 +10,7 @@
  *******************************************************************************/
 package org.eclipse.birt.data.oda.pojo.impl.internal;
 
+import java.lang.reflect.AccessibleObject;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.util.HashMap;
@@ -20,6 +21,8 @@ import org.eclipse.datatools.connectivity.oda.OdaException;
 /**
  * A buffer used to save loaded Classes and Methods and Fields.
  * The buffer is created when Connection is opened and released when Connection is closed.
+ * The saved Methods and Fields skip the access check of each invocation where the
+ * security manager allows it.
  */
 public class ClassMethodFieldBuffer 
 {	
@@ -86,6 +89,7 @@ public class ClassMethodFieldBuffer
 		try
 		{
 			Method m = c.getMethod( mi.getName( ), mi.getParams( ) );
+			suppressAccessCheck( m );
 			Map<MethodIdentifier, Method> methods = classMethods.get( c );
 			if ( methods == null )
 			{
@@ -129,6 +133,7 @@ public class ClassMethodFieldBuffer
 		try
 		{
 			Field f = c.getField( fieldName );
+			suppressAccessCheck( f );
 			Map<String, Field> fields = classFields.get( c );
 			if ( fields == null )
 			{
@@ -147,4 +152,22 @@ public class ClassMethodFieldBuffer
 			throw new OdaException( e );
 		}
 	}
+	
+	/**
+	 * Only public members are looked up, so this just avoids the access check
+	 * which Method.invoke and Field.get do for every value.
+	 * 
+	 * @param member
+	 */
+	private static void suppressAccessCheck( AccessibleObject member )
+	{
+		try
+		{
+			member.setAccessible( true );
+		}
+		catch ( SecurityException e )
+		{
+			//the access is checked on each call then
+		}
+	}
 }
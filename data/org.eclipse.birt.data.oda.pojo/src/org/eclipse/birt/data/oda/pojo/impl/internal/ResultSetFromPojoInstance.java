@@ -31,6 +31,8 @@ public class ResultSetFromPojoInstance
 	private PojoQuery query;
 	private Object root;
 	private ClassLoader pojoClassLoader;
+	private ClassMethodFieldBuffer classMethodFieldBuffer;
+	private ColumnReferenceNode[] columnReferences;
 	
 	//values of the references from root object
 	private Map<ReferenceNode, Object> referenceValues = new HashMap<ReferenceNode, Object>( ); 
@@ -48,6 +50,8 @@ public class ResultSetFromPojoInstance
 		this.query = query;
 		this.nextCalled = false;
 		this.pojoClassLoader = pojoClassLoader;
+		this.classMethodFieldBuffer = query.getConnection( ).getClassMethodFieldBuffer( );
+		this.columnReferences = query.getReferenceGraph( ).getColumnReferences( );
 		fetchReferenceValues( ); //prepare the first row
 	}
 	
@@ -59,8 +63,7 @@ public class ResultSetFromPojoInstance
 	 */
 	public Object getColumnValue( int index ) throws OdaException
 	{
-		ReferenceNode rn = query.getReferenceGraph( ).getColumnReferenceNode( index );
-		return referenceValues.get( rn );
+		return referenceValues.get( columnReferences[index - 1] );
 	}
 	
 	/**
@@ -126,13 +129,13 @@ public class ResultSetFromPojoInstance
 	private void fetchColumnReferenceNodeValue( ColumnReferenceNode crn, Object from ) throws OdaException
 	{
 		IMappingSource ms = crn.getReference( );
-		referenceValues.put( crn, ms.fetchValue( from, pojoClassLoader, query.getConnection().getClassMethodFieldBuffer() ) );
+		referenceValues.put( crn, ms.fetchValue( from, pojoClassLoader, classMethodFieldBuffer ) );
 	}
 	
 	private Object fetchRelayReferenceNodeValue( RelayReferenceNode rrn, Object from ) throws OdaException
 	{
 		IMappingSource ms = rrn.getReference( );
-		Object value = ms.fetchValue( from, pojoClassLoader, query.getConnection().getClassMethodFieldBuffer() );
+		Object value = ms.fetchValue( from, pojoClassLoader, classMethodFieldBuffer );
 		if ( Nextable.isNextable( value ))
 		{
 			Nextable n = Nextable.createNextable( value );
@@ -28,6 +28,9 @@ public class FieldSource implements IMappingSource
 {
 	private String name; //the filed name
 	
+	//the field resolved for the class of the last fetched object
+	private ResolvedField resolved;
+	
 	/**
 	 * @param name: the field name
 	 * @throws NullPointerException if <code>name</code> is null
@@ -52,10 +55,17 @@ public class FieldSource implements IMappingSource
 		{
 			return null;
 		}
-		Field f = cmfbInstance.getField( from.getClass( ), getName( ) );
+		ResolvedField rf = resolved;
+		if ( rf == null || rf.c != from.getClass( ) )
+		{
+			//the rows of a data set are mostly of the same class
+			rf = new ResolvedField( from.getClass( ),
+					cmfbInstance.getField( from.getClass( ), getName( ) ) );
+			resolved = rf;
+		}
 		try
 		{
-			return f.get( from );
+			return rf.f.get( from );
 		}
 		catch ( IllegalArgumentException e )
 		{
@@ -118,4 +128,16 @@ public class FieldSource implements IMappingSource
 		//no parameter at all for FildSource
 	}
 	
+	private static class ResolvedField
+	{
+		private final Class<?> c;
+		private final Field f;
+		
+		ResolvedField( Class<?> c, Field f )
+		{
+			this.c = c;
+			this.f = f;
+		}
+	}
+	
 }
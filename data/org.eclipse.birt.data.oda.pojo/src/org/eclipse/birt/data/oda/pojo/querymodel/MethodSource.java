@@ -39,6 +39,9 @@ public class MethodSource implements IMappingSource
 	
 	private Object[] parameterValues; 
 	
+	//the method resolved for the class of the last fetched object
+	private ResolvedMethod resolved;
+	
 	/**
 	 * @param name: the method name
 	 */
@@ -80,11 +83,17 @@ public class MethodSource implements IMappingSource
 		{
 			mi = MethodIdentifier.newInstance( this, pojoClassLoader );
 		}
-		Method m = cmfbInstance.getMethod( from.getClass( ), mi );
+		ResolvedMethod rm = resolved;
+		if ( rm == null || rm.c != from.getClass( ) )
+		{
+			//the rows of a data set are mostly of the same class
+			rm = new ResolvedMethod( from.getClass( ),
+					cmfbInstance.getMethod( from.getClass( ), mi ) );
+			resolved = rm;
+		}
 		try
 		{
-			return m.getReturnType( ).equals( Void.TYPE ) ? 
-					null : m.invoke( from, parameterValues );
+			return rm.isVoid ? null : rm.m.invoke( from, parameterValues );
 		}
 		catch ( IllegalArgumentException e )
 		{
@@ -163,4 +172,18 @@ public class MethodSource implements IMappingSource
 		return true;
 	}
 	
+	private static class ResolvedMethod
+	{
+		private final Class<?> c;
+		private final Method m;
+		private final boolean isVoid;
+		
+		ResolvedMethod( Class<?> c, Method m )
+		{
+			this.c = c;
+			this.m = m;
+			this.isVoid = m.getReturnType( ).equals( Void.TYPE );
+		}
+	}
+	
 }
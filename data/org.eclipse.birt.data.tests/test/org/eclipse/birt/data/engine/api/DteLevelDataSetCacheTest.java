@@ -11,6 +11,7 @@
  *******************************************************************************/
 package org.eclipse.birt.data.engine.api;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -19,11 +20,16 @@ import org.eclipse.birt.core.exception.BirtException;
 import org.eclipse.birt.core.framework.PlatformConfig;
 import org.eclipse.birt.data.engine.api.querydefn.Binding;
 import org.eclipse.birt.data.engine.api.querydefn.ColumnDefinition;
+import org.eclipse.birt.data.engine.api.querydefn.InputParameterBinding;
+import org.eclipse.birt.data.engine.api.querydefn.JointDataSetDesign;
+import org.eclipse.birt.data.engine.api.querydefn.OdaDataSetDesign;
+import org.eclipse.birt.data.engine.api.querydefn.OdaDataSourceDesign;
 import org.eclipse.birt.data.engine.api.querydefn.QueryDefinition;
 import org.eclipse.birt.data.engine.api.querydefn.ScriptDataSetDesign;
 import org.eclipse.birt.data.engine.api.querydefn.ScriptDataSourceDesign;
 import org.eclipse.birt.data.engine.api.querydefn.ScriptExpression;
 import org.eclipse.birt.data.engine.impl.DataEngineImpl;
+import org.eclipse.birt.data.engine.impl.IEngineExecutionHints;
 
 import testutil.BaseTestCase;
 
@@ -178,4 +184,71 @@ public class DteLevelDataSetCacheTest extends BaseTestCase
 		}
 		dataEngine.shutdown();
 	}
+	
+	@Test
+    public void testJointDataSetChildSharedWithQuery() throws BirtException
+	{
+		DataEngine dataEngine = newOdaDataEngine( );
+		dataEngine.defineDataSet( new JointDataSetDesign( "joint",
+				"left",
+				"right",
+				IJointDataSetDesign.INNER_JOIN,
+				new ArrayList( ) ) );
+
+		QueryDefinition qd = new QueryDefinition( );
+		qd.setDataSetName( "left" );
+		QueryDefinition qd1 = new QueryDefinition( );
+		qd1.setDataSetName( "joint" );
+		dataEngine.registerQueries( new IDataQueryDefinition[]{
+				qd, qd1
+		} );
+
+		IEngineExecutionHints hints = ( (DataEngineImpl) dataEngine ).getExecutionHints( );
+		assertTrue( hints.needCacheDataSet( "left" ) );
+		assertFalse( hints.needCacheDataSet( "right" ) );
+		assertFalse( hints.needCacheDataSet( "joint" ) );
+		dataEngine.shutdown( );
+	}
+	
+	@Test
+    public void testNestedQueryBoundToRowsNotShared() throws BirtException
+	{
+		DataEngine dataEngine = newOdaDataEngine( );
+
+		QueryDefinition qd = new QueryDefinition( );
+		qd.setDataSetName( "left" );
+		QueryDefinition nested = new QueryDefinition( qd );
+		nested.setDataSetName( "left" );
+		nested.addInputParamBinding( new InputParameterBinding( "p1",
+				new ScriptExpression( "row[\"column1\"]" ) ) );
+		dataEngine.registerQueries( new IDataQueryDefinition[]{
+				qd, nested
+		} );
+		IEngineExecutionHints hints = ( (DataEngineImpl) dataEngine ).getExecutionHints( );
+		assertFalse( hints.needCacheDataSet( "left" ) );
+
+		QueryDefinition qd1 = new QueryDefinition( );
+		qd1.setDataSetName( "left" );
+		dataEngine.registerQueries( new IDataQueryDefinition[]{
+			qd1
+		} );
+		assertTrue( hints.needCacheDataSet( "left" ) );
+		dataEngine.shutdown( );
+	}
+
+	private DataEngine newOdaDataEngine( ) throws BirtException
+	{
+		DataEngineContext context = DataEngineContext.newInstance( DataEngineContext.DIRECT_PRESENTATION,
+				this.scriptContext,
+				null,null,null );
+		context.setTmpdir( this.getTempDir( ) );
+		PlatformConfig platformConfig = new PlatformConfig();
+		platformConfig.setTempDir( this.getTempDir() );
+		DataEngine dataEngine = DataEngine.newDataEngine( platformConfig, context );
+
+		dataEngine.defineDataSource( new OdaDataSourceDesign( "ds" ) );
+		dataEngine.defineDataSet( new OdaDataSetDesign( "left", "ds" ) );
+		dataEngine.defineDataSet( new OdaDataSetDesign( "right", "ds" ) );
+		return dataEngine;
+	}
 }
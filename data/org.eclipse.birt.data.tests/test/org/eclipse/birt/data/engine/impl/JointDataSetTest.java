@@ -11,11 +11,15 @@
 package org.eclipse.birt.data.engine.impl;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.eclipse.birt.core.exception.BirtException;
 import org.eclipse.birt.core.script.ScriptContext;
 import org.eclipse.birt.data.engine.api.APITestCase;
+import org.eclipse.birt.data.engine.api.DataEngine;
 import org.eclipse.birt.data.engine.api.IGroupDefinition;
 import org.eclipse.birt.data.engine.api.IJoinCondition;
 import org.eclipse.birt.data.engine.api.IJointDataSetDesign;
@@ -57,6 +61,8 @@ public class JointDataSetTest extends APITestCase
 	//
 	private static int CARTESIAN_POPULATOR = 0;
 	private static int BINARY_TREE_POPULATOR = 1;
+	private static int HASH_POPULATOR = 2;
+	private static long hashJoinMemoryBufferSize = 0;
 	private static boolean ADD_FETCH_LIMIT = false;
 	private ScriptContext cx;
 	/*
@@ -180,6 +186,114 @@ public class JointDataSetTest extends APITestCase
 		checkOutputFile();
 	}
 
+	/**
+	 * The hash join returns the rows of the other joins, in another order.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+    public void testHashJoin( ) throws Exception
+	{
+		hashJoinMemoryBufferSize = 0;
+		assertHashJoin( );
+	}
+
+	/**
+	 * All the partitions of the hash join are written to disk, and none of
+	 * them fits in memory again, so they are divided again and joined by
+	 * merge.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+    public void testHashJoinOnDisk( ) throws Exception
+	{
+		hashJoinMemoryBufferSize = 1;
+		assertHashJoin( );
+	}
+
+	/**
+	 * Some partitions of the hash join are written to disk and loaded back
+	 * into memory.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+    public void testHashJoinPartlyOnDisk( ) throws Exception
+	{
+		hashJoinMemoryBufferSize = 1024;
+		assertHashJoin( );
+	}
+
+	private void assertHashJoin( ) throws Exception
+	{
+		int[] joinTypes = new int[]{
+				IJointDataSetDesign.INNER_JOIN,
+				IJointDataSetDesign.LEFT_OUTER_JOIN,
+				IJointDataSetDesign.RIGHT_OUTER_JOIN,
+				IJointDataSetDesign.FULL_OUTER_JOIN
+		};
+		for ( int i = 0; i < joinTypes.length; i++ )
+		{
+			String[] expected = basicJoinTest( joinTypes[i],
+					CARTESIAN_POPULATOR ).split( "\n" );
+			String[] actual = basicJoinTest( joinTypes[i], HASH_POPULATOR ).split( "\n" );
+			Arrays.sort( expected );
+			Arrays.sort( actual );
+			assertEquals( Arrays.asList( expected ), Arrays.asList( actual ) );
+		}
+	}
+
+	/**
+	 * Join keys of different kinds are joined with the sort-merge join, which
+	 * compares a string with a number by its value.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+    public void testHashJoinOfDifferentKeyKinds( ) throws Exception
+	{
+		String expected = mixedKeyJoinTest( null );
+		String actual = mixedKeyJoinTest( Boolean.TRUE );
+		assertTrue( expected.split( "\n" ).length > 1 );
+		assertEquals( expected, actual );
+	}
+
+	private String mixedKeyJoinTest( Boolean hashJoin ) throws Exception
+	{
+		OdaDataSetDesign dset1 = newDataSet( "dset1", "Select ID, CITY FROM "
+				+ this.getTestTableName( ) + " where ID > 4 order by ID asc");
+		OdaDataSetDesign dset2 = newDataSet( "dset2", "Select RTRIM(CHAR(ID)) AS SID, SKU FROM "
+				+ this.getTestTableName( ) + " where ID < 20 order by ID asc");
+
+		List a = new ArrayList();
+		a.add( new JoinCondition(new ScriptExpression("dataSetRow.ID"),new ScriptExpression("dataSetRow.SID"),IJoinCondition.OP_EQ) );
+		JointDataSetDesign dset3 = new JointDataSetDesign( "dset3", dset1.getName( ), dset2.getName( ), IJointDataSetDesign.INNER_JOIN, a );
+		dataEngine.defineDataSet( dset3 );
+
+		Map appContext = new HashMap( );
+		if ( hashJoin != null )
+			appContext.put( DataEngine.JOINT_DATA_SET_HASH_JOIN, hashJoin );
+		QueryDefinition query = this.newReportQuery( dset3 );
+		IQueryResults qr = this.dataEngine.prepare( query, appContext ).execute( null );
+		IResultIterator ri = ((ResultIterator)qr.getResultIterator( )).getOdiResult( );
+
+		String s = "";
+		do
+		{
+			IResultObject ro = ri.getCurrentResult( );
+			if ( ro == null )
+				break;
+			for( int i = 0; i < ri.getResultClass( ).getFieldCount( ); i++)
+			{
+				s += ro.getFieldValue( i+1 ) + "\t";
+			}
+			s += "\n";
+		}while ( ri.next( ));
+		qr.close( );
+		return s;
+	}
+
 	/**
 	 * 
 	 * @throws Exception
@@ -432,6 +546,8 @@ public class JointDataSetTest extends APITestCase
 		
 		if( populateType == BINARY_TREE_POPULATOR) 
 			populator = JointDataSetPopulatorFactory.getBinaryTreeDataSetPopulator(it1, it2, meta, matcher, joinType, ((DataEngineImpl)this.dataEngine).getSession( ), fetchRowLimit);
+		else if( populateType == HASH_POPULATOR )
+			populator = JointDataSetPopulatorFactory.getHashJointDataSetPopulator(it1, it2, meta, matcher, joinType, ((DataEngineImpl)this.dataEngine).getSession( ), fetchRowLimit, hashJoinMemoryBufferSize);
 		else 
 			populator = JointDataSetPopulatorFactory.getCartesianJointDataSetPopulator(it1, it2, meta, matcher, joinType,  ((DataEngineImpl)this.dataEngine).getSession( ), fetchRowLimit);
 		
@@ -0,0 +1,199 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.data.engine.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import org.eclipse.birt.core.data.DataType;
+import org.eclipse.birt.data.engine.api.APITestCase;
+import org.eclipse.birt.data.engine.api.IConditionalExpression;
+import org.eclipse.birt.data.engine.api.IResultIterator;
+import org.eclipse.birt.data.engine.api.querydefn.Binding;
+import org.eclipse.birt.data.engine.api.querydefn.ColumnDefinition;
+import org.eclipse.birt.data.engine.api.querydefn.ConditionalExpression;
+import org.eclipse.birt.data.engine.api.querydefn.FilterDefinition;
+import org.eclipse.birt.data.engine.api.querydefn.OdaDataSetDesign;
+import org.eclipse.birt.data.engine.api.querydefn.OdaDataSourceDesign;
+import org.eclipse.birt.data.engine.api.querydefn.QueryDefinition;
+import org.eclipse.birt.data.engine.api.querydefn.QueryExecutionHints;
+import org.eclipse.birt.data.engine.api.querydefn.ScriptExpression;
+import org.eclipse.birt.data.engine.api.querydefn.SortDefinition;
+
+import testutil.ConfigText;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test the push down of the data set filters to the JDBC driver, through the
+ * data engine.
+ */
+public class OdaQueryPushDownTest extends APITestCase
+{
+
+	/** the logger of the JDBC statement, which logs the rewritten query */
+	private static final String STATEMENT_LOGGER = "org.eclipse.birt.report.data.oda.jdbc.Statement"; //$NON-NLS-1$
+
+	/*
+	 * @see org.eclipse.birt.data.engine.api.APITestCase#getDataSourceInfo()
+	 */
+	protected DataSourceInfo getDataSourceInfo( )
+	{
+		return new DataSourceInfo( ConfigText.getString( "Api.TestData.TableName" ),
+				ConfigText.getString( "Api.TestData.TableSQL" ),
+				ConfigText.getString( "Api.TestData.TestDataFileName" ) );
+	}
+
+	/**
+	 * The data set filter is done by the database, with the rows of the same
+	 * filter done by BIRT.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testFilterPushedDownToJdbc( ) throws Exception
+	{
+		ColumnDefinition amount = new ColumnDefinition( "AMOUNT" );
+		amount.setDataType( DataType.INTEGER_TYPE );
+		this.dataSet.addResultSetHint( amount );
+		this.dataSet.addFilter( new FilterDefinition( new ConditionalExpression( "dataSetRow.AMOUNT",
+				IConditionalExpression.OP_GT,
+				"100" ) ) );
+
+		QueryDefinition queryDefn = newAmountQuery( this.dataSet.getName( ) );
+		List<String> appliedQueries = new ArrayList<String>( );
+		List<Object> pushedDownAmounts = getAmounts( executeQuery( queryDefn,
+				appliedQueries ) );
+
+		// the query is rewritten with the filter
+		assertEquals( 1, appliedQueries.size( ) );
+		assertTrue( appliedQueries.get( 0 ).indexOf( "WHERE" ) > 0 );
+		assertTrue( appliedQueries.get( 0 ).indexOf( "AMOUNT" ) > 0 );
+
+		// the same filter, done by BIRT on another data set
+		OdaDataSetDesign dataSet2 = newDataSet( "dataSet2",
+				( (OdaDataSetDesign) this.dataSet ).getQueryText( ) );
+		QueryDefinition queryDefn2 = newAmountQuery( dataSet2.getName( ) );
+		queryDefn2.addFilter( new FilterDefinition( new ConditionalExpression( "row.AMOUNT",
+				IConditionalExpression.OP_GT,
+				"100" ) ) );
+		List<Object> amounts = getAmounts( executeQuery( queryDefn2 ) );
+
+		assertFalse( amounts.isEmpty( ) );
+		assertEquals( amounts, pushedDownAmounts );
+	}
+
+	/**
+	 * The filter of a string column is done by the database only if the data
+	 * source allows it, since the database compares the strings in its own
+	 * collation.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testStringFilterPushedDownIfEnabled( ) throws Exception
+	{
+		ColumnDefinition country = new ColumnDefinition( "COUNTRY" );
+		country.setDataType( DataType.STRING_TYPE );
+		this.dataSet.addResultSetHint( country );
+		this.dataSet.addFilter( new FilterDefinition( new ConditionalExpression( "dataSetRow.COUNTRY",
+				IConditionalExpression.OP_EQ,
+				"\"CHINA\"" ) ) );
+
+		List<String> appliedQueries = new ArrayList<String>( );
+		List<Object> amounts = getAmounts( executeQuery( newAmountQuery( this.dataSet.getName( ) ),
+				appliedQueries ) );
+		assertFalse( amounts.isEmpty( ) );
+		assertTrue( appliedQueries.isEmpty( ) );
+
+		( (OdaDataSourceDesign) this.dataSource ).addPublicProperty( OdaQueryOptimizationUtil.PUSH_DOWN_STRING_FILTERS,
+				"true" );
+		this.dataEngine.defineDataSource( this.dataSource );
+		assertEquals( amounts,
+				getAmounts( executeQuery( newAmountQuery( this.dataSet.getName( ) ),
+						appliedQueries ) ) );
+		assertEquals( 1, appliedQueries.size( ) );
+		assertTrue( appliedQueries.get( 0 ).indexOf( "COUNTRY" ) > 0 );
+	}
+
+	/**
+	 * Executes a query with the push down enabled, and collects the queries
+	 * rewritten by the JDBC driver.
+	 */
+	private IResultIterator executeQuery( QueryDefinition queryDefn,
+			final List<String> appliedQueries ) throws Exception
+	{
+		QueryExecutionHints hints = new QueryExecutionHints( );
+		hints.setEnablePushDown( true );
+		queryDefn.setQueryExecutionHints( hints );
+
+		Handler handler = new Handler( ) {
+
+			public void publish( LogRecord record )
+			{
+				if ( record.getMessage( ) != null
+						&& record.getMessage( ).startsWith( "Query spec applied: " ) )
+					appliedQueries.add( record.getMessage( ) );
+			}
+
+			public void flush( )
+			{
+			}
+
+			public void close( )
+			{
+			}
+		};
+		Logger logger = Logger.getLogger( STATEMENT_LOGGER );
+		Level level = logger.getLevel( );
+		logger.setLevel( Level.FINE );
+		logger.addHandler( handler );
+		try
+		{
+			// the query is executed while the logger is set
+			return executeQuery( queryDefn );
+		}
+		finally
+		{
+			logger.removeHandler( handler );
+			logger.setLevel( level );
+		}
+	}
+
+	private QueryDefinition newAmountQuery( String dataSetName )
+			throws Exception
+	{
+		QueryDefinition queryDefn = new QueryDefinition( );
+		queryDefn.setDataSetName( dataSetName );
+		queryDefn.addBinding( new Binding( "AMOUNT",
+				new ScriptExpression( "dataSetRow.AMOUNT" ) ) );
+		SortDefinition sort = new SortDefinition( );
+		sort.setExpression( "row.AMOUNT" );
+		queryDefn.addSort( sort );
+		return queryDefn;
+	}
+
+	private List<Object> getAmounts( IResultIterator resultIt )
+			throws Exception
+	{
+		List<Object> amounts = new ArrayList<Object>( );
+		while ( resultIt.next( ) )
+			amounts.add( resultIt.getValue( "AMOUNT" ) );
+		resultIt.close( );
+		return amounts;
+	}
+}
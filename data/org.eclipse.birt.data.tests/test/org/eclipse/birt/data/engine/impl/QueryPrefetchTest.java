@@ -0,0 +1,285 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.data.engine.impl;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.eclipse.birt.core.data.DataType;
+import org.eclipse.birt.data.engine.api.APITestCase;
+import org.eclipse.birt.data.engine.api.IConditionalExpression;
+import org.eclipse.birt.data.engine.api.IPreparedQuery;
+import org.eclipse.birt.data.engine.api.IResultIterator;
+import org.eclipse.birt.data.engine.api.querydefn.Binding;
+import org.eclipse.birt.data.engine.api.querydefn.ColumnDefinition;
+import org.eclipse.birt.data.engine.api.querydefn.ConditionalExpression;
+import org.eclipse.birt.data.engine.api.querydefn.FilterDefinition;
+import org.eclipse.birt.data.engine.api.querydefn.InputParameterBinding;
+import org.eclipse.birt.data.engine.api.querydefn.OdaDataSetDesign;
+import org.eclipse.birt.data.engine.api.querydefn.ParameterDefinition;
+import org.eclipse.birt.data.engine.api.querydefn.QueryDefinition;
+import org.eclipse.birt.data.engine.api.querydefn.QueryExecutionHints;
+import org.eclipse.birt.data.engine.api.querydefn.ScriptExpression;
+import org.eclipse.birt.data.engine.api.querydefn.SortDefinition;
+import org.eclipse.birt.data.engine.executor.QueryPrefetcher;
+
+import testutil.ConfigText;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test the prefetch of the statements of independent queries by the data
+ * engine.
+ */
+public class QueryPrefetchTest extends APITestCase
+{
+
+	/*
+	 * @see org.eclipse.birt.data.engine.api.APITestCase#getDataSourceInfo()
+	 */
+	protected DataSourceInfo getDataSourceInfo( )
+	{
+		return new DataSourceInfo( ConfigText.getString( "Api.TestData.TableName" ),
+				ConfigText.getString( "Api.TestData.TableSQL" ),
+				ConfigText.getString( "Api.TestData.TestDataFileName" ) );
+	}
+
+	/**
+	 * The statements of two independent queries are executed by the
+	 * prefetcher and taken over by the queries.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testPrefetchedStatementsTakenOver( ) throws Exception
+	{
+		OdaDataSetDesign dataSet2 = newDataSet( "dataSet2",
+				"select * from " + getTestTableName( ) + " where AMOUNT > 100" );
+		List<Object> expectedAmounts = getAmounts( executeQuery( newAmountQuery( this.dataSet.getName( ) ) ) );
+		List<Object> expectedAmounts2 = getAmounts( executeQuery( newAmountQuery( dataSet2.getName( ) ) ) );
+
+		IPreparedQuery preparedQuery = dataEngine.prepare( newAmountQuery( this.dataSet.getName( ) ) );
+		IPreparedQuery preparedQuery2 = dataEngine.prepare( newAmountQuery( dataSet2.getName( ) ) );
+		prefetch( new IPreparedQuery[]{
+				preparedQuery, preparedQuery2
+		} );
+		QueryPrefetcher prefetcher = getQueryPrefetcher( );
+		assertNotNull( prefetcher );
+		assertEquals( 2, prefetcher.getPendingStatementCount( ) );
+
+		assertEquals( expectedAmounts2,
+				getAmounts( preparedQuery2.execute( jsScope )
+						.getResultIterator( ) ) );
+		assertEquals( 1, prefetcher.getPendingStatementCount( ) );
+		assertEquals( expectedAmounts,
+				getAmounts( preparedQuery.execute( jsScope )
+						.getResultIterator( ) ) );
+		assertEquals( 0, prefetcher.getPendingStatementCount( ) );
+	}
+
+	/**
+	 * Each prefetched statement holds a connection, so no more statements than
+	 * threads are prefetched; the other queries execute their own statement.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testPrefetchLimitedToThreadCount( ) throws Exception
+	{
+		OdaDataSetDesign dataSet2 = newDataSet( "dataSet2",
+				"select * from " + getTestTableName( ) + " where AMOUNT > 100" );
+		OdaDataSetDesign dataSet3 = newDataSet( "dataSet3",
+				"select * from " + getTestTableName( ) + " where AMOUNT > 1000" );
+		List<Object> expectedAmounts3 = getAmounts( executeQuery( newAmountQuery( dataSet3.getName( ) ) ) );
+
+		IPreparedQuery preparedQuery3 = dataEngine.prepare( newAmountQuery( dataSet3.getName( ) ) );
+		prefetch( new IPreparedQuery[]{
+				dataEngine.prepare( newAmountQuery( this.dataSet.getName( ) ) ),
+				dataEngine.prepare( newAmountQuery( dataSet2.getName( ) ) ),
+				preparedQuery3
+		} );
+		QueryPrefetcher prefetcher = getQueryPrefetcher( );
+		assertEquals( 2, prefetcher.getPendingStatementCount( ) );
+
+		assertEquals( expectedAmounts3,
+				getAmounts( preparedQuery3.execute( jsScope )
+						.getResultIterator( ) ) );
+		assertEquals( 2, prefetcher.getPendingStatementCount( ) );
+	}
+
+	/**
+	 * A query whose parameter value is not the prefetched one executes its own
+	 * statement.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testDifferentParameterNotTakenOver( ) throws Exception
+	{
+		OdaDataSetDesign paramDataSet = newDataSet( "paramDataSet",
+				"select * from " + getTestTableName( ) + " where AMOUNT > ?" );
+		ParameterDefinition paramDefn = new ParameterDefinition( "limit",
+				DataType.INTEGER_TYPE,
+				true,
+				false );
+		paramDefn.setPosition( 1 );
+		paramDefn.setDefaultInputValue( "0" );
+		paramDataSet.addParameter( paramDefn );
+
+		QueryDefinition queryDefn = newAmountQuery( paramDataSet.getName( ) );
+		queryDefn.addInputParamBinding( new InputParameterBinding( "limit",
+				new ScriptExpression( "amountLimit" ) ) );
+		jsScope.put( "amountLimit", jsScope, Integer.valueOf( 100 ) );
+		IPreparedQuery preparedQuery = dataEngine.prepare( queryDefn );
+		prefetch( new IPreparedQuery[]{
+			preparedQuery
+		} );
+		QueryPrefetcher prefetcher = getQueryPrefetcher( );
+		assertEquals( 1, prefetcher.getPendingStatementCount( ) );
+
+		jsScope.put( "amountLimit", jsScope, Integer.valueOf( 1000 ) );
+		List<Object> amounts = getAmounts( preparedQuery.execute( jsScope )
+				.getResultIterator( ) );
+		assertEquals( 1, prefetcher.getPendingStatementCount( ) );
+		Iterator<Object> it = amounts.iterator( );
+		while ( it.hasNext( ) )
+		{
+			assertTrue( ( (Number) it.next( ) ).intValue( ) > 1000 );
+		}
+
+		// the prefetched value is still taken over
+		jsScope.put( "amountLimit", jsScope, Integer.valueOf( 100 ) );
+		amounts = getAmounts( preparedQuery.execute( jsScope )
+				.getResultIterator( ) );
+		assertEquals( 0, prefetcher.getPendingStatementCount( ) );
+		assertFalse( amounts.isEmpty( ) );
+		it = amounts.iterator( );
+		while ( it.hasNext( ) )
+		{
+			assertTrue( ( (Number) it.next( ) ).intValue( ) > 100 );
+		}
+	}
+
+	/**
+	 * The filters of the data set would be pushed down to the JDBC driver, so
+	 * its query is not prefetched.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testPushedDownFilterNotPrefetched( ) throws Exception
+	{
+		ColumnDefinition amount = new ColumnDefinition( "AMOUNT" );
+		amount.setDataType( DataType.INTEGER_TYPE );
+		this.dataSet.addResultSetHint( amount );
+		this.dataSet.addFilter( new FilterDefinition( new ConditionalExpression( "dataSetRow.AMOUNT",
+				IConditionalExpression.OP_GT,
+				"100" ) ) );
+		QueryDefinition queryDefn = newAmountQuery( this.dataSet.getName( ) );
+		QueryExecutionHints hints = new QueryExecutionHints( );
+		hints.setEnablePushDown( true );
+		queryDefn.setQueryExecutionHints( hints );
+
+		IPreparedQuery preparedQuery = dataEngine.prepare( queryDefn );
+		prefetch( new IPreparedQuery[]{
+			preparedQuery
+		} );
+		assertEquals( 0, getQueryPrefetcher( ).getPendingStatementCount( ) );
+
+		List<Object> amounts = getAmounts( preparedQuery.execute( jsScope )
+				.getResultIterator( ) );
+		assertFalse( amounts.isEmpty( ) );
+		Iterator<Object> it = amounts.iterator( );
+		while ( it.hasNext( ) )
+		{
+			assertTrue( ( (Number) it.next( ) ).intValue( ) > 100 );
+		}
+	}
+
+	/**
+	 * The statements which are not taken over are closed, and the prefetch
+	 * threads stopped, when the data engine shuts down.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testPendingStatementsClosedOnShutdown( ) throws Exception
+	{
+		OdaDataSetDesign dataSet2 = newDataSet( "dataSet2",
+				"select * from " + getTestTableName( ) + " where AMOUNT > 100" );
+		prefetch( new IPreparedQuery[]{
+				dataEngine.prepare( newAmountQuery( this.dataSet.getName( ) ) ),
+				dataEngine.prepare( newAmountQuery( dataSet2.getName( ) ) )
+		} );
+		QueryPrefetcher prefetcher = getQueryPrefetcher( );
+		assertEquals( 2, prefetcher.getPendingStatementCount( ) );
+		List<Thread> threads = getPrefetchThreads( );
+		assertFalse( threads.isEmpty( ) );
+
+		dataEngine.shutdown( );
+		assertEquals( 0, prefetcher.getPendingStatementCount( ) );
+		assertNull( getQueryPrefetcher( ) );
+		for ( int i = 0; i < threads.size( ); i++ )
+		{
+			threads.get( i ).join( 5000 );
+			assertFalse( threads.get( i ).isAlive( ) );
+		}
+	}
+
+	private void prefetch( IPreparedQuery[] queries )
+	{
+		( (DataEngineImpl) dataEngine ).prefetch( queries, jsScope, 2 );
+	}
+
+	private QueryPrefetcher getQueryPrefetcher( )
+	{
+		return ( (DataEngineImpl) dataEngine ).getSession( )
+				.getQueryPrefetcher( );
+	}
+
+	private static List<Thread> getPrefetchThreads( )
+	{
+		List<Thread> threads = new ArrayList<Thread>( );
+		Iterator<Thread> it = Thread.getAllStackTraces( ).keySet( ).iterator( );
+		while ( it.hasNext( ) )
+		{
+			Thread thread = it.next( );
+			if ( thread.getName( ).startsWith( "BIRT query prefetch" ) )
+				threads.add( thread );
+		}
+		return threads;
+	}
+
+	private QueryDefinition newAmountQuery( String dataSetName )
+	{
+		QueryDefinition queryDefn = new QueryDefinition( );
+		queryDefn.setDataSetName( dataSetName );
+		queryDefn.addBinding( new Binding( "AMOUNT",
+				new ScriptExpression( "dataSetRow.AMOUNT" ) ) );
+		SortDefinition sort = new SortDefinition( );
+		sort.setExpression( "row.AMOUNT" );
+		queryDefn.addSort( sort );
+		return queryDefn;
+	}
+
+	private List<Object> getAmounts( IResultIterator resultIt )
+			throws Exception
+	{
+		List<Object> amounts = new ArrayList<Object>( );
+		while ( resultIt.next( ) )
+			amounts.add( resultIt.getValue( "AMOUNT" ) );
+		resultIt.close( );
+		return amounts;
+	}
+}
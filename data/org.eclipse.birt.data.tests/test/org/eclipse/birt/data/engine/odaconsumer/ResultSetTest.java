@@ -89,6 +89,36 @@ public class ResultSetTest extends QueryTest
 		}
 	}
 
+	@Test
+	public final void testFetchRowBlock( ) throws DataException
+	{
+		Object[][] rowBlock = new Object[2][];
+		int rowPosition = 0;
+		int rowCount = 0;
+		Object[] firstRow = null;
+		while ( ( rowCount = m_resultSet.fetch( rowBlock ) ) > 0 )
+		{
+			if ( firstRow == null )
+				firstRow = rowBlock[0];
+			// the rows of the block are reused
+			assertSame( firstRow, rowBlock[0] );
+			for ( int i = 0; i < rowCount; i++ )
+			{
+				rowPosition++;
+				String row = "";
+				for ( int j = 0; j < rowBlock[i].length; j++ )
+				{
+					if ( j > 0 )
+						row += ", ";
+					row += ( rowBlock[i][j] == null ) ? "null"
+							: rowBlock[i][j].toString( );
+				}
+				assertEquals( RESULTS[rowPosition - 1], row );
+			}
+		}
+		assertEquals( RESULTS.length, rowPosition );
+	}
+
 	private IResultClass testResultClass( IResultObject resultObject )
 			throws DataException
 	{
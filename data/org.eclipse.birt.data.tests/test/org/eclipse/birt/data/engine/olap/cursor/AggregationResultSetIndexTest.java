@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.data.engine.olap.cursor;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.birt.data.engine.olap.data.api.DimLevel;
+import org.eclipse.birt.data.engine.olap.data.api.IAggregationResultSet;
+import org.eclipse.birt.data.engine.olap.data.impl.AggregationDefinition;
+import org.eclipse.birt.data.engine.olap.data.impl.AggregationFunctionDefinition;
+import org.eclipse.birt.data.engine.olap.data.impl.aggregation.AggregationResultRow;
+import org.eclipse.birt.data.engine.olap.data.impl.aggregation.AggregationResultSet;
+import org.eclipse.birt.data.engine.olap.data.impl.dimension.Member;
+import org.eclipse.birt.data.engine.olap.data.util.BufferedStructureArray;
+import org.eclipse.birt.data.engine.olap.data.util.IDiskArray;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+
+public class AggregationResultSetIndexTest
+{
+
+	private static final DimLevel ROW_LEVEL = new DimLevel( "row", "level" );
+	private static final DimLevel COLUMN_LEVEL = new DimLevel( "column",
+			"level" );
+
+	/**
+	 *
+	 * @throws IOException
+	 */
+	@Test
+	public void testFind( ) throws IOException
+	{
+		// A sparse crosstab, with one cell on the diagonal of each row
+		IAggregationResultSet rs = createResultSet( 1000 );
+		rs.seek( 10 );
+		AggregationResultSetIndex index = AggregationResultSetIndex.create( rs );
+		assertNotNull( index );
+		assertEquals( 10, rs.getPosition( ) );
+
+		assertEquals( 0, index.find( valueMap( "r0", new BigDecimal( "0" ) ) ) );
+		assertEquals( 999,
+				index.find( valueMap( "r999", new BigDecimal( "999" ) ) ) );
+		// Values which compare as equal are found
+		assertEquals( 5, index.find( valueMap( "r5", new BigDecimal( "5.00" ) ) ) );
+		assertEquals( -1, index.find( valueMap( "r5", new BigDecimal( "6" ) ) ) );
+		assertEquals( -1, index.find( valueMap( "r5", null ) ) );
+		rs.close( );
+	}
+
+	private static Map valueMap( String row, Object column )
+	{
+		Map result = new HashMap( );
+		result.put( ROW_LEVEL, row );
+		result.put( COLUMN_LEVEL, column );
+		return result;
+	}
+
+	private static IAggregationResultSet createResultSet( int rowCount )
+			throws IOException
+	{
+		AggregationDefinition aggregation = new AggregationDefinition( new DimLevel[]{
+				ROW_LEVEL, COLUMN_LEVEL
+		},
+				new int[]{
+						0, 0
+				},
+				new AggregationFunctionDefinition[]{
+					new AggregationFunctionDefinition( "total", "sale", "SUM" )
+				} );
+		IDiskArray rows = new BufferedStructureArray( AggregationResultRow.getCreator( ),
+				100 );
+		for ( int i = 0; i < rowCount; i++ )
+		{
+			Member row = new Member( );
+			row.setKeyValues( new Object[]{
+				"r" + i
+			} );
+			Member column = new Member( );
+			column.setKeyValues( new Object[]{
+				new BigDecimal( i )
+			} );
+			rows.add( new AggregationResultRow( new Member[]{
+					row, column
+			}, new Object[]{
+				Integer.valueOf( i )
+			} ) );
+		}
+		return new AggregationResultSet( aggregation, rows, new String[][]{
+				{
+					"level"
+				}, {
+					"level"
+				}
+		}, null );
+	}
+}
@@ -0,0 +1,182 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.data.engine.olap.cursor;
+
+import java.io.IOException;
+
+import javax.olap.OLAPException;
+
+import org.eclipse.birt.data.engine.olap.data.api.DimLevel;
+import org.eclipse.birt.data.engine.olap.data.api.IAggregationResultSet;
+import org.eclipse.birt.data.engine.olap.data.impl.AggregationDefinition;
+import org.eclipse.birt.data.engine.olap.data.impl.AggregationFunctionDefinition;
+import org.eclipse.birt.data.engine.olap.data.impl.aggregation.AggregationResultRow;
+import org.eclipse.birt.data.engine.olap.data.impl.aggregation.AggregationResultSet;
+import org.eclipse.birt.data.engine.olap.data.impl.dimension.Member;
+import org.eclipse.birt.data.engine.olap.data.util.BufferedStructureArray;
+import org.eclipse.birt.data.engine.olap.data.util.IDiskArray;
+import org.eclipse.birt.data.engine.olap.driver.DimensionAxis;
+import org.eclipse.birt.data.engine.olap.driver.IEdgeAxis;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+
+public class EdgeDimensionRelationTest
+{
+
+	private static final int COUNTRY_COUNT = 5;
+	private static final int CITY_COUNT = 700;
+
+	/**
+	 *
+	 * @throws IOException
+	 * @throws OLAPException
+	 */
+	@Test
+	public void testRelateOnDemand( ) throws IOException, OLAPException
+	{
+		IAggregationResultSet rs = createResultSet( );
+		RowDataAccessor accessor = createAccessor( rs );
+		accessor.initialize( true );
+		// Only the first window of rows is related
+		assertEquals( EdgeDimensionRelation.WINDOW_SIZE,
+				accessor.edgeDimensRelation.currentRelation[1].size( ) );
+		assertEquals( COUNTRY_COUNT * CITY_COUNT,
+				accessor.edgeDimensRelation.traverseLength );
+
+		int row = 0;
+		while ( accessor.edge_next( ) )
+		{
+			int country = row / CITY_COUNT, city = row % CITY_COUNT;
+			assertEquals( country, accessor.dim_getPosition( 0 ) );
+			assertEquals( city, accessor.dim_getPosition( 1 ) );
+			assertEquals( "c" + country, accessor.dim_getCurrentMember( 0, 0 ) );
+			assertEquals( Integer.valueOf( city ),
+					accessor.dim_getCurrentMember( 1, 0 ) );
+			assertEquals( country * CITY_COUNT, accessor.getEdgeStart( 0 ) );
+			assertEquals( country * CITY_COUNT + CITY_COUNT - 1,
+					accessor.getEdgeEnd( 0 ) );
+			assertEquals( row, accessor.getEdgeStart( 1 ) );
+			assertEquals( row, accessor.getEdgeEnd( 1 ) );
+			row++;
+		}
+		assertEquals( COUNTRY_COUNT * CITY_COUNT, row );
+		rs.close( );
+	}
+
+	/**
+	 *
+	 * @throws IOException
+	 * @throws OLAPException
+	 */
+	@Test
+	public void testRandomAccess( ) throws IOException, OLAPException
+	{
+		IAggregationResultSet rs = createResultSet( );
+		RowDataAccessor accessor = createAccessor( rs );
+		accessor.initialize( true );
+
+		int row = 3 * CITY_COUNT + 10;
+		assertTrue( accessor.edge_relative( row + 1 ) );
+		assertEquals( 3, accessor.dim_getPosition( 0 ) );
+		assertEquals( 10, accessor.dim_getPosition( 1 ) );
+		assertEquals( "c3", accessor.dim_getCurrentMember( 0, 0 ) );
+
+		assertTrue( accessor.edge_last( ) );
+		assertEquals( COUNTRY_COUNT - 1, accessor.dim_getPosition( 0 ) );
+		assertEquals( CITY_COUNT - 1, accessor.dim_getPosition( 1 ) );
+		assertFalse( accessor.edge_next( ) );
+		rs.close( );
+	}
+
+	private static RowDataAccessor createAccessor( IAggregationResultSet rs )
+	{
+		IEdgeAxis edgeAxis = new IEdgeAxis( ) {
+
+			public IRowDataAccessor getRowDataAccessor( )
+			{
+				return null;
+			}
+
+			public DimensionAxis getDimensionAxis( int index )
+			{
+				return null;
+			}
+
+			public DimensionAxis[] getAllDimensionAxis( )
+			{
+				return null;
+			}
+
+			public IAggregationResultSet getQueryResultSet( )
+			{
+				return null;
+			}
+
+			public void populateEdgeInfo( boolean isPage )
+			{
+			}
+		};
+		DimensionAxis[] dimAxis = new DimensionAxis[]{
+				new DimensionAxis( edgeAxis, rs, 0, 0 ),
+				new DimensionAxis( edgeAxis, rs, 1, 1 )
+		};
+		return new RowDataAccessor( new RowDataAccessorService( dimAxis, null ),
+				rs );
+	}
+
+	private static IAggregationResultSet createResultSet( ) throws IOException
+	{
+		AggregationDefinition aggregation = new AggregationDefinition( new DimLevel[]{
+				new DimLevel( "dimension", "country" ),
+				new DimLevel( "dimension", "city" )
+		},
+				new int[]{
+						0, 0
+				},
+				new AggregationFunctionDefinition[]{
+					new AggregationFunctionDefinition( "total", "sale", "SUM" )
+				} );
+		IDiskArray rows = new BufferedStructureArray( AggregationResultRow.getCreator( ),
+				100 );
+		for ( int i = 0; i < COUNTRY_COUNT; i++ )
+		{
+			for ( int j = 0; j < CITY_COUNT; j++ )
+			{
+				Member country = new Member( );
+				country.setKeyValues( new Object[]{
+					"c" + i
+				} );
+				Member city = new Member( );
+				city.setKeyValues( new Object[]{
+					Integer.valueOf( j )
+				} );
+				rows.add( new AggregationResultRow( new Member[]{
+						country, city
+				}, new Object[]{
+					Integer.valueOf( j )
+				} ) );
+			}
+		}
+		return new AggregationResultSet( aggregation, rows, new String[][]{
+				{
+					"country"
+				}, {
+					"city"
+				}
+		}, null );
+	}
+}
@@ -0,0 +1,325 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.data.engine.olap.data.impl;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.eclipse.birt.data.engine.core.DataException;
+import org.eclipse.birt.data.engine.olap.data.api.DimLevel;
+import org.eclipse.birt.data.engine.olap.data.api.IAggregationResultSet;
+import org.eclipse.birt.data.engine.olap.data.document.DocumentManagerFactory;
+import org.eclipse.birt.data.engine.olap.data.document.IDocumentManager;
+import org.eclipse.birt.data.engine.olap.data.impl.aggregation.AggregationResultRow;
+import org.eclipse.birt.data.engine.olap.data.impl.aggregation.AggregationResultSet;
+import org.eclipse.birt.data.engine.olap.data.impl.dimension.Member;
+import org.eclipse.birt.data.engine.olap.data.util.BufferedStructureArray;
+import org.eclipse.birt.data.engine.olap.data.util.IDiskArray;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+
+public class AggregationResultCacheTest
+{
+
+	private static final Object[][] ROWS = {
+			{
+					"AnHui", "HeFei", new Double( 110 ), new Integer( 2 )
+			}, {
+					"AnHui", "HuaiBei", new Double( 300 ), new Integer( 3 )
+			}, {
+					"HeBei", "ShiJiaZhuang", new Double( 100 ), new Integer( 1 )
+			}, {
+					"HeBei", "XingTai", new Double( 210 ), new Integer( 4 )
+			}
+	};
+
+	/**
+	 *
+	 * @throws IOException
+	 * @throws DataException
+	 */
+	@Test
+	public void testGetCachedResultSet( ) throws IOException, DataException
+	{
+		IDocumentManager documentManager = DocumentManagerFactory.createFileDocumentManager( );
+		AggregationResultCache cache = new AggregationResultCache( documentManager,
+				"cube",
+				"filter",
+				10 );
+		AggregationDefinition aggregation = createCityAggregation( );
+		assertNull( cache.get( aggregation, 0 ) );
+		cache.put( aggregation, createCityResultSet( aggregation ) );
+
+		IAggregationResultSet result = cache.get( createCityAggregation( ), 0 );
+		assertNotNull( result );
+		assertEquals( ROWS.length, result.length( ) );
+		for ( int i = 0; i < ROWS.length; i++ )
+		{
+			result.seek( i );
+			assertEquals( ROWS[i][1], result.getLevelKeyValue( 1 )[0] );
+			assertEquals( ROWS[i][2], result.getAggregationValue( 0 ) );
+			assertEquals( ROWS[i][3], result.getAggregationValue( 1 ) );
+		}
+		result.close( );
+
+		// Other filters do not share the cached result set
+		assertNull( new AggregationResultCache( documentManager,
+				"cube",
+				"other filter",
+				10 ).get( aggregation, 0 ) );
+		documentManager.close( );
+	}
+
+	/**
+	 *
+	 * @throws IOException
+	 * @throws DataException
+	 */
+	@Test
+	public void testRollUp( ) throws IOException, DataException
+	{
+		IDocumentManager documentManager = DocumentManagerFactory.createFileDocumentManager( );
+		AggregationResultCache cache = new AggregationResultCache( documentManager,
+				"cube",
+				"filter",
+				10 );
+		AggregationDefinition aggregation = createCityAggregation( );
+		cache.put( aggregation, createCityResultSet( aggregation ) );
+
+		AggregationFunctionDefinition[] functions = new AggregationFunctionDefinition[]{
+				new AggregationFunctionDefinition( "count", "sale", "COUNT" ),
+				new AggregationFunctionDefinition( "total", "sale", "SUM" )
+		};
+		AggregationDefinition province = new AggregationDefinition( new DimLevel[]{
+			new DimLevel( "dimension", "province" )
+		}, new int[]{
+			0
+		}, functions );
+		IAggregationResultSet result = cache.get( province, 0 );
+		assertNotNull( result );
+		assertEquals( 2, result.length( ) );
+		result.seek( 0 );
+		assertEquals( "AnHui", result.getLevelKeyValue( 0 )[0] );
+		assertEquals( new Double( 410 ), result.getAggregationValue( 1 ) );
+		assertEquals( new Integer( 5 ), result.getAggregationValue( 0 ) );
+		result.seek( 1 );
+		assertEquals( "HeBei", result.getLevelKeyValue( 0 )[0] );
+		assertEquals( new Double( 310 ), result.getAggregationValue( 1 ) );
+		assertEquals( new Integer( 5 ), result.getAggregationValue( 0 ) );
+		result.close( );
+
+		// An average can not be rolled up
+		AggregationDefinition average = new AggregationDefinition( province.getLevels( ),
+				province.getSortTypes( ),
+				new AggregationFunctionDefinition[]{
+					new AggregationFunctionDefinition( "average", "sale", "AVE" )
+				} );
+		assertNull( cache.get( average, 0 ) );
+		documentManager.close( );
+	}
+
+	/**
+	 *
+	 * @throws IOException
+	 * @throws DataException
+	 */
+	@Test
+	public void testEviction( ) throws IOException, DataException
+	{
+		IDocumentManager documentManager = DocumentManagerFactory.createFileDocumentManager( );
+		AggregationResultCache cache = new AggregationResultCache( documentManager,
+				"cube",
+				"filter",
+				1 );
+		AggregationDefinition aggregation = createCityAggregation( );
+		cache.put( aggregation, createCityResultSet( aggregation ) );
+
+		AggregationDefinition other = new AggregationDefinition( aggregation.getLevels( ),
+				aggregation.getSortTypes( ),
+				new AggregationFunctionDefinition[]{
+					new AggregationFunctionDefinition( "max", "sale", "MAX" )
+				} );
+		cache.put( other, createCityResultSet( other ) );
+		assertNull( cache.get( aggregation, 0 ) );
+		IAggregationResultSet result = cache.get( other, 0 );
+		assertNotNull( result );
+		assertEquals( ROWS.length, result.length( ) );
+		result.close( );
+		documentManager.close( );
+	}
+
+	/**
+	 * The uses recorded by a cache are saved when it is closed, and count in
+	 * the evictions of the other caches.
+	 *
+	 * @throws IOException
+	 * @throws DataException
+	 */
+	@Test
+	public void testUsesSavedOnClose( ) throws IOException, DataException
+	{
+		IDocumentManager documentManager = DocumentManagerFactory.createFileDocumentManager( );
+		AggregationResultCache cache = new AggregationResultCache( documentManager,
+				"cube",
+				"filter",
+				2 );
+		AggregationDefinition aggregation = createCityAggregation( );
+		AggregationDefinition max = createCityAggregation( "MAX" );
+		cache.put( aggregation, createCityResultSet( aggregation ) );
+		cache.put( max, createCityResultSet( max ) );
+
+		AggregationResultCache reader = new AggregationResultCache( documentManager,
+				"cube",
+				"filter",
+				2 );
+		IAggregationResultSet result = reader.get( aggregation, 0 );
+		assertNotNull( result );
+		result.close( );
+		reader.close( );
+
+		AggregationDefinition min = createCityAggregation( "MIN" );
+		cache.put( min, createCityResultSet( min ) );
+		assertNull( cache.get( max, 0 ) );
+		result = cache.get( aggregation, 0 );
+		assertNotNull( result );
+		result.close( );
+		result = cache.get( min, 0 );
+		assertNotNull( result );
+		result.close( );
+		cache.close( );
+		documentManager.close( );
+	}
+
+	/**
+	 * The uses recorded by a cache are saved with the result sets it puts.
+	 *
+	 * @throws IOException
+	 * @throws DataException
+	 */
+	@Test
+	public void testUsesSavedOnPut( ) throws IOException, DataException
+	{
+		IDocumentManager documentManager = DocumentManagerFactory.createFileDocumentManager( );
+		AggregationResultCache cache = new AggregationResultCache( documentManager,
+				"cube",
+				"filter",
+				2 );
+		AggregationDefinition aggregation = createCityAggregation( );
+		AggregationDefinition max = createCityAggregation( "MAX" );
+		cache.put( aggregation, createCityResultSet( aggregation ) );
+		cache.put( max, createCityResultSet( max ) );
+		IAggregationResultSet result = cache.get( aggregation, 0 );
+		assertNotNull( result );
+		result.close( );
+
+		AggregationDefinition min = createCityAggregation( "MIN" );
+		cache.put( min, createCityResultSet( min ) );
+		assertNull( cache.get( max, 0 ) );
+		result = cache.get( aggregation, 0 );
+		assertNotNull( result );
+		result.close( );
+		cache.close( );
+		documentManager.close( );
+	}
+
+	/**
+	 *
+	 * @throws IOException
+	 * @throws DataException
+	 */
+	@Test
+	public void testDocumentObjectNames( ) throws IOException, DataException
+	{
+		IDocumentManager documentManager = DocumentManagerFactory.createFileDocumentManager( );
+		assertTrue( AggregationResultCache.getDocumentObjectNames( documentManager,
+				"cube" ).isEmpty( ) );
+
+		AggregationResultCache cache = new AggregationResultCache( documentManager,
+				"cube",
+				"filter",
+				10 );
+		AggregationDefinition aggregation = createCityAggregation( );
+		AggregationDefinition max = createCityAggregation( "MAX" );
+		cache.put( aggregation, createCityResultSet( aggregation ) );
+		cache.put( max, createCityResultSet( max ) );
+
+		List names = AggregationResultCache.getDocumentObjectNames( documentManager,
+				"cube" );
+		assertEquals( 3, names.size( ) );
+		assertTrue( names.contains( NamingUtil.getAggregationCacheDocName( "cube" ) ) );
+		for ( int i = 0; i < names.size( ); i++ )
+		{
+			assertTrue( documentManager.exist( (String) names.get( i ) ) );
+		}
+		documentManager.close( );
+	}
+
+	private static AggregationDefinition createCityAggregation(
+			String functionName )
+	{
+		return new AggregationDefinition( createCityAggregation( ).getLevels( ),
+				createCityAggregation( ).getSortTypes( ),
+				new AggregationFunctionDefinition[]{
+					new AggregationFunctionDefinition( functionName.toLowerCase( ),
+							"sale",
+							functionName )
+				} );
+	}
+
+	private static AggregationDefinition createCityAggregation( )
+	{
+		DimLevel[] levels = new DimLevel[]{
+				new DimLevel( "dimension", "province" ),
+				new DimLevel( "dimension", "city" )
+		};
+		AggregationFunctionDefinition[] functions = new AggregationFunctionDefinition[]{
+				new AggregationFunctionDefinition( "total", "sale", "SUM" ),
+				new AggregationFunctionDefinition( "count", "sale", "COUNT" )
+		};
+		return new AggregationDefinition( levels, new int[]{
+				0, 0
+		}, functions );
+	}
+
+	private static IAggregationResultSet createCityResultSet(
+			AggregationDefinition aggregation ) throws IOException
+	{
+		IDiskArray rows = new BufferedStructureArray( AggregationResultRow.getCreator( ),
+				100 );
+		for ( int i = 0; i < ROWS.length; i++ )
+		{
+			Member[] members = new Member[2];
+			for ( int j = 0; j < members.length; j++ )
+			{
+				members[j] = new Member( );
+				members[j].setKeyValues( new Object[]{
+					ROWS[i][j]
+				} );
+			}
+			Object[] values = new Object[aggregation.getAggregationFunctions( ).length];
+			System.arraycopy( ROWS[i], 2, values, 0, values.length );
+			rows.add( new AggregationResultRow( members, values ) );
+		}
+		return new AggregationResultSet( aggregation, rows, new String[][]{
+				{
+					"province"
+				}, {
+					"city"
+				}
+		}, null );
+	}
+}
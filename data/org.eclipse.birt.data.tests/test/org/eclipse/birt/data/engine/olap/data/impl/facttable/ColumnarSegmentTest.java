@@ -0,0 +1,247 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.data.engine.olap.data.impl.facttable;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.BitSet;
+
+import org.eclipse.birt.core.exception.BirtException;
+import org.eclipse.birt.data.engine.core.DataException;
+import org.eclipse.birt.data.engine.olap.data.api.MeasureInfo;
+import org.eclipse.birt.data.engine.olap.data.document.DocumentManagerFactory;
+import org.eclipse.birt.data.engine.olap.data.document.DocumentObjectUtil;
+import org.eclipse.birt.data.engine.olap.data.document.IDocumentManager;
+import org.eclipse.birt.data.engine.olap.data.document.IDocumentObject;
+import org.eclipse.birt.data.engine.olap.data.impl.facttable.DimensionDivider.CombinedPositionContructor;
+import org.eclipse.birt.data.engine.olap.data.util.Bytes;
+import org.eclipse.birt.data.engine.olap.data.util.DataType;
+import org.eclipse.birt.data.engine.olap.data.util.PositionBitmap;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+
+public class ColumnarSegmentTest
+{
+
+	private static final int[][] POSITIONS = {
+			{
+					1, 10, 4
+			}, {
+					1, 10, 4
+			}, {
+					7, 20, 5
+			}, {
+					3, 15, 9
+			}
+	};
+
+	/**
+	 *
+	 * @throws IOException
+	 * @throws BirtException
+	 */
+	@Test
+	public void testConvertAndRead( ) throws IOException, BirtException
+	{
+		IDocumentManager documentManager = DocumentManagerFactory.createFileDocumentManager( );
+		MeasureInfo[] measureInfo = createMeasureInfo( );
+		int[] subDimensionIndex = new int[3];
+		CombinedPositionContructor calculator = createSegment( documentManager,
+				subDimensionIndex,
+				measureInfo );
+
+		IDocumentObject documentObject = documentManager.openDocumentObject( "segment" );
+		ColumnarSegment.convert( documentObject,
+				subDimensionIndex,
+				calculator,
+				3,
+				measureInfo );
+		documentObject.close( );
+
+		documentObject = documentManager.openDocumentObject( "segment" );
+		ColumnarSegment segment = new ColumnarSegment( documentObject,
+				3,
+				measureInfo );
+		assertEquals( 4, segment.getRowCount( ) );
+		segment.readDimensionColumns( );
+		for ( int i = 0; i < POSITIONS.length; i++ )
+		{
+			for ( int j = 0; j < 3; j++ )
+			{
+				assertEquals( POSITIONS[i][j],
+						segment.getDimensionPosition( j, i ) );
+			}
+		}
+		assertFalse( segment.isSameAsPreviousRow( 0 ) );
+		assertTrue( segment.isSameAsPreviousRow( 1 ) );
+		assertFalse( segment.isSameAsPreviousRow( 2 ) );
+
+		BitSet rows = segment.selectRows( 0, bitmap( 1, 3 ) );
+		assertEquals( 3, rows.cardinality( ) );
+		assertFalse( rows.get( 2 ) );
+
+		// Only the second measure column is read
+		segment.readMeasureColumn( 1 );
+		assertNull( segment.getMeasure( 0, 0 ) );
+		for ( int i = 0; i < POSITIONS.length; i++ )
+		{
+			assertEquals( "m" + i, segment.getMeasure( 1, i ) );
+		}
+		segment.readMeasureColumn( 0 );
+		for ( int i = 0; i < POSITIONS.length; i++ )
+		{
+			assertEquals( new Double( i * 1.5 ), segment.getMeasure( 0, i ) );
+		}
+		documentObject.close( );
+		documentManager.close( );
+	}
+
+	/**
+	 *
+	 * @throws IOException
+	 * @throws BirtException
+	 */
+	@Test
+	public void testZoneMap( ) throws IOException, BirtException
+	{
+		IDocumentManager documentManager = DocumentManagerFactory.createFileDocumentManager( );
+		MeasureInfo[] measureInfo = createMeasureInfo( );
+		int[] subDimensionIndex = new int[3];
+		CombinedPositionContructor calculator = createSegment( documentManager,
+				subDimensionIndex,
+				measureInfo );
+
+		IDocumentObject documentObject = documentManager.openDocumentObject( "segment" );
+		ColumnarSegment.convert( documentObject,
+				subDimensionIndex,
+				calculator,
+				3,
+				measureInfo );
+		documentObject.seek( 0 );
+		ColumnarSegment segment = new ColumnarSegment( documentObject,
+				3,
+				measureInfo );
+		// Dimension 0 ranges from 1 to 7
+		assertTrue( segment.mayContain( 0, bitmap( 1 ) ) );
+		assertTrue( segment.mayContain( 0, bitmap( 0, 5 ) ) );
+		assertTrue( segment.mayContain( 0, bitmap( 7, 8 ) ) );
+		assertFalse( segment.mayContain( 0, bitmap( 0 ) ) );
+		assertFalse( segment.mayContain( 0, bitmap( 8, 100 ) ) );
+		// Dimension 2 ranges from 4 to 9
+		assertFalse( segment.mayContain( 2, bitmap( 1, 2, 3, 10 ) ) );
+		assertTrue( segment.mayContain( 2, bitmap( 1, 6, 10 ) ) );
+		documentObject.close( );
+		documentManager.close( );
+	}
+
+	/**
+	 * A cube with measures only has no dimension column.
+	 *
+	 * @throws IOException
+	 * @throws BirtException
+	 */
+	@Test
+	public void testConvertWithoutDimension( ) throws IOException,
+			BirtException
+	{
+		IDocumentManager documentManager = DocumentManagerFactory.createFileDocumentManager( );
+		MeasureInfo[] measureInfo = createMeasureInfo( );
+		CombinedPositionContructor calculator = new CombinedPositionContructor( new DimensionDivision[0] );
+		IDocumentObject documentObject = documentManager.createDocumentObject( "segment" );
+		// More rows than the initial capacity of the columns
+		int rowCount = 600;
+		for ( int i = 0; i < rowCount; i++ )
+		{
+			documentObject.writeBytes( new Bytes( BigInteger.ZERO.toByteArray( ) ) );
+			DocumentObjectUtil.writeValue( documentObject,
+					measureInfo[0].getDataType( ),
+					new Double( i * 1.5 ) );
+			DocumentObjectUtil.writeValue( documentObject,
+					measureInfo[1].getDataType( ),
+					"m" + i );
+		}
+		documentObject.close( );
+
+		documentObject = documentManager.openDocumentObject( "segment" );
+		ColumnarSegment.convert( documentObject,
+				new int[0],
+				calculator,
+				0,
+				measureInfo );
+		documentObject.seek( 0 );
+		ColumnarSegment segment = new ColumnarSegment( documentObject,
+				0,
+				measureInfo );
+		assertEquals( rowCount, segment.getRowCount( ) );
+		segment.readMeasureColumn( 0 );
+		segment.readMeasureColumn( 1 );
+		for ( int i = 0; i < rowCount; i++ )
+		{
+			assertEquals( new Double( i * 1.5 ), segment.getMeasure( 0, i ) );
+			assertEquals( "m" + i, segment.getMeasure( 1, i ) );
+		}
+		documentObject.close( );
+		documentManager.close( );
+	}
+
+	private static PositionBitmap bitmap( int... positions )
+	{
+		PositionBitmap result = new PositionBitmap( );
+		for ( int i = 0; i < positions.length; i++ )
+		{
+			result.add( positions[i] );
+		}
+		return result;
+	}
+
+	private static MeasureInfo[] createMeasureInfo( )
+	{
+		return new MeasureInfo[]{
+				new MeasureInfo( "measure1", DataType.DOUBLE_TYPE ),
+				new MeasureInfo( "measure2", DataType.STRING_TYPE )
+		};
+	}
+
+	/**
+	 * Writes a segment row by row, the way the fact table is saved.
+	 */
+	private static CombinedPositionContructor createSegment(
+			IDocumentManager documentManager, int[] subDimensionIndex,
+			MeasureInfo[] measureInfo ) throws IOException, DataException
+	{
+		DimensionDivision[] subDimensions = new DimensionDivision[3];
+		subDimensions[0] = new DimensionDivision( 100, 1 );
+		subDimensions[1] = new DimensionDivision( 100, 1 );
+		subDimensions[2] = new DimensionDivision( 100, 1 );
+		CombinedPositionContructor calculator = new CombinedPositionContructor( subDimensions );
+		IDocumentObject documentObject = documentManager.createDocumentObject( "segment" );
+		for ( int i = 0; i < POSITIONS.length; i++ )
+		{
+			documentObject.writeBytes( new Bytes( calculator.calculateCombinedPosition( subDimensionIndex,
+					POSITIONS[i] )
+					.toByteArray( ) ) );
+			DocumentObjectUtil.writeValue( documentObject,
+					measureInfo[0].getDataType( ),
+					new Double( i * 1.5 ) );
+			DocumentObjectUtil.writeValue( documentObject,
+					measureInfo[1].getDataType( ),
+					"m" + i );
+		}
+		documentObject.close( );
+		return calculator;
+	}
+}
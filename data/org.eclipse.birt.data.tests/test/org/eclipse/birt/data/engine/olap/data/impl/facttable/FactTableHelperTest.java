@@ -27,6 +27,7 @@ import org.eclipse.birt.data.engine.olap.data.api.cube.IHierarchy;
 import org.eclipse.birt.data.engine.olap.data.api.cube.ILevelDefn;
 import org.eclipse.birt.data.engine.olap.data.document.DocumentManagerFactory;
 import org.eclipse.birt.data.engine.olap.data.document.IDocumentManager;
+import org.eclipse.birt.data.engine.olap.data.document.IDocumentObject;
 import org.eclipse.birt.data.engine.olap.data.impl.NamingUtil;
 import org.eclipse.birt.data.engine.olap.data.impl.Traversalor;
 import org.eclipse.birt.data.engine.olap.data.impl.dimension.Dimension;
@@ -277,6 +278,10 @@ public class FactTableHelperTest {
 		factTable = factTableConstructor.load( NamingUtil.getFactTableName( "threeDimensions" ),
 				new StopSign( ) );
 		assertEquals(factTable.getSegmentCount( ), 1);
+		assertTrue( factTable.isColumnar( ) );
+		// fact tables saved before the segment format was recorded
+		assertFalse( new FactTableAccessor( withoutSegmentFormat( documentManager ) ).load( NamingUtil.getFactTableName( "threeDimensions" ),
+				new StopSign( ) ).isColumnar( ) );
 		assertEquals(factTable.getDimensionInfo( )[0].getDimensionName(), "dimension1" );
 		assertEquals(factTable.getDimensionInfo( )[0].getDimensionLength(), 3 );
 		assertEquals(factTable.getDimensionInfo( )[1].getDimensionName(), "dimension2" );
@@ -591,6 +596,48 @@ public class FactTableHelperTest {
 		}
 		return result;
 	}
+
+	/**
+	 * Returns a document manager which hides the segment format of the fact
+	 * tables.
+	 * 
+	 * @param documentManager
+	 * @return
+	 */
+	private static IDocumentManager withoutSegmentFormat(
+			final IDocumentManager documentManager )
+	{
+		return new IDocumentManager( ) {
+
+			public IDocumentObject createDocumentObject(
+					String documentObjectName ) throws IOException
+			{
+				return documentManager.createDocumentObject( documentObjectName );
+			}
+
+			public boolean exist( String documentObjectName )
+			{
+				return !documentObjectName.equals( NamingUtil.getSegmentFormatName( NamingUtil.getFactTableName( "threeDimensions" ) ) )
+						&& documentManager.exist( documentObjectName );
+			}
+
+			public IDocumentObject openDocumentObject( String documentObjectName )
+					throws IOException
+			{
+				return documentManager.openDocumentObject( documentObjectName );
+			}
+
+			public void flush( ) throws IOException
+			{
+				documentManager.flush( );
+			}
+
+			public void close( ) throws IOException
+			{
+				documentManager.close( );
+			}
+		};
+	}
 }
 
 class LevelsAndFactTableDataset implements IDatasetIterator
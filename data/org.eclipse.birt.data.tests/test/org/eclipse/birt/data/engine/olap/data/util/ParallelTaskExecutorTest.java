@@ -0,0 +1,185 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.data.engine.olap.data.util;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+import org.eclipse.birt.core.exception.BirtException;
+import org.eclipse.birt.data.engine.api.DataEngineThreadLocal;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+
+public class ParallelTaskExecutorTest
+{
+
+	/**
+	 *
+	 * @throws IOException
+	 * @throws BirtException
+	 */
+	@Test
+	public void testExecute( ) throws IOException, BirtException
+	{
+		final String tempPath = DataEngineThreadLocal.getInstance( )
+				.getPathManager( )
+				.getTempPath( );
+		final Set<String> threads = Collections.synchronizedSet( new HashSet<String>( ) );
+		final int[] results = new int[20];
+		List<Callable<Object>> tasks = new ArrayList<Callable<Object>>( );
+		for ( int i = 0; i < results.length; i++ )
+		{
+			final int index = i;
+			tasks.add( new Callable<Object>( ) {
+
+				public Object call( ) throws Exception
+				{
+					threads.add( Thread.currentThread( ).getName( ) );
+					// The tasks use the temporary directory of the caller
+					assertEquals( tempPath, DataEngineThreadLocal.getInstance( )
+							.getPathManager( )
+							.getTempPath( ) );
+					Thread.sleep( 10 );
+					results[index] = index * index;
+					return null;
+				}
+			} );
+		}
+		ParallelTaskExecutor executor = new ParallelTaskExecutor( 4 );
+		try
+		{
+			executor.execute( tasks );
+		}
+		finally
+		{
+			executor.shutdown( );
+		}
+		for ( int i = 0; i < results.length; i++ )
+		{
+			assertEquals( i * i, results[i] );
+		}
+		assertTrue( threads.size( ) > 1 );
+		assertTrue( threads.size( ) <= 4 );
+		assertFalse( threads.contains( Thread.currentThread( ).getName( ) ) );
+
+		// A single thread runs the tasks on the calling thread
+		threads.clear( );
+		new ParallelTaskExecutor( 1 ).execute( tasks );
+		assertEquals( 1, threads.size( ) );
+		assertTrue( threads.contains( Thread.currentThread( ).getName( ) ) );
+	}
+
+	/**
+	 *
+	 * @throws BirtException
+	 */
+	@Test
+	public void testException( ) throws BirtException
+	{
+		List<Callable<Object>> tasks = new ArrayList<Callable<Object>>( );
+		for ( int i = 0; i < 3; i++ )
+		{
+			final int index = i;
+			tasks.add( new Callable<Object>( ) {
+
+				public Object call( ) throws IOException
+				{
+					if ( index == 1 )
+						throw new IOException( "failed" );
+					return null;
+				}
+			} );
+		}
+		ParallelTaskExecutor executor = new ParallelTaskExecutor( 3 );
+		try
+		{
+			executor.execute( tasks );
+			fail( );
+		}
+		catch ( IOException e )
+		{
+			assertEquals( "failed", e.getMessage( ) );
+		}
+		finally
+		{
+			executor.shutdown( );
+		}
+	}
+
+	/**
+	 * The threads are shared by the executions until the executor is shut
+	 * down.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testThreadsReused( ) throws Exception
+	{
+		final Set<Thread> threads = Collections.synchronizedSet( new HashSet<Thread>( ) );
+		List<Callable<Object>> tasks = new ArrayList<Callable<Object>>( );
+		for ( int i = 0; i < 8; i++ )
+		{
+			tasks.add( new Callable<Object>( ) {
+
+				public Object call( ) throws Exception
+				{
+					threads.add( Thread.currentThread( ) );
+					Thread.sleep( 10 );
+					return null;
+				}
+			} );
+		}
+		ParallelTaskExecutor executor = new ParallelTaskExecutor( 2 );
+		try
+		{
+			for ( int i = 0; i < 5; i++ )
+			{
+				executor.execute( tasks );
+			}
+			assertTrue( threads.size( ) > 1 );
+			assertTrue( threads.size( ) <= 2 );
+		}
+		finally
+		{
+			executor.shutdown( );
+		}
+		Thread[] workers = threads.toArray( new Thread[threads.size( )] );
+		for ( int i = 0; i < workers.length; i++ )
+		{
+			workers[i].join( 5000 );
+			assertFalse( workers[i].isAlive( ) );
+		}
+
+		// The executions after a shut down start new threads
+		threads.clear( );
+		try
+		{
+			executor.execute( tasks );
+			assertTrue( Collections.disjoint( threads, Arrays.asList( workers ) ) );
+		}
+		finally
+		{
+			executor.shutdown( );
+		}
+	}
+}
@@ -0,0 +1,193 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.birt.data.engine.olap.data.util;
+
+import java.io.IOException;
+import java.util.BitSet;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+
+public class PositionBitmapTest
+{
+
+	@Test
+	public void testAddAndContains( ) throws IOException
+	{
+		PositionBitmap bitmap = new PositionBitmap( );
+		bitmap.add( 5 );
+		bitmap.add( 3 );
+		bitmap.add( 5 );
+		bitmap.add( 70000 );
+		assertEquals( 3, bitmap.getCardinality( ) );
+		assertTrue( bitmap.contains( 3 ) );
+		assertTrue( bitmap.contains( 5 ) );
+		assertTrue( bitmap.contains( 70000 ) );
+		assertFalse( bitmap.contains( 4 ) );
+		assertFalse( bitmap.contains( 65536 + 5 ) );
+
+		IDiskArray array = bitmap.toDiskArray( );
+		assertEquals( 3, array.size( ) );
+		assertEquals( Integer.valueOf( 3 ), array.get( 0 ) );
+		assertEquals( Integer.valueOf( 5 ), array.get( 1 ) );
+		assertEquals( Integer.valueOf( 70000 ), array.get( 2 ) );
+	}
+
+	@Test
+	public void testDenseChunk( )
+	{
+		// More than 4096 positions in one chunk are stored as a bitmap
+		PositionBitmap bitmap = new PositionBitmap( );
+		for ( int i = 0; i < 20000; i += 2 )
+		{
+			bitmap.add( i );
+		}
+		assertEquals( 10000, bitmap.getCardinality( ) );
+		assertTrue( bitmap.contains( 19998 ) );
+		assertFalse( bitmap.contains( 19999 ) );
+		assertEquals( 10002, bitmap.nextSetBit( 10001 ) );
+		assertEquals( -1, bitmap.nextSetBit( 19999 ) );
+	}
+
+	@Test
+	public void testNextSetBit( )
+	{
+		PositionBitmap bitmap = new PositionBitmap( );
+		bitmap.add( 10 );
+		bitmap.add( 200000 );
+		assertEquals( 10, bitmap.nextSetBit( 0 ) );
+		assertEquals( 10, bitmap.nextSetBit( 10 ) );
+		assertEquals( 200000, bitmap.nextSetBit( 11 ) );
+		assertEquals( -1, bitmap.nextSetBit( 200001 ) );
+		assertTrue( bitmap.intersects( 5, 10 ) );
+		assertFalse( bitmap.intersects( 11, 199999 ) );
+		assertTrue( bitmap.intersects( 11, 200000 ) );
+	}
+
+	@Test
+	public void testAnd( )
+	{
+		PositionBitmap bitmap1 = new PositionBitmap( );
+		PositionBitmap bitmap2 = new PositionBitmap( );
+		BitSet expected1 = new BitSet( );
+		BitSet expected2 = new BitSet( );
+		for ( int i = 0; i < 150000; i += 3 )
+		{
+			bitmap1.add( i );
+			expected1.set( i );
+		}
+		bitmap2.addRange( 1000, 9000 );
+		expected2.set( 1000, 9001 );
+		bitmap2.add( 140001 );
+		expected2.set( 140001 );
+		bitmap2.add( 300000 );
+		expected2.set( 300000 );
+
+		BitSet and = (BitSet) expected1.clone( );
+		and.and( expected2 );
+		assertSame( and, PositionBitmap.and( bitmap1, bitmap2 ) );
+
+		assertTrue( PositionBitmap.and( bitmap1, new PositionBitmap( ) )
+				.isEmpty( ) );
+	}
+
+	@Test
+	public void testAndSparse( )
+	{
+		PositionBitmap bitmap1 = new PositionBitmap( );
+		PositionBitmap bitmap2 = new PositionBitmap( );
+		BitSet expected1 = new BitSet( );
+		BitSet expected2 = new BitSet( );
+		for ( int i = 0; i < 3000; i++ )
+		{
+			bitmap1.add( i * 7 );
+			expected1.set( i * 7 );
+			bitmap2.add( i * 5 );
+			expected2.set( i * 5 );
+		}
+		bitmap1.add( 70000 );
+		expected1.set( 70000 );
+
+		BitSet and = (BitSet) expected1.clone( );
+		and.and( expected2 );
+		PositionBitmap andBitmap = PositionBitmap.and( bitmap1, bitmap2 );
+		assertSame( and, andBitmap );
+
+		// The result is independent of the operands
+		andBitmap.add( 1 );
+		and.set( 1 );
+		assertSame( and, andBitmap );
+		assertSame( expected1, bitmap1 );
+		assertSame( expected2, bitmap2 );
+	}
+
+	@Test
+	public void testMaxPosition( ) throws IOException
+	{
+		PositionBitmap bitmap = new PositionBitmap( );
+		bitmap.add( Integer.MAX_VALUE );
+		bitmap.add( 7 );
+		assertTrue( bitmap.contains( Integer.MAX_VALUE ) );
+		assertEquals( Integer.MAX_VALUE, bitmap.nextSetBit( 8 ) );
+		assertEquals( Integer.MAX_VALUE,
+				bitmap.nextSetBit( Integer.MAX_VALUE ) );
+
+		IDiskArray array = bitmap.toDiskArray( );
+		assertEquals( 2, array.size( ) );
+		assertEquals( Integer.valueOf( 7 ), array.get( 0 ) );
+		assertEquals( Integer.valueOf( Integer.MAX_VALUE ), array.get( 1 ) );
+	}
+
+	@Test
+	public void testAndDenseToSparse( )
+	{
+		PositionBitmap bitmap1 = new PositionBitmap( );
+		PositionBitmap bitmap2 = new PositionBitmap( );
+		BitSet expected = new BitSet( );
+		for ( int i = 0; i < 20000; i++ )
+		{
+			bitmap1.add( i * 2 );
+		}
+		for ( int i = 0; i < 6000; i++ )
+		{
+			bitmap2.add( i * 10 );
+		}
+		for ( int i = 0; i < 40000; i += 10 )
+		{
+			expected.set( i );
+		}
+		// The intersection of two dense chunks holds few positions
+		PositionBitmap and = PositionBitmap.and( bitmap1, bitmap2 );
+		assertSame( expected, and );
+		for ( int i = 1; i < 40000; i += 10 )
+		{
+			and.add( i );
+			expected.set( i );
+		}
+		assertSame( expected, and );
+	}
+
+	private static void assertSame( BitSet expected, PositionBitmap bitmap )
+	{
+		assertEquals( expected.cardinality( ), bitmap.getCardinality( ) );
+		int pos = bitmap.nextSetBit( 0 );
+		for ( int i = expected.nextSetBit( 0 ); i >= 0; i = expected.nextSetBit( i + 1 ) )
+		{
+			assertEquals( i, pos );
+			pos = bitmap.nextSetBit( pos + 1 );
+		}
+		assertEquals( -1, pos );
+	}
+}
@@ -26,12 +26,29 @@ public class CloseListenerManager
 		activateDteCount--;
 	}
 	
-	public void add( ICloseListener stream )
+	public synchronized void add( ICloseListener stream )
 	{
 		list.add( stream );
 	}
 	
-	public void closeAll( ) throws IOException
+	/**
+	 * Moves the listeners to another manager, so that they are closed with
+	 * the listeners of another thread.
+	 * 
+	 * @param target
+	 */
+	public void moveTo( CloseListenerManager target )
+	{
+		if ( target == this )
+			return;
+		synchronized ( target )
+		{
+			target.list.addAll( list );
+		}
+		list.clear( );
+	}
+	
+	public synchronized void closeAll( ) throws IOException
 	{
 		for( int i = 0; i < list.size( ); i++ )
 		{
@@ -156,6 +156,40 @@ abstract public class DataEngine
 	 */
 	public static String IN_MEMORY_CUBE_SIZE = "org.eclipse.birt.data.engine.cube.inmemory.size";
 	
+	/**
+	 * The maximum number of aggregation result sets cached for a cube. The cached
+	 * result sets are saved with the cube and reused by later queries on it with
+	 * the same filters. Zero or a negative integer disables the cache, which is
+	 * the default.
+	 */
+	public static String CUBE_AGGREGATION_CACHE_SIZE = "org.eclipse.birt.data.engine.cube.aggregationCache.size";
+	
+	/**
+	 * The maximum number of threads used to build a cube. Level indexes and the
+	 * dimension positions of fact table rows are computed concurrently. One
+	 * builds the cube on the calling thread. Zero or a negative integer means
+	 * the number of available processors, which is the default.
+	 */
+	public static String CUBE_BUILD_THREAD_COUNT = "org.eclipse.birt.data.engine.cube.build.threadCount";
+	
+	/**
+	 * Indicates whether joint data sets are joined with a hash join rather than
+	 * by sorting both data sets on the join conditions. The rows of the smaller
+	 * data set are kept in hash tables, which are written to disk when they
+	 * exceed the memory buffer size. The rows of a hash join are not sorted on
+	 * the join conditions. Accepts Boolean or String "true"; false by default.
+	 */
+	public static String JOINT_DATA_SET_HASH_JOIN = "org.eclipse.birt.data.engine.jointdataset.hashJoin";
+	
+	/**
+	 * The maximum number of threads which execute the ODA statements of the
+	 * independent queries of a report ahead of their report items, so that
+	 * their data sources are queried concurrently. It also bounds the number
+	 * of prefetched statements, each of which opens a connection of its own.
+	 * Zero or a negative integer, which is the default, disables the prefetch.
+	 */
+	public static String QUERY_PREFETCH_THREAD_COUNT = "org.eclipse.birt.data.engine.query.prefetch.threadCount";
+	
 	/**
 	 * Creates a new instance of DataEngine, using the specified
 	 * DataEngineContext as its running environment
@@ -298,6 +298,31 @@ class DataSource implements IDataSource
         assert isOpen();
         CacheConnection conn = getAvailableConnection();
         assert conn.currentStatements < conn.maxStatements;
+        return prepareStatement( conn, queryText, dataSetType, querySpec );
+    }
+    
+    /**
+     * Prepares an ODA Statement on a new connection, which is not used by other
+     * statements until the statement is closed, so that the statement can be
+     * executed by another thread than the statements of the pool.
+     * Returned PreparedStatement must be closed by calling closeStatement.
+     */
+    @SuppressWarnings("restriction")
+    synchronized PreparedStatement prepareStatementOnNewConnection( String queryText,
+            String dataSetType, QuerySpecification querySpec )
+    	throws DataException
+    {
+        assert isOpen();
+        CacheConnection conn = newConnection();
+        conn.maxStatements = 1;
+        return prepareStatement( conn, queryText, dataSetType, querySpec );
+    }
+    
+    @SuppressWarnings("restriction")
+    private PreparedStatement prepareStatement( CacheConnection conn, String queryText,
+            String dataSetType, QuerySpecification querySpec )
+    	throws DataException
+    {
         ++ conn.currentStatements;
         PreparedStatement stmt = conn.odaConn.prepareStatement( queryText, dataSetType, querySpec );
         
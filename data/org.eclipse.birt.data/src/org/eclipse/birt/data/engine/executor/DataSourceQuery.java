@@ -15,6 +15,7 @@ package org.eclipse.birt.data.engine.executor;
 
 import java.lang.reflect.Array;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Date;
 import java.util.Iterator;
@@ -177,6 +178,9 @@ public class DataSourceQuery extends BaseQuery implements IDataSourceQuery, IPre
 	
 	private IQueryContextVisitor qcv;
 	
+	// whether the statement is prepared for the query prefetcher
+	private boolean prefetch;
+	
 	private static Logger logger = Logger.getLogger( DataSourceQuery.class.getName( ) );
 
 
@@ -291,6 +295,12 @@ public class DataSourceQuery extends BaseQuery implements IDataSourceQuery, IPre
 					queryType,
 					this.querySpecificaton );
 		}
+		else if ( prefetch )
+		{
+			odaStatement = dataSource.prepareStatementOnNewConnection( queryText,
+					queryType,
+					this.querySpecificaton );
+		}
 		else
 		{
 			odaStatement = dataSource.prepareStatement( queryText,
@@ -971,10 +981,13 @@ public class DataSourceQuery extends BaseQuery implements IDataSourceQuery, IPre
 			}
 		}
 		
+		// the query prefetcher may have executed the same statement already
+		boolean prefetched = takePrefetchedStatement( );
+		
     	ICancellable queryCanceller = new OdaQueryCanceller( odaStatement, dataSource, session.getStopSign(), this );
     	this.session.getCancelManager( ).register( queryCanceller );
     	
-    	if( !session.getStopSign().isStopped())
+    	if( !session.getStopSign().isStopped() && !prefetched )
     	{    
 			long startTime = System.currentTimeMillis( );
     		odaStatement.execute( );
@@ -1085,6 +1098,107 @@ public class DataSourceQuery extends BaseQuery implements IDataSourceQuery, IPre
 		return ri;
     }
     
+	/**
+	 * Makes the statement of this query be prepared on a connection of its
+	 * own, so that it can be executed by the query prefetcher of the session.
+	 * 
+	 * @param prefetch
+	 */
+	public void setPrefetch( boolean prefetch )
+	{
+		this.prefetch = prefetch;
+	}
+	
+	/**
+	 * Hands the prepared statement of this query over to the query prefetcher
+	 * of the session, which starts executing it. This query can no longer be
+	 * executed afterwards.
+	 * 
+	 * @return whether the statement has been handed over; the query must be
+	 *         closed otherwise
+	 * @throws DataException
+	 */
+	public boolean startPrefetch( ) throws DataException
+	{
+		assert odaStatement != null;
+		
+		QueryPrefetcher prefetcher = session.getQueryPrefetcher( );
+		if ( !prefetch || prefetcher == null || !canPrefetch( ) )
+			return false;
+		
+		this.setInputParameterBinding( );
+		prefetcher.submit( getPrefetchKey( ), dataSource, odaStatement );
+		odaStatement = null;
+		return true;
+	}
+	
+	/**
+	 * Replaces the statement of this query by the statement of the query
+	 * prefetcher which has executed the same query, if any.
+	 * 
+	 * @return whether the statement has been replaced
+	 * @throws DataException
+	 */
+	private boolean takePrefetchedStatement( ) throws DataException
+	{
+		QueryPrefetcher prefetcher = session.getQueryPrefetcher( );
+		if ( prefetch || prefetcher == null || !canPrefetch( ) )
+			return false;
+		
+		PreparedStatement statement = prefetcher.take( getPrefetchKey( ) );
+		if ( statement == null )
+			return false;
+		
+		this.dataSource.closeStatement( odaStatement );
+		odaStatement = statement;
+		logger.fine( "Use the prefetched statement of query: " + queryText );
+		return true;
+	}
+	
+	/**
+	 * The query specification set after the statement is prepared, which holds
+	 * a combined query or the pushed down operations, is not part of the key
+	 * of a prefetched statement, and neither is the row limit of the data set
+	 * cache.
+	 * 
+	 * @return whether the statement of this query may be prefetched
+	 * @throws DataException
+	 */
+	private boolean canPrefetch( ) throws DataException
+	{
+		return this.querySpecificaton == null
+				&& !session.getDataSetCacheManager( ).doesSaveToCache( );
+	}
+	
+	/**
+	 * The statements of two queries with the same key return the same result
+	 * set.
+	 * 
+	 * @return the key of the prepared statement of this query
+	 */
+	private Object getPrefetchKey( )
+	{
+		List<Object> parameterValues = new ArrayList<Object>( );
+		Iterator it = getInputParamValues( ).iterator( );
+		while ( it.hasNext( ) )
+		{
+			ParameterBinding paramBind = (ParameterBinding) it.next( );
+			parameterValues.add( Arrays.asList( paramBind.getName( ),
+					Integer.valueOf( paramBind.getPosition( ) ),
+					paramBind.getValue( ) ) );
+		}
+		return Arrays.asList( dataSource,
+				getQueryDefinition( ),
+				queryType,
+				queryText,
+				propNames,
+				propValues,
+				parameterValues,
+				Integer.valueOf( getRowFetchLimit( ) ),
+				projectedFields == null ? null
+						: Arrays.asList( projectedFields ) );
+	}
+	
 	private static class OdaQueryCanceller implements ICancellable
     {
     	private PreparedStatement statement;
@@ -0,0 +1,230 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.data.engine.executor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.eclipse.birt.data.engine.core.DataException;
+import org.eclipse.birt.data.engine.core.security.ThreadSecurity;
+import org.eclipse.birt.data.engine.odaconsumer.PreparedStatement;
+
+/**
+ * Executes the ODA statements of the queries of a data engine session before
+ * the queries are executed, on a bounded number of threads. The statements are
+ * prepared by the session thread, each on a connection of its own, and only
+ * their execution runs on the prefetch threads, since the scripts and the
+ * session are not thread safe. A query whose statement has the key of a
+ * prefetched statement takes it over, instead of executing its own. Since each
+ * pending statement holds a connection, the data engine submits no more
+ * statements than the thread count.
+ */
+public class QueryPrefetcher
+{
+	private static Logger logger = Logger.getLogger( QueryPrefetcher.class.getName( ) );
+
+	private int threadCount;
+	private ExecutorService executor;
+	private Map<Object, PrefetchedStatement> statements = new HashMap<Object, PrefetchedStatement>( );
+	private boolean closed;
+
+	/**
+	 *
+	 * @param threadCount
+	 *            the maximum number of statements executed at the same time
+	 */
+	public QueryPrefetcher( int threadCount )
+	{
+		this.threadCount = Math.max( 1, threadCount );
+	}
+
+	/**
+	 *
+	 * @return the maximum number of statements executed at the same time
+	 */
+	public int getThreadCount( )
+	{
+		return threadCount;
+	}
+
+	/**
+	 *
+	 * @return the number of submitted statements which have not been taken
+	 *         over or closed
+	 */
+	public synchronized int getPendingStatementCount( )
+	{
+		return statements.size( );
+	}
+
+	/**
+	 * Starts the execution of a prepared statement. The statement is closed
+	 * instead if a statement with the same key has already been submitted.
+	 *
+	 * @param key
+	 * @param dataSource
+	 *            the data source which prepared the statement
+	 * @param statement
+	 */
+	synchronized void submit( Object key, DataSource dataSource,
+			final PreparedStatement statement )
+	{
+		if ( closed || statements.containsKey( key ) )
+		{
+			dataSource.closeStatement( statement );
+			return;
+		}
+		if ( executor == null )
+		{
+			executor = Executors.newFixedThreadPool( threadCount,
+					new ThreadFactory( ) {
+
+						public Thread newThread( Runnable r )
+						{
+							Thread thread = ThreadSecurity.createThread( r );
+							thread.setName( "BIRT query prefetch " + thread.getId( ) ); //$NON-NLS-1$
+							thread.setDaemon( true );
+							return thread;
+						}
+					} );
+		}
+		Future<?> future = executor.submit( new Callable<Object>( ) {
+
+			public Object call( ) throws Exception
+			{
+				statement.execute( );
+				return null;
+			}
+		} );
+		statements.put( key,
+				new PrefetchedStatement( dataSource, statement, future ) );
+	}
+
+	/**
+	 * Takes over the prefetched statement of a key, once it has been executed.
+	 *
+	 * @param key
+	 * @return the executed statement, or null if no statement has the key or
+	 *         its execution failed
+	 */
+	PreparedStatement take( Object key )
+	{
+		PrefetchedStatement prefetched;
+		synchronized ( this )
+		{
+			prefetched = statements.remove( key );
+		}
+		if ( prefetched == null )
+			return null;
+		try
+		{
+			prefetched.future.get( );
+			return prefetched.statement;
+		}
+		catch ( ExecutionException e )
+		{
+			// The query executes its own statement, which reports the error
+			logger.log( Level.FINE,
+					"The prefetched statement failed", //$NON-NLS-1$
+					e.getCause( ) );
+		}
+		catch ( InterruptedException e )
+		{
+			Thread.currentThread( ).interrupt( );
+		}
+		prefetched.close( );
+		return null;
+	}
+
+	/**
+	 * Cancels and closes the statements which have not been taken over, and
+	 * stops the prefetch threads.
+	 */
+	public void close( )
+	{
+		List<PrefetchedStatement> remaining;
+		synchronized ( this )
+		{
+			closed = true;
+			remaining = new ArrayList<PrefetchedStatement>( statements.values( ) );
+			statements.clear( );
+		}
+		for ( int i = 0; i < remaining.size( ); i++ )
+		{
+			remaining.get( i ).close( );
+		}
+		if ( executor != null )
+		{
+			executor.shutdownNow( );
+		}
+	}
+
+	/**
+	 * A statement being executed by a prefetch thread.
+	 */
+	private static class PrefetchedStatement
+	{
+		private DataSource dataSource;
+		private PreparedStatement statement;
+		private Future<?> future;
+
+		PrefetchedStatement( DataSource dataSource,
+				PreparedStatement statement, Future<?> future )
+		{
+			this.dataSource = dataSource;
+			this.statement = statement;
+			this.future = future;
+		}
+
+		/**
+		 * Cancels the execution of the statement, waits for it to stop and
+		 * closes the statement.
+		 */
+		void close( )
+		{
+			if ( !future.cancel( false ) && !future.isDone( ) )
+			{
+				try
+				{
+					statement.cancel( );
+				}
+				catch ( DataException e )
+				{
+					// Not all drivers can cancel a statement; wait for it
+					logger.log( Level.FINE, e.getLocalizedMessage( ), e );
+				}
+				try
+				{
+					future.get( );
+				}
+				catch ( ExecutionException e )
+				{
+				}
+				catch ( InterruptedException e )
+				{
+					Thread.currentThread( ).interrupt( );
+				}
+			}
+			dataSource.closeStatement( statement );
+		}
+	}
+}
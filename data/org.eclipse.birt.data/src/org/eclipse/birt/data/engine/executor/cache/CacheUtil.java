@@ -114,6 +114,26 @@ public class CacheUtil
 		}
 	}
 
+	/**
+	 * 
+	 * @param appContext
+	 * @return the maximum number of aggregation result sets cached for a cube
+	 */
+	public static int getCubeAggregationCacheSize( Map appContext )
+	{
+		if ( appContext == null )
+			return 0;
+		Object cacheSize = appContext.get( DataEngine.CUBE_AGGREGATION_CACHE_SIZE );
+		if ( cacheSize != null )
+		{
+			return Integer.parseInt( cacheSize.toString( ) );
+		}
+		else
+		{
+			return 0;
+		}
+	}
+
 	/**
 	 * 
 	 * @param propValue
@@ -66,6 +66,16 @@ public class OdiAdapter
 	private IResultClass resultClass;
 	
 	private Set columnIndexListForTypeConvert = null ;
+	
+	// the number of rows read from Oda at a time
+	private static final int ROW_BLOCK_SIZE = 64;
+	
+	// the rows read ahead from Oda, and the number and index of the ones
+	// which are not fetched yet
+	private Object[][] rowBlock;
+	private int rowBlockSize;
+	private int rowBlockIndex;
+	
 	/**
 	 * Construction
 	 * 
@@ -168,12 +178,40 @@ public class OdiAdapter
 		this.populator = populator;
 	}
 	
-	private IResultObject getConvertedResultObject( IResultObject resultObject ) throws DataException
+	/**
+	 * Returns the next row of Oda. The rows are read into a block of rows,
+	 * whose buffers are reused if the values are converted into a new row;
+	 * otherwise a buffer is handed over to the result object, which is kept
+	 * by the caches, and a new one is created by the next block fetch.
+	 * 
+	 * @return the next row; null if there are no more rows
+	 * @throws DataException
+	 */
+	private IResultObject fetchOdaRow( ) throws DataException
 	{
-		if ( resultObject == null )
-			return null;
+		if ( rowBlockIndex == rowBlockSize )
+		{
+			if ( rowBlock == null )
+				rowBlock = new Object[ROW_BLOCK_SIZE][];
+			else if ( rowBlockSize < rowBlock.length )
+				// Oda has no more rows, do not read beyond the end
+				return null;
+			rowBlockSize = odaResultSet.fetch( rowBlock );
+			rowBlockIndex = 0;
+			if ( rowBlockSize == 0 )
+				return null;
+		}
+		Object[] row = rowBlock[rowBlockIndex++];
 		if ( columnIndexListForTypeConvert == null )
-			return resultObject;
+		{
+			rowBlock[rowBlockIndex - 1] = null;
+			return new ResultObject( odaResultSet.getMetaData( ), row );
+		}
+		return new ResultObject( resultClass, getConvertedRow( row ) );
+	}
+	
+	private Object[] getConvertedRow( Object[] row ) throws DataException
+	{
 		Object[] obj = new Object[resultClass.getFieldCount( )];
 		for ( int i = 1; i <= resultClass.getFieldCount( ); i++ )
 		{
@@ -181,7 +219,7 @@ public class OdiAdapter
 			{
 				try
 				{
-					obj[i - 1] = DataTypeUtil.convert( resultObject.getFieldValue( i ),
+					obj[i - 1] = DataTypeUtil.convert( row[i - 1],
 							DataTypeUtil.toApiDataType( resultClass.getFieldMetaData( i )
 									.getDataType( ) ) );
 				}
@@ -192,16 +230,16 @@ public class OdiAdapter
 			}
 			else
 			{
-				obj[i - 1] = resultObject.getFieldValue( i );
+				obj[i - 1] = row[i - 1];
 			}
 		}
-		IResultObject result = new ResultObject( resultClass, obj );
-		return result;
+		return obj;
 	}
 	
 	/**
 	 * Fetch data from Oda or Odi. After the fetch is done, the cursor
-	 * must stay at the row which is fetched.
+	 * must stay at the row which is fetched, except for Oda, whose rows
+	 * are read ahead in blocks.
 	 * 
 	 * @param stopSign
 	 * @return
@@ -211,7 +249,7 @@ public class OdiAdapter
 	{
 		if ( odaResultSet != null )
 		{
-			return getConvertedResultObject( odaResultSet.fetch( ) );
+			return fetchOdaRow( );
 		}
 		else if ( datasetToCache != null )
 		{
@@ -38,6 +38,7 @@ import org.eclipse.birt.data.engine.api.IShutdownListener;
 import org.eclipse.birt.data.engine.core.DataException;
 import org.eclipse.birt.data.engine.core.security.FileSecurity;
 import org.eclipse.birt.data.engine.executor.DataSetCacheManager;
+import org.eclipse.birt.data.engine.executor.QueryPrefetcher;
 import org.eclipse.birt.data.engine.impl.document.QueryResults;
 import org.eclipse.birt.data.engine.olap.api.IPreparedCubeQuery;
 import org.eclipse.birt.data.engine.olap.api.query.ICubeQueryDefinition;
@@ -432,6 +433,55 @@ public class DataEngineImpl extends DataEngine
 		return result;
 	}
 	
+	/**
+	 * Starts executing the ODA statements of prepared queries, which have no
+	 * outer results, on the threads of a query prefetcher, so that independent
+	 * data sets are read from their data sources concurrently. The queries are
+	 * executed as usual afterwards, and an execution whose statement has the
+	 * same query text, properties and parameter values as a prefetched one
+	 * reads the result set of the prefetched statement. The queries which
+	 * cannot be prefetched are skipped.
+	 * <p>
+	 * Each prefetched statement holds a connection of its own until it is
+	 * taken over and closed, so at most threadCount statements are prefetched;
+	 * the other queries are prepared when they are executed, on the
+	 * connections shared by the queries of their data source.
+	 * 
+	 * @param queries
+	 * @param scope
+	 *            the scope in which the queries will be executed
+	 * @param threadCount
+	 *            the maximum number of statements executed at the same time;
+	 *            nothing is prefetched if it is not positive
+	 */
+	public void prefetch( IPreparedQuery[] queries, Scriptable scope,
+			int threadCount )
+	{
+		if ( threadCount <= 0 || dataSources == null )
+			return;
+		
+		if ( session.getQueryPrefetcher( ) == null )
+			session.setQueryPrefetcher( new QueryPrefetcher( threadCount ) );
+		QueryPrefetcher prefetcher = session.getQueryPrefetcher( );
+		for ( int i = 0; i < queries.length; i++ )
+		{
+			// a statement is prepared on a new connection of its own
+			if ( prefetcher.getPendingStatementCount( ) >= prefetcher.getThreadCount( ) )
+				break;
+			if ( !( queries[i] instanceof PreparedOdaDSQuery ) )
+				continue;
+			try
+			{
+				( (PreparedOdaDSQuery) queries[i] ).prefetch( scope );
+			}
+			catch ( DataException e )
+			{
+				// The query reports the error when it is executed
+				logger.log( Level.FINE, "Fails to prefetch a query", e );
+			}
+		}
+	}
+	
 	/**
 	 * Provides a hint to DtE that the consumer is done with the given 
 	 * data source connection, and 
@@ -549,6 +599,13 @@ public class DataEngineImpl extends DataEngine
 			return;
 		}
 		
+		// Stop the prefetched statements before their connections are closed
+		if ( session.getQueryPrefetcher( ) != null )
+		{
+			session.getQueryPrefetcher( ).close( );
+			session.setQueryPrefetcher( null );
+		}
+		
 		// Close all open data sources
 		for ( DataSourceRuntime ds : dataSources.values( ) )
 		{
@@ -36,6 +36,7 @@ import org.eclipse.birt.data.engine.api.IDataScriptEngine;
 import org.eclipse.birt.data.engine.api.IShutdownListener;
 import org.eclipse.birt.data.engine.core.DataException;
 import org.eclipse.birt.data.engine.executor.DataSetCacheManager;
+import org.eclipse.birt.data.engine.executor.QueryPrefetcher;
 import org.eclipse.birt.data.engine.impl.document.NamingRelation;
 import org.eclipse.birt.data.engine.impl.document.QueryResultIDUtil;
 import org.mozilla.javascript.ImporterTopLevel;
@@ -53,6 +54,7 @@ public class DataEngineSession
 	private Map context;
 	private Scriptable scope;
 	private DataSetCacheManager dataSetCacheManager;
+	private QueryPrefetcher queryPrefetcher;
 	private DataEngineImpl engine;
 	private String tempDir;
 	private QueryResultIDUtil queryResultIDUtil;
@@ -372,6 +374,24 @@ public class DataEngineSession
 		return this.dataSetCacheManager;
 	}
 	
+	/**
+	 * 
+	 * @return the query prefetcher, or null if queries are not prefetched
+	 */
+	public QueryPrefetcher getQueryPrefetcher( )
+	{
+		return this.queryPrefetcher;
+	}
+	
+	/**
+	 * 
+	 * @param queryPrefetcher
+	 */
+	public void setQueryPrefetcher( QueryPrefetcher queryPrefetcher )
+	{
+		this.queryPrefetcher = queryPrefetcher;
+	}
+	
 	public static ClassLoader getCurrentClassLoader( )
 	{
 		return classLoaderHolder.get( );
@@ -74,8 +74,8 @@ public class EngineExecutionHints implements IEngineExecutionHints
 						if( design instanceof IScriptDataSetDesign)
 							continue;
 
-						if( design instanceof ICacheable  )
-							DataSetDesignHelper.populateDataSetNames( dataEngine.getDataSetDesign( dataSetName ), dataEngine, temp2 );
+						if( design instanceof ICacheable || design instanceof IJointDataSetDesign )
+							populateBaseDataSetNames( design, dataEngine, temp2 );
 												
 						if( qd.getParentQuery() != null && qd.getInputParamBindings().size() == 0 )
 						{
@@ -86,6 +86,14 @@ public class EngineExecutionHints implements IEngineExecutionHints
 									this.cachedDataSetNames.add( temp2.get( i ) );
 							}
 						}
+						// A nested query bound to the outer rows executes its data
+						// set with other parameter values for each row, so it
+						// never shares the results with another query.
+						if ( qd.getParentQuery( ) != null
+								&& QueryDefinitionUtil.hasRowReferenceInParameterBindings( qd ) )
+						{
+							temp2.clear( );
+						}
 						for( int i =0;i<temp2.size( );i++)
 						{
 							if ( ( (BaseDataSetDesign) dataEngine.getDataSetDesign( temp2.get( i )
@@ -135,6 +143,34 @@ public class EngineExecutionHints implements IEngineExecutionHints
 		}
 	}
 	
+	/**
+	 * Collects the names of the data sets whose ODA queries are executed for
+	 * a data set design, which are the leaves of a joint data set. The
+	 * results of such a data set are shared by all the queries and joint
+	 * data sets which use it.
+	 * 
+	 * @param design
+	 * @param dataEngine
+	 * @param names
+	 * @throws DataException
+	 */
+	private static void populateBaseDataSetNames( IBaseDataSetDesign design,
+			DataEngineImpl dataEngine, List names ) throws DataException
+	{
+		List allNames = new ArrayList( );
+		DataSetDesignHelper.populateDataSetNames( design, dataEngine, allNames );
+		for ( int i = 0; i < allNames.size( ); i++ )
+		{
+			IBaseDataSetDesign child = dataEngine.getDataSetDesign( allNames.get( i )
+					.toString( ) );
+			if ( child instanceof IJointDataSetDesign
+					|| child instanceof IScriptDataSetDesign
+					|| !( child instanceof BaseDataSetDesign ) )
+				continue;
+			names.add( allNames.get( i ) );
+		}
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * @see org.eclipse.birt.data.engine.impl.IQueryExecutionHints#needCacheDataSet(java.lang.String)
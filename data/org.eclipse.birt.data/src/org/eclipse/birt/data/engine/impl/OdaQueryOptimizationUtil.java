@@ -11,24 +11,92 @@
 
 package org.eclipse.birt.data.engine.impl;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.regex.Pattern;
 
+import org.eclipse.birt.core.data.DataType;
+import org.eclipse.birt.core.data.DataTypeUtil;
+import org.eclipse.birt.core.data.ExpressionUtil;
+import org.eclipse.birt.core.exception.BirtException;
+import org.eclipse.birt.data.engine.api.IBaseDataSetDesign;
+import org.eclipse.birt.data.engine.api.IBaseExpression;
 import org.eclipse.birt.data.engine.api.IBinding;
+import org.eclipse.birt.data.engine.api.IColumnDefinition;
+import org.eclipse.birt.data.engine.api.IComputedColumn;
+import org.eclipse.birt.data.engine.api.IConditionalExpression;
+import org.eclipse.birt.data.engine.api.IExpressionCollection;
+import org.eclipse.birt.data.engine.api.IFilterDefinition;
 import org.eclipse.birt.data.engine.api.IOdaDataSetDesign;
 import org.eclipse.birt.data.engine.api.IQueryDefinition;
+import org.eclipse.birt.data.engine.api.IScriptExpression;
+import org.eclipse.birt.data.engine.api.querydefn.BaseExpression;
 import org.eclipse.birt.data.engine.core.DataException;
+import org.eclipse.birt.data.engine.odaconsumer.QuerySpecHelper;
 import org.eclipse.datatools.connectivity.oda.spec.QuerySpecification;
 import org.eclipse.datatools.connectivity.oda.spec.ValidationContext;
+import org.eclipse.datatools.connectivity.oda.spec.result.ColumnIdentifier;
+import org.eclipse.datatools.connectivity.oda.spec.result.FilterExpression;
+import org.eclipse.datatools.connectivity.oda.spec.result.ResultSetSpecification;
+import org.eclipse.datatools.connectivity.oda.spec.result.filter.AndExpression;
+import org.eclipse.datatools.connectivity.oda.spec.result.filter.CustomExpression;
+import org.eclipse.datatools.connectivity.oda.spec.result.filter.ExpressionArguments;
+import org.eclipse.datatools.connectivity.oda.spec.result.filter.ExpressionVariable;
+import org.eclipse.datatools.connectivity.oda.spec.result.filter.OrExpression;
+import org.eclipse.datatools.connectivity.oda.spec.util.QuerySpecificationHelper;
 
 /**
- * 
+ * Pushes the filters of an ODA data set down to the ODA driver, through the
+ * result set specification of a query specification.
+ * <p>
+ * A filter is pushed down if it compares a column of the data set with
+ * constant values. The filters of the query specification have the SQL
+ * semantics, where a null value only matches the IsNull filter, so a filter
+ * which is true for a null value in BIRT, such as a "less than" filter, is
+ * combined with an IsNull filter. The pushed down filters are removed from the
+ * data set design, and restored by <code>OptimizationRollbackHelper</code> if
+ * the query specification is not valid.
+ * <p>
+ * The filters of a string column are only pushed down if the data source sets
+ * the PUSH_DOWN_STRING_FILTERS property to true, since the database compares
+ * strings in its own collation, which may ignore the case or the trailing
+ * spaces.
  */
 
 public class OdaQueryOptimizationUtil
 {
 
+	/**
+	 * The property of a data source which allows the filters of its string
+	 * columns to be done by the database, "true" or "false". false by
+	 * default.
+	 */
+	public static final String PUSH_DOWN_STRING_FILTERS = "odaPushDownStringFilters"; //$NON-NLS-1$
+
+	// the ids of the filters, as declared by the dynamicResultSet extension of
+	// the ODA drivers
+	private static final String FILTER_EQUAL = "Equal"; //$NON-NLS-1$
+	private static final String FILTER_NOT_EQUAL = "NotEqual"; //$NON-NLS-1$
+	private static final String FILTER_LESS_THAN = "LessThan"; //$NON-NLS-1$
+	private static final String FILTER_LESS_THAN_OR_EQUAL = "LessThanOrEqual"; //$NON-NLS-1$
+	private static final String FILTER_GREATER_THAN = "GreaterThan"; //$NON-NLS-1$
+	private static final String FILTER_GREATER_THAN_OR_EQUAL = "GreaterThanOrEqual"; //$NON-NLS-1$
+	private static final String FILTER_IS_NULL = "IsNull"; //$NON-NLS-1$
+	private static final String FILTER_IS_NOT_NULL = "IsNotNull"; //$NON-NLS-1$
+	private static final String FILTER_BETWEEN = "Between"; //$NON-NLS-1$
+	private static final String FILTER_NOT_BETWEEN = "NotBetween"; //$NON-NLS-1$
+	private static final String FILTER_IN = "In"; //$NON-NLS-1$
+	private static final String FILTER_NOT_IN = "NotIn"; //$NON-NLS-1$
+	private static final String FILTER_LIKE = "Like"; //$NON-NLS-1$
+
+	private static final Pattern INTEGER_LITERAL = Pattern.compile( "-?\\d+" ); //$NON-NLS-1$
+	private static final Pattern DECIMAL_LITERAL = Pattern.compile( "-?(\\d+\\.?\\d*|\\.\\d+)([eE][-+]?\\d+)?" ); //$NON-NLS-1$
 
 	public static QuerySpecification optimizeExecution( String dataSourceId,
 			ValidationContext validationContext,
@@ -36,9 +104,516 @@ public class OdaQueryOptimizationUtil
 			DataEngineSession session, Map appContext,
 			IQueryContextVisitor contextVisitor ) throws DataException
 	{
+		return optimizeExecution( dataSourceId,
+				validationContext,
+				dataSetDesign,
+				query,
+				session,
+				appContext,
+				contextVisitor,
+				false );
+	}
+
+	/**
+	 * Pushes the filters of a data set down to the ODA driver.
+	 *
+	 * @param dataSourceId
+	 * @param validationContext
+	 * @param dataSetDesign
+	 * @param query
+	 * @param session
+	 * @param appContext
+	 * @param contextVisitor
+	 * @param pushDownStringFilters
+	 *            whether the filters of the string columns are pushed down
+	 * @return the query specification, or null if no filter is pushed down
+	 * @throws DataException
+	 */
+	public static QuerySpecification optimizeExecution( String dataSourceId,
+			ValidationContext validationContext,
+			IOdaDataSetDesign dataSetDesign, IQueryDefinition query,
+			DataEngineSession session, Map appContext,
+			IQueryContextVisitor contextVisitor, boolean pushDownStringFilters )
+			throws DataException
+	{
+		List filters = dataSetDesign.getFilters( );
+		if ( filters == null
+				|| filters.isEmpty( )
+				|| !canPushDownFilters( dataSetDesign ) )
+			return null;
+
+		String extensionId = validationContext.getExtensionContributor( )
+				.getDeclaringExtensionId( );
+		Map<String, IColumnDefinition> columns = getResultColumns( dataSetDesign );
+		List<IFilterDefinition> pushedFilters = new ArrayList<IFilterDefinition>( );
+		List<FilterExpression> filterExprs = new ArrayList<FilterExpression>( );
+		for ( int i = 0; i < filters.size( ); i++ )
+		{
+			IFilterDefinition filter = (IFilterDefinition) filters.get( i );
+			FilterExpression filterExpr = toFilterExpression( filter,
+					columns,
+					extensionId,
+					pushDownStringFilters );
+			if ( filterExpr != null )
+			{
+				pushedFilters.add( filter );
+				filterExprs.add( filterExpr );
+			}
+		}
+		if ( filterExprs.isEmpty( ) )
+			return null;
+
+		QuerySpecificationHelper specHelper = new QuerySpecHelper( dataSourceId,
+				dataSetDesign.getExtensionID( ) ).getFactoryHelper( );
+		QuerySpecification querySpec = specHelper.createQuerySpecification( );
+		ResultSetSpecification resultSetSpec = specHelper.createResultSetSpecification( );
+		if ( filterExprs.size( ) == 1 )
+		{
+			resultSetSpec.setFilterSpecification( filterExprs.get( 0 ) );
+		}
+		else
+		{
+			AndExpression andExpr = new AndExpression( );
+			for ( FilterExpression filterExpr : filterExprs )
+				andExpr.add( filterExpr );
+			resultSetSpec.setFilterSpecification( andExpr );
+		}
+		querySpec.setResultSetSpecification( resultSetSpec );
+
+		// the pushed down filters are done by the ODA driver
+		filters.removeAll( pushedFilters );
+		return querySpec;
+	}
+
+	/**
+	 * Indicates whether a data source allows the filters of the string columns
+	 * to be pushed down, with its public or private PUSH_DOWN_STRING_FILTERS
+	 * property.
+	 *
+	 * @param dataSource
+	 * @return
+	 */
+	public static boolean canPushDownStringFilters(
+			OdaDataSourceRuntime dataSource )
+	{
+		Object value = dataSource.getPublicProperties( ) == null
+				? null
+				: dataSource.getPublicProperties( )
+						.get( PUSH_DOWN_STRING_FILTERS );
+		if ( value == null && dataSource.getPrivateProperties( ) != null )
+			value = dataSource.getPrivateProperties( )
+					.get( PUSH_DOWN_STRING_FILTERS );
+		return value != null
+				&& Boolean.valueOf( value.toString( ).trim( ) ).booleanValue( );
+	}
+
+	/**
+	 * Indicates whether the result of the data set is the same whether its
+	 * filters are applied before or after the rows are processed by BIRT.
+	 *
+	 * @param dataSetDesign
+	 * @return
+	 */
+	private static boolean canPushDownFilters( IOdaDataSetDesign dataSetDesign )
+	{
+		// the rows are limited before the filters are applied
+		if ( dataSetDesign.getRowFetchLimit( ) > 0 )
+			return false;
+		// the values are compared in the collation of a locale, or with
+		// another ordering of null values
+		if ( dataSetDesign.getCompareLocale( ) != null
+				|| ( dataSetDesign.getNullsOrdering( ) != null && !IBaseDataSetDesign.NULLS_ORDERING_NULLS_LOWEST.equals( dataSetDesign.getNullsOrdering( ) ) ) )
+			return false;
+		// the values may be changed by the onFetch script
+		if ( dataSetDesign.getOnFetchScript( ) != null
+				&& dataSetDesign.getOnFetchScript( ).trim( ).length( ) > 0 )
+			return false;
+
+		// the aggregations of the computed columns are done on the
+		// unfiltered rows
+		List computedColumns = dataSetDesign.getComputedColumns( );
+		if ( computedColumns != null )
+		{
+			for ( int i = 0; i < computedColumns.size( ); i++ )
+			{
+				IComputedColumn computedColumn = (IComputedColumn) computedColumns.get( i );
+				if ( computedColumn.getAggregateFunction( ) != null )
+					return false;
+				IBaseExpression expr = computedColumn.getExpression( );
+				if ( !( expr instanceof IScriptExpression )
+						|| ExpressionUtil.hasAggregation( ( (IScriptExpression) expr ).getText( ) ) )
+					return false;
+			}
+		}
+
+		// the top and bottom filters depend on all the rows
+		List filters = dataSetDesign.getFilters( );
+		for ( int i = 0; i < filters.size( ); i++ )
+		{
+			IBaseExpression expr = ( (IFilterDefinition) filters.get( i ) ).getExpression( );
+			if ( expr instanceof IConditionalExpression )
+			{
+				int operator = ( (IConditionalExpression) expr ).getOperator( );
+				if ( operator == IConditionalExpression.OP_TOP_N
+						|| operator == IConditionalExpression.OP_BOTTOM_N
+						|| operator == IConditionalExpression.OP_TOP_PERCENT
+						|| operator == IConditionalExpression.OP_BOTTOM_PERCENT )
+					return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the result set columns of the data set, by name and alias. The
+	 * computed columns are not included.
+	 *
+	 * @param dataSetDesign
+	 * @return
+	 */
+	private static Map<String, IColumnDefinition> getResultColumns(
+			IOdaDataSetDesign dataSetDesign )
+	{
+		Map<String, IColumnDefinition> columns = new HashMap<String, IColumnDefinition>( );
+		List resultSetHints = dataSetDesign.getResultSetHints( );
+		if ( resultSetHints != null )
+		{
+			for ( int i = 0; i < resultSetHints.size( ); i++ )
+			{
+				IColumnDefinition column = (IColumnDefinition) resultSetHints.get( i );
+				if ( column.getColumnName( ) != null )
+					columns.put( column.getColumnName( ), column );
+				if ( column.getAlias( ) != null )
+					columns.put( column.getAlias( ), column );
+			}
+		}
+		List computedColumns = dataSetDesign.getComputedColumns( );
+		if ( computedColumns != null )
+		{
+			for ( int i = 0; i < computedColumns.size( ); i++ )
+				columns.remove( ( (IComputedColumn) computedColumns.get( i ) ).getName( ) );
+		}
+		return columns;
+	}
+
+	/**
+	 * Translates a filter into a filter expression of a query specification.
+	 *
+	 * @param filter
+	 * @param columns
+	 * @param extensionId
+	 * @param pushDownStringFilters
+	 *            whether a string column can be compared by the database
+	 * @return the filter expression, or null if the filter cannot be pushed
+	 *         down
+	 */
+	private static FilterExpression toFilterExpression(
+			IFilterDefinition filter, Map<String, IColumnDefinition> columns,
+			String extensionId, boolean pushDownStringFilters )
+	{
+		if ( !( filter.getExpression( ) instanceof IConditionalExpression ) )
+			return null;
+		IConditionalExpression expr = (IConditionalExpression) filter.getExpression( );
+		IColumnDefinition column = getReferencedColumn( expr.getExpression( ),
+				columns );
+		if ( column == null )
+			return null;
+		String columnName = column.getColumnName( );
+		int dataType = column.getDataType( );
+		// the database compares the strings in its own collation
+		if ( dataType == DataType.STRING_TYPE
+				&& !pushDownStringFilters
+				&& expr.getOperator( ) != IConditionalExpression.OP_NULL
+				&& expr.getOperator( ) != IConditionalExpression.OP_NOT_NULL )
+			return null;
+
+		switch ( expr.getOperator( ) )
+		{
+			case IConditionalExpression.OP_NULL :
+				return newFilter( extensionId,
+						FILTER_IS_NULL,
+						columnName,
+						new Object[0] );
+			case IConditionalExpression.OP_NOT_NULL :
+				return newFilter( extensionId,
+						FILTER_IS_NOT_NULL,
+						columnName,
+						new Object[0] );
+			case IConditionalExpression.OP_IN :
+			case IConditionalExpression.OP_NOT_IN :
+			{
+				Object[] values = getConstantValues( expr.getOperand1( ),
+						dataType );
+				if ( values == null || values.length == 0 )
+					return null;
+				if ( expr.getOperator( ) == IConditionalExpression.OP_IN )
+					return newFilter( extensionId, FILTER_IN, columnName, values );
+				return orIsNull( extensionId, newFilter( extensionId,
+						FILTER_NOT_IN,
+						columnName,
+						values ), columnName );
+			}
+			case IConditionalExpression.OP_BETWEEN :
+			case IConditionalExpression.OP_NOT_BETWEEN :
+			{
+				Object value1 = getConstantValue( expr.getOperand1( ), dataType );
+				Object value2 = getConstantValue( expr.getOperand2( ), dataType );
+				if ( value1 == null || value2 == null )
+					return null;
+				Object[] values = new Object[]{
+						value1, value2
+				};
+				if ( expr.getOperator( ) == IConditionalExpression.OP_BETWEEN )
+					return newFilter( extensionId,
+							FILTER_BETWEEN,
+							columnName,
+							values );
+				return orIsNull( extensionId, newFilter( extensionId,
+						FILTER_NOT_BETWEEN,
+						columnName,
+						values ), columnName );
+			}
+			case IConditionalExpression.OP_LIKE :
+			{
+				Object pattern = getConstantValue( expr.getOperand1( ),
+						DataType.STRING_TYPE );
+				// the escaped characters of a BIRT pattern are not supported
+				if ( dataType != DataType.STRING_TYPE
+						|| pattern == null
+						|| pattern.toString( ).indexOf( '\\' ) >= 0 )
+					return null;
+				FilterExpression likeFilter = newFilter( extensionId,
+						FILTER_LIKE,
+						columnName,
+						new Object[]{
+							pattern
+						} );
+				// a null value is matched as an empty string
+				if ( pattern.toString( ).replace( "%", "" ).length( ) == 0 ) //$NON-NLS-1$ //$NON-NLS-2$
+					return orIsNull( extensionId, likeFilter, columnName );
+				return likeFilter;
+			}
+			case IConditionalExpression.OP_EQ :
+			case IConditionalExpression.OP_NE :
+			case IConditionalExpression.OP_LT :
+			case IConditionalExpression.OP_LE :
+			case IConditionalExpression.OP_GT :
+			case IConditionalExpression.OP_GE :
+			{
+				Object value = getConstantValue( expr.getOperand1( ), dataType );
+				if ( value == null )
+					return null;
+				Object[] values = new Object[]{
+					value
+				};
+				switch ( expr.getOperator( ) )
+				{
+					case IConditionalExpression.OP_EQ :
+						return newFilter( extensionId,
+								FILTER_EQUAL,
+								columnName,
+								values );
+					case IConditionalExpression.OP_GT :
+						return newFilter( extensionId,
+								FILTER_GREATER_THAN,
+								columnName,
+								values );
+					case IConditionalExpression.OP_GE :
+						return newFilter( extensionId,
+								FILTER_GREATER_THAN_OR_EQUAL,
+								columnName,
+								values );
+					// a null value is less than and not equal to any value
+					case IConditionalExpression.OP_NE :
+						return orIsNull( extensionId, newFilter( extensionId,
+								FILTER_NOT_EQUAL,
+								columnName,
+								values ), columnName );
+					case IConditionalExpression.OP_LT :
+						return orIsNull( extensionId, newFilter( extensionId,
+								FILTER_LESS_THAN,
+								columnName,
+								values ), columnName );
+					default :
+						return orIsNull( extensionId, newFilter( extensionId,
+								FILTER_LESS_THAN_OR_EQUAL,
+								columnName,
+								values ), columnName );
+				}
+			}
+			default :
+				return null;
+		}
+	}
+
+	/**
+	 * Returns the result set column which is referred to by an expression, or
+	 * null if the expression is not a direct reference to a result set column.
+	 */
+	private static IColumnDefinition getReferencedColumn( IBaseExpression expr,
+			Map<String, IColumnDefinition> columns )
+	{
+		if ( !( expr instanceof IScriptExpression ) )
+			return null;
+		String text = ( (IScriptExpression) expr ).getText( );
+		if ( text == null )
+			return null;
+		try
+		{
+			String columnName = ExpressionUtil.getColumnBindingName( text );
+			if ( columnName == null )
+				columnName = ExpressionUtil.getColumnName( text );
+			return columnName == null ? null : columns.get( columnName );
+		}
+		catch ( BirtException e )
+		{
+			return null;
+		}
+	}
+
+	/**
+	 * Returns the values of a collection of constant expressions, or null if
+	 * any of them is not a constant.
+	 */
+	private static Object[] getConstantValues( IBaseExpression expr,
+			int dataType )
+	{
+		if ( !( expr instanceof IExpressionCollection ) )
+		{
+			Object value = getConstantValue( expr, dataType );
+			return value == null ? null : new Object[]{
+				value
+			};
+		}
+		Collection exprs = ( (IExpressionCollection) expr ).getExpressions( );
+		if ( exprs == null )
+			return null;
+		Object[] values = new Object[exprs.size( )];
+		Iterator it = exprs.iterator( );
+		for ( int i = 0; i < values.length; i++ )
+		{
+			values[i] = getConstantValue( (IBaseExpression) it.next( ), dataType );
+			if ( values[i] == null )
+				return null;
+		}
+		return values;
+	}
+
+	/**
+	 * Returns the value of a constant expression, converted to the data type
+	 * of the column it is compared with.
+	 *
+	 * @param expr
+	 * @param dataType
+	 * @return the value, or null if the expression is not a constant, its
+	 *         value is null, or it cannot be converted
+	 */
+	private static Object getConstantValue( IBaseExpression expr, int dataType )
+	{
+		if ( !( expr instanceof IScriptExpression ) )
+			return null;
+		String text = ( (IScriptExpression) expr ).getText( );
+		if ( text == null )
+			return null;
+
+		Object value;
+		if ( BaseExpression.constantId.equals( expr.getScriptId( ) ) )
+		{
+			value = text;
+		}
+		else
+		{
+			value = parseLiteral( text.trim( ) );
+			if ( value == null )
+				return null;
+		}
+
+		switch ( dataType )
+		{
+			case DataType.BOOLEAN_TYPE :
+			case DataType.INTEGER_TYPE :
+			case DataType.DOUBLE_TYPE :
+			case DataType.DECIMAL_TYPE :
+			case DataType.STRING_TYPE :
+			case DataType.DATE_TYPE :
+			case DataType.SQL_DATE_TYPE :
+			case DataType.SQL_TIME_TYPE :
+				try
+				{
+					return DataTypeUtil.convert( value, dataType );
+				}
+				catch ( BirtException e )
+				{
+					return null;
+				}
+			default :
+				// the values of the other types are not compared by the ODA
+				// driver as they are by BIRT
+				return null;
+		}
+	}
+
+	/**
+	 * Returns the value of a Javascript string, number or boolean literal, or
+	 * null if the text is not such a literal.
+	 */
+	private static Object parseLiteral( String text )
+	{
+		if ( text.length( ) >= 2
+				&& ( text.charAt( 0 ) == '"' || text.charAt( 0 ) == '\'' )
+				&& text.charAt( text.length( ) - 1 ) == text.charAt( 0 ) )
+		{
+			String value = text.substring( 1, text.length( ) - 1 );
+			// a literal with escape sequences or several strings is not
+			// parsed
+			if ( value.indexOf( '\\' ) >= 0
+					|| value.indexOf( text.charAt( 0 ) ) >= 0 )
+				return null;
+			return value;
+		}
+		if ( INTEGER_LITERAL.matcher( text ).matches( ) )
+			return new BigDecimal( text );
+		if ( DECIMAL_LITERAL.matcher( text ).matches( ) )
+			return Double.valueOf( text );
+		if ( "true".equals( text ) ) //$NON-NLS-1$
+			return Boolean.TRUE;
+		if ( "false".equals( text ) ) //$NON-NLS-1$
+			return Boolean.FALSE;
 		return null;
 	}
-	
+
+	private static FilterExpression newFilter( String extensionId,
+			String filterId, String columnName, Object[] values )
+	{
+		ExpressionArguments arguments = null;
+		if ( values.length > 0 )
+		{
+			arguments = new ExpressionArguments( );
+			for ( int i = 0; i < values.length; i++ )
+				arguments.addValue( values[i] );
+		}
+		return new CustomExpression( extensionId,
+				filterId,
+				new ExpressionVariable( new ColumnIdentifier( columnName ) ),
+				arguments );
+	}
+
+	/*
+	 * Combines a filter with an IsNull filter, since a null value is not
+	 * matched by the filters of a query specification.
+	 */
+	private static FilterExpression orIsNull( String extensionId,
+			FilterExpression filter, String columnName )
+	{
+		OrExpression orExpr = new OrExpression( );
+		orExpr.add( filter );
+		orExpr.add( newFilter( extensionId,
+				FILTER_IS_NULL,
+				columnName,
+				new Object[0] ) );
+		return orExpr;
+	}
+
 	public static Set<String> populateDirectDataSetColumnReferenceBindings(
 			List<IBinding> candidateBinding, List<String> dataSetColumnName )
 	{
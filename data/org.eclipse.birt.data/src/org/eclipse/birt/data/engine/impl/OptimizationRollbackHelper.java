@@ -13,30 +13,43 @@
  */
 package org.eclipse.birt.data.engine.impl;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.eclipse.birt.data.engine.api.IOdaDataSetDesign;
 import org.eclipse.birt.data.engine.api.IQueryDefinition;
 import org.eclipse.birt.data.engine.core.DataException;
 
 /**
- * 
+ * Restores the filters of a data set design which have been pushed down to the
+ * ODA driver, when the query specification is not applied.
  */
 
 public class OptimizationRollbackHelper
 {
 
+	private IOdaDataSetDesign dataSetDesign;
+	private List originalFilters;
 	
 	public OptimizationRollbackHelper( IQueryDefinition qd, IOdaDataSetDesign ds )
 	{
+		this.dataSetDesign = ds;
 	}
 	
 
 	public void collectOriginalInfo( ) throws DataException
 	{
+		if ( dataSetDesign.getFilters( ) != null )
+			originalFilters = new ArrayList( dataSetDesign.getFilters( ) );
 	}
 	
 
 	public void rollback( ) throws DataException
 	{
-
+		if ( originalFilters == null )
+			return;
+		List filters = dataSetDesign.getFilters( );
+		filters.clear( );
+		filters.addAll( originalFilters );
 	}
 }
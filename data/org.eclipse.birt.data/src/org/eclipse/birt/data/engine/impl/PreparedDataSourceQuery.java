@@ -209,7 +209,7 @@ public abstract class PreparedDataSourceQuery
 	 * @param appContext
 	 * @throws DataException
 	 */
-	private void configureDataSetCache( Scriptable outerScope, IQueryDefinition querySpec,
+	protected void configureDataSetCache( Scriptable outerScope, IQueryDefinition querySpec,
 			Map appContext, Scriptable scope ) throws DataException
 	{		
 		if ( querySpec == null )
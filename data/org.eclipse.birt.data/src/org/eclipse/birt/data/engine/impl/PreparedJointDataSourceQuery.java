@@ -21,6 +21,7 @@ import org.eclipse.birt.core.data.DataType;
 import org.eclipse.birt.core.data.ExpressionUtil;
 import org.eclipse.birt.core.exception.BirtException;
 import org.eclipse.birt.core.script.JavascriptEvalUtil;
+import org.eclipse.birt.data.engine.api.DataEngine;
 import org.eclipse.birt.data.engine.api.IBaseDataSetDesign;
 import org.eclipse.birt.data.engine.api.IBaseDataSourceDesign;
 import org.eclipse.birt.data.engine.api.IBaseResultMetaData;
@@ -43,6 +44,7 @@ import org.eclipse.birt.data.engine.executor.DataSetCacheManager;
 import org.eclipse.birt.data.engine.executor.JointDataSetQuery;
 import org.eclipse.birt.data.engine.executor.ResultClass;
 import org.eclipse.birt.data.engine.executor.ResultFieldMetadata;
+import org.eclipse.birt.data.engine.executor.cache.CacheUtil;
 import org.eclipse.birt.data.engine.executor.dscache.DataSetToCache;
 import org.eclipse.birt.data.engine.executor.dscache.DataSourceQuery;
 import org.eclipse.birt.data.engine.executor.transform.CachedResultSet;
@@ -92,6 +94,8 @@ public class PreparedJointDataSourceQuery extends PreparedDataSourceQuery
 	private IResultMetaData leftResultMetaData;
 	private IResultMetaData rightResultMetaData;
 	
+	private boolean hashJoin;
+	
 	/************************************************************************
 	 * These 8 leftXXX / rightXXX fields are here just because of the poor designed 
 	 * <p><code>DataSetCacheManager</code> which should not expose  
@@ -441,6 +445,19 @@ public class PreparedJointDataSourceQuery extends PreparedDataSourceQuery
 		}
 	}
 
+	/**
+	 * Return whether the application context requests a hash join.
+	 * 
+	 * @return
+	 */
+	private boolean isHashJoin( )
+	{
+		Object hashJoin = appContext == null ? null
+				: appContext.get( DataEngine.JOINT_DATA_SET_HASH_JOIN );
+		return hashJoin != null
+				&& Boolean.valueOf( hashJoin.toString( ) ).booleanValue( );
+	}
+
 	/**
 	 * 
 	 * @param condition
@@ -486,11 +503,100 @@ public class PreparedJointDataSourceQuery extends PreparedDataSourceQuery
 		return null;
 	}
 	
+	/**
+	 * Return whether each join condition compares keys of the same kind on
+	 * both sides. The hash join only matches equal keys, while the sort-merge
+	 * join converts a string to a number or a date before comparing it.
+	 * 
+	 * @return
+	 * @throws BirtException
+	 */
+	private boolean haveSameKeyKinds( ) throws BirtException
+	{
+		List conditions = dataSet.getJoinConditions( );
+		for ( int i = 0; i < conditions.size( ); i++ )
+		{
+			IJoinCondition condition = (IJoinCondition) conditions.get( i );
+			int leftKind = getKeyKind( condition.getLeftExpression( ),
+					leftResultMetaData );
+			int rightKind = getKeyKind( condition.getRightExpression( ),
+					rightResultMetaData );
+			if ( leftKind == DataType.UNKNOWN_TYPE || leftKind != rightKind )
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Return the kind of the values of a join key, or
+	 * <code>DataType.UNKNOWN_TYPE</code> if the key is not a column of the
+	 * data set.
+	 * 
+	 * @param expression
+	 * @param metaData
+	 * @return
+	 * @throws BirtException
+	 */
+	private int getKeyKind( IScriptExpression expression,
+			IResultMetaData metaData ) throws BirtException
+	{
+		String columnName = ExpressionUtil.getColumnName( expression.getText( ) );
+		if ( columnName == null || metaData == null )
+		{
+			return DataType.UNKNOWN_TYPE;
+		}
+		for ( int i = 1; i <= metaData.getColumnCount( ); i++ )
+		{
+			if ( columnName.equals( metaData.getColumnName( i ) )
+					|| columnName.equals( metaData.getColumnAlias( i ) ) )
+			{
+				switch ( metaData.getColumnType( i ) )
+				{
+					case DataType.INTEGER_TYPE :
+					case DataType.DOUBLE_TYPE :
+					case DataType.DECIMAL_TYPE :
+						return DataType.DOUBLE_TYPE;
+					case DataType.DATE_TYPE :
+					case DataType.SQL_DATE_TYPE :
+					case DataType.SQL_TIME_TYPE :
+						return DataType.DATE_TYPE;
+					case DataType.STRING_TYPE :
+					case DataType.BOOLEAN_TYPE :
+						return metaData.getColumnType( i );
+					default :
+						return DataType.UNKNOWN_TYPE;
+				}
+			}
+		}
+		return DataType.UNKNOWN_TYPE;
+	}
+
 	/**
 	 * cache the left and right queryResults to improve the efficiency
 	 * @throws BirtException 
 	 */
 	private void populatePreparedQuery( IQueryResults outer ) throws BirtException
+	{
+		hashJoin = isHashJoin( );
+		populateQueryResults( outer );
+		if ( hashJoin && !haveSameKeyKinds( ) )
+		{
+			// join keys of different kinds are compared by the sort-merge join
+			leftQueryResults.close( );
+			rightQueryResults.close( );
+			hashJoin = false;
+			populateQueryResults( outer );
+		}
+	}
+
+	/**
+	 * 
+	 * @param outer
+	 * @throws BirtException
+	 */
+	private void populateQueryResults( IQueryResults outer ) throws BirtException
 	{
 		this.leftQueryResults = populatePreparedQuery( outer,
 				true,
@@ -542,7 +648,8 @@ public class PreparedJointDataSourceQuery extends PreparedDataSourceQuery
 				isLeftDataSet,
 				queryDefinition );
 
-		for ( int i = 0; i < conditions.size( ); i++ )
+		// the data sets of a hash join need not be sorted
+		for ( int i = 0; !hashJoin && i < conditions.size( ); i++ )
 		{
 			addSortToQuery( (IJoinCondition) conditions.get( i ),
 					isLeftDataSet,
@@ -651,12 +758,21 @@ public class PreparedJointDataSourceQuery extends PreparedDataSourceQuery
 			JointResultMetadata jrm = getJointResultMetadata( left.getResultMetaData( ),
 					right.getResultMetaData( ) );
 			resultClass = jrm.getResultClass( );
-			populator = JointDataSetPopulatorFactory.getBinaryTreeDataSetPopulator( left.getOdiResult( ),
-					right.getOdiResult( ),
-					jrm,
-					matcher,
-					joinType, dataEngine.getSession( ),
-					dataSetDesign.getRowFetchLimit( ) );
+			if ( hashJoin )
+				populator = JointDataSetPopulatorFactory.getHashJointDataSetPopulator( left.getOdiResult( ),
+						right.getOdiResult( ),
+						jrm,
+						matcher,
+						joinType, dataEngine.getSession( ),
+						dataSetDesign.getRowFetchLimit( ),
+						CacheUtil.computeMemoryBufferSize( appContext ) );
+			else
+				populator = JointDataSetPopulatorFactory.getBinaryTreeDataSetPopulator( left.getOdiResult( ),
+						right.getOdiResult( ),
+						jrm,
+						matcher,
+						joinType, dataEngine.getSession( ),
+						dataSetDesign.getRowFetchLimit( ) );
 			
 			DataSetCacheManager dscm = dataEngine.getSession( ).getDataSetCacheManager( );
 			dscm.setDataSourceAndDataSet( 
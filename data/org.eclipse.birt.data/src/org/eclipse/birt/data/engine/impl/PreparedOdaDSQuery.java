@@ -25,8 +25,10 @@ import java.util.Set;
 import java.util.logging.Level;
 
 import org.eclipse.birt.data.engine.api.IBaseDataSetDesign;
+import org.eclipse.birt.data.engine.api.IBaseDataSourceDesign;
 import org.eclipse.birt.data.engine.api.IBaseQueryResults;
 import org.eclipse.birt.data.engine.api.IColumnDefinition;
+import org.eclipse.birt.data.engine.api.ICombinedOdaDataSetDesign;
 import org.eclipse.birt.data.engine.api.IComputedColumn;
 import org.eclipse.birt.data.engine.api.IOdaDataSetDesign;
 import org.eclipse.birt.data.engine.api.IPreparedQuery;
@@ -36,6 +38,7 @@ import org.eclipse.birt.data.engine.api.querydefn.ColumnDefinition;
 import org.eclipse.birt.data.engine.core.DataException;
 import org.eclipse.birt.data.engine.executor.CacheIDFetcher;
 import org.eclipse.birt.data.engine.executor.DataSourceFactory;
+import org.eclipse.birt.data.engine.executor.DataSourceQuery;
 import org.eclipse.birt.data.engine.i18n.ResourceConstants;
 import org.eclipse.birt.data.engine.odaconsumer.QuerySpecHelper;
 import org.eclipse.birt.data.engine.odi.IDataSource;
@@ -179,6 +182,82 @@ public class PreparedOdaDSQuery extends PreparedDataSourceQuery
 		return super.execute( outerResults, scope );
 	}
 
+	/**
+	 * Prepares the ODA statement of this query as an execution without outer
+	 * results does, and hands it over to the query prefetcher of the session.
+	 * The parameters are evaluated and the statement is prepared on the
+	 * calling thread.
+	 *
+	 * @param scope
+	 * @return whether the statement is being prefetched
+	 * @throws DataException
+	 */
+	boolean prefetch( Scriptable scope ) throws DataException
+	{
+		if ( !canPrefetch( ) )
+			return false;
+
+		this.configureDataSetCache( null,
+				queryDefn,
+				appContext,
+				scope == null ? dataEngine.getSession( ).getSharedScope( )
+						: scope );
+		if ( getDataSetCacheManager( ).needsToCache( ) )
+			return false;
+
+		this.initializeExecution( null, scope );
+		OdaDSQueryExecutor executor = new OdaDSQueryExecutor( );
+		executor.setAppContext( appContext );
+		executor.prefetch = true;
+		executor.prepareExecution( null, scope );
+		return executor.startPrefetch( );
+	}
+
+	/**
+	 * The scripts of the data set and of its data source would run earlier
+	 * than they do without the prefetch, and the pushed down filters are
+	 * removed from the data set design, so such queries are not prefetched.
+	 *
+	 * @return whether the statement of this query may be prefetched
+	 */
+	private boolean canPrefetch( )
+	{
+		if ( queryDefn == null || queryDefn.getQueryResultsID( ) != null
+				|| dataSetDesign instanceof ICombinedOdaDataSetDesign
+				|| dataSetDesign instanceof IIncreCacheDataSetDesign
+				|| appContext.get( IQueryOptimizeHints.QUERY_OPTIMIZE_HINT ) != null
+				|| QueryDefinitionUtil.hasRowReferenceInParameterBindings( queryDefn ) )
+			return false;
+
+		String dataSourceName = dataSetDesign.getDataSourceName( );
+		IBaseDataSourceDesign dataSourceDesign = dataEngine.getDataSourceDesign( dataSourceName );
+		DataSourceRuntime dsRuntime = dataEngine.getDataSourceRuntime( dataSourceName );
+		if ( dataSourceDesign == null || dsRuntime == null )
+			return false;
+		// only the data set filters are pushed down
+		if ( queryDefn.getQueryExecutionHints( ).enablePushDown( )
+				&& dataSetDesign.getFilters( ) != null
+				&& !dataSetDesign.getFilters( ).isEmpty( )
+				&& dataEngine.getValidationContext( dsRuntime,
+						(IOdaDataSetDesign) dataSetDesign ) != null )
+			return false;
+
+		return isEmpty( dataSetDesign.getBeforeOpenScript( ) )
+				&& isEmpty( dataSetDesign.getAfterOpenScript( ) )
+				&& isEmpty( dataSetDesign.getOnFetchScript( ) )
+				&& isEmpty( dataSetDesign.getBeforeCloseScript( ) )
+				&& isEmpty( dataSetDesign.getAfterCloseScript( ) )
+				&& isEmpty( dataSourceDesign.getBeforeOpenScript( ) )
+				&& isEmpty( dataSourceDesign.getAfterOpenScript( ) )
+				&& isEmpty( dataSourceDesign.getBeforeCloseScript( ) )
+				&& isEmpty( dataSourceDesign.getAfterCloseScript( ) );
+	}
+
+	private static boolean isEmpty( String script )
+	{
+		return script == null || script.trim( ).length( ) == 0;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * @see org.eclipse.birt.data.engine.impl.PreparedDataSourceQuery#initializeExecution(org.eclipse.birt.data.engine.api.IBaseQueryResults, org.mozilla.javascript.Scriptable)
@@ -229,7 +308,10 @@ public class PreparedOdaDSQuery extends PreparedDataSourceQuery
 
 		protected QuerySpecification querySpec;
 
+		// whether the statement is prepared for the query prefetcher
+		private boolean prefetch;
 		
+
 		/**
 		 * @return prepared query
 		 */
@@ -411,13 +493,15 @@ public class PreparedOdaDSQuery extends PreparedDataSourceQuery
 							if ( validateStatus == ValidateStatus.unknown
 									|| validateStatus == ValidateStatus.ok )
 							{								
-								querySpec = OdaQueryOptimizationUtil.optimizeExecution( ( (OdaDataSourceRuntime) dataEngine.getDataSourceRuntime( dataSetDesign.getDataSourceName( ) ) ).getExtensionID( ),
+								OdaDataSourceRuntime dataSourceRuntime = (OdaDataSourceRuntime) dataEngine.getDataSourceRuntime( dataSetDesign.getDataSourceName( ) );
+								querySpec = OdaQueryOptimizationUtil.optimizeExecution( dataSourceRuntime.getExtensionID( ),
 										validationContext,
 										(IOdaDataSetDesign) dataSetDesign,
 										queryDefn,
 										dataEngine.getSession( ),
 										appContext,
-										contextVisitor );
+										contextVisitor,
+										OdaQueryOptimizationUtil.canPushDownStringFilters( dataSourceRuntime ) );
 							}
 												
 							if ( querySpec != null
@@ -618,10 +702,28 @@ public class PreparedOdaDSQuery extends PreparedDataSourceQuery
 		    // prepare data set's odi query
 			assert odiPreparedQuery == null;	// should not prepare more than once
 			
+			if ( prefetch && odiDSQuery instanceof DataSourceQuery )
+				( (DataSourceQuery) odiDSQuery ).setPrefetch( true );
 			odiPreparedQuery = odiDSQuery.prepare();
 			odiPreparedQuery.setQuerySpecification( querySpec );
 		}
 		
+		/**
+		 * Hands the prepared statement over to the query prefetcher of the
+		 * session, or closes the query if it cannot be prefetched.
+		 *
+		 * @return whether the statement is being prefetched
+		 * @throws DataException
+		 */
+		private boolean startPrefetch( ) throws DataException
+		{
+			if ( odiPreparedQuery instanceof DataSourceQuery
+					&& ( (DataSourceQuery) odiPreparedQuery ).startPrefetch( ) )
+				return true;
+			odiQuery.close( );
+			return false;
+		}
+
 		
 		/**
 		 * Implements IPreparedQuery.getParameterMetadata. This method prepares
@@ -23,10 +23,13 @@ import java.util.Map.Entry;
 import java.util.Set;
 
 import org.eclipse.birt.core.data.ExpressionUtil;
+import org.eclipse.birt.core.exception.BirtException;
 import org.eclipse.birt.data.engine.api.IBaseExpression;
 import org.eclipse.birt.data.engine.api.IBaseQueryDefinition;
 import org.eclipse.birt.data.engine.api.IBaseTransform;
 import org.eclipse.birt.data.engine.api.IBinding;
+import org.eclipse.birt.data.engine.api.IInputParameterBinding;
+import org.eclipse.birt.data.engine.api.IQueryDefinition;
 import org.eclipse.birt.data.engine.api.IScriptExpression;
 import org.eclipse.birt.data.engine.api.ISubqueryDefinition;
 import org.eclipse.birt.data.engine.api.querydefn.SubqueryDefinition;
@@ -239,4 +242,41 @@ public class QueryDefinitionUtil
 		}
 		return subQueryDefn;
 	}
+
+	/**
+	 * The parameters of a nested query are usually bound to the rows of its
+	 * outer results, so that each execution of its data set has other
+	 * parameter values.
+	 * 
+	 * @param queryDefn
+	 * @return whether an input parameter binding of the query refers to a row
+	 */
+	public static boolean hasRowReferenceInParameterBindings(
+			IQueryDefinition queryDefn )
+	{
+		Collection bindings = queryDefn.getInputParamBindings( );
+		if ( bindings == null )
+			return false;
+
+		Iterator it = bindings.iterator( );
+		while ( it.hasNext( ) )
+		{
+			IBaseExpression expr = ( (IInputParameterBinding) it.next( ) ).getExpr( );
+			if ( expr == null )
+				continue;
+			if ( !( expr instanceof IScriptExpression ) )
+				return true;
+			try
+			{
+				if ( !ExpressionUtil.extractColumnExpressions( ( (IScriptExpression) expr ).getText( ) )
+						.isEmpty( ) )
+					return true;
+			}
+			catch ( BirtException e )
+			{
+				return true;
+			}
+		}
+		return false;
+	}
 }
@@ -0,0 +1,1170 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.data.engine.impl.jointdataset;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.eclipse.birt.data.engine.api.DataEngineThreadLocal;
+import org.eclipse.birt.data.engine.api.ICloseListener;
+import org.eclipse.birt.data.engine.api.IJointDataSetDesign;
+import org.eclipse.birt.data.engine.core.DataException;
+import org.eclipse.birt.data.engine.core.security.FileSecurity;
+import org.eclipse.birt.data.engine.executor.ResultObject;
+import org.eclipse.birt.data.engine.executor.cache.ResultObjectUtil;
+import org.eclipse.birt.data.engine.executor.cache.SizeOfUtil;
+import org.eclipse.birt.data.engine.i18n.ResourceConstants;
+import org.eclipse.birt.data.engine.impl.DataEngineSession;
+import org.eclipse.birt.data.engine.impl.document.stream.VersionManager;
+import org.eclipse.birt.data.engine.odi.IDataSetPopulator;
+import org.eclipse.birt.data.engine.odi.IResultIterator;
+import org.eclipse.birt.data.engine.odi.IResultObject;
+
+/**
+ * An implementation of IDataSetPopulator which joins two data sets with a hash
+ * join. The rows of the smaller data set, the build side, are put into hash
+ * tables by the values of the join conditions, and the rows of the other data
+ * set, the probe side, are streamed and looked up in the tables, so neither
+ * data set needs to be sorted.
+ * <p>
+ * The tables are divided into partitions. When the rows of the build side
+ * exceed the memory buffer size, the largest partitions are written to temp
+ * files, and so are the probe rows of these partitions; a partition written to
+ * disk is joined once the probe side is streamed, by loading its build rows
+ * back into memory. A partition which still exceeds the memory buffer size is
+ * divided again by another hash seed, and when that does not divide it, as
+ * for the rows of a single key, the partition is joined by sorting both sides
+ * on disk and merging them.
+ * <p>
+ * The rows are returned in the order of the probe side, followed by the build
+ * rows without matching rows of an outer join; the rows of a partition written
+ * to disk are returned last.
+ */
+public class HashJointDataSetPopulator implements IDataSetPopulator, ICloseListener
+{
+
+	private static final int PARTITION_COUNT = 16;
+
+	// the number of times a partition written to disk is divided again
+	private static final int MAX_PARTITION_LEVEL = 3;
+
+	// the estimated memory of a row of a table besides the row itself
+	private static final int ROW_ENTRY_SIZE = 48;
+
+	private static final String TEMP_DIR_PREFIX = "HashJoin_"; //$NON-NLS-1$
+
+	private static int tempFileCount = 0;
+
+	//
+	private JointResultMetadata meta;
+	private IJoinConditionMatcher jcm;
+	private DataEngineSession session;
+
+	private IResultIterator buildIterator;
+	private IResultIterator probeIterator;
+	private boolean isBuildLeft;
+	private boolean isBuildPreserved;
+	private boolean isProbePreserved;
+
+	private long memoryBufferSize;
+	private long memorySize;
+	private SizeOfUtil sizeOfUtil;
+	private SizeOfUtil probeSizeOfUtil;
+
+	private Partition[] partitions;
+	private int keyLength;
+	private File tempDir;
+	private ResultObjectUtil buildObjectUtil;
+	private ResultObjectUtil probeObjectUtil;
+
+	private int rowFetchLimit;
+	private int rowCount;
+
+	// indicate whether this object is initialized.
+	private boolean beInitialized = false;
+
+	// the current probe row and the next build row it matches
+	private IResultObject curProbeRow;
+	private JoinHashTable curTable;
+	private int curMatchedRow = -1;
+	private boolean beCurProbeRowMatched;
+
+	// the tables of which the build rows without matching rows are returned
+	private List<JoinHashTable> unmatchedTables = new ArrayList<JoinHashTable>( );
+	private int curUnmatchedRow = -1;
+
+	// the partition written to disk which is being joined
+	private Partition curSpilledPartition;
+	private MergeJoin curMergeJoin;
+	private List<Partition> spilledPartitions = new ArrayList<Partition>( );
+	private boolean beProbeStreamed = false;
+
+	// orders the rows of a partition which is joined by merge
+	private Comparator<KeyedRow> keyedRowComparator = new Comparator<KeyedRow>( ) {
+
+		public int compare( KeyedRow row1, KeyedRow row2 )
+		{
+			return JoinHashTable.compare( row1.key, row2.key );
+		}
+	};
+
+	/**
+	 * Constructor.
+	 *
+	 * @param left
+	 * @param right
+	 * @param meta
+	 * @param jcm
+	 * @param joinType
+	 * @param session
+	 * @param rowFetchLimit
+	 * @param memoryBufferSize
+	 *            the memory size in bytes of the build rows kept in memory; 0
+	 *            means that all the build rows are kept in memory
+	 * @throws DataException
+	 */
+	public HashJointDataSetPopulator( IResultIterator left,
+			IResultIterator right, JointResultMetadata meta,
+			IJoinConditionMatcher jcm, int joinType,
+			DataEngineSession session, int rowFetchLimit,
+			long memoryBufferSize ) throws DataException
+	{
+		this.meta = meta;
+		this.jcm = jcm;
+		this.session = session;
+		this.rowFetchLimit = rowFetchLimit;
+		this.rowCount = 0;
+		this.memoryBufferSize = memoryBufferSize;
+
+		// the smaller data set is put into the tables
+		int leftCount = left.getRowCount( );
+		int rightCount = right.getRowCount( );
+		this.isBuildLeft = leftCount >= 0 && rightCount >= 0
+				&& leftCount < rightCount;
+		this.buildIterator = isBuildLeft ? left : right;
+		this.probeIterator = isBuildLeft ? right : left;
+
+		boolean isLeftPreserved = joinType == IJointDataSetDesign.LEFT_OUTER_JOIN
+				|| joinType == IJointDataSetDesign.FULL_OUTER_JOIN;
+		boolean isRightPreserved = joinType == IJointDataSetDesign.RIGHT_OUTER_JOIN
+				|| joinType == IJointDataSetDesign.FULL_OUTER_JOIN;
+		this.isBuildPreserved = isBuildLeft ? isLeftPreserved
+				: isRightPreserved;
+		this.isProbePreserved = isBuildLeft ? isRightPreserved
+				: isLeftPreserved;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.eclipse.birt.data.engine.odi.IDataSetPopulator#next()
+	 */
+	public IResultObject next( ) throws DataException
+	{
+		if ( this.rowFetchLimit <= 0 || this.rowCount < this.rowFetchLimit )
+		{
+			if ( !beInitialized )
+			{
+				beInitialized = true;
+				build( );
+			}
+			IResultObject result = doNext( );
+			if ( result != null )
+				this.rowCount++;
+			else
+				close( );
+			return result;
+		}
+
+		close( );
+		return null;
+	}
+
+	/**
+	 * Put the rows of the build side into the tables.
+	 *
+	 * @throws DataException
+	 */
+	private void build( ) throws DataException
+	{
+		partitions = new Partition[PARTITION_COUNT];
+		for ( int i = 0; i < partitions.length; i++ )
+		{
+			partitions[i] = new Partition( );
+		}
+		if ( memoryBufferSize > 0 )
+			sizeOfUtil = new SizeOfUtil( buildIterator.getResultClass( ) );
+
+		while ( buildIterator.getCurrentResult( ) != null )
+		{
+			if ( session.getStopSign( ).isStopped( ) )
+				return;
+
+			IResultObject row = buildIterator.getCurrentResult( );
+			Object[] keyValues = jcm.getCompareValue( isBuildLeft );
+			keyLength = keyValues.length;
+			Object key = JoinHashTable.getKey( keyValues );
+			buildIterator.next( );
+
+			Partition partition = partitions[JoinHashTable.getPartition( key,
+					PARTITION_COUNT )];
+			if ( partition.buildFile != null )
+			{
+				partition.buildFile.write( key, row );
+				partition.spilledSize += sizeOfUtil.sizeOf( row )
+						+ ROW_ENTRY_SIZE;
+				continue;
+			}
+			partition.table.add( key, row );
+			if ( sizeOfUtil != null )
+			{
+				int size = sizeOfUtil.sizeOf( row ) + ROW_ENTRY_SIZE;
+				partition.memorySize += size;
+				memorySize += size;
+				while ( memorySize > memoryBufferSize )
+				{
+					if ( !spillLargestPartition( ) )
+						break;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Writes the partition in memory which has the most rows to disk.
+	 *
+	 * @return whether a partition is written
+	 * @throws DataException
+	 */
+	private boolean spillLargestPartition( ) throws DataException
+	{
+		Partition largest = null;
+		for ( int i = 0; i < partitions.length; i++ )
+		{
+			Partition partition = partitions[i];
+			if ( partition.buildFile == null
+					&& partition.table.getRowCount( ) > 0
+					&& ( largest == null || partition.memorySize > largest.memorySize ) )
+			{
+				largest = partition;
+			}
+		}
+		if ( largest == null )
+			return false;
+
+		if ( tempDir == null )
+			createTempDir( );
+		largest.buildFile = new SpillFile( buildObjectUtil );
+		largest.probeFile = new SpillFile( probeObjectUtil );
+		JoinHashTable table = largest.table;
+		for ( int i = 0; i < table.getRowCount( ); i++ )
+		{
+			largest.buildFile.write( table.getKey( i ), table.getRow( i ) );
+		}
+		largest.table = null;
+		largest.spilledSize = largest.memorySize;
+		memorySize -= largest.memorySize;
+		largest.memorySize = 0;
+		return true;
+	}
+
+	private void createTempDir( )
+	{
+		synchronized ( HashJointDataSetPopulator.class )
+		{
+			tempDir = new File( session.getTempDir( ), TEMP_DIR_PREFIX
+					+ ( tempFileCount++ ) );
+		}
+		if ( !FileSecurity.fileExist( tempDir ) )
+			FileSecurity.fileMakeDirs( tempDir );
+		buildObjectUtil = ResultObjectUtil.newInstance( buildIterator.getResultClass( ),
+				session );
+		probeObjectUtil = ResultObjectUtil.newInstance( probeIterator.getResultClass( ),
+				session );
+		DataEngineThreadLocal.getInstance( ).getCloseListener( ).add( this );
+	}
+
+	/**
+	 *
+	 * @return
+	 * @throws DataException
+	 */
+	private IResultObject doNext( ) throws DataException
+	{
+		while ( !session.getStopSign( ).isStopped( ) )
+		{
+			if ( curProbeRow != null )
+			{
+				if ( curMatchedRow >= 0 )
+				{
+					int row = curMatchedRow;
+					curMatchedRow = curTable.getNextRow( row );
+					if ( isBuildPreserved )
+						curTable.setMatched( row );
+					beCurProbeRowMatched = true;
+					return createResultObject( curProbeRow, curTable.getRow( row ) );
+				}
+				IResultObject probeRow = curProbeRow;
+				curProbeRow = null;
+				if ( !beCurProbeRowMatched && isProbePreserved )
+					return createResultObject( probeRow, null );
+				continue;
+			}
+
+			if ( !unmatchedTables.isEmpty( ) )
+			{
+				JoinHashTable table = unmatchedTables.get( 0 );
+				curUnmatchedRow = table.getNextUnmatchedRow( curUnmatchedRow + 1 );
+				if ( curUnmatchedRow >= 0 )
+					return createResultObject( null,
+							table.getRow( curUnmatchedRow ) );
+				unmatchedTables.remove( 0 );
+				continue;
+			}
+
+			if ( !beProbeStreamed )
+			{
+				if ( fetchProbeRow( ) )
+					continue;
+				beProbeStreamed = true;
+				for ( int i = 0; i < partitions.length; i++ )
+				{
+					if ( partitions[i].buildFile == null )
+					{
+						if ( isBuildPreserved )
+							unmatchedTables.add( partitions[i].table );
+						partitions[i].table = null;
+					}
+					else
+					{
+						spilledPartitions.add( partitions[i] );
+					}
+				}
+				continue;
+			}
+
+			if ( curMergeJoin != null )
+			{
+				IResultObject result = curMergeJoin.next( );
+				if ( result != null )
+					return result;
+				curMergeJoin.close( );
+				curMergeJoin = null;
+				continue;
+			}
+
+			if ( curSpilledPartition != null )
+			{
+				if ( fetchSpilledProbeRow( ) )
+					continue;
+				if ( isBuildPreserved )
+					unmatchedTables.add( curSpilledPartition.table );
+				curSpilledPartition.close( );
+				curSpilledPartition = null;
+				continue;
+			}
+
+			if ( !loadNextSpilledPartition( ) )
+				return null;
+		}
+		return null;
+	}
+
+	/**
+	 * Fetches the next row of the probe side of which the partition is in
+	 * memory; the rows of the partitions written to disk are written to the
+	 * probe files of the partitions.
+	 *
+	 * @return false if there are no more rows
+	 * @throws DataException
+	 */
+	private boolean fetchProbeRow( ) throws DataException
+	{
+		while ( probeIterator.getCurrentResult( ) != null )
+		{
+			if ( session.getStopSign( ).isStopped( ) )
+				return false;
+
+			IResultObject row = probeIterator.getCurrentResult( );
+			Object key = JoinHashTable.getKey( jcm.getCompareValue( !isBuildLeft ) );
+			probeIterator.next( );
+
+			Partition partition = partitions[JoinHashTable.getPartition( key,
+					PARTITION_COUNT )];
+			if ( partition.probeFile != null )
+			{
+				partition.probeFile.write( key, row );
+				continue;
+			}
+			setProbeRow( row, key, partition.table );
+			return true;
+		}
+		return false;
+	}
+
+	private boolean fetchSpilledProbeRow( ) throws DataException
+	{
+		SpillFile probeFile = curSpilledPartition.probeFile;
+		if ( !probeFile.read( ) )
+			return false;
+		setProbeRow( probeFile.getRow( ),
+				probeFile.getKey( ),
+				curSpilledPartition.table );
+		return true;
+	}
+
+	private void setProbeRow( IResultObject row, Object key,
+			JoinHashTable table )
+	{
+		curProbeRow = row;
+		curTable = table;
+		curMatchedRow = table.getFirstRow( key );
+		beCurProbeRowMatched = false;
+	}
+
+	/**
+	 * Loads the build rows of the next partition written to disk into memory.
+	 * A partition which exceeds the memory buffer size is divided again, or
+	 * joined by merge.
+	 *
+	 * @return false if there are no more partitions written to disk
+	 * @throws DataException
+	 */
+	private boolean loadNextSpilledPartition( ) throws DataException
+	{
+		while ( !spilledPartitions.isEmpty( ) )
+		{
+			Partition partition = spilledPartitions.remove( 0 );
+			if ( partition.spilledSize > memoryBufferSize )
+			{
+				if ( partition.level < MAX_PARTITION_LEVEL
+						&& repartition( partition ) )
+					continue;
+				curMergeJoin = new MergeJoin( partition );
+				return true;
+			}
+
+			partition.table = new JoinHashTable( );
+			SpillFile buildFile = partition.buildFile;
+			while ( buildFile.read( ) )
+			{
+				partition.table.add( buildFile.getKey( ), buildFile.getRow( ) );
+			}
+			buildFile.close( );
+			curSpilledPartition = partition;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Divides the rows of a partition written to disk into partitions by the
+	 * next hash seed, which are joined before the other partitions.
+	 *
+	 * @param partition
+	 * @return false if the build rows all have the same partition, in which
+	 *         case the partition is kept
+	 * @throws DataException
+	 */
+	private boolean repartition( Partition partition ) throws DataException
+	{
+		int level = partition.level + 1;
+		Partition[] children = new Partition[PARTITION_COUNT];
+		for ( int i = 0; i < children.length; i++ )
+		{
+			children[i] = new Partition( );
+			children[i].table = null;
+			children[i].level = level;
+			children[i].buildFile = new SpillFile( buildObjectUtil );
+			children[i].probeFile = new SpillFile( probeObjectUtil );
+		}
+
+		SpillFile buildFile = partition.buildFile;
+		while ( buildFile.read( ) )
+		{
+			Partition child = children[JoinHashTable.getPartition( buildFile.getKey( ),
+					PARTITION_COUNT,
+					level )];
+			child.buildFile.write( buildFile.getKey( ), buildFile.getRow( ) );
+			child.spilledSize += sizeOfUtil.sizeOf( buildFile.getRow( ) )
+					+ ROW_ENTRY_SIZE;
+		}
+		for ( int i = 0; i < children.length; i++ )
+		{
+			if ( children[i].buildFile.getWrittenCount( ) == buildFile.getWrittenCount( ) )
+			{
+				for ( int j = 0; j < children.length; j++ )
+				{
+					children[j].close( );
+				}
+				buildFile.rewind( );
+				return false;
+			}
+		}
+
+		SpillFile probeFile = partition.probeFile;
+		while ( probeFile.read( ) )
+		{
+			children[JoinHashTable.getPartition( probeFile.getKey( ),
+					PARTITION_COUNT,
+					level )].probeFile.write( probeFile.getKey( ),
+					probeFile.getRow( ) );
+		}
+		partition.close( );
+
+		int index = 0;
+		for ( int i = 0; i < children.length; i++ )
+		{
+			Partition child = children[i];
+			boolean hasBuildRows = child.buildFile.getWrittenCount( ) > 0;
+			boolean hasProbeRows = child.probeFile.getWrittenCount( ) > 0;
+			if ( ( hasBuildRows && ( hasProbeRows || isBuildPreserved ) )
+					|| ( hasProbeRows && isProbePreserved ) )
+				spilledPartitions.add( index++, child );
+			else
+				child.close( );
+		}
+		return true;
+	}
+
+	/**
+	 * Create an instance of IResultObject.
+	 *
+	 * @param probe
+	 * @param build
+	 * @return
+	 * @throws DataException
+	 */
+	private IResultObject createResultObject( IResultObject probe,
+			IResultObject build ) throws DataException
+	{
+		IResultObject left = isBuildLeft ? build : probe;
+		IResultObject right = isBuildLeft ? probe : build;
+		Object[] fields = new Object[meta.getResultClass( ).getFieldCount( )];
+		for ( int i = 1; i <= fields.length; i++ )
+		{
+			IResultObject ri = null;
+
+			if ( meta.getColumnSource( i ) == JointResultMetadata.COLUMN_TYPE_LEFT )
+				ri = left;
+			else if ( meta.getColumnSource( i ) == JointResultMetadata.COLUMN_TYPE_RIGHT )
+				ri = right;
+
+			fields[i - 1] = ri == null ? null
+					: ri.getFieldValue( meta.getSourceIndex( i ) );
+		}
+		return new ResultObject( meta.getResultClass( ), fields );
+	}
+
+	/*
+	 * Deletes the temp files.
+	 * @see org.eclipse.birt.data.engine.api.ICloseListener#close()
+	 */
+	public void close( )
+	{
+		if ( partitions != null )
+		{
+			for ( int i = 0; i < partitions.length; i++ )
+			{
+				partitions[i].close( );
+			}
+		}
+		if ( tempDir != null )
+		{
+			FileSecurity.fileDelete( tempDir );
+			tempDir = null;
+		}
+		for ( int i = 0; i < spilledPartitions.size( ); i++ )
+		{
+			spilledPartitions.get( i ).close( );
+		}
+		spilledPartitions.clear( );
+		if ( curMergeJoin != null )
+		{
+			curMergeJoin.close( );
+			curMergeJoin = null;
+		}
+		unmatchedTables.clear( );
+		curProbeRow = null;
+		curTable = null;
+	}
+
+	/**
+	 * A partition of the tables, which is either in memory or written to disk.
+	 */
+	private static class Partition
+	{
+
+		private JoinHashTable table = new JoinHashTable( );
+		private long memorySize;
+
+		// the number of times the rows are divided into partitions
+		private int level;
+
+		// the memory size of the build rows written to disk
+		private long spilledSize;
+
+		// the files of a partition written to disk
+		private SpillFile buildFile;
+		private SpillFile probeFile;
+
+		private void close( )
+		{
+			table = null;
+			if ( buildFile != null )
+				buildFile.close( );
+			if ( probeFile != null )
+				probeFile.close( );
+		}
+	}
+
+	/**
+	 * The temp file of the rows of a partition and their keys. The rows are
+	 * read once they are all written, and read again after a rewind.
+	 */
+	private class SpillFile
+	{
+
+		private File file;
+		private ResultObjectUtil resultObjectUtil;
+		private DataOutputStream output;
+		private DataInputStream input;
+		private int rowCount;
+		private int writtenCount;
+
+		private Object key;
+		private IResultObject row;
+
+		SpillFile( ResultObjectUtil resultObjectUtil )
+		{
+			synchronized ( HashJointDataSetPopulator.class )
+			{
+				this.file = new File( tempDir, "partition_" + ( tempFileCount++ ) ); //$NON-NLS-1$
+			}
+			this.resultObjectUtil = resultObjectUtil;
+		}
+
+		void write( Object key, IResultObject row ) throws DataException
+		{
+			try
+			{
+				if ( output == null )
+					output = new DataOutputStream( new BufferedOutputStream( FileSecurity.createFileOutputStream( file ) ) );
+				Object[] keyValues = JoinHashTable.getKeyValues( key );
+				for ( int i = 0; i < keyValues.length; i++ )
+				{
+					ResultObjectUtil.writeObject( output,
+							keyValues[i],
+							Object.class,
+							VersionManager.getLatestVersion( ) );
+				}
+				resultObjectUtil.writeData( output, row );
+				rowCount++;
+				writtenCount++;
+			}
+			catch ( IOException e )
+			{
+				throw new DataException( ResourceConstants.WRITE_TEMPFILE_ERROR,
+						e );
+			}
+		}
+
+		/**
+		 * Reads the next row and its key.
+		 *
+		 * @return false if there are no more rows
+		 * @throws DataException
+		 */
+		boolean read( ) throws DataException
+		{
+			if ( rowCount == 0 )
+				return false;
+			try
+			{
+				if ( input == null )
+				{
+					closeOutput( );
+					input = new DataInputStream( new BufferedInputStream( FileSecurity.createFileInputStream( file ) ) );
+				}
+				Object[] keyValues = new Object[keyLength];
+				ClassLoader classLoader = DataEngineSession.getCurrentClassLoader( );
+				for ( int i = 0; i < keyValues.length; i++ )
+				{
+					keyValues[i] = ResultObjectUtil.readObject( input,
+							Object.class,
+							classLoader,
+							VersionManager.getLatestVersion( ) );
+				}
+				key = JoinHashTable.getKey( keyValues );
+				row = resultObjectUtil.readData( input, classLoader, 1 )[0];
+				rowCount--;
+				return row != null;
+			}
+			catch ( IOException e )
+			{
+				throw new DataException( ResourceConstants.READ_TEMPFILE_ERROR,
+						e );
+			}
+		}
+
+		Object getKey( )
+		{
+			return key;
+		}
+
+		IResultObject getRow( )
+		{
+			return row;
+		}
+
+		int getWrittenCount( )
+		{
+			return writtenCount;
+		}
+
+		/**
+		 * Reads the rows again from the first one.
+		 *
+		 * @throws DataException
+		 */
+		void rewind( ) throws DataException
+		{
+			try
+			{
+				closeOutput( );
+				if ( input != null )
+				{
+					input.close( );
+					input = null;
+				}
+			}
+			catch ( IOException e )
+			{
+				throw new DataException( ResourceConstants.READ_TEMPFILE_ERROR,
+						e );
+			}
+			rowCount = writtenCount;
+		}
+
+		private void closeOutput( ) throws IOException
+		{
+			if ( output != null )
+			{
+				output.close( );
+				output = null;
+			}
+		}
+
+		void close( )
+		{
+			try
+			{
+				closeOutput( );
+				if ( input != null )
+				{
+					input.close( );
+					input = null;
+				}
+			}
+			catch ( IOException e )
+			{
+				// the file is deleted anyway
+			}
+			rowCount = 0;
+			writtenCount = 0;
+			FileSecurity.fileDelete( file );
+		}
+	}
+
+	/**
+	 * A row and its key.
+	 */
+	private static class KeyedRow
+	{
+
+		private Object key;
+		private IResultObject row;
+
+		KeyedRow( Object key, IResultObject row )
+		{
+			this.key = key;
+			this.row = row;
+		}
+	}
+
+	/**
+	 * The rows of a temp file sorted on their keys. The rows which fit in the
+	 * memory buffer are sorted and written to disk at a time, and these runs
+	 * are merged when the rows are read.
+	 */
+	private class SortedRows
+	{
+
+		private PriorityQueue<SpillFile> runs;
+		private SpillFile curRun;
+
+		SortedRows( SpillFile file, ResultObjectUtil resultObjectUtil,
+				SizeOfUtil rowSizeOfUtil ) throws DataException
+		{
+			runs = new PriorityQueue<SpillFile>( PARTITION_COUNT,
+					new Comparator<SpillFile>( ) {
+
+						public int compare( SpillFile run1, SpillFile run2 )
+						{
+							return JoinHashTable.compare( run1.getKey( ),
+									run2.getKey( ) );
+						}
+					} );
+			List<KeyedRow> rows = new ArrayList<KeyedRow>( );
+			long size = 0;
+			while ( file.read( ) )
+			{
+				rows.add( new KeyedRow( file.getKey( ), file.getRow( ) ) );
+				size += rowSizeOfUtil.sizeOf( file.getRow( ) ) + ROW_ENTRY_SIZE;
+				if ( size > memoryBufferSize )
+				{
+					addRun( rows, resultObjectUtil );
+					size = 0;
+				}
+			}
+			addRun( rows, resultObjectUtil );
+			file.close( );
+		}
+
+		private void addRun( List<KeyedRow> rows,
+				ResultObjectUtil resultObjectUtil ) throws DataException
+		{
+			if ( rows.isEmpty( ) )
+				return;
+			// the sort is stable, so the rows of a key keep their order
+			Collections.sort( rows, keyedRowComparator );
+			SpillFile run = new SpillFile( resultObjectUtil );
+			for ( int i = 0; i < rows.size( ); i++ )
+			{
+				run.write( rows.get( i ).key, rows.get( i ).row );
+			}
+			rows.clear( );
+			if ( run.read( ) )
+				runs.add( run );
+			else
+				run.close( );
+		}
+
+		/**
+		 * Moves to the next row.
+		 *
+		 * @return false if there are no more rows
+		 * @throws DataException
+		 */
+		boolean next( ) throws DataException
+		{
+			if ( curRun != null )
+			{
+				if ( curRun.read( ) )
+					runs.add( curRun );
+				else
+					curRun.close( );
+			}
+			curRun = runs.poll( );
+			return curRun != null;
+		}
+
+		Object getKey( )
+		{
+			return curRun.getKey( );
+		}
+
+		IResultObject getRow( )
+		{
+			return curRun.getRow( );
+		}
+
+		void close( )
+		{
+			if ( curRun != null )
+				curRun.close( );
+			curRun = null;
+			while ( !runs.isEmpty( ) )
+			{
+				runs.poll( ).close( );
+			}
+		}
+	}
+
+	/**
+	 * The build rows of the same order of keys, which are iterated for each
+	 * probe row of that order. The rows which exceed the memory buffer size
+	 * are written to disk.
+	 */
+	private class RowGroup
+	{
+
+		private List<Object> keys = new ArrayList<Object>( );
+		private List<IResultObject> rows = new ArrayList<IResultObject>( );
+		private SpillFile file;
+		private long size;
+		private BitSet matchedRows = new BitSet( );
+
+		// the current row
+		private int index = -1;
+		private Object key;
+		private IResultObject row;
+
+		void add( Object key, IResultObject row ) throws DataException
+		{
+			if ( file != null )
+			{
+				file.write( key, row );
+				return;
+			}
+			keys.add( key );
+			rows.add( row );
+			size += sizeOfUtil.sizeOf( row ) + ROW_ENTRY_SIZE;
+			if ( size > memoryBufferSize )
+				file = new SpillFile( buildObjectUtil );
+		}
+
+		Object getFirstKey( )
+		{
+			return keys.get( 0 );
+		}
+
+		/**
+		 * Moves to the next row.
+		 *
+		 * @return false if there are no more rows
+		 * @throws DataException
+		 */
+		boolean next( ) throws DataException
+		{
+			index++;
+			if ( index < rows.size( ) )
+			{
+				key = keys.get( index );
+				row = rows.get( index );
+				return true;
+			}
+			if ( file != null && file.read( ) )
+			{
+				key = file.getKey( );
+				row = file.getRow( );
+				return true;
+			}
+			return false;
+		}
+
+		Object getKey( )
+		{
+			return key;
+		}
+
+		IResultObject getRow( )
+		{
+			return row;
+		}
+
+		void setMatched( )
+		{
+			matchedRows.set( index );
+		}
+
+		boolean isMatched( )
+		{
+			return matchedRows.get( index );
+		}
+
+		/**
+		 * Moves before the first row.
+		 *
+		 * @throws DataException
+		 */
+		void rewind( ) throws DataException
+		{
+			index = -1;
+			if ( file != null )
+				file.rewind( );
+		}
+
+		void close( )
+		{
+			if ( file != null )
+				file.close( );
+		}
+	}
+
+	/**
+	 * Joins a partition written to disk which does not fit in memory by
+	 * sorting the build rows and the probe rows on their keys and merging
+	 * them. Only the build rows of the current key are kept.
+	 */
+	private class MergeJoin
+	{
+
+		private SortedRows buildRows;
+		private SortedRows probeRows;
+		private boolean beBuildRowRead;
+
+		// the build rows of the current key
+		private RowGroup group;
+		private boolean beGroupUnmatchedReturned;
+
+		// the current probe row, and whether the group is iterated for it
+		private IResultObject probeRow;
+		private Object probeKey;
+		private boolean beProbeRowMatched;
+		private boolean beGroupMatched;
+
+		MergeJoin( Partition partition ) throws DataException
+		{
+			if ( probeSizeOfUtil == null )
+				probeSizeOfUtil = new SizeOfUtil( probeIterator.getResultClass( ) );
+			buildRows = new SortedRows( partition.buildFile,
+					buildObjectUtil,
+					sizeOfUtil );
+			probeRows = new SortedRows( partition.probeFile,
+					probeObjectUtil,
+					probeSizeOfUtil );
+			partition.close( );
+			beBuildRowRead = buildRows.next( );
+		}
+
+		/**
+		 * Returns the next row of the join.
+		 *
+		 * @return null if there are no more rows
+		 * @throws DataException
+		 */
+		IResultObject next( ) throws DataException
+		{
+			while ( !session.getStopSign( ).isStopped( ) )
+			{
+				if ( beGroupMatched )
+				{
+					while ( group.next( ) )
+					{
+						if ( group.getKey( ).equals( probeKey ) )
+						{
+							group.setMatched( );
+							beProbeRowMatched = true;
+							return createResultObject( probeRow, group.getRow( ) );
+						}
+					}
+					beGroupMatched = false;
+					IResultObject row = probeRow;
+					probeRow = null;
+					if ( !beProbeRowMatched && isProbePreserved )
+						return createResultObject( row, null );
+					continue;
+				}
+
+				if ( beGroupUnmatchedReturned )
+				{
+					while ( group.next( ) )
+					{
+						if ( !group.isMatched( ) )
+							return createResultObject( null, group.getRow( ) );
+					}
+					beGroupUnmatchedReturned = false;
+					closeGroup( );
+					continue;
+				}
+
+				if ( group == null && beBuildRowRead )
+					readGroup( );
+				if ( group == null && !isProbePreserved )
+					return null;
+				if ( probeRow == null && probeRows.next( ) )
+				{
+					probeRow = probeRows.getRow( );
+					probeKey = probeRows.getKey( );
+				}
+
+				if ( probeRow == null )
+				{
+					if ( group == null || !isBuildPreserved )
+						return null;
+					group.rewind( );
+					beGroupUnmatchedReturned = true;
+					continue;
+				}
+				int result = group == null ? -1
+						: JoinHashTable.compare( probeKey, group.getFirstKey( ) );
+				if ( result < 0 )
+				{
+					IResultObject row = probeRow;
+					probeRow = null;
+					if ( isProbePreserved )
+						return createResultObject( row, null );
+				}
+				else if ( result > 0 )
+				{
+					if ( isBuildPreserved )
+					{
+						group.rewind( );
+						beGroupUnmatchedReturned = true;
+					}
+					else
+					{
+						closeGroup( );
+					}
+				}
+				else
+				{
+					group.rewind( );
+					beProbeRowMatched = false;
+					beGroupMatched = true;
+				}
+			}
+			return null;
+		}
+
+		/**
+		 * Reads the build rows of the next key into the group.
+		 *
+		 * @throws DataException
+		 */
+		private void readGroup( ) throws DataException
+		{
+			group = new RowGroup( );
+			Object firstKey = buildRows.getKey( );
+			do
+			{
+				group.add( buildRows.getKey( ), buildRows.getRow( ) );
+				beBuildRowRead = buildRows.next( );
+			} while ( beBuildRowRead
+					&& JoinHashTable.compare( firstKey, buildRows.getKey( ) ) == 0 );
+		}
+
+		private void closeGroup( )
+		{
+			if ( group != null )
+				group.close( );
+			group = null;
+		}
+
+		void close( )
+		{
+			closeGroup( );
+			buildRows.close( );
+			probeRows.close( );
+		}
+	}
+}
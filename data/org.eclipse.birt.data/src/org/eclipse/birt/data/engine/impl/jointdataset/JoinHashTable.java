@@ -0,0 +1,462 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.data.engine.impl.jointdataset;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.birt.data.engine.odi.IResultObject;
+
+/**
+ * The hash table of the rows of the build side of a hash join. The rows of a
+ * key are chained in the order they are added. A key of a single integral
+ * value is kept in a table of primitive long values, other keys in a hash map.
+ * <p>
+ * The join key values are normalized so that values which are equal for
+ * <code>JointDataSetUtil.compare</code> have the same key: numbers are
+ * compared by their value, dates by their time, and null values are equal.
+ * Values of different kinds, such as a string and a number, are not equal, so
+ * the hash join is only used when the keys of both sides have the same kind.
+ */
+class JoinHashTable
+{
+
+	/**
+	 * the normalized value of null
+	 */
+	static final Object NULL_KEY = new Object( ) {
+
+		public String toString( )
+		{
+			return "null"; //$NON-NLS-1$
+		}
+	};
+
+	private static final long TWO_POWER_53 = 1L << 53;
+
+	private List<IResultObject> rows = new ArrayList<IResultObject>( );
+
+	private List<Object> keys = new ArrayList<Object>( );
+
+	// the next row of the same key, or -1
+	private int[] nextRows = new int[16];
+
+	private BitSet matchedRows = new BitSet( );
+
+	// the first and last rows of the keys which are not long values
+	private Map<Object, int[]> objectChains = new HashMap<Object, int[]>( );
+
+	// open addressing table of the long keys
+	private long[] longKeys = new long[16];
+	private int[] longHeads = newEmptySlots( 16 );
+	private int[] longTails = new int[16];
+	private int longKeyCount;
+
+	/**
+	 * Returns the normalized key of the values of the join conditions.
+	 *
+	 * @param values
+	 * @return
+	 */
+	static Object getKey( Object[] values )
+	{
+		if ( values.length == 1 )
+			return normalize( values[0] );
+
+		Object[] keyValues = new Object[values.length];
+		for ( int i = 0; i < values.length; i++ )
+		{
+			keyValues[i] = normalize( values[i] );
+		}
+		return new CompositeKey( keyValues );
+	}
+
+	/**
+	 * Returns the normalized values of a key, where a null value is null.
+	 *
+	 * @param key
+	 * @return
+	 */
+	static Object[] getKeyValues( Object key )
+	{
+		Object[] values = key instanceof CompositeKey
+				? (Object[]) ( (CompositeKey) key ).values.clone( )
+				: new Object[]{
+					key
+				};
+		for ( int i = 0; i < values.length; i++ )
+		{
+			if ( values[i] == NULL_KEY )
+				values[i] = null;
+		}
+		return values;
+	}
+
+	/**
+	 * Returns the index of the partition of a key.
+	 *
+	 * @param key
+	 * @param partitionCount
+	 *            a power of 2
+	 * @return
+	 */
+	static int getPartition( Object key, int partitionCount )
+	{
+		return getPartition( key, partitionCount, 0 );
+	}
+
+	/**
+	 * Returns the index of the partition of a key, where the hash of the key
+	 * is mixed with a seed so that the keys of a partition are divided again
+	 * by another seed.
+	 *
+	 * @param key
+	 * @param partitionCount
+	 *            a power of 2
+	 * @param seed
+	 * @return
+	 */
+	static int getPartition( Object key, int partitionCount, int seed )
+	{
+		int h = hash( key );
+		if ( seed != 0 )
+		{
+			h ^= seed * 0x85EBCA6B;
+			h ^= h >>> 13;
+			h *= 0xC2B2AE35;
+			h ^= h >>> 16;
+		}
+		// the high bits are used, the low bits select the slot of the table
+		return ( h >>> 16 ) & ( partitionCount - 1 );
+	}
+
+	/**
+	 * Compares two normalized keys, for the sort of the rows which are merged
+	 * when a partition does not fit in memory. Values of different kinds are
+	 * ordered by their kind; values which cannot be compared are equal for
+	 * this order, so the keys of the same order are matched by
+	 * <code>equals</code>.
+	 *
+	 * @param key1
+	 * @param key2
+	 * @return
+	 */
+	static int compare( Object key1, Object key2 )
+	{
+		Object[] values1 = key1 instanceof CompositeKey
+				? ( (CompositeKey) key1 ).values : new Object[]{
+					key1
+				};
+		Object[] values2 = key2 instanceof CompositeKey
+				? ( (CompositeKey) key2 ).values : new Object[]{
+					key2
+				};
+		for ( int i = 0; i < values1.length && i < values2.length; i++ )
+		{
+			int result = compareValues( values1[i], values2[i] );
+			if ( result != 0 )
+				return result;
+		}
+		return values1.length - values2.length;
+	}
+
+	private static int compareValues( Object value1, Object value2 )
+	{
+		int kind1 = getKind( value1 );
+		int kind2 = getKind( value2 );
+		if ( kind1 != kind2 )
+			return kind1 < kind2 ? -1 : 1;
+		if ( value1 == NULL_KEY
+				|| value1.getClass( ) != value2.getClass( )
+				|| !( value1 instanceof Comparable ) )
+			return 0;
+		return ( (Comparable) value1 ).compareTo( value2 );
+	}
+
+	private static int getKind( Object value )
+	{
+		if ( value == NULL_KEY )
+			return 0;
+		if ( value instanceof Long )
+			return 1;
+		if ( value instanceof Double )
+			return 2;
+		if ( value instanceof Date )
+			return 3;
+		if ( value instanceof String )
+			return 4;
+		if ( value instanceof Boolean )
+			return 5;
+		return 6;
+	}
+
+	private static Object normalize( Object value )
+	{
+		if ( value == null )
+			return NULL_KEY;
+		if ( value instanceof Integer
+				|| value instanceof Long
+				|| value instanceof Short
+				|| value instanceof Byte )
+		{
+			return Long.valueOf( ( (Number) value ).longValue( ) );
+		}
+		if ( value instanceof BigDecimal )
+		{
+			BigDecimal decimal = (BigDecimal) value;
+			try
+			{
+				return Long.valueOf( decimal.longValueExact( ) );
+			}
+			catch ( ArithmeticException e )
+			{
+				return normalize( decimal.doubleValue( ) );
+			}
+		}
+		if ( value instanceof BigInteger )
+		{
+			BigInteger integer = (BigInteger) value;
+			if ( integer.bitLength( ) < 64 )
+				return Long.valueOf( integer.longValue( ) );
+			return normalize( integer.doubleValue( ) );
+		}
+		if ( value instanceof Number )
+		{
+			return normalize( ( (Number) value ).doubleValue( ) );
+		}
+		if ( value instanceof Date )
+		{
+			Timestamp timestamp = new Timestamp( ( (Date) value ).getTime( ) );
+			if ( value instanceof Timestamp )
+				timestamp.setNanos( ( (Timestamp) value ).getNanos( ) );
+			return timestamp;
+		}
+		return value;
+	}
+
+	private static Object normalize( double value )
+	{
+		if ( value == Math.rint( value )
+				&& value > -TWO_POWER_53 && value < TWO_POWER_53 )
+		{
+			return Long.valueOf( (long) value );
+		}
+		return Double.valueOf( value );
+	}
+
+	private static int hash( Object key )
+	{
+		if ( key instanceof Long )
+			return hash( ( (Long) key ).longValue( ) );
+		int h = key.hashCode( );
+		return ( h ^ ( h >>> 16 ) ) * 0x9E3779B9;
+	}
+
+	private static int hash( long key )
+	{
+		int h = (int) ( key ^ ( key >>> 32 ) );
+		return ( h ^ ( h >>> 16 ) ) * 0x9E3779B9;
+	}
+
+	private static int[] newEmptySlots( int size )
+	{
+		int[] slots = new int[size];
+		Arrays.fill( slots, -1 );
+		return slots;
+	}
+
+	/**
+	 * Adds a row of a key.
+	 *
+	 * @param key
+	 *            the normalized key
+	 * @param row
+	 */
+	void add( Object key, IResultObject row )
+	{
+		int index = rows.size( );
+		rows.add( row );
+		keys.add( key );
+		if ( index == nextRows.length )
+			nextRows = Arrays.copyOf( nextRows, index * 2 );
+		nextRows[index] = -1;
+
+		if ( key instanceof Long )
+		{
+			addLong( ( (Long) key ).longValue( ), index );
+			return;
+		}
+		int[] chain = objectChains.get( key );
+		if ( chain == null )
+		{
+			objectChains.put( key, new int[]{
+					index, index
+			} );
+		}
+		else
+		{
+			nextRows[chain[1]] = index;
+			chain[1] = index;
+		}
+	}
+
+	private void addLong( long key, int index )
+	{
+		int slot = findSlot( key );
+		if ( longHeads[slot] >= 0 )
+		{
+			nextRows[longTails[slot]] = index;
+			longTails[slot] = index;
+			return;
+		}
+		longKeys[slot] = key;
+		longHeads[slot] = index;
+		longTails[slot] = index;
+		if ( ++longKeyCount * 2 > longKeys.length )
+			resize( );
+	}
+
+	/**
+	 * Returns the slot of a key, or the empty slot where it is added.
+	 */
+	private int findSlot( long key )
+	{
+		int mask = longKeys.length - 1;
+		int slot = hash( key ) & mask;
+		while ( longHeads[slot] >= 0 && longKeys[slot] != key )
+		{
+			slot = ( slot + 1 ) & mask;
+		}
+		return slot;
+	}
+
+	private void resize( )
+	{
+		long[] oldKeys = longKeys;
+		int[] oldHeads = longHeads;
+		int[] oldTails = longTails;
+		longKeys = new long[oldKeys.length * 2];
+		longHeads = newEmptySlots( oldKeys.length * 2 );
+		longTails = new int[oldKeys.length * 2];
+		for ( int i = 0; i < oldKeys.length; i++ )
+		{
+			if ( oldHeads[i] >= 0 )
+			{
+				int slot = findSlot( oldKeys[i] );
+				longKeys[slot] = oldKeys[i];
+				longHeads[slot] = oldHeads[i];
+				longTails[slot] = oldTails[i];
+			}
+		}
+	}
+
+	/**
+	 * Returns the index of the first row of a key, or -1 if there is no row of
+	 * the key.
+	 *
+	 * @param key
+	 *            the normalized key
+	 * @return
+	 */
+	int getFirstRow( Object key )
+	{
+		if ( key instanceof Long )
+			return longHeads[findSlot( ( (Long) key ).longValue( ) )];
+		int[] chain = objectChains.get( key );
+		return chain == null ? -1 : chain[0];
+	}
+
+	/**
+	 * Returns the index of the next row of the same key, or -1.
+	 *
+	 * @param row
+	 * @return
+	 */
+	int getNextRow( int row )
+	{
+		return nextRows[row];
+	}
+
+	IResultObject getRow( int row )
+	{
+		return rows.get( row );
+	}
+
+	/**
+	 * Returns the normalized key of a row.
+	 *
+	 * @param row
+	 * @return
+	 */
+	Object getKey( int row )
+	{
+		return keys.get( row );
+	}
+
+	int getRowCount( )
+	{
+		return rows.size( );
+	}
+
+	void setMatched( int row )
+	{
+		matchedRows.set( row );
+	}
+
+	/**
+	 * Returns the index of the first row from the specified row which has not
+	 * matched any row, or -1.
+	 *
+	 * @param fromRow
+	 * @return
+	 */
+	int getNextUnmatchedRow( int fromRow )
+	{
+		int row = matchedRows.nextClearBit( fromRow );
+		return row < rows.size( ) ? row : -1;
+	}
+
+	/**
+	 * The key of several join conditions.
+	 */
+	private static final class CompositeKey
+	{
+
+		private Object[] values;
+		private int hashCode;
+
+		CompositeKey( Object[] values )
+		{
+			this.values = values;
+			this.hashCode = Arrays.hashCode( values );
+		}
+
+		public boolean equals( Object o )
+		{
+			return o instanceof CompositeKey
+					&& Arrays.equals( values, ( (CompositeKey) o ).values );
+		}
+
+		public int hashCode( )
+		{
+			return hashCode;
+		}
+	}
+}
@@ -54,4 +54,26 @@ public class JointDataSetPopulatorFactory
 	{
 		return new BaseJointDataSetPopulator( left, right, meta, jcm , joinType, null, session, rowFetchLimit );
 	}
+	
+	/**
+	 * Return instance of IJointDataSetPopulator which is used for hash join. The
+	 * left and right data sets need not be sorted.
+	 * 
+	 * @param left
+	 * @param right
+	 * @param meta
+	 * @param jcm
+	 * @param joinType
+	 * @param session
+	 * @param rowFetchLimit
+	 * @param memoryBufferSize
+	 *            the memory size in bytes of the rows put into the hash tables,
+	 *            beyond which they are written to disk; 0 means no limit
+	 * @return
+	 * @throws DataException
+	 */
+	public static IDataSetPopulator getHashJointDataSetPopulator( IResultIterator left, IResultIterator right, JointResultMetadata meta, IJoinConditionMatcher jcm , int joinType, DataEngineSession session, int rowFetchLimit, long memoryBufferSize ) throws DataException
+	{
+		return new HashJointDataSetPopulator( left, right, meta, jcm , joinType, session, rowFetchLimit, memoryBufferSize );
+	}
 }
@@ -39,6 +39,8 @@ public class ResultSet extends ExceptionHandler
 {
 	private IResultSet m_resultSet;
 	private IResultClass m_resultClass;		// cached result class
+	private ColumnReader[] m_columnReaders;	// cached readers of the result class columns
+	private boolean m_isWasNullUnsupported;
 
 	// trace logging variables
 	private static String sm_className = ResultSet.class.getName();
@@ -130,13 +132,70 @@ public class ResultSet extends ExceptionHandler
 		if ( m_resultSet == null )
 			return null;
 
+	    final String methodName = "fetch"; //$NON-NLS-1$
+
+		if( ! next( ) )
+			return null;
+
+		Object[] fields = new Object[ m_resultClass.getFieldCount() ];
+		readRow( fields );
+		
+		IResultObject ret = new ResultObject( m_resultClass, fields );
+
+		getLogger().logp( Level.FINEST, sm_className, methodName, 
+		            		"Fetched next row: {0} .", ret ); //$NON-NLS-1$
+
+		return ret;
+	}
+
+	/**
+	 * Fetches the next rows in the result set into a block of rows, without 
+	 * creating an <code>IResultObject</code> for each row.  
+	 * A row of the block is reused if its length is the field count of the 
+	 * result class; otherwise a new row is created in its place. 
+	 * The value of a custom field is set to null.
+	 * @param rowBlock	the block of rows to fill, in the order of the fields 
+	 * 					of the result class
+	 * @return	the number of rows fetched; less than the length of the block
+	 * 			if there are no more rows available or if max rows limit 
+	 * 			has been reached.
+	 * @throws DataException	if data source error occurs.
+	 */
+	public int fetch( Object[][] rowBlock ) throws DataException
+	{
+		if ( m_resultSet == null )
+			return 0;
+
+	    final String methodName = "fetch"; //$NON-NLS-1$
+
+		int columnCount = m_resultClass.getFieldCount();
+		int rowCount = 0;
+		while( rowCount < rowBlock.length && next( ) )
+		{
+			Object[] fields = rowBlock[rowCount];
+			if( fields == null || fields.length != columnCount )
+			{
+				fields = new Object[ columnCount ];
+				rowBlock[rowCount] = fields;
+			}
+			readRow( fields );
+			rowCount++;
+		}
+
+		getLogger().logp( Level.FINEST, sm_className, methodName, 
+		            		"Fetched {0} rows.", Integer.valueOf( rowCount ) ); //$NON-NLS-1$
+
+		return rowCount;
+	}
+
+	private boolean next( ) throws DataException
+	{
 	    final String methodName = "fetch"; //$NON-NLS-1$
         final String errorCode = ResourceConstants.CANNOT_FETCH_NEXT_ROW;
 
 		try
 		{
-			if( ! m_resultSet.next( ) )
-				return null;
+			return m_resultSet.next( );
 		}
 		catch( OdaException ex )
 		{
@@ -146,74 +205,162 @@ public class ResultSet extends ExceptionHandler
 		{
 		    throwException( ex, errorCode, methodName );
 		}
+		return false;
+	}
 
+	/*
+	 * Reads the values of the current row into the specified fields.
+	 */
+	private void readRow( Object[] fields ) throws DataException
+	{
+		ColumnReader[] columnReaders = getColumnReaders( );
+		for( int i = 0; i < columnReaders.length; i++ )
+		{
+			ColumnReader columnReader = columnReaders[i];
+			fields[i] = ( columnReader == null ) ? null : columnReader.read( );
+		}
+	}
+
+	/*
+	 * Returns the column readers of the result class, which are created 
+	 * once so that the data type of a column is not checked for each row; 
+	 * the reader of a custom field is null.
+	 */
+	private ColumnReader[] getColumnReaders( ) throws DataException
+	{
+		if( m_columnReaders != null )
+			return m_columnReaders;
+		
 		int columnCount = m_resultClass.getFieldCount();
 		int[] driverPositions = 
 			( (ResultClass) m_resultClass ).getFieldDriverPositions();
 		assert( columnCount == driverPositions.length );
 		
-		Object[] fields = new Object[ columnCount ];
-		
+		ColumnReader[] columnReaders = new ColumnReader[ columnCount ];
 		for( int i = 1; i <= columnCount; i++ )
 		{
 			if ( m_resultClass.isCustomField( i ) == true )
 				continue;
 			
-			Class dataType = m_resultClass.getFieldValueClass( i );
-			int driverPosition = driverPositions[i - 1];
-			Object colValue = null;
-			
-			if( dataType == Integer.class )
-			{
-				int j = getInt( driverPosition );
-				if( ! wasNull() )
-					colValue = Integer.valueOf( j ); 
-			}
-			else if( dataType == Double.class )
-			{
-				double d = getDouble( driverPosition );
-				if( ! wasNull() )
-					colValue = new Double( d );
-			}
-			else if( dataType == String.class )
-				colValue = getString( driverPosition );
-			else if( dataType == BigDecimal.class )
-				colValue = getBigDecimal( driverPosition );
-			else if( dataType == java.sql.Date.class )
-				colValue = getDate( driverPosition );
-			else if( dataType == Time.class )
-				colValue = getTime( driverPosition );
-			else if( dataType == java.util.Date.class )
-				colValue = getTimestamp( driverPosition );  // use timestamp to preserve the time portion of java.util.Date
-			else if( dataType == Timestamp.class )
-				colValue = getTimestamp( driverPosition );
-			else if( dataType == IBlob.class )
-				colValue = getBlob( driverPosition );
-			else if( dataType == IClob.class )
-				colValue = getClob( driverPosition );
-            else if( dataType == Boolean.class )
-            {
-                boolean val = getBoolean( driverPosition );
-                if( ! wasNull() )
-                    colValue = Boolean.valueOf( val );
-            }
-            else if( dataType == Object.class )
-                colValue = getObject( driverPosition );
-			else
-				assert false;
-			
-			if( wasNull( ) )
-				colValue = null;
-			
-			fields[i - 1] = colValue;
+			columnReaders[i - 1] = createColumnReader( 
+					m_resultClass.getFieldValueClass( i ), driverPositions[i - 1] );
 		}
-		
-		IResultObject ret = new ResultObject( m_resultClass, fields );
+		m_columnReaders = columnReaders;
+		return columnReaders;
+	}
 
-		getLogger().logp( Level.FINEST, sm_className, methodName, 
-		            		"Fetched next row: {0} .", ret ); //$NON-NLS-1$
+	private ColumnReader createColumnReader( Class dataType, final int driverPosition )
+	{
+		if( dataType == Integer.class )
+		{
+			return new ColumnReader( ) {
+				Object read( ) throws DataException
+				{
+					int j = getInt( driverPosition );
+					return wasNull( ) ? null : Integer.valueOf( j );
+				}
+			};
+		}
+		if( dataType == Double.class )
+		{
+			return new ColumnReader( ) {
+				Object read( ) throws DataException
+				{
+					double d = getDouble( driverPosition );
+					return wasNull( ) ? null : Double.valueOf( d );
+				}
+			};
+		}
+		if( dataType == String.class )
+		{
+			return new ColumnReader( ) {
+				Object read( ) throws DataException
+				{
+					return nullIfWasNull( getString( driverPosition ) );
+				}
+			};
+		}
+		if( dataType == BigDecimal.class )
+		{
+			return new ColumnReader( ) {
+				Object read( ) throws DataException
+				{
+					return nullIfWasNull( getBigDecimal( driverPosition ) );
+				}
+			};
+		}
+		if( dataType == java.sql.Date.class )
+		{
+			return new ColumnReader( ) {
+				Object read( ) throws DataException
+				{
+					return nullIfWasNull( getDate( driverPosition ) );
+				}
+			};
+		}
+		if( dataType == Time.class )
+		{
+			return new ColumnReader( ) {
+				Object read( ) throws DataException
+				{
+					return nullIfWasNull( getTime( driverPosition ) );
+				}
+			};
+		}
+		// use timestamp to preserve the time portion of java.util.Date
+		if( dataType == java.util.Date.class || dataType == Timestamp.class )
+		{
+			return new ColumnReader( ) {
+				Object read( ) throws DataException
+				{
+					return nullIfWasNull( getTimestamp( driverPosition ) );
+				}
+			};
+		}
+		if( dataType == IBlob.class )
+		{
+			return new ColumnReader( ) {
+				Object read( ) throws DataException
+				{
+					return nullIfWasNull( getBlob( driverPosition ) );
+				}
+			};
+		}
+		if( dataType == IClob.class )
+		{
+			return new ColumnReader( ) {
+				Object read( ) throws DataException
+				{
+					return nullIfWasNull( getClob( driverPosition ) );
+				}
+			};
+		}
+		if( dataType == Boolean.class )
+		{
+			return new ColumnReader( ) {
+				Object read( ) throws DataException
+				{
+					boolean val = getBoolean( driverPosition );
+					return wasNull( ) ? null : Boolean.valueOf( val );
+				}
+			};
+		}
+		if( dataType == Object.class )
+		{
+			return new ColumnReader( ) {
+				Object read( ) throws DataException
+				{
+					return nullIfWasNull( getObject( driverPosition ) );
+				}
+			};
+		}
+		assert false;
+		return null;
+	}
 
-		return ret;
+	private Object nullIfWasNull( Object value ) throws DataException
+	{
+		return wasNull( ) ? null : value;
 	}
 
     private int getInt( int driverPosition ) throws DataException
@@ -438,6 +585,9 @@ public class ResultSet extends ExceptionHandler
 	
 	private boolean wasNull() throws DataException
 	{
+		if( m_isWasNullUnsupported )
+			return false;
+
 	    final String methodName = "wasNull"; //$NON-NLS-1$
 		try
 		{
@@ -449,6 +599,8 @@ public class ResultSet extends ExceptionHandler
 		}
 		catch( UnsupportedOperationException ex )
 		{
+		    // the driver is not asked again for the other values
+		    m_isWasNullUnsupported = true;
 		    getLogger().logp( Level.WARNING, sm_className, methodName,
     						"Cannot check wasNull. Default to false.", ex ); //$NON-NLS-1$
 		}
@@ -505,4 +657,13 @@ public class ResultSet extends ExceptionHandler
 		getLogger().exiting( sm_className, methodName );
 	}
 	
+	/**
+	 * Reads the value of a column of the current row in the data type 
+	 * of the column.
+	 */
+	private abstract class ColumnReader
+	{
+		abstract Object read( ) throws DataException;
+	}
+	
 }
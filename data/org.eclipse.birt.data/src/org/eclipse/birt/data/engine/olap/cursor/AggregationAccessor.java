@@ -69,6 +69,8 @@ public class AggregationAccessor extends Accessor
 	private boolean dimensionPrepared = false;
 	private Map dimensionCursorMap;
 	private Map<String, Integer> aggregationResultSetIDMap;
+	private AggregationResultSetIndex[] resultSetIndexes;
+	private boolean[] resultSetIndexCreated;
 
 	
 	/**
@@ -92,6 +94,8 @@ public class AggregationAccessor extends Accessor
 			return;
 
 		this.currentPosition = new int[this.resultSet.getMeasureResult( ).length];
+		this.resultSetIndexes = new AggregationResultSetIndex[currentPosition.length];
+		this.resultSetIndexCreated = new boolean[currentPosition.length];
 		// initial aggregation resultset position to 0 if possible
 		for ( int i = 0; i < this.resultSet.getMeasureResult( ).length; i++ )
 		{
@@ -382,6 +386,19 @@ public class AggregationAccessor extends Accessor
 			return true;
 
 		List memberList = Arrays.asList( rs.getAllLevels( ) );
+		if ( memberList.isEmpty( ) )
+			return true;
+
+		AggregationResultSetIndex rsIndex = getResultSetIndex( index, rs );
+		if ( rsIndex != null )
+		{
+			int position = rsIndex.find( valueMap );
+			if ( position < 0 )
+				return false;
+			rs.seek( position );
+			currentPosition[index] = position;
+			return true;
+		}
 
 		CalculatedMember member = this.view.getAggregationRegisterTable( ).getCalculatedMember( aggrName );
 		if( member!= null && member.getCubeAggrDefn( ) instanceof CubeRunningNestAggrDefn) 
@@ -395,6 +412,26 @@ public class AggregationAccessor extends Accessor
 		}
 	}
 	
+	/**
+	 * Returns the index of the rows of an aggregation result set, which is
+	 * created on first use.
+	 * 
+	 * @param index
+	 * @param rs
+	 * @return the index, or null if the result set is not indexed
+	 * @throws IOException
+	 */
+	private AggregationResultSetIndex getResultSetIndex( int index,
+			IAggregationResultSet rs ) throws IOException
+	{
+		if ( !resultSetIndexCreated[index] )
+		{
+			resultSetIndexes[index] = AggregationResultSetIndex.create( rs );
+			resultSetIndexCreated[index] = true;
+		}
+		return resultSetIndexes[index];
+	}
+	
 	/*
 	 * 
 	 */
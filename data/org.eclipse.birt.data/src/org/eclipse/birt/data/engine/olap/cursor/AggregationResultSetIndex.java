@@ -0,0 +1,154 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.data.engine.olap.cursor;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.birt.data.engine.olap.data.api.DimLevel;
+import org.eclipse.birt.data.engine.olap.data.api.IAggregationResultSet;
+
+/**
+ * A hash index from the level values of the rows of an aggregation result set
+ * to their positions. Only the rows which exist are indexed, so a crosstab
+ * cell is found in constant time however sparse the crosstab is, instead of
+ * walking the result set from the position of the previous cell.
+ */
+
+class AggregationResultSetIndex
+{
+	/**
+	 * Result sets with more rows are not indexed, to bound the memory used.
+	 */
+	static final int MAX_ROW_COUNT = 1000000;
+
+	private DimLevel[] levels;
+	private Map<Key, Integer> positions;
+
+	private AggregationResultSetIndex( DimLevel[] levels, int rowCount )
+	{
+		this.levels = levels;
+		this.positions = new HashMap<Key, Integer>( Math.max( 16,
+				rowCount * 4 / 3 + 1 ) );
+	}
+
+	/**
+	 * Indexes the rows of a result set. The position of the result set is
+	 * kept.
+	 *
+	 * @param rs
+	 * @return the index, or null if the result set is too large to be indexed
+	 * @throws IOException
+	 */
+	static AggregationResultSetIndex create( IAggregationResultSet rs )
+			throws IOException
+	{
+		DimLevel[] levels = rs.getAllLevels( );
+		if ( levels == null || rs.length( ) > MAX_ROW_COUNT )
+		{
+			return null;
+		}
+		AggregationResultSetIndex result = new AggregationResultSetIndex( levels,
+				rs.length( ) );
+		int position = rs.getPosition( );
+		for ( int i = 0; i < rs.length( ); i++ )
+		{
+			rs.seek( i );
+			Object[] values = new Object[levels.length];
+			for ( int j = 0; j < levels.length; j++ )
+			{
+				Object[] keyValues = rs.getLevelKeyValue( j );
+				if ( keyValues != null )
+				{
+					values[j] = keyValues[rs.getLevelKeyColCount( j ) - 1];
+				}
+			}
+			Key key = new Key( values );
+			// Keep the first row of a key, as a walk from the start would
+			if ( !result.positions.containsKey( key ) )
+			{
+				result.positions.put( key, Integer.valueOf( i ) );
+			}
+		}
+		if ( position >= 0 && position < rs.length( ) )
+		{
+			rs.seek( position );
+		}
+		return result;
+	}
+
+	/**
+	 *
+	 * @param valueMap
+	 *            the values of the levels on the edges
+	 * @return the position of the row with the values, or -1 if there is none
+	 */
+	int find( Map valueMap )
+	{
+		Object[] values = new Object[levels.length];
+		for ( int i = 0; i < levels.length; i++ )
+		{
+			values[i] = valueMap.get( levels[i] );
+		}
+		Integer position = positions.get( new Key( values ) );
+		return position == null ? -1 : position.intValue( );
+	}
+
+	/**
+	 * The level values of a row. Values which compare as equal have equal
+	 * keys.
+	 */
+	private static class Key
+	{
+		private Object[] values;
+		private int hashCode;
+
+		Key( Object[] values )
+		{
+			this.values = values;
+			for ( int i = 0; i < values.length; i++ )
+			{
+				values[i] = normalize( values[i] );
+			}
+			this.hashCode = Arrays.hashCode( values );
+		}
+
+		private static Object normalize( Object value )
+		{
+			if ( value instanceof BigDecimal )
+			{
+				BigDecimal decimal = (BigDecimal) value;
+				return decimal.signum( ) == 0 ? BigDecimal.ZERO
+						: decimal.stripTrailingZeros( );
+			}
+			if ( value instanceof Date && value.getClass( ) != Date.class )
+			{
+				return new Date( ( (Date) value ).getTime( ) );
+			}
+			return value;
+		}
+
+		public int hashCode( )
+		{
+			return hashCode;
+		}
+
+		public boolean equals( Object o )
+		{
+			return o instanceof Key && Arrays.equals( values, ( (Key) o ).values );
+		}
+	}
+}
@@ -11,8 +11,6 @@
 
 package org.eclipse.birt.data.engine.olap.cursor;
 
-import java.util.List;
-
 import javax.olap.OLAPException;
 
 import org.eclipse.birt.data.engine.i18n.ResourceConstants;
@@ -84,9 +82,9 @@ class DimensionTraverse
 			}
 
 			EdgeInfo info = null;
-			if ( this.relationMap.currentRelation[i].size( ) > position )
+			if ( this.relationMap.hasEdgeInfo( i, position ) )
 			{
-				info = (EdgeInfo) this.relationMap.currentRelation[i].get( position );
+				info = this.relationMap.getEdgeInfo( i, position );
 			}
 			else
 			{
@@ -95,7 +93,7 @@ class DimensionTraverse
 			}
 			for ( int j = position - 1; j >= 0; j-- )
 			{
-				EdgeInfo lastInfo = (EdgeInfo) this.relationMap.currentRelation[i].get( j );
+				EdgeInfo lastInfo = this.relationMap.getEdgeInfo( i, j );
 				if ( info.parent == lastInfo.parent )
 				{
 					count++;
@@ -353,7 +351,7 @@ class DimensionTraverse
 		EdgeInfo info = edgeInfo;
 		for ( position = dimAxisIndex + 1; position < outer; position++ )
 		{
-			info = (EdgeInfo) ( (List) this.relationMap.currentRelation[position] ).get( endPosition );
+			info = this.relationMap.getEdgeInfo( position, endPosition );
 			endPosition = info.firstChild;
 		}
 		return info.firstChild;
@@ -379,10 +377,11 @@ class DimensionTraverse
 		
 		int endPosition = edgeInfo.firstChild;
 
-		int index = this.relationMap.currentRelation[dimAxisIndex].indexOf( edgeInfo );
-		if ( index < this.relationMap.currentRelation[dimAxisIndex].size( ) - 1 )
+		int index = edgeInfo.index;
+		if ( this.relationMap.hasEdgeInfo( dimAxisIndex, index + 1 ) )
 		{
-			EdgeInfo nextEdgeInfo = (EdgeInfo) this.relationMap.currentRelation[dimAxisIndex].get( index + 1 );
+			EdgeInfo nextEdgeInfo = this.relationMap.getEdgeInfo( dimAxisIndex,
+					index + 1 );
 			EdgeInfo nextOuterEdgeInfo = this.findOuterMostChildEdgeInfo( dimAxisIndex,
 					nextEdgeInfo );
 			endPosition = nextOuterEdgeInfo.firstChild - 1;
@@ -471,7 +470,7 @@ class DimensionTraverse
 		EdgeInfo info = edgeInfo;
 		for ( int i = dimAxisIndex + 1; i < this.dimAxis.length; i++ )
 		{
-			info = (EdgeInfo) ( (List) this.relationMap.currentRelation[i] ).get( endPosition );
+			info = this.relationMap.getEdgeInfo( i, endPosition );
 			endPosition = info.firstChild;
 		}
 		return info;
@@ -498,10 +497,10 @@ class DimensionTraverse
 				return false;
 		}
 
-		int index = this.relationMap.currentRelation[dimAxisIndex].indexOf( currentEdgeInfo );
+		int index = currentEdgeInfo.index;
 		EdgeInfo nextEdgeInfo = null;
-		if ( this.relationMap.currentRelation[dimAxisIndex].size( ) > index + 1 )
-			nextEdgeInfo = (EdgeInfo) this.relationMap.currentRelation[dimAxisIndex].get( index + 1 );
+		if ( this.relationMap.hasEdgeInfo( dimAxisIndex, index + 1 ) )
+			nextEdgeInfo = this.relationMap.getEdgeInfo( dimAxisIndex, index + 1 );
 
 		if ( nextEdgeInfo == null )
 			return false;
@@ -525,47 +524,22 @@ class DimensionTraverse
 			return null;
 		}
 
-		EdgeInfo tempEdgeInfo1 = null, tempEdgeInfo2 = null, edgeInfo = null;
-		int endPosition = 0;
+		EdgeInfo edgeInfo = null;
+		int endPosition = 0, parent = -1;
 		for ( int index = 0; index <= dimensionAxis; index++ )
 		{
-			if ( dimensionAxis == index )
-			{
-
-				if ( this.relationMap.currentRelation[index].size( ) > endPosition &&
-						this.dimensionCursorPosition[index] > -1 &&
-						this.dimensionCursorPosition[index] + endPosition < this.relationMap.currentRelation[index].size( ) &&
-						( tempEdgeInfo2 == null || this.dimensionCursorPosition[index] +
-								endPosition < tempEdgeInfo2.firstChild ) )
-				{
-					edgeInfo = (EdgeInfo) this.relationMap.currentRelation[index].get( this.dimensionCursorPosition[index] +
-							endPosition );
-				}
-				else if ( this.dimensionCursorPosition[index] == -1 )
-					return null;
-				break;
-			}
-			else
-			{
-				if ( this.dimensionCursorPosition[index] + endPosition < this.relationMap.currentRelation[index].size( ) &&
-						this.dimensionCursorPosition[index] > -1 &&
-						this.relationMap.currentRelation[index].size( ) > endPosition )
-				{
-					tempEdgeInfo1 = (EdgeInfo) this.relationMap.currentRelation[index].get( this.dimensionCursorPosition[index] +
-							endPosition );
-					if ( this.dimensionCursorPosition[index] + endPosition + 1 < this.relationMap.currentRelation[index].size( ) )
-					{
-						tempEdgeInfo2 = (EdgeInfo) this.relationMap.currentRelation[index].get( this.dimensionCursorPosition[index] +
-								endPosition + 1 );
-					}
-				}
-				else
-					return null;
-				if ( tempEdgeInfo1 != null )
-				{
-					endPosition = tempEdgeInfo1.firstChild;
-				}
-			}
+			int position = this.dimensionCursorPosition[index] + endPosition;
+			if ( this.dimensionCursorPosition[index] < 0
+					|| !this.relationMap.hasEdgeInfo( index, position ) )
+				return null;
+			edgeInfo = this.relationMap.getEdgeInfo( index, position );
+			// The position on the certain dimension must be in the children of
+			// its parent. Comparing the parent instead of looking at the first
+			// child of the next parent only relates the edge up to the position.
+			if ( dimensionAxis == index && index > 0 && edgeInfo.parent != parent )
+				return null;
+			parent = position;
+			endPosition = edgeInfo.firstChild;
 		}
 		return edgeInfo;
 	}
@@ -585,9 +559,9 @@ class DimensionTraverse
 
 		if ( dimensionAxis == 0 )
 		{
-			if ( this.dimensionCursorPosition[0] < this.relationMap.currentRelation[0].size( ) )
-				return this.relationMap.currentRelation[0].size( ) -
-						this.dimensionCursorPosition[dimensionAxis] - 1;
+			int count = this.relationMap.getEdgeInfoCount( 0 );
+			if ( this.dimensionCursorPosition[0] < count )
+				return count - this.dimensionCursorPosition[dimensionAxis] - 1;
 			else
 				return range;
 		}
@@ -601,10 +575,11 @@ class DimensionTraverse
 			range = 0;
 			while ( true )
 			{
-				int index = this.relationMap.currentRelation[dimensionAxis].indexOf( currentInfo );
+				int index = currentInfo.index;
 				EdgeInfo nextEdgeInfo = null;
-				if ( this.relationMap.currentRelation[dimensionAxis].size( ) > index + 1 )
-					nextEdgeInfo = (EdgeInfo) this.relationMap.currentRelation[dimensionAxis].get( index + 1 );
+				if ( this.relationMap.hasEdgeInfo( dimensionAxis, index + 1 ) )
+					nextEdgeInfo = this.relationMap.getEdgeInfo( dimensionAxis,
+							index + 1 );
 				else
 					break;
 				if ( nextEdgeInfo != null &&
@@ -60,13 +60,34 @@ import org.eclipse.birt.data.engine.olap.driver.DimensionAxis;
  * The product level's value will be sorted according to its basic sort definition. But in case 
  * of aggregation sort, we should try to keep its original sort result.
  * 
+ * Unless the edge is divided into sections by page levels, the edge infos are
+ * populated on demand, so that only the rows up to the current position of a
+ * cursor are related. Use hasEdgeInfo/getEdgeInfo instead of currentRelation
+ * to access them.
+ * 
+ * This only bounds the relating of the rows. The aggregation result set of
+ * the edge is still computed in full before the edge is related, so the time
+ * and memory before the first row can be read still grow with the edge.
+ * 
  */
 class EdgeDimensionRelation
 {
+	/**
+	 * The number of rows related at a time when an edge is related on demand.
+	 */
+	static final int WINDOW_SIZE = 1000;
+
 	List[] currentRelation;
 	int traverseLength;
 	ResultSetFetcher fetcher;
 	private List sectionList;
+	private RowDataAccessorService service;
+	private boolean isPage;
+	private int rowCount, relatedRowCount;
+	private Object[] preValue, currValue;
+	private Section section;
+	private boolean newSection = true;
+	private int startId = 0;
 	
 	EdgeDimensionRelation( RowDataAccessorService service,
 			ResultSetFetcher fetcher, boolean isPage )
@@ -77,16 +98,15 @@ class EdgeDimensionRelation
 
 		this.sectionList = new ArrayList( );
 		this.fetcher = fetcher;
+		this.service = service;
+		this.isPage = isPage;
 		int customDimSize = dimAxis.length;
 
-		this.traverseLength = rs.length( );
-		
-		Object[] preValue = new Object[customDimSize];
-		Object[] currValue = new Object[customDimSize];
+		this.rowCount = rs.length( );
+		this.traverseLength = this.rowCount;
 		
-		Section section = null;
-		boolean newSection = true;
-		int startId = 0;
+		this.preValue = new Object[customDimSize];
+		this.currValue = new Object[customDimSize];
 		
 		if ( this.traverseLength == 0 )
 		{
@@ -94,85 +114,183 @@ class EdgeDimensionRelation
 			this.sectionList.add( section );
 			this.currentRelation = ( (Section) this.sectionList.get( 0 ) ).getRelation( );
 		}
+		else if ( isPage || service.getPagePosition( ) < 0 )
+		{
+			// The edge is not divided into sections, so that its rows are
+			// related on demand, a window at a time, as the edge is traversed.
+			relateRows( Math.min( WINDOW_SIZE, this.rowCount ) );
+			section.setBaseStart( 0 );
+			section.setBaseEnd( this.rowCount - 1 );
+			this.currentRelation = ( (Section) this.sectionList.get( 0 ) ).getRelation( );
+		}
 		else
 		{
-			for ( int rowId = 0; rowId < traverseLength; rowId++ )
+			relateRows( this.rowCount );
+
+			this.currentRelation = ( (Section) this.sectionList.get( 0 ) ).getRelation( );
+			this.traverseLength = ( (Section) this.sectionList.get( 0 ) ).getBaseEnd( )
+					- ( (Section) this.sectionList.get( 0 ) ).getBaseStart( )
+					+ 1;
+		}
+	}
+
+	/**
+	 * Relates the rows of the aggregation result set up to the end row.
+	 * 
+	 * @param endRowId
+	 *            the row after the last one to relate
+	 * @throws IOException
+	 */
+	private void relateRows( int endRowId ) throws IOException
+	{
+		IAggregationResultSet rs = fetcher.getAggrResultSet( );
+		int customDimSize = service.getDimensionAxis( ).length;
+		for ( int rowId = this.relatedRowCount; rowId < endRowId; rowId++ )
+		{
+			rs.seek( rowId );
+			for ( int i = 0; i < customDimSize; i++ )
 			{
-				rs.seek( rowId );
-				for ( int i = 0; i < customDimSize; i++ )
+				if ( fetcher.getLevelKeyValue( service.getDimensionAxis( )[i].getLevelIndex( ) ) == null )
 				{
-					if ( fetcher.getLevelKeyValue( service.getDimensionAxis( )[i].getLevelIndex( ) ) == null )
-					{
-						currValue[i] = null;
-					}
-					else
-					{
-						int index = fetcher.getAggrResultSet( )
-								.getLevelKeyColCount( service.getDimensionAxis( )[i].getLevelIndex( ) ) - 1;
-						currValue[i] = fetcher.getLevelKeyValue( service.getDimensionAxis( )[i].getLevelIndex( ) )[index];
-					}
-				}
-				int breakLevel;
-				if ( newSection )
-				{
-					section = new Section( customDimSize, -1, -1 );
-					newSection = false;
-					this.sectionList.add( section );
-					breakLevel = 0;
+					currValue[i] = null;
 				}
 				else
 				{
-					breakLevel = getBreakLevel( currValue,
-							preValue,
-							section,
-							rowId );
+					int index = fetcher.getAggrResultSet( )
+							.getLevelKeyColCount( service.getDimensionAxis( )[i].getLevelIndex( ) ) - 1;
+					currValue[i] = fetcher.getLevelKeyValue( service.getDimensionAxis( )[i].getLevelIndex( ) )[index];
+				}
+			}
+			int breakLevel;
+			if ( newSection )
+			{
+				section = new Section( customDimSize, -1, -1 );
+				newSection = false;
+				this.sectionList.add( section );
+				breakLevel = 0;
+			}
+			else
+			{
+				breakLevel = getBreakLevel( currValue,
+						preValue,
+						section,
+						rowId );
 
-					if ( breakLevel <= service.getPagePosition( ) && !isPage )
-					{
-						section.setBaseStart( startId );
-						section.setBaseEnd( rowId - 1 );
-						startId = rowId;
-						rowId--;
-						newSection = true;
-					}
+				if ( !isPage && breakLevel <= service.getPagePosition( ) )
+				{
+					section.setBaseStart( startId );
+					section.setBaseEnd( rowId - 1 );
+					startId = rowId;
+					rowId--;
+					newSection = true;
 				}
+			}
 
-				if ( !newSection )
+			if ( !newSection )
+			{
+				for ( int level = breakLevel; level < customDimSize; level++ )
 				{
-					for ( int level = breakLevel; level < customDimSize; level++ )
-					{
-						EdgeInfo edge = new EdgeInfo( );
-						if ( currValue[level] == null )
-							edge.isNull = 0;
+					EdgeInfo edge = new EdgeInfo( );
+					if ( currValue[level] == null )
+						edge.isNull = 0;
 
-						if ( level != 0 )
-							edge.parent = section.getRelation( )[level - 1].size( ) - 1;
-						if ( level == section.getRelation( ).length - 1 )
-						{
-							edge.firstChild = rowId;
-						}
-						else
-						{
-							edge.firstChild = section.getRelation( )[level + 1].size( );
-						}
-						section.getRelation( )[level].add( edge );
+					if ( level != 0 )
+						edge.parent = section.getRelation( )[level - 1].size( ) - 1;
+					if ( level == section.getRelation( ).length - 1 )
+					{
+						edge.firstChild = rowId;
 					}
-
-					for ( int i = 0; i < customDimSize; i++ )
+					else
 					{
-						preValue[i] = currValue[i];
+						edge.firstChild = section.getRelation( )[level + 1].size( );
 					}
+					edge.index = section.getRelation( )[level].size( );
+					section.getRelation( )[level].add( edge );
+				}
+
+				for ( int i = 0; i < customDimSize; i++ )
+				{
+					preValue[i] = currValue[i];
 				}
 			}
+		}
+		this.relatedRowCount = endRowId;
 
+		if ( this.relatedRowCount == this.rowCount )
+		{
 			section.setBaseStart( startId );
-			section.setBaseEnd( this.traverseLength - 1 );
+			section.setBaseEnd( this.rowCount - 1 );
+		}
+	}
 
-			this.currentRelation = ( (Section) this.sectionList.get( 0 ) ).getRelation( );
-			this.traverseLength = ( (Section) this.sectionList.get( 0 ) ).getBaseEnd( )
-					- ( (Section) this.sectionList.get( 0 ) ).getBaseStart( )
-					+ 1;
+	/**
+	 * Makes sure that the edge info at the index of the level has been
+	 * related, if it exists. The position of the aggregation result set is
+	 * kept.
+	 * 
+	 * @param level
+	 * @param index
+	 */
+	private void relate( int level, int index )
+	{
+		if ( this.relatedRowCount == this.rowCount
+				|| index < this.currentRelation[level].size( ) )
+			return;
+		IAggregationResultSet rs = fetcher.getAggrResultSet( );
+		int position = rs.getPosition( );
+		try
+		{
+			while ( this.relatedRowCount < this.rowCount
+					&& index >= this.currentRelation[level].size( ) )
+			{
+				relateRows( (int) Math.min( (long) this.relatedRowCount
+						+ WINDOW_SIZE, this.rowCount ) );
+			}
+			if ( position >= 0 && position < this.rowCount )
+				rs.seek( position );
 		}
+		catch ( IOException e )
+		{
+			throw new IllegalStateException( e.getLocalizedMessage( ) );
+		}
+	}
+
+	/**
+	 * 
+	 * @param level
+	 * @param index
+	 * @return whether there is an edge info at the index of the level
+	 */
+	boolean hasEdgeInfo( int level, int index )
+	{
+		if ( index < 0 )
+			return false;
+		relate( level, index );
+		return index < this.currentRelation[level].size( );
+	}
+
+	/**
+	 * 
+	 * @param level
+	 * @param index
+	 * @return the edge info at the index of the level
+	 */
+	EdgeInfo getEdgeInfo( int level, int index )
+	{
+		relate( level, index );
+		return (EdgeInfo) this.currentRelation[level].get( index );
+	}
+
+	/**
+	 * 
+	 * @param level
+	 * @return the number of edge infos of the level, which relates the whole
+	 *         edge
+	 */
+	int getEdgeInfoCount( int level )
+	{
+		relate( level, Integer.MAX_VALUE );
+		return this.currentRelation[level].size( );
 	}
 	
 	/**
@@ -255,4 +373,5 @@ class EdgeInfo
 	int parent = -1;
 	int firstChild = -1;
 	int isNull = -1;
+	int index = -1;
 }
@@ -11,7 +11,6 @@
 package org.eclipse.birt.data.engine.olap.cursor;
 
 import java.io.IOException;
-import java.util.List;
 
 import javax.olap.OLAPException;
 
@@ -488,13 +487,13 @@ public class RowDataAccessor implements IRowDataAccessor
 		int index = position;
 		for ( int i = dimAxis.length - 1; i >= 0; i-- )
 		{
-			List edgeInfoList = this.edgeDimensRelation.currentRelation[i];
-			EdgeInfo edgeInfo = (EdgeInfo) edgeInfoList.get( index );
+			EdgeInfo edgeInfo = this.edgeDimensRelation.getEdgeInfo( i, index );
 			int currentPosition = index;
 			int dimPosition = 0;
 			while ( --currentPosition >= 0 )
 			{
-				EdgeInfo previousInfo = (EdgeInfo) edgeInfoList.get( currentPosition );
+				EdgeInfo previousInfo = this.edgeDimensRelation.getEdgeInfo( i,
+						currentPosition );
 				if ( previousInfo.parent == edgeInfo.parent )
 				{
 					dimPosition++;
@@ -568,16 +567,17 @@ public class RowDataAccessor implements IRowDataAccessor
 	private int getRangeInLastDimension( int dimIndex )
 	{
 		if ( dimIndex == 0 )
-			return this.edgeDimensRelation.currentRelation[0].size( );
-		int size = this.edgeDimensRelation.currentRelation[dimIndex].size( );
+			return this.edgeDimensRelation.getEdgeInfoCount( 0 );
+		int size = this.edgeDimensRelation.getEdgeInfoCount( dimIndex );
 		if ( size == 0 )
 			return -1;
 		int count = 1;
-		EdgeInfo edgeInfo = (EdgeInfo) this.edgeDimensRelation.currentRelation[dimIndex].get( size - 1 );
+		EdgeInfo edgeInfo = this.edgeDimensRelation.getEdgeInfo( dimIndex,
+				size - 1 );
 		EdgeInfo previousInfo;
 		for ( int i = size - 2; i >= 0; i-- )
 		{
-			previousInfo = (EdgeInfo) this.edgeDimensRelation.currentRelation[dimIndex].get( i );
+			previousInfo = this.edgeDimensRelation.getEdgeInfo( dimIndex, i );
 			if ( previousInfo.parent == edgeInfo.parent )
 				count++;
 		}
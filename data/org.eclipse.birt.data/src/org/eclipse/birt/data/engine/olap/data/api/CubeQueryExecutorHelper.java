@@ -45,8 +45,13 @@ import org.eclipse.birt.data.engine.olap.data.api.cube.IDimension;
 import org.eclipse.birt.data.engine.olap.data.document.IDocumentManager;
 import org.eclipse.birt.data.engine.olap.data.impl.AggregationDefinition;
 import org.eclipse.birt.data.engine.olap.data.impl.AggregationFunctionDefinition;
+import org.eclipse.birt.data.engine.olap.data.impl.AggregationResultCache;
 import org.eclipse.birt.data.engine.olap.data.impl.AggregationResultSetSaveUtil;
 import org.eclipse.birt.data.engine.olap.data.impl.Cube;
+import org.eclipse.birt.data.engine.olap.data.impl.EmptySelection;
+import org.eclipse.birt.data.engine.olap.data.impl.MultiKeySelection;
+import org.eclipse.birt.data.engine.olap.data.impl.OneKeySelection;
+import org.eclipse.birt.data.engine.olap.data.impl.RangeSelection;
 import org.eclipse.birt.data.engine.olap.data.impl.SecuredCube;
 import org.eclipse.birt.data.engine.olap.data.impl.aggregation.AggregationExecutor;
 import org.eclipse.birt.data.engine.olap.data.impl.aggregation.AggregationResultRow;
@@ -934,11 +939,93 @@ public class CubeQueryExecutorHelper implements ICubeQueryExcutorHelper
 	protected IAggregationResultSet[] onePassExecute(
 			AggregationDefinition[] aggregations, StopSign stopSign )
 			throws DataException, IOException, BirtException
+	{
+		AggregationResultCache resultCache = createAggregationResultCache( );
+		if ( resultCache == null )
+		{
+			return computeAggregations( aggregations, stopSign );
+		}
+		try
+		{
+			IAggregationResultSet[] result = new IAggregationResultSet[aggregations.length];
+			List missedIndexes = new ArrayList( );
+			for ( int i = 0; i < aggregations.length; i++ )
+			{
+				try
+				{
+					result[i] = resultCache.get( aggregations[i],
+							Math.abs( memoryCacheSize ) / aggregations.length );
+				}
+				catch ( IOException e )
+				{
+					logger.log( java.util.logging.Level.WARNING, e.getMessage( ), e );
+				}
+				if ( result[i] == null )
+				{
+					missedIndexes.add( Integer.valueOf( i ) );
+				}
+			}
+			if ( missedIndexes.isEmpty( ) )
+			{
+				return result;
+			}
+			AggregationDefinition[] missedAggregations = new AggregationDefinition[missedIndexes.size( )];
+			for ( int i = 0; i < missedAggregations.length; i++ )
+			{
+				missedAggregations[i] = aggregations[( (Integer) missedIndexes.get( i ) ).intValue( )];
+			}
+			IAggregationResultSet[] computed = computeAggregations( missedAggregations,
+					stopSign );
+			for ( int i = 0; i < computed.length; i++ )
+			{
+				result[( (Integer) missedIndexes.get( i ) ).intValue( )] = computed[i];
+				if ( stopSign.isStopped( ) )
+				{
+					continue;
+				}
+				try
+				{
+					resultCache.put( missedAggregations[i], computed[i] );
+				}
+				catch ( IOException e )
+				{
+					logger.log( java.util.logging.Level.WARNING, e.getMessage( ), e );
+				}
+			}
+			return result;
+		}
+		finally
+		{
+			try
+			{
+				resultCache.close( );
+			}
+			catch ( IOException e )
+			{
+				logger.log( java.util.logging.Level.WARNING, e.getMessage( ), e );
+			}
+		}
+	}
+
+	/**
+	 * Computes the aggregations from the fact table.
+	 * 
+	 * @param aggregations
+	 * @param stopSign
+	 * @return
+	 * @throws DataException
+	 * @throws IOException
+	 * @throws BirtException
+	 */
+	private IAggregationResultSet[] computeAggregations(
+			AggregationDefinition[] aggregations, StopSign stopSign )
+			throws DataException, IOException, BirtException
 	{
 		IDiskArray[] dimPosition = getFilterResult( );
 
 		FactTableRowIterator factTableRowIterator = populateFactTableIterator( stopSign,
 				dimPosition );
+		factTableRowIterator.setRequiredMeasures( getRequiredMeasures( aggregations ) );
 		DimensionResultIterator[] dimensionResultIterators = populateDimensionResultIterator( dimPosition, stopSign );
 
 		IDataSet4Aggregation dataSet4Aggregation = new DataSetFromOriginalCube( factTableRowIterator,
@@ -962,6 +1049,182 @@ public class CubeQueryExecutorHelper implements ICubeQueryExcutorHelper
 		return aggregationCalculatorExecutor.execute( stopSign );
 	}
 
+	/**
+	 * Creates the cache of the aggregation result sets of the cube.
+	 * 
+	 * @return the cache, or null if the cache is disabled or the results of
+	 *         the query can not be cached
+	 */
+	private AggregationResultCache createAggregationResultCache( )
+	{
+		int cacheSize = CacheUtil.getCubeAggregationCacheSize( appContext );
+		if ( cacheSize <= 0 )
+		{
+			return null;
+		}
+		String filterKey = getAggregationCacheFilterKey( );
+		if ( filterKey == null )
+		{
+			return null;
+		}
+		return new AggregationResultCache( cube.getFactTable( )
+				.getDocumentManager( ),
+				cube.getFactTable( ).getName( ),
+				filterKey,
+				cacheSize );
+	}
+
+	/**
+	 * Returns the key of the filters applied to the cube. Only the simple
+	 * level filters can be keyed, since the result of a script filter or a
+	 * computed measure may change from one run to another.
+	 * 
+	 * @return the key, or null if the results of the query can not be cached
+	 */
+	private String getAggregationCacheFilterKey( )
+	{
+		if ( cube instanceof SecuredCube
+				|| computedMeasureHelper != null
+				|| !measureFilters.isEmpty( )
+				|| !levelFilters.isEmpty( )
+				|| ( cubePosFilters != null && !cubePosFilters.isEmpty( ) ) )
+		{
+			return null;
+		}
+		Iterator it = dimJSFilterMap.values( ).iterator( );
+		while ( it.hasNext( ) )
+		{
+			if ( !( (List) it.next( ) ).isEmpty( ) )
+			{
+				return null;
+			}
+		}
+		StringBuffer buffer = new StringBuffer( );
+		buffer.append( isBreakHierarchy ).append( ';' );
+		for ( int i = 0; i < simpleLevelFilters.size( ); i++ )
+		{
+			SimpleLevelFilter filter = (SimpleLevelFilter) simpleLevelFilters.get( i );
+			AggregationResultCache.appendKey( buffer, filter.getDimensionName( ) );
+			AggregationResultCache.appendKey( buffer, filter.getLevelName( ) );
+			ISelection[] selections = filter.getSelections( );
+			if ( selections == null )
+			{
+				buffer.append( "-1;" ); //$NON-NLS-1$
+				continue;
+			}
+			buffer.append( selections.length ).append( ';' );
+			for ( int j = 0; j < selections.length; j++ )
+			{
+				if ( selections[j] instanceof OneKeySelection )
+				{
+					buffer.append( 'O' );
+					appendKeyValues( buffer,
+							( (OneKeySelection) selections[j] ).getKeyValue( ) );
+				}
+				else if ( selections[j] instanceof MultiKeySelection )
+				{
+					Object[][] keyValues = ( (MultiKeySelection) selections[j] ).getKeyValues( );
+					buffer.append( 'M' ).append( keyValues.length ).append( ';' );
+					for ( int k = 0; k < keyValues.length; k++ )
+					{
+						appendKeyValues( buffer, keyValues[k] );
+					}
+				}
+				else if ( selections[j] instanceof RangeSelection )
+				{
+					RangeSelection range = (RangeSelection) selections[j];
+					buffer.append( 'R' )
+							.append( range.isContainsMinKey( ) )
+							.append( range.isContainsMaxKey( ) )
+							.append( ';' );
+					appendKeyValues( buffer, range.getMin( ) );
+					appendKeyValues( buffer, range.getMax( ) );
+				}
+				else if ( selections[j] instanceof EmptySelection )
+				{
+					buffer.append( 'E' );
+				}
+				else
+				{
+					return null;
+				}
+			}
+		}
+		return buffer.toString( );
+	}
+
+	private static void appendKeyValues( StringBuffer buffer, Object[] keyValues )
+	{
+		if ( keyValues == null )
+		{
+			buffer.append( "-1;" ); //$NON-NLS-1$
+			return;
+		}
+		buffer.append( keyValues.length ).append( ';' );
+		for ( int i = 0; i < keyValues.length; i++ )
+		{
+			AggregationResultCache.appendValueKey( buffer, keyValues[i] );
+		}
+	}
+
+	/**
+	 * Collects the fact table measures which are aggregated.
+	 * 
+	 * @param aggregations
+	 * @return the measure names, or null if all the measures may be used
+	 */
+	private String[] getRequiredMeasures( AggregationDefinition[] aggregations )
+	{
+		if ( computedMeasureHelper != null || !measureFilters.isEmpty( ) )
+		{
+			return null;
+		}
+		Set measureNames = new HashSet( );
+		for ( int i = 0; i < aggregations.length; i++ )
+		{
+			if ( !addRequiredMeasures( aggregations[i].getAggregationFunctions( ),
+					measureNames )
+					|| !addRequiredMeasures( aggregations[i].getAggregationTimeFunctions( ),
+							measureNames ) )
+			{
+				return null;
+			}
+		}
+		return (String[]) measureNames.toArray( new String[0] );
+	}
+
+	/**
+	 * 
+	 * @param functions
+	 * @param measureNames
+	 * @return false if a function may use other measures than its own
+	 */
+	private boolean addRequiredMeasures(
+			AggregationFunctionDefinition[] functions, Set measureNames )
+	{
+		if ( functions == null )
+		{
+			return true;
+		}
+		for ( int i = 0; i < functions.length; i++ )
+		{
+			if ( functions[i].getFilterEvalHelper( ) != null )
+			{
+				return false;
+			}
+			String measureName = functions[i].getMeasureName( );
+			if ( measureName != null )
+			{
+				if ( cube.getFactTable( ).getMeasureIndex( measureName ) < 0 )
+				{
+					return false;
+				}
+				measureNames.add( measureName );
+			}
+		}
+		return true;
+	}
+
 	/**
 	 * 
 	 * @param stopSign
@@ -13,6 +13,7 @@ package org.eclipse.birt.data.engine.olap.data.api.cube;
 
 import java.io.EOFException;
 import java.io.IOException;
+import java.util.List;
 import java.util.Map;
 
 import org.eclipse.birt.core.archive.IDocArchiveWriter;
@@ -28,10 +29,12 @@ import org.eclipse.birt.data.engine.olap.data.api.ILevel;
 import org.eclipse.birt.data.engine.olap.data.document.DocumentManagerFactory;
 import org.eclipse.birt.data.engine.olap.data.document.IDocumentManager;
 import org.eclipse.birt.data.engine.olap.data.document.IDocumentObject;
+import org.eclipse.birt.data.engine.olap.data.impl.AggregationResultCache;
 import org.eclipse.birt.data.engine.olap.data.impl.Cube;
 import org.eclipse.birt.data.engine.olap.data.impl.NamingUtil;
 import org.eclipse.birt.data.engine.olap.data.impl.dimension.Dimension;
 import org.eclipse.birt.data.engine.olap.data.impl.dimension.Hierarchy;
+import org.eclipse.birt.data.engine.olap.data.util.ParallelTaskExecutor;
 
 /**
  * 
@@ -41,6 +44,7 @@ public class CubeMaterializer
 {
 	private IDocumentManager documentManager;
 	private DataEngine dataEngine;
+	private ParallelTaskExecutor taskExecutor = new ParallelTaskExecutor( 1 );
 	
 	/**
 	 * 
@@ -107,6 +111,20 @@ public class CubeMaterializer
 		return documentManager;
 	}
 	
+	/**
+	 * Sets the executor of the tasks which build the hierarchies and the
+	 * cubes. The executor is shared by all the steps of a cube build, and is
+	 * shut down by the caller once the build is done. Null runs the tasks on
+	 * the calling thread, which is the default.
+	 * 
+	 * @param taskExecutor
+	 */
+	public void setTaskExecutor( ParallelTaskExecutor taskExecutor )
+	{
+		this.taskExecutor = taskExecutor == null
+				? new ParallelTaskExecutor( 1 ) : taskExecutor;
+	}
+	
 	/**
 	 * @param dimensionName
 	 * @param hierarchyName
@@ -123,6 +141,7 @@ public class CubeMaterializer
 			BirtException
 	{
 		Hierarchy hierarchy = new Hierarchy( documentManager, dimensionName, hierarchyName ); 
+		hierarchy.setTaskExecutor( taskExecutor );
 		hierarchy.createAndSaveHierarchy( 
 				iterator,
 				levelDefs,
@@ -234,6 +253,7 @@ public class CubeMaterializer
 			throw new DataException( ResourceConstants.MISSING_DIMENSION_IN_CUBE, name );
 		}
 		Cube cube = new Cube( name, documentManager );
+		cube.setTaskExecutor( taskExecutor );
 		cube.create(factTableJointColumnNames, DimJointColumnNames, dimensions,
 				factTable, measureColumns, calculatedMeasure, measureAggrFunctionNames, cacheSize, stopSign);
 		cube.close( );
@@ -257,6 +277,21 @@ public class CubeMaterializer
 		String factTableName = cube.getFactTable( ).getName( );
 		saveDocObjToReportDocument( NamingUtil.getFactTableName( factTableName ), writer, stopSign );
 		saveDocObjToReportDocument( NamingUtil.getFTSUListName( factTableName ), writer, stopSign );
+		if ( documentManager.exist( NamingUtil.getSegmentFormatName( factTableName ) ) )
+		{
+			saveDocObjToReportDocument( NamingUtil.getSegmentFormatName( factTableName ), writer, stopSign );
+		}
+		//save the cached aggregation result sets, which change after the cube
+		//is saved
+		List aggregationCacheNames = AggregationResultCache.getDocumentObjectNames( documentManager,
+				factTableName );
+		for ( int i = 0; i < aggregationCacheNames.size( ); i++ )
+		{
+			saveDocObjToReportDocument( (String) aggregationCacheNames.get( i ),
+					writer,
+					stopSign,
+					true );
+		}
 		//save FTSU
 		IDocumentObject documentObject = documentManager.openDocumentObject( NamingUtil.getFTSUListName( factTableName ) );
 		try
@@ -307,10 +342,30 @@ public class CubeMaterializer
 	 * @throws DataException
 	 */
 	private void saveDocObjToReportDocument( String name, IDocArchiveWriter writer, StopSign stopSign ) throws IOException, DataException
+	{
+		saveDocObjToReportDocument( name, writer, stopSign, false );
+	}
+	
+	/**
+	 * 
+	 * @param name
+	 * @param writer
+	 * @param stopSign
+	 * @param overwrite
+	 *            whether a document object which is already in the report
+	 *            document is saved again
+	 * @throws IOException
+	 * @throws DataException
+	 */
+	private void saveDocObjToReportDocument( String name, IDocArchiveWriter writer, StopSign stopSign, boolean overwrite ) throws IOException, DataException
 	{
 		if( writer.exists( name ) )
 		{
-			return;
+			if( !overwrite )
+			{
+				return;
+			}
+			writer.dropStream( name );
 		}
 		IDocumentObject documentObject = documentManager.openDocumentObject( name );
 		RAOutputStream outputStreadm = writer.createRandomAccessStream( name );
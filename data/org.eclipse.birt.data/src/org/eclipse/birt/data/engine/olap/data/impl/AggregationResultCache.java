@@ -0,0 +1,943 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.data.engine.olap.data.impl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.eclipse.birt.data.engine.olap.data.api.DimLevel;
+import org.eclipse.birt.data.engine.olap.data.api.IAggregationResultRow;
+import org.eclipse.birt.data.engine.olap.data.api.IAggregationResultSet;
+import org.eclipse.birt.data.engine.olap.data.document.IDocumentManager;
+import org.eclipse.birt.data.engine.olap.data.document.IDocumentObject;
+import org.eclipse.birt.data.engine.olap.data.impl.aggregation.AggregationResultRow;
+import org.eclipse.birt.data.engine.olap.data.impl.aggregation.AggregationResultSet;
+import org.eclipse.birt.data.engine.olap.data.impl.dimension.Member;
+import org.eclipse.birt.data.engine.olap.data.util.BufferedStructureArray;
+import org.eclipse.birt.data.engine.olap.data.util.CompareUtil;
+import org.eclipse.birt.data.engine.olap.data.util.IDiskArray;
+
+/**
+ * A cache of aggregation result sets which is saved in the document manager of
+ * a cube, so that it lives as long as the cube does and is shared by all the
+ * queries on the cube. A result set is keyed by the filters applied to the
+ * cube and by its aggregation definition. When the cache is full the least
+ * recently used result set is evicted.
+ * <p>
+ * An aggregation which is not cached can still be answered from a cached
+ * aggregation on more levels, with the same filters, by rolling up its rows
+ * if all its functions are SUM, COUNT, MIN or MAX.
+ * <p>
+ * The uses of the cached result sets are recorded in memory, and are saved
+ * with the index of the cache when a result set is put or the cache is closed.
+ */
+
+public class AggregationResultCache
+{
+	private static final String[] ROLLUP_FUNCTIONS = {
+			"SUM", "COUNT", "MIN", "MAX" //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+	};
+
+	// The result of combining two values which can not be combined
+	private static final Object INVALID = new Object( );
+
+	private IDocumentManager documentManager;
+	private String indexName;
+	private String filterKey;
+	private int capacity;
+	// the entries used since the index was last saved, in the order of use
+	private List touched = new ArrayList( );
+
+	/**
+	 *
+	 * @param documentManager
+	 *            the document manager of the cube
+	 * @param factTableName
+	 * @param filterKey
+	 *            the key of the filters applied to the cube
+	 * @param capacity
+	 *            the maximum number of cached result sets of the cube
+	 */
+	public AggregationResultCache( IDocumentManager documentManager,
+			String factTableName, String filterKey, int capacity )
+	{
+		this.documentManager = documentManager;
+		this.indexName = NamingUtil.getAggregationCacheDocName( factTableName );
+		this.filterKey = filterKey;
+		this.capacity = capacity;
+	}
+
+	/**
+	 * Returns a cached result set of an aggregation, or rolls it up from a
+	 * cached result set on more levels.
+	 *
+	 * @param aggregation
+	 * @param memoryCacheSize
+	 * @return the result set, or null if the aggregation is not cached
+	 * @throws IOException
+	 */
+	public IAggregationResultSet get( AggregationDefinition aggregation,
+			long memoryCacheSize ) throws IOException
+	{
+		String definitionKey = getDefinitionKey( aggregation );
+		if ( definitionKey == null )
+		{
+			return null;
+		}
+		synchronized ( documentManager )
+		{
+			Index index = readIndex( );
+			Entry entry = index.find( filterKey, definitionKey );
+			if ( entry != null )
+			{
+				CachedAggregationResultSet result = loadResultSet( entry,
+						memoryCacheSize );
+				result.setAggregationDefinition( aggregation );
+				touch( index, entry );
+				return result;
+			}
+			Entry rollUpEntry = findRollUpEntry( index, aggregation );
+			if ( rollUpEntry == null )
+			{
+				return null;
+			}
+			IAggregationResultSet source = loadResultSet( rollUpEntry,
+					memoryCacheSize );
+			try
+			{
+				IAggregationResultSet result = rollUp( source,
+						rollUpEntry,
+						aggregation );
+				if ( result != null )
+				{
+					touch( index, rollUpEntry );
+				}
+				return result;
+			}
+			finally
+			{
+				source.close( );
+			}
+		}
+	}
+
+	/**
+	 * Saves the result set of an aggregation. The result set is rewound.
+	 *
+	 * @param aggregation
+	 * @param resultSet
+	 * @throws IOException
+	 */
+	public void put( AggregationDefinition aggregation,
+			IAggregationResultSet resultSet ) throws IOException
+	{
+		String definitionKey = getDefinitionKey( aggregation );
+		if ( definitionKey == null || capacity <= 0 )
+		{
+			return;
+		}
+		synchronized ( documentManager )
+		{
+			try
+			{
+				Index index = readIndex( );
+				applyTouches( index );
+				Entry entry = index.find( filterKey, definitionKey );
+				if ( entry == null && index.entries.size( ) >= capacity )
+				{
+					entry = index.getLeastRecentlyUsed( );
+				}
+				int slot;
+				if ( entry != null )
+				{
+					// Drop the entry before its slot is overwritten
+					slot = entry.slot;
+					index.entries.remove( entry );
+					writeIndex( index );
+				}
+				else
+				{
+					slot = index.getFreeSlot( );
+				}
+				saveResultSet( slot, resultSet );
+				index.entries.add( new Entry( filterKey,
+						definitionKey,
+						aggregation,
+						slot,
+						index.nextUsed( ) ) );
+				writeIndex( index );
+			}
+			catch ( UnsupportedOperationException e )
+			{
+				// The document manager is read only
+			}
+		}
+	}
+
+	/**
+	 * Saves the uses of the cached result sets.
+	 *
+	 * @throws IOException
+	 */
+	public void close( ) throws IOException
+	{
+		if ( touched.isEmpty( ) )
+		{
+			return;
+		}
+		synchronized ( documentManager )
+		{
+			Index index = readIndex( );
+			applyTouches( index );
+			try
+			{
+				writeIndex( index );
+			}
+			catch ( UnsupportedOperationException e )
+			{
+				// The document manager is read only
+			}
+		}
+	}
+
+	/**
+	 * Returns the names of the document objects of the cache of a fact table,
+	 * so that they can be saved with the cube.
+	 *
+	 * @param documentManager
+	 * @param factTableName
+	 * @return the names of the index and of the cached result sets, or an
+	 *         empty list if nothing is cached
+	 * @throws IOException
+	 */
+	public static List getDocumentObjectNames(
+			IDocumentManager documentManager, String factTableName )
+			throws IOException
+	{
+		AggregationResultCache cache = new AggregationResultCache( documentManager,
+				factTableName,
+				null,
+				0 );
+		List names = new ArrayList( );
+		synchronized ( documentManager )
+		{
+			Index index = cache.readIndex( );
+			if ( documentManager.exist( cache.indexName ) )
+			{
+				names.add( cache.indexName );
+			}
+			for ( int i = 0; i < index.entries.size( ); i++ )
+			{
+				names.add( cache.getSlotName( ( (Entry) index.entries.get( i ) ).slot ) );
+			}
+		}
+		return names;
+	}
+
+	/**
+	 * Returns the key of an aggregation definition.
+	 *
+	 * @param aggregation
+	 * @return the key, or null if the result of the aggregation can not be
+	 *         cached
+	 */
+	static String getDefinitionKey( AggregationDefinition aggregation )
+	{
+		if ( aggregation.getDrilledInfo( ) != null
+				|| ( aggregation.getAggregationTimeFunctions( ) != null && aggregation.getAggregationTimeFunctions( ).length > 0 ) )
+		{
+			return null;
+		}
+		StringBuffer buffer = new StringBuffer( );
+		DimLevel[] levels = aggregation.getLevels( );
+		int[] sortTypes = aggregation.getSortTypes( );
+		int levelCount = levels == null ? 0 : levels.length;
+		buffer.append( levelCount ).append( ';' );
+		for ( int i = 0; i < levelCount; i++ )
+		{
+			appendKey( buffer, getLevelKey( levels[i] ) );
+			buffer.append( sortTypes == null ? 0 : sortTypes[i] ).append( ';' );
+		}
+		AggregationFunctionDefinition[] functions = aggregation.getAggregationFunctions( );
+		int functionCount = functions == null ? 0 : functions.length;
+		buffer.append( functionCount ).append( ';' );
+		for ( int i = 0; i < functionCount; i++ )
+		{
+			AggregationFunctionDefinition function = functions[i];
+			if ( function.getFilterEvalHelper( ) != null
+					|| function.getTimeFunction( ) != null
+					|| function.getTimeFunctionFilter( ) != null )
+			{
+				return null;
+			}
+			appendKey( buffer, function.getName( ) );
+			appendKey( buffer, function.getFunctionName( ) );
+			appendKey( buffer, function.getMeasureName( ) );
+			appendValueKey( buffer, function.getParaValue( ) );
+			DimColumn paraCol = function.getParaCol( );
+			if ( paraCol == null )
+			{
+				appendKey( buffer, null );
+			}
+			else
+			{
+				appendKey( buffer, paraCol.getDimensionName( ) );
+				appendKey( buffer, paraCol.getLevelName( ) );
+				appendKey( buffer, paraCol.getColumnName( ) );
+			}
+		}
+		return buffer.toString( );
+	}
+
+	/**
+	 * Appends a length prefixed string to a key, so that no two different
+	 * lists of strings have the same key.
+	 *
+	 * @param buffer
+	 * @param value
+	 */
+	public static void appendKey( StringBuffer buffer, String value )
+	{
+		if ( value == null )
+		{
+			buffer.append( "-1;" ); //$NON-NLS-1$
+			return;
+		}
+		buffer.append( value.length( ) ).append( ':' ).append( value );
+	}
+
+	/**
+	 * Appends a value and its class to a key.
+	 *
+	 * @param buffer
+	 * @param value
+	 */
+	public static void appendValueKey( StringBuffer buffer, Object value )
+	{
+		if ( value == null )
+		{
+			appendKey( buffer, null );
+			return;
+		}
+		appendKey( buffer, value.getClass( ).getName( ) );
+		if ( value instanceof Date )
+		{
+			appendKey( buffer, String.valueOf( ( (Date) value ).getTime( ) ) );
+		}
+		else
+		{
+			appendKey( buffer, value.toString( ) );
+		}
+	}
+
+	private static String getLevelKey( DimLevel level )
+	{
+		StringBuffer buffer = new StringBuffer( );
+		appendKey( buffer, level.getDimensionName( ) );
+		appendKey( buffer, level.getLevelName( ) );
+		appendKey( buffer, level.getAttrName( ) );
+		return buffer.toString( );
+	}
+
+	/**
+	 *
+	 * @param function
+	 * @return the key of a function whose result can be rolled up, or null
+	 */
+	private static String getRollUpFunctionKey(
+			AggregationFunctionDefinition function )
+	{
+		if ( function.getParaValue( ) != null || function.getParaCol( ) != null )
+		{
+			return null;
+		}
+		for ( int i = 0; i < ROLLUP_FUNCTIONS.length; i++ )
+		{
+			if ( ROLLUP_FUNCTIONS[i].equalsIgnoreCase( function.getFunctionName( ) ) )
+			{
+				StringBuffer buffer = new StringBuffer( );
+				appendKey( buffer, ROLLUP_FUNCTIONS[i] );
+				appendKey( buffer, function.getMeasureName( ) );
+				return buffer.toString( );
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Finds the cached aggregation with the fewest levels from which an
+	 * aggregation can be rolled up.
+	 *
+	 * @param index
+	 * @param aggregation
+	 * @return
+	 */
+	private Entry findRollUpEntry( Index index, AggregationDefinition aggregation )
+	{
+		DimLevel[] levels = aggregation.getLevels( );
+		AggregationFunctionDefinition[] functions = aggregation.getAggregationFunctions( );
+		if ( levels == null || levels.length == 0 || functions == null )
+		{
+			return null;
+		}
+		String[] functionKeys = new String[functions.length];
+		for ( int i = 0; i < functions.length; i++ )
+		{
+			functionKeys[i] = getRollUpFunctionKey( functions[i] );
+			if ( functionKeys[i] == null )
+			{
+				return null;
+			}
+		}
+		int[] sortTypes = aggregation.getSortTypes( );
+		Entry result = null;
+		for ( int i = 0; i < index.entries.size( ); i++ )
+		{
+			Entry entry = (Entry) index.entries.get( i );
+			if ( !entry.filterKey.equals( filterKey )
+					|| entry.levelKeys.length <= levels.length
+					|| ( result != null && entry.levelKeys.length >= result.levelKeys.length ) )
+			{
+				continue;
+			}
+			boolean isPrefix = true;
+			for ( int j = 0; j < levels.length && isPrefix; j++ )
+			{
+				isPrefix = entry.levelKeys[j].equals( getLevelKey( levels[j] ) )
+						&& entry.sortTypes[j] == ( sortTypes == null ? 0
+								: sortTypes[j] );
+			}
+			for ( int j = 0; j < functionKeys.length && isPrefix; j++ )
+			{
+				isPrefix = entry.indexOfFunction( functionKeys[j] ) >= 0;
+			}
+			if ( isPrefix )
+			{
+				result = entry;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Rolls up the rows of a result set, which are sorted by its levels, to
+	 * the first levels of it.
+	 *
+	 * @param source
+	 * @param sourceEntry
+	 * @param aggregation
+	 * @return the rolled up result set, or null if a value can not be rolled
+	 *         up
+	 * @throws IOException
+	 */
+	private static IAggregationResultSet rollUp( IAggregationResultSet source,
+			Entry sourceEntry, AggregationDefinition aggregation )
+			throws IOException
+	{
+		int levelCount = aggregation.getLevels( ).length;
+		AggregationFunctionDefinition[] functions = aggregation.getAggregationFunctions( );
+		int[] sourceIndex = new int[functions.length];
+		String[] functionNames = new String[functions.length];
+		for ( int i = 0; i < functions.length; i++ )
+		{
+			String functionKey = getRollUpFunctionKey( functions[i] );
+			sourceIndex[i] = sourceEntry.indexOfFunction( functionKey );
+			functionNames[i] = functions[i].getFunctionName( ).toUpperCase( );
+		}
+
+		IDiskArray rows = new BufferedStructureArray( AggregationResultRow.getCreator( ),
+				1000 );
+		Member[] currentMembers = null;
+		Object[] currentValues = null;
+		for ( int i = 0; i < source.length( ); i++ )
+		{
+			source.seek( i );
+			IAggregationResultRow row = source.getCurrentRow( );
+			Member[] members = new Member[levelCount];
+			System.arraycopy( row.getLevelMembers( ), 0, members, 0, levelCount );
+			if ( currentMembers != null && isSameMembers( currentMembers, members ) )
+			{
+				for ( int j = 0; j < functions.length; j++ )
+				{
+					Object value = row.getAggregationValues( )[sourceIndex[j]];
+					currentValues[j] = combine( functionNames[j],
+							currentValues[j],
+							value );
+					if ( currentValues[j] == INVALID )
+					{
+						rows.close( );
+						return null;
+					}
+				}
+				continue;
+			}
+			if ( currentMembers != null )
+			{
+				rows.add( new AggregationResultRow( currentMembers, currentValues ) );
+			}
+			currentMembers = members;
+			currentValues = new Object[functions.length];
+			for ( int j = 0; j < functions.length; j++ )
+			{
+				currentValues[j] = row.getAggregationValues( )[sourceIndex[j]];
+			}
+		}
+		if ( currentMembers != null )
+		{
+			rows.add( new AggregationResultRow( currentMembers, currentValues ) );
+		}
+		return new AggregationResultSet( aggregation,
+				rows,
+				prefix( source.getKeyNames( ), levelCount ),
+				prefix( source.getAttributeNames( ), levelCount ) );
+	}
+
+	/**
+	 * Combines two partial results of a function.
+	 *
+	 * @param functionName
+	 * @param value1
+	 * @param value2
+	 * @return the result, or INVALID if the values can not be combined
+	 */
+	private static Object combine( String functionName, Object value1,
+			Object value2 )
+	{
+		if ( value1 == null )
+		{
+			return value2;
+		}
+		if ( value2 == null )
+		{
+			return value1;
+		}
+		if ( "MIN".equals( functionName ) ) //$NON-NLS-1$
+		{
+			return CompareUtil.compare( value1, value2 ) <= 0 ? value1 : value2;
+		}
+		if ( "MAX".equals( functionName ) ) //$NON-NLS-1$
+		{
+			return CompareUtil.compare( value1, value2 ) >= 0 ? value1 : value2;
+		}
+		if ( !( value1 instanceof Number ) || !( value2 instanceof Number ) )
+		{
+			return INVALID;
+		}
+		if ( value1 instanceof BigDecimal || value2 instanceof BigDecimal )
+		{
+			return toBigDecimal( (Number) value1 ).add( toBigDecimal( (Number) value2 ) );
+		}
+		if ( isIntegral( value1 ) && isIntegral( value2 ) )
+		{
+			long sum = ( (Number) value1 ).longValue( )
+					+ ( (Number) value2 ).longValue( );
+			if ( value1 instanceof Integer
+					&& value2 instanceof Integer
+					&& sum == (int) sum )
+			{
+				return Integer.valueOf( (int) sum );
+			}
+			return Long.valueOf( sum );
+		}
+		return new Double( ( (Number) value1 ).doubleValue( )
+				+ ( (Number) value2 ).doubleValue( ) );
+	}
+
+	private static boolean isIntegral( Object value )
+	{
+		return value instanceof Integer
+				|| value instanceof Long || value instanceof Short
+				|| value instanceof Byte;
+	}
+
+	private static BigDecimal toBigDecimal( Number value )
+	{
+		if ( value instanceof BigDecimal )
+		{
+			return (BigDecimal) value;
+		}
+		if ( isIntegral( value ) )
+		{
+			return BigDecimal.valueOf( value.longValue( ) );
+		}
+		return new BigDecimal( value.toString( ) );
+	}
+
+	private static boolean isSameMembers( Member[] members1, Member[] members2 )
+	{
+		for ( int i = 0; i < members1.length; i++ )
+		{
+			if ( CompareUtil.compare( members1[i].getKeyValues( ),
+					members2[i].getKeyValues( ) ) != 0 )
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static String[][] prefix( String[][] names, int length )
+	{
+		if ( names == null )
+		{
+			return null;
+		}
+		String[][] result = new String[length][];
+		System.arraycopy( names, 0, result, 0, length );
+		return result;
+	}
+
+	private void touch( Index index, Entry entry )
+	{
+		entry.lastUsed = index.nextUsed( );
+		touched.add( entry );
+	}
+
+	/**
+	 * Applies the uses recorded in memory to the entries of an index which
+	 * are still cached in the same slots.
+	 *
+	 * @param index
+	 */
+	private void applyTouches( Index index )
+	{
+		for ( int i = 0; i < touched.size( ); i++ )
+		{
+			Entry touchedEntry = (Entry) touched.get( i );
+			Entry entry = index.find( touchedEntry.filterKey,
+					touchedEntry.definitionKey );
+			if ( entry != null && entry.slot == touchedEntry.slot )
+			{
+				entry.lastUsed = index.nextUsed( );
+			}
+		}
+		touched.clear( );
+	}
+
+	private String getSlotName( int slot )
+	{
+		return indexName + "_" + slot; //$NON-NLS-1$
+	}
+
+	private CachedAggregationResultSet loadResultSet( Entry entry,
+			long memoryCacheSize ) throws IOException
+	{
+		IDocumentObject documentObject = documentManager.openDocumentObject( getSlotName( entry.slot ) );
+		try
+		{
+			DataInputStream inputStream = new DataInputStream( new BufferedInputStream( new DocumentObjectInputStream( documentObject ) ) );
+			return (CachedAggregationResultSet) AggregationResultSetSaveUtil.loadOneResultSet( inputStream,
+					memoryCacheSize );
+		}
+		finally
+		{
+			documentObject.close( );
+		}
+	}
+
+	private void saveResultSet( int slot, IAggregationResultSet resultSet )
+			throws IOException
+	{
+		IDocumentObject documentObject = openForWrite( getSlotName( slot ) );
+		try
+		{
+			DataOutputStream outputStream = new DataOutputStream( new BufferedOutputStream( new DocumentObjectOutputStream( documentObject ) ) );
+			AggregationResultSetSaveUtil.saveOneResultSet( outputStream,
+					resultSet );
+			outputStream.flush( );
+			documentObject.setLength( documentObject.getFilePointer( ) );
+		}
+		finally
+		{
+			documentObject.close( );
+		}
+		if ( resultSet.length( ) > 0 )
+		{
+			resultSet.seek( 0 );
+		}
+	}
+
+	private IDocumentObject openForWrite( String name ) throws IOException
+	{
+		IDocumentObject documentObject = documentManager.exist( name )
+				? documentManager.openDocumentObject( name )
+				: documentManager.createDocumentObject( name );
+		documentObject.seek( 0 );
+		return documentObject;
+	}
+
+	private Index readIndex( ) throws IOException
+	{
+		Index index = new Index( );
+		if ( !documentManager.exist( indexName ) )
+		{
+			return index;
+		}
+		IDocumentObject documentObject = documentManager.openDocumentObject( indexName );
+		try
+		{
+			if ( documentObject.length( ) == 0 )
+			{
+				return index;
+			}
+			index.lastUsed = documentObject.readInt( );
+			int size = documentObject.readInt( );
+			for ( int i = 0; i < size; i++ )
+			{
+				index.entries.add( Entry.read( documentObject ) );
+			}
+		}
+		finally
+		{
+			documentObject.close( );
+		}
+		return index;
+	}
+
+	private void writeIndex( Index index ) throws IOException
+	{
+		IDocumentObject documentObject = openForWrite( indexName );
+		try
+		{
+			documentObject.writeInt( index.lastUsed );
+			documentObject.writeInt( index.entries.size( ) );
+			for ( int i = 0; i < index.entries.size( ); i++ )
+			{
+				( (Entry) index.entries.get( i ) ).write( documentObject );
+			}
+			documentObject.setLength( documentObject.getFilePointer( ) );
+		}
+		finally
+		{
+			documentObject.close( );
+		}
+	}
+
+	/**
+	 * The entries of the cache.
+	 */
+	private static class Index
+	{
+		private int lastUsed;
+		private List entries = new ArrayList( );
+
+		private int nextUsed( )
+		{
+			return ++lastUsed;
+		}
+
+		private Entry find( String filterKey, String definitionKey )
+		{
+			for ( int i = 0; i < entries.size( ); i++ )
+			{
+				Entry entry = (Entry) entries.get( i );
+				if ( entry.filterKey.equals( filterKey )
+						&& entry.definitionKey.equals( definitionKey ) )
+				{
+					return entry;
+				}
+			}
+			return null;
+		}
+
+		private Entry getLeastRecentlyUsed( )
+		{
+			Entry result = null;
+			for ( int i = 0; i < entries.size( ); i++ )
+			{
+				Entry entry = (Entry) entries.get( i );
+				if ( result == null || entry.lastUsed < result.lastUsed )
+				{
+					result = entry;
+				}
+			}
+			return result;
+		}
+
+		private int getFreeSlot( )
+		{
+			for ( int slot = 0;; slot++ )
+			{
+				boolean used = false;
+				for ( int i = 0; i < entries.size( ) && !used; i++ )
+				{
+					used = ( (Entry) entries.get( i ) ).slot == slot;
+				}
+				if ( !used )
+				{
+					return slot;
+				}
+			}
+		}
+	}
+
+	/**
+	 * A cached result set.
+	 */
+	private static class Entry
+	{
+		private String filterKey;
+		private String definitionKey;
+		private String[] levelKeys;
+		private int[] sortTypes;
+		// null for the functions which can not be rolled up
+		private String[] functionKeys;
+		private int slot;
+		private int lastUsed;
+
+		private Entry( )
+		{
+		}
+
+		private Entry( String filterKey, String definitionKey,
+				AggregationDefinition aggregation, int slot, int lastUsed )
+		{
+			this.filterKey = filterKey;
+			this.definitionKey = definitionKey;
+			DimLevel[] levels = aggregation.getLevels( );
+			int[] types = aggregation.getSortTypes( );
+			this.levelKeys = new String[levels == null ? 0 : levels.length];
+			this.sortTypes = new int[levelKeys.length];
+			for ( int i = 0; i < levelKeys.length; i++ )
+			{
+				levelKeys[i] = getLevelKey( levels[i] );
+				sortTypes[i] = types == null ? 0 : types[i];
+			}
+			AggregationFunctionDefinition[] functions = aggregation.getAggregationFunctions( );
+			this.functionKeys = new String[functions == null ? 0
+					: functions.length];
+			for ( int i = 0; i < functionKeys.length; i++ )
+			{
+				functionKeys[i] = getRollUpFunctionKey( functions[i] );
+			}
+			this.slot = slot;
+			this.lastUsed = lastUsed;
+		}
+
+		private int indexOfFunction( String functionKey )
+		{
+			for ( int i = 0; i < functionKeys.length; i++ )
+			{
+				if ( functionKey.equals( functionKeys[i] ) )
+				{
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		private static Entry read( IDocumentObject documentObject )
+				throws IOException
+		{
+			Entry entry = new Entry( );
+			entry.filterKey = documentObject.readString( );
+			entry.definitionKey = documentObject.readString( );
+			entry.levelKeys = new String[documentObject.readInt( )];
+			entry.sortTypes = new int[entry.levelKeys.length];
+			for ( int i = 0; i < entry.levelKeys.length; i++ )
+			{
+				entry.levelKeys[i] = documentObject.readString( );
+				entry.sortTypes[i] = documentObject.readInt( );
+			}
+			entry.functionKeys = new String[documentObject.readInt( )];
+			for ( int i = 0; i < entry.functionKeys.length; i++ )
+			{
+				if ( documentObject.readBoolean( ) )
+				{
+					entry.functionKeys[i] = documentObject.readString( );
+				}
+			}
+			entry.slot = documentObject.readInt( );
+			entry.lastUsed = documentObject.readInt( );
+			return entry;
+		}
+
+		private void write( IDocumentObject documentObject ) throws IOException
+		{
+			documentObject.writeString( filterKey );
+			documentObject.writeString( definitionKey );
+			documentObject.writeInt( levelKeys.length );
+			for ( int i = 0; i < levelKeys.length; i++ )
+			{
+				documentObject.writeString( levelKeys[i] );
+				documentObject.writeInt( sortTypes[i] );
+			}
+			documentObject.writeInt( functionKeys.length );
+			for ( int i = 0; i < functionKeys.length; i++ )
+			{
+				documentObject.writeBoolean( functionKeys[i] != null );
+				if ( functionKeys[i] != null )
+				{
+					documentObject.writeString( functionKeys[i] );
+				}
+			}
+			documentObject.writeInt( slot );
+			documentObject.writeInt( lastUsed );
+		}
+	}
+
+	/**
+	 * Reads a document object as a stream.
+	 */
+	private static class DocumentObjectInputStream extends InputStream
+	{
+		private IDocumentObject documentObject;
+
+		DocumentObjectInputStream( IDocumentObject documentObject )
+		{
+			this.documentObject = documentObject;
+		}
+
+		public int read( ) throws IOException
+		{
+			byte[] b = new byte[1];
+			return read( b, 0, 1 ) <= 0 ? -1 : ( b[0] & 0xff );
+		}
+
+		public int read( byte[] b, int off, int len ) throws IOException
+		{
+			return documentObject.read( b, off, len );
+		}
+	}
+
+	/**
+	 * Writes a document object as a stream.
+	 */
+	private static class DocumentObjectOutputStream extends OutputStream
+	{
+		private IDocumentObject documentObject;
+
+		DocumentObjectOutputStream( IDocumentObject documentObject )
+		{
+			this.documentObject = documentObject;
+		}
+
+		public void write( int b ) throws IOException
+		{
+			documentObject.writeByte( b );
+		}
+
+		public void write( byte[] b, int off, int len ) throws IOException
+		{
+			documentObject.write( b, off, len );
+		}
+	}
+}
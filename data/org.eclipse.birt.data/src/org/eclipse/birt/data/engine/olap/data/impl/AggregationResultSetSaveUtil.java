@@ -140,7 +140,7 @@ public class AggregationResultSetSaveUtil
 		}
 	}
 
-	private static IAggregationResultSet loadOneResultSet(
+	static IAggregationResultSet loadOneResultSet(
 			DataInputStream dataInputStream, long memoryCacheSize ) throws IOException
 	{
 		//read level
@@ -254,7 +254,7 @@ public class AggregationResultSetSaveUtil
 	 * @param resultSet
 	 * @throws IOException
 	 */
-	private static void saveOneResultSet( DataOutputStream outputStream, IAggregationResultSet resultSet ) throws IOException
+	static void saveOneResultSet( DataOutputStream outputStream, IAggregationResultSet resultSet ) throws IOException
 	{
 		saveMetaData( outputStream, resultSet );
 		saveAggregationRowSet( outputStream, resultSet );
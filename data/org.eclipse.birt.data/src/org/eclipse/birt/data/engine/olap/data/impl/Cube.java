@@ -28,6 +28,7 @@ import org.eclipse.birt.data.engine.olap.data.impl.dimension.Dimension;
 import org.eclipse.birt.data.engine.olap.data.impl.dimension.DimensionFactory;
 import org.eclipse.birt.data.engine.olap.data.impl.facttable.FactTable;
 import org.eclipse.birt.data.engine.olap.data.impl.facttable.FactTableAccessor;
+import org.eclipse.birt.data.engine.olap.data.util.ParallelTaskExecutor;
 
 /**
  * Default implements of ICube interface.
@@ -39,6 +40,7 @@ public class Cube implements ICube
 	protected IDocumentManager documentManager;
 	protected IDimension[] dimension;
 	private FactTable factTable;
+	private ParallelTaskExecutor taskExecutor = new ParallelTaskExecutor( 1 );
 
 	private static Logger logger = Logger.getLogger( Cube.class.getName( ) );
 
@@ -58,6 +60,17 @@ public class Cube implements ICube
 		logger.exiting( Cube.class.getName( ), "Cube" );
 	}
 
+	/**
+	 * Sets the executor of the tasks which create the fact table. The tasks
+	 * run on the calling thread by default.
+	 * 
+	 * @param taskExecutor
+	 */
+	public void setTaskExecutor( ParallelTaskExecutor taskExecutor )
+	{
+		this.taskExecutor = taskExecutor;
+	}
+
 	/**
 	 * 
 	 * @param keyColumnNames
@@ -124,6 +137,7 @@ public class Cube implements ICube
 		}
 		FactTableAccessor factTableConstructor = new FactTableAccessor( documentManager );
 		factTableConstructor.setMemoryCacheSize( cacheSize );
+		factTableConstructor.setTaskExecutor( taskExecutor );
 		factTable = factTableConstructor.saveFactTable( name,
 				factTableJointColumnNames,
 				DimJointColumnNames,
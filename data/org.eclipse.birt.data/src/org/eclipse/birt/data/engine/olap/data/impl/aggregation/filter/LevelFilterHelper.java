@@ -30,8 +30,8 @@ import org.eclipse.birt.data.engine.olap.data.util.BufferedPrimitiveDiskArray;
 import org.eclipse.birt.data.engine.olap.data.util.CompareUtil;
 import org.eclipse.birt.data.engine.olap.data.util.IDiskArray;
 import org.eclipse.birt.data.engine.olap.data.util.OrderedDiskArray;
+import org.eclipse.birt.data.engine.olap.data.util.PositionBitmap;
 import org.eclipse.birt.data.engine.olap.data.util.SelectionUtil;
-import org.eclipse.birt.data.engine.olap.data.util.SetUtil;
 import org.eclipse.birt.data.engine.olap.util.filter.IJSDimensionFilterHelper;
 import org.eclipse.birt.data.engine.olap.util.filter.IJSFilterHelper;
 import org.eclipse.birt.data.engine.olap.util.filter.IJSTopBottomFilterHelper;
@@ -102,9 +102,12 @@ public class LevelFilterHelper
 		}
 		else
 		{// top/bottom dimension filters
-			IDiskArray result2 = getTopbottomFilterPositions( topBottomfilterList,
+			PositionBitmap result2 = getTopbottomFilterPositions( topBottomfilterList,
 					isBreakHierarchy );
-			return SetUtil.getIntersection( result, result2 );
+			PositionBitmap selected = PositionBitmap.and( PositionBitmap.valueOf( result ),
+					result2 );
+			result.close( );
+			return selected.toDiskArray( );
 		}
 	}
 
@@ -142,10 +145,10 @@ public class LevelFilterHelper
 	 * @throws IOException
 	 * @throws DataException
 	 */
-	private IDiskArray getTopbottomFilterPositions( List filterList,
+	private PositionBitmap getTopbottomFilterPositions( List filterList,
 			boolean isBreakHierarchy ) throws IOException, DataException
 	{
-		IDiskArray result = null;
+		PositionBitmap result = null;
 		ILevel[] levels = dimension.getHierarchy( ).getLevels( );
 		for ( int i = 0; i < filterList.size( ); i++ )
 		{
@@ -153,18 +156,18 @@ public class LevelFilterHelper
 			List dimValueArrayList = evaluateFilter( levels,
 					filter,
 					isBreakHierarchy );
-			IDiskArray dimPositionArray = fetchDimPositions( dimValueArrayList,
+			PositionBitmap dimPositions = fetchDimPositions( dimValueArrayList,
 					filter );
 			if ( result == null )
 			{
-				result = dimPositionArray;
+				result = dimPositions;
 			}
 			else
 			{
-				result = SetUtil.getIntersection( result, dimPositionArray );
+				result = PositionBitmap.and( result, dimPositions );
 			}
 		}
-		return result == null ? dimPosition : result;
+		return result == null ? PositionBitmap.valueOf( dimPosition ) : result;
 	}
 
 	/**
@@ -176,11 +179,11 @@ public class LevelFilterHelper
 	 * @return
 	 * @throws IOException
 	 */
-	private IDiskArray fetchDimPositions( List dimValueArrayList,
+	private PositionBitmap fetchDimPositions( List dimValueArrayList,
 			IJSTopBottomFilterHelper filterHelper ) throws IOException
 	{
 		// final selection positions
-		IDiskArray dimPositionArray = new OrderedDiskArray( );
+		PositionBitmap dimPositions = new PositionBitmap( );
 		for ( Iterator itr = dimValueArrayList.iterator( ); itr.hasNext( ); )
 		{
 			IDiskArray dimValues = (IDiskArray) itr.next( );
@@ -199,13 +202,10 @@ public class LevelFilterHelper
 			{
 				ValueObject aggrValue = (ValueObject) dimValues.get( j );
 				IntRange range = (IntRange) aggrValue.index;
-				for ( int k = range.start; k <= range.end; k++ )
-				{
-					dimPositionArray.add( Integer.valueOf( k ) );
-				}
+				dimPositions.addRange( range.start, range.end );
 			}
 		}
-		return dimPositionArray;
+		return dimPositions;
 	}
 
 	/**
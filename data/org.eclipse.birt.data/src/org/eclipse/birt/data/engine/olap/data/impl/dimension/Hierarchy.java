@@ -12,8 +12,11 @@
 package org.eclipse.birt.data.engine.olap.data.impl.dimension;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 
 import org.eclipse.birt.core.exception.BirtException;
 import org.eclipse.birt.data.engine.cache.Constants;
@@ -33,6 +36,7 @@ import org.eclipse.birt.data.engine.olap.data.util.DiskIndex;
 import org.eclipse.birt.data.engine.olap.data.util.DiskSortedStack;
 import org.eclipse.birt.data.engine.olap.data.util.IDiskArray;
 import org.eclipse.birt.data.engine.olap.data.util.IndexKey;
+import org.eclipse.birt.data.engine.olap.data.util.ParallelTaskExecutor;
 
 /**
  * Describes a hierarchy. A hierarchy is composed of multi-levels.
@@ -47,6 +51,7 @@ public class Hierarchy implements IHierarchy
 	private String name = null;
 	private Map levelMap = new HashMap( );
 	private String dimensionName;
+	private ParallelTaskExecutor taskExecutor = new ParallelTaskExecutor( 1 );
 	
 	public Hierarchy( IDocumentManager documentManager, String dimensionName, String hierarchyName )
 	{
@@ -55,6 +60,17 @@ public class Hierarchy implements IHierarchy
 		this.name = hierarchyName;
 	}
 	
+	/**
+	 * Sets the executor of the tasks which create the level indexes. The
+	 * tasks run on the calling thread by default.
+	 * 
+	 * @param taskExecutor
+	 */
+	public void setTaskExecutor( ParallelTaskExecutor taskExecutor )
+	{
+		this.taskExecutor = taskExecutor;
+	}
+	
 	/*
 	 * (non-Javadoc)
 	 * @see org.eclipse.birt.data.olap.data.api.IHierarchy#getLevels()
@@ -331,7 +347,7 @@ public class Hierarchy implements IHierarchy
 				false,
 				Member.getCreator( ) );
 		
-		IDiskArray[] indexKeyLists = new IDiskArray[keyDataType.length];
+		final IDiskArray[] indexKeyLists = new IDiskArray[keyDataType.length];
 		for( int i=0;i<indexKeyLists.length;i++)
 		{
 			indexKeyLists[i] = new BufferedStructureArray( IndexKey.getCreator( ),
@@ -366,15 +382,43 @@ public class Hierarchy implements IHierarchy
 			obj = sortedDimensionSet.pop( );
 			currentIndex++;
 		}
-		validateDimensionMembers( sortedDimMembers );
+		// The members are validated and the index keys of the levels are
+		// sorted concurrently, while the indexes are saved one by one as the
+		// document manager is not thread safe.
+		final DiskSortedStack members = sortedDimMembers;
+		final IDiskArray[] sortedKeyLists = new IDiskArray[indexKeyLists.length];
+		List<Callable<Object>> tasks = new ArrayList<Callable<Object>>( );
+		tasks.add( new Callable<Object>( ) {
+
+			public Object call( ) throws IOException, DataException
+			{
+				validateDimensionMembers( members );
+				return null;
+			}
+		} );
+		for ( int i = 0; i < indexKeyLists.length; i++ )
+		{
+			final int level = i;
+			tasks.add( new Callable<Object>( ) {
+
+				public Object call( ) throws IOException
+				{
+					sortedKeyLists[level] = indexKeyLists[level].size( ) == 0
+							? indexKeyLists[level]
+							: DiskIndex.sortKeys( indexKeyLists[level] );
+					return null;
+				}
+			} );
+		}
+		taskExecutor.execute( tasks );
 		DiskIndex[] diskIndex = new DiskIndex[indexKeyLists.length];
 		for ( int i = 0; i < indexKeyLists.length; i++ )
 		{
 			// create index for this level
 			diskIndex[i] = DiskIndex.createIndex( documentManager,
 					NamingUtil.getLevelIndexDocName( dimensionName, levelDefs[i].getLevelName( ) ),
-					indexKeyLists[i],
-					false );
+					sortedKeyLists[i],
+					true );
 		}
 		levels = new Level[levelDefs.length];
 		for ( int i = 0; i < levels.length; i++ )
@@ -0,0 +1,357 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.data.engine.olap.data.impl.facttable;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.BitSet;
+
+import org.eclipse.birt.data.engine.core.DataException;
+import org.eclipse.birt.data.engine.olap.data.api.MeasureInfo;
+import org.eclipse.birt.data.engine.olap.data.document.DocumentObjectUtil;
+import org.eclipse.birt.data.engine.olap.data.document.IDocumentObject;
+import org.eclipse.birt.data.engine.olap.data.impl.facttable.DimensionDivider.CombinedPositionContructor;
+import org.eclipse.birt.data.engine.olap.data.util.Bytes;
+import org.eclipse.birt.data.engine.olap.data.util.PositionBitmap;
+
+/**
+ * A fact table segment stored column-wise. The segment starts with a header
+ * holding the row count, the minimum and maximum position of each dimension
+ * (the zone map) and the offset of each measure column. Dimension positions
+ * follow as one int column per dimension, then the measure columns.
+ * <p>
+ * A reader can decide from the zone map whether the segment contains any
+ * selected position without reading its rows, and reads only the measure
+ * columns which are required.
+ */
+
+class ColumnarSegment
+{
+	private IDocumentObject documentObject;
+	private int rowCount;
+	private int[] minPosition;
+	private int[] maxPosition;
+	private int[] measureOffset;
+	private MeasureInfo[] measureInfo;
+	private int[][] dimensionColumns;
+	private Object[][] measureColumns;
+
+	/**
+	 * Reads the header of a segment.
+	 *
+	 * @param documentObject
+	 * @param dimensionCount
+	 * @param measureInfo
+	 * @throws IOException
+	 */
+	ColumnarSegment( IDocumentObject documentObject, int dimensionCount,
+			MeasureInfo[] measureInfo ) throws IOException
+	{
+		this.documentObject = documentObject;
+		this.measureInfo = measureInfo;
+		this.rowCount = documentObject.readInt( );
+		this.minPosition = new int[dimensionCount];
+		this.maxPosition = new int[dimensionCount];
+		for ( int i = 0; i < dimensionCount; i++ )
+		{
+			minPosition[i] = documentObject.readInt( );
+			maxPosition[i] = documentObject.readInt( );
+		}
+		this.measureOffset = new int[measureInfo.length];
+		for ( int i = 0; i < measureOffset.length; i++ )
+		{
+			measureOffset[i] = documentObject.readInt( );
+		}
+		this.measureColumns = new Object[measureInfo.length][];
+	}
+
+	/**
+	 *
+	 * @return
+	 */
+	int getRowCount( )
+	{
+		return rowCount;
+	}
+
+	/**
+	 * Checks the zone map of a dimension against the selected positions.
+	 *
+	 * @param dimensionIndex
+	 * @param selectedPositions
+	 *            selected positions of the dimension
+	 * @return false if no row of the segment can be selected
+	 */
+	boolean mayContain( int dimensionIndex, PositionBitmap selectedPositions )
+	{
+		return rowCount > 0
+				&& selectedPositions.intersects( minPosition[dimensionIndex],
+						maxPosition[dimensionIndex] );
+	}
+
+	/**
+	 * Reads the dimension position columns.
+	 *
+	 * @throws IOException
+	 */
+	void readDimensionColumns( ) throws IOException
+	{
+		dimensionColumns = new int[minPosition.length][];
+		byte[] buffer = new byte[rowCount * 4];
+		documentObject.seek( getHeaderSize( ) );
+		for ( int i = 0; i < dimensionColumns.length; i++ )
+		{
+			readFully( buffer );
+			int[] column = new int[rowCount];
+			for ( int j = 0, k = 0; j < rowCount; j++, k += 4 )
+			{
+				column[j] = ( buffer[k] & 0xff ) << 24
+						| ( buffer[k + 1] & 0xff ) << 16
+						| ( buffer[k + 2] & 0xff ) << 8
+						| ( buffer[k + 3] & 0xff );
+			}
+			dimensionColumns[i] = column;
+		}
+	}
+
+	/**
+	 *
+	 * @param dimensionIndex
+	 * @param row
+	 * @return
+	 */
+	int getDimensionPosition( int dimensionIndex, int row )
+	{
+		return dimensionColumns[dimensionIndex][row];
+	}
+
+	/**
+	 *
+	 * @param row
+	 * @return a new array of the dimension positions of the row
+	 */
+	int[] getDimensionPosition( int row )
+	{
+		int[] result = new int[dimensionColumns.length];
+		for ( int i = 0; i < result.length; i++ )
+		{
+			result[i] = dimensionColumns[i][row];
+		}
+		return result;
+	}
+
+	/**
+	 * Selects the rows whose position of a dimension is selected. The
+	 * dimension columns must be read.
+	 *
+	 * @param dimensionIndex
+	 * @param selectedPositions
+	 *            selected positions of the dimension
+	 * @return the selected row numbers
+	 */
+	BitSet selectRows( int dimensionIndex, PositionBitmap selectedPositions )
+	{
+		int[] column = dimensionColumns[dimensionIndex];
+		BitSet result = new BitSet( rowCount );
+		for ( int i = 0; i < rowCount; i++ )
+		{
+			if ( selectedPositions.contains( column[i] ) )
+			{
+				result.set( i );
+			}
+		}
+		return result;
+	}
+
+	/**
+	 *
+	 * @param row
+	 * @return true if the row has the same dimension positions as the
+	 *         previous one
+	 */
+	boolean isSameAsPreviousRow( int row )
+	{
+		if ( row == 0 )
+		{
+			return false;
+		}
+		for ( int i = 0; i < dimensionColumns.length; i++ )
+		{
+			if ( dimensionColumns[i][row] != dimensionColumns[i][row - 1] )
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Reads a measure column if it is not read yet.
+	 *
+	 * @param measureIndex
+	 * @throws IOException
+	 */
+	void readMeasureColumn( int measureIndex ) throws IOException
+	{
+		if ( measureColumns[measureIndex] != null )
+		{
+			return;
+		}
+		Object[] column = new Object[rowCount];
+		documentObject.seek( measureOffset[measureIndex] );
+		int dataType = measureInfo[measureIndex].getDataType( );
+		for ( int i = 0; i < rowCount; i++ )
+		{
+			column[i] = DocumentObjectUtil.readValue( documentObject, dataType );
+		}
+		measureColumns[measureIndex] = column;
+	}
+
+	/**
+	 *
+	 * @param measureIndex
+	 * @param row
+	 * @return the measure value, or null if the column is not read
+	 */
+	Object getMeasure( int measureIndex, int row )
+	{
+		Object[] column = measureColumns[measureIndex];
+		return column == null ? null : column[row];
+	}
+
+	private int getHeaderSize( )
+	{
+		return 4 + minPosition.length * 8 + measureOffset.length * 4;
+	}
+
+	private void readFully( byte[] buffer ) throws IOException
+	{
+		int pos = 0;
+		while ( pos < buffer.length )
+		{
+			int count = documentObject.read( buffer, pos, buffer.length - pos );
+			if ( count < 0 )
+			{
+				throw new EOFException( );
+			}
+			pos += count;
+		}
+	}
+
+	/**
+	 * Rewrites a segment saved row by row, as combined dimension positions
+	 * followed by measure values, into the columnar layout.
+	 *
+	 * @param documentObject
+	 * @param subDimensionIndex
+	 * @param combinedPositionCalculator
+	 * @param dimensionCount
+	 * @param measureInfo
+	 * @throws IOException
+	 * @throws DataException
+	 */
+	static void convert( IDocumentObject documentObject,
+			int[] subDimensionIndex,
+			CombinedPositionContructor combinedPositionCalculator,
+			int dimensionCount, MeasureInfo[] measureInfo ) throws IOException,
+			DataException
+	{
+		int capacity = 256;
+		int[][] positions = new int[dimensionCount][capacity];
+		Object[][] measures = new Object[measureInfo.length][capacity];
+		int rowCount = 0;
+		documentObject.seek( 0 );
+		while ( true )
+		{
+			Bytes combinedPosition;
+			try
+			{
+				combinedPosition = documentObject.readBytes( );
+			}
+			catch ( EOFException e )
+			{
+				break;
+			}
+			if ( rowCount == capacity )
+			{
+				capacity *= 2;
+				for ( int i = 0; i < dimensionCount; i++ )
+				{
+					positions[i] = Arrays.copyOf( positions[i], capacity );
+				}
+				for ( int i = 0; i < measures.length; i++ )
+				{
+					measures[i] = Arrays.copyOf( measures[i], capacity );
+				}
+			}
+			int[] position = combinedPositionCalculator.calculateDimensionPosition( subDimensionIndex,
+					combinedPosition.bytesValue( ) );
+			for ( int i = 0; i < dimensionCount; i++ )
+			{
+				positions[i][rowCount] = position[i];
+			}
+			for ( int i = 0; i < measures.length; i++ )
+			{
+				measures[i][rowCount] = DocumentObjectUtil.readValue( documentObject,
+						measureInfo[i].getDataType( ) );
+			}
+			rowCount++;
+		}
+
+		documentObject.seek( 0 );
+		documentObject.writeInt( rowCount );
+		for ( int i = 0; i < dimensionCount; i++ )
+		{
+			int min = Integer.MAX_VALUE;
+			int max = Integer.MIN_VALUE;
+			for ( int j = 0; j < rowCount; j++ )
+			{
+				min = Math.min( min, positions[i][j] );
+				max = Math.max( max, positions[i][j] );
+			}
+			documentObject.writeInt( min );
+			documentObject.writeInt( max );
+		}
+		long offsetPointer = documentObject.getFilePointer( );
+		for ( int i = 0; i < measures.length; i++ )
+		{
+			// Placeholder, written once the columns are written
+			documentObject.writeInt( 0 );
+		}
+		for ( int i = 0; i < dimensionCount; i++ )
+		{
+			for ( int j = 0; j < rowCount; j++ )
+			{
+				documentObject.writeInt( positions[i][j] );
+			}
+		}
+		int[] offsets = new int[measures.length];
+		for ( int i = 0; i < measures.length; i++ )
+		{
+			offsets[i] = (int) documentObject.getFilePointer( );
+			for ( int j = 0; j < rowCount; j++ )
+			{
+				DocumentObjectUtil.writeValue( documentObject,
+						measureInfo[i].getDataType( ),
+						measures[i][j] );
+			}
+		}
+		long end = documentObject.getFilePointer( );
+		documentObject.seek( offsetPointer );
+		for ( int i = 0; i < offsets.length; i++ )
+		{
+			documentObject.writeInt( offsets[i] );
+		}
+		documentObject.setLength( end );
+	}
+}
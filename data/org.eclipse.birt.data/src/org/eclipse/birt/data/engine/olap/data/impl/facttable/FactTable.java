@@ -24,10 +24,22 @@ import org.eclipse.birt.data.engine.olap.data.impl.facttable.DimensionDivider.Di
 
 public class FactTable
 {
+	/**
+	 * Segments store each row as combined dimension positions followed by the
+	 * measure values.
+	 */
+	static final int ROW_SEGMENT_FORMAT = 0;
+	/**
+	 * Segments store dimension positions and measures column-wise with a zone
+	 * map, see {@link ColumnarSegment}.
+	 */
+	static final int COLUMNAR_SEGMENT_FORMAT = 1;
+	
 	private String name;
 	private DimensionInfo[] dimensionInfo;
 	private MeasureInfo[] measureInfo, calculatedMeasureInfo;
 	private int segmentCount;
+	private int segmentFormat;
 	private DimensionDivision[] dimensionDivision;
 	
 	private IDocumentManager documentManager;
@@ -41,11 +53,12 @@ public class FactTable
 	 * @param dimensionInfo
 	 * @param measureInfo
 	 * @param segmentCount
+	 * @param segmentFormat
 	 * @param dimensionDivision
 	 */
 	FactTable( String name, IDocumentManager documentManager, DimensionInfo[] dimensionInfo,
 			MeasureInfo[] measureInfo, MeasureInfo[] calculatedMeasureInfo, int segmentCount,
-			DimensionDivision[] dimensionDivision )
+			int segmentFormat, DimensionDivision[] dimensionDivision )
 	{
 		Object[] params = {
 				name,
@@ -61,6 +74,7 @@ public class FactTable
 		this.measureInfo = measureInfo;
 		this.calculatedMeasureInfo = calculatedMeasureInfo;
 		this.segmentCount = segmentCount;
+		this.segmentFormat = segmentFormat;
 		this.dimensionDivision = dimensionDivision;
 		this.documentManager = documentManager;
 		this.combinedPositionCalculator = new CombinedPositionContructor( dimensionDivision );
@@ -140,6 +154,16 @@ public class FactTable
 	}
 	
 
+	/**
+	 * 
+	 * @return true if the segments are stored column-wise
+	 */
+	public boolean isColumnar( )
+	{
+		return segmentFormat == COLUMNAR_SEGMENT_FORMAT;
+	}
+	
+
 	/**
 	 * 
 	 * @return
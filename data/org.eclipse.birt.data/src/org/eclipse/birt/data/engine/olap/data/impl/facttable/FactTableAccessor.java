@@ -22,6 +22,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.logging.Logger;
 
 import org.eclipse.birt.core.exception.BirtException;
@@ -51,6 +52,7 @@ import org.eclipse.birt.data.engine.olap.data.util.BufferedStructureArray;
 import org.eclipse.birt.data.engine.olap.data.util.Bytes;
 import org.eclipse.birt.data.engine.olap.data.util.DiskSortedStack;
 import org.eclipse.birt.data.engine.olap.data.util.IDiskArray;
+import org.eclipse.birt.data.engine.olap.data.util.ParallelTaskExecutor;
 import org.eclipse.birt.data.engine.olap.data.util.StructureDiskArray;
 
 /**
@@ -62,6 +64,13 @@ public class FactTableAccessor
 	private IDocumentManager documentManager =null;
 	private static Logger logger = Logger.getLogger( FactTableAccessor.class.getName( ) );
 	private long memoryCacheSize = 0;
+	private ParallelTaskExecutor taskExecutor = new ParallelTaskExecutor( 1 );
+	
+	/**
+	 * The number of fact table rows whose dimension positions are looked up
+	 * concurrently.
+	 */
+	private static final int LOOKUP_BATCH_SIZE = 20000;
 	
 	public FactTableAccessor( IDocumentManager documentManager )
 	{
@@ -120,28 +129,41 @@ public class FactTableAccessor
 		DimensionDivision[] subDimensions = calculateDimensionDivision( getDimensionMemberCount( dimensions ),
 				segmentCount );
 		
-		int[][][] columnIndex = getColumnIndex( DimJointColumnNames, dimensions );
-		DimensionPositionSeeker[] dimensionSeekers = new DimensionPositionSeeker[dimensions.length];
-		for ( int i = 0; i < dimensionSeekers.length; i++ )
-		{
-			dimensionSeekers[i] = new DimensionPositionSeeker( getDimCombinatedKey( columnIndex[i],
-					dimensions[i].getAllRows( stopSign ) ) );
-		}
+		DimensionPositionSeeker[] dimensionSeekers = createDimensionPositionSeekers( taskExecutor,
+				getColumnIndex( DimJointColumnNames, dimensions ),
+				dimensions,
+				stopSign );
 		
-		int[] dimensionPosition = new int[dimensions.length];
+		FactTableRow[] rows = new FactTableRow[taskExecutor.getThreadCount( ) > 1
+				? LOOKUP_BATCH_SIZE : 1];
+		int[][] dimensionPositions = new int[rows.length][dimensions.length];
 		DocumentObjectCache documentObjectManager = new DocumentObjectCache( documentManager, (long) ( memoryCacheSize* 0.25 ) );
 		CombinedPositionContructor combinedPositionCalculator = new CombinedPositionContructor( subDimensions );
 		
 		FTSUNameSaveHelper saveHelper = new FTSUNameSaveHelper( documentManager, factTableName );
-		FactTableRow currentRow = sortedFactTableRows.pop( );
 		boolean invalidDimensionKey = false;
 		int invalidRowNumber = 0;
-		while ( currentRow != null && !stopSign.isStopped( ) )
-		{			
+		int rowCount = 0, rowIndex = 0;
+		while ( !stopSign.isStopped( ) )
+		{
+			if ( rowIndex == rowCount )
+			{
+				rowCount = popRows( sortedFactTableRows, rows );
+				rowIndex = 0;
+				if ( rowCount == 0 )
+					break;
+				findDimensionPositions( taskExecutor,
+						dimensionSeekers,
+						rows,
+						rowCount,
+						dimensionPositions );
+			}
+			FactTableRow currentRow = rows[rowIndex];
+			int[] dimensionPosition = dimensionPositions[rowIndex];
+			rowIndex++;
 			invalidDimensionKey = false;
 			for ( int i = 0; i < dimensionPosition.length; i++ )
 			{
-				dimensionPosition[i] = dimensionSeekers[i].find( currentRow.getDimensionKeys()[i] );
 				if ( dimensionPosition[i] < 0 )
 				{
 					invalidDimensionKey = true;
@@ -156,7 +178,6 @@ public class FactTableAccessor
 			}
 			if( invalidDimensionKey )
 			{
-				currentRow = sortedFactTableRows.pop( );
 				invalidRowNumber ++;
 				continue;
 			}
@@ -165,7 +186,7 @@ public class FactTableAccessor
 			String FTSUDocName = FTSUDocumentObjectNamingUtil.getDocumentObjectName( 
 					NamingUtil.getFactTableName( factTableName ),
 					subDimensionIndex );
-			saveHelper.add( FTSUDocName );
+			saveHelper.add( FTSUDocName, subDimensionIndex );
 			
 			IDocumentObject documentObject = documentObjectManager.getIDocumentObject( FTSUDocName );
 			documentObject.writeBytes( new Bytes( combinedPositionCalculator.
@@ -176,7 +197,6 @@ public class FactTableAccessor
 						measureInfo[i].getDataType(),
 						currentRow.getMeasures()[i] );
 			}
-			currentRow = sortedFactTableRows.pop( );
 		}
 		saveHelper.save( );
 		if( invalidRowNumber > 0 )
@@ -187,6 +207,11 @@ public class FactTableAccessor
 				+ "invalid rows where the value of dimension key does not exist in dimension.");
 		}
 		documentObjectManager.closeAll( );
+		saveHelper.convertToColumnar( combinedPositionCalculator,
+				dimensionInfo.length,
+				measureInfo,
+				stopSign );
+		saveSegmentFormat( factTableName, FactTable.COLUMNAR_SEGMENT_FORMAT );
 		documentManager.flush( );
 		return new FactTable( factTableName,
 				documentManager,
@@ -194,6 +219,7 @@ public class FactTableAccessor
 				measureInfo,
 				calMeasureInfo,
 				segmentCount,
+				FactTable.COLUMNAR_SEGMENT_FORMAT,
 				subDimensions);
 		
 	}
@@ -524,11 +550,171 @@ public class FactTableAccessor
 		documentObject.close( );
 	}
 	
+	/**
+	 * Saves the format of the segments in a document object of its own, so
+	 * that the fact tables saved before the format was recorded are read as
+	 * row-wise segments.
+	 * 
+	 * @param factTableName
+	 * @param segmentFormat
+	 * @throws IOException
+	 */
+	private void saveSegmentFormat( String factTableName, int segmentFormat )
+			throws IOException
+	{
+		IDocumentObject documentObject = 
+			documentManager.createDocumentObject( NamingUtil.getSegmentFormatName( factTableName ) );
+		documentObject.writeInt( segmentFormat );
+		documentObject.close( );
+	}
+	
+	/**
+	 * 
+	 * @param factTableName
+	 * @return the format of the segments of a fact table
+	 * @throws IOException
+	 */
+	private int loadSegmentFormat( String factTableName ) throws IOException
+	{
+		String name = NamingUtil.getSegmentFormatName( factTableName );
+		if ( !documentManager.exist( name ) )
+		{
+			return FactTable.ROW_SEGMENT_FORMAT;
+		}
+		IDocumentObject documentObject = documentManager.openDocumentObject( name );
+		try
+		{
+			return documentObject.readInt( );
+		}
+		finally
+		{
+			documentObject.close( );
+		}
+	}
+	
 	public void setMemoryCacheSize( long memoryCacheSize )
 	{
 		this.memoryCacheSize = memoryCacheSize;
 	}
 
+	/**
+	 * Sets the executor of the tasks which look up the dimension positions of
+	 * the fact table rows. The tasks run on the calling thread by default.
+	 * 
+	 * @param taskExecutor
+	 */
+	public void setTaskExecutor( ParallelTaskExecutor taskExecutor )
+	{
+		this.taskExecutor = taskExecutor;
+	}
+
+	/**
+	 * Creates the seekers of the dimensions concurrently. The dimension rows
+	 * are read one dimension at a time, as the document manager is not thread
+	 * safe.
+	 * 
+	 * @param executor
+	 * @param columnIndex
+	 * @param dimensions
+	 * @param stopSign
+	 * @return
+	 * @throws IOException
+	 * @throws BirtException
+	 */
+	private DimensionPositionSeeker[] createDimensionPositionSeekers(
+			ParallelTaskExecutor executor, final int[][][] columnIndex,
+			final Dimension[] dimensions, final StopSign stopSign )
+			throws IOException, BirtException
+	{
+		final DimensionPositionSeeker[] dimensionSeekers = new DimensionPositionSeeker[dimensions.length];
+		List<Callable<Object>> tasks = new ArrayList<Callable<Object>>( );
+		for ( int i = 0; i < dimensionSeekers.length; i++ )
+		{
+			final int index = i;
+			tasks.add( new Callable<Object>( ) {
+
+				public Object call( ) throws IOException
+				{
+					IDiskArray dimensionRows;
+					synchronized ( documentManager )
+					{
+						dimensionRows = dimensions[index].getAllRows( stopSign );
+					}
+					dimensionSeekers[index] = new DimensionPositionSeeker( getDimCombinatedKey( columnIndex[index],
+							dimensionRows ) );
+					return null;
+				}
+			} );
+		}
+		executor.execute( tasks );
+		return dimensionSeekers;
+	}
+
+	/**
+	 * 
+	 * @param sortedFactTableRows
+	 * @param rows
+	 * @return the number of rows popped
+	 * @throws IOException
+	 */
+	private static int popRows( FacttableRowContainer sortedFactTableRows,
+			FactTableRow[] rows ) throws IOException
+	{
+		int count = 0;
+		while ( count < rows.length )
+		{
+			FactTableRow row = sortedFactTableRows.pop( );
+			if ( row == null )
+				break;
+			rows[count++] = row;
+		}
+		return count;
+	}
+
+	/**
+	 * Looks up the dimension positions of the rows, with the rows divided
+	 * among the threads of the executor. The seekers only search their sorted
+	 * member arrays, so they are shared by the threads.
+	 * 
+	 * @param executor
+	 * @param dimensionSeekers
+	 * @param rows
+	 * @param rowCount
+	 * @param dimensionPositions
+	 * @throws IOException
+	 * @throws BirtException
+	 */
+	private static void findDimensionPositions( ParallelTaskExecutor executor,
+			final DimensionPositionSeeker[] dimensionSeekers,
+			final FactTableRow[] rows, int rowCount,
+			final int[][] dimensionPositions ) throws IOException,
+			BirtException
+	{
+		int chunkSize = Math.max( 1000, ( rowCount - 1 )
+				/ executor.getThreadCount( ) + 1 );
+		List<Callable<Object>> tasks = new ArrayList<Callable<Object>>( );
+		for ( int start = 0; start < rowCount; start += chunkSize )
+		{
+			final int from = start;
+			final int to = Math.min( start + chunkSize, rowCount );
+			tasks.add( new Callable<Object>( ) {
+
+				public Object call( ) throws IOException
+				{
+					for ( int i = from; i < to; i++ )
+					{
+						for ( int j = 0; j < dimensionSeekers.length; j++ )
+						{
+							dimensionPositions[i][j] = dimensionSeekers[j].find( rows[i].getDimensionKeys( )[j] );
+						}
+					}
+					return null;
+				}
+			} );
+		}
+		executor.execute( tasks );
+	}
+
 	private static int getObjectSize( int[] dataType) {
 		int size = 0;
 		for( int i = 0; i < dataType.length; i++ )
@@ -739,6 +925,7 @@ public class FactTableAccessor
 		MeasureInfo[] calMeasureInfo = (MeasureInfo[])calMeasureInfoList.toArray( new MeasureInfo[0] );
 		
 		segmentNumber = documentObject.readInt( );
+		int segmentFormat = loadSegmentFormat( factTableName );
 		
 		int[] dimensionMemberCount = new int[dimensionInfo.length];
 		for( int i = 0;i<dimensionInfo.length;i++)
@@ -754,6 +941,7 @@ public class FactTableAccessor
 				measureInfo,
 				calMeasureInfo,
 				segmentNumber,
+				segmentFormat,
 				subDimensions ); 
 	}
 	
@@ -839,12 +1027,48 @@ class FTSUNameSaveHelper
 	/**
 	 * 
 	 * @param name
+	 * @param subDimensionIndex
 	 */
-	void add( String name )
+	void add( String name, int[] subDimensionIndex )
 	{
 		if ( !map.containsKey( name ) )
 		{
-			map.put( name, null );
+			map.put( name, subDimensionIndex );
+		}
+	}
+	
+	/**
+	 * Rewrites the segments saved row by row into the columnar layout, one
+	 * segment at a time.
+	 * 
+	 * @param combinedPositionCalculator
+	 * @param dimensionCount
+	 * @param measureInfo
+	 * @param stopSign
+	 * @throws IOException
+	 * @throws DataException
+	 */
+	void convertToColumnar( CombinedPositionContructor combinedPositionCalculator,
+			int dimensionCount, MeasureInfo[] measureInfo, StopSign stopSign )
+			throws IOException, DataException
+	{
+		Iterator entryIterator = map.entrySet( ).iterator( );
+		while ( entryIterator.hasNext( ) && !stopSign.isStopped( ) )
+		{
+			Entry entry = (Entry) entryIterator.next( );
+			IDocumentObject documentObject = documentManager.openDocumentObject( (String) entry.getKey( ) );
+			try
+			{
+				ColumnarSegment.convert( documentObject,
+						(int[]) entry.getValue( ),
+						combinedPositionCalculator,
+						dimensionCount,
+						measureInfo );
+			}
+			finally
+			{
+				documentObject.close( );
+			}
 		}
 	}
 	
@@ -14,7 +14,7 @@ package org.eclipse.birt.data.engine.olap.data.impl.facttable;
 import java.io.EOFException;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
 import java.util.logging.Logger;
 
@@ -37,6 +37,7 @@ import org.eclipse.birt.data.engine.olap.data.impl.facttable.FactTableAccessor.F
 import org.eclipse.birt.data.engine.olap.data.util.Bytes;
 import org.eclipse.birt.data.engine.olap.data.util.DataType;
 import org.eclipse.birt.data.engine.olap.data.util.IDiskArray;
+import org.eclipse.birt.data.engine.olap.data.util.PositionBitmap;
 import org.eclipse.birt.data.engine.olap.util.filter.ICubePosFilter;
 import org.eclipse.birt.data.engine.olap.util.filter.IFacttableRow;
 import org.eclipse.birt.data.engine.olap.util.filter.IJSFacttableFilterEvalHelper;
@@ -57,6 +58,10 @@ public class FactTableRowIterator implements IFactTableRowIterator
 	private List[] selectedSubDim = null;
 
 	private IDocumentObject currentSegment;
+	private ColumnarSegment currentColumnarSegment;
+	private int currentRow;
+	private BitSet selectedRows;
+	private boolean[] requiredMeasures;
 	private int[] currentPos;
 	private Object[] currentMeasureValues;		//current values for measures
 	private MeasureMap currentMeasureMap;	//<name, value> map for current measures
@@ -65,7 +70,7 @@ public class FactTableRowIterator implements IFactTableRowIterator
 	private Traversalor traversalor;
 	private StopSign stopSign;
 	
-	private int[][] selectedPosOfCurSegment;
+	private PositionBitmap[] selectedPosBitmap;
 	
 	private IComputedMeasureHelper computedMeasureHelper;
 
@@ -122,7 +127,7 @@ public class FactTableRowIterator implements IFactTableRowIterator
 		this.factTable = factTable;
 		this.selectedPos = dimensionPos;
 		this.selectedSubDim = new List[factTable.getDimensionInfo( ).length];
-		this.selectedPosOfCurSegment = new int[factTable.getDimensionInfo( ).length][];
+		this.selectedPosBitmap = new PositionBitmap[factTable.getDimensionInfo( ).length];
 		this.stopSign = stopSign;
 		this.measureFilters = new ArrayList( );
 		this.cubePosFilters = new ArrayList( );
@@ -143,8 +148,9 @@ public class FactTableRowIterator implements IFactTableRowIterator
 		}
 		for ( int i = 0; i < dimensionName.length; i++ )
 		{
-			dimensionIndex[factTable.getDimensionIndex( dimensionName[i] )] = i;
-
+			int index = factTable.getDimensionIndex( dimensionName[i] );
+			dimensionIndex[index] = i;
+			selectedPosBitmap[index] = PositionBitmap.valueOf( dimensionPos[i] );
 		}
 		
 		caculateMeasuerSize( );
@@ -228,6 +234,10 @@ public class FactTableRowIterator implements IFactTableRowIterator
 	 */
 	public boolean next( ) throws IOException, DataException
 	{
+		if ( factTable.isColumnar( ) )
+		{
+			return nextColumnarRow( );
+		}
 		while ( !stopSign.isStopped( ) )
 		{
 			try
@@ -292,6 +302,50 @@ public class FactTableRowIterator implements IFactTableRowIterator
 		return next( );
 	}
 	
+	/**
+	 * Moves to the next selected row of a columnar fact table. The rows are
+	 * taken from the bitmap of the rows whose dimension positions are
+	 * selected.
+	 * 
+	 * @return
+	 * @throws IOException
+	 * @throws DataException
+	 */
+	private boolean nextColumnarRow( ) throws IOException, DataException
+	{
+		while ( currentColumnarSegment != null && !stopSign.isStopped( ) )
+		{
+			currentRow = selectedRows.nextSetBit( currentRow + 1 );
+			if ( currentRow < 0 )
+			{
+				if ( !nextSegment( ) )
+				{
+					return false;
+				}
+				continue;
+			}
+			// The previous row is selected too if it has the same positions,
+			// so it was the last row returned or filtered
+			if ( currentColumnarSegment.isSameAsPreviousRow( currentRow ) )
+			{
+				this.isDuplicatedRow = true;
+			}
+			else
+			{
+				this.isDuplicatedRow = false;
+				currentPos = currentColumnarSegment.getDimensionPosition( currentRow );
+			}
+			readMeasure = false;
+			if ( isSelectedRow( ) )
+			{
+				if ( !readMeasure )
+					readMeasure( );
+				return true;
+			}
+		}
+		return false;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * @see org.eclipse.birt.data.engine.olap.data.impl.facttable.IFactTableRowIterator#isDuplicatedRow()
@@ -386,11 +440,12 @@ public class FactTableRowIterator implements IFactTableRowIterator
 	{
 		if( !this.isDuplicatedRow )
 		{
-			for ( int i = 0; i < currentPos.length; i++ )
+			// The rows of a columnar segment are selected by its row bitmap
+			for ( int i = 0; currentColumnarSegment == null && i < currentPos.length; i++ )
 			{
 				if ( dimensionIndex[i] != -1 )
 				{
-					if( Arrays.binarySearch( selectedPosOfCurSegment[i], currentPos[i] ) < 0 )
+					if( !selectedPosBitmap[i].contains( currentPos[i] ) )
 					{
 						lastFilterResult = false;
 						return false;
@@ -451,10 +506,17 @@ public class FactTableRowIterator implements IFactTableRowIterator
 	 */
 	private void readMeasure() throws IOException, DataException
 	{
-		for ( int i = 0; i < this.currentMeasureValues.length; i++ )
+		if ( currentColumnarSegment != null )
+		{
+			readColumnarMeasure( );
+		}
+		else
 		{
-			currentMeasureValues[i] = DocumentObjectUtil.readValue( currentSegment,
-				factTable.getMeasureInfo()[i].getDataType( ) );
+			for ( int i = 0; i < this.currentMeasureValues.length; i++ )
+			{
+				currentMeasureValues[i] = DocumentObjectUtil.readValue( currentSegment,
+						factTable.getMeasureInfo( )[i].getDataType( ) );
+			}
 		}
 		currentMeasureMap.setMeasureValue( currentMeasureValues );
 		if ( computedMeasureHelper != null )
@@ -471,6 +533,29 @@ public class FactTableRowIterator implements IFactTableRowIterator
 		readMeasure = true;
 	}
 	
+	/**
+	 * Reads the measures of the current row from the measure columns of the
+	 * current segment. A measure column is read the first time one of its
+	 * values is needed, so the columns which are not required are never read.
+	 * 
+	 * @throws IOException
+	 * @throws DataException
+	 */
+	private void readColumnarMeasure( ) throws IOException, DataException
+	{
+		boolean readAll = requiredMeasures == null
+				|| existMeasureFilter || computedMeasureHelper != null;
+		for ( int i = 0; i < this.currentMeasureValues.length; i++ )
+		{
+			if ( readAll || requiredMeasures[i] )
+			{
+				currentColumnarSegment.readMeasureColumn( i );
+			}
+			currentMeasureValues[i] = currentColumnarSegment.getMeasure( i,
+					currentRow );
+		}
+	}
+
 	private boolean skipMeasure() throws IOException, DataException
 	{
 		for ( int i = 0; i < this.measureSize.length; i++ )
@@ -521,29 +606,85 @@ public class FactTableRowIterator implements IFactTableRowIterator
 			
 			if( currentSegment != null )
 				currentSegment.close( );
+			currentColumnarSegment = null;
 			
 			currentSegment = factTable.getDocumentManager( ).openDocumentObject( FTSUDocName );
 			
-			for ( int i = 0; i < dimensionIndex.length; i++ )
+			if ( factTable.isColumnar( ) )
 			{
-				if ( dimensionIndex[i] != -1 )
+				ColumnarSegment segment = new ColumnarSegment( currentSegment,
+						dimensionIndex.length,
+						factTable.getMeasureInfo( ) );
+				if ( !mayContainSelectedRow( segment ) )
 				{
-					SelectedSubDimension selectedSubDimension = ( (SelectedSubDimension) selectedSubDim[i].get( currentSubDim[i] ) );
-					selectedPosOfCurSegment[i] = new int[selectedSubDimension.end
-							- selectedSubDimension.start + 1];
-					for ( int j = 0; j < selectedSubDimension.end
-							- selectedSubDimension.start + 1; j++ )
-					{
-						selectedPosOfCurSegment[i][j] = ( (Integer) selectedPos[dimensionIndex[i]].get( selectedSubDimension.start
-								+ j ) ).intValue( );
-					}
+					// The zone map excludes all the rows of the segment
+					continue;
+				}
+				segment.readDimensionColumns( );
+				BitSet rows = selectRows( segment );
+				if ( rows.isEmpty( ) )
+				{
+					continue;
 				}
+				currentColumnarSegment = segment;
+				selectedRows = rows;
+				currentRow = -1;
 			}
 			break;
 		}
 		return true;
 	}
 
+	/**
+	 * 
+	 * @param segment
+	 * @return false if no row of the segment is in the selected positions
+	 */
+	private boolean mayContainSelectedRow( ColumnarSegment segment )
+	{
+		for ( int i = 0; i < dimensionIndex.length; i++ )
+		{
+			if ( dimensionIndex[i] != -1
+					&& !segment.mayContain( i, selectedPosBitmap[i] ) )
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Intersects the rows selected on each filtered dimension.
+	 * 
+	 * @param segment
+	 * @return the rows of the segment whose positions are selected
+	 */
+	private BitSet selectRows( ColumnarSegment segment )
+	{
+		BitSet result = null;
+		for ( int i = 0; i < dimensionIndex.length; i++ )
+		{
+			if ( dimensionIndex[i] != -1 )
+			{
+				BitSet rows = segment.selectRows( i, selectedPosBitmap[i] );
+				if ( result == null )
+				{
+					result = rows;
+				}
+				else
+				{
+					result.and( rows );
+				}
+			}
+		}
+		if ( result == null )
+		{
+			result = new BitSet( segment.getRowCount( ) );
+			result.set( 0, segment.getRowCount( ) );
+		}
+		return result;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * @see org.eclipse.birt.data.engine.olap.data.impl.facttable.IFactTableRowIterator#getDimensionCount()
@@ -660,6 +801,33 @@ public class FactTableRowIterator implements IFactTableRowIterator
 		existMeasureFilter = true;
 	}
 	
+	/**
+	 * Sets the measures which the caller reads from this iterator. On a
+	 * columnar fact table the other measure columns are not read and their
+	 * values are null. All the measures are read if there are measure filters
+	 * or computed measures.
+	 * 
+	 * @param measureNames
+	 *            names of the required measures, or null for all measures
+	 */
+	public void setRequiredMeasures( String[] measureNames )
+	{
+		if ( measureNames == null )
+		{
+			requiredMeasures = null;
+			return;
+		}
+		requiredMeasures = new boolean[factTable.getMeasureInfo( ).length];
+		for ( int i = 0; i < measureNames.length; i++ )
+		{
+			int index = factTable.getMeasureIndex( measureNames[i] );
+			if ( index >= 0 )
+			{
+				requiredMeasures[index] = true;
+			}
+		}
+	}
+	
 	/**
 	 * 
 	 * @param cubePosFilter
@@ -506,12 +506,15 @@ public class DiskIndex
 	}
 
 	/**
+	 * Sorts the index keys and merges the keys which are equal, which is how
+	 * the keys of an index are passed to createIndex as sorted. The keys are
+	 * not saved, so that they can be sorted on another thread.
 	 * 
 	 * @param keyList
 	 * @return
 	 * @throws IOException
 	 */
-	private IDiskArray sortKeys( IDiskArray keyList ) throws IOException
+	public static IDiskArray sortKeys( IDiskArray keyList ) throws IOException
 	{
 		DiskSortedStack sortStack = new DiskSortedStack( Math.min( keyList.size( ),
 				Constants.MAX_LIST_BUFFER_SIZE ),
@@ -555,7 +558,7 @@ public class DiskIndex
 		return reList;
 	}
 
-	private void addIndex(BufferedStructureArray reList, IndexKey curIndexKey,
+	private static void addIndex(BufferedStructureArray reList, IndexKey curIndexKey,
 			List<Integer> dimPos, List<Integer> dimOffset) throws IOException {
 		int[] iDimPos = new int[dimPos.size( )];
 		for( int j = 0; j < iDimPos.length; j++ )
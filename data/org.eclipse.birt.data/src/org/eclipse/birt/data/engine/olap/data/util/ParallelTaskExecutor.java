@@ -0,0 +1,235 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.data.engine.olap.data.util;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.birt.core.exception.BirtException;
+import org.eclipse.birt.data.engine.api.CloseListenerManager;
+import org.eclipse.birt.data.engine.api.DataEngineThreadLocal;
+import org.eclipse.birt.data.engine.core.security.ThreadSecurity;
+
+/**
+ * Runs the independent tasks of a cube build on a bounded number of threads.
+ * The tasks create their disk arrays in the temporary directory of the calling
+ * thread, and the disk arrays are closed with those of the calling thread.
+ * Document managers are not thread safe, so the tasks must synchronize on the
+ * document manager around their document object I/O.
+ * <p>
+ * The threads are started by the first tasks, and are reused by the next
+ * tasks of the build until the executor is shut down.
+ */
+
+public class ParallelTaskExecutor
+{
+	private static final long KEEP_ALIVE_SECONDS = 60;
+
+	private int threadCount;
+	private ExecutorService executor;
+
+	/**
+	 *
+	 * @param threadCount
+	 *            the maximum number of threads, or zero or a negative integer
+	 *            for the number of available processors
+	 */
+	public ParallelTaskExecutor( int threadCount )
+	{
+		this.threadCount = threadCount > 0 ? threadCount : Runtime.getRuntime( )
+				.availableProcessors( );
+	}
+
+	/**
+	 *
+	 * @return the maximum number of threads
+	 */
+	public int getThreadCount( )
+	{
+		return threadCount;
+	}
+
+	/**
+	 * Runs the tasks and waits for them to finish. The tasks are run on the
+	 * calling thread if only one thread is used.
+	 *
+	 * @param tasks
+	 * @throws IOException
+	 * @throws BirtException
+	 */
+	public void execute( List<? extends Callable<?>> tasks )
+			throws IOException, BirtException
+	{
+		int poolSize = Math.min( threadCount, tasks.size( ) );
+		if ( poolSize <= 1 )
+		{
+			for ( int i = 0; i < tasks.size( ); i++ )
+			{
+				call( tasks.get( i ) );
+			}
+			return;
+		}
+		final String tempPath = DataEngineThreadLocal.getInstance( )
+				.getPathManager( )
+				.getTempPath( );
+		final CloseListenerManager closeListener = DataEngineThreadLocal.getInstance( )
+				.getCloseListener( );
+		ExecutorService pool = getExecutor( );
+		List<Future<?>> futures = new ArrayList<Future<?>>( );
+		try
+		{
+			for ( int i = 0; i < tasks.size( ); i++ )
+			{
+				final Callable<?> task = tasks.get( i );
+				futures.add( pool.submit( new Callable<Object>( ) {
+
+					public Object call( ) throws Exception
+					{
+						DataEngineThreadLocal.getInstance( )
+								.getPathManager( )
+								.setTempPath( tempPath );
+						try
+						{
+							return task.call( );
+						}
+						finally
+						{
+							DataEngineThreadLocal.getInstance( )
+									.getCloseListener( )
+									.moveTo( closeListener );
+							DataEngineThreadLocal.getInstance( )
+									.removeCloseListener( );
+							DataEngineThreadLocal.getInstance( )
+									.removeTempPathManger( );
+						}
+					}
+				} ) );
+			}
+			for ( int i = 0; i < futures.size( ); i++ )
+			{
+				try
+				{
+					futures.get( i ).get( );
+				}
+				catch ( ExecutionException e )
+				{
+					rethrow( e.getCause( ) );
+				}
+				catch ( InterruptedException e )
+				{
+					Thread.currentThread( ).interrupt( );
+					throw new InterruptedIOException( e.getLocalizedMessage( ) );
+				}
+			}
+		}
+		finally
+		{
+			// the tasks left after a failure are not needed any longer
+			for ( int i = 0; i < futures.size( ); i++ )
+			{
+				futures.get( i ).cancel( true );
+			}
+		}
+	}
+
+	/**
+	 * Stops the threads of the executor. The tasks executed later start new
+	 * threads.
+	 */
+	public synchronized void shutdown( )
+	{
+		if ( executor != null )
+		{
+			executor.shutdownNow( );
+			executor = null;
+		}
+	}
+
+	/**
+	 *
+	 * @return the thread pool, which is created the first time
+	 */
+	private synchronized ExecutorService getExecutor( )
+	{
+		if ( executor == null )
+		{
+			ThreadPoolExecutor pool = new ThreadPoolExecutor( threadCount,
+					threadCount,
+					KEEP_ALIVE_SECONDS,
+					TimeUnit.SECONDS,
+					new LinkedBlockingQueue<Runnable>( ),
+					new ThreadFactory( ) {
+
+						public Thread newThread( Runnable r )
+						{
+							Thread thread = ThreadSecurity.createThread( r );
+							thread.setName( "BIRT cube build " + thread.getId( ) ); //$NON-NLS-1$
+							thread.setDaemon( true );
+							return thread;
+						}
+					} );
+			// the idle threads of an executor which is not shut down end
+			pool.allowCoreThreadTimeOut( true );
+			executor = pool;
+		}
+		return executor;
+	}
+
+	/**
+	 *
+	 * @param task
+	 * @throws IOException
+	 * @throws BirtException
+	 */
+	private static void call( Callable<?> task ) throws IOException,
+			BirtException
+	{
+		try
+		{
+			task.call( );
+		}
+		catch ( Exception e )
+		{
+			rethrow( e );
+		}
+	}
+
+	/**
+	 *
+	 * @param e
+	 * @throws IOException
+	 * @throws BirtException
+	 */
+	private static void rethrow( Throwable e ) throws IOException,
+			BirtException
+	{
+		if ( e instanceof IOException )
+			throw (IOException) e;
+		if ( e instanceof BirtException )
+			throw (BirtException) e;
+		if ( e instanceof RuntimeException )
+			throw (RuntimeException) e;
+		if ( e instanceof Error )
+			throw (Error) e;
+		throw new IOException( e );
+	}
+}
@@ -0,0 +1,489 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.data.engine.olap.data.util;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A compressed bitmap of non-negative int positions. Positions are grouped in
+ * chunks of 65536 by their high 16 bits. A chunk holding few positions is
+ * stored as a sorted array of the low 16 bits, a chunk holding many as a
+ * plain bitmap of 1024 longs, so that both sparse and dense selections of
+ * dimension positions stay small and can be intersected chunk by chunk.
+ */
+
+public class PositionBitmap
+{
+	/**
+	 * The maximum cardinality of a chunk stored as an array.
+	 */
+	private static final int MAX_ARRAY_SIZE = 4096;
+
+	private static final int BITMAP_LENGTH = 1024;
+
+	private int[] keys;
+	private Object[] chunks; // char[] or long[]
+	private int[] cardinalities;
+	private int size;
+
+	/**
+	 * Creates an empty bitmap.
+	 */
+	public PositionBitmap( )
+	{
+		keys = new int[4];
+		chunks = new Object[4];
+		cardinalities = new int[4];
+		size = 0;
+	}
+
+	/**
+	 * Creates a bitmap of the positions in a disk array.
+	 *
+	 * @param positions
+	 *            a disk array of Integer
+	 * @return
+	 * @throws IOException
+	 */
+	public static PositionBitmap valueOf( IDiskArray positions )
+			throws IOException
+	{
+		PositionBitmap result = new PositionBitmap( );
+		for ( int i = 0; i < positions.size( ); i++ )
+		{
+			result.add( ( (Integer) positions.get( i ) ).intValue( ) );
+		}
+		return result;
+	}
+
+	/**
+	 * Adds a position.
+	 *
+	 * @param position
+	 */
+	public void add( int position )
+	{
+		int index = getOrCreateChunk( position >>> 16 );
+		char low = (char) position;
+		Object chunk = chunks[index];
+		if ( chunk instanceof long[] )
+		{
+			long[] bitmap = (long[]) chunk;
+			long mask = 1L << low;
+			if ( ( bitmap[low >>> 6] & mask ) == 0 )
+			{
+				bitmap[low >>> 6] |= mask;
+				cardinalities[index]++;
+			}
+			return;
+		}
+		char[] array = (char[]) chunk;
+		int cardinality = cardinalities[index];
+		int pos = Arrays.binarySearch( array, 0, cardinality, low );
+		if ( pos >= 0 )
+		{
+			return;
+		}
+		pos = -pos - 1;
+		if ( cardinality == MAX_ARRAY_SIZE )
+		{
+			long[] bitmap = toBitmap( array, cardinality );
+			bitmap[low >>> 6] |= 1L << low;
+			chunks[index] = bitmap;
+			cardinalities[index]++;
+			return;
+		}
+		if ( cardinality == array.length )
+		{
+			array = Arrays.copyOf( array,
+					Math.min( MAX_ARRAY_SIZE, cardinality * 2 ) );
+			chunks[index] = array;
+		}
+		System.arraycopy( array, pos, array, pos + 1, cardinality - pos );
+		array[pos] = low;
+		cardinalities[index]++;
+	}
+
+	/**
+	 * Adds all the positions of a range.
+	 *
+	 * @param start
+	 *            first position
+	 * @param end
+	 *            last position, inclusive
+	 */
+	public void addRange( int start, int end )
+	{
+		for ( int i = start; i <= end; i++ )
+		{
+			add( i );
+		}
+	}
+
+	/**
+	 *
+	 * @param position
+	 * @return true if the bitmap contains the position
+	 */
+	public boolean contains( int position )
+	{
+		int index = findChunk( position >>> 16 );
+		if ( index < 0 )
+		{
+			return false;
+		}
+		char low = (char) position;
+		Object chunk = chunks[index];
+		if ( chunk instanceof long[] )
+		{
+			return ( ( (long[]) chunk )[low >>> 6] & ( 1L << low ) ) != 0;
+		}
+		return Arrays.binarySearch( (char[]) chunk,
+				0,
+				cardinalities[index],
+				low ) >= 0;
+	}
+
+	/**
+	 *
+	 * @param min
+	 * @param max
+	 * @return true if the bitmap contains a position between min and max,
+	 *         inclusive
+	 */
+	public boolean intersects( int min, int max )
+	{
+		int next = nextSetBit( min );
+		return next >= 0 && next <= max;
+	}
+
+	/**
+	 * Returns the first position which is greater than or equal to a
+	 * position.
+	 *
+	 * @param from
+	 * @return the position, or -1 if there is none
+	 */
+	public int nextSetBit( int from )
+	{
+		if ( from < 0 )
+		{
+			from = 0;
+		}
+		int key = from >>> 16;
+		int index = findChunk( key );
+		if ( index < 0 )
+		{
+			index = -index - 1;
+		}
+		for ( ; index < size; index++ )
+		{
+			int low = keys[index] == key ? ( from & 0xFFFF ) : 0;
+			int next = nextInChunk( index, low );
+			if ( next >= 0 )
+			{
+				return keys[index] << 16 | next;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 *
+	 * @return the number of positions
+	 */
+	public int getCardinality( )
+	{
+		int result = 0;
+		for ( int i = 0; i < size; i++ )
+		{
+			result += cardinalities[i];
+		}
+		return result;
+	}
+
+	/**
+	 *
+	 * @return true if the bitmap has no position
+	 */
+	public boolean isEmpty( )
+	{
+		return size == 0;
+	}
+
+	/**
+	 * Copies the positions into a sorted disk array of Integer.
+	 *
+	 * @return
+	 * @throws IOException
+	 */
+	public IDiskArray toDiskArray( ) throws IOException
+	{
+		IDiskArray result = new BufferedPrimitiveDiskArray( );
+		for ( int pos = nextSetBit( 0 ); pos >= 0; pos = nextSetBit( pos + 1 ) )
+		{
+			result.add( Integer.valueOf( pos ) );
+			if ( pos == Integer.MAX_VALUE )
+			{
+				// pos + 1 would overflow
+				break;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 *
+	 * @param bitmap1
+	 * @param bitmap2
+	 * @return a new bitmap of the positions in both bitmaps
+	 */
+	public static PositionBitmap and( PositionBitmap bitmap1,
+			PositionBitmap bitmap2 )
+	{
+		PositionBitmap result = new PositionBitmap( );
+		int i = 0, j = 0;
+		while ( i < bitmap1.size && j < bitmap2.size )
+		{
+			if ( bitmap1.keys[i] < bitmap2.keys[j] )
+			{
+				i++;
+			}
+			else if ( bitmap1.keys[i] > bitmap2.keys[j] )
+			{
+				j++;
+			}
+			else
+			{
+				Object chunk1 = bitmap1.chunks[i];
+				Object chunk2 = bitmap2.chunks[j];
+				if ( chunk1 instanceof long[] && chunk2 instanceof long[] )
+				{
+					long[] bitmap = new long[BITMAP_LENGTH];
+					long[] other = (long[]) chunk2;
+					for ( int k = 0; k < BITMAP_LENGTH; k++ )
+					{
+						bitmap[k] = ( (long[]) chunk1 )[k] & other[k];
+					}
+					result.appendBitmap( bitmap1.keys[i], bitmap );
+				}
+				else if ( chunk1 instanceof long[] )
+				{
+					result.appendArray( bitmap1.keys[i],
+							select( (char[]) chunk2,
+									bitmap2.cardinalities[j],
+									(long[]) chunk1 ) );
+				}
+				else if ( chunk2 instanceof long[] )
+				{
+					result.appendArray( bitmap1.keys[i],
+							select( (char[]) chunk1,
+									bitmap1.cardinalities[i],
+									(long[]) chunk2 ) );
+				}
+				else
+				{
+					result.appendArray( bitmap1.keys[i],
+							intersect( (char[]) chunk1,
+									bitmap1.cardinalities[i],
+									(char[]) chunk2,
+									bitmap2.cardinalities[j] ) );
+				}
+				i++;
+				j++;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the positions of an array chunk which are set in a bitmap
+	 * chunk.
+	 */
+	private static char[] select( char[] array, int cardinality, long[] bitmap )
+	{
+		char[] result = new char[cardinality];
+		int pos = 0;
+		for ( int k = 0; k < cardinality; k++ )
+		{
+			char low = array[k];
+			if ( ( bitmap[low >>> 6] & ( 1L << low ) ) != 0 )
+			{
+				result[pos++] = low;
+			}
+		}
+		return Arrays.copyOf( result, pos );
+	}
+
+	/**
+	 * Returns the positions of both sorted array chunks.
+	 */
+	private static char[] intersect( char[] array1, int cardinality1,
+			char[] array2, int cardinality2 )
+	{
+		char[] result = new char[Math.min( cardinality1, cardinality2 )];
+		int pos = 0;
+		int i = 0, j = 0;
+		while ( i < cardinality1 && j < cardinality2 )
+		{
+			if ( array1[i] < array2[j] )
+			{
+				i++;
+			}
+			else if ( array1[i] > array2[j] )
+			{
+				j++;
+			}
+			else
+			{
+				result[pos++] = array1[i];
+				i++;
+				j++;
+			}
+		}
+		return Arrays.copyOf( result, pos );
+	}
+
+	/**
+	 * Appends an array chunk with a key greater than all the keys. Empty
+	 * chunks are dropped.
+	 */
+	private void appendArray( int key, char[] array )
+	{
+		if ( array.length > 0 )
+		{
+			insertChunk( size, key, array, array.length );
+		}
+	}
+
+	/**
+	 * Appends a bitmap chunk with a key greater than all the keys, in the
+	 * smallest form. Empty chunks are dropped.
+	 */
+	private void appendBitmap( int key, long[] bitmap )
+	{
+		int cardinality = 0;
+		for ( int k = 0; k < BITMAP_LENGTH; k++ )
+		{
+			cardinality += Long.bitCount( bitmap[k] );
+		}
+		if ( cardinality == 0 )
+		{
+			return;
+		}
+		Object chunk = bitmap;
+		if ( cardinality <= MAX_ARRAY_SIZE )
+		{
+			char[] array = new char[cardinality];
+			int pos = 0;
+			for ( int k = 0; k < BITMAP_LENGTH; k++ )
+			{
+				long word = bitmap[k];
+				while ( word != 0 )
+				{
+					array[pos++] = (char) ( k << 6 | Long.numberOfTrailingZeros( word ) );
+					word &= word - 1;
+				}
+			}
+			chunk = array;
+		}
+		insertChunk( size, key, chunk, cardinality );
+	}
+
+	private int nextInChunk( int index, int from )
+	{
+		Object chunk = chunks[index];
+		if ( chunk instanceof long[] )
+		{
+			long[] bitmap = (long[]) chunk;
+			int word = from >>> 6;
+			long bits = bitmap[word] & ( -1L << from );
+			while ( true )
+			{
+				if ( bits != 0 )
+				{
+					return word << 6 | Long.numberOfTrailingZeros( bits );
+				}
+				if ( ++word == BITMAP_LENGTH )
+				{
+					return -1;
+				}
+				bits = bitmap[word];
+			}
+		}
+		char[] array = (char[]) chunk;
+		int pos = Arrays.binarySearch( array,
+				0,
+				cardinalities[index],
+				(char) from );
+		if ( pos < 0 )
+		{
+			pos = -pos - 1;
+		}
+		return pos < cardinalities[index] ? array[pos] : -1;
+	}
+
+	private static long[] toBitmap( char[] array, int cardinality )
+	{
+		long[] bitmap = new long[BITMAP_LENGTH];
+		for ( int i = 0; i < cardinality; i++ )
+		{
+			bitmap[array[i] >>> 6] |= 1L << array[i];
+		}
+		return bitmap;
+	}
+
+	private int findChunk( int key )
+	{
+		// Positions are mostly added in ascending order
+		if ( size > 0 && keys[size - 1] == key )
+		{
+			return size - 1;
+		}
+		return Arrays.binarySearch( keys, 0, size, key );
+	}
+
+	private int getOrCreateChunk( int key )
+	{
+		int index = findChunk( key );
+		if ( index >= 0 )
+		{
+			return index;
+		}
+		index = -index - 1;
+		insertChunk( index, key, new char[4], 0 );
+		return index;
+	}
+
+	private void insertChunk( int index, int key, Object chunk,
+			int cardinality )
+	{
+		if ( size == keys.length )
+		{
+			keys = Arrays.copyOf( keys, size * 2 );
+			chunks = Arrays.copyOf( chunks, size * 2 );
+			cardinalities = Arrays.copyOf( cardinalities, size * 2 );
+		}
+		System.arraycopy( keys, index, keys, index + 1, size - index );
+		System.arraycopy( chunks, index, chunks, index + 1, size - index );
+		System.arraycopy( cardinalities,
+				index,
+				cardinalities,
+				index + 1,
+				size - index );
+		keys[index] = key;
+		chunks[index] = chunk;
+		cardinalities[index] = cardinality;
+		size++;
+	}
+}
@@ -270,6 +270,24 @@ public abstract class DataRequestSession
 	public abstract IBaseQueryResults execute( IBasePreparedQuery query,
 			IBaseQueryResults outerResults, Scriptable scope )
 			throws AdapterException;
+
+	/**
+	 * Starts executing the statements of prepared queries without outer
+	 * results, which are then executed as usual, on at most
+	 * {@link org.eclipse.birt.data.engine.api.DataEngine#QUERY_PREFETCH_THREAD_COUNT}
+	 * threads of the application context. Nothing is prefetched if the thread
+	 * count is not set. The default implementation prefetches nothing.
+	 *
+	 * @param queries
+	 * @param context
+	 *            the script context in which the queries will be executed
+	 * @throws AdapterException
+	 */
+	public void prefetch( IBasePreparedQuery[] queries, ScriptContext context )
+			throws AdapterException
+	{
+	}
+
 	/**
 	 * Retrieves all distinct values of a data set column based on searchInfo
 	 * and return in a Collection.
@@ -83,6 +83,7 @@ import org.eclipse.birt.data.engine.olap.data.api.cube.IDatasetIterator;
 import org.eclipse.birt.data.engine.olap.data.api.cube.IDimension;
 import org.eclipse.birt.data.engine.olap.data.api.cube.IHierarchy;
 import org.eclipse.birt.data.engine.olap.data.api.cube.ILevelDefn;
+import org.eclipse.birt.data.engine.olap.data.util.ParallelTaskExecutor;
 import org.eclipse.birt.data.engine.olap.query.view.CubeQueryDefinitionUtil;
 import org.eclipse.birt.data.engine.olap.util.OlapExpressionUtil;
 import org.eclipse.birt.report.data.adapter.api.AdapterException;
@@ -672,6 +673,41 @@ public class DataRequestSessionImpl extends DataRequestSession
 		}
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * @see org.eclipse.birt.report.data.adapter.api.DataRequestSession#prefetch(org.eclipse.birt.data.engine.api.IBasePreparedQuery[], org.eclipse.birt.core.script.ScriptContext)
+	 */
+	public void prefetch( IBasePreparedQuery[] queries, ScriptContext context )
+			throws AdapterException
+	{
+		try
+		{
+			Map appContext = this.sessionContext.getAppContext( );
+			Integer threadCount = appContext == null ? null
+					: DataTypeUtil.toInteger( appContext.get( DataEngine.QUERY_PREFETCH_THREAD_COUNT ) );
+			if ( threadCount == null || threadCount.intValue( ) <= 0 )
+				return;
+
+			List<IPreparedQuery> preparedQueries = new ArrayList<IPreparedQuery>( );
+			for ( int i = 0; i < queries.length; i++ )
+			{
+				if ( queries[i] instanceof IPreparedQuery )
+					preparedQueries.add( (IPreparedQuery) queries[i] );
+			}
+			if ( preparedQueries.isEmpty( ) )
+				return;
+
+			IDataScriptEngine engine = (IDataScriptEngine) context.getScriptEngine( IDataScriptEngine.ENGINE_NAME );
+			this.dataEngine.prefetch( preparedQueries.toArray( new IPreparedQuery[preparedQueries.size( )] ),
+					engine.getJSScope( context ),
+					threadCount.intValue( ) );
+		}
+		catch ( BirtException e )
+		{
+			throw new AdapterException( ResourceConstants.EXCEPTION_ERROR, e );
+		}
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * @see org.eclipse.birt.report.data.adapter.api.DataRequestSession#prepare(org.eclipse.birt.data.engine.api.IDataQueryDefinition)
@@ -764,11 +800,17 @@ public class DataRequestSessionImpl extends DataRequestSession
 		CubeMeasureUtil.validateDerivedMeasures( cubeHandle );
 		
 		int mode = this.sessionContext.getDataEngineContext( ).getMode( );
+		ParallelTaskExecutor taskExecutor = null;
+		CubeMaterializer cm = null;
 		try
 		{
 			if ( appContext == null )
 				appContext = sessionContext.getAppContext( );
 
+			// the threads of the executor are shared by all the steps of the
+			// build
+			taskExecutor = new ParallelTaskExecutor( getCubeBuildThreadCount( appContext ) );
+
 			String memoryUsage =  (String)( appContext.get( DataEngine.MEMORY_USAGE ) );
 			MemoryUsageSetting.setMemoryUsage( memoryUsage );
 
@@ -783,14 +825,16 @@ public class DataRequestSessionImpl extends DataRequestSession
 						size = value.intValue( );
 					}
 				}
-				CubeMaterializer cm = getCubeMaterializer( size );
+				cm = getCubeMaterializer( size );
+				cm.setTaskExecutor( taskExecutor );
 				createCube( (TabularCubeHandle) cubeHandle,
 						cm,
 						appContext );
 			}
 			else if ( mode == DataEngineContext.MODE_GENERATION )
 			{
-				CubeMaterializer cm = getCubeMaterializer( 0 );
+				cm = getCubeMaterializer( 0 );
+				cm.setTaskExecutor( taskExecutor );
 				createCube(  (TabularCubeHandle)cubeHandle, cm, appContext );
 				cm.saveCubeToReportDocument( cubeHandle.getQualifiedName( ),
 						this.sessionContext.getDocumentWriter( ),
@@ -801,6 +845,26 @@ public class DataRequestSessionImpl extends DataRequestSession
 		{
 			throw new DataException( ResourceConstants.EXCEPTION_ERROR, e);
 		}
+		finally
+		{
+			if ( cm != null )
+				cm.setTaskExecutor( null );
+			if ( taskExecutor != null )
+				taskExecutor.shutdown( );
+		}
+	}
+
+	/**
+	 *
+	 * @param appContext
+	 * @return the maximum number of threads used to build a cube
+	 * @throws BirtException
+	 */
+	private static int getCubeBuildThreadCount( Map appContext )
+			throws BirtException
+	{
+		Integer value = DataTypeUtil.toInteger( appContext.get( DataEngine.CUBE_BUILD_THREAD_COUNT ) );
+		return value == null ? 0 : value.intValue( );
 	}
 
 	/**
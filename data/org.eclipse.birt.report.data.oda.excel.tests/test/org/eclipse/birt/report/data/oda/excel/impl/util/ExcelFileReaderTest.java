@@ -0,0 +1,276 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.report.data.oda.excel.impl.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.eclipse.birt.report.data.oda.excel.ExcelODAConstants;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test case for the xlsx rows of ExcelFileReader, which are read while the
+ * sheets are parsed by XlsxRowReader.
+ */
+public class ExcelFileReaderTest {
+
+	private static final String PARSER_THREAD_NAME = "Xlsx Row Reader"; //$NON-NLS-1$
+
+	@Test
+	public void testStreamedRows() throws Exception {
+		ExcelFileReader reader = newReader(0, "A1:B3", new String[][] { //$NON-NLS-1$
+				{ "Name", "Amount" }, { "a", "10" }, { "b", "20.5" } }); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+		try {
+			assertEquals(Arrays.asList("Name", "Amount"), reader.readLine()); //$NON-NLS-1$ //$NON-NLS-2$
+
+			List<Object> row = reader.readValues();
+			assertEquals("a", row.get(0)); //$NON-NLS-1$
+			// the numeric cells keep their value and their text
+			assertTrue(row.get(1) instanceof Number);
+			assertEquals(10, ((Number) row.get(1)).intValue());
+			assertEquals("10", row.get(1).toString()); //$NON-NLS-1$
+
+			assertEquals(Arrays.asList("b", "20.5"), reader.readLine()); //$NON-NLS-1$ //$NON-NLS-2$
+			assertNull(reader.readValues());
+		} finally {
+			reader.close();
+		}
+	}
+
+	@Test
+	public void testColumnsWithoutDimension() throws Exception {
+		// the third column is only found in the last row
+		ExcelFileReader reader = newReader(0, null, new String[][] {
+				{ "Name", "Amount" }, { "a", "10" }, { "b", "20", "x" } }); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$
+		try {
+			assertEquals(Arrays.asList("Name", "Amount", "column_2"), //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+					reader.readLine());
+			assertEquals(Arrays.asList("a", "10", //$NON-NLS-1$ //$NON-NLS-2$
+					ExcelODAConstants.EMPTY_STRING), reader.readLine());
+			assertEquals(Arrays.asList("b", "20", "x"), reader.readLine()); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			assertNull(reader.readLine());
+		} finally {
+			reader.close();
+		}
+	}
+
+	@Test
+	public void testRowsOfWiderSheet() throws Exception {
+		byte[] file = createXlsxFile(new String[] { "A1:A2", null }, //$NON-NLS-1$
+				new String[][][] { { { "Name" }, { "a" } }, //$NON-NLS-1$ //$NON-NLS-2$
+						{ { "b", "20" } } }); //$NON-NLS-1$ //$NON-NLS-2$
+		ExcelFileReader reader = new ExcelFileReader(new ByteArrayInputStream(
+				file), ExcelODAConstants.XLSX_FORMAT, Arrays.asList(
+				"Sheet1", "Sheet2"), 0); //$NON-NLS-1$ //$NON-NLS-2$
+		try {
+			// the rows of the first sheet are as wide as the second sheet
+			assertEquals(Arrays.asList("Name", "column_1"), reader.readLine()); //$NON-NLS-1$ //$NON-NLS-2$
+			assertEquals(Arrays.asList("a", ExcelODAConstants.EMPTY_STRING), //$NON-NLS-1$
+					reader.readLine());
+			assertEquals(Arrays.asList("b", "20"), reader.readLine()); //$NON-NLS-1$ //$NON-NLS-2$
+			assertNull(reader.readLine());
+		} finally {
+			reader.close();
+		}
+	}
+
+	@Test
+	public void testMaxRows() throws Exception {
+		String[][] rows = { { "Name" }, { "a" }, { "b" }, { "c" } }; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+		ExcelFileReader reader = newReader(0, "A1:A4", rows); //$NON-NLS-1$
+		try {
+			// the rows are counted before they are read
+			assertEquals(4, reader.getMaxRows());
+			assertEquals(Arrays.asList("Name"), reader.readLine()); //$NON-NLS-1$
+			assertEquals(4, reader.getMaxRows());
+		} finally {
+			reader.close();
+		}
+
+		// the rows after the row limit are not read
+		reader = newReader(2, null, rows);
+		try {
+			assertEquals(3, reader.getMaxRows());
+			int count = 0;
+			while (reader.readLine() != null)
+				count++;
+			assertEquals(3, count);
+		} finally {
+			reader.close();
+		}
+	}
+
+	@Test
+	public void testResetParsesAgain() throws Exception {
+		ExcelFileReader reader = newReader(0, "A1:A3", new String[][] { //$NON-NLS-1$
+				{ "Name" }, { "a" }, { "b" } }); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		try {
+			assertEquals(Arrays.asList("Name"), reader.readLine()); //$NON-NLS-1$
+			assertEquals(Arrays.asList("a"), reader.readLine()); //$NON-NLS-1$
+
+			// the rows are read again from the first row
+			reader.setCurrentRowIndex(0);
+			assertEquals(Arrays.asList("Name"), reader.readLine()); //$NON-NLS-1$
+
+			// the rows before the row index are skipped
+			reader.setCurrentRowIndex(2);
+			assertEquals(Arrays.asList("b"), reader.readLine()); //$NON-NLS-1$
+			assertNull(reader.readLine());
+
+			// the rows can be read again once they have all been read
+			reader.setCurrentRowIndex(0);
+			assertEquals(Arrays.asList("Name"), reader.readLine()); //$NON-NLS-1$
+		} finally {
+			reader.close();
+		}
+	}
+
+	@Test
+	public void testCloseStopsParserThread() throws Exception {
+		// the parser thread waits for the queue of rows, which is full
+		String[][] rows = new String[XlsxRowReader.QUEUE_CAPACITY * 3][];
+		for (int i = 0; i < rows.length; i++) {
+			rows[i] = new String[] { "row" + i }; //$NON-NLS-1$
+		}
+		ExcelFileReader reader = newReader(0, null, rows);
+		assertEquals(Arrays.asList("row0"), reader.readLine()); //$NON-NLS-1$
+		List<Thread> threads = getParserThreads();
+		assertEquals(1, threads.size());
+		assertTrue(threads.get(0).isDaemon());
+
+		reader.close();
+		assertFalse(threads.get(0).isAlive());
+		assertTrue(getParserThreads().isEmpty());
+	}
+
+	private static List<Thread> getParserThreads() {
+		List<Thread> threads = new ArrayList<Thread>();
+		for (Thread thread : Thread.getAllStackTraces().keySet()) {
+			if (PARSER_THREAD_NAME.equals(thread.getName()) && thread.isAlive())
+				threads.add(thread);
+		}
+		return threads;
+	}
+
+	private static ExcelFileReader newReader(int rowsToRead, String dimension,
+			String[][] rows) throws IOException {
+		byte[] file = createXlsxFile(new String[] { dimension },
+				new String[][][] { rows });
+		return new ExcelFileReader(new ByteArrayInputStream(file),
+				ExcelODAConstants.XLSX_FORMAT, Arrays.asList("Sheet1"), //$NON-NLS-1$
+				rowsToRead);
+	}
+
+	/**
+	 * Creates a xlsx file whose sheets are named Sheet1, Sheet2... The values
+	 * which are numbers are written as numeric cells, the others as inline
+	 * strings.
+	 *
+	 * @param dimensions
+	 *            the dimension of each sheet, or null if the sheet does not
+	 *            declare it
+	 * @param sheets
+	 *            the rows of each sheet
+	 */
+	private static byte[] createXlsxFile(String[] dimensions,
+			String[][][] sheets) throws IOException {
+		StringBuilder contentTypes = new StringBuilder();
+		StringBuilder workbook = new StringBuilder();
+		StringBuilder workbookRels = new StringBuilder();
+		contentTypes.append("<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">") //$NON-NLS-1$
+				.append("<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>") //$NON-NLS-1$
+				.append("<Default Extension=\"xml\" ContentType=\"application/xml\"/>") //$NON-NLS-1$
+				.append("<Override PartName=\"/xl/workbook.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>") //$NON-NLS-1$
+				.append("<Override PartName=\"/xl/sharedStrings.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sharedStrings+xml\"/>"); //$NON-NLS-1$
+		workbook.append("<workbook xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\"") //$NON-NLS-1$
+				.append(" xmlns:r=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships\"><sheets>"); //$NON-NLS-1$
+		workbookRels.append("<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">") //$NON-NLS-1$
+				.append("<Relationship Id=\"rIdSst\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/sharedStrings\" Target=\"sharedStrings.xml\"/>"); //$NON-NLS-1$
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ZipOutputStream zip = new ZipOutputStream(out);
+		for (int i = 0; i < sheets.length; i++) {
+			int n = i + 1;
+			contentTypes.append("<Override PartName=\"/xl/worksheets/sheet" + n //$NON-NLS-1$
+					+ ".xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>"); //$NON-NLS-1$
+			workbook.append("<sheet name=\"Sheet" + n + "\" sheetId=\"" + n //$NON-NLS-1$ //$NON-NLS-2$
+					+ "\" r:id=\"rId" + n + "\"/>"); //$NON-NLS-1$ //$NON-NLS-2$
+			workbookRels.append("<Relationship Id=\"rId" + n //$NON-NLS-1$
+					+ "\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/worksheet\" Target=\"worksheets/sheet" //$NON-NLS-1$
+					+ n + ".xml\"/>"); //$NON-NLS-1$
+			addEntry(zip, "xl/worksheets/sheet" + n + ".xml", //$NON-NLS-1$ //$NON-NLS-2$
+					createSheet(dimensions[i], sheets[i]));
+		}
+		contentTypes.append("</Types>"); //$NON-NLS-1$
+		workbook.append("</sheets></workbook>"); //$NON-NLS-1$
+		workbookRels.append("</Relationships>"); //$NON-NLS-1$
+
+		addEntry(zip, "[Content_Types].xml", contentTypes.toString()); //$NON-NLS-1$
+		addEntry(zip, "_rels/.rels", //$NON-NLS-1$
+				"<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">" //$NON-NLS-1$
+						+ "<Relationship Id=\"rId1\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/officeDocument\" Target=\"xl/workbook.xml\"/>" //$NON-NLS-1$
+						+ "</Relationships>"); //$NON-NLS-1$
+		addEntry(zip, "xl/workbook.xml", workbook.toString()); //$NON-NLS-1$
+		addEntry(zip, "xl/_rels/workbook.xml.rels", workbookRels.toString()); //$NON-NLS-1$
+		addEntry(zip, "xl/sharedStrings.xml", //$NON-NLS-1$
+				"<sst xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\" count=\"0\" uniqueCount=\"0\"/>"); //$NON-NLS-1$
+		zip.close();
+		return out.toByteArray();
+	}
+
+	private static String createSheet(String dimension, String[][] rows) {
+		StringBuilder sheet = new StringBuilder();
+		sheet.append("<worksheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\">"); //$NON-NLS-1$
+		if (dimension != null)
+			sheet.append("<dimension ref=\"" + dimension + "\"/>"); //$NON-NLS-1$ //$NON-NLS-2$
+		sheet.append("<sheetData>"); //$NON-NLS-1$
+		for (int i = 0; i < rows.length; i++) {
+			sheet.append("<row r=\"" + (i + 1) + "\">"); //$NON-NLS-1$ //$NON-NLS-2$
+			for (int j = 0; j < rows[i].length; j++) {
+				String ref = String.valueOf((char) ('A' + j)) + (i + 1);
+				if (isNumber(rows[i][j]))
+					sheet.append("<c r=\"" + ref + "\"><v>" + rows[i][j] //$NON-NLS-1$ //$NON-NLS-2$
+							+ "</v></c>"); //$NON-NLS-1$
+				else
+					sheet.append("<c r=\"" + ref + "\" t=\"str\"><v>" //$NON-NLS-1$ //$NON-NLS-2$
+							+ rows[i][j] + "</v></c>"); //$NON-NLS-1$
+			}
+			sheet.append("</row>"); //$NON-NLS-1$
+		}
+		sheet.append("</sheetData></worksheet>"); //$NON-NLS-1$
+		return sheet.toString();
+	}
+
+	private static boolean isNumber(String value) {
+		try {
+			Double.parseDouble(value);
+			return true;
+		} catch (NumberFormatException e) {
+			return false;
+		}
+	}
+
+	private static void addEntry(ZipOutputStream zip, String name,
+			String content) throws IOException {
+		zip.putNextEntry(new ZipEntry(name));
+		zip.write(content.getBytes("UTF-8")); //$NON-NLS-1$
+		zip.closeEntry();
+	}
+}
@@ -39,7 +39,7 @@ public class ResultSet implements IResultSet {
 
 	public static final int DEFAULT_MAX_ROWS = 1000;
 	private static final int CURSOR_INITIAL_VALUE = -1;
-	private String[][] sourceData = null;
+	private Object[][] sourceData = null;
 	private ResultSetMetaData resultSetMetaData = null;
 	private int maxRows = 0;
 	private int cursor = CURSOR_INITIAL_VALUE;
@@ -143,12 +143,25 @@ public class ResultSet implements IResultSet {
 	 * @see org.eclipse.datatools.connectivity.oda.IResultSet#getString(int)
 	 */
 	public String getString(int index) throws OdaException {
+		return toString(getValue(index));
+	}
+
+	/**
+	 * Returns the value of a column, which is a <code>Number</code> or a
+	 * <code>java.util.Date</code> if the value of a xlsx cell is typed, or a
+	 * string.
+	 */
+	private Object getValue(int index) throws OdaException {
 		validateCursorState();
-		String result = sourceData[cursor][index - 1];
+		Object result = sourceData[cursor][index - 1];
 		this.wasNull = result == null ? true : false;
 		return result;
 	}
 
+	private static String toString(Object value) {
+		return value == null ? null : value.toString();
+	}
+
 	/*
 	 * @see
 	 * org.eclipse.datatools.connectivity.oda.IResultSet#getString(java.lang
@@ -164,7 +177,10 @@ public class ResultSet implements IResultSet {
 	 * @see org.eclipse.datatools.connectivity.oda.IResultSet#getInt(int)
 	 */
 	public int getInt(int index) throws OdaException {
-		return stringToInt(getString(index));
+		Object value = getValue(index);
+		if (value instanceof Number)
+			return ((Number) value).intValue();
+		return stringToInt(toString(value));
 	}
 
 	/*
@@ -173,14 +189,17 @@ public class ResultSet implements IResultSet {
 	 * )
 	 */
 	public int getInt(String columnName) throws OdaException {
-		return stringToInt(getString(columnName));
+		return getInt(findColumn(columnName));
 	}
 
 	/*
 	 * @see org.eclipse.datatools.connectivity.oda.IResultSet#getDouble(int)
 	 */
 	public double getDouble(int index) throws OdaException {
-		return stringToDouble(getString(index));
+		Object value = getValue(index);
+		if (value instanceof Number)
+			return ((Number) value).doubleValue();
+		return stringToDouble(toString(value));
 	}
 
 	/*
@@ -189,7 +208,7 @@ public class ResultSet implements IResultSet {
 	 * .String)
 	 */
 	public double getDouble(String columnName) throws OdaException {
-		return stringToDouble(getString(columnName));
+		return getDouble(findColumn(columnName));
 	}
 
 	/*
@@ -212,7 +231,10 @@ public class ResultSet implements IResultSet {
 	 * @see org.eclipse.datatools.connectivity.oda.IResultSet#getDate(int)
 	 */
 	public Date getDate(int index) throws OdaException {
-		return stringToDate(getString(index));
+		Object value = getValue(index);
+		if (value instanceof java.util.Date)
+			return DateUtil.toSqlDate(value);
+		return stringToDate(toString(value));
 	}
 
 	/*
@@ -221,7 +243,7 @@ public class ResultSet implements IResultSet {
 	 * )
 	 */
 	public Date getDate(String columnName) throws OdaException {
-		return stringToDate(getString(columnName));
+		return getDate(findColumn(columnName));
 	}
 
 	/*
@@ -230,7 +252,10 @@ public class ResultSet implements IResultSet {
 	public Time getTime( int index ) throws OdaException
 	{
 		try{
-			return stringToTime( getString( index ) );
+			Object value = getValue( index );
+			if ( value instanceof java.util.Date )
+				return DateUtil.toSqlTime( value );
+			return stringToTime( toString( value ) );
 		}catch (Exception e){
 			return null;
 		}
@@ -242,7 +267,7 @@ public class ResultSet implements IResultSet {
 	public Time getTime( String columnName ) throws OdaException
 	{
 		try{
-			return stringToTime( getString( columnName ) );
+			return getTime( findColumn( columnName ) );
 		}catch (Exception e){
 			return null;
 		}
@@ -254,7 +279,10 @@ public class ResultSet implements IResultSet {
 	public Timestamp getTimestamp( int index ) throws OdaException
 	{
 		try{
-			return stringToTimestamp( getString( index ) );
+			Object value = getValue( index );
+			if ( value instanceof java.util.Date )
+				return new Timestamp( ( (java.util.Date) value ).getTime( ) );
+			return stringToTimestamp( toString( value ) );
 		}catch (Exception e){
 			return null;
 		}
@@ -266,7 +294,7 @@ public class ResultSet implements IResultSet {
 	public Timestamp getTimestamp( String columnName ) throws OdaException
 	{
 		try{
-			return stringToTimestamp( getString( columnName ) );
+			return getTimestamp( findColumn( columnName ) );
 		}catch (Exception e){
 			return null;
 		}
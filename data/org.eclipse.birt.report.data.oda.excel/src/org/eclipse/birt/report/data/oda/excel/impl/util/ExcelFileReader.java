@@ -55,15 +55,22 @@ public class ExcelFileReader {
 	private boolean isInitialised;
 
 	private int maxRowsInAllSheet;
+	private boolean isXlsxRowsCounted;
 	private int maxRowsInThisSheet;
 	private int currentRowIndex = 0;
 	private int maxColumnIndex = 0;
 	private int xlsxRowsToRead;
-	private XlsxRowCallBack callback;
 	private XlsxFileReader xlsxread;
 	Map<String, String> xlsxSheetRidNameMap;
+	private List<String> xlsxSheetRids;
+	private XlsxRowReader xlsxRowReader;
     private SimpleDateFormat sdf;  
 	public void setCurrentRowIndex(int currentRowIndex) {
+		if (xlsxRowReader != null && currentRowIndex != this.currentRowIndex) {
+			// the xlsx rows are read again from the first row
+			xlsxRowReader.close();
+			xlsxRowReader = null;
+		}
 		this.currentRowIndex = currentRowIndex;
 	}
 
@@ -100,14 +107,39 @@ public class ExcelFileReader {
 	}
 	
 	public List<String> readLine() throws IOException, OdaException {
+		List<Object> values = readValues();
+		if (values == null)
+			return null;
+
+		List<String> rowData = new ArrayList<String>(values.size());
+		for (Object value : values) {
+			rowData.add(value == null ? null : value.toString());
+		}
+		return rowData;
+	}
+
+	/**
+	 * Reads the values of the next row. The values of the numeric and date
+	 * cells of a xlsx file are a <code>Number</code> and a
+	 * <code>java.util.Date</code>, whose <code>toString()</code> is the text
+	 * returned by <code>readLine()</code>; the other values are strings.
+	 * 
+	 * @return the values of the row, or null if there is no more row
+	 * @throws IOException
+	 * @throws OdaException
+	 */
+	public List<Object> readValues() throws IOException, OdaException {
 		if (!isInitialised)
 			initialise();
 
+		if (isXlsxFile(fileExtension))
+			return readXlsxValues();
+
 		if (currentRowIndex >= maxRowsInThisSheet) {
 			if (!initialiseNextSheet())
 				return null;
 		}
-		List<String> rowData = new ArrayList<String>();
+		List<Object> rowData = new ArrayList<Object>();
 		if (isXlsFile(fileExtension)) {
 			Row row = sheet.getRow(currentRowIndex);
 			if (row != null) {
@@ -130,8 +162,6 @@ public class ExcelFileReader {
 			} else {
 				return null;
 			}
-		} else if (isXlsxFile(fileExtension)){
-			rowData = callback.getRow(currentRowIndex);
 		}
 
 		currentRowIndex++;
@@ -139,7 +169,34 @@ public class ExcelFileReader {
 
 	}
 
+	private List<Object> readXlsxValues() throws OdaException {
+		if (xlsxRowReader == null) {
+			xlsxRowReader = new XlsxRowReader(xlsxread, xlsxSheetRids,
+					this.xlsxRowsToRead);
+			xlsxRowReader.start();
+			// skip the rows read before the reader was closed
+			for (int i = 0; i < currentRowIndex; i++) {
+				if (xlsxRowReader.nextRow() == null)
+					return null;
+			}
+		}
+		List<Object> rowData = xlsxRowReader.nextRow();
+		if (rowData != null)
+			currentRowIndex++;
+		return rowData;
+	}
+
+	/**
+	 * Closes the input stream and stops reading the xlsx rows. The rows can
+	 * be read again after the row index is reset.
+	 * 
+	 * @throws IOException
+	 */
 	public void close() throws IOException {
+		if (xlsxRowReader != null) {
+			xlsxRowReader.close();
+			xlsxRowReader = null;
+		}
 		this.fis.close();
 	}
 
@@ -147,18 +204,19 @@ public class ExcelFileReader {
 		try {
 			if (isXlsxFile(fileExtension)) {
 				xlsxread = new XlsxFileReader(fis);
-				callback = new XlsxRowCallBack();
+				// the package has been read from the stream
+				fis.close();
 				xlsxSheetRidNameMap = xlsxread.getSheetNames();
 
+				// the sheets are parsed while the rows are read
+				xlsxSheetRids = new ArrayList<String>();
 				for (String sheetName : workSheetList) {
 					String rid = xlsxSheetRidNameMap.get(sheetName);
 					if (rid == null)
 						throw new OdaException(
 								Messages.getString("invalid_sheet_name")); //$NON-NLS-1$
 
-					xlsxread.processSheet(rid, callback, this.xlsxRowsToRead);
-					maxRowsInAllSheet = callback.getMaxRowsInSheet();
-					maxRowsInThisSheet = callback.getMaxRowsInSheet();
+					xlsxSheetRids.add(rid);
 				}
 
 			} else if ( isXlsFile( fileExtension ) ){
@@ -186,12 +244,7 @@ public class ExcelFileReader {
 		} catch (OpenXML4JException e) {
 			throw new OdaException(e);
 		} catch (SAXException e) {
-			if( e.getMessage().equalsIgnoreCase( XlsxFileReader.ROW_LIMIT_REACHED_EX_MSG ) ){
-				maxRowsInThisSheet = callback.getMaxRowsInSheet();
-				isInitialised = true;
-			}else{
-				throw new OdaException(e);
-			}
+			throw new OdaException(e);
 		}
 	}
 
@@ -313,12 +366,44 @@ public class ExcelFileReader {
 		}
 	}
 
+	/**
+	 * Returns the number of rows of the sheets. The rows of a xlsx file are
+	 * counted by a scan of the sheets the first time, up to the number of rows
+	 * to read.
+	 * 
+	 * @return
+	 * @throws IOException
+	 * @throws OdaException
+	 */
 	public int getMaxRows() throws IOException, OdaException {
 		if (!isInitialised)
 			initialise();
+		if (isXlsxFile(fileExtension) && !isXlsxRowsCounted) {
+			maxRowsInAllSheet = countXlsxRows();
+			isXlsxRowsCounted = true;
+		}
 		return maxRowsInAllSheet;
 	}
 
+	private int countXlsxRows() throws IOException, OdaException {
+		int count = 0;
+		try {
+			for (String rid : xlsxSheetRids) {
+				int rows = xlsxread.getRowCount(rid);
+				if (xlsxRowsToRead > 0 && rows > xlsxRowsToRead) {
+					// the parse stops at the row after the limit
+					return count + xlsxRowsToRead + 1;
+				}
+				count += rows;
+			}
+		} catch (OpenXML4JException e) {
+			throw new OdaException(e);
+		} catch (SAXException e) {
+			throw new OdaException(e);
+		}
+		return count;
+	}
+
 
 	public static List<String> getSheetNamesInExcelFile(Object file) throws MalformedURLException, IOException {
 		String extension = getExtensionName (file);
@@ -48,10 +48,13 @@ public class ExcelFileSource {
 	private int fetchCounter = 0;
 	// Max number of rows fetched each time from data source
 	public static final int MAX_ROWS_PER_FETCH = 65535;
+	// Max number of rows fetched each time from a xlsx file, whose rows are
+	// parsed while they are fetched
+	private static final int MAX_XLSX_ROWS_PER_FETCH = XlsxRowReader.QUEUE_CAPACITY;
 	private int[] selectColumIndexes;
 	private String[] originalColumnNames;
 	private boolean isFirstTimeToReadSourceData = true;
-	private List<String> nextDataLine;
+	private List<Object> nextDataLine;
 
 	// use Object type in case ResourceIdentifiers instance was loaded by a different classloader
     private Object resourceIdentifiers;
@@ -275,23 +278,21 @@ public class ExcelFileSource {
 	}
 
 	/**
+	 * Fetches the next rows. The values of the numeric and date cells of a
+	 * xlsx file are a <code>Number</code> and a <code>java.util.Date</code>;
+	 * the other values are strings.
 	 *
 	 * @return
 	 * @throws OdaException
 	 */
-	public String[][] getSourceData() throws OdaException {
+	public Object[][] getSourceData() throws OdaException {
 		try {
 			initialiseReader();
-			List<String[]> v = fetchQueriedDataFromFileToList();
+			List<Object[]> v = fetchQueriedDataFromFileToList();
 			return copyDataFromListToTwoDimensionArray(v);
 		} catch (IOException e) {
+			closeFileSource();
 			throw new OdaException(e);
-		} finally {
-			try {
-				excelFileReader.close();
-			} catch (IOException e) {
-				//
-			}
 		}
 	}
 
@@ -300,8 +301,8 @@ public class ExcelFileSource {
 	 * @return
 	 * @throws OdaException
 	 */
-	private List<String[]> fetchQueriedDataFromFileToList() throws OdaException {
-		List<String[]> result = new ArrayList<String[]>();
+	private List<Object[]> fetchQueriedDataFromFileToList() throws OdaException {
+		List<Object[]> result = new ArrayList<Object[]>();
 		try {
 			if (isFirstTimeToReadSourceData) {
 				excelFileReader.setCurrentRowIndex(0);
@@ -325,13 +326,13 @@ public class ExcelFileSource {
 				}
 
 				if (!this.hasColumnNames) {
-					while (isEmptyRow(nextDataLine = excelFileReader.readLine())) {
+					while (isEmptyRow(nextDataLine = excelFileReader.readValues())) {
 						continue;
 					}
 					this.originalColumnNames = createTempColumnNames(nextDataLine);
 					initNameIndexMap();
 				} else {
-					nextDataLine = excelFileReader.readLine();
+					nextDataLine = excelFileReader.readValues();
 				}
 				excelFileReader.setMaxColumnIndex(originalColumnNames.length);
 				isFirstTimeToReadSourceData = false;
@@ -340,7 +341,9 @@ public class ExcelFileSource {
 			// temporary variable which is used to store the data of a row
 			// fetched from a the file
 
-			int counterLimitPerFetch = fetchCounter + MAX_ROWS_PER_FETCH;
+			int counterLimitPerFetch = fetchCounter
+					+ (ExcelODAConstants.XLSX_FORMAT.equals(fileExtension) ? MAX_XLSX_ROWS_PER_FETCH
+							: MAX_ROWS_PER_FETCH);
 
 			while ((this.maxRowsToRead <= 0 ? true
 					: this.fetchCounter < this.maxRowsToRead)
@@ -350,7 +353,7 @@ public class ExcelFileSource {
 					fetchCounter++;
 					result.add(fetchQueriedDataFromRow(nextDataLine));
 				}
-				nextDataLine = excelFileReader.readLine();
+				nextDataLine = excelFileReader.readValues();
 			}
 
 			return result;
@@ -364,18 +367,20 @@ public class ExcelFileSource {
 	 * is trimmed before being copied into array.
 	 *
 	 * @param v
-	 * @return a String two dimension array with each horizontal array contains
+	 * @return a two dimension array with each horizontal array contains
 	 *         a row
 	 * @throws OdaException
 	 */
-	private String[][] copyDataFromListToTwoDimensionArray(List<String[]> v)
+	private Object[][] copyDataFromListToTwoDimensionArray(List<Object[]> v)
 			throws OdaException {
-		String[][] rowSet = new String[v.size()][this.rsmd.getColumnCount()];
+		Object[][] rowSet = new Object[v.size()][this.rsmd.getColumnCount()];
 		for (int i = 0; i < v.size(); i++) {
-			String[] temp = (String[]) v.get(i);
+			Object[] temp = v.get(i);
 			for (int j = 0; j < temp.length; j++) {
-				if (temp[j] != null)
-					rowSet[i][j] = temp[j].trim();
+				if (temp[j] instanceof String)
+					rowSet[i][j] = ((String) temp[j]).trim();
+				else if (temp[j] != null)
+					rowSet[i][j] = temp[j];
 				else
 					throw new OdaException(
 							Messages.getString("data_read_error")); //$NON-NLS-1$
@@ -406,7 +411,7 @@ public class ExcelFileSource {
 	 * @return
 	 * @throws OdaException
 	 */
-	private String[] createTempColumnNames(List<String> aRow)
+	private String[] createTempColumnNames(List<?> aRow)
 			throws OdaException {
 		String[] tempColumnNames = new String[aRow.size()];
 
@@ -431,9 +436,9 @@ public class ExcelFileSource {
 	 *         row. The "specified column names" are obtained from meta data
 	 * @throws OdaException
 	 */
-	private String[] fetchQueriedDataFromRow(List<String> aRow)
+	private Object[] fetchQueriedDataFromRow(List<Object> aRow)
 			throws OdaException {
-		String[] sArray = new String[rsmd.getColumnCount()];
+		Object[] sArray = new Object[rsmd.getColumnCount()];
 		for (int i = 0; i < sArray.length; i++) {
 			int location = selectColumIndexes[i];
 			if (location != -1) {
@@ -441,7 +446,7 @@ public class ExcelFileSource {
 					throw new OdaException(
 							Messages.getString("query_INVALID_EXCEL_FILE")); //$NON-NLS-1$
 				} else {
-					sArray[i] = aRow.get(location).toString();
+					sArray[i] = aRow.get(location);
 				}
 			}
 		}
@@ -540,7 +545,7 @@ public class ExcelFileSource {
 	 * @return
 	 * @throws OdaException
 	 */
-	public boolean isEmptyRow(List<String> line) throws OdaException {
+	public boolean isEmptyRow(List<?> line) throws OdaException {
 		if (line == null)
 			throw new OdaException(
 					Messages.getString("query_INVALID_EXCEL_FILE")); //$NON-NLS-1$
@@ -12,6 +12,11 @@ package org.eclipse.birt.report.data.oda.excel.impl.util;
 
 import java.util.List;
 
+import org.xml.sax.SAXException;
+
 public interface RowCallBack {
-	void handleRow(List<Object> values);
+	void handleRow(List<Object> values) throws SAXException;
+
+	// Called when a cell is found beyond the columns of the rows handled before.
+	void columnExpansion(int newColumnCount);
 }
@@ -19,17 +19,19 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
 import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
 import org.apache.poi.openxml4j.opc.OPCPackage;
 import org.apache.poi.ss.usermodel.BuiltinFormats;
 import org.apache.poi.xssf.eventusermodel.XSSFReader;
-import org.apache.poi.xssf.model.SharedStringsTable;
 import org.apache.poi.xssf.model.StylesTable;
 import org.apache.poi.xssf.usermodel.XSSFCellStyle;
-import org.apache.poi.xssf.usermodel.XSSFRichTextString;
 import org.eclipse.birt.report.data.oda.excel.ExcelODAConstants;
 import org.xml.sax.Attributes;
 import org.xml.sax.ContentHandler;
@@ -44,8 +46,21 @@ import com.ibm.icu.text.SimpleDateFormat;
 public class XlsxFileReader {
     final static String PARSER_CLASS_NAME = "org.apache.xerces.parsers.SAXParser"; //$NON-NLS-1$
     final static String ROW_LIMIT_REACHED_EX_MSG = "Row Limit Reached"; //$NON-NLS-1$
+    private final static String SCAN_COMPLETED_EX_MSG = "Scan Completed"; //$NON-NLS-1$
+
+    private static final Pattern ESCAPED_CHAR_PATTERN = Pattern.compile( "_x([0-9A-Fa-f]{4})_" ); //$NON-NLS-1$
+
+    private static final ThreadLocal<SimpleDateFormat> ISO_DATE_FORMAT = new ThreadLocal<SimpleDateFormat>( ) {
+
+		protected SimpleDateFormat initialValue( )
+		{
+			return new SimpleDateFormat( "yyyy-MM-dd'T'HH:mm:ssZ" );//ISO date format //$NON-NLS-1$
+		}
+	};
 
     final private XSSFReader reader;
+    // the shared strings of the workbook, which are read once
+    private String[] sharedStrings;
 
 	enum cDataType {
 		BOOL,
@@ -81,10 +96,39 @@ public class XlsxFileReader {
 
 	public void processSheet(String rid, XlsxRowCallBack callback, int xlsxRowsToRead)
 			throws InvalidFormatException, IOException, SAXException {
-		SharedStringsTable sst = reader.getSharedStringsTable();
+		processSheet(rid, callback, xlsxRowsToRead,
+				callback.getMaxRowsInSheet() > 0, 1);
+	}
+
+	/**
+	 * Parses a sheet and hands its rows to the call back as they are read. The
+	 * values of the numeric and date cells are a <code>Number</code> and a
+	 * <code>Date</code> whose <code>toString()</code> is the text of the cell.
+	 * 
+	 * @param rid
+	 *            the relationship id of the sheet
+	 * @param callback
+	 * @param xlsxRowsToRead
+	 *            the number of rows to read, or 0 to read all the rows
+	 * @param hasPreviousRows
+	 *            whether the rows of another sheet were handed to the call
+	 *            back, so that the first row of this sheet is not the first
+	 *            row read
+	 * @param columnCount
+	 *            the number of columns of the rows, which is expanded when a
+	 *            cell is found beyond it
+	 * @throws InvalidFormatException
+	 * @throws IOException
+	 * @throws SAXException
+	 */
+	public void processSheet(String rid, RowCallBack callback,
+			int xlsxRowsToRead, boolean hasPreviousRows, int columnCount)
+			throws InvalidFormatException, IOException, SAXException {
+		String[] sst = getSharedStrings();
 		StylesTable st = reader.getStylesTable();
 
-		XMLReader parser = fetchSheetParser(st, sst, callback, xlsxRowsToRead);
+		XMLReader parser = fetchSheetParser(st, sst, callback, xlsxRowsToRead,
+				hasPreviousRows, columnCount);
 		BufferedInputStream sheet = new BufferedInputStream(reader.getSheet(rid));
 		try {
 			InputSource sheetSource = new InputSource(sheet);
@@ -95,6 +139,106 @@ public class XlsxFileReader {
 		}
 	}
 
+	/**
+	 * Returns the number of columns of a sheet, without reading its cells when
+	 * the sheet declares its dimension.
+	 * 
+	 * @param rid
+	 *            the relationship id of the sheet
+	 * @return
+	 * @throws InvalidFormatException
+	 * @throws IOException
+	 * @throws SAXException
+	 */
+	public int getColumnCount(String rid) throws InvalidFormatException,
+			IOException, SAXException {
+		return scanSheet(rid, false).columnCount;
+	}
+
+	/**
+	 * Returns the number of rows of a sheet, without reading the values of its
+	 * cells.
+	 * 
+	 * @param rid
+	 *            the relationship id of the sheet
+	 * @return
+	 * @throws InvalidFormatException
+	 * @throws IOException
+	 * @throws SAXException
+	 */
+	public int getRowCount(String rid) throws InvalidFormatException,
+			IOException, SAXException {
+		return scanSheet(rid, true).rowCount;
+	}
+
+	private SheetScanHandler scanSheet(String rid, boolean countRows)
+			throws InvalidFormatException, IOException, SAXException {
+		SheetScanHandler handler = new SheetScanHandler(countRows);
+		XMLReader parser = getXMLReader();
+		parser.setContentHandler(handler);
+		BufferedInputStream sheet = new BufferedInputStream(reader.getSheet(rid));
+		try {
+			parser.parse(new InputSource(sheet));
+		} catch (SAXException e) {
+			if (!SCAN_COMPLETED_EX_MSG.equals(e.getMessage()))
+				throw e;
+		} finally {
+			sheet.close();
+		}
+		return handler;
+	}
+
+	/**
+	 * Returns the shared strings of the workbook. They are read into a string
+	 * array the first time, which is much smaller than the
+	 * <code>SharedStringsTable</code> of the rich text of the strings.
+	 * 
+	 * @return
+	 * @throws InvalidFormatException
+	 * @throws IOException
+	 * @throws SAXException
+	 */
+	private synchronized String[] getSharedStrings()
+			throws InvalidFormatException, IOException, SAXException {
+		if (sharedStrings != null)
+			return sharedStrings;
+
+		InputStream data = reader.getSharedStringsData();
+		if (data == null) {
+			sharedStrings = new String[0];
+			return sharedStrings;
+		}
+		BufferedInputStream sstData = new BufferedInputStream(data);
+		try {
+			SharedStringsHandler handler = new SharedStringsHandler();
+			XMLReader parser = getXMLReader();
+			parser.setContentHandler(handler);
+			parser.parse(new InputSource(sstData));
+			sharedStrings = handler.strings.toArray(new String[handler.strings
+					.size()]);
+		} finally {
+			sstData.close();
+		}
+		return sharedStrings;
+	}
+
+	/**
+	 * Decodes the characters escaped as _xHHHH_ in a shared string.
+	 */
+	private static String decodeEscapedChars(String value) {
+		if (value.indexOf("_x") < 0) //$NON-NLS-1$
+			return value;
+		Matcher m = ESCAPED_CHAR_PATTERN.matcher(value);
+		StringBuffer buf = new StringBuffer();
+		while (m.find()) {
+			char c = (char) Integer.parseInt(m.group(1), 16);
+			m.appendReplacement(buf, Matcher.quoteReplacement(String.valueOf(c)));
+		}
+		m.appendTail(buf);
+		return buf.toString();
+	}
+
+
 	
 	private XMLReader getXMLReader( ) throws SAXException
 	{
@@ -116,10 +260,12 @@ public class XlsxFileReader {
 	}
 	
 	
-	private XMLReader fetchSheetParser(StylesTable st, SharedStringsTable sst,
-			XlsxRowCallBack callback, int xlsxRowsToRead) throws SAXException {
+	private XMLReader fetchSheetParser(StylesTable st, String[] sst,
+			RowCallBack callback, int xlsxRowsToRead, boolean hasPreviousRows,
+			int columnCount) throws SAXException {
 		XMLReader parser = getXMLReader( );
-		ContentHandler handler = new SheetHandler(st, sst, callback, xlsxRowsToRead);
+		ContentHandler handler = new SheetHandler(st, sst, callback,
+				xlsxRowsToRead, hasPreviousRows, columnCount);
 		parser.setContentHandler(handler);
 		return parser;
 	}
@@ -140,24 +286,30 @@ public class XlsxFileReader {
 
 		private cDataType cellDataType;
         private int columnCount =1;
-		final private SharedStringsTable sst;
+		final private String[] sst;
 		final private StylesTable st;
-		final private XlsxRowCallBack callback;
-		private String lastContents;
+		final private RowCallBack callback;
+		private StringBuilder lastContents = new StringBuilder();
 		private ArrayList<Object> values;
 		private int currentColumn = 0;
+		// the number of columns up to the last cell of the current row
+		private int rowColumnCount = 1;
 		private int xlsxRowsToRead=0;
 		private int currentXlsxRowNumber = 0;
-        private SimpleDateFormat sdf; 
+		private boolean hasPreviousRows;
+		// whether the cells of a style are dates, by style index
+		private Map<Integer, Boolean> dateStyles = new HashMap<Integer, Boolean>();
 		
-		private SheetHandler(StylesTable st, SharedStringsTable sst, XlsxRowCallBack callback, int xlsxRowsToRead) {
+		private SheetHandler(StylesTable st, String[] sst, RowCallBack callback,
+				int xlsxRowsToRead, boolean hasPreviousRows, int columnCount) {
 			this.sst = sst;
 			this.st = st;
 			this.callback = callback;
 			values = new ArrayList<Object>();
 			this.cellDataType = cDataType.NUMBER;
 			this.xlsxRowsToRead = xlsxRowsToRead;
-			sdf = new SimpleDateFormat( "yyyy-MM-dd'T'HH:mm:ssZ" );//ISO date format
+			this.hasPreviousRows = hasPreviousRows;
+			this.columnCount = Math.max(columnCount, 1);
 		}
 
 		public void startElement(String uri, String localName, String qName,
@@ -175,16 +327,7 @@ public class XlsxFileReader {
 					cellDataType =  cDataType.STATIC;
 		        else if (cellS != null) {
 		              //number with formatting or date
-		            int styleIndex = Integer.parseInt(cellS);
-		            XSSFCellStyle style = st.getStyleAt(styleIndex);
-		            short formatIndex = style.getDataFormat();
-		            String formatString = style.getDataFormatString();
-
-		            if (formatString == null)
-		                   formatString = BuiltinFormats.getBuiltinFormat(formatIndex);
-
-					if (org.apache.poi.ss.usermodel.DateUtil.isADateFormat(
-							formatIndex, formatString) ) {
+		            if (isDateStyle(Integer.parseInt(cellS))) {
 		            	cellDataType =  cDataType.DATETIME;
 		            }else{
 		            	cellDataType = cDataType.NUMBER;
@@ -196,18 +339,8 @@ public class XlsxFileReader {
                 String r = attributes.getValue("r");
 
                 currentColumn = getColumnNumber( r );
-                //expand the number of columns if needed in existing rows
-                if( currentColumn+1 > columnCount){
-                	callback.columnExpansion(currentColumn+1);
-                	
-                	//clean up current row
-                	int newvals = (currentColumn+1) - columnCount;
-                	for( int ii=0; ii<newvals;ii++){
-                		values.add(ExcelODAConstants.EMPTY_STRING);
-                	}               	
-                	
-            		columnCount = currentColumn+1;
-                }
+                expandColumns( currentColumn+1 );
+                rowColumnCount = Math.max( rowColumnCount, currentColumn+1 );
 
 			}
 
@@ -217,13 +350,66 @@ public class XlsxFileReader {
 				for( int i=0;i<columnCount; i++){
 					values.add(i, ExcelODAConstants.EMPTY_STRING);
 				}
+				rowColumnCount = 1;
+			}
+
+			// <dimension ref="A1:F200"/> precedes the rows, so that the rows
+			// which are handed to the call back need not be expanded later
+			if (qName.equals("dimension")) {
+				String ref = attributes.getValue("ref");
+				int index = ref == null ? -1 : ref.indexOf(':');
+				if (index > 0) {
+					expandColumns(getColumnNumber(ref.substring(index + 1)) + 1);
+				}
 			}
-			lastContents = ExcelODAConstants.EMPTY_STRING;
+			lastContents.setLength(0);
+		}
+
+		private void expandColumns(int newColumnCount) {
+            //expand the number of columns if needed in existing rows
+            if( newColumnCount > columnCount){
+            	callback.columnExpansion(newColumnCount);
+            	
+            	//clean up current row
+            	if (!values.isEmpty()) {
+            		int newvals = newColumnCount - columnCount;
+            		for( int ii=0; ii<newvals;ii++){
+            			values.add(ExcelODAConstants.EMPTY_STRING);
+            		}
+            	}
+            	
+        		columnCount = newColumnCount;
+            }
+		}
+
+		private boolean isDateStyle(int styleIndex) {
+			Integer key = Integer.valueOf(styleIndex);
+			Boolean isDate = dateStyles.get(key);
+			if (isDate == null) {
+	            XSSFCellStyle style = st.getStyleAt(styleIndex);
+	            short formatIndex = style.getDataFormat();
+	            String formatString = style.getDataFormatString();
+
+	            if (formatString == null)
+	                   formatString = BuiltinFormats.getBuiltinFormat(formatIndex);
+
+				isDate = Boolean.valueOf(org.apache.poi.ss.usermodel.DateUtil
+						.isADateFormat(formatIndex, formatString));
+				dateStyles.put(key, isDate);
+			}
+			return isDate.booleanValue();
 		}
 
 		public void endElement(String uri, String localName, String name)
 				throws SAXException {
 			if (name.equals("row")) {
+				if (currentXlsxRowNumber == 0 && !hasPreviousRows) {
+					// put in fake column names for the columns declared by
+					// the dimension of the sheet
+					for (int j = rowColumnCount; j < values.size(); j++) {
+						values.set(j, "column_" + j); //$NON-NLS-1$
+					}
+				}
 				callback.handleRow(values);
 				values.clear();
 				currentColumn = -1;
@@ -239,37 +425,35 @@ public class XlsxFileReader {
 				return;
 			} else if (name.equals("v")) {
 
-				String val = ExcelODAConstants.EMPTY_STRING;
+				Object val = ExcelODAConstants.EMPTY_STRING;
+				String contents = lastContents.toString();
 
 				// Process the last contents as required.
 				// Do now, as characters() may be called more than once
 				if (cellDataType == cDataType.SSTINDEX) {
 					int idx;
-					idx = Integer.parseInt(lastContents);
-					val = new XSSFRichTextString(sst.getEntryAt(idx))
-							.toString();
-				} else if (cellDataType == cDataType.STATIC
-						|| cellDataType == cDataType.NUMBER) {
-					val = lastContents;
+					idx = Integer.parseInt(contents);
+					val = sst[idx];
+				} else if (cellDataType == cDataType.STATIC) {
+					val = contents;
+				} else if (cellDataType == cDataType.NUMBER) {
+					val = toNumber(contents);
 				}else if( cellDataType == cDataType.DATETIME || cellDataType == cDataType.DATE || cellDataType == cDataType.TIME ){
 
-					Date myjavadate = org.apache.poi.ss.usermodel.DateUtil.getJavaDate(Double.parseDouble(lastContents));
-					val = sdf.format( myjavadate );
+					Date myjavadate = org.apache.poi.ss.usermodel.DateUtil.getJavaDate(Double.parseDouble(contents));
+					val = new DateValue( myjavadate.getTime( ) );
 				}else if( cellDataType == cDataType.BOOL ){
-					if( lastContents.compareTo("1") == 0){
-						Boolean mybool = new Boolean(true);
-						val = mybool.toString();
-					}else if( lastContents.compareTo("0") == 0 ){
-						Boolean mybool = new Boolean(false);
-						val = mybool.toString();
+					if( contents.compareTo("1") == 0){
+						val = Boolean.TRUE.toString();
+					}else if( contents.compareTo("0") == 0 ){
+						val = Boolean.FALSE.toString();
 					}
 				}
 
 				// v => contents of a cell
 				if (val != null) {
 					if( currentColumn != -1){
-						values.remove(currentColumn);
-						values.add(currentColumn, val);
+						values.set(currentColumn, val);
 					}
 				}
 			}
@@ -277,10 +461,18 @@ public class XlsxFileReader {
 
 		public void characters(char[] ch, int start, int length)
 				throws SAXException {
-			lastContents += new String(ch, start, length);
+			lastContents.append(ch, start, length);
 		}
 
-		private int getColumnNumber(String colname) {
+		private static Object toNumber(String text) {
+			try {
+				return new NumericValue(text, Double.parseDouble(text));
+			} catch (NumberFormatException e) {
+				return text;
+			}
+		}
+
+		private static int getColumnNumber(String colname) {
 			int tmpcol = 0;
 			String drpNumber = colname;
 			for (int ch = 0; ch < colname.length(); ++ch) {
@@ -300,6 +492,141 @@ public class XlsxFileReader {
 		}
 	}
 
+	/**
+	 * Counts the rows and the columns of a sheet. Unless the rows are counted,
+	 * the scan stops at the dimension of the sheet, which precedes the rows.
+	 */
+	private static class SheetScanHandler extends DefaultHandler {
+		final private boolean countRows;
+		private int rowCount;
+		private int columnCount = 1;
+
+		private SheetScanHandler(boolean countRows) {
+			this.countRows = countRows;
+		}
+
+		public void startElement(String uri, String localName, String qName,
+				Attributes attributes) throws SAXException {
+			if (qName.equals("c")) {
+				String r = attributes.getValue("r");
+				if (r != null) {
+					columnCount = Math.max(columnCount,
+							SheetHandler.getColumnNumber(r) + 1);
+				}
+			} else if (qName.equals("row")) {
+				rowCount++;
+			} else if (qName.equals("dimension")) {
+				String ref = attributes.getValue("ref");
+				int index = ref == null ? -1 : ref.indexOf(':');
+				if (index > 0) {
+					columnCount = Math.max(columnCount,
+							SheetHandler.getColumnNumber(ref.substring(index + 1)) + 1);
+					if (!countRows)
+						throw new SAXException(SCAN_COMPLETED_EX_MSG);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads the text of the shared strings, leaving out the phonetic runs.
+	 */
+	private static class SharedStringsHandler extends DefaultHandler {
+		final private ArrayList<String> strings = new ArrayList<String>();
+		final private StringBuilder text = new StringBuilder();
+		private boolean isText;
+		private boolean isPhonetic;
+
+		public void startElement(String uri, String localName, String qName,
+				Attributes attributes) throws SAXException {
+			if (qName.equals("si")) {
+				text.setLength(0);
+			} else if (qName.equals("t")) {
+				isText = !isPhonetic;
+			} else if (qName.equals("rPh")) {
+				isPhonetic = true;
+			} else if (qName.equals("sst")) {
+				String count = attributes.getValue("uniqueCount");
+				if (count != null) {
+					try {
+						strings.ensureCapacity(Integer.parseInt(count));
+					} catch (NumberFormatException e) {
+					}
+				}
+			}
+		}
+
+		public void endElement(String uri, String localName, String name)
+				throws SAXException {
+			if (name.equals("si")) {
+				strings.add(decodeEscapedChars(text.toString()));
+			} else if (name.equals("t")) {
+				isText = false;
+			} else if (name.equals("rPh")) {
+				isPhonetic = false;
+			}
+		}
+
+		public void characters(char[] ch, int start, int length)
+				throws SAXException {
+			if (isText)
+				text.append(ch, start, length);
+		}
+	}
+
+	/**
+	 * The value of a numeric cell, whose text is the text of the cell.
+	 */
+	private static final class NumericValue extends Number {
+
+		private static final long serialVersionUID = 1L;
+
+		final private String text;
+		final private double value;
+
+		private NumericValue(String text, double value) {
+			this.text = text;
+			this.value = value;
+		}
+
+		public int intValue() {
+			return (int) value;
+		}
+
+		public long longValue() {
+			return (long) value;
+		}
+
+		public float floatValue() {
+			return (float) value;
+		}
+
+		public double doubleValue() {
+			return value;
+		}
+
+		public String toString() {
+			return text;
+		}
+	}
+
+	/**
+	 * The value of a date cell, whose text is in the ISO format. The
+	 * milliseconds are left out as they are in the text.
+	 */
+	private static final class DateValue extends Date {
+
+		private static final long serialVersionUID = 1L;
+
+		private DateValue(long time) {
+			super(time - (time % 1000 + 1000) % 1000);
+		}
+
+		public String toString() {
+			return ISO_DATE_FORMAT.get().format(this);
+		}
+	}
+
 	/**
 	 * See org.xml.sax.helpers.DefaultHandler javadocs
 	 */
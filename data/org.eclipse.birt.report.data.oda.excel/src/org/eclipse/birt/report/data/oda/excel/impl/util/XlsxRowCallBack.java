@@ -27,7 +27,9 @@ public class XlsxRowCallBack implements RowCallBack {
 			return;
 		}
 		String[] valArray = new String[values.size()];
-		values.toArray(valArray);
+		for (int i = 0; i < valArray.length; i++) {
+			valArray[i] = values.get(i).toString();
+		}
 		xlsxRowData.add(valArray);
 	}
 
@@ -0,0 +1,197 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.report.data.oda.excel.impl.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.birt.report.data.oda.excel.ExcelODAConstants;
+import org.eclipse.datatools.connectivity.oda.OdaException;
+import org.xml.sax.SAXException;
+
+/**
+ * Reads the rows of the sheets of a xlsx file while they are parsed. The
+ * sheets are parsed in a separate thread, which hands the rows to the reader
+ * through a bounded queue, so that the first rows are returned without waiting
+ * for the whole file and only a small number of rows are kept in memory.
+ * <p>
+ * A row is a list of the cell values, padded to the number of columns of the
+ * widest sheet. Since the rows returned cannot be expanded any longer, the
+ * columns of the sheets are counted before the first row is parsed; this only
+ * needs a full scan of the sheets which do not declare their dimension.
+ */
+class XlsxRowReader implements RowCallBack {
+
+	static final int QUEUE_CAPACITY = 1000;
+
+	private static final String PARSING_STOPPED_EX_MSG = "Parsing Stopped"; //$NON-NLS-1$
+
+	// the end of the rows, which is put in the queue by the parser thread
+	private static final List<Object> END_OF_ROWS = new ArrayList<Object>(0);
+
+	private XlsxFileReader xlsxReader;
+	private List<String> sheetRids;
+	private int rowsToRead;
+
+	private BlockingQueue<List<Object>> rows = new ArrayBlockingQueue<List<Object>>(QUEUE_CAPACITY);
+	private Thread parserThread;
+	private volatile boolean closed;
+	private volatile Exception failure;
+
+	// used by the parser thread, the highest number of columns found
+	private int columnCount;
+	private boolean hasRows;
+
+	private boolean isEndOfRows;
+
+	/**
+	 * @param xlsxReader
+	 * @param sheetRids
+	 *            the relationship ids of the sheets, which are read in order
+	 * @param rowsToRead
+	 *            the number of rows to read, or 0 to read all the rows
+	 */
+	XlsxRowReader(XlsxFileReader xlsxReader, List<String> sheetRids,
+			int rowsToRead) {
+		this.xlsxReader = xlsxReader;
+		this.sheetRids = sheetRids;
+		this.rowsToRead = rowsToRead;
+	}
+
+	/**
+	 * Starts to parse the sheets.
+	 */
+	void start() {
+		parserThread = new Thread(new Runnable() {
+
+			public void run() {
+				parse();
+			}
+		}, "Xlsx Row Reader"); //$NON-NLS-1$
+		parserThread.setDaemon(true);
+		parserThread.start();
+	}
+
+	private void parse() {
+		try {
+			for (String rid : sheetRids) {
+				columnExpansion(xlsxReader.getColumnCount(rid));
+			}
+			for (String rid : sheetRids) {
+				xlsxReader.processSheet(rid, this, rowsToRead, hasRows,
+						columnCount);
+			}
+		} catch (SAXException e) {
+			// the rows of the next sheets are not read once the row limit is
+			// reached
+			if (!closed
+					&& !XlsxFileReader.ROW_LIMIT_REACHED_EX_MSG.equals(e.getMessage())) {
+				failure = e;
+			}
+		} catch (Exception e) {
+			failure = e;
+		} finally {
+			try {
+				put(END_OF_ROWS);
+			} catch (SAXException e) {
+				// closed
+			}
+		}
+	}
+
+	/*
+	 * @see org.eclipse.birt.report.data.oda.excel.impl.util.RowCallBack#handleRow(java.util.List)
+	 */
+	public void handleRow(List<Object> values) throws SAXException {
+		if (values == null || values.size() == 0) {
+			return;
+		}
+		List<Object> row = new ArrayList<Object>(Math.max(values.size(),
+				columnCount));
+		row.addAll(values);
+		// the rows of a sheet are as wide as the rows of the previous sheets
+		while (row.size() < columnCount) {
+			row.add(ExcelODAConstants.EMPTY_STRING);
+		}
+		columnCount = row.size();
+		hasRows = true;
+		put(row);
+	}
+
+	/*
+	 * @see org.eclipse.birt.report.data.oda.excel.impl.util.RowCallBack#columnExpansion(int)
+	 */
+	public void columnExpansion(int newColumnCount) {
+		// the next rows are padded to the new number of columns
+		columnCount = Math.max(columnCount, newColumnCount);
+	}
+
+	private void put(List<Object> row) throws SAXException {
+		try {
+			while (!closed) {
+				if (rows.offer(row, 100, TimeUnit.MILLISECONDS)) {
+					return;
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		throw new SAXException(PARSING_STOPPED_EX_MSG);
+	}
+
+	/**
+	 * Returns the next row, waiting until it is parsed.
+	 *
+	 * @return the values of the row, or null if there is no more row
+	 * @throws OdaException
+	 *             if the file cannot be parsed
+	 */
+	List<Object> nextRow() throws OdaException {
+		if (isEndOfRows || closed) {
+			return null;
+		}
+		List<Object> row;
+		try {
+			row = rows.take();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new OdaException(e);
+		}
+		if (row == END_OF_ROWS) {
+			isEndOfRows = true;
+			if (failure != null) {
+				throw new OdaException(failure);
+			}
+			return null;
+		}
+		return row;
+	}
+
+	/**
+	 * Stops parsing the sheets, and waits until the parser thread ends.
+	 */
+	void close() {
+		closed = true;
+		rows.clear();
+		if (parserThread != null && parserThread != Thread.currentThread()) {
+			try {
+				parserThread.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		rows.clear();
+	}
+}
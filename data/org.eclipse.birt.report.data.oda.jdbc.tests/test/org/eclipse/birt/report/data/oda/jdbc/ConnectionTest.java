@@ -11,9 +11,12 @@
 
 package org.eclipse.birt.report.data.oda.jdbc;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Properties;
 
 
+import org.eclipse.birt.report.data.oda.jdbc.connectionpool.ConnectionPoolManager;
 import org.eclipse.datatools.connectivity.oda.OdaException;
 
 import org.junit.After;
@@ -274,6 +277,44 @@ public class ConnectionTest {
 		}
 	}
 
+	/*
+	 * Class under test for void open(Properties) with a connection pool
+	 */
+	@Test
+    public void testOpenPoolExhausted( ) throws Exception
+	{
+		Map<String, Object> appContext = new HashMap<String, Object>( );
+		appContext.put( ConnectionPoolManager.POOL_ENABLED, Boolean.TRUE );
+		appContext.put( ConnectionPoolManager.POOL_MAX_SIZE, Integer.valueOf( 1 ) );
+		appContext.put( ConnectionPoolManager.POOL_MAX_WAIT, Long.valueOf( 10 ) );
+		Properties props = new Properties( );
+		props.setProperty( Connection.Constants.ODAURL, TestUtil.getURL( ) );
+		props.setProperty( Connection.Constants.ODADriverClass, TestUtil.getDriverClassName( ) );
+		props.setProperty( Connection.Constants.ODAUser, TestUtil.getUser( ) );
+		props.setProperty( Connection.Constants.ODAPassword, TestUtil.getPassword( ) );
+
+		Connection first = new Connection( );
+		first.setAppContext( appContext );
+		first.open( props );
+		// no connection which is not pooled is opened instead
+		Connection second = new Connection( );
+		second.setAppContext( appContext );
+		try
+		{
+			second.open( props );
+			fail( );
+		}
+		catch ( JDBCException e )
+		{
+		}
+		assertFalse( second.isOpen( ) );
+
+		first.close( );
+		second.open( props );
+		assertTrue( second.isOpen( ) );
+		second.close( );
+	}
+
 	/*
 	 * Class under test for void rollback()
 	 */
@@ -0,0 +1,183 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.report.data.oda.jdbc;
+
+import java.util.Properties;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test case for FetchSizeTuner and FetchSizePolicy
+ *
+ */
+public class FetchSizeTunerTest
+{
+
+	private final static String SELECT_SQL = "select col3, col4 from "
+			+ TestUtil.TABLE_NAME;
+
+	/** the estimated width of the rows of SELECT_SQL: an int and a varchar(100) */
+	private final static int ROW_WIDTH = FetchSizeTuner.COLUMN_OVERHEAD
+			+ 4 + FetchSizeTuner.COLUMN_OVERHEAD + 100;
+
+	private Connection conn = null;
+
+	private java.sql.Connection jdbcConn = null;
+
+	@Before
+	public void fetchSizeTunerSetUp( ) throws Exception
+	{
+		TestUtil.createTestData( );
+		conn = TestUtil.openConnection( );
+		jdbcConn = TestUtil.openJDBCConnection( );
+	}
+
+	@After
+	public void fetchSizeTunerTearDown( ) throws Exception
+	{
+		conn.close( );
+		jdbcConn.close( );
+		TestUtil.deleteTestData( );
+	}
+
+	@Test
+	public void testByteBudget( ) throws Exception
+	{
+		java.sql.Statement statement = jdbcConn.createStatement( );
+		java.sql.ResultSet rs = statement.executeQuery( SELECT_SQL );
+		assertEquals( ROW_WIDTH, FetchSizeTuner.estimateRowWidth( rs ) );
+
+		FetchSizeTuner tuner = new FetchSizePolicy( ROW_WIDTH * 100L, 10, 10000 ).newTuner( rs,
+				0 );
+		assertEquals( 100, tuner.getMaxFetchSize( ) );
+		// the maximum fetch size is bounded
+		tuner = new FetchSizePolicy( ROW_WIDTH * 100L, 10, 50 ).newTuner( rs,
+				0 );
+		assertEquals( 50, tuner.getMaxFetchSize( ) );
+		// and so is the number of rows
+		tuner = new FetchSizePolicy( ROW_WIDTH * 100L, 10, 10000 ).newTuner( rs,
+				20 );
+		assertEquals( 20, tuner.getMaxFetchSize( ) );
+		// a row wider than the budget is fetched with the minimum fetch size
+		tuner = new FetchSizePolicy( 1, 10, 10000 ).newTuner( rs, 0 );
+		assertEquals( 10, tuner.getMaxFetchSize( ) );
+		rs.close( );
+		statement.close( );
+	}
+
+	@Test
+	public void testGrowWhileRoundTripBound( )
+	{
+		FetchSizeTuner tuner = new FetchSizeTuner( null,
+				100,
+				new FetchSizePolicy( 100 * 800, 10, 10000 ),
+				0,
+				100 );
+		assertEquals( 800, tuner.getMaxFetchSize( ) );
+
+		// the rows fetched by the execution
+		fetch( tuner, 100, 0 );
+		assertEquals( 100, tuner.getFetchSize( ) );
+		// a round trip costs much more than a row, so the larger fetch sizes
+		// pay off
+		fetch( tuner, 100, 1000000 );
+		assertEquals( 200, tuner.getFetchSize( ) );
+		fetch( tuner, 200, 1000000 );
+		assertEquals( 400, tuner.getFetchSize( ) );
+		fetch( tuner, 400, 1000000 );
+		assertEquals( 800, tuner.getFetchSize( ) );
+		fetch( tuner, 800, 1000000 );
+		fetch( tuner, 800, 1000000 );
+		assertEquals( 800, tuner.getFetchSize( ) );
+
+		assertEquals( 2400, tuner.getRowCount( ) );
+		assertEquals( 6, tuner.getRoundTripCount( ) );
+	}
+
+	@Test
+	public void testSettleWhenNotRoundTripBound( )
+	{
+		FetchSizeTuner tuner = new FetchSizeTuner( null,
+				100,
+				new FetchSizePolicy( 100 * 800, 10, 10000 ),
+				0,
+				100 );
+		fetch( tuner, 100, 0 );
+		// the time is spent in the rows, not in the round trips
+		fetch( tuner, 100, 0 );
+		assertEquals( 200, tuner.getFetchSize( ) );
+		fetch( tuner, 200, 0 );
+		assertEquals( 100, tuner.getFetchSize( ) );
+		fetch( tuner, 100, 0 );
+		fetch( tuner, 100, 1000000 );
+		assertEquals( 100, tuner.getFetchSize( ) );
+	}
+
+	@Test
+	public void testPolicyProperties( )
+	{
+		Properties props = new Properties( );
+		assertEquals( FetchSizePolicy.DEFAULT_BYTE_BUDGET,
+				FetchSizePolicy.create( props ).getByteBudget( ) );
+
+		props.setProperty( FetchSizePolicy.BYTE_BUDGET_PROP, "65536" );
+		props.setProperty( FetchSizePolicy.MIN_FETCH_SIZE_PROP, "500" );
+		props.setProperty( FetchSizePolicy.MAX_FETCH_SIZE_PROP, "200.0" );
+		FetchSizePolicy policy = FetchSizePolicy.create( props );
+		assertEquals( 65536, policy.getByteBudget( ) );
+		assertEquals( 200, policy.getMaxFetchSize( ) );
+		assertEquals( 200, policy.getMinFetchSize( ) );
+
+		props.setProperty( FetchSizePolicy.BYTE_BUDGET_PROP, "abc" );
+		props.setProperty( FetchSizePolicy.MAX_FETCH_SIZE_PROP, "-1" );
+		policy = FetchSizePolicy.create( props );
+		assertEquals( FetchSizePolicy.DEFAULT_BYTE_BUDGET,
+				policy.getByteBudget( ) );
+		assertEquals( FetchSizePolicy.DEFAULT_MAX_FETCH_SIZE,
+				policy.getMaxFetchSize( ) );
+	}
+
+	@Test
+	public void testStatement( ) throws Exception
+	{
+		Statement stmt = (Statement) conn.newQuery( "" );
+		stmt.prepare( SELECT_SQL );
+		ResultSet rs = (ResultSet) stmt.executeQuery( );
+		assertNotNull( rs.getFetchSizeTuner( ) );
+		int rowCount = 0;
+		while ( rs.next( ) )
+			rowCount++;
+		assertEquals( rowCount, rs.getFetchSizeTuner( ).getRowCount( ) );
+		assertEquals( 1, rs.getFetchSizeTuner( ).getRoundTripCount( ) );
+		rs.close( );
+
+		// the fetch size of the rowFetchSize property is not adjusted
+		stmt.setProperty( "rowFetchSize", "2" );
+		rs = (ResultSet) stmt.executeQuery( );
+		assertNull( rs.getFetchSizeTuner( ) );
+		rs.close( );
+		stmt.close( );
+	}
+
+	/*
+	 * Fetches a batch of rows, whose first row needs a round trip.
+	 */
+	private static void fetch( FetchSizeTuner tuner, int rows,
+			long roundTripNanos )
+	{
+		for ( int i = 0; i < rows; i++ )
+			tuner.next( true, ( i == 0 ? roundTripNanos : 0 ) + 1000 );
+	}
+}
@@ -0,0 +1,215 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.report.data.oda.jdbc;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.datatools.connectivity.oda.OdaException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test case for QuerySpecSqlBuilder
+ *
+ */
+public class QuerySpecSqlBuilderTest
+{
+
+	private final static String SELECT_SQL = "select col3, col4 from "
+			+ TestUtil.TABLE_NAME;
+
+	private Connection conn = null;
+
+	private java.sql.Connection jdbcConn = null;
+
+	@Before
+	public void querySpecSqlBuilderSetUp( ) throws Exception
+	{
+		TestUtil.createTestData( );
+		conn = TestUtil.openConnection( );
+		jdbcConn = TestUtil.openJDBCConnection( );
+	}
+
+	@After
+	public void querySpecSqlBuilderTearDown( ) throws Exception
+	{
+		conn.close( );
+		jdbcConn.close( );
+		TestUtil.deleteTestData( );
+	}
+
+	@Test
+	public void testFilterAndSort( ) throws Exception
+	{
+		QuerySpecSqlBuilder builder = newBuilder( SELECT_SQL );
+		builder.addFilter( QuerySpecSqlBuilder.FILTER_GREATER_THAN,
+				"COL3",
+				new Object[]{
+					Integer.valueOf( 2 )
+				} );
+		builder.addFilter( QuerySpecSqlBuilder.FILTER_IS_NOT_NULL,
+				"COL4",
+				new Object[0] );
+		builder.addSortKey( "COL3", true );
+		assertFalse( builder.isEmpty( ) );
+
+		assertEquals( "[6, 5]",
+				getValues( builder.build( SELECT_SQL ),
+						new Object[0],
+						builder.getParameterValues( ) ).toString( ) );
+	}
+
+	@Test
+	public void testFilterAfterQueryParameters( ) throws Exception
+	{
+		String query = SELECT_SQL + " where col3 < ?";
+		assertEquals( 1, QuerySpecSqlBuilder.getParameterMarkerCount( query ) );
+
+		QuerySpecSqlBuilder builder = newBuilder( query );
+		builder.addFilter( QuerySpecSqlBuilder.FILTER_NOT_IN,
+				"COL3",
+				new Object[]{
+						Integer.valueOf( 1 ), Integer.valueOf( 4 )
+				} );
+		builder.addSortKey( "COL3", false );
+
+		assertEquals( "[0, 2]", getValues( builder.build( query ), new Object[]{
+			Integer.valueOf( 5 )
+		}, builder.getParameterValues( ) ).toString( ) );
+	}
+
+	@Test
+	public void testBetween( ) throws Exception
+	{
+		QuerySpecSqlBuilder builder = newBuilder( SELECT_SQL );
+		builder.addFilter( QuerySpecSqlBuilder.FILTER_BETWEEN,
+				"COL3",
+				new Object[]{
+						Integer.valueOf( 2 ), Integer.valueOf( 5 )
+				} );
+		builder.addSortKey( "COL3", false );
+
+		assertEquals( "[2, 4, 5]",
+				getValues( builder.build( SELECT_SQL ),
+						new Object[0],
+						builder.getParameterValues( ) ).toString( ) );
+	}
+
+	@Test
+	public void testAggregate( ) throws Exception
+	{
+		String query = SELECT_SQL;
+		QuerySpecSqlBuilder builder = newBuilder( query );
+		builder.addAggregate( "COL3", QuerySpecSqlBuilder.AGGR_SUM, "COL3" );
+		builder.hideColumn( "COL4" );
+		assertEquals( "[18]",
+				getValues( builder.build( query ),
+						new Object[0],
+						builder.getParameterValues( ) ).toString( ) );
+
+		builder = newBuilder( query );
+		builder.addAggregate( "COL3", QuerySpecSqlBuilder.AGGR_COUNT, "COL3" );
+		builder.hideColumn( "COL4" );
+		assertEquals( "[6]",
+				getValues( builder.build( query ),
+						new Object[0],
+						builder.getParameterValues( ) ).toString( ) );
+	}
+
+	@Test
+	public void testEmpty( ) throws Exception
+	{
+		assertTrue( newBuilder( SELECT_SQL ).isEmpty( ) );
+	}
+
+	@Test
+	public void testUnsupportedFilter( ) throws Exception
+	{
+		QuerySpecSqlBuilder builder = newBuilder( SELECT_SQL );
+		try
+		{
+			// Derby has no regular expression operator
+			builder.addFilter( QuerySpecSqlBuilder.FILTER_MATCH,
+					"COL4",
+					new Object[]{
+						"1.*"
+					} );
+			fail( "Should throw OdaException" );
+		}
+		catch ( OdaException e )
+		{
+		}
+		try
+		{
+			builder.addFilter( QuerySpecSqlBuilder.FILTER_EQUAL,
+					"COL4",
+					new Object[]{
+						null
+					} );
+			fail( "Should throw OdaException" );
+		}
+		catch ( OdaException e )
+		{
+		}
+	}
+
+	@Test
+	public void testGetParameterMarkerCount( )
+	{
+		assertEquals( 0, QuerySpecSqlBuilder.getParameterMarkerCount( SELECT_SQL ) );
+		assertEquals( 2,
+				QuerySpecSqlBuilder.getParameterMarkerCount( "select '?', \"a?\" from t where a = ? -- ?\n and b = ? /* ? */" ) );
+	}
+
+	private QuerySpecSqlBuilder newBuilder( String query ) throws Exception
+	{
+		QuerySpecSqlBuilder builder = new QuerySpecSqlBuilder( (DataSourceMetaData) conn.getMetaData( "" ) );
+		PreparedStatement statement = jdbcConn.prepareStatement( query );
+		java.sql.ResultSetMetaData resultmd = statement.getMetaData( );
+		String[] columnNames = new String[resultmd.getColumnCount( )];
+		String[] columnLabels = new String[columnNames.length];
+		for ( int i = 0; i < columnNames.length; i++ )
+		{
+			columnNames[i] = resultmd.getColumnName( i + 1 );
+			columnLabels[i] = resultmd.getColumnLabel( i + 1 );
+		}
+		statement.close( );
+		builder.setColumns( columnNames, columnLabels );
+		return builder;
+	}
+
+	/*
+	 * Returns the values of the first column of a query.
+	 */
+	private List<String> getValues( String query, Object[] queryParameters,
+			Object[] specParameters ) throws Exception
+	{
+		PreparedStatement statement = jdbcConn.prepareStatement( query );
+		for ( int i = 0; i < queryParameters.length; i++ )
+			statement.setObject( i + 1, queryParameters[i] );
+		for ( int i = 0; i < specParameters.length; i++ )
+			statement.setObject( queryParameters.length + i + 1,
+					specParameters[i] );
+		java.sql.ResultSet rs = statement.executeQuery( );
+		List<String> values = new ArrayList<String>( );
+		while ( rs.next( ) )
+			values.add( rs.getString( 1 ) );
+		rs.close( );
+		statement.close( );
+		return values;
+	}
+}
@@ -0,0 +1,164 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.report.data.oda.jdbc.connectionpool;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests the connection pool with the embedded Derby database.
+ */
+public class ConnectionPoolManagerTest
+{
+
+	private static final String DRIVER_CLASS = "org.apache.derby.jdbc.EmbeddedDriver";
+	private static final String URL = "jdbc:derby:memory:poolTest;create=true";
+
+	private ConnectionPoolManager manager;
+	private Map<String, Object> appContext;
+
+	@Before
+	public void poolSetUp( )
+	{
+		manager = new ConnectionPoolManager( );
+		appContext = new HashMap<String, Object>( );
+		appContext.put( ConnectionPoolManager.POOL_ENABLED, Boolean.TRUE );
+		appContext.put( ConnectionPoolManager.POOL_MAX_SIZE, Integer.valueOf( 2 ) );
+		appContext.put( ConnectionPoolManager.POOL_MAX_WAIT, Long.valueOf( 100 ) );
+	}
+
+	@After
+	public void poolTearDown( )
+	{
+		manager.close( );
+	}
+
+	@Test
+	public void testDisabled( ) throws Exception
+	{
+		assertNull( manager.getConnection( DRIVER_CLASS,
+				URL,
+				new Properties( ),
+				null,
+				new HashMap<String, Object>( ) ) );
+		assertEquals( 0, manager.getPoolCount( ) );
+	}
+
+	@Test
+	public void testReuse( ) throws Exception
+	{
+		Connection first = getConnection( );
+		first.setAutoCommit( false );
+		first.close( );
+		assertTrue( first.isClosed( ) );
+		assertEquals( 1, manager.getIdleConnectionCount( ) );
+
+		Connection second = getConnection( );
+		assertNotSame( first, second );
+		// the settings are restored when the connection is returned
+		assertTrue( second.getAutoCommit( ) );
+		assertEquals( 1, manager.getCreatedConnectionCount( ) );
+		assertEquals( 2, manager.getBorrowCount( ) );
+		assertEquals( 1, manager.getActiveConnectionCount( ) );
+
+		// the closed proxy can not use the connection any more
+		try
+		{
+			first.createStatement( );
+			fail( );
+		}
+		catch ( SQLException e )
+		{
+		}
+		second.close( );
+	}
+
+	@Test
+	public void testMaxSize( ) throws Exception
+	{
+		Connection first = getConnection( );
+		Connection second = getConnection( );
+		try
+		{
+			getConnection( );
+			fail( );
+		}
+		catch ( SQLException e )
+		{
+		}
+		assertEquals( 1, manager.getWaitCount( ) );
+		first.close( );
+		Connection third = getConnection( );
+		assertEquals( 2, manager.getCreatedConnectionCount( ) );
+		second.close( );
+		third.close( );
+	}
+
+	@Test
+	public void testCloseConnection( ) throws Exception
+	{
+		Connection first = getConnection( );
+		first.close( );
+		// a connection closed after its statement was cancelled is discarded
+		manager.closeConnection( first );
+		assertEquals( 0, manager.getIdleConnectionCount( ) );
+		assertEquals( 1, manager.getDestroyedConnectionCount( ) );
+
+		Connection second = getConnection( );
+		Connection third = getConnection( );
+		second.close( );
+		// a proxy does not discard the connection once it is borrowed again
+		Connection fourth = getConnection( );
+		manager.closeConnection( second );
+		assertEquals( 2, manager.getActiveConnectionCount( ) );
+		assertFalse( fourth.isClosed( ) );
+		third.close( );
+		fourth.close( );
+	}
+
+	@Test
+	public void testStatementsClosed( ) throws Exception
+	{
+		Connection connection = getConnection( );
+		Statement statement = connection.createStatement( );
+		PreparedStatement prepared = connection.prepareStatement( "VALUES 1" ); //$NON-NLS-1$
+		// the physical connection is not exposed
+		assertSame( connection, statement.getConnection( ) );
+		assertSame( connection, prepared.getConnection( ) );
+
+		statement.close( );
+		assertTrue( statement.isClosed( ) );
+		assertFalse( prepared.isClosed( ) );
+		// the statements left open are closed when the connection is returned
+		connection.close( );
+		assertTrue( prepared.isClosed( ) );
+	}
+
+	private Connection getConnection( ) throws Exception
+	{
+		return manager.getConnection( DRIVER_CLASS,
+				URL,
+				new Properties( ),
+				null,
+				appContext );
+	}
+}
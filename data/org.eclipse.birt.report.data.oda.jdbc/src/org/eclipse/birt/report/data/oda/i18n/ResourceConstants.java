@@ -61,6 +61,7 @@ public class ResourceConstants
 	public final static String DATABASE_PRODUCT_NAME_CANNOT_GET = "odajdbc.CannotGetDataSourceProductName";
 	public final static String DATABASE_PRODUCT_VERSION_CANNOT_GET = "odajdbc.CannotGetDataSourceProductVersion";
 	public final static String SQLSTATE_TYPE_CANNOT_GET = "odajdbc.CannotGetSQLStateType";
+	public final static String IDENTIFIER_QUOTE_STRING_CANNOT_GET = "odajdbc.CannotGetIdentifierQuoteString";
 
 	public final static String PARAMETER_COUNT_CANNOT_GET = "odajdbc.CannotGetParameterCount";
 	public final static String PARAMETER_MODE_CANNOT_GET = "odajdbc.CannotGetParameterMode";
@@ -116,6 +117,8 @@ public class ResourceConstants
 	public final static String PREPARESTATEMENT_PARAMETER_TYPE_CANNOT_GET = "odajdbc.PrepareStatement.CannotGetParameterType";
 	public final static String PREPARESTATEMENT_PARAMETER_METADATA_CANNOT_GET = "odajdbc.CannotGetParameterMetadata";
 	public final static String PREPARESTATEMENT_CLEAR_PARAMETER_ERROR = "odajdbc.ClearParametersError";
+	public final static String QUERY_SPEC_UNSUPPORTED_EXPRESSION = "odajdbc.QuerySpec.UnsupportedExpression";
+	public final static String QUERY_SPEC_CANNOT_APPLY = "odajdbc.QuerySpec.CannotApply";
 	public final static String MISSEDURLANDJNDI = "odajdbc.missedUrlAndJndi";
 	public final static String EMPTYDRIVERCLASS = "odajdbc.error.emptyDriverClass";
 	// used in assert error
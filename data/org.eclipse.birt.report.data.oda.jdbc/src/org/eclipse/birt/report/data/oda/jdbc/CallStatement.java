@@ -90,6 +90,11 @@ public class CallStatement implements IAdvancedQuery
 	private Map<String, java.sql.ResultSet> outputParameterResultSetsMap = new LinkedHashMap<String,java.sql.ResultSet>();
 	private int resultIndex = 0;
 	private boolean isExecuted = false;
+	
+	/** the settings of the adaptive fetch size of the data source */
+	private FetchSizePolicy fetchSizePolicy = FetchSizePolicy.DEFAULT;
+	/** indicates if the fetch size is set by the rowFetchSize property */
+	private boolean fixedFetchSize = false;
 	private static JdbcResourceHandle resourceHandle = new JdbcResourceHandle( ULocale.getDefault( ) );
 
 	/**
@@ -181,6 +186,19 @@ public class CallStatement implements IAdvancedQuery
 		}
 	}
 
+	/**
+	 * Sets the settings of the adaptive fetch size, which are those of the
+	 * data source. The fetch size is not adjusted if it is set by the
+	 * rowFetchSize property.
+	 * 
+	 * @param policy
+	 */
+	public void setFetchSizePolicy( FetchSizePolicy policy )
+	{
+		this.fetchSizePolicy = policy == null ? FetchSizePolicy.DEFAULT
+				: policy;
+	}
+
 	/*
 	 * @see org.eclipse.datatools.connectivity.oda.IQuery#setProperty(java.lang.String, java.lang.String)
 	 */
@@ -227,6 +245,7 @@ public class CallStatement implements IAdvancedQuery
 					// value
 					double fetchSize = Double.parseDouble( value );
 					this.callStat.setFetchSize( (int) fetchSize );
+					this.fixedFetchSize = true;
 				}
 				catch ( SQLException e )
 				{
@@ -419,6 +438,8 @@ public class CallStatement implements IAdvancedQuery
 		//TODO Support multiple result set
 		try
 		{
+			if ( !fixedFetchSize )
+				fetchSizePolicy.prepare( callStat, maxrows );
 			this.callStat.execute( );
 			this.isExecuted = true;
 			rs = this.callStat.getResultSet( );
@@ -443,13 +464,13 @@ public class CallStatement implements IAdvancedQuery
 				}
 			}
 			if ( rs != null )
-				return new ResultSet( conn, rs );
+				return newResultSet( rs );
 			
 			this.populateOutputParamResultSet();
 			java.sql.ResultSet resultSet = this.outputParameterResultSetsMap.size() == 0? null: this.outputParameterResultSetsMap.values().iterator().next();
 			
 			if ( resultSet != null )
-				return new ResultSet( conn, resultSet );
+				return newResultSet( resultSet );
 			else
 				return new SPResultSet( null );
 		}
@@ -461,6 +482,19 @@ public class CallStatement implements IAdvancedQuery
 	}
 	
 	
+	/**
+	 * Wraps a result set of the procedure, whose fetch size is adjusted while
+	 * its rows are read unless it is set by the rowFetchSize property.
+	 */
+	private ResultSet newResultSet( java.sql.ResultSet rs ) throws OdaException
+	{
+		ResultSet resultSet = new ResultSet( conn, rs );
+		if ( !fixedFetchSize )
+			resultSet.setFetchSizeTuner( fetchSizePolicy.newTuner( rs,
+					maxrows ) );
+		return resultSet;
+	}
+
 	private void populateOutputParamResultSet( )
 			throws OdaException, SQLException
 	{
@@ -1749,13 +1783,13 @@ public class CallStatement implements IAdvancedQuery
 				this.execute();
 			if( this.outputParameterResultSetsMap.size() > 0 )
 			{
-				return new ResultSet( conn, this.outputParameterResultSetsMap
+				return newResultSet( this.outputParameterResultSetsMap
 						.get(this.resultSetNames[this.resultIndex]));
 			}
 			if (!this.isExecuted)
 				rs = callStat.getResultSet();
 			if (rs != null)
-				return new ResultSet(conn, rs);
+				return newResultSet( rs );
 			else
 				return new SPResultSet( null );
 		}
@@ -1771,7 +1805,7 @@ public class CallStatement implements IAdvancedQuery
 	public IResultSet getResultSet( String resultSetName ) throws OdaException
 	{
 		if( this.outputParameterResultSetsMap.size() > 0 && this.outputParameterResultSetsMap.containsKey( resultSetName ) )
-			return new ResultSet( conn, this.outputParameterResultSetsMap.get( resultSetName ) );
+			return newResultSet( this.outputParameterResultSetsMap.get( resultSetName ) );
 		throw new JDBCException( ResourceConstants.RESULTSET_CANNOT_GET, -1 );
 	}
 
@@ -56,6 +56,7 @@ public class Connection implements IConnection
 	
 	private Boolean autoCommit;
 	private int isolationMode = Constants.TRANSCATION_ISOLATION_DEFAULT;
+	private FetchSizePolicy fetchSizePolicy = FetchSizePolicy.DEFAULT;
 	/*
 	 * @see org.eclipse.datatools.connectivity.oda.IConnection#isOpen()
 	 */
@@ -154,6 +155,8 @@ public class Connection implements IConnection
 			String isolationMode = connProperties.getProperty( Constants.CONNECTION_ISOLATION_MODE );
 			this.isolationMode = Constants.getIsolationMode( isolationMode );
 			
+			this.fetchSizePolicy = FetchSizePolicy.create( connProperties );
+			
 			if ( (url == null || url.length( ) == 0) && (jndiName == null ||
 					jndiName.length() == 0) )
 			{
@@ -226,23 +229,23 @@ public class Connection implements IConnection
 				logger.log(Level.FINE, "JDBC connection success : " + jdbcConn );
 			}
 		}
+		catch ( SQLException e )
+		{
+			// The pool is exhausted or closed, or cannot open a connection;
+			// a connection which is not pooled would bypass its limits
+			logger.log( Level.SEVERE,
+					"JDBC connection throws exception: Error Code "
+							+ e.getErrorCode( ) + " Message:"
+							+ e.getLocalizedMessage( ) );
+			closePooledConnection( );
+			throw new JDBCException( ResourceConstants.CONN_CANNOT_GET, e );
+		}
 		catch ( Exception e )
 		{
-			if( e instanceof SQLException )
-			{
-				SQLException e1 = (SQLException)e;
-				logger.log( Level.SEVERE,
-						"JDBC connection throws exception: Error Code "
-								+ e1.getErrorCode( ) + " Message:"
-								+ e1.getLocalizedMessage( ) );
-				//First try to identify the authorization info. 28000 is xOpen standard for login failure
-				if( "28000".equals( e1.getSQLState( )))
-					throw new JDBCException( ResourceConstants.CONN_CANNOT_GET, e1 );
-			}
-			else
-			{
-				logger.log( Level.SEVERE, "JDBC connection throws exception: " + e.getLocalizedMessage( ) );
-			}
+			// The pool cannot be created, a connection which is not pooled
+			// is opened instead
+			logger.log( Level.SEVERE, "JDBC connection throws exception: " + e.getLocalizedMessage( ) );
+			closePooledConnection( );
 		}
 		try
 		{
@@ -265,6 +268,25 @@ public class Connection implements IConnection
 		}
 	}
 
+	/**
+	 * Returns a pooled connection whose properties could not be set.
+	 */
+	private void closePooledConnection( )
+	{
+		if ( jdbcConn != null )
+		{
+			try
+			{
+				jdbcConn.close( );
+			}
+			catch ( SQLException e )
+			{
+				logger.log( Level.FINE, e.getMessage( ), e );
+			}
+			jdbcConn = null;
+		}
+	}
+
 	private void populateConnectionProp( ) throws SQLException
 	{
 		if( jdbcConn!= null )
@@ -355,11 +377,18 @@ public class Connection implements IConnection
 
 		// only one data source type, ignoring the argument.
 		assertOpened( );
+		IQuery query;
 		if ( dataSourceType != null
 				&& dataSourceType.equalsIgnoreCase( advancedDataType ) )
-			return createCallStatement( jdbcConn );
+			query = createCallStatement( jdbcConn );
 		else 
-			return createStatement( jdbcConn );
+			query = createStatement( jdbcConn );
+		
+		if ( query instanceof Statement )
+			( (Statement) query ).setFetchSizePolicy( fetchSizePolicy );
+		else if ( query instanceof CallStatement )
+			( (CallStatement) query ).setFetchSizePolicy( fetchSizePolicy );
+		return query;
 	}
 	
 	private IQuery createCallStatement(java.sql.Connection jdbcConn2) throws OdaException {
@@ -10,6 +10,9 @@
  *******************************************************************************/
 package org.eclipse.birt.report.data.oda.jdbc;
 
+import java.io.Closeable;
+import java.io.IOException;
+
 class ConnectionPoolFactory
 {
 
@@ -53,4 +56,24 @@ class ConnectionPoolFactory
 
 		return mgr_instance;
 	}
+
+	/**
+	 * close the connection manager instance if it was loaded
+	 */
+	static void close( )
+	{
+		synchronized ( ConnectionPoolFactory.class )
+		{
+			if ( mgr_instance instanceof Closeable )
+			{
+				try
+				{
+					( (Closeable) mgr_instance ).close( );
+				}
+				catch ( IOException e )
+				{
+				}
+			}
+		}
+	}
 }
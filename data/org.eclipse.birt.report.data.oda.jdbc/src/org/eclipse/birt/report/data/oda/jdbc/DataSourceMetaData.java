@@ -35,6 +35,35 @@ public class DataSourceMetaData implements IDataSetMetaData
 
 	private static Logger logger = Logger.getLogger( DataSourceMetaData.class.getName( ) );	
 
+	/** the filters which are applied by any database */
+	private static final String[] PUSHED_DOWN_FILTERS = {
+			QuerySpecSqlBuilder.FILTER_EQUAL,
+			QuerySpecSqlBuilder.FILTER_NOT_EQUAL,
+			QuerySpecSqlBuilder.FILTER_LESS_THAN,
+			QuerySpecSqlBuilder.FILTER_LESS_THAN_OR_EQUAL,
+			QuerySpecSqlBuilder.FILTER_GREATER_THAN,
+			QuerySpecSqlBuilder.FILTER_GREATER_THAN_OR_EQUAL,
+			QuerySpecSqlBuilder.FILTER_IS_NULL,
+			QuerySpecSqlBuilder.FILTER_IS_NOT_NULL,
+			QuerySpecSqlBuilder.FILTER_BETWEEN,
+			QuerySpecSqlBuilder.FILTER_NOT_BETWEEN,
+			QuerySpecSqlBuilder.FILTER_IN,
+			QuerySpecSqlBuilder.FILTER_NOT_IN,
+			QuerySpecSqlBuilder.FILTER_LIKE,
+			QuerySpecSqlBuilder.FILTER_IS_TRUE,
+			QuerySpecSqlBuilder.FILTER_IS_FALSE
+	};
+
+	/** the aggregations which are done by any database */
+	private static final String[] PUSHED_DOWN_AGGREGATES = {
+			QuerySpecSqlBuilder.AGGR_COUNT,
+			QuerySpecSqlBuilder.AGGR_SUM,
+			QuerySpecSqlBuilder.AGGR_AVE,
+			QuerySpecSqlBuilder.AGGR_AVG,
+			QuerySpecSqlBuilder.AGGR_MIN,
+			QuerySpecSqlBuilder.AGGR_MAX
+	};
+
 	/**
 	 * Constructor
 	 * 
@@ -299,4 +328,151 @@ public class DataSourceMetaData implements IDataSetMetaData
 		return sortModeNone;
 	}
 
+	/**
+	 * Indicates whether the database can apply a filter of a query
+	 * specification.
+	 * 
+	 * @param filterId
+	 *            one of the FILTER_ constants of QuerySpecSqlBuilder
+	 * @return
+	 */
+	public boolean supportsFilterPushDown( String filterId )
+	{
+		logger.logp( java.util.logging.Level.FINEST,
+				DataSourceMetaData.class.getName( ),
+				"supportsFilterPushDown",
+				"DataSourceMetaData.supportsFilterPushDown( " + filterId + " )" );
+		for ( int i = 0; i < PUSHED_DOWN_FILTERS.length; i++ )
+		{
+			if ( PUSHED_DOWN_FILTERS[i].equalsIgnoreCase( filterId ) )
+				return true;
+		}
+		// there is no standard regular expression operator
+		return QuerySpecSqlBuilder.FILTER_MATCH.equalsIgnoreCase( filterId )
+				&& getRegularExpressionOperator( ) != null;
+	}
+
+	/**
+	 * Indicates whether the database can sort the rows of a query
+	 * specification.
+	 * 
+	 * @return
+	 */
+	public boolean supportsSortPushDown( )
+	{
+		logger.logp( java.util.logging.Level.FINEST,
+				DataSourceMetaData.class.getName( ),
+				"supportsSortPushDown",
+				"DataSourceMetaData.supportsSortPushDown( )" );
+		return true;
+	}
+
+	/**
+	 * Indicates whether the database can do an aggregation of a query
+	 * specification.
+	 * 
+	 * @param aggregateId
+	 *            one of the AGGR_ constants of QuerySpecSqlBuilder
+	 * @return
+	 */
+	public boolean supportsAggregatePushDown( String aggregateId )
+	{
+		logger.logp( java.util.logging.Level.FINEST,
+				DataSourceMetaData.class.getName( ),
+				"supportsAggregatePushDown",
+				"DataSourceMetaData.supportsAggregatePushDown( " + aggregateId + " )" );
+		boolean supported = false;
+		for ( int i = 0; i < PUSHED_DOWN_AGGREGATES.length; i++ )
+		{
+			if ( PUSHED_DOWN_AGGREGATES[i].equalsIgnoreCase( aggregateId ) )
+				supported = true;
+		}
+		try
+		{
+			return supported && dbMetadata.supportsGroupBy( );
+		}
+		catch ( SQLException e )
+		{
+			return false;
+		}
+	}
+
+	/**
+	 * Indicates whether a query which sorts its rows can be used as a derived
+	 * table, so that it can be wrapped by a query specification.
+	 * 
+	 * @return
+	 */
+	public boolean supportsOrderByInDerivedTable( )
+	{
+		logger.logp( java.util.logging.Level.FINEST,
+				DataSourceMetaData.class.getName( ),
+				"supportsOrderByInDerivedTable",
+				"DataSourceMetaData.supportsOrderByInDerivedTable( )" );
+		String productName = getProductName( );
+		// these databases only allow ORDER BY in a derived table with TOP
+		return productName.indexOf( "microsoft sql server" ) < 0
+				&& productName.indexOf( "adaptive server" ) < 0
+				&& productName.indexOf( "sybase" ) < 0;
+	}
+
+	/**
+	 * Returns the operator which matches a value with a regular expression, or
+	 * null if the database has no such operator.
+	 * 
+	 * @return
+	 */
+	public String getRegularExpressionOperator( )
+	{
+		logger.logp( java.util.logging.Level.FINEST,
+				DataSourceMetaData.class.getName( ),
+				"getRegularExpressionOperator",
+				"DataSourceMetaData.getRegularExpressionOperator( )" );
+		String productName = getProductName( );
+		if ( productName.indexOf( "mysql" ) >= 0
+				|| productName.indexOf( "mariadb" ) >= 0 )
+			return "REGEXP";
+		if ( productName.indexOf( "postgresql" ) >= 0 )
+			return "~";
+		return null;
+	}
+
+	/**
+	 * Returns the string which quotes an identifier, or an empty string if the
+	 * identifiers cannot be quoted.
+	 * 
+	 * @return
+	 * @throws OdaException
+	 */
+	public String getIdentifierQuoteString( ) throws OdaException
+	{
+		logger.logp( java.util.logging.Level.FINEST,
+				DataSourceMetaData.class.getName( ),
+				"getIdentifierQuoteString",
+				"DataSourceMetaData.getIdentifierQuoteString( )" );
+		try
+		{
+			String quote = dbMetadata.getIdentifierQuoteString( );
+			return quote == null ? "" : quote.trim( );
+		}
+		catch ( SQLException e )
+		{
+			throw new JDBCException( ResourceConstants.IDENTIFIER_QUOTE_STRING_CANNOT_GET,
+					e );
+		}
+	}
+
+	private String getProductName( )
+	{
+		try
+		{
+			String productName = dbMetadata.getDatabaseProductName( );
+			return productName == null ? "" : productName.toLowerCase( );
+		}
+		catch ( SQLException e )
+		{
+			return "";
+		}
+	}
+
 }
\ No newline at end of file
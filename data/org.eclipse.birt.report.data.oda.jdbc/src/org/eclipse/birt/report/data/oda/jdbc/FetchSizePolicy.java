@@ -0,0 +1,188 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.report.data.oda.jdbc;
+
+import java.sql.SQLException;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The settings of the adaptive fetch size of the statements of a data source.
+ * The number of rows fetched in a round trip is bounded by a byte budget, and
+ * by a minimum and a maximum number of rows, which may be overridden by the
+ * properties of the data source.
+ * <p>
+ * A statement first fetches a small number of rows, so that the first rows are
+ * returned quickly, then a <code>FetchSizeTuner</code> adjusts the fetch size
+ * of the result set.
+ */
+public class FetchSizePolicy
+{
+
+	/** data source property: the number of bytes fetched in a round trip */
+	public static final String BYTE_BUDGET_PROP = "odaFetchByteBudget"; //$NON-NLS-1$
+	/** data source property: the minimum number of rows fetched in a round trip */
+	public static final String MIN_FETCH_SIZE_PROP = "odaMinFetchSize"; //$NON-NLS-1$
+	/** data source property: the maximum number of rows fetched in a round trip */
+	public static final String MAX_FETCH_SIZE_PROP = "odaMaxFetchSize"; //$NON-NLS-1$
+
+	public static final long DEFAULT_BYTE_BUDGET = 4 * 1024 * 1024;
+	public static final int DEFAULT_MIN_FETCH_SIZE = 10;
+	/** the fetch size greater than 10000 is not honored */
+	public static final int DEFAULT_MAX_FETCH_SIZE = 10000;
+
+	/** the number of rows fetched by the execution of a statement */
+	static final int INITIAL_FETCH_SIZE = 100;
+
+	public static final FetchSizePolicy DEFAULT = new FetchSizePolicy( DEFAULT_BYTE_BUDGET,
+			DEFAULT_MIN_FETCH_SIZE,
+			DEFAULT_MAX_FETCH_SIZE );
+
+	private static Logger logger = Logger.getLogger( FetchSizePolicy.class.getName( ) );
+
+	private final long byteBudget;
+	private final int minFetchSize;
+	private final int maxFetchSize;
+
+	/**
+	 * @param byteBudget
+	 *            the number of bytes fetched in a round trip
+	 * @param minFetchSize
+	 *            the minimum number of rows fetched in a round trip
+	 * @param maxFetchSize
+	 *            the maximum number of rows fetched in a round trip
+	 */
+	public FetchSizePolicy( long byteBudget, int minFetchSize, int maxFetchSize )
+	{
+		this.byteBudget = Math.max( 1, byteBudget );
+		this.maxFetchSize = Math.max( 1, maxFetchSize );
+		this.minFetchSize = Math.max( 1, Math.min( minFetchSize,
+				this.maxFetchSize ) );
+	}
+
+	/**
+	 * Creates the policy of a data source, from its connection properties. The
+	 * default settings are used for the properties which are not set or not
+	 * valid.
+	 *
+	 * @param connProperties
+	 * @return
+	 */
+	public static FetchSizePolicy create( Properties connProperties )
+	{
+		if ( connProperties == null )
+			return DEFAULT;
+		return new FetchSizePolicy( getLongProperty( connProperties,
+				BYTE_BUDGET_PROP,
+				DEFAULT_BYTE_BUDGET ), (int) getLongProperty( connProperties,
+				MIN_FETCH_SIZE_PROP,
+				DEFAULT_MIN_FETCH_SIZE ), (int) getLongProperty( connProperties,
+				MAX_FETCH_SIZE_PROP,
+				DEFAULT_MAX_FETCH_SIZE ) );
+	}
+
+	private static long getLongProperty( Properties connProperties,
+			String name, long defaultValue )
+	{
+		String value = connProperties.getProperty( name );
+		if ( value == null || value.trim( ).length( ) == 0 )
+			return defaultValue;
+		try
+		{
+			// Be forgiving if a floating point gets passed in
+			double number = Double.parseDouble( value.trim( ) );
+			if ( number >= 1 && number <= Integer.MAX_VALUE )
+				return (long) number;
+		}
+		catch ( NumberFormatException e )
+		{
+		}
+		logger.logp( Level.FINE,
+				FetchSizePolicy.class.getName( ),
+				"getLongProperty", //$NON-NLS-1$
+				"Invalid value of " + name + ": " + value ); //$NON-NLS-1$ //$NON-NLS-2$
+		return defaultValue;
+	}
+
+	public long getByteBudget( )
+	{
+		return byteBudget;
+	}
+
+	public int getMinFetchSize( )
+	{
+		return minFetchSize;
+	}
+
+	public int getMaxFetchSize( )
+	{
+		return maxFetchSize;
+	}
+
+	/**
+	 * Sets the fetch size of a statement before it is executed.
+	 *
+	 * @param statement
+	 * @param maxRows
+	 *            the maximum number of rows of the statement, or 0 if there is
+	 *            no limit
+	 */
+	public void prepare( java.sql.Statement statement, int maxRows )
+	{
+		int fetchSize = Math.max( minFetchSize, Math.min( INITIAL_FETCH_SIZE,
+				maxFetchSize ) );
+		if ( maxRows > 0 )
+			fetchSize = Math.min( fetchSize, maxRows );
+		try
+		{
+			statement.setFetchSize( fetchSize );
+		}
+		catch ( SQLException e )
+		{
+			// This is not an essential property; log and ignore error if
+			// driver doesn't support fetch size
+			logger.log( Level.FINE, "Statement.setFetchSize failed", e ); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * Creates the tuner of the fetch size of a result set, which has been
+	 * returned by a statement prepared by this policy.
+	 *
+	 * @param rs
+	 * @param maxRows
+	 *            the maximum number of rows of the statement, or 0 if there is
+	 *            no limit
+	 * @return
+	 */
+	public FetchSizeTuner newTuner( java.sql.ResultSet rs, int maxRows )
+	{
+		int fetchSize;
+		try
+		{
+			fetchSize = rs.getFetchSize( );
+		}
+		catch ( SQLException e )
+		{
+			fetchSize = 0;
+		}
+		if ( fetchSize <= 0 )
+			fetchSize = Math.max( minFetchSize, Math.min( INITIAL_FETCH_SIZE,
+					maxFetchSize ) );
+		return new FetchSizeTuner( rs,
+				FetchSizeTuner.estimateRowWidth( rs ),
+				this,
+				maxRows,
+				fetchSize );
+	}
+}
@@ -0,0 +1,324 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.report.data.oda.jdbc;
+
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Adjusts the fetch size of a JDBC result set while its rows are read.
+ * <p>
+ * The largest fetch size is the byte budget of the <code>FetchSizePolicy</code>
+ * divided by the width of a row, which is estimated from the metadata of the
+ * result set. The rows are read in batches of the fetch size, each of which
+ * needs a round trip to the database. After the rows fetched by the execution
+ * of the statement, the fetch size starts at an eighth of the largest one, and
+ * is doubled as long as the number of rows read per second spent in the round
+ * trips increases by 10%. When it does not, the previous fetch size is kept for
+ * the rest of the rows. So narrow rows on a slow network are fetched in large
+ * batches, while wide rows or a fast network keep the batches small.
+ */
+public class FetchSizeTuner
+{
+
+	/** the bytes of a row whose width cannot be estimated */
+	static final int DEFAULT_ROW_WIDTH = 1024;
+	/** the bytes of a column, besides its value */
+	static final int COLUMN_OVERHEAD = 16;
+	/** the bytes of a value of unknown type */
+	static final int DEFAULT_COLUMN_WIDTH = 32;
+	/** the bytes of a large object or of a character column of unknown size */
+	static final int LARGE_COLUMN_WIDTH = 4000;
+
+	/** the increase of throughput which makes the fetch size grow further */
+	static final double GROWTH_THRESHOLD = 1.1;
+
+	private static Logger logger = Logger.getLogger( FetchSizeTuner.class.getName( ) );
+
+	private java.sql.ResultSet rs;
+	private int rowWidth;
+	private int minFetchSize;
+	private int maxFetchSize;
+
+	private int fetchSize;
+	private int previousFetchSize;
+	// the size of the current batch, which is the fetch size of its round trip
+	private int batchSize;
+	private int batchRows;
+	private long batchNanos;
+	private boolean initialBatch = true;
+	private boolean settled;
+	private double lastThroughput = -1;
+
+	// metrics
+	private long rowCount;
+	private int roundTripCount;
+	private long fetchNanos;
+
+	/**
+	 * @param rs
+	 *            the result set, or null if the fetch size is only computed
+	 * @param rowWidth
+	 *            the estimated bytes of a row
+	 * @param policy
+	 * @param maxRows
+	 *            the maximum number of rows, or 0 if there is no limit
+	 * @param initialFetchSize
+	 *            the fetch size of the execution of the statement
+	 */
+	FetchSizeTuner( java.sql.ResultSet rs, int rowWidth,
+			FetchSizePolicy policy, int maxRows, int initialFetchSize )
+	{
+		this.rs = rs;
+		this.rowWidth = Math.max( 1, rowWidth );
+		this.minFetchSize = policy.getMinFetchSize( );
+		long budgetRows = policy.getByteBudget( ) / this.rowWidth;
+		this.maxFetchSize = (int) Math.max( minFetchSize, Math.min( budgetRows,
+				policy.getMaxFetchSize( ) ) );
+		if ( maxRows > 0 )
+		{
+			this.maxFetchSize = Math.min( maxFetchSize, maxRows );
+			this.minFetchSize = Math.min( minFetchSize, maxFetchSize );
+		}
+		this.fetchSize = initialFetchSize;
+		this.batchSize = initialFetchSize;
+	}
+
+	/**
+	 * Estimates the bytes of a row of a result set, from its metadata.
+	 *
+	 * @param rs
+	 * @return
+	 */
+	static int estimateRowWidth( java.sql.ResultSet rs )
+	{
+		try
+		{
+			java.sql.ResultSetMetaData metaData = rs.getMetaData( );
+			int columnCount = metaData.getColumnCount( );
+			if ( columnCount <= 0 )
+				return DEFAULT_ROW_WIDTH;
+			long width = 0;
+			for ( int i = 1; i <= columnCount; i++ )
+				width += COLUMN_OVERHEAD + getColumnWidth( metaData, i );
+			return (int) Math.min( width, Integer.MAX_VALUE );
+		}
+		catch ( Throwable e )
+		{
+			// Some drivers do not support the metadata, or throw an error
+			// such as AbstractMethodError
+			logger.log( Level.FINE, "Cannot estimate the width of a row", e ); //$NON-NLS-1$
+			return DEFAULT_ROW_WIDTH;
+		}
+	}
+
+	private static int getColumnWidth( java.sql.ResultSetMetaData metaData,
+			int index ) throws SQLException
+	{
+		switch ( metaData.getColumnType( index ) )
+		{
+			case Types.BIT :
+			case Types.BOOLEAN :
+			case Types.TINYINT :
+				return 1;
+			case Types.SMALLINT :
+				return 2;
+			case Types.INTEGER :
+			case Types.REAL :
+				return 4;
+			case Types.BIGINT :
+			case Types.FLOAT :
+			case Types.DOUBLE :
+			case Types.DATE :
+			case Types.TIME :
+				return 8;
+			case Types.TIMESTAMP :
+				return 12;
+			case Types.NUMERIC :
+			case Types.DECIMAL :
+			{
+				int precision = metaData.getPrecision( index );
+				return precision > 0 && precision < 128 ? precision / 2 + 2
+						: 22;
+			}
+			case Types.CHAR :
+			case Types.VARCHAR :
+			case Types.NCHAR :
+			case Types.NVARCHAR :
+			case Types.BINARY :
+			case Types.VARBINARY :
+			{
+				// a character column of unknown or unbounded size
+				int size = metaData.getColumnDisplaySize( index );
+				return size > 0 && size < LARGE_COLUMN_WIDTH ? size
+						: LARGE_COLUMN_WIDTH;
+			}
+			case Types.LONGVARCHAR :
+			case Types.LONGNVARCHAR :
+			case Types.LONGVARBINARY :
+			case Types.CLOB :
+			case Types.NCLOB :
+			case Types.BLOB :
+			case Types.SQLXML :
+				return LARGE_COLUMN_WIDTH;
+			default :
+				return DEFAULT_COLUMN_WIDTH;
+		}
+	}
+
+	/**
+	 * Records a call of <code>next</code> on the result set.
+	 *
+	 * @param hasRow
+	 *            the result of the call
+	 * @param nanos
+	 *            the time spent in the call
+	 */
+	public void next( boolean hasRow, long nanos )
+	{
+		fetchNanos += nanos;
+		if ( !hasRow )
+			return;
+		// the first row of a batch is fetched by a round trip
+		if ( batchRows == 0 )
+			roundTripCount++;
+		rowCount++;
+		batchRows++;
+		batchNanos += nanos;
+		if ( batchRows >= batchSize )
+			endBatch( );
+	}
+
+	private void endBatch( )
+	{
+		int newFetchSize = fetchSize;
+		if ( initialBatch )
+		{
+			// the rows fetched by the execution of the statement are not
+			// measured
+			initialBatch = false;
+			newFetchSize = Math.max( minFetchSize, maxFetchSize / 8 );
+		}
+		else if ( !settled && batchNanos > 0 )
+		{
+			double throughput = (double) batchRows / batchNanos;
+			if ( lastThroughput < 0
+					|| throughput >= lastThroughput * GROWTH_THRESHOLD )
+			{
+				lastThroughput = throughput;
+				previousFetchSize = fetchSize;
+				if ( fetchSize < maxFetchSize )
+					newFetchSize = (int) Math.min( (long) fetchSize * 2,
+							maxFetchSize );
+				else
+					settled = true;
+			}
+			else
+			{
+				// the larger fetch size does not pay off
+				newFetchSize = previousFetchSize;
+				settled = true;
+			}
+		}
+		if ( newFetchSize != fetchSize )
+			setFetchSize( newFetchSize );
+		batchSize = fetchSize;
+		batchRows = 0;
+		batchNanos = 0;
+	}
+
+	private void setFetchSize( int newFetchSize )
+	{
+		if ( rs != null )
+		{
+			try
+			{
+				rs.setFetchSize( newFetchSize );
+			}
+			catch ( SQLException e )
+			{
+				// This is not an essential property; log and ignore error if
+				// driver doesn't support fetch size
+				logger.log( Level.FINE, "ResultSet.setFetchSize failed", e ); //$NON-NLS-1$
+				settled = true;
+				return;
+			}
+		}
+		fetchSize = newFetchSize;
+	}
+
+	/**
+	 * Logs the metrics of the fetches of the result set.
+	 */
+	public void close( )
+	{
+		if ( logger.isLoggable( Level.FINE ) )
+			logger.logp( Level.FINE,
+					FetchSizeTuner.class.getName( ),
+					"close", //$NON-NLS-1$
+					"Fetched " + rowCount + " rows in " + roundTripCount //$NON-NLS-1$ //$NON-NLS-2$
+							+ " round trips and " + fetchNanos / 1000000 //$NON-NLS-1$
+							+ " ms, estimated row width " + rowWidth //$NON-NLS-1$
+							+ " bytes, fetch size " + fetchSize ); //$NON-NLS-1$
+	}
+
+	/**
+	 * @return the current fetch size
+	 */
+	public int getFetchSize( )
+	{
+		return fetchSize;
+	}
+
+	/**
+	 * @return the largest fetch size, derived from the byte budget
+	 */
+	public int getMaxFetchSize( )
+	{
+		return maxFetchSize;
+	}
+
+	/**
+	 * @return the estimated bytes of a row
+	 */
+	public int getRowWidth( )
+	{
+		return rowWidth;
+	}
+
+	/**
+	 * @return the number of rows read
+	 */
+	public long getRowCount( )
+	{
+		return rowCount;
+	}
+
+	/**
+	 * @return the estimated number of round trips, one per batch of the
+	 *         fetch size
+	 */
+	public int getRoundTripCount( )
+	{
+		return roundTripCount;
+	}
+
+	/**
+	 * @return the time spent in fetching the rows, in nanoseconds
+	 */
+	public long getFetchTime( )
+	{
+		return fetchNanos;
+	}
+}
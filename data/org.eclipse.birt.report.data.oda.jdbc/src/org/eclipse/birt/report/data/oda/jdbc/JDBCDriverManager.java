@@ -143,6 +143,7 @@ public class JDBCDriverManager
 	 */
 	public void close()
 	{
+		ConnectionPoolFactory.close( );
 		if( this.extraDriverLoader != null )
 		{
 			this.extraDriverLoader.close();
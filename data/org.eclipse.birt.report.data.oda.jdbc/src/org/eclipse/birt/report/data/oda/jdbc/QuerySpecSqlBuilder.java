@@ -0,0 +1,702 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.report.data.oda.jdbc;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.eclipse.birt.report.data.oda.i18n.ResourceConstants;
+import org.eclipse.datatools.connectivity.oda.OdaException;
+import org.eclipse.datatools.connectivity.oda.spec.QuerySpecification;
+import org.eclipse.datatools.connectivity.oda.spec.ValueExpression;
+import org.eclipse.datatools.connectivity.oda.spec.result.AggregateExpression;
+import org.eclipse.datatools.connectivity.oda.spec.result.ColumnIdentifier;
+import org.eclipse.datatools.connectivity.oda.spec.result.FilterExpression;
+import org.eclipse.datatools.connectivity.oda.spec.result.ResultProjection;
+import org.eclipse.datatools.connectivity.oda.spec.result.ResultSetSpecification;
+import org.eclipse.datatools.connectivity.oda.spec.result.SortSpecification;
+import org.eclipse.datatools.connectivity.oda.spec.result.filter.AndExpression;
+import org.eclipse.datatools.connectivity.oda.spec.result.filter.CustomExpression;
+import org.eclipse.datatools.connectivity.oda.spec.result.filter.NotExpression;
+import org.eclipse.datatools.connectivity.oda.spec.result.filter.OrExpression;
+import org.eclipse.datatools.connectivity.oda.spec.valueexpr.AtomicValueExpression;
+
+/**
+ * Rewrites the text of a query so that the filters, sort keys and group
+ * aggregations of a query specification are done by the database. The query
+ * is wrapped as a derived table:
+ *
+ * <pre>
+ * SELECT columns FROM ( query ) BIRT_QUERY WHERE filter GROUP BY columns ORDER BY keys
+ * </pre>
+ *
+ * The values of the filters are bound to parameters which follow the
+ * parameters of the query. The filters have the SQL semantics, a null value
+ * only matches the IsNull filter.
+ */
+public class QuerySpecSqlBuilder
+{
+
+	public static final String FILTER_EQUAL = "Equal"; //$NON-NLS-1$
+	public static final String FILTER_NOT_EQUAL = "NotEqual"; //$NON-NLS-1$
+	public static final String FILTER_LESS_THAN = "LessThan"; //$NON-NLS-1$
+	public static final String FILTER_LESS_THAN_OR_EQUAL = "LessThanOrEqual"; //$NON-NLS-1$
+	public static final String FILTER_GREATER_THAN = "GreaterThan"; //$NON-NLS-1$
+	public static final String FILTER_GREATER_THAN_OR_EQUAL = "GreaterThanOrEqual"; //$NON-NLS-1$
+	public static final String FILTER_IS_NULL = "IsNull"; //$NON-NLS-1$
+	public static final String FILTER_IS_NOT_NULL = "IsNotNull"; //$NON-NLS-1$
+	public static final String FILTER_BETWEEN = "Between"; //$NON-NLS-1$
+	public static final String FILTER_NOT_BETWEEN = "NotBetween"; //$NON-NLS-1$
+	public static final String FILTER_IN = "In"; //$NON-NLS-1$
+	public static final String FILTER_NOT_IN = "NotIn"; //$NON-NLS-1$
+	public static final String FILTER_LIKE = "Like"; //$NON-NLS-1$
+	public static final String FILTER_MATCH = "Match"; //$NON-NLS-1$
+	public static final String FILTER_IS_TRUE = "IsTrue"; //$NON-NLS-1$
+	public static final String FILTER_IS_FALSE = "IsFalse"; //$NON-NLS-1$
+
+	public static final String AGGR_COUNT = "COUNT"; //$NON-NLS-1$
+	public static final String AGGR_SUM = "SUM"; //$NON-NLS-1$
+	public static final String AGGR_AVE = "AVE"; //$NON-NLS-1$
+	public static final String AGGR_AVG = "AVG"; //$NON-NLS-1$
+	public static final String AGGR_MIN = "MIN"; //$NON-NLS-1$
+	public static final String AGGR_MAX = "MAX"; //$NON-NLS-1$
+
+	/** the correlation name of the wrapped query */
+	static final String QUERY_ALIAS = "BIRT_QUERY"; //$NON-NLS-1$
+
+	private static final Pattern ORDER_BY_PATTERN = Pattern.compile( "\\bORDER\\s+BY\\b", //$NON-NLS-1$
+			Pattern.CASE_INSENSITIVE );
+
+	private DataSourceMetaData metaData;
+	private String quote;
+
+	private String[] columnNames;
+	private String[] columnLabels;
+	private Map<String, String> columnLabelMap = new HashMap<String, String>( );
+
+	private String filterCondition;
+	private Set<String> filterColumns = new LinkedHashSet<String>( );
+	private List<Object> parameterValues = new ArrayList<Object>( );
+	private List<String> sortColumns = new ArrayList<String>( );
+	private List<Boolean> sortDescending = new ArrayList<Boolean>( );
+	// the aggregated columns, mapped to the aggregate function and its input
+	// column
+	private Map<String, String[]> aggregatedColumns = new LinkedHashMap<String, String[]>( );
+	private Set<String> hiddenColumns = new HashSet<String>( );
+
+	/**
+	 *
+	 * @param metaData
+	 *            the metadata of the database, which reports the filters,
+	 *            sorts and aggregations it can do
+	 * @throws OdaException
+	 */
+	public QuerySpecSqlBuilder( DataSourceMetaData metaData )
+			throws OdaException
+	{
+		this.metaData = metaData;
+		this.quote = metaData.getIdentifierQuoteString( );
+	}
+
+	/**
+	 * Sets the columns of the query. They are needed to aggregate or hide
+	 * columns, and to use the label of a column when it is not its name.
+	 *
+	 * @param columnNames
+	 *            the names of the columns, which are used by the query
+	 *            specification
+	 * @param columnLabels
+	 *            the labels of the columns, which are the names of the columns
+	 *            of the derived table
+	 */
+	public void setColumns( String[] columnNames, String[] columnLabels )
+	{
+		this.columnNames = columnNames;
+		this.columnLabels = columnLabels;
+		columnLabelMap.clear( );
+		for ( int i = columnNames.length - 1; i >= 0; i-- )
+		{
+			// the first column of a name is used
+			if ( columnNames[i] != null && columnLabels[i] != null )
+				columnLabelMap.put( columnNames[i], columnLabels[i] );
+		}
+	}
+
+	/**
+	 * Adds the filter, sort keys and aggregated columns of the result set
+	 * specification of a query specification.
+	 *
+	 * @param querySpec
+	 * @throws OdaException
+	 *             if the database cannot do any of them
+	 */
+	public void addSpecification( QuerySpecification querySpec )
+			throws OdaException
+	{
+		ResultSetSpecification resultSetSpec = querySpec.getResultSetSpecification( );
+		if ( resultSetSpec == null || resultSetSpec.isEmpty( ) )
+			return;
+
+		FilterExpression filter = resultSetSpec.getFilterSpecification( );
+		if ( filter != null )
+			addFilterCondition( toSql( filter ) );
+
+		SortSpecification sortSpec = resultSetSpec.getSortSpecification( );
+		if ( sortSpec != null )
+		{
+			// 1-based sequence order
+			for ( int i = 1; i <= sortSpec.getSortKeyCount( ); i++ )
+			{
+				ValueExpression sortKey = sortSpec.getSortKeyExpression( i );
+				if ( sortKey == null )
+					throw newUnsupportedException( sortSpec );
+				addSortKey( sortKey.getName( ),
+						sortSpec.getSortOrder( i ) == SortSpecification.SortOrder.DESCENDING );
+			}
+		}
+
+		ResultProjection projection = resultSetSpec.getResultProjection( );
+		if ( projection != null )
+		{
+			Map<ColumnIdentifier, AggregateExpression> aggregations = projection.getAggregatedColumns( );
+			if ( aggregations != null )
+			{
+				for ( Map.Entry<ColumnIdentifier, AggregateExpression> entry : aggregations.entrySet( ) )
+				{
+					AggregateExpression aggregation = entry.getValue( );
+					String inputColumn = null;
+					for ( ValueExpression input : aggregation.getInputValues( ) )
+					{
+						if ( inputColumn != null
+								|| !( input instanceof ColumnIdentifier ) )
+							throw newUnsupportedException( aggregation );
+						inputColumn = input.getName( );
+					}
+					addAggregate( entry.getKey( ).getName( ),
+							aggregation.getId( ),
+							inputColumn );
+				}
+			}
+			if ( projection.getHiddenResultColumns( ) != null )
+			{
+				for ( ColumnIdentifier hiddenColumn : projection.getHiddenResultColumns( ) )
+					hideColumn( hiddenColumn.getName( ) );
+			}
+		}
+	}
+
+	/*
+	 * Translates a filter expression into a SQL condition.
+	 */
+	private String toSql( FilterExpression filter ) throws OdaException
+	{
+		if ( filter instanceof AndExpression || filter instanceof OrExpression )
+		{
+			FilterExpression[] children = filter instanceof AndExpression
+					? ( (AndExpression) filter ).getChildren( )
+					: ( (OrExpression) filter ).getChildren( );
+			String operator = filter instanceof AndExpression ? " AND " : " OR "; //$NON-NLS-1$ //$NON-NLS-2$
+			StringBuffer condition = new StringBuffer( "( " ); //$NON-NLS-1$
+			for ( int i = 0; i < children.length; i++ )
+			{
+				if ( i > 0 )
+					condition.append( operator );
+				condition.append( toSql( children[i] ) );
+			}
+			return condition.append( " )" ).toString( ); //$NON-NLS-1$
+		}
+
+		if ( filter instanceof NotExpression )
+		{
+			return "NOT ( " //$NON-NLS-1$
+					+ toSql( ( (NotExpression) filter ).getNegatingExpression( ) )
+					+ " )"; //$NON-NLS-1$
+		}
+
+		if ( filter instanceof CustomExpression )
+		{
+			CustomExpression customFilter = (CustomExpression) filter;
+			ValueExpression variable = customFilter.getContextVariable( ) != null
+					? customFilter.getContextVariable( ).getValueExpression( )
+					: null;
+			if ( !( variable instanceof ColumnIdentifier ) )
+				throw newUnsupportedException( filter );
+
+			List<Object> values = new ArrayList<Object>( 2 );
+			if ( customFilter.getContextArguments( ) != null )
+			{
+				for ( ValueExpression argument : customFilter.getContextArguments( )
+						.getValueExpressions( ) )
+				{
+					// only constant values are pushed down
+					if ( !( argument instanceof AtomicValueExpression ) )
+						throw newUnsupportedException( filter );
+					values.add( ( (AtomicValueExpression) argument ).getValue( ) );
+				}
+			}
+			return getFilterCondition( customFilter.getId( ),
+					variable.getName( ),
+					values.toArray( ) );
+		}
+
+		throw newUnsupportedException( filter );
+	}
+
+	/**
+	 * Adds a filter, which is combined with the other filters by AND.
+	 *
+	 * @param filterId
+	 *            one of the FILTER_ constants
+	 * @param columnName
+	 *            the name of a column of the query
+	 * @param values
+	 *            the values of the arguments of the filter
+	 * @throws OdaException
+	 *             if the database cannot do the filter
+	 */
+	public void addFilter( String filterId, String columnName, Object[] values )
+			throws OdaException
+	{
+		addFilterCondition( getFilterCondition( filterId, columnName, values ) );
+	}
+
+	private void addFilterCondition( String condition )
+	{
+		filterCondition = filterCondition == null ? condition
+				: filterCondition + " AND " + condition; //$NON-NLS-1$
+	}
+
+	/*
+	 * Returns the SQL condition of a filter, and adds the values of its
+	 * arguments to the parameter values. The parameters are added in the order
+	 * of their markers in the condition.
+	 */
+	private String getFilterCondition( String filterId, String columnName,
+			Object[] values ) throws OdaException
+	{
+		if ( filterId == null
+				|| columnName == null
+				|| !metaData.supportsFilterPushDown( filterId ) )
+			throw newUnsupportedException( filterId );
+		for ( int i = 0; i < values.length; i++ )
+		{
+			// a comparison with null is never true
+			if ( values[i] == null )
+				throw newUnsupportedException( filterId );
+		}
+
+		filterColumns.add( columnName );
+		String column = getColumnReference( columnName );
+		if ( FILTER_IS_NULL.equalsIgnoreCase( filterId ) )
+			return column + " IS NULL"; //$NON-NLS-1$
+		if ( FILTER_IS_NOT_NULL.equalsIgnoreCase( filterId ) )
+			return column + " IS NOT NULL"; //$NON-NLS-1$
+		if ( FILTER_IS_TRUE.equalsIgnoreCase( filterId ) )
+			return getComparison( column, "=", Boolean.TRUE ); //$NON-NLS-1$
+		if ( FILTER_IS_FALSE.equalsIgnoreCase( filterId ) )
+			return getComparison( column, "=", Boolean.FALSE ); //$NON-NLS-1$
+
+		if ( FILTER_IN.equalsIgnoreCase( filterId )
+				|| FILTER_NOT_IN.equalsIgnoreCase( filterId ) )
+		{
+			if ( values.length == 0 )
+				throw newUnsupportedException( filterId );
+			StringBuffer condition = new StringBuffer( column );
+			condition.append( FILTER_IN.equalsIgnoreCase( filterId )
+					? " IN ( " : " NOT IN ( " ); //$NON-NLS-1$ //$NON-NLS-2$
+			for ( int i = 0; i < values.length; i++ )
+			{
+				if ( i > 0 )
+					condition.append( ", " ); //$NON-NLS-1$
+				condition.append( '?' );
+				addParameterValue( values[i] );
+			}
+			return condition.append( " )" ).toString( ); //$NON-NLS-1$
+		}
+
+		if ( FILTER_BETWEEN.equalsIgnoreCase( filterId )
+				|| FILTER_NOT_BETWEEN.equalsIgnoreCase( filterId ) )
+		{
+			if ( values.length != 2 )
+				throw newUnsupportedException( filterId );
+			addParameterValue( values[0] );
+			addParameterValue( values[1] );
+			return column
+					+ ( FILTER_BETWEEN.equalsIgnoreCase( filterId )
+							? " BETWEEN ? AND ?" : " NOT BETWEEN ? AND ?" ); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+
+		// the other filters have a single argument
+		if ( values.length != 1 )
+			throw newUnsupportedException( filterId );
+		Object value = values[0];
+		if ( FILTER_EQUAL.equalsIgnoreCase( filterId ) )
+			return getComparison( column, "=", value ); //$NON-NLS-1$
+		if ( FILTER_NOT_EQUAL.equalsIgnoreCase( filterId ) )
+			return getComparison( column, "<>", value ); //$NON-NLS-1$
+		if ( FILTER_LESS_THAN.equalsIgnoreCase( filterId ) )
+			return getComparison( column, "<", value ); //$NON-NLS-1$
+		if ( FILTER_LESS_THAN_OR_EQUAL.equalsIgnoreCase( filterId ) )
+			return getComparison( column, "<=", value ); //$NON-NLS-1$
+		if ( FILTER_GREATER_THAN.equalsIgnoreCase( filterId ) )
+			return getComparison( column, ">", value ); //$NON-NLS-1$
+		if ( FILTER_GREATER_THAN_OR_EQUAL.equalsIgnoreCase( filterId ) )
+			return getComparison( column, ">=", value ); //$NON-NLS-1$
+		if ( FILTER_LIKE.equalsIgnoreCase( filterId ) && value instanceof String )
+			return getComparison( column, "LIKE", value ); //$NON-NLS-1$
+		if ( FILTER_MATCH.equalsIgnoreCase( filterId ) && value instanceof String )
+			return getComparison( column,
+					metaData.getRegularExpressionOperator( ),
+					value );
+
+		throw newUnsupportedException( filterId );
+	}
+
+	private String getComparison( String column, String operator, Object value )
+	{
+		addParameterValue( value );
+		return column + " " + operator + " ?"; //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	private void addParameterValue( Object value )
+	{
+		// a date is bound as a timestamp, to keep its time
+		if ( value instanceof Date && !( value instanceof java.sql.Date )
+				&& !( value instanceof java.sql.Time )
+				&& !( value instanceof Timestamp ) )
+		{
+			value = new Timestamp( ( (Date) value ).getTime( ) );
+		}
+		parameterValues.add( value );
+	}
+
+	/**
+	 * Adds a sort key, which is applied after the sort keys already added.
+	 *
+	 * @param columnName
+	 * @param descending
+	 * @throws OdaException
+	 *             if the database cannot sort the rows
+	 */
+	public void addSortKey( String columnName, boolean descending )
+			throws OdaException
+	{
+		if ( columnName == null || !metaData.supportsSortPushDown( ) )
+			throw newUnsupportedException( columnName );
+		sortColumns.add( columnName );
+		sortDescending.add( Boolean.valueOf( descending ) );
+	}
+
+	/**
+	 * Adds an aggregated column. The rows are grouped by the columns which are
+	 * neither aggregated nor hidden.
+	 *
+	 * @param columnName
+	 *            the column whose value is replaced by the aggregated value
+	 * @param aggregateId
+	 *            one of the AGGR_ constants
+	 * @param inputColumnName
+	 *            the column of the aggregated values, or null to count the
+	 *            rows
+	 * @throws OdaException
+	 *             if the database cannot do the aggregation
+	 */
+	public void addAggregate( String columnName, String aggregateId,
+			String inputColumnName ) throws OdaException
+	{
+		if ( columnName == null
+				|| aggregateId == null
+				|| !metaData.supportsAggregatePushDown( aggregateId )
+				|| ( inputColumnName == null && !AGGR_COUNT.equalsIgnoreCase( aggregateId ) ) )
+			throw newUnsupportedException( aggregateId );
+		aggregatedColumns.put( columnName, new String[]{
+				aggregateId, inputColumnName
+		} );
+	}
+
+	/**
+	 * Removes a column from the columns of the query.
+	 *
+	 * @param columnName
+	 */
+	public void hideColumn( String columnName )
+	{
+		hiddenColumns.add( columnName );
+	}
+
+	/**
+	 * Indicates whether there is no filter, sort key, aggregated or hidden
+	 * column, so that the query is not rewritten.
+	 *
+	 * @return
+	 */
+	public boolean isEmpty( )
+	{
+		return filterCondition == null
+				&& sortColumns.isEmpty( )
+				&& !needsColumnNames( );
+	}
+
+	/**
+	 * Indicates whether the query is rewritten with the columns of the query,
+	 * which must then have been set.
+	 *
+	 * @return
+	 */
+	public boolean needsColumnNames( )
+	{
+		return !aggregatedColumns.isEmpty( ) || !hiddenColumns.isEmpty( );
+	}
+
+	/**
+	 * Returns the columns referenced by the filters and sort keys, which are
+	 * columns of the derived table.
+	 *
+	 * @return
+	 */
+	public Set<String> getReferencedColumns( )
+	{
+		Set<String> columns = new LinkedHashSet<String>( filterColumns );
+		columns.addAll( sortColumns );
+		return columns;
+	}
+
+	/**
+	 * Returns the text of the query which wraps the specified query.
+	 *
+	 * @param queryText
+	 * @return
+	 * @throws OdaException
+	 *             if the database cannot wrap the query, or the columns of the
+	 *             query are needed and have not been set
+	 */
+	public String build( String queryText ) throws OdaException
+	{
+		String query = queryText.trim( );
+		// a statement terminator cannot be part of a derived table
+		while ( query.endsWith( ";" ) ) //$NON-NLS-1$
+			query = query.substring( 0, query.length( ) - 1 ).trim( );
+		if ( !metaData.supportsOrderByInDerivedTable( )
+				&& ORDER_BY_PATTERN.matcher( getTopLevelText( query ) ).find( ) )
+			throw new JDBCException( ResourceConstants.QUERY_SPEC_CANNOT_APPLY,
+					null,
+					queryText );
+
+		StringBuffer sql = new StringBuffer( "SELECT " ); //$NON-NLS-1$
+		List<String> groupColumns = new ArrayList<String>( );
+		if ( !needsColumnNames( ) )
+		{
+			sql.append( '*' );
+		}
+		else
+		{
+			if ( columnNames == null )
+				throw new JDBCException( ResourceConstants.QUERY_SPEC_CANNOT_APPLY,
+						null,
+						queryText );
+			Set<String> projectedColumns = new HashSet<String>( );
+			for ( int i = 0; i < columnNames.length; i++ )
+			{
+				String columnName = columnNames[i];
+				if ( hiddenColumns.contains( columnName )
+						|| !projectedColumns.add( columnName ) )
+					continue;
+				if ( projectedColumns.size( ) > 1 )
+					sql.append( ", " ); //$NON-NLS-1$
+				String[] aggregation = aggregatedColumns.get( columnName );
+				if ( aggregation == null )
+				{
+					sql.append( getColumnReference( columnName ) );
+					groupColumns.add( columnName );
+				}
+				else
+				{
+					sql.append( getAggregateFunction( aggregation[0],
+							aggregation[1] ) )
+							.append( " AS " ) //$NON-NLS-1$
+							.append( quoteIdentifier( columnLabels[i] ) );
+				}
+			}
+			if ( projectedColumns.isEmpty( )
+					|| !projectedColumns.containsAll( aggregatedColumns.keySet( ) ) )
+				throw new JDBCException( ResourceConstants.QUERY_SPEC_CANNOT_APPLY,
+						null,
+						queryText );
+			for ( String sortColumn : sortColumns )
+			{
+				// the rows can only be sorted by the projected columns
+				if ( !projectedColumns.contains( sortColumn ) )
+					throw newUnsupportedException( sortColumn );
+			}
+		}
+
+		sql.append( " FROM ( " ) //$NON-NLS-1$
+				.append( query )
+				.append( " ) " ) //$NON-NLS-1$
+				.append( QUERY_ALIAS );
+
+		if ( filterCondition != null )
+			sql.append( " WHERE " ).append( filterCondition ); //$NON-NLS-1$
+
+		if ( !aggregatedColumns.isEmpty( ) && !groupColumns.isEmpty( ) )
+		{
+			sql.append( " GROUP BY " ); //$NON-NLS-1$
+			for ( int i = 0; i < groupColumns.size( ); i++ )
+			{
+				if ( i > 0 )
+					sql.append( ", " ); //$NON-NLS-1$
+				sql.append( getColumnReference( groupColumns.get( i ) ) );
+			}
+		}
+
+		if ( !sortColumns.isEmpty( ) )
+		{
+			sql.append( " ORDER BY " ); //$NON-NLS-1$
+			for ( int i = 0; i < sortColumns.size( ); i++ )
+			{
+				if ( i > 0 )
+					sql.append( ", " ); //$NON-NLS-1$
+				sql.append( getColumnReference( sortColumns.get( i ) ) );
+				if ( sortDescending.get( i ).booleanValue( ) )
+					sql.append( " DESC" ); //$NON-NLS-1$
+			}
+		}
+		return sql.toString( );
+	}
+
+	private String getAggregateFunction( String aggregateId,
+			String inputColumnName )
+	{
+		if ( inputColumnName == null )
+			return "COUNT(*)"; //$NON-NLS-1$
+		String function = AGGR_AVE.equalsIgnoreCase( aggregateId ) ? AGGR_AVG
+				: aggregateId.toUpperCase( );
+		return function + "( " + getColumnReference( inputColumnName ) + " )"; //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	/**
+	 * Returns the values of the parameters of the filters, in the order of
+	 * their markers in the rewritten query.
+	 *
+	 * @return
+	 */
+	public Object[] getParameterValues( )
+	{
+		return parameterValues.toArray( );
+	}
+
+	/*
+	 * Returns the reference to a column of the derived table.
+	 */
+	private String getColumnReference( String columnName )
+	{
+		String columnLabel = columnLabelMap.get( columnName );
+		return quoteIdentifier( columnLabel != null ? columnLabel : columnName );
+	}
+
+	private String quoteIdentifier( String identifier )
+	{
+		if ( quote.length( ) == 0 )
+			return identifier;
+		return quote + identifier.replace( quote, quote + quote ) + quote;
+	}
+
+	/**
+	 * Returns the number of parameter markers of a query, which are not in a
+	 * literal, a quoted identifier or a comment.
+	 *
+	 * @param queryText
+	 * @return
+	 */
+	public static int getParameterMarkerCount( String queryText )
+	{
+		String text = getText( queryText, false );
+		int count = 0;
+		for ( int i = 0; i < text.length( ); i++ )
+		{
+			if ( text.charAt( i ) == '?' )
+				count++;
+		}
+		return count;
+	}
+
+	private static String getTopLevelText( String queryText )
+	{
+		return getText( queryText, true );
+	}
+
+	/*
+	 * Returns the text of a query where the literals, quoted identifiers and
+	 * comments, and the text between parentheses if topLevelOnly is true, are
+	 * replaced by spaces.
+	 */
+	private static String getText( String queryText, boolean topLevelOnly )
+	{
+		StringBuffer text = new StringBuffer( queryText.length( ) );
+		int depth = 0;
+		int i = 0;
+		while ( i < queryText.length( ) )
+		{
+			char c = queryText.charAt( i );
+			int end = i + 1;
+			if ( c == '\'' || c == '"' || c == '`' )
+			{
+				// a doubled quote is part of the literal
+				end = queryText.indexOf( c, end );
+				while ( end >= 0
+						&& end + 1 < queryText.length( )
+						&& queryText.charAt( end + 1 ) == c )
+					end = queryText.indexOf( c, end + 2 );
+				end = end < 0 ? queryText.length( ) : end + 1;
+			}
+			else if ( queryText.startsWith( "--", i ) ) //$NON-NLS-1$
+			{
+				end = queryText.indexOf( '\n', i );
+				end = end < 0 ? queryText.length( ) : end;
+			}
+			else if ( queryText.startsWith( "/*", i ) ) //$NON-NLS-1$
+			{
+				end = queryText.indexOf( "*/", i + 2 ); //$NON-NLS-1$
+				end = end < 0 ? queryText.length( ) : end + 2;
+			}
+			else
+			{
+				if ( c == ')' )
+					depth--;
+				text.append( topLevelOnly && depth > 0 ? ' ' : c );
+				if ( c == '(' )
+					depth++;
+				i = end;
+				continue;
+			}
+			for ( ; i < end; i++ )
+				text.append( ' ' );
+		}
+		return text.toString( );
+	}
+
+	private static OdaException newUnsupportedException( Object expression )
+	{
+		return new JDBCException( ResourceConstants.QUERY_SPEC_UNSUPPORTED_EXPRESSION,
+				null,
+				String.valueOf( expression ) );
+	}
+}
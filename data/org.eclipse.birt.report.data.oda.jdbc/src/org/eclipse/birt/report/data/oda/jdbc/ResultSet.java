@@ -49,6 +49,9 @@ public class ResultSet implements IResultSet
 
 	private java.sql.Connection conn;
 
+	/** adjusts the fetch size while the rows are read, or null */
+	private FetchSizeTuner fetchSizeTuner;
+
 	private static Logger logger = Logger.getLogger( ResultSet.class.getName( ) );
 
 	/**
@@ -89,6 +92,26 @@ public class ResultSet implements IResultSet
 
 	}
 
+	/**
+	 * Sets the tuner which adjusts the fetch size of the JDBC result set
+	 * while the rows are read.
+	 * 
+	 * @param tuner
+	 */
+	void setFetchSizeTuner( FetchSizeTuner tuner )
+	{
+		this.fetchSizeTuner = tuner;
+	}
+
+	/**
+	 * @return the tuner of the fetch size, or null if the fetch size is not
+	 *         adjusted
+	 */
+	FetchSizeTuner getFetchSizeTuner( )
+	{
+		return this.fetchSizeTuner;
+	}
+
 	/*
 	 *
 	 * @see org.eclipse.datatools.connectivity.oda.IResultSet#getMetaData()
@@ -126,6 +149,8 @@ public class ResultSet implements IResultSet
 				"close", //$NON-NLS-1$
 				"ResultSet.close()" );		 //$NON-NLS-1$
 		assertNotNull( rs );
+		if ( fetchSizeTuner != null )
+			fetchSizeTuner.close( );
 		try
 		{
 			/* redirect the call to JDBC ResultSet.close() */
@@ -186,7 +211,7 @@ public class ResultSet implements IResultSet
 		try
 		{
 			/* redirect the call to JDBC ResultSet.next() */
-			if ( currentRow < maxRows && rs.next( ) )
+			if ( currentRow < maxRows && nextRow( ) )
 			{
 				currentRow++;
 				return true;
@@ -199,6 +224,16 @@ public class ResultSet implements IResultSet
 		}
 	}
 
+	private boolean nextRow( ) throws SQLException
+	{
+		if ( fetchSizeTuner == null )
+			return rs.next( );
+		long start = System.nanoTime( );
+		boolean hasRow = rs.next( );
+		fetchSizeTuner.next( hasRow, System.nanoTime( ) - start );
+		return hasRow;
+	}
+
 	/*
 	 *
 	 * @see org.eclipse.datatools.connectivity.oda.IResultSet#getRow()
@@ -17,6 +17,8 @@ import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Time;
 import java.sql.Timestamp;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -60,6 +62,17 @@ public class Statement implements IQuery
 	private IResultSet cachedResultSet;
 	private QuerySpecification querySpec;
 	
+	/** applies the query spec to the query, or null if there is nothing to apply */
+	private QuerySpecSqlBuilder querySpecBuilder;
+	/** the number of parameters of the query, which precede those of the query spec */
+	private int querySpecParameterOffset;
+	private String effectiveQueryText;
+	
+	/** the settings of the adaptive fetch size of the data source */
+	private FetchSizePolicy fetchSizePolicy = FetchSizePolicy.DEFAULT;
+	/** indicates if the fetch size is set by the rowFetchSize property */
+	private boolean fixedFetchSize = false;
+	
 	/**
 	 * assertNull(Object o)
 	 * 
@@ -124,6 +137,27 @@ public class Statement implements IQuery
 			this.cachedResultMetaData = null;
 			this.cachedResultSet = null;
 			
+			// the filters, sorts and aggregations of the query spec are
+			// done by the database, which runs the query as a derived table
+			this.querySpecBuilder = null;
+			if ( querySpec != null
+					&& querySpec.getResultSetSpecification( ) != null
+					&& !querySpec.getResultSetSpecification( ).isEmpty( ) )
+			{
+				prepareWithQuerySpec( command );
+			}
+			if ( this.querySpecBuilder != null )
+			{
+				this.querySpecParameterOffset = QuerySpecSqlBuilder.getParameterMarkerCount( command );
+				logger.logp( java.util.logging.Level.FINE,
+						Statement.class.getName( ),
+						"prepare",
+						"Query spec applied: " + this.effectiveQueryText );
+				setQuerySpecParameters( );
+				return;
+			}
+			this.effectiveQueryText = command;
+			
 			/*
 			 * call the JDBC Connection.prepareStatement(String) method to get
 			 * the preparedStatement
@@ -137,6 +171,153 @@ public class Statement implements IQuery
 		}
 	}
 	
+	/**
+	 * Prepares the query rewritten with the query spec. The columns of the
+	 * derived table are usually named by the names of the columns of the
+	 * query, so the rewritten query is first prepared with them, and the
+	 * labels of the columns are only read from the query when they are needed
+	 * to aggregate or hide columns, or when a column is not found.
+	 * 
+	 * @param command
+	 * @throws OdaException
+	 *             if the query spec cannot be applied
+	 * @throws SQLException
+	 */
+	private void prepareWithQuerySpec( String command ) throws OdaException,
+			SQLException
+	{
+		QuerySpecSqlBuilder builder = createQuerySpecBuilder( null, null );
+		if ( builder.isEmpty( ) )
+			return;
+		if ( !builder.needsColumnNames( ) )
+		{
+			String queryText = builder.build( command );
+			PreparedStatement statement = null;
+			try
+			{
+				statement = conn.prepareStatement( queryText );
+			}
+			catch ( SQLException e )
+			{
+				// a column is referenced by its name instead of its label
+				logger.log( Level.FINE,
+						"Cannot prepare the query with the column names", e );
+			}
+			if ( statement != null
+					&& hasColumnLabels( statement,
+							builder.getReferencedColumns( ) ) )
+			{
+				this.querySpecBuilder = builder;
+				this.effectiveQueryText = queryText;
+				this.preStat = statement;
+				return;
+			}
+			if ( statement != null )
+				statement.close( );
+		}
+
+		// the columns of the query are needed when they are aggregated, or
+		// when their labels are the names of the columns of the derived table
+		String[] columnNames = null;
+		String[] columnLabels = null;
+		PreparedStatement statement = conn.prepareStatement( command );
+		try
+		{
+			java.sql.ResultSetMetaData resultmd = statement.getMetaData( );
+			if ( resultmd != null && resultmd.getColumnCount( ) > 0 )
+			{
+				columnNames = new String[resultmd.getColumnCount( )];
+				columnLabels = new String[columnNames.length];
+				for ( int i = 0; i < columnNames.length; i++ )
+				{
+					columnNames[i] = resultmd.getColumnName( i + 1 );
+					columnLabels[i] = resultmd.getColumnLabel( i + 1 );
+				}
+			}
+		}
+		catch ( SQLException e )
+		{
+			// the columns are only known when the query is run; the query
+			// spec can still be applied if it does not need them
+			logger.log( Level.FINE, "Cannot get the columns of the query", e );
+		}
+		finally
+		{
+			statement.close( );
+		}
+		builder = createQuerySpecBuilder( columnNames, columnLabels );
+		this.querySpecBuilder = builder;
+		this.effectiveQueryText = builder.build( command );
+		this.preStat = conn.prepareStatement( this.effectiveQueryText );
+	}
+
+	/**
+	 * Creates the builder which applies the query spec to a query.
+	 * 
+	 * @param columnNames
+	 *            the names of the columns of the query, or null
+	 * @param columnLabels
+	 *            the labels of the columns of the query, or null
+	 * @return
+	 * @throws OdaException
+	 *             if the query spec cannot be applied
+	 */
+	private QuerySpecSqlBuilder createQuerySpecBuilder( String[] columnNames,
+			String[] columnLabels ) throws OdaException, SQLException
+	{
+		QuerySpecSqlBuilder builder = new QuerySpecSqlBuilder( new DataSourceMetaData( null,
+				conn.getMetaData( ) ) );
+		if ( columnNames != null )
+			builder.setColumns( columnNames, columnLabels );
+		builder.addSpecification( querySpec );
+		return builder;
+	}
+
+	/**
+	 * Indicates whether the columns of a prepared statement include the
+	 * specified columns.
+	 * 
+	 * @param statement
+	 * @param columns
+	 * @return false if the columns of the statement are not known
+	 */
+	private static boolean hasColumnLabels( PreparedStatement statement,
+			Set<String> columns )
+	{
+		Set<String> labels = new HashSet<String>( );
+		try
+		{
+			java.sql.ResultSetMetaData resultmd = statement.getMetaData( );
+			if ( resultmd == null )
+				return false;
+			for ( int i = 1; i <= resultmd.getColumnCount( ); i++ )
+				labels.add( resultmd.getColumnLabel( i ) );
+		}
+		catch ( Throwable e )
+		{
+			// some drivers cannot describe a query before it is run
+			return false;
+		}
+		return labels.containsAll( columns );
+	}
+
+	/**
+	 * Sets the values of the parameters of the query spec, which follow the
+	 * parameters of the query.
+	 * 
+	 * @throws SQLException
+	 */
+	private void setQuerySpecParameters( ) throws SQLException
+	{
+		if ( querySpecBuilder == null )
+			return;
+		Object[] values = querySpecBuilder.getParameterValues( );
+		for ( int i = 0; i < values.length; i++ )
+		{
+			preStat.setObject( querySpecParameterOffset + i + 1, values[i] );
+		}
+	}
+
 	/*
 	 * @see org.eclipse.datatools.connectivity.oda.IQuery#setAppContext(java.lang.Object)
 	 */
@@ -145,6 +326,19 @@ public class Statement implements IQuery
 	    // do nothing; no support for pass-through application context
 	}
 
+	/**
+	 * Sets the settings of the adaptive fetch size, which are those of the
+	 * data source. The fetch size is not adjusted if it is set by the
+	 * rowFetchSize property.
+	 * 
+	 * @param policy
+	 */
+	public void setFetchSizePolicy( FetchSizePolicy policy )
+	{
+		this.fetchSizePolicy = policy == null ? FetchSizePolicy.DEFAULT
+				: policy;
+	}
+
 	/*
 	 * @see org.eclipse.datatools.connectivity.IQuery#setProperty(java.lang.String,
 	 *      java.lang.String)
@@ -189,12 +383,14 @@ public class Statement implements IQuery
 					if( rows > 10000 )
 						rows = 10000;
 					this.preStat.setFetchSize((int) rows);
+					this.fixedFetchSize = true;
 
 				} 
 				else 
 				{
-					//Default Set to 10000. This will slowdown MsSql,MySql,Postgress performance while enhance Oracle performance.
-					this.preStat.setFetchSize(10000);
+					// The fetch size is adjusted to the width of the rows
+					// and to the round trips when the query is executed.
+					this.fixedFetchSize = false;
 				}
 			} 
 			catch (SQLException e) 
@@ -474,8 +670,15 @@ public class Statement implements IQuery
 				}
 				maxRowsUpToDate = true;
 			}
+			if ( !fixedFetchSize )
+				fetchSizePolicy.prepare( preStat, maxrows );
 			/* redirect the call to JDBC preparedStatement.executeQuery() */
-			return new ResultSet( this.conn, this.preStat.executeQuery( ) );
+			java.sql.ResultSet rs = this.preStat.executeQuery( );
+			ResultSet resultSet = new ResultSet( this.conn, rs );
+			if ( !fixedFetchSize )
+				resultSet.setFetchSizeTuner( fetchSizePolicy.newTuner( rs,
+						maxrows ) );
+			return resultSet;
 		}
 		catch ( SQLException e )
 		{
@@ -994,7 +1197,9 @@ public class Statement implements IQuery
      */
     public String getEffectiveQueryText()
     {
-    	throw new UnsupportedOperationException( );
+    	if ( this.effectiveQueryText == null )
+    		throw new UnsupportedOperationException( );
+    	return this.effectiveQueryText;
     }
 
     public void clearInParameters() throws OdaException
@@ -1003,6 +1208,8 @@ public class Statement implements IQuery
 		try
 		{
 			preStat.clearParameters();
+			// the values of the query spec are not set by the consumer
+			setQuerySpecParameters( );
 		}
 		catch( SQLException ex )
 		{
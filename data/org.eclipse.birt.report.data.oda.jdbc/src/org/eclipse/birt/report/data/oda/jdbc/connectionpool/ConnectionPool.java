@@ -0,0 +1,427 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.report.data.oda.jdbc.connectionpool;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.eclipse.birt.report.data.oda.jdbc.JDBCDriverManager;
+import org.eclipse.datatools.connectivity.oda.OdaException;
+
+/**
+ * The pool of the connections of a driver class, URL, connection properties
+ * and driver class path.
+ */
+class ConnectionPool
+{
+
+	private static Logger logger = Logger.getLogger( ConnectionPool.class.getName( ) );
+
+	private String driverClass;
+	private String url;
+	private Properties connectionProps;
+	private Collection<String> driverClassPath;
+
+	private int minSize;
+	private int maxSize;
+	private long idleTimeout;
+	private long maxWait;
+	private long leakTimeout;
+	private int validationTimeout;
+
+	/**
+	 * the idle connections, the most recently returned last
+	 */
+	private LinkedList<PooledConnection> idleConnections = new LinkedList<PooledConnection>( );
+
+	private Set<PooledConnection> activeConnections = new HashSet<PooledConnection>( );
+
+	/**
+	 * the number of connections being opened
+	 */
+	private int pendingConnections;
+
+	private boolean closed;
+
+	private long createdCount;
+	private long destroyedCount;
+	private long borrowCount;
+	private long waitCount;
+	private long validationFailureCount;
+	private long leakCount;
+
+	ConnectionPool( String driverClass, String url, Properties connectionProps,
+			Collection<String> driverClassPath, int minSize, int maxSize,
+			long idleTimeout, long maxWait, long leakTimeout,
+			int validationTimeout )
+	{
+		this.driverClass = driverClass;
+		this.url = url;
+		this.connectionProps = connectionProps == null
+				? null
+				: (Properties) connectionProps.clone( );
+		this.driverClassPath = driverClassPath;
+		this.maxSize = Math.max( maxSize, 1 );
+		this.minSize = Math.min( Math.max( minSize, 0 ), this.maxSize );
+		this.idleTimeout = idleTimeout;
+		this.maxWait = maxWait;
+		this.leakTimeout = leakTimeout;
+		this.validationTimeout = validationTimeout;
+	}
+
+	/**
+	 * Borrows a connection. An idle connection is reused if it is valid, or a
+	 * new connection is opened if the pool is not full; otherwise the request
+	 * waits until a connection is returned.
+	 *
+	 * @return the connection, which is returned to the pool when it is closed
+	 * @throws SQLException
+	 *             if no connection is available within the maximum wait time
+	 * @throws OdaException
+	 */
+	java.sql.Connection borrow( ) throws SQLException, OdaException
+	{
+		long deadline = System.currentTimeMillis( ) + maxWait;
+		boolean waited = false;
+		while ( true )
+		{
+			PooledConnection candidate = null;
+			synchronized ( this )
+			{
+				if ( closed )
+				{
+					throw new SQLException( "The connection pool is closed." ); //$NON-NLS-1$
+				}
+				if ( !idleConnections.isEmpty( ) )
+				{
+					candidate = idleConnections.removeLast( );
+				}
+				else if ( activeConnections.size( ) + pendingConnections < maxSize )
+				{
+					pendingConnections++;
+				}
+				else
+				{
+					long remaining = deadline - System.currentTimeMillis( );
+					if ( remaining <= 0 )
+					{
+						throw new SQLException( "No pooled connection is available within " //$NON-NLS-1$
+								+ maxWait + " ms." ); //$NON-NLS-1$
+					}
+					if ( !waited )
+					{
+						waited = true;
+						waitCount++;
+					}
+					try
+					{
+						wait( remaining );
+					}
+					catch ( InterruptedException e )
+					{
+						Thread.currentThread( ).interrupt( );
+						throw new SQLException( e.getLocalizedMessage( ) );
+					}
+					continue;
+				}
+			}
+
+			if ( candidate == null )
+			{
+				PooledConnection connection = open( );
+				synchronized ( this )
+				{
+					return activate( connection );
+				}
+			}
+			if ( candidate.isValid( validationTimeout ) )
+			{
+				synchronized ( this )
+				{
+					return activate( candidate );
+				}
+			}
+			synchronized ( this )
+			{
+				validationFailureCount++;
+				notifyAll( );
+			}
+			destroy( candidate );
+		}
+	}
+
+	/**
+	 * Opens a physical connection reserved by a pending count.
+	 */
+	private PooledConnection open( ) throws SQLException, OdaException
+	{
+		PooledConnection connection = null;
+		try
+		{
+			java.sql.Connection physical = JDBCDriverManager.getInstance( )
+					.getConnection( driverClass,
+							url,
+							null,
+							connectionProps,
+							driverClassPath );
+			try
+			{
+				connection = new PooledConnection( this, physical );
+			}
+			finally
+			{
+				if ( connection == null )
+				{
+					physical.close( );
+				}
+			}
+			return connection;
+		}
+		finally
+		{
+			synchronized ( this )
+			{
+				pendingConnections--;
+				if ( connection != null )
+				{
+					createdCount++;
+				}
+				else
+				{
+					notifyAll( );
+				}
+			}
+		}
+	}
+
+	private java.sql.Connection activate( PooledConnection connection )
+	{
+		activeConnections.add( connection );
+		borrowCount++;
+		return connection.lease( leakTimeout > 0 );
+	}
+
+	/**
+	 * Returns a connection to the pool once its state is reset.
+	 */
+	void giveBack( PooledConnection connection )
+	{
+		boolean reusable = connection.reset( );
+		synchronized ( this )
+		{
+			if ( !activeConnections.remove( connection ) )
+			{
+				// discarded
+				return;
+			}
+			if ( reusable && !closed )
+			{
+				connection.setLastUsed( System.currentTimeMillis( ) );
+				idleConnections.addLast( connection );
+				notifyAll( );
+				return;
+			}
+			notifyAll( );
+		}
+		destroy( connection );
+	}
+
+	/**
+	 * Removes a connection from the pool and closes it, unless it was
+	 * borrowed again since the lease of the handle.
+	 */
+	void discard( PooledConnection connection, PooledConnection.Handle lease )
+	{
+		synchronized ( this )
+		{
+			if ( !connection.isLeasedBy( lease ) )
+			{
+				return;
+			}
+			if ( !activeConnections.remove( connection )
+					&& !idleConnections.remove( connection ) )
+			{
+				return;
+			}
+			notifyAll( );
+		}
+		destroy( connection );
+	}
+
+	private void destroy( PooledConnection connection )
+	{
+		connection.closePhysical( );
+		synchronized ( this )
+		{
+			destroyedCount++;
+		}
+	}
+
+	/**
+	 * Closes the idle connections which timed out, reports the leaked
+	 * connections, and opens the connections missing to reach the minimum
+	 * size.
+	 */
+	void maintain( )
+	{
+		List<PooledConnection> evicted = new ArrayList<PooledConnection>( );
+		int missing;
+		synchronized ( this )
+		{
+			if ( closed )
+			{
+				return;
+			}
+			long now = System.currentTimeMillis( );
+			// the least recently used connections are first
+			for ( Iterator<PooledConnection> i = idleConnections.iterator( ); i.hasNext( ); )
+			{
+				PooledConnection connection = i.next( );
+				if ( idleTimeout > 0
+						&& now - connection.getLastUsed( ) >= idleTimeout
+						&& getSize( ) > minSize )
+				{
+					i.remove( );
+					evicted.add( connection );
+				}
+			}
+			if ( leakTimeout > 0 )
+			{
+				for ( Iterator<PooledConnection> i = activeConnections.iterator( ); i.hasNext( ); )
+				{
+					PooledConnection connection = i.next( );
+					if ( connection.checkLeak( now, leakTimeout ) )
+					{
+						leakCount++;
+						logger.log( Level.WARNING,
+								"A JDBC connection has not been returned to the pool for " //$NON-NLS-1$
+										+ ( now - connection.getBorrowTime( ) )
+										+ " ms; it was borrowed at:", //$NON-NLS-1$
+								connection.getBorrowTrace( ) );
+					}
+				}
+			}
+			missing = minSize - getSize( );
+			if ( missing > 0 )
+			{
+				pendingConnections += missing;
+			}
+		}
+		for ( int i = 0; i < evicted.size( ); i++ )
+		{
+			destroy( evicted.get( i ) );
+		}
+		for ( int i = 0; i < missing; i++ )
+		{
+			try
+			{
+				PooledConnection connection = open( );
+				synchronized ( this )
+				{
+					if ( !closed )
+					{
+						connection.setLastUsed( System.currentTimeMillis( ) );
+						idleConnections.addFirst( connection );
+						notifyAll( );
+						continue;
+					}
+				}
+				destroy( connection );
+			}
+			catch ( Exception e )
+			{
+				logger.log( Level.FINE, e.getMessage( ), e );
+				synchronized ( this )
+				{
+					pendingConnections -= missing - i - 1;
+					notifyAll( );
+				}
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Closes the idle connections, and the active connections when they are
+	 * returned.
+	 */
+	void close( )
+	{
+		List<PooledConnection> idle;
+		synchronized ( this )
+		{
+			closed = true;
+			idle = new ArrayList<PooledConnection>( idleConnections );
+			idleConnections.clear( );
+			notifyAll( );
+		}
+		for ( int i = 0; i < idle.size( ); i++ )
+		{
+			destroy( idle.get( i ) );
+		}
+	}
+
+	private int getSize( )
+	{
+		return idleConnections.size( ) + activeConnections.size( )
+				+ pendingConnections;
+	}
+
+	synchronized int getActiveCount( )
+	{
+		return activeConnections.size( );
+	}
+
+	synchronized int getIdleCount( )
+	{
+		return idleConnections.size( );
+	}
+
+	synchronized long getCreatedCount( )
+	{
+		return createdCount;
+	}
+
+	synchronized long getDestroyedCount( )
+	{
+		return destroyedCount;
+	}
+
+	synchronized long getBorrowCount( )
+	{
+		return borrowCount;
+	}
+
+	synchronized long getWaitCount( )
+	{
+		return waitCount;
+	}
+
+	synchronized long getValidationFailureCount( )
+	{
+		return validationFailureCount;
+	}
+
+	synchronized long getLeakCount( )
+	{
+		return leakCount;
+	}
+}
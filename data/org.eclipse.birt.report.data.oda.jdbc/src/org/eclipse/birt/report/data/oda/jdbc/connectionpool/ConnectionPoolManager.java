@@ -0,0 +1,428 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.report.data.oda.jdbc.connectionpool;
+
+import java.io.Closeable;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.eclipse.birt.report.data.oda.jdbc.IConnectionPoolManager;
+import org.eclipse.datatools.connectivity.oda.OdaException;
+
+/**
+ * Connection pool manager of the ODA JDBC driver. The connections are pooled
+ * by driver class, URL, connection properties (including the user) and driver
+ * class path. Pooling is enabled by setting POOL_ENABLED to true in the
+ * application context; the other settings of a pool are read from the
+ * application context which creates it.
+ * <ul>
+ * <li>A pool keeps at least the minimum number of connections, and opens at
+ * most the maximum number of connections. A request waits for a connection
+ * when the maximum is reached.</li>
+ * <li>Idle connections are closed after the idle timeout.</li>
+ * <li>Idle connections are validated before they are reused.</li>
+ * <li>Connections used longer than the leak timeout are reported with the
+ * stack trace of the code which borrowed them.</li>
+ * </ul>
+ * The connections are returned to their pool when they are closed, after the
+ * statements left open are closed, their transaction is rolled back and their
+ * settings are restored.
+ */
+public class ConnectionPoolManager implements IConnectionPoolManager, Closeable
+{
+
+	/**
+	 * Whether the connections are pooled, Boolean or String, false by default
+	 */
+	public static final String POOL_ENABLED = "OdaJDBCDriverConnectionPoolEnabled";
+
+	/**
+	 * The minimum number of connections of a pool, 0 by default
+	 */
+	public static final String POOL_MIN_SIZE = "OdaJDBCDriverConnectionPoolMinSize";
+
+	/**
+	 * The maximum number of connections of a pool, 10 by default
+	 */
+	public static final String POOL_MAX_SIZE = "OdaJDBCDriverConnectionPoolMaxSize";
+
+	/**
+	 * The time in milliseconds after which an idle connection is closed, 5
+	 * minutes by default
+	 */
+	public static final String POOL_IDLE_TIMEOUT = "OdaJDBCDriverConnectionPoolIdleTimeout";
+
+	/**
+	 * The maximum time in milliseconds a request waits for a connection, 30
+	 * seconds by default
+	 */
+	public static final String POOL_MAX_WAIT = "OdaJDBCDriverConnectionPoolMaxWait";
+
+	/**
+	 * The time in milliseconds after which a connection which is not returned
+	 * is reported as leaked, 10 minutes by default, 0 to disable the leak
+	 * detection
+	 */
+	public static final String POOL_LEAK_TIMEOUT = "OdaJDBCDriverConnectionPoolLeakTimeout";
+
+	/**
+	 * The time in seconds to wait for the validation of an idle connection, 5
+	 * seconds by default
+	 */
+	public static final String POOL_VALIDATION_TIMEOUT = "OdaJDBCDriverConnectionPoolValidationTimeout";
+
+	static final int DEFAULT_MIN_SIZE = 0;
+	static final int DEFAULT_MAX_SIZE = 10;
+	static final long DEFAULT_IDLE_TIMEOUT = 5 * 60 * 1000;
+	static final long DEFAULT_MAX_WAIT = 30 * 1000;
+	static final long DEFAULT_LEAK_TIMEOUT = 10 * 60 * 1000;
+	static final int DEFAULT_VALIDATION_TIMEOUT = 5;
+
+	/**
+	 * the interval of the idle connection eviction and the leak detection
+	 */
+	private static final long MAINTENANCE_INTERVAL = 30 * 1000;
+
+	private static Logger logger = Logger.getLogger( ConnectionPoolManager.class.getName( ) );
+
+	private Map<String, ConnectionPool> pools = new HashMap<String, ConnectionPool>( );
+
+	private Timer timer;
+
+	/*
+	 * @see org.eclipse.birt.report.data.oda.jdbc.IConnectionPoolManager#getConnection(java.lang.String, java.lang.String, java.util.Properties, java.util.Collection, java.util.Map)
+	 */
+	public java.sql.Connection getConnection( String driverClass, String url,
+			Properties connectionProps, Collection<String> driverClassPath,
+			Map appContext ) throws SQLException, OdaException
+	{
+		if ( !getBoolean( appContext, POOL_ENABLED ) )
+		{
+			return null;
+		}
+		String key = createKey( driverClass,
+				url,
+				connectionProps,
+				driverClassPath );
+		ConnectionPool pool;
+		synchronized ( this )
+		{
+			pool = pools.get( key );
+			if ( pool == null )
+			{
+				pool = new ConnectionPool( driverClass,
+						url,
+						connectionProps,
+						driverClassPath,
+						getInt( appContext, POOL_MIN_SIZE, DEFAULT_MIN_SIZE ),
+						getInt( appContext, POOL_MAX_SIZE, DEFAULT_MAX_SIZE ),
+						getLong( appContext, POOL_IDLE_TIMEOUT,
+								DEFAULT_IDLE_TIMEOUT ),
+						getLong( appContext, POOL_MAX_WAIT, DEFAULT_MAX_WAIT ),
+						getLong( appContext, POOL_LEAK_TIMEOUT,
+								DEFAULT_LEAK_TIMEOUT ),
+						getInt( appContext, POOL_VALIDATION_TIMEOUT,
+								DEFAULT_VALIDATION_TIMEOUT ) );
+				pools.put( key, pool );
+				startMaintenance( );
+			}
+		}
+		return pool.borrow( );
+	}
+
+	/**
+	 * Closes a pooled connection which must not be reused, for example after
+	 * its statement was cancelled. Connections which are not pooled are
+	 * ignored.
+	 *
+	 * @see org.eclipse.birt.report.data.oda.jdbc.IConnectionPoolManager#closeConnection(java.sql.Connection)
+	 */
+	public void closeConnection( java.sql.Connection connection )
+			throws OdaException, SQLException
+	{
+		if ( connection == null || !Proxy.isProxyClass( connection.getClass( ) ) )
+		{
+			return;
+		}
+		InvocationHandler handler = Proxy.getInvocationHandler( connection );
+		if ( handler instanceof PooledConnection.Handle )
+		{
+			( (PooledConnection.Handle) handler ).discard( );
+		}
+	}
+
+	/**
+	 * Closes all the pools and their idle connections. The connections in use
+	 * are closed when they are returned.
+	 */
+	public void close( )
+	{
+		List<ConnectionPool> closed;
+		synchronized ( this )
+		{
+			if ( timer != null )
+			{
+				timer.cancel( );
+				timer = null;
+			}
+			closed = new ArrayList<ConnectionPool>( pools.values( ) );
+			pools.clear( );
+		}
+		for ( int i = 0; i < closed.size( ); i++ )
+		{
+			closed.get( i ).close( );
+		}
+	}
+
+	private void startMaintenance( )
+	{
+		if ( timer != null )
+		{
+			return;
+		}
+		timer = new Timer( "BIRT JDBC connection pool", true ); //$NON-NLS-1$
+		timer.schedule( new TimerTask( ) {
+
+			public void run( )
+			{
+				maintain( );
+			}
+		}, MAINTENANCE_INTERVAL, MAINTENANCE_INTERVAL );
+	}
+
+	/**
+	 * Closes the idle connections which timed out, reports the leaked
+	 * connections, and opens the connections missing in the pools.
+	 */
+	void maintain( )
+	{
+		List<ConnectionPool> current;
+		synchronized ( this )
+		{
+			current = new ArrayList<ConnectionPool>( pools.values( ) );
+		}
+		for ( int i = 0; i < current.size( ); i++ )
+		{
+			try
+			{
+				current.get( i ).maintain( );
+			}
+			catch ( RuntimeException e )
+			{
+				logger.log( Level.WARNING, e.getMessage( ), e );
+			}
+		}
+		if ( logger.isLoggable( Level.FINE ) )
+		{
+			logger.log( Level.FINE,
+					"JDBC connection pools: {0}, active {1}, idle {2}, created {3}, destroyed {4}, borrowed {5}, waited {6}, validation failures {7}, leaks {8}", //$NON-NLS-1$
+					new Object[]{
+							Integer.valueOf( getPoolCount( ) ),
+							Integer.valueOf( getActiveConnectionCount( ) ),
+							Integer.valueOf( getIdleConnectionCount( ) ),
+							Long.valueOf( getCreatedConnectionCount( ) ),
+							Long.valueOf( getDestroyedConnectionCount( ) ),
+							Long.valueOf( getBorrowCount( ) ),
+							Long.valueOf( getWaitCount( ) ),
+							Long.valueOf( getValidationFailureCount( ) ),
+							Long.valueOf( getLeakCount( ) )
+					} );
+		}
+	}
+
+	/**
+	 * @return the number of pools
+	 */
+	public synchronized int getPoolCount( )
+	{
+		return pools.size( );
+	}
+
+	/**
+	 * @return the number of pooled connections in use
+	 */
+	public int getActiveConnectionCount( )
+	{
+		int count = 0;
+		for ( Iterator<ConnectionPool> i = getPools( ).iterator( ); i.hasNext( ); )
+		{
+			count += i.next( ).getActiveCount( );
+		}
+		return count;
+	}
+
+	/**
+	 * @return the number of idle pooled connections
+	 */
+	public int getIdleConnectionCount( )
+	{
+		int count = 0;
+		for ( Iterator<ConnectionPool> i = getPools( ).iterator( ); i.hasNext( ); )
+		{
+			count += i.next( ).getIdleCount( );
+		}
+		return count;
+	}
+
+	/**
+	 * @return the number of connections opened by the pools
+	 */
+	public long getCreatedConnectionCount( )
+	{
+		long count = 0;
+		for ( Iterator<ConnectionPool> i = getPools( ).iterator( ); i.hasNext( ); )
+		{
+			count += i.next( ).getCreatedCount( );
+		}
+		return count;
+	}
+
+	/**
+	 * @return the number of connections closed by the pools
+	 */
+	public long getDestroyedConnectionCount( )
+	{
+		long count = 0;
+		for ( Iterator<ConnectionPool> i = getPools( ).iterator( ); i.hasNext( ); )
+		{
+			count += i.next( ).getDestroyedCount( );
+		}
+		return count;
+	}
+
+	/**
+	 * @return the number of connections borrowed from the pools
+	 */
+	public long getBorrowCount( )
+	{
+		long count = 0;
+		for ( Iterator<ConnectionPool> i = getPools( ).iterator( ); i.hasNext( ); )
+		{
+			count += i.next( ).getBorrowCount( );
+		}
+		return count;
+	}
+
+	/**
+	 * @return the number of requests which waited for a connection
+	 */
+	public long getWaitCount( )
+	{
+		long count = 0;
+		for ( Iterator<ConnectionPool> i = getPools( ).iterator( ); i.hasNext( ); )
+		{
+			count += i.next( ).getWaitCount( );
+		}
+		return count;
+	}
+
+	/**
+	 * @return the number of idle connections which were invalid
+	 */
+	public long getValidationFailureCount( )
+	{
+		long count = 0;
+		for ( Iterator<ConnectionPool> i = getPools( ).iterator( ); i.hasNext( ); )
+		{
+			count += i.next( ).getValidationFailureCount( );
+		}
+		return count;
+	}
+
+	/**
+	 * @return the number of connections reported as leaked
+	 */
+	public long getLeakCount( )
+	{
+		long count = 0;
+		for ( Iterator<ConnectionPool> i = getPools( ).iterator( ); i.hasNext( ); )
+		{
+			count += i.next( ).getLeakCount( );
+		}
+		return count;
+	}
+
+	private synchronized List<ConnectionPool> getPools( )
+	{
+		return new ArrayList<ConnectionPool>( pools.values( ) );
+	}
+
+	private static String createKey( String driverClass, String url,
+			Properties connectionProps, Collection<String> driverClassPath )
+	{
+		StringBuffer key = new StringBuffer( );
+		key.append( driverClass ).append( '|' ).append( url ).append( '|' );
+		if ( connectionProps != null )
+		{
+			Map<String, String> sorted = new TreeMap<String, String>( );
+			for ( Iterator i = connectionProps.keySet( ).iterator( ); i.hasNext( ); )
+			{
+				String name = String.valueOf( i.next( ) );
+				sorted.put( name, connectionProps.getProperty( name ) );
+			}
+			key.append( sorted );
+		}
+		key.append( '|' ).append( driverClassPath );
+		return key.toString( );
+	}
+
+	private static boolean getBoolean( Map appContext, String name )
+	{
+		Object value = appContext == null ? null : appContext.get( name );
+		if ( value instanceof Boolean )
+		{
+			return ( (Boolean) value ).booleanValue( );
+		}
+		return value != null && Boolean.valueOf( value.toString( ).trim( ) );
+	}
+
+	private static int getInt( Map appContext, String name, int defaultValue )
+	{
+		return (int) getLong( appContext, name, defaultValue );
+	}
+
+	private static long getLong( Map appContext, String name,
+			long defaultValue )
+	{
+		Object value = appContext == null ? null : appContext.get( name );
+		if ( value instanceof Number )
+		{
+			return ( (Number) value ).longValue( );
+		}
+		if ( value != null )
+		{
+			try
+			{
+				return Long.parseLong( value.toString( ).trim( ) );
+			}
+			catch ( NumberFormatException e )
+			{
+				logger.log( Level.WARNING, "Invalid value of " + name + ": " //$NON-NLS-1$ //$NON-NLS-2$
+						+ value );
+			}
+		}
+		return defaultValue;
+	}
+}
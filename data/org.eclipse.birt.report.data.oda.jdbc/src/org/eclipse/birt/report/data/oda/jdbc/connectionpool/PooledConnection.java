@@ -0,0 +1,414 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.report.data.oda.jdbc.connectionpool;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A physical connection of a pool. Each time the connection is borrowed, it
+ * is handed out through a new proxy, so that a proxy which was closed cannot
+ * use the connection once it is borrowed again. The statements created through
+ * the proxy are proxies as well, which are closed when the connection is
+ * returned and which do not expose the physical connection.
+ */
+class PooledConnection
+{
+
+	private static Logger logger = Logger.getLogger( PooledConnection.class.getName( ) );
+
+	private ConnectionPool pool;
+
+	private Connection physical;
+
+	private boolean autoCommit;
+
+	private int transactionIsolation;
+
+	private boolean readOnly;
+
+	private String catalog;
+
+	private long lastUsed;
+
+	private long borrowTime;
+
+	private Throwable borrowTrace;
+
+	private boolean leakReported;
+
+	/**
+	 * the handle of the current or last lease
+	 */
+	private Handle handle;
+
+	PooledConnection( ConnectionPool pool, Connection physical )
+			throws SQLException
+	{
+		this.pool = pool;
+		this.physical = physical;
+		this.autoCommit = physical.getAutoCommit( );
+		this.transactionIsolation = physical.getTransactionIsolation( );
+		this.readOnly = physical.isReadOnly( );
+		this.catalog = physical.getCatalog( );
+	}
+
+	/**
+	 * Hands out the connection.
+	 *
+	 * @param trace
+	 *            whether the stack trace of the caller is kept for the leak
+	 *            detection
+	 * @return the proxy of the connection
+	 */
+	Connection lease( boolean trace )
+	{
+		borrowTime = System.currentTimeMillis( );
+		borrowTrace = trace ? new Throwable( "Connection borrowed" ) : null; //$NON-NLS-1$
+		leakReported = false;
+		handle = new Handle( );
+		handle.connection = (Connection) Proxy.newProxyInstance( PooledConnection.class.getClassLoader( ),
+				new Class[]{
+					Connection.class
+				},
+				handle );
+		return handle.connection;
+	}
+
+	/**
+	 * Rolls back the transaction in progress and restores the settings of the
+	 * connection.
+	 *
+	 * @return whether the connection can be reused
+	 */
+	boolean reset( )
+	{
+		try
+		{
+			if ( physical.isClosed( ) )
+			{
+				return false;
+			}
+			if ( !physical.getAutoCommit( ) )
+			{
+				physical.rollback( );
+			}
+			if ( physical.getAutoCommit( ) != autoCommit )
+			{
+				physical.setAutoCommit( autoCommit );
+			}
+			if ( physical.getTransactionIsolation( ) != transactionIsolation )
+			{
+				physical.setTransactionIsolation( transactionIsolation );
+			}
+			if ( physical.isReadOnly( ) != readOnly )
+			{
+				physical.setReadOnly( readOnly );
+			}
+			if ( catalog != null && !catalog.equals( physical.getCatalog( ) ) )
+			{
+				physical.setCatalog( catalog );
+			}
+			physical.clearWarnings( );
+			return true;
+		}
+		catch ( SQLException e )
+		{
+			logger.log( Level.FINE, e.getMessage( ), e );
+			return false;
+		}
+	}
+
+	/**
+	 * Checks whether an idle connection can be reused.
+	 */
+	boolean isValid( int timeout )
+	{
+		try
+		{
+			return physical.isValid( timeout );
+		}
+		catch ( AbstractMethodError e )
+		{
+			// the driver does not implement JDBC 4
+		}
+		catch ( SQLFeatureNotSupportedException e )
+		{
+		}
+		catch ( SQLException e )
+		{
+			logger.log( Level.FINE, e.getMessage( ), e );
+			return false;
+		}
+		try
+		{
+			return !physical.isClosed( );
+		}
+		catch ( SQLException e )
+		{
+			return false;
+		}
+	}
+
+	void closePhysical( )
+	{
+		try
+		{
+			if ( !physical.isClosed( ) )
+			{
+				physical.close( );
+			}
+		}
+		catch ( SQLException e )
+		{
+			logger.log( Level.FINE, e.getMessage( ), e );
+		}
+	}
+
+	/**
+	 * Returns whether the connection is newly detected as leaked.
+	 */
+	boolean checkLeak( long now, long leakTimeout )
+	{
+		if ( leakReported || now - borrowTime < leakTimeout )
+		{
+			return false;
+		}
+		leakReported = true;
+		return true;
+	}
+
+	/**
+	 * Returns whether a handle is the handle of the current or last lease.
+	 */
+	boolean isLeasedBy( Handle lease )
+	{
+		return handle == lease;
+	}
+
+	long getBorrowTime( )
+	{
+		return borrowTime;
+	}
+
+	Throwable getBorrowTrace( )
+	{
+		return borrowTrace;
+	}
+
+	long getLastUsed( )
+	{
+		return lastUsed;
+	}
+
+	void setLastUsed( long lastUsed )
+	{
+		this.lastUsed = lastUsed;
+	}
+
+	/**
+	 * The invocation handler of the proxy handed out by a lease.
+	 */
+	class Handle implements InvocationHandler
+	{
+
+		private volatile boolean closed;
+
+		/**
+		 * the proxy of the connection handed out by the lease
+		 */
+		private Connection connection;
+
+		/**
+		 * the physical statements created during the lease and not closed
+		 */
+		private List<Statement> statements = new ArrayList<Statement>( );
+
+		public Object invoke( Object proxy, Method method, Object[] args )
+				throws Throwable
+		{
+			String name = method.getName( );
+			if ( "close".equals( name ) ) //$NON-NLS-1$
+			{
+				if ( !closed )
+				{
+					closed = true;
+					closeStatements( );
+					pool.giveBack( PooledConnection.this );
+				}
+				return null;
+			}
+			if ( "isClosed".equals( name ) && closed ) //$NON-NLS-1$
+			{
+				return Boolean.TRUE;
+			}
+			if ( "equals".equals( name ) ) //$NON-NLS-1$
+			{
+				return Boolean.valueOf( proxy == args[0] );
+			}
+			if ( "hashCode".equals( name ) ) //$NON-NLS-1$
+			{
+				return Integer.valueOf( System.identityHashCode( proxy ) );
+			}
+			if ( "toString".equals( name ) ) //$NON-NLS-1$
+			{
+				return "Pooled " + physical; //$NON-NLS-1$
+			}
+			if ( closed )
+			{
+				throw new SQLException( "The connection is closed." ); //$NON-NLS-1$
+			}
+			Object result;
+			try
+			{
+				result = method.invoke( physical, args );
+			}
+			catch ( InvocationTargetException e )
+			{
+				throw e.getCause( );
+			}
+			if ( result instanceof Statement
+					&& ( "createStatement".equals( name ) //$NON-NLS-1$
+							|| "prepareStatement".equals( name ) //$NON-NLS-1$
+							|| "prepareCall".equals( name ) ) ) //$NON-NLS-1$
+			{
+				return track( (Statement) result, method.getReturnType( ) );
+			}
+			return result;
+		}
+
+		/**
+		 * Keeps a statement until it is closed, and hands it out through a
+		 * proxy of its interface.
+		 */
+		private Statement track( Statement statement, Class<?> type )
+		{
+			synchronized ( statements )
+			{
+				statements.add( statement );
+			}
+			return (Statement) Proxy.newProxyInstance( PooledConnection.class.getClassLoader( ),
+					new Class[]{
+						type
+					},
+					new StatementHandle( this, statement ) );
+		}
+
+		private void untrack( Statement statement )
+		{
+			synchronized ( statements )
+			{
+				statements.remove( statement );
+			}
+		}
+
+		/**
+		 * Closes the statements the lease did not close, before the
+		 * connection is reset.
+		 */
+		private void closeStatements( )
+		{
+			List<Statement> open;
+			synchronized ( statements )
+			{
+				open = new ArrayList<Statement>( statements );
+				statements.clear( );
+			}
+			for ( int i = 0; i < open.size( ); i++ )
+			{
+				try
+				{
+					open.get( i ).close( );
+				}
+				catch ( SQLException e )
+				{
+					logger.log( Level.FINE, e.getMessage( ), e );
+				}
+			}
+		}
+
+		/**
+		 * Closes the physical connection if it was not borrowed again since
+		 * this lease.
+		 */
+		void discard( )
+		{
+			closed = true;
+			pool.discard( PooledConnection.this, this );
+		}
+	}
+
+	/**
+	 * The invocation handler of the proxy of a statement created during a
+	 * lease.
+	 */
+	private static class StatementHandle implements InvocationHandler
+	{
+
+		private Handle lease;
+
+		private Statement statement;
+
+		StatementHandle( Handle lease, Statement statement )
+		{
+			this.lease = lease;
+			this.statement = statement;
+		}
+
+		public Object invoke( Object proxy, Method method, Object[] args )
+				throws Throwable
+		{
+			String name = method.getName( );
+			if ( "getConnection".equals( name ) ) //$NON-NLS-1$
+			{
+				return lease.connection;
+			}
+			if ( "equals".equals( name ) ) //$NON-NLS-1$
+			{
+				return Boolean.valueOf( proxy == args[0] );
+			}
+			if ( "hashCode".equals( name ) ) //$NON-NLS-1$
+			{
+				return Integer.valueOf( System.identityHashCode( proxy ) );
+			}
+			if ( "toString".equals( name ) ) //$NON-NLS-1$
+			{
+				return "Pooled " + statement; //$NON-NLS-1$
+			}
+			try
+			{
+				return method.invoke( statement, args );
+			}
+			catch ( InvocationTargetException e )
+			{
+				throw e.getCause( );
+			}
+			finally
+			{
+				if ( "close".equals( name ) ) //$NON-NLS-1$
+				{
+					lease.untrack( statement );
+				}
+			}
+		}
+	}
+}
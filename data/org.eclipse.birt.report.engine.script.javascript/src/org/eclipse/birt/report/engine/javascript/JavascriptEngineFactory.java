@@ -12,7 +12,10 @@
 package org.eclipse.birt.report.engine.javascript;
 
 import java.lang.reflect.Field;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -22,6 +25,8 @@ import org.eclipse.birt.core.script.IScriptEngineFactory;
 import org.mozilla.javascript.ClassCache;
 import org.mozilla.javascript.Context;
 import org.mozilla.javascript.ContextFactory;
+import org.mozilla.javascript.NativeJavaPackage;
+import org.mozilla.javascript.Scriptable;
 import org.mozilla.javascript.ScriptableObject;
 import org.mozilla.javascript.SecurityController;
 
@@ -39,6 +44,30 @@ public class JavascriptEngineFactory implements IScriptEngineFactory
 	 */
 	private LinkedList<ScriptableObject> rootScopes = new LinkedList<ScriptableObject>( );
 
+	/**
+	 * the maximum number of idle root scopes kept for reuse.
+	 */
+	private static final int MAX_IDLE_ROOT_SCOPES = Math.max( 8, Runtime
+			.getRuntime( ).availableProcessors( ) * 2 );
+
+	/**
+	 * key of the snapshot of the standard objects associated to a root scope.
+	 */
+	private static final String ROOT_SCOPE_SNAPSHOT = "org.eclipse.birt.report.engine.javascript.RootScopeSnapshot";
+
+	/**
+	 * path of the properties of the RegExp constructor in a snapshot.
+	 */
+	private static final String REGEXP_PATH = "RegExp.";
+
+	private int createdRootScopes;
+
+	private int reusedRootScopes;
+
+	private int discardedRootScopes;
+
+	private int activeRootScopes;
+
 	public static void initMyFactory( )
 	{
 		ContextFactory.initGlobal( new MyFactory( ) );
@@ -82,6 +111,11 @@ public class JavascriptEngineFactory implements IScriptEngineFactory
 							rootScope,
 							"function unregisterGlobal(name) { _jsContext.unregisterGlobalBean(name); }",
 							"<inline>", 0, null );
+			// the first snapshot initializes the lazily loaded objects, the
+			// second one is the state the scope is checked against.
+			createSnapshot( rootScope );
+			rootScope.associateValue( ROOT_SCOPE_SNAPSHOT,
+					createSnapshot( rootScope ) );
 			return rootScope;
 		}
 		catch ( Exception ex )
@@ -99,14 +133,34 @@ public class JavascriptEngineFactory implements IScriptEngineFactory
 	synchronized protected ScriptableObject getRootScope( )
 			throws BirtException
 	{
+		ScriptableObject rootScope;
 		if ( !rootScopes.isEmpty( ) )
 		{
-			return rootScopes.remove( );
+			rootScope = rootScopes.remove( );
+			reusedRootScopes++;
+		}
+		else
+		{
+			rootScope = createRootScope( );
+			if ( rootScope == null )
+			{
+				return null;
+			}
+			createdRootScopes++;
 		}
-		return createRootScope( );
+		activeRootScopes++;
+		return rootScope;
 	}
 
-	synchronized protected void releaseRootScope( ScriptableObject rootScope )
+	/**
+	 * Returns a root scope to the pool. The scope is discarded if the pool is
+	 * full, or if the scripts which used it have modified the standard
+	 * objects, as the modifications would be seen by the next scripts. The
+	 * scope is checked before the pool is locked, as it is not shared yet.
+	 * 
+	 * @param rootScope
+	 */
+	protected void releaseRootScope( ScriptableObject rootScope )
 	{
 		if ( rootScope != null )
 		{
@@ -115,10 +169,187 @@ public class JavascriptEngineFactory implements IScriptEngineFactory
 			{
 				classCache.clearCaches( );
 			}
-			rootScopes.add( rootScope );
+			boolean modified = isModified( rootScope );
+			synchronized ( this )
+			{
+				activeRootScopes--;
+				if ( modified || rootScopes.size( ) >= MAX_IDLE_ROOT_SCOPES )
+				{
+					discardedRootScopes++;
+					return;
+				}
+				rootScopes.add( rootScope );
+				if ( logger.isLoggable( Level.FINE ) )
+				{
+					logger.log( Level.FINE,
+							"Script root scopes: created {0}, reused {1}, discarded {2}, idle {3}, in use {4}",
+							new Object[]{Integer.valueOf( createdRootScopes ),
+									Integer.valueOf( reusedRootScopes ),
+									Integer.valueOf( discardedRootScopes ),
+									Integer.valueOf( rootScopes.size( ) ),
+									Integer.valueOf( activeRootScopes )} );
+				}
+			}
+		}
+	}
+
+	/**
+	 * Checks whether the standard objects of a root scope, their properties or
+	 * the properties of their prototypes differ from the snapshot taken when
+	 * the scope was created.
+	 */
+	private boolean isModified( ScriptableObject rootScope )
+	{
+		Object snapshot = rootScope.getAssociatedValue( ROOT_SCOPE_SNAPSHOT );
+		if ( !( snapshot instanceof Map ) )
+		{
+			return true;
+		}
+		Map<String, Object> state;
+		Context.enter( );
+		try
+		{
+			state = createSnapshot( rootScope );
+		}
+		catch ( Exception ex )
+		{
+			logger.log( Level.FINE, ex.getMessage( ), ex );
+			return true;
+		}
+		finally
+		{
+			Context.exit( );
+		}
+		Map<?, ?> original = (Map<?, ?>) snapshot;
+		if ( state.size( ) != original.size( ) )
+		{
+			logger.log( Level.FINE,
+					"Script root scope discarded: properties added or removed" );
+			return true;
+		}
+		for ( Iterator<Map.Entry<String, Object>> i = state.entrySet( )
+				.iterator( ); i.hasNext( ); )
+		{
+			Map.Entry<String, Object> entry = i.next( );
+			if ( !original.containsKey( entry.getKey( ) )
+					|| !isSame( original.get( entry.getKey( ) ),
+							entry.getValue( ) ) )
+			{
+				logger.log( Level.FINE,
+						"Script root scope discarded: {0} modified",
+						entry.getKey( ) );
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Objects are compared by identity, the primitive values which may be
+	 * boxed again on each access are compared by value.
+	 */
+	private static boolean isSame( Object original, Object value )
+	{
+		if ( original == value )
+		{
+			return true;
+		}
+		return !( original instanceof Scriptable ) && original != null
+				&& original.equals( value );
+	}
+
+	/**
+	 * Returns the values of the properties of a root scope, of the objects it
+	 * contains, and of their prototypes, by property path. The static
+	 * properties of RegExp, such as $1 or lastMatch, are left out: they hold
+	 * the last match of the current context, not a state of the scope.
+	 */
+	private static Map<String, Object> createSnapshot( ScriptableObject rootScope )
+	{
+		Map<String, Object> snapshot = new HashMap<String, Object>( );
+		addProperties( snapshot, rootScope, "", 0 );
+		return snapshot;
+	}
+
+	private static void addProperties( Map<String, Object> snapshot,
+			Scriptable object, String path, int depth )
+	{
+		if ( !( object instanceof ScriptableObject )
+				|| object instanceof NativeJavaPackage )
+		{
+			// java packages cache the classes and packages they are asked for
+			return;
+		}
+		Object[] ids = ( (ScriptableObject) object ).getAllIds( );
+		for ( int i = 0; i < ids.length; i++ )
+		{
+			if ( REGEXP_PATH.equals( path ) && !"prototype".equals( ids[i] ) )
+			{
+				continue;
+			}
+			Object value;
+			if ( ids[i] instanceof Integer )
+			{
+				value = ScriptableObject.getProperty( object,
+						( (Integer) ids[i] ).intValue( ) );
+			}
+			else
+			{
+				value = ScriptableObject.getProperty( object,
+						String.valueOf( ids[i] ) );
+			}
+			String name = path + ids[i];
+			snapshot.put( name, value );
+			if ( value instanceof Scriptable
+					&& ( depth == 0 || ( depth == 1 && "prototype"
+							.equals( ids[i] ) ) ) )
+			{
+				addProperties( snapshot, (Scriptable) value, name + ".",
+						depth + 1 );
+			}
 		}
 	}
 
+	/**
+	 * @return the number of root scopes created
+	 */
+	public synchronized int getCreatedRootScopeCount( )
+	{
+		return createdRootScopes;
+	}
+
+	/**
+	 * @return the number of times a pooled root scope was reused
+	 */
+	public synchronized int getReusedRootScopeCount( )
+	{
+		return reusedRootScopes;
+	}
+
+	/**
+	 * @return the number of released root scopes which were not pooled
+	 */
+	public synchronized int getDiscardedRootScopeCount( )
+	{
+		return discardedRootScopes;
+	}
+
+	/**
+	 * @return the number of pooled root scopes which are not in use
+	 */
+	public synchronized int getIdleRootScopeCount( )
+	{
+		return rootScopes.size( );
+	}
+
+	/**
+	 * @return the number of root scopes in use by script engines
+	 */
+	public synchronized int getActiveRootScopeCount( )
+	{
+		return activeRootScopes;
+	}
+
 	public IScriptEngine createScriptEngine( ) throws BirtException
 	{
 		ScriptableObject rootScope = getRootScope( );
@@ -47,6 +47,7 @@ public class AllTests
 		suite.addTestSuite( org.eclipse.birt.report.engine.api.impl.ParameterPromptTextTest.class );
 		suite.addTestSuite( org.eclipse.birt.report.engine.api.impl.ReportDocumentReaderTest.class );
 		suite.addTestSuite( org.eclipse.birt.report.engine.api.impl.ReportDocumentTest.class );
+		suite.addTestSuite( org.eclipse.birt.report.engine.api.impl.TaskAdmissionControllerTest.class );
 		suite.addTestSuite( org.eclipse.birt.report.engine.api.iv.IVTest.class );
 		suite.addTestSuite( org.eclipse.birt.report.engine.api.iv.IVViewTest.class );
 		suite.addTestSuite( org.eclipse.birt.report.engine.api.script.element.ElementTest.class );
@@ -146,6 +147,7 @@ public class AllTests
 		suite.addTestSuite( org.eclipse.birt.report.engine.ir.TableGroupTest.class );
 		suite.addTestSuite( org.eclipse.birt.report.engine.ir.TableItemTest.class );
 		suite.addTestSuite( org.eclipse.birt.report.engine.ir.TextItemTest.class );
+		suite.addTestSuite( org.eclipse.birt.report.engine.javascript.JavascriptEngineFactoryTest.class );
 		suite.addTestSuite( org.eclipse.birt.report.engine.layout.content.BlockStackingExecutorTest.class );
 		suite.addTestSuite( org.eclipse.birt.report.engine.layout.content.ListContainerExecutorTest.class );
 		suite.addTestSuite( org.eclipse.birt.report.engine.layout.emitter.util.BackgroundImageLayoutTest.class );
@@ -0,0 +1,142 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.report.engine.api.impl;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.eclipse.birt.data.engine.api.DataEngine;
+import org.eclipse.birt.report.engine.api.EngineConfig;
+import org.eclipse.birt.report.engine.api.EngineException;
+import org.eclipse.birt.report.engine.api.IEngineTask;
+
+public class TaskAdmissionControllerTest extends TestCase
+{
+
+	public void testCreateController( )
+	{
+		EngineConfig config = new EngineConfig( );
+		assertNull( TaskAdmissionController.createController( config ) );
+		config.setMaxConcurrentTasks( IEngineTask.TASK_RENDER, 2 );
+		assertNotNull( TaskAdmissionController.createController( config ) );
+		assertEquals( 2, config.getMaxConcurrentTasks( IEngineTask.TASK_RENDER ) );
+		assertEquals( 0, config.getMaxConcurrentTasks( IEngineTask.TASK_RUN ) );
+	}
+
+	public void testTaskTypeLimit( ) throws EngineException
+	{
+		Map<Integer, Integer> maxTasksByType = new HashMap<Integer, Integer>( );
+		maxTasksByType.put( Integer.valueOf( IEngineTask.TASK_RUN ), Integer
+				.valueOf( 1 ) );
+		TaskAdmissionController controller = new TaskAdmissionController( 0,
+				maxTasksByType, 0, 100, 0 );
+
+		TaskAdmissionController.Admission run = controller.admit(
+				IEngineTask.TASK_RUN, "a.rptdesign", null, null );
+		assertNotNull( run );
+		// other task types are not limited
+		TaskAdmissionController.Admission render = controller.admit(
+				IEngineTask.TASK_RENDER, "a.rptdesign", null, null );
+		assertNotNull( render );
+		assertNull( controller.admit( IEngineTask.TASK_GETPARAMETERDEFINITION,
+				"a.rptdesign", null, null ) );
+		assertEquals( 2, controller.getRunningTaskCount( ) );
+
+		try
+		{
+			controller.admit( IEngineTask.TASK_RUN, "b.rptdesign", null, null );
+			fail( );
+		}
+		catch ( EngineException e )
+		{
+		}
+		assertEquals( 1, controller.getRejectedTaskCount( ) );
+		assertEquals( 0, controller.getWaitingTaskCount( ) );
+
+		controller.release( run );
+		controller.release( run );
+		assertEquals( 1, controller.getRunningTaskCount( ) );
+		assertNotNull( controller.admit( IEngineTask.TASK_RUN, "b.rptdesign",
+				null, null ) );
+		assertEquals( 3, controller.getAdmittedTaskCount( ) );
+	}
+
+	public void testDesignLimit( ) throws Exception
+	{
+		final TaskAdmissionController controller = new TaskAdmissionController(
+				0, new HashMap<Integer, Integer>( ), 1, -1, 0 );
+		final TaskAdmissionController.Admission first = controller.admit(
+				IEngineTask.TASK_RUNANDRENDER, "a.rptdesign", null, null );
+		assertNotNull( controller.admit( IEngineTask.TASK_RUNANDRENDER,
+				"b.rptdesign", null, null ) );
+
+		Thread releaser = new Thread( ) {
+
+			public void run( )
+			{
+				try
+				{
+					while ( controller.getWaitingTaskCount( ) == 0 )
+					{
+						Thread.sleep( 10 );
+					}
+					Thread.sleep( 50 );
+				}
+				catch ( InterruptedException e )
+				{
+				}
+				controller.release( first );
+			}
+		};
+		releaser.start( );
+		// waits until the first task of the same design ends
+		assertNotNull( controller.admit( IEngineTask.TASK_RUNANDRENDER,
+				"a.rptdesign", null, null ) );
+		releaser.join( );
+		assertEquals( 1, controller.getDelayedTaskCount( ) );
+		assertEquals( 1, controller.getMaxWaitingTaskCount( ) );
+		assertTrue( controller.getMaxWaitTime( ) >= 50 );
+		assertEquals( 2, controller.getRunningTaskCount( ) );
+	}
+
+	public void testMemoryLimit( ) throws EngineException
+	{
+		TaskAdmissionController controller = new TaskAdmissionController( 0,
+				new HashMap<Integer, Integer>( ), 0, 0, 100 * 1024 * 1024 );
+		Map<String, Object> appContext = new HashMap<String, Object>( );
+		appContext.put( DataEngine.MEMORY_BUFFER_SIZE, "60" );
+
+		// a task is admitted when no other task uses memory
+		TaskAdmissionController.Admission first = controller.admit(
+				IEngineTask.TASK_RENDER, null, appContext, null );
+		assertEquals( 60 * 1024 * 1024, controller.getReservedMemory( ) );
+		try
+		{
+			controller.admit( IEngineTask.TASK_RENDER, null, appContext, null );
+			fail( );
+		}
+		catch ( EngineException e )
+		{
+		}
+		// the default memory of a task fits
+		assertNotNull( controller.admit( IEngineTask.TASK_RENDER, null, null,
+				null ) );
+		assertEquals( 60 * 1024 * 1024
+				+ TaskAdmissionController.DEFAULT_TASK_MEMORY, controller
+				.getReservedMemory( ) );
+		controller.release( first );
+		assertEquals( TaskAdmissionController.DEFAULT_TASK_MEMORY, controller
+				.getReservedMemory( ) );
+	}
+}
@@ -0,0 +1,87 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.report.engine.javascript;
+
+import junit.framework.TestCase;
+
+import org.eclipse.birt.core.exception.BirtException;
+import org.eclipse.birt.core.script.ScriptContext;
+
+public class JavascriptEngineFactoryTest extends TestCase
+{
+
+	private JavascriptEngineFactory factory;
+
+	protected void setUp( ) throws Exception
+	{
+		super.setUp( );
+		factory = new JavascriptEngineFactory( );
+	}
+
+	public void testReuseAfterCleanRun( ) throws BirtException
+	{
+		assertEquals( Integer.valueOf( 2 ), toInteger( run( "1 + 1" ) ) );
+		assertEquals( 1, factory.getCreatedRootScopeCount( ) );
+		assertEquals( 0, factory.getDiscardedRootScopeCount( ) );
+		assertEquals( 1, factory.getIdleRootScopeCount( ) );
+
+		run( "Math.max( 1, 2 )" );
+		assertEquals( 1, factory.getCreatedRootScopeCount( ) );
+		assertEquals( 1, factory.getReusedRootScopeCount( ) );
+		assertEquals( 0, factory.getActiveRootScopeCount( ) );
+	}
+
+	public void testDiscardAfterModifiedStandardObject( ) throws BirtException
+	{
+		run( "String.prototype.shout = function( ) { return this + '!'; }" );
+		assertEquals( 1, factory.getDiscardedRootScopeCount( ) );
+		assertEquals( 0, factory.getIdleRootScopeCount( ) );
+
+		assertEquals( "undefined", run( "typeof 'a'.shout" ) );
+		assertEquals( 2, factory.getCreatedRootScopeCount( ) );
+		assertEquals( 0, factory.getReusedRootScopeCount( ) );
+	}
+
+	public void testReuseAfterRegExp( ) throws BirtException
+	{
+		assertEquals( "b", run( "/(a)(b)/.exec( 'xab' ); RegExp.$2" ) );
+		assertEquals( 0, factory.getDiscardedRootScopeCount( ) );
+		assertEquals( 1, factory.getIdleRootScopeCount( ) );
+
+		assertEquals( "ab", run( "'cab'.replace( /c/, '' )" ) );
+		assertEquals( 1, factory.getCreatedRootScopeCount( ) );
+		assertEquals( 1, factory.getReusedRootScopeCount( ) );
+		assertEquals( 0, factory.getDiscardedRootScopeCount( ) );
+	}
+
+	private Object run( String script ) throws BirtException
+	{
+		JavascriptEngine engine = (JavascriptEngine) factory
+				.createScriptEngine( );
+		ScriptContext context = new ScriptContext( );
+		try
+		{
+			return engine.evaluate( context, engine.compile( context,
+					"test", 1, script ) );
+		}
+		finally
+		{
+			context.close( );
+			engine.close( );
+		}
+	}
+
+	private static Integer toInteger( Object value )
+	{
+		return Integer.valueOf( ( (Number) value ).intValue( ) );
+	}
+}
@@ -490,6 +490,159 @@ public class EngineConfig extends PlatformConfig implements IEngineConfig
 		return 0;
 	}
 
+	/**
+	 * Sets the maximum number of tasks executed concurrently. Tasks which
+	 * exceed the limit wait until a running task ends.
+	 * 
+	 * @param taskType
+	 *            the task type, or IEngineTask.TASK_UNKNOWN for the run,
+	 *            render and run and render tasks together
+	 * @param maxTasks
+	 *            the maximum number of tasks, or 0 for no limit
+	 */
+	public void setMaxConcurrentTasks( int taskType, int maxTasks )
+	{
+		setProperty( getMaxConcurrentTasksKey( taskType ), Integer
+				.valueOf( maxTasks ) );
+	}
+
+	/**
+	 * Gets the maximum number of tasks executed concurrently.
+	 * 
+	 * @param taskType
+	 *            the task type, or IEngineTask.TASK_UNKNOWN for the run,
+	 *            render and run and render tasks together
+	 * @return the maximum number of tasks, or 0 for no limit
+	 */
+	public int getMaxConcurrentTasks( int taskType )
+	{
+		return getIntProperty( getMaxConcurrentTasksKey( taskType ), 0 );
+	}
+
+	private String getMaxConcurrentTasksKey( int taskType )
+	{
+		if ( taskType == IEngineTask.TASK_UNKNOWN )
+		{
+			return MAX_CONCURRENT_TASKS;
+		}
+		return MAX_CONCURRENT_TASKS + "." + taskType;
+	}
+
+	/**
+	 * Sets the maximum number of tasks executed concurrently for the same
+	 * report design.
+	 * 
+	 * @param maxTasks
+	 *            the maximum number of tasks, or 0 for no limit
+	 */
+	public void setMaxConcurrentTasksPerDesign( int maxTasks )
+	{
+		setProperty( MAX_CONCURRENT_TASKS_PER_DESIGN, Integer
+				.valueOf( maxTasks ) );
+	}
+
+	/**
+	 * @return the maximum number of tasks executed concurrently for the same
+	 *         report design, or 0 for no limit
+	 */
+	public int getMaxConcurrentTasksPerDesign( )
+	{
+		return getIntProperty( MAX_CONCURRENT_TASKS_PER_DESIGN, 0 );
+	}
+
+	/**
+	 * Sets the maximum time a task waits to be executed before it fails.
+	 * 
+	 * @param timeout
+	 *            the time in milliseconds, or a negative value to wait
+	 *            without limit
+	 */
+	public void setTaskAdmissionTimeout( long timeout )
+	{
+		setProperty( TASK_ADMISSION_TIMEOUT, Long.valueOf( timeout ) );
+	}
+
+	/**
+	 * @return the maximum time in milliseconds a task waits to be executed, or
+	 *         a negative value to wait without limit
+	 */
+	public long getTaskAdmissionTimeout( )
+	{
+		Object timeout = getProperty( TASK_ADMISSION_TIMEOUT );
+		if ( timeout instanceof Number )
+		{
+			return ( (Number) timeout ).longValue( );
+		}
+		if ( timeout instanceof String )
+		{
+			try
+			{
+				return Long.parseLong( ( (String) timeout ).trim( ) );
+			}
+			catch ( NumberFormatException e )
+			{
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Sets the ratio of the maximum heap size that the data engine buffers of
+	 * the concurrently executed tasks may use. Each task is expected to use
+	 * the result buffer size of its data engine.
+	 * 
+	 * @param ratio
+	 *            the ratio between 0 and 1, or 0 for no limit
+	 */
+	public void setTaskMemoryRatio( double ratio )
+	{
+		setProperty( TASK_MEMORY_RATIO, Double.valueOf( ratio ) );
+	}
+
+	/**
+	 * @return the ratio of the maximum heap size that the data engine buffers
+	 *         of the concurrently executed tasks may use, or 0 for no limit
+	 */
+	public double getTaskMemoryRatio( )
+	{
+		Object ratio = getProperty( TASK_MEMORY_RATIO );
+		if ( ratio instanceof Number )
+		{
+			return ( (Number) ratio ).doubleValue( );
+		}
+		if ( ratio instanceof String )
+		{
+			try
+			{
+				return Double.parseDouble( ( (String) ratio ).trim( ) );
+			}
+			catch ( NumberFormatException e )
+			{
+			}
+		}
+		return 0;
+	}
+
+	private int getIntProperty( String name, int defaultValue )
+	{
+		Object value = getProperty( name );
+		if ( value instanceof Number )
+		{
+			return ( (Number) value ).intValue( );
+		}
+		if ( value instanceof String )
+		{
+			try
+			{
+				return Integer.parseInt( ( (String) value ).trim( ) );
+			}
+			catch ( NumberFormatException e )
+			{
+			}
+		}
+		return defaultValue;
+	}
+
 	/**
 	 * Sets default emitter for an output format.
 	 * 
@@ -64,4 +64,29 @@ public interface IEngineConfig extends IPlatformConfig
 	 * The max rows per query
 	 */
 	static final String MAX_ROWS_PER_QUERY = "maxRowsPerQuery";
+
+	/**
+	 * The maximum number of run, render and run and render tasks executed
+	 * concurrently. The limit of a task type is set by the key followed by '.'
+	 * and the task type.
+	 */
+	static final String MAX_CONCURRENT_TASKS = "maxConcurrentTasks";
+
+	/**
+	 * The maximum number of tasks executed concurrently for the same report
+	 * design.
+	 */
+	static final String MAX_CONCURRENT_TASKS_PER_DESIGN = "maxConcurrentTasksPerDesign";
+
+	/**
+	 * The maximum time in milliseconds a task waits to be executed before it
+	 * fails.
+	 */
+	static final String TASK_ADMISSION_TIMEOUT = "taskAdmissionTimeout";
+
+	/**
+	 * The ratio of the maximum heap size that the data engine buffers of the
+	 * concurrently executed tasks may use.
+	 */
+	static final String TASK_MEMORY_RATIO = "taskMemoryRatio";
 }
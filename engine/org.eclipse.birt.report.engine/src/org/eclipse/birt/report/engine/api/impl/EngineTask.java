@@ -200,6 +200,11 @@ public abstract class EngineTask implements IEngineTask
 	 */
 	protected int taskType = IEngineTask.TASK_UNKNOWN;
 
+	/**
+	 * the admission of the task while it is executed
+	 */
+	private TaskAdmissionController.Admission admission;
+
 	private Object platformContext;
 
 	protected IPageHandler pageHandler;
@@ -1723,6 +1728,7 @@ public abstract class EngineTask implements IEngineTask
 
 	public void close( )
 	{
+		releaseAdmission( );
 		executionContext.close( );
 		disposeResourceLocator( );
 		EngineLogger.setThreadLogger( null );
@@ -2337,6 +2343,35 @@ public abstract class EngineTask implements IEngineTask
 		return taskType;
 	}
 
+	/**
+	 * Waits until the admission controller of the engine lets the task be
+	 * executed.
+	 * 
+	 * @throws EngineException
+	 *             if the task waited too long, or was cancelled while waiting
+	 */
+	protected void acquireAdmission( ) throws EngineException
+	{
+		TaskAdmissionController controller = engine
+				.getTaskAdmissionController( );
+		if ( controller != null && admission == null )
+		{
+			admission = controller.admit( this );
+		}
+	}
+
+	/**
+	 * Lets the tasks waiting for the admission controller be executed.
+	 */
+	protected void releaseAdmission( )
+	{
+		if ( admission != null )
+		{
+			engine.getTaskAdmissionController( ).release( admission );
+			admission = null;
+		}
+	}
+
 	protected void changeStatusToRunning( )
 	{
 		runningStatus = STATUS_RUNNING;
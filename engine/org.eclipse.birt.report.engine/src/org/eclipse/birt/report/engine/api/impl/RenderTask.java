@@ -274,6 +274,7 @@ public class RenderTask extends EngineTask implements IRenderTask
 		try
 		{
 			switchToOsgiClassLoader( );
+			acquireAdmission( );
 			changeStatusToRunning( );
 			if ( renderOptions == null )
 			{
@@ -326,6 +327,7 @@ public class RenderTask extends EngineTask implements IRenderTask
 		}
 		finally
 		{
+			releaseAdmission( );
 			changeStatusToStopped( );
 			switchClassLoaderBack( );
 			if ( progressMonitor != null )
@@ -115,6 +115,11 @@ public class ReportEngine implements IReportEngine
 	private Map<String, Object> beans;
 	
 	private LoggerSetting loggerSetting;
+
+	/**
+	 * limits the tasks executed concurrently, null if there is no limit
+	 */
+	private TaskAdmissionController admissionController;
 	/**
 	 * Create a Report Engine using a configuration.
 	 * 
@@ -139,6 +144,7 @@ public class ReportEngine implements IReportEngine
 				config );
 		this.helper = new ReportEngineHelper( this );
 		openedDocuments = new LinkedObjectManager<ReportDocumentReader>( );
+		admissionController = TaskAdmissionController.createController( config );
 		IStatusHandler handler = config.getStatusHandler( );
 		if ( handler != null )
 		{
@@ -291,6 +297,17 @@ public class ReportEngine implements IReportEngine
 		return config;
 	}
 
+	/**
+	 * returns the controller which limits the tasks executed concurrently.
+	 * 
+	 * @return the admission controller, or null if the engine configuration
+	 *         sets no limit
+	 */
+	public TaskAdmissionController getTaskAdmissionController( )
+	{
+		return admissionController;
+	}
+
 	/**
 	 * opens a report design file and creates a report design runnable. From the
 	 * ReportRunnable object, embedded images and parameter definitions can be
@@ -73,11 +73,13 @@ public class RunAndRenderTask extends EngineTask implements IRunAndRenderTask
 		try
 		{
 			switchToOsgiClassLoader( );
+			acquireAdmission( );
 			changeStatusToRunning( );
 			doRun( );
 		}
 		finally
 		{
+			releaseAdmission( );
 			changeStatusToStopped( );
 			switchClassLoaderBack( );
 			if ( progressMonitor != null )
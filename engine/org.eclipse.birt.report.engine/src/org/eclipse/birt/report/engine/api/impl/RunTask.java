@@ -79,6 +79,7 @@ public class RunTask extends AbstractRunTask implements IRunTask
 		try
 		{
 			switchToOsgiClassLoader( );
+			acquireAdmission( );
 			changeStatusToRunning( );
 			if ( reportDocName == null || reportDocName.length( ) == 0 )
 			{
@@ -90,6 +91,7 @@ public class RunTask extends AbstractRunTask implements IRunTask
 		}
 		finally
 		{
+			releaseAdmission( );
 			changeStatusToStopped( );
 			switchClassLoaderBack( );
 		}
@@ -105,6 +107,7 @@ public class RunTask extends AbstractRunTask implements IRunTask
 		try
 		{
 			switchToOsgiClassLoader( );
+			acquireAdmission( );
 			changeStatusToRunning( );
 			if ( archive == null )
 			{
@@ -116,6 +119,7 @@ public class RunTask extends AbstractRunTask implements IRunTask
 		}
 		finally
 		{
+			releaseAdmission( );
 			changeStatusToStopped( );
 			switchClassLoaderBack( );
 		}
@@ -398,11 +402,13 @@ public class RunTask extends AbstractRunTask implements IRunTask
 		try
 		{
 			switchToOsgiClassLoader( );
+			acquireAdmission( );
 			changeStatusToRunning( );
 			doRun( );
 		}
 		finally
 		{
+			releaseAdmission( );
 			changeStatusToStopped( );
 			switchClassLoaderBack( );
 		}
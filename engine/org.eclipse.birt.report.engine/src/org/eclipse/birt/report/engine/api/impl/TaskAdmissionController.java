@@ -0,0 +1,522 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Actuate Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Actuate Corporation  - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.birt.report.engine.api.impl;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.eclipse.birt.data.engine.api.DataEngine;
+import org.eclipse.birt.report.engine.api.EngineConfig;
+import org.eclipse.birt.report.engine.api.EngineException;
+import org.eclipse.birt.report.engine.api.IEngineTask;
+import org.eclipse.birt.report.engine.api.IReportRunnable;
+import org.eclipse.birt.report.engine.i18n.MessageConstants;
+
+/**
+ * Limits the number of run, render and run and render tasks executed
+ * concurrently by a report engine. A task which exceeds the limits waits until
+ * enough running tasks end, and fails if it waits longer than the timeout.
+ * <ul>
+ * <li>the number of tasks of all the controlled types, and of each type</li>
+ * <li>the number of tasks executed for the same report design</li>
+ * <li>the memory of the data engine buffers of the running tasks, each task
+ * using the result buffer size set in its application context</li>
+ * </ul>
+ * The waiting tasks are admitted in their arrival order, unless an earlier
+ * task is still blocked by its own limits.
+ */
+public class TaskAdmissionController
+{
+
+	private static Logger logger = Logger
+			.getLogger( TaskAdmissionController.class.getName( ) );
+
+	/**
+	 * the memory expected for a task whose data engine buffers are not
+	 * limited.
+	 */
+	static final long DEFAULT_TASK_MEMORY = 10 * 1024 * 1024;
+
+	/**
+	 * the interval in which a waiting task checks whether it is cancelled.
+	 */
+	private static final long WAIT_INTERVAL = 1000;
+
+	private static final int[] TASK_TYPES = new int[]{
+			IEngineTask.TASK_RUN, IEngineTask.TASK_RENDER,
+			IEngineTask.TASK_RUNANDRENDER};
+
+	private int maxTasks;
+
+	private Map<Integer, Integer> maxTasksByType;
+
+	private int maxTasksPerDesign;
+
+	private long timeout;
+
+	private long maxMemory;
+
+	private int runningTasks;
+
+	private Map<Integer, Integer> runningTasksByType = new HashMap<Integer, Integer>( );
+
+	private Map<String, Integer> runningTasksByDesign = new HashMap<String, Integer>( );
+
+	private long reservedMemory;
+
+	private LinkedList<Admission> waitingTasks = new LinkedList<Admission>( );
+
+	private int maxWaitingTasks;
+
+	private long admittedTasks;
+
+	private long delayedTasks;
+
+	private long rejectedTasks;
+
+	private long totalWaitTime;
+
+	private long maxWaitTime;
+
+	/**
+	 * @param maxTasks
+	 *            the maximum number of tasks, or 0 for no limit
+	 * @param maxTasksByType
+	 *            the maximum number of tasks by task type
+	 * @param maxTasksPerDesign
+	 *            the maximum number of tasks of a report design, or 0 for no
+	 *            limit
+	 * @param timeout
+	 *            the maximum wait time in milliseconds, or a negative value for
+	 *            no limit
+	 * @param maxMemory
+	 *            the maximum memory of the data engine buffers in bytes, or 0
+	 *            for no limit
+	 */
+	public TaskAdmissionController( int maxTasks,
+			Map<Integer, Integer> maxTasksByType, int maxTasksPerDesign,
+			long timeout, long maxMemory )
+	{
+		this.maxTasks = maxTasks;
+		this.maxTasksByType = maxTasksByType;
+		this.maxTasksPerDesign = maxTasksPerDesign;
+		this.timeout = timeout;
+		this.maxMemory = maxMemory;
+	}
+
+	/**
+	 * Creates the admission controller configured in the engine
+	 * configuration.
+	 *
+	 * @param config
+	 * @return the admission controller, or null if no limit is configured
+	 */
+	static TaskAdmissionController createController( EngineConfig config )
+	{
+		int maxTasks = config.getMaxConcurrentTasks( IEngineTask.TASK_UNKNOWN );
+		Map<Integer, Integer> maxTasksByType = new HashMap<Integer, Integer>( );
+		for ( int i = 0; i < TASK_TYPES.length; i++ )
+		{
+			int max = config.getMaxConcurrentTasks( TASK_TYPES[i] );
+			if ( max > 0 )
+			{
+				maxTasksByType.put( Integer.valueOf( TASK_TYPES[i] ), Integer
+						.valueOf( max ) );
+			}
+		}
+		int maxTasksPerDesign = config.getMaxConcurrentTasksPerDesign( );
+		double memoryRatio = config.getTaskMemoryRatio( );
+		long maxMemory = 0;
+		if ( memoryRatio > 0 )
+		{
+			maxMemory = (long) ( Runtime.getRuntime( ).maxMemory( ) * Math
+					.min( memoryRatio, 1 ) );
+		}
+		if ( maxTasks <= 0 && maxTasksByType.isEmpty( )
+				&& maxTasksPerDesign <= 0 && maxMemory <= 0 )
+		{
+			return null;
+		}
+		return new TaskAdmissionController( maxTasks, maxTasksByType,
+				maxTasksPerDesign, config.getTaskAdmissionTimeout( ), maxMemory );
+	}
+
+	/**
+	 * Waits until a task can be executed.
+	 *
+	 * @param task
+	 *            the task
+	 * @return the admission of the task, which must be released when the task
+	 *         ends, or null if the type of the task is not controlled
+	 * @throws EngineException
+	 *             if the task waited longer than the timeout, or was
+	 *             cancelled or interrupted while waiting
+	 */
+	public Admission admit( EngineTask task ) throws EngineException
+	{
+		IReportRunnable runnable = task.getReportRunnable( );
+		return admit( task.getTaskType( ), runnable == null ? null : runnable
+				.getReportName( ), task.getAppContext( ), task );
+	}
+
+	/**
+	 * Waits until a task can be executed.
+	 *
+	 * @param taskType
+	 *            the task type
+	 * @param design
+	 *            the name of the report design, or null if unknown
+	 * @param appContext
+	 *            the application context of the task
+	 * @param task
+	 *            the task, which stops waiting when it is cancelled, or null
+	 * @return the admission of the task, or null if the task type is not
+	 *         controlled
+	 * @throws EngineException
+	 */
+	Admission admit( int taskType, String design, Map appContext,
+			IEngineTask task ) throws EngineException
+	{
+		if ( !isControlled( taskType ) )
+		{
+			return null;
+		}
+		Admission admission = new Admission( taskType, design,
+				getTaskMemory( appContext ) );
+
+		synchronized ( this )
+		{
+			if ( waitingTasks.isEmpty( ) && canRun( admission ) )
+			{
+				start( admission, 0 );
+				return admission;
+			}
+
+			long startTime = System.currentTimeMillis( );
+			waitingTasks.add( admission );
+			maxWaitingTasks = Math.max( maxWaitingTasks, waitingTasks.size( ) );
+			delayedTasks++;
+			try
+			{
+				while ( true )
+				{
+					if ( isNext( admission ) )
+					{
+						long waitTime = System.currentTimeMillis( ) - startTime;
+						waitingTasks.remove( admission );
+						start( admission, waitTime );
+						// the next waiting tasks may fit as well
+						notifyAll( );
+						logger.log( Level.FINE,
+								"Task of {0} started after waiting {1} ms.",
+								new Object[]{admission.design,
+										Long.valueOf( waitTime )} );
+						return admission;
+					}
+					if ( task != null && task.getCancelFlag( ) )
+					{
+						throw new EngineException( MessageConstants.TASK_CANCEL );
+					}
+					long waitTime = WAIT_INTERVAL;
+					if ( timeout >= 0 )
+					{
+						long remainingTime = startTime + timeout
+								- System.currentTimeMillis( );
+						if ( remainingTime <= 0 )
+						{
+							rejectedTasks++;
+							throw new EngineException(
+									MessageConstants.TASK_ADMISSION_TIMEOUT,
+									new Object[]{admission.design,
+											Long.valueOf( timeout )} );
+						}
+						waitTime = Math.min( waitTime, remainingTime );
+					}
+					wait( waitTime );
+				}
+			}
+			catch ( InterruptedException e )
+			{
+				Thread.currentThread( ).interrupt( );
+				rejectedTasks++;
+				throw new EngineException( MessageConstants.TASK_CANCEL, e );
+			}
+			finally
+			{
+				if ( waitingTasks.remove( admission ) )
+				{
+					// a later waiting task may fit now
+					notifyAll( );
+				}
+			}
+		}
+	}
+
+	/**
+	 * Ends the execution of a task, and lets the waiting tasks run.
+	 *
+	 * @param admission
+	 *            the admission of the task
+	 */
+	public synchronized void release( Admission admission )
+	{
+		if ( admission == null || admission.released )
+		{
+			return;
+		}
+		admission.released = true;
+		runningTasks--;
+		decrease( runningTasksByType, Integer.valueOf( admission.taskType ) );
+		if ( admission.design != null )
+		{
+			decrease( runningTasksByDesign, admission.design );
+		}
+		reservedMemory -= admission.memory;
+		notifyAll( );
+	}
+
+	private boolean isControlled( int taskType )
+	{
+		for ( int i = 0; i < TASK_TYPES.length; i++ )
+		{
+			if ( TASK_TYPES[i] == taskType )
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns whether a waiting task can run and no earlier waiting task can.
+	 */
+	private boolean isNext( Admission admission )
+	{
+		for ( Iterator<Admission> i = waitingTasks.iterator( ); i.hasNext( ); )
+		{
+			Admission waiting = i.next( );
+			if ( waiting == admission )
+			{
+				return canRun( admission );
+			}
+			if ( canRun( waiting ) )
+			{
+				return false;
+			}
+		}
+		return false;
+	}
+
+	private boolean canRun( Admission admission )
+	{
+		if ( maxTasks > 0 && runningTasks >= maxTasks )
+		{
+			return false;
+		}
+		Integer maxTasksOfType = maxTasksByType.get( Integer
+				.valueOf( admission.taskType ) );
+		if ( maxTasksOfType != null
+				&& getCount( runningTasksByType, Integer
+						.valueOf( admission.taskType ) ) >= maxTasksOfType
+						.intValue( ) )
+		{
+			return false;
+		}
+		if ( maxTasksPerDesign > 0 && admission.design != null
+				&& getCount( runningTasksByDesign, admission.design ) >= maxTasksPerDesign )
+		{
+			return false;
+		}
+		// a task is always admitted if no other task uses memory
+		if ( maxMemory > 0 && reservedMemory > 0
+				&& reservedMemory + admission.memory > maxMemory )
+		{
+			return false;
+		}
+		return true;
+	}
+
+	private void start( Admission admission, long waitTime )
+	{
+		runningTasks++;
+		increase( runningTasksByType, Integer.valueOf( admission.taskType ) );
+		if ( admission.design != null )
+		{
+			increase( runningTasksByDesign, admission.design );
+		}
+		reservedMemory += admission.memory;
+		admittedTasks++;
+		totalWaitTime += waitTime;
+		maxWaitTime = Math.max( maxWaitTime, waitTime );
+	}
+
+	private static <K> int getCount( Map<K, Integer> counts, K key )
+	{
+		Integer count = counts.get( key );
+		return count == null ? 0 : count.intValue( );
+	}
+
+	private static <K> void increase( Map<K, Integer> counts, K key )
+	{
+		counts.put( key, Integer.valueOf( getCount( counts, key ) + 1 ) );
+	}
+
+	private static <K> void decrease( Map<K, Integer> counts, K key )
+	{
+		int count = getCount( counts, key ) - 1;
+		if ( count > 0 )
+		{
+			counts.put( key, Integer.valueOf( count ) );
+		}
+		else
+		{
+			counts.remove( key );
+		}
+	}
+
+	/**
+	 * Returns the memory expected for the data engine buffers of a task, which
+	 * is the result buffer size in MB set in the application context.
+	 */
+	private long getTaskMemory( Map appContext )
+	{
+		if ( maxMemory <= 0 )
+		{
+			return 0;
+		}
+		Object bufferSize = appContext == null ? null : appContext
+				.get( DataEngine.MEMORY_BUFFER_SIZE );
+		if ( bufferSize != null )
+		{
+			try
+			{
+				long size = Long.parseLong( bufferSize.toString( ).trim( ) );
+				if ( size > 0 )
+				{
+					return size * 1024 * 1024;
+				}
+			}
+			catch ( NumberFormatException e )
+			{
+				logger.log( Level.WARNING, e.getMessage( ), e );
+			}
+		}
+		return DEFAULT_TASK_MEMORY;
+	}
+
+	/**
+	 * @return the number of running tasks
+	 */
+	public synchronized int getRunningTaskCount( )
+	{
+		return runningTasks;
+	}
+
+	/**
+	 * @param taskType
+	 * @return the number of running tasks of a type
+	 */
+	public synchronized int getRunningTaskCount( int taskType )
+	{
+		return getCount( runningTasksByType, Integer.valueOf( taskType ) );
+	}
+
+	/**
+	 * @return the number of tasks waiting to run
+	 */
+	public synchronized int getWaitingTaskCount( )
+	{
+		return waitingTasks.size( );
+	}
+
+	/**
+	 * @return the maximum number of tasks which waited at the same time
+	 */
+	public synchronized int getMaxWaitingTaskCount( )
+	{
+		return maxWaitingTasks;
+	}
+
+	/**
+	 * @return the number of tasks which were admitted
+	 */
+	public synchronized long getAdmittedTaskCount( )
+	{
+		return admittedTasks;
+	}
+
+	/**
+	 * @return the number of tasks which had to wait before being admitted or
+	 *         rejected
+	 */
+	public synchronized long getDelayedTaskCount( )
+	{
+		return delayedTasks;
+	}
+
+	/**
+	 * @return the number of tasks which failed because they waited too long
+	 *         or were interrupted
+	 */
+	public synchronized long getRejectedTaskCount( )
+	{
+		return rejectedTasks;
+	}
+
+	/**
+	 * @return the total wait time of the admitted tasks in milliseconds
+	 */
+	public synchronized long getTotalWaitTime( )
+	{
+		return totalWaitTime;
+	}
+
+	/**
+	 * @return the maximum wait time of an admitted task in milliseconds
+	 */
+	public synchronized long getMaxWaitTime( )
+	{
+		return maxWaitTime;
+	}
+
+	/**
+	 * @return the memory in bytes expected for the data engine buffers of the
+	 *         running tasks
+	 */
+	public synchronized long getReservedMemory( )
+	{
+		return reservedMemory;
+	}
+
+	/**
+	 * The admission of a task.
+	 */
+	public static class Admission
+	{
+
+		final int taskType;
+		final String design;
+		final long memory;
+		boolean released;
+
+		Admission( int taskType, String design, long memory )
+		{
+			this.taskType = taskType;
+			this.design = design;
+			this.memory = memory;
+		}
+	}
+}
@@ -61,6 +61,17 @@ public interface IDataEngine
 
 	void prepare( IDataQueryDefinition query ) throws BirtException;
 
+	/**
+	 * Starts reading the data of the prepared top level queries of a report,
+	 * which are executed later by the report items, so that their data sources
+	 * are queried concurrently. It is a hint only, which the data engine may
+	 * ignore.
+	 *
+	 * @param report
+	 *            the prepared report design
+	 */
+	void prefetch( Report report );
+
 	/**
 	 * Executes the prepared (data) execution plan of a report item. Returns an
 	 * IResultSet object
@@ -246,6 +246,14 @@ public abstract class AbstractDataEngine implements IDataEngine
 		} // end of prepare
 	}
 
+	/*
+	 * @see org.eclipse.birt.report.engine.data.IDataEngine#prefetch(org.eclipse.birt.report.engine.ir.Report)
+	 */
+	public void prefetch( Report report )
+	{
+		// the data is read when the queries are executed
+	}
+
 	/*
 	 * @see org.eclipse.birt.report.engine.data.IDataEngine#execute(org.eclipse.birt.data.engine.api.IBaseQueryDefinition)
 	 */
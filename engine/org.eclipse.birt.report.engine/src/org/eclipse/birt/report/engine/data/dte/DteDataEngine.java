@@ -11,7 +11,10 @@
 
 package org.eclipse.birt.report.engine.data.dte;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.logging.Level;
 
@@ -35,6 +38,9 @@ import org.eclipse.birt.report.engine.executor.ExecutionContext;
 import org.eclipse.birt.report.engine.extension.IBaseResultSet;
 import org.eclipse.birt.report.engine.i18n.MessageConstants;
 import org.eclipse.birt.report.engine.ir.Report;
+import org.eclipse.birt.report.model.api.DataSetHandle;
+import org.eclipse.birt.report.model.api.ReportDesignHandle;
+import org.eclipse.birt.report.model.api.ReportElementHandle;
 
 /**
  * implments IDataEngine interface, using birt's data transformation engine
@@ -272,6 +278,61 @@ public class DteDataEngine extends AbstractDataEngine
 		super.doPrepareQuery( report, appContext );
 	}
 
+	/*
+	 * @see org.eclipse.birt.report.engine.data.dte.AbstractDataEngine#prefetch(org.eclipse.birt.report.engine.ir.Report)
+	 */
+	public void prefetch( Report report )
+	{
+		// the event handlers of the data sets and data sources run when the
+		// statements are prepared, so such queries are not prefetched
+		List<IBasePreparedQuery> queries = new ArrayList<IBasePreparedQuery>( );
+		ReportDesignHandle design = report.getReportDesign( );
+		Iterator iter = report.getQueries( ).iterator( );
+		while ( iter.hasNext( ) )
+		{
+			Object query = iter.next( );
+			if ( !( query instanceof IQueryDefinition ) )
+			{
+				continue;
+			}
+			IQueryDefinition queryDefn = (IQueryDefinition) query;
+			if ( queryDefn.getDataSetName( ) == null
+					|| queryDefn.getQueryResultsID( ) != null
+					|| queryMap.get( queryDefn ) == null )
+			{
+				continue;
+			}
+			DataSetHandle dataSet = design.findDataSet( queryDefn.getDataSetName( ) );
+			if ( dataSet == null || hasEventHandler( dataSet )
+					|| dataSet.getDataSource( ) == null
+					|| hasEventHandler( dataSet.getDataSource( ) ) )
+			{
+				continue;
+			}
+			queries.add( (IBasePreparedQuery) queryMap.get( queryDefn ) );
+		}
+		if ( queries.isEmpty( ) )
+		{
+			return;
+		}
+		try
+		{
+			dteSession.prefetch( queries.toArray( new IBasePreparedQuery[queries.size( )] ),
+					context.getScriptContext( ) );
+		}
+		catch ( BirtException ex )
+		{
+			// the queries report the error when they are executed
+			logger.log( Level.FINE, ex.getMessage( ), ex );
+		}
+	}
+
+	private static boolean hasEventHandler( ReportElementHandle handle )
+	{
+		String eventHandler = handle.getEventHandlerClass( );
+		return eventHandler != null && eventHandler.length( ) > 0;
+	}
+
 	protected void cacheResultID( IBaseResultSet parentResultSet,
 			IDataQueryDefinition query, IBaseResultSet resultSet )
 			throws BirtException
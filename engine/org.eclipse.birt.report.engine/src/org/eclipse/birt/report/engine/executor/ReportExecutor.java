@@ -128,6 +128,8 @@ public class ReportExecutor implements IReportExecutor
 		{
 			// create execution optimize policy
 			context.optimizeExecution( );
+			// all the report items are executed, so read their data ahead
+			context.getDataEngine( ).prefetch( report );
 		}
 
 		// prepare to execute the child
@@ -147,6 +147,9 @@ public class MessageConstants
 
     //task is cancelled
     public static final String	TASK_CANCEL = "Message.TaskCancel";
+
+    //task waited too long to be executed
+    public static final String	TASK_ADMISSION_TIMEOUT = "Error.TaskAdmissionTimeout";
 }
 
 
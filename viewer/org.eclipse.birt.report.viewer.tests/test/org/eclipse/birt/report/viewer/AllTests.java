@@ -77,6 +77,7 @@ public class AllTests extends BaseTestCase
 		List tmpClasses = new ArrayList( );
 		tmpClasses.addAll( getClasses( "context", pkgPrefix ) ); //$NON-NLS-1$
 		tmpClasses.addAll( getClasses( "service", pkgPrefix ) ); //$NON-NLS-1$ 
+		tmpClasses.addAll( getClasses( "session", pkgPrefix ) ); //$NON-NLS-1$
 		tmpClasses.addAll( getClasses( "utility", pkgPrefix ) ); //$NON-NLS-1$
 		
 		return tmpClasses;
@@ -0,0 +1,168 @@
+/*************************************************************************************
+ * Copyright (c) 2017 Actuate Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Actuate Corporation - Initial implementation.
+ ************************************************************************************/
+
+package org.eclipse.birt.report.viewer.service;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import org.eclipse.birt.report.service.ProgressiveRun;
+
+/**
+ * TestCases for ProgressiveRun.
+ */
+public class ProgressiveRunTest extends TestCase
+{
+
+	private ThreadPoolExecutor executor;
+
+	protected void setUp( ) throws Exception
+	{
+		super.setUp( );
+		executor = new ThreadPoolExecutor( 1,
+				1,
+				60,
+				TimeUnit.SECONDS,
+				new SynchronousQueue<Runnable>( ) );
+	}
+
+	protected void tearDown( ) throws Exception
+	{
+		executor.shutdownNow( );
+		super.tearDown( );
+	}
+
+	/**
+	 * The request returns at the first page, and the run reports its own
+	 * result when it finishes.
+	 */
+	public void testReturnsAtFirstPage( ) throws Exception
+	{
+		final CountDownLatch release = new CountDownLatch( 1 );
+		TestRun run = new TestRun( ) {
+
+			protected void execute( ) throws Exception
+			{
+				firstPageReached( );
+				release.await( 10, TimeUnit.SECONDS );
+			}
+		};
+
+		assertFalse( run.start( executor, 10000 ) );
+		assertEquals( 0, run.finishCount );
+		release.countDown( );
+		assertTrue( run.detachedFinish.await( 10, TimeUnit.SECONDS ) );
+		assertEquals( 1, run.finishCount );
+		assertNull( run.detachedException );
+	}
+
+	/**
+	 * A run which finishes before its first page is reported by the request.
+	 */
+	public void testFinishesBeforeFirstPage( ) throws Exception
+	{
+		final Exception failure = new Exception( "failure" ); //$NON-NLS-1$
+		TestRun run = new TestRun( ) {
+
+			protected void execute( ) throws Exception
+			{
+				throw failure;
+			}
+		};
+
+		assertTrue( run.start( executor, 10000 ) );
+		assertSame( failure, run.getException( ) );
+		assertEquals( 1, run.finishCount );
+		assertEquals( 1, run.detachedFinish.getCount( ) );
+	}
+
+	/**
+	 * The request stops waiting for a first page which takes longer than the
+	 * timeout.
+	 */
+	public void testFirstPageTimeout( ) throws Exception
+	{
+		final CountDownLatch release = new CountDownLatch( 1 );
+		TestRun run = new TestRun( ) {
+
+			protected void execute( ) throws Exception
+			{
+				release.await( 10, TimeUnit.SECONDS );
+			}
+		};
+
+		long start = System.currentTimeMillis( );
+		assertFalse( run.start( executor, 100 ) );
+		assertTrue( System.currentTimeMillis( ) - start < 5000 );
+		release.countDown( );
+		assertTrue( run.detachedFinish.await( 10, TimeUnit.SECONDS ) );
+	}
+
+	/**
+	 * A run which finds no free thread is executed in the request thread.
+	 */
+	public void testRunsInRequestThreadWhenNoThreadIsFree( ) throws Exception
+	{
+		final CountDownLatch release = new CountDownLatch( 1 );
+		TestRun background = new TestRun( ) {
+
+			protected void execute( ) throws Exception
+			{
+				firstPageReached( );
+				release.await( 10, TimeUnit.SECONDS );
+			}
+		};
+		assertFalse( background.start( executor, 10000 ) );
+
+		final Thread requestThread = Thread.currentThread( );
+		final boolean[] inRequestThread = new boolean[1];
+		TestRun run = new TestRun( ) {
+
+			protected void execute( ) throws Exception
+			{
+				inRequestThread[0] = Thread.currentThread( ) == requestThread;
+				firstPageReached( );
+			}
+		};
+		assertTrue( run.start( executor, 10000 ) );
+		assertTrue( inRequestThread[0] );
+		assertEquals( 1, run.finishCount );
+
+		release.countDown( );
+		assertTrue( background.detachedFinish.await( 10, TimeUnit.SECONDS ) );
+	}
+
+	/**
+	 * Records the notifications of a run.
+	 */
+	private abstract static class TestRun extends ProgressiveRun
+	{
+
+		volatile int finishCount;
+		volatile Throwable detachedException;
+		CountDownLatch detachedFinish = new CountDownLatch( 1 );
+
+		protected void onFinish( )
+		{
+			finishCount++;
+		}
+
+		protected void onDetachedFinish( Throwable exception )
+		{
+			detachedException = exception;
+			detachedFinish.countDown( );
+		}
+	}
+}
@@ -0,0 +1,52 @@
+/*************************************************************************************
+ * Copyright (c) 2017 Actuate Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Actuate Corporation - Initial implementation.
+ ************************************************************************************/
+
+package org.eclipse.birt.report.viewer.service;
+
+import junit.framework.TestCase;
+
+import org.eclipse.birt.report.service.RequestSnapshot;
+import org.eclipse.birt.report.viewer.mock.HttpServletRequestSimulator;
+
+/**
+ * TestCases for RequestSnapshot.
+ */
+public class RequestSnapshotTest extends TestCase
+{
+
+	/**
+	 * The snapshot keeps the values of the request when it was taken.
+	 */
+	public void testSnapshot( )
+	{
+		HttpServletRequestSimulator request = new HttpServletRequestSimulator( );
+		Object value = new Object( );
+		request.setAttribute( "attribute", value ); //$NON-NLS-1$
+		request.addParameterValues( "parameter", new String[]{"a", "b"} ); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		request.addHeader( "Accept-Language", "en" ); //$NON-NLS-1$ //$NON-NLS-2$
+		request.setRemoteUser( "user" ); //$NON-NLS-1$
+		request.setContextPath( "/birt" ); //$NON-NLS-1$
+
+		RequestSnapshot snapshot = new RequestSnapshot( request );
+		request.removeAttribute( "attribute" ); //$NON-NLS-1$
+		request.removeParameter( "parameter" ); //$NON-NLS-1$
+		request.setRemoteUser( null );
+
+		assertSame( value, snapshot.getAttribute( "attribute" ) ); //$NON-NLS-1$
+		assertTrue( snapshot.getAttributeNames( ).contains( "attribute" ) ); //$NON-NLS-1$
+		assertEquals( "a", snapshot.getParameter( "parameter" ) ); //$NON-NLS-1$ //$NON-NLS-2$
+		assertEquals( 2, snapshot.getParameterValues( "parameter" ).length ); //$NON-NLS-1$
+		assertNull( snapshot.getParameter( "missing" ) ); //$NON-NLS-1$
+		assertEquals( "en", snapshot.getHeader( "accept-language" ) ); //$NON-NLS-1$ //$NON-NLS-2$
+		assertEquals( "user", snapshot.getRemoteUser( ) ); //$NON-NLS-1$
+		assertEquals( "/birt", snapshot.getContextPath( ) ); //$NON-NLS-1$
+	}
+}
@@ -0,0 +1,300 @@
+/*************************************************************************************
+ * Copyright (c) 2017 Actuate Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Actuate Corporation - Initial implementation.
+ ************************************************************************************/
+
+package org.eclipse.birt.report.viewer.session;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+import org.eclipse.birt.report.session.SharedDocumentStore;
+
+/**
+ * TestCases for SharedDocumentStore.
+ */
+public class SharedDocumentStoreTest extends TestCase
+{
+
+	private File folder;
+
+	protected void setUp( ) throws Exception
+	{
+		super.setUp( );
+		folder = new File( System.getProperty( "java.io.tmpdir" ), //$NON-NLS-1$
+				"SharedDocumentStoreTest" + System.nanoTime( ) ); //$NON-NLS-1$
+	}
+
+	protected void tearDown( ) throws Exception
+	{
+		deleteFile( folder );
+		super.tearDown( );
+	}
+
+	/**
+	 * Concurrent requests for the same document wait for a single
+	 * generation.
+	 */
+	public void testSingleFlightGeneration( ) throws Exception
+	{
+		final SharedDocumentStore store = new SharedDocumentStore( folder
+				.getPath( ), 0, 0 );
+		final CountDownLatch started = new CountDownLatch( 1 );
+		final CountDownLatch release = new CountDownLatch( 1 );
+		final Generator generator = new Generator( 100 ) {
+
+			public boolean generate( String documentName ) throws Exception
+			{
+				started.countDown( );
+				release.await( 10, TimeUnit.SECONDS );
+				return super.generate( documentName );
+			}
+		};
+
+		Request first = new Request( store, "s1/doc", "key", generator ); //$NON-NLS-1$ //$NON-NLS-2$
+		first.start( );
+		assertTrue( started.await( 10, TimeUnit.SECONDS ) );
+		Request second = new Request( store, "s2/doc", "key", generator ); //$NON-NLS-1$ //$NON-NLS-2$
+		second.start( );
+		release.countDown( );
+		first.join( 10000 );
+		second.join( 10000 );
+
+		assertNull( first.error );
+		assertNull( second.error );
+		assertNotNull( first.result );
+		assertEquals( first.result, second.result );
+		assertEquals( 1, generator.count.get( ) );
+		assertEquals( first.result, store.getBoundDocument( "s1/doc" ) ); //$NON-NLS-1$
+		assertEquals( first.result, store.getBoundDocument( "s2/doc" ) ); //$NON-NLS-1$
+	}
+
+	/**
+	 * A document is not used by new requests after its time to live, and is
+	 * deleted when the last viewing session bound to it is released.
+	 */
+	public void testTimeToLive( ) throws Exception
+	{
+		SharedDocumentStore store = new SharedDocumentStore( folder.getPath( ),
+				500, 0 );
+		Generator generator = new Generator( 100 );
+		String first = store.getDocument( "s1/doc", "key", generator ); //$NON-NLS-1$ //$NON-NLS-2$
+		assertEquals( first, store.getDocument( "s2/doc", "key", generator ) ); //$NON-NLS-1$ //$NON-NLS-2$
+		assertEquals( 1, generator.count.get( ) );
+
+		Thread.sleep( 700 );
+		String second = store.getDocument( "s3/doc", "key", generator ); //$NON-NLS-1$ //$NON-NLS-2$
+		assertEquals( 2, generator.count.get( ) );
+		assertFalse( first.equals( second ) );
+
+		// the expired document is still bound
+		assertTrue( new File( first ).exists( ) );
+		store.releaseAll( "s1/" ); //$NON-NLS-1$
+		assertTrue( new File( first ).exists( ) );
+		store.releaseAll( "s2/" ); //$NON-NLS-1$
+		assertFalse( new File( first ).exists( ) );
+		assertTrue( new File( second ).exists( ) );
+	}
+
+	/**
+	 * Above the maximum size, the least recently used documents which are not
+	 * bound are deleted.
+	 */
+	public void testMaximumSizeEvictsLeastRecentlyUsed( ) throws Exception
+	{
+		SharedDocumentStore store = new SharedDocumentStore( folder.getPath( ),
+				0, 250 );
+		Generator generator = new Generator( 100 );
+		String doc1 = store.getDocument( "s1/doc", "key1", generator ); //$NON-NLS-1$ //$NON-NLS-2$
+		String doc2 = store.getDocument( "s2/doc", "key2", generator ); //$NON-NLS-1$ //$NON-NLS-2$
+		String doc3 = store.getDocument( "s3/doc", "key3", generator ); //$NON-NLS-1$ //$NON-NLS-2$
+
+		// all the documents are bound, so none is deleted
+		assertTrue( new File( doc1 ).exists( ) );
+		assertTrue( new File( doc2 ).exists( ) );
+		assertTrue( new File( doc3 ).exists( ) );
+
+		// doc1 becomes the most recently used
+		assertEquals( doc1, store.getDocument( "s4/doc", "key1", generator ) ); //$NON-NLS-1$ //$NON-NLS-2$
+		store.releaseAll( "s1/" ); //$NON-NLS-1$
+		store.releaseAll( "s2/" ); //$NON-NLS-1$
+		store.releaseAll( "s3/" ); //$NON-NLS-1$
+		store.releaseAll( "s4/" ); //$NON-NLS-1$
+
+		String doc4 = store.getDocument( "s5/doc", "key4", generator ); //$NON-NLS-1$ //$NON-NLS-2$
+		assertFalse( new File( doc2 ).exists( ) );
+		assertFalse( new File( doc3 ).exists( ) );
+		assertTrue( new File( doc1 ).exists( ) );
+		assertTrue( new File( doc4 ).exists( ) );
+		assertEquals( 4, generator.count.get( ) );
+	}
+
+	/**
+	 * An invalidated document is deleted only when no viewing session is
+	 * bound to it any longer.
+	 */
+	public void testReleaseByReference( ) throws Exception
+	{
+		SharedDocumentStore store = new SharedDocumentStore( folder.getPath( ),
+				0, 0 );
+		Generator generator = new Generator( 100 );
+		String doc = store.getDocument( "s1/doc", "key", generator ); //$NON-NLS-1$ //$NON-NLS-2$
+		assertEquals( doc, store.getDocument( "s2/doc", "key", generator ) ); //$NON-NLS-1$ //$NON-NLS-2$
+
+		store.invalidate( "s1/doc" ); //$NON-NLS-1$
+		assertNull( store.getBoundDocument( "s1/doc" ) ); //$NON-NLS-1$
+		assertEquals( doc, store.getBoundDocument( "s2/doc" ) ); //$NON-NLS-1$
+		assertTrue( new File( doc ).exists( ) );
+
+		store.releaseAll( "s2/" ); //$NON-NLS-1$
+		assertNull( store.getBoundDocument( "s2/doc" ) ); //$NON-NLS-1$
+		assertFalse( new File( doc ).exists( ) );
+
+		// the invalidated document is generated again
+		String regenerated = store.getDocument( "s3/doc", "key", generator ); //$NON-NLS-1$ //$NON-NLS-2$
+		assertFalse( doc.equals( regenerated ) );
+		assertEquals( 2, generator.count.get( ) );
+	}
+
+	/**
+	 * A request waiting for a generation which fails generates the document
+	 * again.
+	 */
+	public void testRetryAfterFailedGeneration( ) throws Exception
+	{
+		final SharedDocumentStore store = new SharedDocumentStore( folder
+				.getPath( ), 0, 0 );
+		final CountDownLatch started = new CountDownLatch( 1 );
+		final CountDownLatch release = new CountDownLatch( 1 );
+		final Generator generator = new Generator( 100 ) {
+
+			public boolean generate( String documentName ) throws Exception
+			{
+				if ( count.get( ) == 0 )
+				{
+					count.incrementAndGet( );
+					started.countDown( );
+					release.await( 10, TimeUnit.SECONDS );
+					return false;
+				}
+				return super.generate( documentName );
+			}
+		};
+
+		Request first = new Request( store, "s1/doc", "key", generator ); //$NON-NLS-1$ //$NON-NLS-2$
+		first.start( );
+		assertTrue( started.await( 10, TimeUnit.SECONDS ) );
+		Request second = new Request( store, "s2/doc", "key", generator ); //$NON-NLS-1$ //$NON-NLS-2$
+		second.start( );
+		release.countDown( );
+		first.join( 10000 );
+		second.join( 10000 );
+
+		assertNull( first.error );
+		assertNull( second.error );
+		assertNull( first.result );
+		assertNotNull( second.result );
+		assertTrue( new File( second.result ).exists( ) );
+		assertEquals( 2, generator.count.get( ) );
+		assertNull( store.getBoundDocument( "s1/doc" ) ); //$NON-NLS-1$
+		assertEquals( second.result, store.getBoundDocument( "s2/doc" ) ); //$NON-NLS-1$
+	}
+
+	private static void deleteFile( File file )
+	{
+		if ( file.isDirectory( ) )
+		{
+			File[] children = file.listFiles( );
+			for ( int i = 0; children != null && i < children.length; i++ )
+			{
+				deleteFile( children[i] );
+			}
+		}
+		file.delete( );
+	}
+
+	/**
+	 * Writes a document file of a given size and counts the generations.
+	 */
+	private static class Generator
+			implements
+				SharedDocumentStore.IDocumentGenerator
+	{
+
+		AtomicInteger count = new AtomicInteger( );
+		private int size;
+
+		Generator( int size )
+		{
+			this.size = size;
+		}
+
+		public boolean generate( String documentName ) throws Exception
+		{
+			count.incrementAndGet( );
+			writeFile( new File( documentName ), size );
+			return true;
+		}
+
+		private static void writeFile( File file, int size ) throws IOException
+		{
+			file.getParentFile( ).mkdirs( );
+			FileOutputStream out = new FileOutputStream( file );
+			try
+			{
+				out.write( new byte[size] );
+			}
+			finally
+			{
+				out.close( );
+			}
+		}
+	}
+
+	/**
+	 * Requests a document in its own thread.
+	 */
+	private static class Request extends Thread
+	{
+
+		private SharedDocumentStore store;
+		private String sessionDocument;
+		private String key;
+		private SharedDocumentStore.IDocumentGenerator generator;
+		String result;
+		Exception error;
+
+		Request( SharedDocumentStore store, String sessionDocument,
+				String key, SharedDocumentStore.IDocumentGenerator generator )
+		{
+			this.store = store;
+			this.sessionDocument = sessionDocument;
+			this.key = key;
+			this.generator = generator;
+		}
+
+		public void run( )
+		{
+			try
+			{
+				result = store.getDocument( sessionDocument, key, generator );
+			}
+			catch ( Exception e )
+			{
+				error = e;
+			}
+		}
+	}
+}
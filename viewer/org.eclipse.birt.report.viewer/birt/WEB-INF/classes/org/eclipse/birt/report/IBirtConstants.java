@@ -156,6 +156,13 @@ public interface IBirtConstants
 
 	// app context key
 	public static final String APPCONTEXT_BIRT_RESOURCE_PATH = "birt.viewer.resource.path"; //$NON-NLS-1$
+
+	/**
+	 * The app context key of the <code>RequestSnapshot</code> of a report
+	 * generated in the background, which has no HTTP request.
+	 */
+	public static final String APPCONTEXT_BIRT_VIEWER_REQUEST_SNAPSHOT = "BIRT_VIEWER_REQUEST_SNAPSHOT"; //$NON-NLS-1$
+
 	/**
 	 * unknown line number
 	 */
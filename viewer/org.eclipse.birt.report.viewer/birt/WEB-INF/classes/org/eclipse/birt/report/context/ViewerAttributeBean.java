@@ -47,6 +47,7 @@ import org.eclipse.birt.report.service.api.IViewerReportService;
 import org.eclipse.birt.report.service.api.InputOptions;
 import org.eclipse.birt.report.service.api.ParameterDefinition;
 import org.eclipse.birt.report.service.api.ReportServiceException;
+import org.eclipse.birt.report.session.ViewingSessionUtil;
 import org.eclipse.birt.report.utility.BirtUtility;
 import org.eclipse.birt.report.utility.DataUtil;
 import org.eclipse.birt.report.utility.ParameterAccessor;
@@ -665,8 +666,12 @@ public class ViewerAttributeBean extends BaseAttributeBean
 			this.documentInUrl = true;
 			this.parameterMap = reportDocumentInstance.getParameterValues( );
 
-			// if generating document from report isn't completed
-			if ( !reportDocumentInstance.isComplete( ) && isReportExist )
+			// if generating document from report isn't completed, unless the
+			// first pages are viewed while the document is generated
+			if ( !reportDocumentInstance.isComplete( )
+					&& isReportExist
+					&& !ReportEngineService.getInstance( )
+							.isGeneratingInBackground( this.reportDocumentName ) )
 				this.isDocumentProcessing = true;
 
 			reportDocumentInstance.close( );
@@ -696,7 +701,10 @@ public class ViewerAttributeBean extends BaseAttributeBean
 				|| IBirtConstants.SERVLET_PATH_EXTRACT.equalsIgnoreCase( request.getServletPath( ) ) )
 			return;
 
-		if ( this.reportDocumentName == null )
+		// the document is being generated while its first pages are viewed
+		if ( this.reportDocumentName == null
+				|| ReportEngineService.getInstance( )
+						.isGeneratingInBackground( this.reportDocumentName ) )
 			return;
 
 		File reportDocFile = new File( this.reportDocumentName );
@@ -710,7 +718,21 @@ public class ViewerAttributeBean extends BaseAttributeBean
 			if ( lastModifiedOfDesign > reportDocFile.lastModified( )
 					|| ParameterAccessor.isOverwrite( request ) )
 			{
-				reportDocFile.delete( );
+				// a shared document may be used by other viewing sessions,
+				// only unbind it from the current session
+				String sessionDocumentName = ViewingSessionUtil.getSessionReportDocument( request,
+						this.reportDocumentName );
+				if ( sessionDocumentName != null
+						&& !sessionDocumentName.equals( this.reportDocumentName ) )
+				{
+					ViewingSessionUtil.getSharedDocumentStore( )
+							.invalidate( sessionDocumentName );
+					this.reportDocumentName = sessionDocumentName;
+				}
+				else
+				{
+					reportDocFile.delete( );
+				}
 			}
 		}
 	}
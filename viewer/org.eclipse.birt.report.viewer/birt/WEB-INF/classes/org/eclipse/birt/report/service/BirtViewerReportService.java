@@ -155,6 +155,8 @@ public class BirtViewerReportService implements IViewerReportService
 					ParameterAccessor.PARAM_MAXROWS ) )
 				maxRows = Integer.valueOf( ParameterAccessor.getMaxRows( request ) );
 
+			Boolean progressive = (Boolean) runOptions.getOption( InputOptions.OPT_PROGRESSIVE );
+
 			List<Exception> errors = ReportEngineService.getInstance( )
 					.runReport( request,
 							runnable,
@@ -163,7 +165,8 @@ public class BirtViewerReportService implements IViewerReportService
 							timeZone,
 							parsedParams,
 							displayTextMap,
-							maxRows );
+							maxRows,
+							progressive != null && progressive.booleanValue( ) );
 			if ( errors != null && !errors.isEmpty( ) )
 			{
 				errorList.addAll( errors );
@@ -703,7 +706,14 @@ public class BirtViewerReportService implements IViewerReportService
 		{
 			doc = openReportDocument( docName, options );
 			if ( doc != null )
+			{
 				count = doc.getPageCount( );
+				if ( outputOptions != null )
+				{
+					outputOptions.setOption( OutputOptions.OPT_REPORT_GENERATION_COMPLETED,
+							Boolean.valueOf( doc.isComplete( ) ) );
+				}
+			}
 		}
 		finally
 		{
@@ -0,0 +1,174 @@
+/*************************************************************************************
+ * Copyright (c) 2017 Actuate Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Actuate Corporation - Initial implementation.
+ ************************************************************************************/
+
+package org.eclipse.birt.report.service;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A report run which goes on in the background once its first page can be
+ * viewed.<br />
+ * The request thread starts the run and waits for the first page. If the run
+ * finishes before, the request reports its result as usual. Otherwise the
+ * request returns, and the run reports its own result when it finishes. When
+ * the executor has no free thread, the run is executed in the request thread.
+ */
+public abstract class ProgressiveRun implements Runnable
+{
+
+	private CountDownLatch firstPage = new CountDownLatch( 1 );
+
+	private CountDownLatch finished = new CountDownLatch( 1 );
+
+	// guarded by this
+	private boolean done;
+
+	// guarded by this
+	private boolean detached;
+
+	private volatile Throwable exception;
+
+	/**
+	 * Executes the run.
+	 *
+	 * @throws Exception
+	 */
+	protected abstract void execute( ) throws Exception;
+
+	/**
+	 * Called when the run has finished, whether the request has returned or
+	 * not.
+	 */
+	protected void onFinish( )
+	{
+	}
+
+	/**
+	 * Called when the run finishes after the request has returned, so that
+	 * nobody else reports its result.
+	 *
+	 * @param exception
+	 *            the exception which ended the run, or null
+	 */
+	protected abstract void onDetachedFinish( Throwable exception );
+
+	/**
+	 * Called when the request thread is interrupted while it waits for the
+	 * first page.
+	 */
+	protected void onInterrupted( )
+	{
+	}
+
+	/**
+	 * Notifies that the first page can be viewed.
+	 */
+	public void firstPageReached( )
+	{
+		firstPage.countDown( );
+	}
+
+	/**
+	 * @return the exception which ended the run, or null
+	 */
+	public Throwable getException( )
+	{
+		return exception;
+	}
+
+	public void run( )
+	{
+		try
+		{
+			execute( );
+		}
+		catch ( Exception e )
+		{
+			exception = e;
+		}
+		catch ( Error e )
+		{
+			exception = e;
+		}
+		finally
+		{
+			onFinish( );
+			boolean report;
+			synchronized ( this )
+			{
+				done = true;
+				report = detached;
+			}
+			if ( report )
+			{
+				onDetachedFinish( exception );
+			}
+			finished.countDown( );
+			firstPage.countDown( );
+		}
+	}
+
+	/**
+	 * Starts the run and waits until its first page can be viewed, it has
+	 * finished or the timeout has elapsed.
+	 *
+	 * @param executor
+	 *            the executor of the background runs
+	 * @param timeout
+	 *            the maximum time in milliseconds to wait for the first page
+	 * @return true if the run has finished and the caller reports its result,
+	 *         false if it goes on in the background
+	 */
+	public boolean start( Executor executor, long timeout )
+	{
+		try
+		{
+			executor.execute( this );
+		}
+		catch ( RejectedExecutionException e )
+		{
+			// no free thread, run as a normal report
+			run( );
+			return true;
+		}
+
+		try
+		{
+			firstPage.await( timeout, TimeUnit.MILLISECONDS );
+		}
+		catch ( InterruptedException e )
+		{
+			Thread.currentThread( ).interrupt( );
+			onInterrupted( );
+		}
+
+		synchronized ( this )
+		{
+			if ( !done )
+			{
+				detached = true;
+				return false;
+			}
+		}
+		try
+		{
+			finished.await( );
+		}
+		catch ( InterruptedException e )
+		{
+			Thread.currentThread( ).interrupt( );
+		}
+		return true;
+	}
+}
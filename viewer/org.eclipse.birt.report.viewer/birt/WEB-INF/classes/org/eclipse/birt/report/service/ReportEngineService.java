@@ -19,22 +19,32 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.MalformedURLException;
+import java.net.URL;
 import java.rmi.RemoteException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import javax.servlet.ServletConfig;
 import javax.servlet.ServletContext;
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpSession;
 
 import org.eclipse.birt.core.exception.BirtException;
 import org.eclipse.birt.core.framework.IPlatformContext;
@@ -42,7 +52,9 @@ import org.eclipse.birt.core.framework.Platform;
 import org.eclipse.birt.core.framework.PlatformServletContext;
 import org.eclipse.birt.data.engine.api.IBaseDataSetDesign;
 import org.eclipse.birt.data.engine.api.IBaseDataSourceDesign;
+import org.eclipse.birt.data.engine.core.security.ThreadSecurity;
 import org.eclipse.birt.report.IBirtConstants;
+import org.eclipse.birt.report.context.BaseAttributeBean;
 import org.eclipse.birt.report.data.adapter.api.DataRequestSession;
 import org.eclipse.birt.report.data.adapter.api.DataSessionContext;
 import org.eclipse.birt.report.data.adapter.api.IModelAdapter;
@@ -58,9 +70,11 @@ import org.eclipse.birt.report.engine.api.HTMLServerImageHandler;
 import org.eclipse.birt.report.engine.api.IDataExtractionTask;
 import org.eclipse.birt.report.engine.api.IGetParameterDefinitionTask;
 import org.eclipse.birt.report.engine.api.IHTMLRenderOption;
+import org.eclipse.birt.report.engine.api.IPageHandler;
 import org.eclipse.birt.report.engine.api.IRenderOption;
 import org.eclipse.birt.report.engine.api.IRenderTask;
 import org.eclipse.birt.report.engine.api.IReportDocument;
+import org.eclipse.birt.report.engine.api.IReportDocumentInfo;
 import org.eclipse.birt.report.engine.api.IReportEngine;
 import org.eclipse.birt.report.engine.api.IReportEngineFactory;
 import org.eclipse.birt.report.engine.api.IReportRunnable;
@@ -78,9 +92,15 @@ import org.eclipse.birt.report.exception.ViewerException;
 import org.eclipse.birt.report.model.api.DataSetHandle;
 import org.eclipse.birt.report.model.api.DataSourceHandle;
 import org.eclipse.birt.report.model.api.DesignElementHandle;
+import org.eclipse.birt.report.model.api.IResourceLocator;
+import org.eclipse.birt.report.model.api.IncludeScriptHandle;
 import org.eclipse.birt.report.model.api.ListingHandle;
+import org.eclipse.birt.report.model.api.ModuleHandle;
 import org.eclipse.birt.report.model.api.ReportElementHandle;
 import org.eclipse.birt.report.model.api.ReportItemHandle;
+import org.eclipse.birt.report.model.api.SlotHandle;
+import org.eclipse.birt.report.model.api.metadata.IElementDefn;
+import org.eclipse.birt.report.model.api.metadata.IElementPropertyDefn;
 import org.eclipse.birt.report.resource.BirtResources;
 import org.eclipse.birt.report.resource.ResourceConstants;
 import org.eclipse.birt.report.service.api.InputOptions;
@@ -121,6 +141,25 @@ public class ReportEngineService
 
 	private static ReportEngineService instance;
 
+	private static final Logger logger = Logger.getLogger( ReportEngineService.class
+			.getName( ) );
+
+	/**
+	 * Report documents being generated by progressive runs.
+	 */
+	private Set<String> progressiveDocuments = new HashSet<String>( );
+
+	/**
+	 * Executor of the progressive runs, created on the first run.
+	 */
+	private ExecutorService progressiveExecutor;
+
+	/**
+	 * Maximum time in milliseconds a request waits for the first page of a
+	 * progressive run. The run goes on in the background after it.
+	 */
+	private static final long FIRST_PAGE_TIMEOUT = 60000;
+
 	/**
 	 * Report engine instance.
 	 */
@@ -1280,6 +1319,42 @@ public class ReportEngineService
 			IReportRunnable runnable, String documentName, Locale locale,
 			TimeZone timeZone, Map parameters, Map displayTexts, Integer maxRows )
 			throws RemoteException
+	{
+		return runReport( request,
+				runnable,
+				documentName,
+				locale,
+				timeZone,
+				parameters,
+				displayTexts,
+				maxRows,
+				false );
+	}
+
+	/**
+	 * Run report.
+	 * 
+	 * @param request
+	 * 
+	 * @param runnable
+	 * @param archive
+	 * @param documentName
+	 * @param locale
+	 * @param parameters
+	 * @param displayTexts
+	 * @param maxRows
+	 * @param progressive
+	 *            if true, returns as soon as the first page of the document
+	 *            can be viewed, and the run task goes on in the background
+	 *            with a snapshot of the request; ignored when the scripts of
+	 *            the design read the request
+	 * @return list of exceptions which occured during the run or null
+	 * @throws RemoteException
+	 */
+	public List<Exception> runReport( HttpServletRequest request,
+			IReportRunnable runnable, String documentName, Locale locale,
+			TimeZone timeZone, Map parameters, Map displayTexts,
+			Integer maxRows, boolean progressive ) throws RemoteException
 	{
 		assert runnable != null;
 
@@ -1317,6 +1392,15 @@ public class ReportEngineService
 
 		// set app context
 		Map context = BirtUtility.getAppContext( request );
+		if ( progressive && !usesHttpServletRequest( runnable ) )
+		{
+			// the request is not used once it has returned
+			context.remove( EngineConstants.APPCONTEXT_BIRT_VIEWER_HTTPSERVET_REQUEST );
+			context.put( IBirtConstants.APPCONTEXT_BIRT_VIEWER_REQUEST_SNAPSHOT,
+					new RequestSnapshot( request ) );
+			runTask.setAppContext( context );
+			return runReportInBackground( request, runTask, documentName );
+		}
 		runTask.setAppContext( context );
 
 		// Run report.
@@ -1354,6 +1438,290 @@ public class ReportEngineService
 		return null;
 	}
 
+	/**
+	 * Runs the report in a background thread, and waits until the first page
+	 * of the document can be viewed or the run task has finished.
+	 * 
+	 * @param request
+	 * @param runTask
+	 * @param documentName
+	 * @return list of exceptions which occured during the run or null
+	 * @throws RemoteException
+	 */
+	private List<Exception> runReportInBackground( HttpServletRequest request,
+			final IRunTask runTask, final String documentName )
+			throws RemoteException
+	{
+		final HttpSession session = request.getSession( false );
+		BaseAttributeBean attrBean = (BaseAttributeBean) request
+				.getAttribute( IBirtConstants.ATTRIBUTE_BEAN );
+		final String taskId = attrBean == null ? null : attrBean.getTaskId( );
+
+		final ProgressiveRun run = new ProgressiveRun( ) {
+
+			protected void execute( ) throws Exception
+			{
+				runTask.run( documentName );
+			}
+
+			protected void onFinish( )
+			{
+				synchronized ( progressiveDocuments )
+				{
+					progressiveDocuments.remove( documentName );
+				}
+				BirtUtility.removeTask( session, taskId );
+			}
+
+			protected void onDetachedFinish( Throwable exception )
+			{
+				logErrors( documentName, exception, runTask.getErrors( ) );
+				runTask.close( );
+			}
+
+			protected void onInterrupted( )
+			{
+				runTask.cancel( );
+			}
+		};
+
+		runTask.enableProgressiveViewing( true );
+		runTask.setPageHandler( new IPageHandler( ) {
+
+			public void onPage( int pageNumber, boolean checkpoint,
+					IReportDocumentInfo doc )
+			{
+				if ( checkpoint )
+				{
+					run.firstPageReached( );
+				}
+			}
+		} );
+
+		synchronized ( progressiveDocuments )
+		{
+			progressiveDocuments.add( documentName );
+		}
+		if ( !run.start( getProgressiveExecutor( ), FIRST_PAGE_TIMEOUT ) )
+		{
+			// the report goes on in the background
+			return null;
+		}
+
+		// the run task finished before the first page, report as usual
+		List<Exception> errors = (List<Exception>) runTask.getErrors( );
+		if ( ParameterAccessor.isDesigner( ) )
+			BirtUtility.error( request, runTask.getErrors( ) );
+		runTask.close( );
+		Throwable exception = run.getException( );
+		if ( exception != null )
+		{
+			// clear document file
+			File doc = new File( documentName );
+			if ( doc != null )
+				doc.delete( );
+
+			if ( exception instanceof RuntimeException )
+				throw (RuntimeException) exception;
+			if ( exception instanceof Error )
+				throw (Error) exception;
+			if ( exception instanceof BirtException )
+				throwDummyException( (BirtException) exception );
+			throw new DummyRemoteException( exception );
+		}
+		return errors.isEmpty( ) ? null : errors;
+	}
+
+	/**
+	 * Returns whether a script of the design, or a script file it includes,
+	 * reads the HTTP request from the report context or the app context.
+	 * 
+	 * @param runnable
+	 * @return true if the report is run in the request thread
+	 */
+	private static boolean usesHttpServletRequest( IReportRunnable runnable )
+	{
+		DesignElementHandle design = runnable.getDesignHandle( );
+		if ( design == null )
+			return false;
+		if ( usesHttpServletRequest( design ) )
+			return true;
+
+		ModuleHandle module = design.getModuleHandle( );
+		Iterator scripts = module.includeScriptsIterator( );
+		while ( scripts.hasNext( ) )
+		{
+			IncludeScriptHandle script = (IncludeScriptHandle) scripts.next( );
+			URL url = module.findResource( script.getFileName( ),
+					IResourceLocator.OTHERS );
+			try
+			{
+				if ( url == null || usesHttpServletRequest( readScript( url ) ) )
+					return true;
+			}
+			catch ( IOException e )
+			{
+				// a script which cannot be read is run as it always was
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns whether a script method of an element or of its contents reads
+	 * the HTTP request.
+	 * 
+	 * @param element
+	 * @return
+	 */
+	private static boolean usesHttpServletRequest( DesignElementHandle element )
+	{
+		List methods = element.getMethods( );
+		for ( int i = 0; i < methods.size( ); i++ )
+		{
+			String name = ( (IElementPropertyDefn) methods.get( i ) ).getName( );
+			if ( usesHttpServletRequest( element.getStringProperty( name ) ) )
+				return true;
+		}
+
+		IElementDefn defn = element.getDefn( );
+		for ( int i = 0; i < defn.getSlotCount( ); i++ )
+		{
+			SlotHandle slot = element.getSlot( i );
+			if ( slot == null )
+				continue;
+			Iterator contents = slot.iterator( );
+			while ( contents.hasNext( ) )
+			{
+				if ( usesHttpServletRequest( (DesignElementHandle) contents.next( ) ) )
+					return true;
+			}
+		}
+		List<IElementPropertyDefn> properties = defn.getContents( );
+		for ( int i = 0; i < properties.size( ); i++ )
+		{
+			List contents = element.getContents( properties.get( i ).getName( ) );
+			for ( int j = 0; j < contents.size( ); j++ )
+			{
+				if ( usesHttpServletRequest( (DesignElementHandle) contents.get( j ) ) )
+					return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean usesHttpServletRequest( String script )
+	{
+		return script != null
+				&& ( script.indexOf( "getHttpServletRequest" ) >= 0 //$NON-NLS-1$
+				|| script.indexOf( EngineConstants.APPCONTEXT_BIRT_VIEWER_HTTPSERVET_REQUEST ) >= 0 );
+	}
+
+	private static String readScript( URL url ) throws IOException
+	{
+		InputStream in = url.openStream( );
+		try
+		{
+			ByteArrayOutputStream out = new ByteArrayOutputStream( );
+			byte[] buffer = new byte[4096];
+			int count;
+			while ( ( count = in.read( buffer ) ) > 0 )
+			{
+				out.write( buffer, 0, count );
+			}
+			return out.toString( "UTF-8" ); //$NON-NLS-1$
+		}
+		finally
+		{
+			in.close( );
+		}
+	}
+
+	/**
+	 * Returns the executor of the progressive runs. It has at most
+	 * viewer.document.progressive.maximumThreads threads and no queue, so a
+	 * run which finds no free thread is executed in the request thread.
+	 * 
+	 * @return the executor
+	 */
+	private synchronized ExecutorService getProgressiveExecutor( )
+	{
+		if ( progressiveExecutor == null )
+		{
+			int threads = Math.max( ParameterAccessor.progressiveMaximumThreads,
+					1 );
+			ThreadPoolExecutor executor = new ThreadPoolExecutor( threads,
+					threads,
+					60,
+					TimeUnit.SECONDS,
+					new SynchronousQueue<Runnable>( ),
+					new ThreadFactory( ) {
+
+						public Thread newThread( Runnable r )
+						{
+							Thread thread = ThreadSecurity.createThread( r );
+							thread.setName( "BIRT viewer run task" ); //$NON-NLS-1$
+							thread.setDaemon( true );
+							return thread;
+						}
+					} );
+			executor.allowCoreThreadTimeOut( true );
+			progressiveExecutor = executor;
+		}
+		return progressiveExecutor;
+	}
+
+	/**
+	 * Stops accepting progressive runs. The runs in progress go on until they
+	 * finish.
+	 */
+	private synchronized void shutdownProgressiveExecutor( )
+	{
+		if ( progressiveExecutor != null )
+		{
+			progressiveExecutor.shutdown( );
+			progressiveExecutor = null;
+		}
+	}
+
+	/**
+	 * Logs the errors of a run task which finished in the background.
+	 * 
+	 * @param documentName
+	 * @param exception
+	 * @param errors
+	 */
+	private static void logErrors( String documentName,
+			Throwable exception, List errors )
+	{
+		if ( exception != null )
+		{
+			logger.log( Level.SEVERE, "Failed to generate the report document " //$NON-NLS-1$
+					+ documentName, exception );
+		}
+		for ( int i = 0; errors != null && i < errors.size( ); i++ )
+		{
+			logger.log( Level.WARNING, "Error when generating the report document " //$NON-NLS-1$
+					+ documentName, (Throwable) errors.get( i ) );
+		}
+	}
+
+	/**
+	 * Returns whether a report document is being generated in the background
+	 * by a progressive run.
+	 * 
+	 * @param documentName
+	 * @return true if the document is being generated
+	 */
+	public boolean isGeneratingInBackground( String documentName )
+	{
+		synchronized ( progressiveDocuments )
+		{
+			return progressiveDocuments.contains( documentName );
+		}
+	}
+
 	/**
 	 * Render report page.
 	 * 
@@ -2504,6 +2872,10 @@ public class ReportEngineService
 	 */
 	public static void shutdown( )
 	{
+		if ( instance != null )
+		{
+			instance.shutdownProgressiveExecutor( );
+		}
 		instance = null;
 	}
 }
\ No newline at end of file
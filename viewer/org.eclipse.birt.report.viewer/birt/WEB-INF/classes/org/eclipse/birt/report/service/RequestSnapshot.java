@@ -0,0 +1,159 @@
+/*************************************************************************************
+ * Copyright (c) 2017 Actuate Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Actuate Corporation - Initial implementation.
+ ************************************************************************************/
+
+package org.eclipse.birt.report.service;
+
+import java.security.Principal;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * The attributes, parameters, headers and user of an HTTP request, copied for
+ * a report which goes on running in the background once the request has
+ * returned. The request itself is not used after it returns, so such a report
+ * finds this snapshot in its app context under
+ * <code>IBirtConstants.APPCONTEXT_BIRT_VIEWER_REQUEST_SNAPSHOT</code> instead
+ * of the request.
+ */
+public class RequestSnapshot
+{
+
+	private Map<String, Object> attributes = new HashMap<String, Object>( );
+
+	private Map<String, String[]> parameters = new HashMap<String, String[]>( );
+
+	private Map<String, String> headers = new HashMap<String, String>( );
+
+	private String remoteUser;
+
+	private Principal userPrincipal;
+
+	private Locale locale;
+
+	private String contextPath;
+
+	private String requestURI;
+
+	private String queryString;
+
+	/**
+	 * Copies a request.
+	 *
+	 * @param request
+	 */
+	public RequestSnapshot( HttpServletRequest request )
+	{
+		Enumeration names = request.getAttributeNames( );
+		while ( names != null && names.hasMoreElements( ) )
+		{
+			String name = (String) names.nextElement( );
+			attributes.put( name, request.getAttribute( name ) );
+		}
+		names = request.getParameterNames( );
+		while ( names != null && names.hasMoreElements( ) )
+		{
+			String name = (String) names.nextElement( );
+			parameters.put( name, request.getParameterValues( name ) );
+		}
+		names = request.getHeaderNames( );
+		while ( names != null && names.hasMoreElements( ) )
+		{
+			String name = (String) names.nextElement( );
+			headers.put( name.toLowerCase( Locale.ENGLISH ),
+					request.getHeader( name ) );
+		}
+		remoteUser = request.getRemoteUser( );
+		userPrincipal = request.getUserPrincipal( );
+		locale = request.getLocale( );
+		contextPath = request.getContextPath( );
+		requestURI = request.getRequestURI( );
+		queryString = request.getQueryString( );
+	}
+
+	public Object getAttribute( String name )
+	{
+		return attributes.get( name );
+	}
+
+	public Set<String> getAttributeNames( )
+	{
+		return Collections.unmodifiableSet( attributes.keySet( ) );
+	}
+
+	public String getParameter( String name )
+	{
+		String[] values = parameters.get( name );
+		return values == null || values.length == 0 ? null : values[0];
+	}
+
+	public String[] getParameterValues( String name )
+	{
+		String[] values = parameters.get( name );
+		return values == null ? null : (String[]) values.clone( );
+	}
+
+	public Set<String> getParameterNames( )
+	{
+		return Collections.unmodifiableSet( parameters.keySet( ) );
+	}
+
+	/**
+	 * Returns the first value of a header, whose name is not case sensitive.
+	 *
+	 * @param name
+	 * @return the value, or null if the request has no such header
+	 */
+	public String getHeader( String name )
+	{
+		return name == null ? null : headers.get( name.toLowerCase( Locale.ENGLISH ) );
+	}
+
+	public Set<String> getHeaderNames( )
+	{
+		return Collections.unmodifiableSet( headers.keySet( ) );
+	}
+
+	public String getRemoteUser( )
+	{
+		return remoteUser;
+	}
+
+	public Principal getUserPrincipal( )
+	{
+		return userPrincipal;
+	}
+
+	public Locale getLocale( )
+	{
+		return locale;
+	}
+
+	public String getContextPath( )
+	{
+		return contextPath;
+	}
+
+	public String getRequestURI( )
+	{
+		return requestURI;
+	}
+
+	public String getQueryString( )
+	{
+		return queryString;
+	}
+}
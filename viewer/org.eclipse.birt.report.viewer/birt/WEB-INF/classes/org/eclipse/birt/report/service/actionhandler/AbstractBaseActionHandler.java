@@ -56,6 +56,18 @@ abstract public class AbstractBaseActionHandler implements IActionHandler
 	 */
 	protected GetUpdatedObjectsResponse response = null;
 
+	/**
+	 * Interval in milliseconds to check whether a page of a document being
+	 * generated is available.
+	 */
+	protected static final long PAGE_WAIT_INTERVAL = 500;
+
+	/**
+	 * Maximum time in milliseconds to wait for a page of a document being
+	 * generated.
+	 */
+	protected static final long PAGE_WAIT_TIMEOUT = 60000;
+
 	/**
 	 * Abstract methods.
 	 */
@@ -159,10 +171,8 @@ abstract public class AbstractBaseActionHandler implements IActionHandler
 					}
 					InputOptions options = new InputOptions( );
 					options.setOption( InputOptions.OPT_REQUEST, request );
-					long totalPageNumber = 
-									getReportService( )
-									.getPageCount( documentName, options,
-									new OutputOptions( ) );
+					long totalPageNumber = waitForPage( documentName,
+							pageNumber, options, new OutputOptions( ) );
 					if ( pageNumber <= 0
 							|| pageNumber > totalPageNumber )
 					{
@@ -190,6 +200,71 @@ abstract public class AbstractBaseActionHandler implements IActionHandler
 		return pageNumber;
 	}
 
+	/**
+	 * Returns the page count of a document. If the document is being
+	 * generated and the page is not available yet, waits until it is, the
+	 * document is complete or the wait times out.
+	 * 
+	 * @param documentName
+	 * @param pageNumber
+	 * @param options
+	 * @param outputOptions
+	 * @return page count
+	 * @throws ReportServiceException
+	 */
+	protected long waitForPage( String documentName, long pageNumber,
+			InputOptions options, OutputOptions outputOptions )
+			throws ReportServiceException
+	{
+		long pageCount = getReportService( ).getPageCount( documentName,
+				options, outputOptions );
+		long timeout = System.currentTimeMillis( ) + PAGE_WAIT_TIMEOUT;
+		while ( pageCount < pageNumber && !isCompleted( outputOptions )
+				&& System.currentTimeMillis( ) < timeout )
+		{
+			try
+			{
+				Thread.sleep( PAGE_WAIT_INTERVAL );
+			}
+			catch ( InterruptedException e )
+			{
+				Thread.currentThread( ).interrupt( );
+				break;
+			}
+			pageCount = getReportService( ).getPageCount( documentName,
+					options, outputOptions );
+		}
+		return pageCount;
+	}
+
+	/**
+	 * Returns whether the generation of the document was complete when its
+	 * page count was retrieved.
+	 * 
+	 * @param outputOptions
+	 * @return
+	 */
+	protected boolean isCompleted( OutputOptions outputOptions )
+	{
+		Boolean isCompleted = (Boolean) outputOptions
+				.getOption( OutputOptions.OPT_REPORT_GENERATION_COMPLETED );
+		return isCompleted == null || isCompleted.booleanValue( );
+	}
+
+	/**
+	 * Returns the total page number shown in the navigation bar. A "+" is
+	 * appended while the document is still being generated.
+	 * 
+	 * @param totalPageNumber
+	 * @param isCompleted
+	 * @return
+	 */
+	protected String getTotalPage( long totalPageNumber, boolean isCompleted )
+	{
+		return isCompleted ? String.valueOf( totalPageNumber ) : totalPageNumber
+				+ "+"; //$NON-NLS-1$
+	}
+
 	/**
 	 * Get bookmark name from SOAP params and request.
 	 * 
@@ -171,10 +171,8 @@ public abstract class AbstractChangeParameterActionHandler
 					}
 					InputOptions options = new InputOptions( );
 					options.setOption( InputOptions.OPT_REQUEST, request );
-					long totalPageNumber = 
-							getReportService( )
-							.getPageCount( documentName, options,
-							new OutputOptions( ) );
+					long totalPageNumber = waitForPage( documentName,
+							pageNumber, options, new OutputOptions( ) );
 					if ( pageNumber <= 0
 							|| pageNumber > totalPageNumber )
 					{
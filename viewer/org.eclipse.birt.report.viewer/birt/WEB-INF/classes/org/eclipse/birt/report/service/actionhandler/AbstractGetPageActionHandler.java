@@ -136,13 +136,7 @@ public abstract class AbstractGetPageActionHandler
 	
 			__totalPageNumber = getReportService( ).getPageCount( __docName,
 					getPageCountOptions, outputOptions );
-			
-			Boolean isCompleted = (Boolean) outputOptions
-					.getOption( OutputOptions.OPT_REPORT_GENERATION_COMPLETED );
-			if ( isCompleted != null )
-			{
-				__isCompleted = isCompleted.booleanValue( );
-			}			
+			__isCompleted = isCompleted( outputOptions );
 		}			
 
 		__pageNumber = getPageNumber( context.getRequest( ), operation
@@ -269,7 +263,7 @@ public abstract class AbstractGetPageActionHandler
 		updateData.setTarget( "navigationBar" ); //$NON-NLS-1$
 		Page pageObj = new Page( );
 		pageObj.setPageNumber( String.valueOf( __pageNumber ) );
-		pageObj.setTotalPage( String.valueOf( __totalPageNumber ) );
+		pageObj.setTotalPage( getTotalPage( __totalPageNumber, __isCompleted ) );
 		pageObj.setRtl( __bean.isReportRtl() );
 		Data pageData = new Data( );
 		pageData.setPage( pageObj );
@@ -344,6 +338,16 @@ public abstract class AbstractGetPageActionHandler
 								);
 						throw fault;
 					}
+					if ( pageNumber > __totalPageNumber && !__isCompleted )
+					{
+						// wait for the page of the document being generated
+						InputOptions options = new InputOptions( );
+						options.setOption( InputOptions.OPT_REQUEST, request );
+						OutputOptions outputOptions = new OutputOptions( );
+						__totalPageNumber = waitForPage( documentName,
+								pageNumber, options, outputOptions );
+						__isCompleted = isCompleted( outputOptions );
+					}
 					if ( pageNumber <= 0 || pageNumber > __totalPageNumber )
 					{
 						AxisFault fault = new AxisFault( );
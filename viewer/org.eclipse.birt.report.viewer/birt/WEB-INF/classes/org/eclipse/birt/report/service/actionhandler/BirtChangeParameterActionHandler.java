@@ -101,8 +101,11 @@ public class BirtChangeParameterActionHandler
 		updateData.setTarget( "navigationBar" ); //$NON-NLS-1$
 		Page pageObj = new Page( );
 		pageObj.setPageNumber( String.valueOf( pageNumber ) );
-		pageObj.setTotalPage( String.valueOf( getReportService( ).getPageCount(
-				docName, options, new OutputOptions( ) ) ) );
+		OutputOptions outputOptions = new OutputOptions( );
+		long totalPageNumber = getReportService( ).getPageCount( docName,
+				options, outputOptions );
+		pageObj.setTotalPage( getTotalPage( totalPageNumber,
+				isCompleted( outputOptions ) ) );
 		pageObj.setRtl( attrBean.isReportRtl( ) );
 		Data pageData = new Data( );
 		pageData.setPage( pageObj );
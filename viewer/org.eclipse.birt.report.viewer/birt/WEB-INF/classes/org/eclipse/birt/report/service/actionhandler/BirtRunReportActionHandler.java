@@ -24,9 +24,12 @@ import org.eclipse.birt.report.service.api.IViewerReportDesignHandle;
 import org.eclipse.birt.report.service.api.IViewerReportService;
 import org.eclipse.birt.report.service.api.InputOptions;
 import org.eclipse.birt.report.service.api.ReportServiceException;
+import org.eclipse.birt.report.session.SharedDocumentStore;
+import org.eclipse.birt.report.session.ViewingSessionUtil;
 import org.eclipse.birt.report.soapengine.api.GetUpdatedObjectsResponse;
 import org.eclipse.birt.report.soapengine.api.Operation;
 import org.eclipse.birt.report.utility.BirtUtility;
+import org.eclipse.birt.report.utility.ParameterAccessor;
 
 public class BirtRunReportActionHandler extends AbstractBaseActionHandler
 {
@@ -72,14 +75,26 @@ public class BirtRunReportActionHandler extends AbstractBaseActionHandler
 		options.setOption( InputOptions.OPT_TIMEZONE, attrBean.getTimeZone( ) );
 		options.setOption( InputOptions.OPT_IS_DESIGNER, Boolean.valueOf( attrBean
 				.isDesigner( ) ) );
+		options.setOption( InputOptions.OPT_PROGRESSIVE,
+				Boolean.valueOf( ParameterAccessor.isProgressiveViewing( context
+						.getRequest( ) ) ) );
 
 		// handle operation
 		BirtUtility.handleOperation( operation, attrBean, parameterMap,
 				displayTexts );
 
 		List<Exception> errorList = new ArrayList<Exception>();
-		getReportService( ).runReport( designHandle, docName, options,
-				parameterMap, displayTexts, errorList );
+		String sharedDocName = runSharedReport( attrBean, designHandle,
+				docName, options, parameterMap, displayTexts, errorList );
+		if ( sharedDocName != null )
+		{
+			attrBean.setReportDocumentName( sharedDocName );
+		}
+		else if ( errorList.isEmpty( ) )
+		{
+			getReportService( ).runReport( designHandle, docName, options,
+					parameterMap, displayTexts, errorList );
+		}
 		if ( errorList != null && !errorList.isEmpty() ) 
 		{
 			// clear document file
@@ -91,6 +106,56 @@ public class BirtRunReportActionHandler extends AbstractBaseActionHandler
 		}
 	}
 
+	/**
+	 * Runs the report into a document shared by the viewing sessions, if the
+	 * documents are shared and the document is the one of the viewing
+	 * session.
+	 * 
+	 * @return the shared document, or null if the document is not shared or
+	 *         the generation failed
+	 * @throws Exception
+	 */
+	private String runSharedReport( ViewerAttributeBean attrBean,
+			final IViewerReportDesignHandle designHandle, String docName,
+			final InputOptions options, final Map parameterMap,
+			final Map displayTexts, final List<Exception> errorList )
+			throws Exception
+	{
+		SharedDocumentStore store = ViewingSessionUtil.getSharedDocumentStore( );
+		if ( store == null || attrBean.getReportDesignName( ) == null )
+			return null;
+
+		String sessionDocName = ViewingSessionUtil.getSessionReportDocument(
+				context.getRequest( ), docName );
+		File designFile = new File( attrBean.getReportDesignName( ) );
+		if ( sessionDocName == null || !designFile.isFile( ) )
+			return null;
+
+		if ( ParameterAccessor.isOverwrite( context.getRequest( ) ) )
+		{
+			store.invalidate( sessionDocName );
+		}
+
+		// the store records the document as complete when the generator
+		// returns, so a shared document is never generated progressively
+		options.setOption( InputOptions.OPT_PROGRESSIVE, Boolean.FALSE );
+		String key = SharedDocumentStore.createKey( designFile
+				.getAbsolutePath( ), designFile.lastModified( ), parameterMap,
+				attrBean.getLocale( ), attrBean.getTimeZone( ) );
+		return store.getDocument( sessionDocName, key,
+				new SharedDocumentStore.IDocumentGenerator( ) {
+
+					public boolean generate( String documentName )
+							throws Exception
+					{
+						getReportService( ).runReport( designHandle,
+								documentName, options, parameterMap,
+								displayTexts, errorList );
+						return errorList.isEmpty( );
+					}
+				} );
+	}
+
 	protected IViewerReportService getReportService( )
 	{
 		return BirtReportServiceFactory.getReportService( );
@@ -43,6 +43,8 @@ public class InputOptions
     
     public static final String OPT_PAGE_OVERFLOW = "pageOverflow"; //$NON-NLS-1$
 
+    public static final String OPT_PROGRESSIVE = "progressive"; //$NON-NLS-1$
+
     
 	// add options here that matches the common engine run or render options
 
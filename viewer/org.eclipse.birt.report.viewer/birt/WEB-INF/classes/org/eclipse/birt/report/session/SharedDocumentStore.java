@@ -0,0 +1,478 @@
+/*************************************************************************************
+ * Copyright (c) 2017 Actuate Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Actuate Corporation - Initial implementation.
+ ************************************************************************************/
+
+package org.eclipse.birt.report.session;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+
+import org.eclipse.birt.report.IBirtConstants;
+
+/**
+ * Store of the report documents shared by the viewing sessions.<br />
+ * A document is generated once for a given report design, parameter values,
+ * locale and time zone, and the viewing sessions which request the same
+ * document use it instead of generating their own. Each viewing session
+ * document is bound to at most one shared document, and a shared document is
+ * only deleted when no viewing session document is bound to it any longer.
+ * <ul>
+ * <li>A shared document is not used by new requests after the time to live
+ * has passed since it was generated.</li>
+ * <li>When the total size of the shared documents exceeds the maximum size,
+ * the least recently used documents which are not bound are deleted.</li>
+ * <li>Concurrent requests for the same document wait for a single
+ * generation.</li>
+ * </ul>
+ * The key does not identify the user, so the store is only meant for reports
+ * whose output does not depend on the HTTP session, the request or the user.
+ */
+public class SharedDocumentStore
+{
+
+	/**
+	 * Generates a report document.
+	 */
+	public interface IDocumentGenerator
+	{
+
+		/**
+		 * Generates the document.
+		 *
+		 * @param documentName
+		 *            the file path of the document to generate
+		 * @return true if the document was generated, false if the generation
+		 *         failed
+		 * @throws Exception
+		 */
+		boolean generate( String documentName ) throws Exception;
+	}
+
+	private String folder;
+
+	private long timeToLive;
+
+	private long maximumSize;
+
+	private long size;
+
+	private int documentCount;
+
+	/**
+	 * Linked hash map containing the documents by key in access order.
+	 */
+	private Map<String, Document> documents;
+
+	/**
+	 * The documents by viewing session document path.
+	 */
+	private Map<String, Document> bindings;
+
+	/**
+	 * The documents which are no longer used by new requests but are still
+	 * bound.
+	 */
+	private List<Document> retiredDocuments;
+
+	/**
+	 * Instantiates a new shared document store.
+	 *
+	 * @param folder
+	 *            the folder of the shared documents, which is cleared
+	 * @param timeToLive
+	 *            the time to live of a document in milliseconds, or 0 for no
+	 *            limit
+	 * @param maximumSize
+	 *            the maximum total size of the documents in bytes, or 0 for no
+	 *            limit
+	 */
+	public SharedDocumentStore( String folder, long timeToLive, long maximumSize )
+	{
+		this.folder = folder.endsWith( File.separator ) ? folder : folder
+				+ File.separator;
+		this.timeToLive = timeToLive;
+		this.maximumSize = maximumSize;
+		this.documents = new LinkedHashMap<String, Document>( 16, 0.75f, true );
+		this.bindings = new HashMap<String, Document>( );
+		this.retiredDocuments = new ArrayList<Document>( );
+
+		File dir = new File( this.folder );
+		deleteFile( dir );
+		dir.mkdirs( );
+	}
+
+	/**
+	 * Creates the key of a document.
+	 *
+	 * @param reportDesign
+	 *            path of the report design file
+	 * @param lastModified
+	 *            last modification time of the report design file
+	 * @param parameters
+	 *            parameter values by parameter name
+	 * @param locale
+	 * @param timeZone
+	 * @return the key
+	 */
+	public static String createKey( String reportDesign, long lastModified,
+			Map parameters, Locale locale, TimeZone timeZone )
+	{
+		StringBuffer key = new StringBuffer( );
+		key.append( reportDesign ).append( '|' ).append( lastModified );
+		key.append( '|' ).append( locale );
+		key.append( '|' ).append( timeZone == null ? null : timeZone.getID( ) );
+		if ( parameters != null )
+		{
+			Map<String, Object> sorted = new TreeMap<String, Object>( );
+			for ( Iterator i = parameters.entrySet( ).iterator( ); i.hasNext( ); )
+			{
+				Map.Entry entry = (Map.Entry) i.next( );
+				sorted.put( String.valueOf( entry.getKey( ) ), entry.getValue( ) );
+			}
+			for ( Iterator<Map.Entry<String, Object>> i = sorted.entrySet( )
+					.iterator( ); i.hasNext( ); )
+			{
+				Map.Entry<String, Object> entry = i.next( );
+				Object value = entry.getValue( );
+				key.append( '|' ).append( entry.getKey( ) ).append( '=' );
+				if ( value instanceof Object[] )
+				{
+					key.append( Arrays.deepToString( (Object[]) value ) );
+				}
+				else if ( value != null )
+				{
+					key.append( value.getClass( ).getName( ) ).append( ':' )
+							.append( value );
+				}
+				else
+				{
+					key.append( value );
+				}
+			}
+		}
+		return key.toString( );
+	}
+
+	/**
+	 * Returns the shared document for a key, and binds a viewing session
+	 * document to it. The document is generated if it does not exist, or the
+	 * calling thread waits for the document if it is being generated by
+	 * another request.
+	 *
+	 * @param sessionDocument
+	 *            path of the viewing session document
+	 * @param key
+	 *            key of the document
+	 * @param generator
+	 *            generator of the document
+	 * @return the path of the shared document, or null if the generation
+	 *         failed
+	 * @throws Exception
+	 *             if the generation failed
+	 */
+	public String getDocument( String sessionDocument, String key,
+			IDocumentGenerator generator ) throws Exception
+	{
+		while ( true )
+		{
+			Document document;
+			boolean generate = false;
+			synchronized ( this )
+			{
+				long now = System.currentTimeMillis( );
+				document = documents.get( key );
+				if ( document != null && document.isExpired( now ) )
+				{
+					retire( document );
+					document = null;
+				}
+				if ( document == null )
+				{
+					document = new Document( key, folder
+							+ "doc" + ( documentCount++ ) //$NON-NLS-1$
+							+ IBirtConstants.SUFFIX_REPORT_DOCUMENT, now );
+					documents.put( key, document );
+					generate = true;
+				}
+				bind( sessionDocument, document );
+				cleanUp( now );
+			}
+
+			if ( generate )
+			{
+				boolean generated = false;
+				try
+				{
+					generated = generator.generate( document.path );
+				}
+				finally
+				{
+					complete( sessionDocument, document, generated );
+				}
+				return generated ? document.path : null;
+			}
+
+			document.await( );
+			if ( document.generated )
+			{
+				return document.path;
+			}
+			// the generation failed in another request, retry
+		}
+	}
+
+	/**
+	 * Returns the shared document bound to a viewing session document.
+	 *
+	 * @param sessionDocument
+	 *            path of the viewing session document
+	 * @return the path of the shared document, or null if the viewing session
+	 *         document is not bound
+	 */
+	public synchronized String getBoundDocument( String sessionDocument )
+	{
+		Document document = bindings.get( sessionDocument );
+		return document == null ? null : document.path;
+	}
+
+	/**
+	 * Unbinds a viewing session document, and prevents the shared document it
+	 * was bound to from being used by new requests.
+	 *
+	 * @param sessionDocument
+	 *            path of the viewing session document
+	 */
+	public synchronized void invalidate( String sessionDocument )
+	{
+		Document document = bindings.get( sessionDocument );
+		if ( document != null )
+		{
+			retire( document );
+			release( sessionDocument );
+		}
+	}
+
+	/**
+	 * Unbinds the viewing session documents under a folder, when the viewing
+	 * sessions are cleared.
+	 *
+	 * @param sessionFolder
+	 *            folder of the viewing session documents
+	 */
+	public synchronized void releaseAll( String sessionFolder )
+	{
+		List<String> released = new ArrayList<String>( );
+		for ( Iterator<String> i = bindings.keySet( ).iterator( ); i.hasNext( ); )
+		{
+			String sessionDocument = i.next( );
+			if ( sessionDocument.startsWith( sessionFolder ) )
+			{
+				released.add( sessionDocument );
+			}
+		}
+		for ( int i = 0; i < released.size( ); i++ )
+		{
+			release( released.get( i ) );
+		}
+	}
+
+	private void bind( String sessionDocument, Document document )
+	{
+		if ( bindings.get( sessionDocument ) == document )
+		{
+			return;
+		}
+		release( sessionDocument );
+		bindings.put( sessionDocument, document );
+		document.references++;
+	}
+
+	private void release( String sessionDocument )
+	{
+		Document document = bindings.remove( sessionDocument );
+		if ( document != null )
+		{
+			document.references--;
+			if ( document.references == 0 && !document.isGenerating( )
+					&& retiredDocuments.remove( document ) )
+			{
+				delete( document );
+			}
+		}
+	}
+
+	/**
+	 * Prevents a document from being used by new requests. The document is
+	 * deleted when it is no longer bound.
+	 */
+	private void retire( Document document )
+	{
+		if ( documents.get( document.key ) == document )
+		{
+			documents.remove( document.key );
+			if ( document.references == 0 && !document.isGenerating( ) )
+			{
+				delete( document );
+			}
+			else
+			{
+				retiredDocuments.add( document );
+			}
+		}
+	}
+
+	private void complete( String sessionDocument, Document document,
+			boolean generated )
+	{
+		synchronized ( this )
+		{
+			if ( generated )
+			{
+				document.size = getFileSize( new File( document.path ) );
+				size += document.size;
+			}
+			else
+			{
+				release( sessionDocument );
+				retire( document );
+			}
+			document.generated = generated;
+			document.latch.countDown( );
+			if ( document.references == 0 && retiredDocuments.remove( document ) )
+			{
+				delete( document );
+			}
+			cleanUp( System.currentTimeMillis( ) );
+		}
+	}
+
+	/**
+	 * Retires the expired documents, and deletes the least recently used
+	 * documents which are not bound until the total size is below the
+	 * maximum size.
+	 */
+	private void cleanUp( long now )
+	{
+		List<Document> retired = new ArrayList<Document>( );
+		for ( Iterator<Document> i = documents.values( ).iterator( ); i
+				.hasNext( ); )
+		{
+			Document document = i.next( );
+			if ( document.isExpired( now ) )
+			{
+				retired.add( document );
+			}
+		}
+		if ( maximumSize > 0 && size > maximumSize )
+		{
+			// the iteration order is the least recently used first
+			long remainingSize = size;
+			for ( Iterator<Document> i = documents.values( ).iterator( ); i
+					.hasNext( )
+					&& remainingSize > maximumSize; )
+			{
+				Document document = i.next( );
+				if ( document.references == 0 && !document.isGenerating( )
+						&& !retired.contains( document ) )
+				{
+					retired.add( document );
+					remainingSize -= document.size;
+				}
+			}
+		}
+		for ( int i = 0; i < retired.size( ); i++ )
+		{
+			retire( retired.get( i ) );
+		}
+	}
+
+	private void delete( Document document )
+	{
+		size -= document.size;
+		document.size = 0;
+		deleteFile( new File( document.path ) );
+	}
+
+	private static long getFileSize( File file )
+	{
+		if ( file.isDirectory( ) )
+		{
+			long result = 0;
+			File[] children = file.listFiles( );
+			for ( int i = 0; children != null && i < children.length; i++ )
+			{
+				result += getFileSize( children[i] );
+			}
+			return result;
+		}
+		return file.length( );
+	}
+
+	private static void deleteFile( File file )
+	{
+		if ( file.isDirectory( ) )
+		{
+			File[] children = file.listFiles( );
+			for ( int i = 0; children != null && i < children.length; i++ )
+			{
+				deleteFile( children[i] );
+			}
+		}
+		file.delete( );
+	}
+
+	/**
+	 * A shared document.
+	 */
+	private class Document
+	{
+
+		String key;
+		String path;
+		long creationTime;
+		long size;
+		int references;
+		volatile boolean generated;
+		CountDownLatch latch = new CountDownLatch( 1 );
+
+		Document( String key, String path, long creationTime )
+		{
+			this.key = key;
+			this.path = path;
+			this.creationTime = creationTime;
+		}
+
+		boolean isGenerating( )
+		{
+			return latch.getCount( ) > 0;
+		}
+
+		boolean isExpired( long now )
+		{
+			return timeToLive > 0 && !isGenerating( )
+					&& now - creationTime >= timeToLive;
+		}
+
+		void await( ) throws InterruptedException
+		{
+			latch.await( );
+		}
+	}
+}
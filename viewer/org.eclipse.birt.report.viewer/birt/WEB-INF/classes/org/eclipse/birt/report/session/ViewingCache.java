@@ -33,6 +33,11 @@ public class ViewingCache implements Serializable
 	 */
 	private static final String PREFIX_SUB_IMAGE_FOLDER = "BIRTIMG"; //$NON-NLS-1$	
 
+	/**
+	 * Name of shared document folder
+	 */
+	private static final String SHARED_DOC_FOLDER = "BIRTSHAREDDOC"; //$NON-NLS-1$
+
 	/**
 	 * Document folder to put the report files and created documents.
 	 */
@@ -43,6 +48,12 @@ public class ViewingCache implements Serializable
 	 */
 	public String imageFolder = null;
 
+	/**
+	 * Store of the documents shared by the sessions, or null if the documents
+	 * are not shared
+	 */
+	private transient SharedDocumentStore sharedDocumentStore = null;
+
 	/**
 	 * Instantiates a new cache manager.
 	 * @param documentFolder base folder to use for cached documents
@@ -159,9 +170,14 @@ public class ViewingCache implements Serializable
 		if ( sessionId == null )
 			return;
 
-		deleteDir( documentFolder
+		String sessionFolder = documentFolder
 				+ getSessionSubfolder( PREFIX_SUB_DOC_FOLDER, sessionId,
-						subSessionId ) );
+						subSessionId );
+		if ( sharedDocumentStore != null )
+		{
+			sharedDocumentStore.releaseAll( sessionFolder );
+		}
+		deleteDir( sessionFolder );
 		deleteDir( imageFolder
 				+ getSessionSubfolder( PREFIX_SUB_IMAGE_FOLDER, sessionId,
 						subSessionId ) );
@@ -262,7 +278,9 @@ public class ViewingCache implements Serializable
 	}
 
 	/**
-	 * Return the document file according to report name
+	 * Return the document file according to report name. If the document of
+	 * the session is bound to a shared document, the shared document is
+	 * returned.
 	 * 
 	 * @param request
 	 * @param reportFile
@@ -270,6 +288,29 @@ public class ViewingCache implements Serializable
 	 * @return
 	 */
 	public String getReportDocument(String reportFile, String sessionId, String subSessionId, String viewerId) {
+		String documentFile = getSessionReportDocument(reportFile, sessionId,
+				subSessionId, viewerId);
+		if (documentFile != null && sharedDocumentStore != null) {
+			String sharedDocument = sharedDocumentStore
+					.getBoundDocument(documentFile);
+			if (sharedDocument != null) {
+				return sharedDocument;
+			}
+		}
+		return documentFile;
+	}
+
+	/**
+	 * Return the document file of the session according to report name
+	 * 
+	 * @param reportFile
+	 * @param sessionId
+	 * @param subSessionId
+	 * @param viewerId
+	 * @return
+	 */
+	public String getSessionReportDocument(String reportFile,
+			String sessionId, String subSessionId, String viewerId) {
 		if (reportFile == null)
 			return null;
 
@@ -280,5 +321,36 @@ public class ViewingCache implements Serializable
 
 		return documentFile;
 
-	}	
+	}
+
+	/**
+	 * Returns the folder of the documents shared by the sessions.
+	 * 
+	 * @return folder path
+	 */
+	public String getSharedDocumentFolder( )
+	{
+		return documentFolder + SHARED_DOC_FOLDER + File.separator;
+	}
+
+	/**
+	 * Returns the store of the documents shared by the sessions.
+	 * 
+	 * @return the store, or null if the documents are not shared
+	 */
+	public SharedDocumentStore getSharedDocumentStore( )
+	{
+		return sharedDocumentStore;
+	}
+
+	/**
+	 * Sets the store of the documents shared by the sessions.
+	 * 
+	 * @param sharedDocumentStore
+	 *            the store, or null if the documents are not shared
+	 */
+	public void setSharedDocumentStore( SharedDocumentStore sharedDocumentStore )
+	{
+		this.sharedDocumentStore = sharedDocumentStore;
+	}
 }
@@ -150,4 +150,48 @@ public class ViewingSessionUtil
 		return sessionId;
 	}
 
+	/**
+	 * Returns the store of the documents shared by the viewing sessions.
+	 * 
+	 * @return the store, or null if the documents are not shared
+	 */
+	public static SharedDocumentStore getSharedDocumentStore( )
+	{
+		return viewingCache == null ? null : viewingCache
+				.getSharedDocumentStore( );
+	}
+
+	/**
+	 * Returns the document of the current BIRT viewing session, if the given
+	 * document is either this document or the shared document it is bound
+	 * to.
+	 * 
+	 * @param request
+	 *            request
+	 * @param documentName
+	 *            document file path
+	 * @return the document of the viewing session, or null if the given
+	 *         document is not one of the viewing session
+	 */
+	public static String getSessionReportDocument( HttpServletRequest request,
+			String documentName )
+	{
+		SharedDocumentStore store = getSharedDocumentStore( );
+		HttpSession httpSession = request.getSession( false );
+		IViewingSession session = getSession( request );
+		if ( store == null || httpSession == null || session == null
+				|| session.isExpired( ) || documentName == null )
+		{
+			return null;
+		}
+		String sessionDocument = viewingCache.getSessionReportDocument(
+				ParameterAccessor.getReport( request, null ),
+				httpSession.getId( ), session.getId( ), null );
+		if ( documentName.equals( sessionDocument )
+				|| documentName.equals( store.getBoundDocument( sessionDocument ) ) )
+		{
+			return sessionDocument;
+		}
+		return null;
+	}
 }
@@ -168,6 +168,37 @@ public class BirtUtility
 		}
 	}
 
+	/**
+	 * Remove task from http session, after the request which added it has
+	 * returned
+	 * 
+	 * @param session
+	 * @param taskid
+	 */
+	public static void removeTask( HttpSession session, String taskid )
+	{
+		if ( session == null || taskid == null )
+			return;
+
+		try
+		{
+			// get task map
+			Map map = (Map) session.getAttribute( IBirtConstants.TASK_MAP );
+			if ( map == null )
+				return;
+
+			// remove task
+			synchronized ( map )
+			{
+				map.remove( taskid );
+			}
+		}
+		catch ( Exception e )
+		{
+			// the session may have been invalidated
+		}
+	}
+
 	/**
 	 * Cancel the current engine task by task id
 	 * 
@@ -50,6 +50,7 @@ import org.eclipse.birt.report.exception.ViewerException;
 import org.eclipse.birt.report.resource.BirtResources;
 import org.eclipse.birt.report.resource.ResourceConstants;
 import org.eclipse.birt.report.session.IViewingSession;
+import org.eclipse.birt.report.session.SharedDocumentStore;
 import org.eclipse.birt.report.session.ViewingCache;
 import org.eclipse.birt.report.session.ViewingSessionConfig;
 import org.eclipse.birt.report.session.ViewingSessionConfig.ViewingSessionPolicy;
@@ -633,6 +634,18 @@ public class ParameterAccessor
 	 */
 	public static boolean isSupportedPrintOnServer = true;
 
+	/**
+	 * Flag that indicates if the frameset serves the first pages of a report
+	 * while the document is still being generated.
+	 */
+	public static boolean isProgressiveViewing = false;
+
+	/**
+	 * Maximum number of reports generated in the background by progressive
+	 * runs. Above it, reports are generated in the request thread.
+	 */
+	public static int progressiveMaximumThreads = 10;
+
 	/**
 	 * Optimized HTML output flag
 	 */
@@ -1723,6 +1736,12 @@ public class ParameterAccessor
 			exportFilenameGenerator = new DefaultFilenameGenerator( );
 		}
 
+		isProgressiveViewing = "true".equalsIgnoreCase( getInitProp( "viewer.document.progressive" ) ); //$NON-NLS-1$ //$NON-NLS-2$
+		if ( getInitProp( "viewer.document.progressive.maximumThreads" ) != null ) //$NON-NLS-1$
+		{
+			progressiveMaximumThreads = getIntegerInitProp( "viewer.document.progressive.maximumThreads" ); //$NON-NLS-1$
+		}
+
 		initViewingSessionConfig( documentFolder, imageFolder );
 
 		// Finish init context
@@ -1778,6 +1797,16 @@ public class ParameterAccessor
 				ViewingSessionUtil.defaultConfig.setMaxSessionCountPolicy( ViewingSessionPolicy.SESSION_POLICY_DISCARD_OLDEST );
 				break;
 		}
+
+		// share the generated documents between the viewing sessions
+		if ( "true".equalsIgnoreCase( getInitProp( "viewer.document.shared" ) ) ) //$NON-NLS-1$ //$NON-NLS-2$
+		{
+			long timeToLive = getLongInitProp( "viewer.document.shared.timeToLive" ); //$NON-NLS-1$
+			long maximumSize = getLongInitProp( "viewer.document.shared.maximumSize" ); //$NON-NLS-1$
+			ViewingSessionUtil.viewingCache.setSharedDocumentStore( new SharedDocumentStore( ViewingSessionUtil.viewingCache.getSharedDocumentFolder( ),
+					Math.max( timeToLive, 0l ) * 1000l,
+					Math.max( maximumSize, 0l ) * 1024l * 1024l ) );
+		}
 	}
 
 	/**
@@ -1886,6 +1915,20 @@ public class ParameterAccessor
 		return isMasterPageContent;
 	}
 
+	/**
+	 * Check whether the report is viewed while its document is being
+	 * generated. Only the frameset serves the first pages before the document
+	 * is complete.
+	 * 
+	 * @param request
+	 * @return
+	 */
+	public static boolean isProgressiveViewing( HttpServletRequest request )
+	{
+		return isProgressiveViewing
+				&& IBirtConstants.SERVLET_PATH_FRAMESET.equalsIgnoreCase( request.getServletPath( ) );
+	}
+
 	/**
 	 * Check whether report design will overwrite report doc or not.
 	 * 
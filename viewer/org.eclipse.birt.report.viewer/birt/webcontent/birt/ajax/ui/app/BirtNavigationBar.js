@@ -72,7 +72,7 @@ BirtNavigationBar.prototype = Object.extend( new AbstractUIComponent( ),
 		this.__oTotalPage.innerHTML = ( oTotalPages && oTotalPages[0] )? oTotalPages[0].firstChild.data : '+';
 		
 		var pageNumber = parseInt( this.__oPageNumber.firstChild.data );
-		var totalPage = ( this.__oTotalPage.firstChild.data == '+' )? '+' : parseInt( this.__oTotalPage.firstChild.data );
+		var totalPage = this.__getTotalPage( );
 
 		var oImgs = this.__instance.getElementsByTagName( "INPUT" );
 		
@@ -90,6 +90,19 @@ BirtNavigationBar.prototype = Object.extend( new AbstractUIComponent( ),
 		oImgs[3].src = this._getImageFileName( this._IMAGE_LAST_PAGE, isLastPage );		
 	},
 	
+	/**
+	 *	Returns the total page number, or '+' if the report document is still
+	 *	being generated. The total page is then the number of pages available
+	 *	so far followed by '+'.
+	 *
+	 *	@return, total page number or '+'
+	 */
+	__getTotalPage : function( )
+	{
+		var totalPage = this.__oTotalPage.firstChild.data;
+		return ( totalPage.charAt( totalPage.length - 1 ) == '+' )? '+' : parseInt( totalPage );
+	},
+
 	_getImageFileName : function( base, disabled )
 	{
 		return this._IMAGE_PATH + base + ( disabled?this._IMAGE_DISABLED_SUFFIX:"" ) + this._IMAGE_EXTENSION;
@@ -145,7 +158,7 @@ BirtNavigationBar.prototype = Object.extend( new AbstractUIComponent( ),
 	__gotoGage : function( )
 	{
 		var iPageNo = -1;
-		var totalPage = ( this.__oTotalPage.firstChild.data == '+' )? '+' : parseInt( this.__oTotalPage.firstChild.data );
+		var totalPage = this.__getTotalPage( );
 		
 		var oGotoPage = $( 'gotoPage' );
 		var pageNo = oGotoPage.value;
@@ -153,7 +166,7 @@ BirtNavigationBar.prototype = Object.extend( new AbstractUIComponent( ),
 		{
 			iPageNo = parseInt( pageNo );
 		}
-		if ( iPageNo > 0 && iPageNo <= totalPage )
+		if ( iPageNo > 0 && ( totalPage == '+' || iPageNo <= totalPage ) )
 		{
 			birtEventDispatcher.broadcastEvent( birtEvent.__E_GETPAGE, { name : Constants.PARAM_PAGE, value : oGotoPage.value } );
 		}
@@ -173,7 +186,7 @@ BirtNavigationBar.prototype = Object.extend( new AbstractUIComponent( ),
 	__neh_click : function( event )
 	{
 		var pageNumber = parseInt( this.__oPageNumber.firstChild.data );
-		var totalPage = ( this.__oTotalPage.firstChild.data == '+' )? '+' : parseInt( this.__oTotalPage.firstChild.data );
+		var totalPage = this.__getTotalPage( );
 		
 		var oBtn = Event.element( event );
 		if ( oBtn )
@@ -206,7 +219,12 @@ BirtNavigationBar.prototype = Object.extend( new AbstractUIComponent( ),
  				}
    				case 'last':
  				{
- 					if ( totalPage == '+' || pageNumber < totalPage )
+ 					if ( totalPage == '+' )
+ 					{
+ 						// the last page available so far
+ 						totalPage = parseInt( this.__oTotalPage.firstChild.data );
+ 					}
+ 					if ( pageNumber < totalPage )
  					{
  						birtEventDispatcher.broadcastEvent( birtEvent.__E_GETPAGE, { name : Constants.PARAM_PAGE, value : totalPage } );
  					}
@@ -445,8 +445,9 @@ BirtUtility.prototype = {
 		var pageNum = 0;
 		var oPage = $('totalPage');
 		if (oPage) {
-			pageNum = (oPage.firstChild.data == '+') ? '+'
-					: parseInt(oPage.firstChild.data);
+			var totalPage = oPage.firstChild.data;
+			pageNum = (totalPage.charAt(totalPage.length - 1) == '+') ? '+'
+					: parseInt(totalPage);
 		}
 
 		return pageNum;